@@ -104,3 +104,8 @@ source step_a107_add_permission_admin_access.sql;
 source step_a108_audit_dicom_type_and_dicom_data.sql;
 source step_a109_update_user_settings_table_constraints_and_add_usergroups_permissions.sql;
 source step_a110_update_operations_table_change_ope_for_to_enum.sql;
+source step_a111_accounting_daily_rollups.sql;
+source step_a112_opd_statistics.sql;
+source step_a113_keyset_pagination_indexes.sql;
+source step_a114_id_pool.sql;
+source step_a115_archive_tables.sql;
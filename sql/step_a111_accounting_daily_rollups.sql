@@ -0,0 +1,37 @@
+-- Daily accounting totals by user, bill item and price list
+DROP TABLE IF EXISTS OH_BILLDAILYROLLUP;
+CREATE TABLE OH_BILLDAILYROLLUP (
+  BDR_ID int(11) NOT NULL AUTO_INCREMENT,
+  BDR_DATE date NOT NULL,
+  BDR_TYPE varchar(10) NOT NULL COMMENT 'USER|ITEM|PRICELIST',
+  BDR_KEY varchar(255) NOT NULL COMMENT 'user, item description or price list name',
+  BDR_COUNT bigint NOT NULL DEFAULT 0,
+  BDR_QTY bigint NOT NULL DEFAULT 0,
+  BDR_AMOUNT double NOT NULL DEFAULT 0,
+  BDR_BALANCE double NOT NULL DEFAULT 0,
+  PRIMARY KEY (BDR_ID),
+  UNIQUE KEY BDR_DATE_TYPE_KEY_UNIQUE (BDR_DATE, BDR_TYPE, BDR_KEY)
+) ENGINE=InnoDB;
+
+-- Totals of a day are recomputed from bills and payments of that day
+CREATE INDEX IDX_BLL_DATE ON OH_BILLS (BLL_DATE);
+CREATE INDEX IDX_BLP_DATE ON OH_BILLPAYMENTS (BLP_DATE);
+
+-- Backfill from existing data, deleted bills are not counted
+INSERT INTO OH_BILLDAILYROLLUP (BDR_DATE, BDR_TYPE, BDR_KEY, BDR_COUNT, BDR_QTY, BDR_AMOUNT, BDR_BALANCE)
+  SELECT DATE(BLP_DATE), 'USER', BLP_USR_ID_A, COUNT(*), 0, SUM(BLP_AMOUNT), 0
+  FROM OH_BILLPAYMENTS JOIN OH_BILLS ON BLP_ID_BILL = BLL_ID
+  WHERE BLL_STATUS IS NULL OR BLL_STATUS <> 'D'
+  GROUP BY DATE(BLP_DATE), BLP_USR_ID_A;
+
+INSERT INTO OH_BILLDAILYROLLUP (BDR_DATE, BDR_TYPE, BDR_KEY, BDR_COUNT, BDR_QTY, BDR_AMOUNT, BDR_BALANCE)
+  SELECT DATE(BLL_DATE), 'ITEM', COALESCE(BLI_ITEM_DESC, ''), COUNT(DISTINCT BLI_ID_BILL), SUM(BLI_QTY), SUM(BLI_ITEM_AMOUNT * BLI_QTY), 0
+  FROM OH_BILLITEMS JOIN OH_BILLS ON BLI_ID_BILL = BLL_ID
+  WHERE BLL_STATUS IS NULL OR BLL_STATUS <> 'D'
+  GROUP BY DATE(BLL_DATE), COALESCE(BLI_ITEM_DESC, '');
+
+INSERT INTO OH_BILLDAILYROLLUP (BDR_DATE, BDR_TYPE, BDR_KEY, BDR_COUNT, BDR_QTY, BDR_AMOUNT, BDR_BALANCE)
+  SELECT DATE(BLL_DATE), 'PRICELIST', COALESCE(BLL_LST_NAME, ''), COUNT(*), 0, COALESCE(SUM(BLL_AMOUNT), 0), COALESCE(SUM(BLL_BALANCE), 0)
+  FROM OH_BILLS
+  WHERE BLL_STATUS IS NULL OR BLL_STATUS <> 'D'
+  GROUP BY DATE(BLL_DATE), COALESCE(BLL_LST_NAME, '');
@@ -0,0 +1,25 @@
+-- Weekly OPD visit counts by ward, main disease, age type, sex and new/returning patient
+DROP TABLE IF EXISTS OH_OPDSTATISTIC;
+CREATE TABLE OH_OPDSTATISTIC (
+  OST_ID int(11) NOT NULL AUTO_INCREMENT,
+  OST_WEEK date NOT NULL COMMENT 'Monday of the ISO week',
+  OST_WRD_ID_A varchar(3) NOT NULL,
+  OST_DIS_ID_A varchar(10) NOT NULL DEFAULT '',
+  OST_DCL_ID_A varchar(2) NOT NULL DEFAULT '',
+  OST_AGE_TYPE varchar(4) NOT NULL DEFAULT '',
+  OST_SEX char(1) NOT NULL,
+  OST_NEW_PAT char(1) NOT NULL,
+  OST_COUNT bigint NOT NULL DEFAULT 0,
+  PRIMARY KEY (OST_ID),
+  UNIQUE KEY OST_KEY_UNIQUE (OST_WEEK, OST_WRD_ID_A, OST_DIS_ID_A, OST_DCL_ID_A, OST_AGE_TYPE, OST_SEX, OST_NEW_PAT)
+) ENGINE=InnoDB;
+
+-- Backfill from existing visits
+INSERT INTO OH_OPDSTATISTIC (OST_WEEK, OST_WRD_ID_A, OST_DIS_ID_A, OST_DCL_ID_A, OST_AGE_TYPE, OST_SEX, OST_NEW_PAT, OST_COUNT)
+  SELECT DATE_SUB(DATE(OPD_DATE), INTERVAL WEEKDAY(OPD_DATE) DAY), OPD_WRD_ID_A, COALESCE(OPD_DIS_ID_A, ''), COALESCE(DIS_DCL_ID_A, ''),
+    COALESCE(AT_CODE, ''), OPD_SEX, OPD_NEW_PAT, COUNT(*)
+  FROM OH_OPD
+    LEFT JOIN OH_DISEASE ON OPD_DIS_ID_A = DIS_ID_A
+    LEFT JOIN OH_AGETYPE ON OPD_AGE BETWEEN AT_FROM AND AT_TO
+  GROUP BY DATE_SUB(DATE(OPD_DATE), INTERVAL WEEKDAY(OPD_DATE) DAY), OPD_WRD_ID_A, COALESCE(OPD_DIS_ID_A, ''), COALESCE(DIS_DCL_ID_A, ''),
+    COALESCE(AT_CODE, ''), OPD_SEX, OPD_NEW_PAT;
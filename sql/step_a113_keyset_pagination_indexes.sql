@@ -0,0 +1,5 @@
+-- Keyset pagination seeks on (date, id) descending
+CREATE INDEX IDX_LAB_DATE_ID ON OH_LABORATORY (LAB_DATE, LAB_ID);
+CREATE INDEX IDX_OPD_DATE_ID ON OH_OPD (OPD_DATE, OPD_ID);
+CREATE INDEX IDX_ADM_DATE_ADM_ID ON OH_ADMISSION (ADM_DATE_ADM, ADM_ID);
+CREATE INDEX IDX_PEX_PAT_DATE_ID ON OH_PATIENTEXAMINATION (PEX_PAT_ID, PEX_DATE, PEX_ID);
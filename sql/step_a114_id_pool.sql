@@ -0,0 +1,6 @@
+-- Blocks of identifiers reserved by the entities configured with pooled identifiers (oh.id.pooled)
+CREATE TABLE IF NOT EXISTS OH_ID_POOL (
+  IDP_ENTITY varchar(100) NOT NULL,
+  IDP_LAST_ID bigint NOT NULL,
+  PRIMARY KEY (IDP_ENTITY)
+) ENGINE=InnoDB;
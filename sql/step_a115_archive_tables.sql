@@ -0,0 +1,22 @@
+-- Archive tables receiving the closed records older than the archive horizon (ARCHIVEHORIZON), with the same columns and indexes but
+-- without foreign keys
+CREATE TABLE IF NOT EXISTS OH_MEDICALDSRSTOCKMOV_ARCHIVE LIKE OH_MEDICALDSRSTOCKMOV;
+CREATE TABLE IF NOT EXISTS OH_OPD_ARCHIVE LIKE OH_OPD;
+CREATE TABLE IF NOT EXISTS OH_LABORATORY_ARCHIVE LIKE OH_LABORATORY;
+CREATE TABLE IF NOT EXISTS OH_LABORATORYROW_ARCHIVE LIKE OH_LABORATORYROW;
+CREATE TABLE IF NOT EXISTS OH_BILLS_ARCHIVE LIKE OH_BILLS;
+CREATE TABLE IF NOT EXISTS OH_BILLITEMS_ARCHIVE LIKE OH_BILLITEMS;
+CREATE TABLE IF NOT EXISTS OH_BILLPAYMENTS_ARCHIVE LIKE OH_BILLPAYMENTS;
+CREATE TABLE IF NOT EXISTS OH_SMS_ARCHIVE LIKE OH_SMS;
+CREATE TABLE IF NOT EXISTS OH_SESSION_AUDIT_ARCHIVE LIKE OH_SESSION_AUDIT;
+
+-- Restored records, kept in their table until APN_UNTIL
+CREATE TABLE IF NOT EXISTS OH_ARCHIVE_PIN (
+  APN_ID int(11) NOT NULL AUTO_INCREMENT,
+  APN_TABLE varchar(64) NOT NULL,
+  APN_RECORD_ID int(11) NOT NULL,
+  APN_UNTIL datetime NOT NULL,
+  PRIMARY KEY (APN_ID),
+  UNIQUE KEY APN_RECORD_UNIQUE (APN_TABLE, APN_RECORD_ID),
+  KEY APN_UNTIL_INDEX (APN_UNTIL)
+) ENGINE=InnoDB;
@@ -0,0 +1,178 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.benchmark;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.isf.OpenHospitalCoreApplication;
+import org.isf.admtype.TestAdmissionType;
+import org.isf.admtype.service.AdmissionTypeIoOperationRepository;
+import org.isf.disctype.TestDischargeType;
+import org.isf.disctype.service.DischargeTypeIoOperationRepository;
+import org.isf.disease.TestDisease;
+import org.isf.disease.model.Disease;
+import org.isf.disease.service.DiseaseIoOperationRepository;
+import org.isf.distype.TestDiseaseType;
+import org.isf.distype.model.DiseaseType;
+import org.isf.distype.service.DiseaseTypeIoOperationRepository;
+import org.isf.medicals.TestMedical;
+import org.isf.medicals.model.Medical;
+import org.isf.medicals.service.MedicalsIoOperationRepository;
+import org.isf.medicalstock.TestLot;
+import org.isf.medicalstock.manager.MovStockInsertingManager;
+import org.isf.medicalstock.model.Lot;
+import org.isf.medicalstock.model.Movement;
+import org.isf.medicalstock.service.LotIoOperationRepository;
+import org.isf.medstockmovtype.TestMovementType;
+import org.isf.medstockmovtype.model.MovementType;
+import org.isf.medstockmovtype.service.MedicalDsrStockMovementTypeIoOperationRepository;
+import org.isf.medtype.TestMedicalType;
+import org.isf.medtype.model.MedicalType;
+import org.isf.medtype.service.MedicalTypeIoOperationRepository;
+import org.isf.patient.model.Patient;
+import org.isf.patient.service.PatientIoOperationRepository;
+import org.isf.priceslist.TestPriceList;
+import org.isf.priceslist.model.PriceList;
+import org.isf.priceslist.service.PricesListIoOperationRepository;
+import org.isf.supplier.TestSupplier;
+import org.isf.supplier.model.Supplier;
+import org.isf.supplier.service.SupplierIoOperationRepository;
+import org.isf.ward.TestWard;
+import org.isf.ward.model.Ward;
+import org.isf.utils.datagen.DataGeneratorSettings;
+import org.isf.utils.datagen.JdbcBatchSink;
+import org.isf.utils.datagen.RowSink;
+import org.isf.utils.datagen.SyntheticDataGenerator;
+import org.isf.ward.service.WardIoOperationRepository;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Spring context on the in-memory H2 database of the tests (MySQL mode) seeded with the histories of {@link #patients} patients from the
+ * {@link SyntheticDataGenerator}. The reference data comes from the test fixtures.
+ */
+@State(Scope.Benchmark)
+public class HospitalState {
+
+	private static final int BATCH_SIZE = 1000;
+
+	@Param({ "1000" })
+	public int patients;
+
+	ConfigurableApplicationContext context;
+	TransactionTemplate transactionTemplate;
+
+	Ward ward;
+	Disease disease;
+	Medical medical;
+	Lot lot;
+	MovementType chargeType;
+	MovementType dischargeType;
+	Supplier supplier;
+	PriceList priceList;
+	Patient patient;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		context = new SpringApplicationBuilder(OpenHospitalCoreApplication.class).web(WebApplicationType.NONE).run();
+		transactionTemplate = new TransactionTemplate(getBean(PlatformTransactionManager.class));
+		seedReferenceData();
+		seedPatients();
+		seedStock();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	<T> T getBean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+	/**
+	 * Runs the operation in a transaction that is rolled back, so that the dataset does not change between invocations.
+	 */
+	void inRolledBackTransaction(Consumer<HospitalState> operation) {
+		transactionTemplate.executeWithoutResult(status -> {
+			operation.accept(this);
+			status.setRollbackOnly();
+		});
+	}
+
+	private void seedReferenceData() throws Exception {
+		ward = getBean(WardIoOperationRepository.class).saveAndFlush(new TestWard().setup(false));
+		DiseaseType diseaseType = getBean(DiseaseTypeIoOperationRepository.class).saveAndFlush(new TestDiseaseType().setup(false));
+		disease = getBean(DiseaseIoOperationRepository.class).saveAndFlush(new TestDisease().setup(diseaseType, true, true, true, false));
+		MedicalType medicalType = getBean(MedicalTypeIoOperationRepository.class).saveAndFlush(new TestMedicalType().setup(false));
+		medical = getBean(MedicalsIoOperationRepository.class).saveAndFlush(new TestMedical().setup(medicalType, false));
+		lot = getBean(LotIoOperationRepository.class).saveAndFlush(new TestLot().setup(medical, false));
+		MedicalDsrStockMovementTypeIoOperationRepository movementTypes = getBean(MedicalDsrStockMovementTypeIoOperationRepository.class);
+		chargeType = movementTypes.saveAndFlush(new TestMovementType().setup(false));
+		MovementType discharge = new TestMovementType().setup(false);
+		discharge.setCode("ZZDISC");
+		discharge.setType("-");
+		dischargeType = movementTypes.saveAndFlush(discharge);
+		supplier = getBean(SupplierIoOperationRepository.class).saveAndFlush(new TestSupplier().setup(false));
+		priceList = getBean(PricesListIoOperationRepository.class).saveAndFlush(new TestPriceList().setup(false));
+	}
+
+	private void seedPatients() throws Exception {
+		getBean(AdmissionTypeIoOperationRepository.class).saveAndFlush(new TestAdmissionType().setup(false));
+		getBean(DischargeTypeIoOperationRepository.class).saveAndFlush(new TestDischargeType().setup(false));
+		DataGeneratorSettings settings = new DataGeneratorSettings();
+		settings.setPatients(patients);
+		settings.setUntil(LocalDate.of(2024, 12, 31));
+		// the stock benchmarks work on the seeded lot
+		settings.setStockMovements(0);
+		DataSource dataSource = getBean(DataSource.class);
+		try (Connection connection = dataSource.getConnection(); RowSink sink = new JdbcBatchSink(connection, BATCH_SIZE)) {
+			new SyntheticDataGenerator(settings).generate(connection, sink);
+		}
+		patient = getBean(PatientIoOperationRepository.class).findById(1).orElseThrow();
+	}
+
+	private void seedStock() throws Exception {
+		Movement charge = new Movement(medical, chargeType, null, lot, LocalDateTime.of(2023, 1, 1, 8, 0), 1_000_000, supplier, "SEED");
+		getBean(MovStockInsertingManager.class).newMultipleChargingMovements(new ArrayList<>(List.of(charge)), "SEED");
+		medical = getBean(MedicalsIoOperationRepository.class).findById(medical.getCode()).orElseThrow();
+		// the lots as listed for a discharge, with their stock quantity
+		lot = getBean(MovStockInsertingManager.class).getLotByMedical(medical).get(0);
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.accounting.TestBill;
+import org.isf.accounting.TestBillItems;
+import org.isf.accounting.TestBillPayments;
+import org.isf.accounting.manager.BillBrowserManager;
+import org.isf.accounting.model.Bill;
+import org.isf.accounting.model.BillItems;
+import org.isf.accounting.model.BillPayments;
+import org.isf.admission.manager.AdmissionBrowserManager;
+import org.isf.admission.model.AdmittedPatient;
+import org.isf.medicalstock.manager.MovStockInsertingManager;
+import org.isf.medicalstock.model.Lot;
+import org.isf.medicalstock.model.Movement;
+import org.isf.opd.manager.OpdBrowserManager;
+import org.isf.opd.model.Opd;
+import org.isf.patient.manager.PatientBrowserManager;
+import org.isf.patient.model.Patient;
+import org.isf.utils.exception.OHException;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.exception.model.OHExceptionMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hot paths of the core managers on the {@link HospitalState} dataset; the writing benchmarks are rolled back after each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class ManagerBenchmark {
+
+	@Benchmark
+	public List<Patient> searchPatients(HospitalState hospital) throws OHServiceException {
+		return hospital.getBean(PatientBrowserManager.class).getPatientsByOneOfFieldsLike("okello");
+	}
+
+	@Benchmark
+	public List<AdmittedPatient> listAdmittedPatients(HospitalState hospital) throws OHServiceException {
+		return hospital.getBean(AdmissionBrowserManager.class).getAdmittedPatients();
+	}
+
+	@Benchmark
+	public List<Opd> filterOpd(HospitalState hospital) throws OHServiceException {
+		return hospital.getBean(OpdBrowserManager.class).getOpd(hospital.ward, hospital.disease.getType().getCode(), hospital.disease.getCode(),
+						LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 31), 0, 90, 'F', 'N', null);
+	}
+
+	@Benchmark
+	public List<Lot> listLots(HospitalState hospital) throws OHServiceException {
+		return hospital.getBean(MovStockInsertingManager.class).getLotByMedical(hospital.medical);
+	}
+
+	@Benchmark
+	public void chargeAndDischarge(HospitalState hospital) {
+		MovStockInsertingManager manager = hospital.getBean(MovStockInsertingManager.class);
+		hospital.inRolledBackTransaction(state -> {
+			LocalDateTime now = LocalDateTime.now().minusMinutes(1);
+			Movement charge = new Movement(state.medical, state.chargeType, null, state.lot, now, 10, state.supplier, "BENCH-IN");
+			Movement discharge = new Movement(state.medical, state.dischargeType, state.ward, state.lot, now, 10, null, "BENCH-OUT");
+			try {
+				manager.newMultipleChargingMovements(new ArrayList<>(List.of(charge)), "BENCH-IN");
+				manager.newMultipleDischargingMovements(new ArrayList<>(List.of(discharge)), "BENCH-OUT");
+			} catch (OHServiceException e) {
+				throw failure(e);
+			}
+		});
+	}
+
+	@Benchmark
+	public void saveBill(HospitalState hospital) {
+		BillBrowserManager manager = hospital.getBean(BillBrowserManager.class);
+		hospital.inRolledBackTransaction(state -> {
+			try {
+				Bill bill = new TestBill().setup(state.priceList, state.patient, null, false);
+				List<BillItems> items = new ArrayList<>(List.of(new TestBillItems().setup(null, false)));
+				BillPayments payment = new TestBillPayments().setup(null, false);
+				payment.setDate(bill.getDate());
+				List<BillPayments> payments = new ArrayList<>(List.of(payment));
+				manager.newBill(bill, items, payments);
+			} catch (OHException | OHServiceException e) {
+				throw failure(e);
+			}
+		});
+	}
+
+	/**
+	 * @return an unchecked exception carrying the validation messages, which JMH reports as the failure of the benchmark
+	 */
+	private static IllegalStateException failure(Exception exception) {
+		String detail = exception instanceof OHServiceException serviceException
+						? serviceException.getMessages().stream().map(OHExceptionMessage::getMessage).toList().toString()
+						: exception.getMessage();
+		return new IllegalStateException(detail, exception);
+	}
+
+}
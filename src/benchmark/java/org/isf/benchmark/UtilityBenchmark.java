@@ -0,0 +1,128 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.benchmark;
+
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PropertyResourceBundle;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.generaldata.MessageBundle;
+import org.isf.serviceprinting.print.PriceForPrint;
+import org.isf.utils.db.BCrypt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import net.sf.jasperreports.engine.util.JRLoader;
+
+/**
+ * Hot paths that do not need the database: message formatting, password checks and report filling.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@State(Scope.Benchmark)
+public class UtilityBenchmark {
+
+	private static final String PASSWORD = "Benchmark-Passw0rd";
+	private static final String MESSAGE_KEY = "angal.ward.theselectedwardhaspatients.fmt.msg";
+
+	/**
+	 * Rows of the filled report.
+	 */
+	@Param({ "1000" })
+	public int rows;
+
+	private String hashedPassword;
+	private JasperReport report;
+	private ResourceBundle reportBundle;
+	private List<PriceForPrint> prices;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		// the translations ship with the GUI, the message is the English one
+		ResourceBundle bundle = new PropertyResourceBundle(new StringReader(MESSAGE_KEY + "=The selected ward has {0} patients."));
+		for (String field : List.of("resourceBundle", "defaultResourceBundle")) {
+			Field bundleField = MessageBundle.class.getDeclaredField(field);
+			bundleField.setAccessible(true);
+			bundleField.set(null, bundle);
+		}
+		hashedPassword = BCrypt.hashpw(PASSWORD, BCrypt.gensalt());
+		report = (JasperReport) JRLoader.loadObjectFromFile("rpt_base/TestReport.jasper");
+		reportBundle = new PropertyResourceBundle(new StringReader("PriceList=Price list"));
+		prices = new ArrayList<>(rows);
+		for (int i = 0; i < rows; i++) {
+			PriceForPrint price = new PriceForPrint();
+			price.setList("List");
+			price.setGroup("Group" + i % 10);
+			price.setDesc("Item " + i);
+			price.setPrice(i * 1.5);
+			price.setCurrency("USD");
+			prices.add(price);
+		}
+	}
+
+	@Benchmark
+	public String formatMessage() {
+		return MessageBundle.formatMessage(MESSAGE_KEY, 12);
+	}
+
+	@Benchmark
+	public boolean checkPassword() {
+		return BCrypt.checkpw(PASSWORD, hashedPassword);
+	}
+
+	/**
+	 * Fills the report shipped in {@code rpt_base}, the same way {@link org.isf.stat.manager.JasperReportsManager} fills the hospital reports.
+	 */
+	@Benchmark
+	public JasperPrint fillReport() throws JRException {
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("ospedaleNome", "Benchmark Hospital");
+		parameters.put(JRParameter.REPORT_RESOURCE_BUNDLE, reportBundle);
+		return JasperFillManager.fillReport(report, parameters, new JRBeanCollectionDataSource(prices));
+	}
+
+}
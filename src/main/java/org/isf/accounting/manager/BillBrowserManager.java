@@ -21,14 +21,18 @@
  */
 package org.isf.accounting.manager;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.isf.accounting.enums.BillRollupType;
 import org.isf.accounting.model.Bill;
+import org.isf.accounting.model.BillDailyRollup;
 import org.isf.accounting.model.BillItems;
 import org.isf.accounting.model.BillPayments;
 import org.isf.accounting.service.AccountingIoOperations;
+import org.isf.accounting.service.AccountingRollupIoOperations;
 import org.isf.generaldata.MessageBundle;
 import org.isf.patient.model.Patient;
 import org.isf.utils.db.TranslateOHServiceException;
@@ -44,8 +48,11 @@ public class BillBrowserManager {
 
 	private AccountingIoOperations ioOperations;
 
-	public BillBrowserManager(AccountingIoOperations accountingIoOperations) {
+	private AccountingRollupIoOperations rollupIoOperations;
+
+	public BillBrowserManager(AccountingIoOperations accountingIoOperations, AccountingRollupIoOperations accountingRollupIoOperations) {
 		this.ioOperations = accountingIoOperations;
+		this.rollupIoOperations = accountingRollupIoOperations;
 	}
 
 	/**
@@ -156,12 +163,11 @@ public class BillBrowserManager {
 			List<BillPayments> billPayments) throws OHServiceException {
 		validateBill(bill, billItems, billPayments);
 		Bill newBill = newBill(bill);
-		int billId = newBill.getId();
 		if (!billItems.isEmpty()) {
-			newBillItems(billId, billItems);
+			newBillItems(newBill, billItems);
 		}
 		if (!billPayments.isEmpty()) {
-			newBillPayments(billId, billPayments);
+			newBillPayments(newBill, billPayments);
 		}
 		return newBill;
 	}
@@ -178,22 +184,22 @@ public class BillBrowserManager {
 
 	/**
 	 * Stores a list of {@link BillItems} associated to a {@link Bill}.
-	 * @param billID the bill id.
+	 * @param bill the persisted bill.
 	 * @param billItems the bill items to store.
 	 * @throws OHServiceException
 	 */
-	private void newBillItems(int billID, List<BillItems> billItems) throws OHServiceException {
-		ioOperations.newBillItems(ioOperations.getBill(billID), billItems);
+	private void newBillItems(Bill bill, List<BillItems> billItems) throws OHServiceException {
+		ioOperations.newBillItems(bill, billItems);
 	}
 	
 	/**
 	 * Stores a list of {@link BillPayments} associated to a {@link Bill}.
-	 * @param billID the bill id.
+	 * @param bill the persisted bill.
 	 * @param payItems the bill payments.
 	 * @throws OHServiceException
 	 */
-	private void newBillPayments(int billID, List<BillPayments> payItems) throws OHServiceException {
-		ioOperations.newBillPayments(ioOperations.getBill(billID), payItems);
+	private void newBillPayments(Bill bill, List<BillPayments> payItems) throws OHServiceException {
+		ioOperations.newBillPayments(bill, payItems);
 	}
 	
 	/**
@@ -211,8 +217,8 @@ public class BillBrowserManager {
 			List<BillPayments> billPayments) throws OHServiceException {
 		validateBill(updateBill, billItems, billPayments);
 		Bill updatedBill = updateBill(updateBill);
-		newBillItems(updateBill.getId(), billItems);
-		newBillPayments(updateBill.getId(), billPayments);
+		newBillItems(updatedBill, billItems);
+		newBillPayments(updatedBill, billPayments);
 		return updatedBill;
 	}
 
@@ -341,4 +347,40 @@ public class BillBrowserManager {
 	public List<Bill> getBills(LocalDateTime dateFrom, LocalDateTime dateTo,BillItems billItem) throws OHServiceException {
 		return ioOperations.getBillsBetweenDatesWhereBillItem(dateFrom, dateTo, billItem);
 	}
+
+	/**
+	 * Retrieves the daily accounting totals of the given type for the specified date range,
+	 * without loading the underlying bills and payments.
+	 * @param type the rollup type.
+	 * @param dateFrom the low date range endpoint, inclusive.
+	 * @param dateTo the high date range endpoint, inclusive.
+	 * @return the list of {@link BillDailyRollup}s ordered by date and key.
+	 * @throws OHServiceException
+	 */
+	public List<BillDailyRollup> getDailyRollups(BillRollupType type, LocalDate dateFrom, LocalDate dateTo) throws OHServiceException {
+		return rollupIoOperations.getDailyRollups(type, dateFrom, dateTo);
+	}
+
+	/**
+	 * Retrieves the accounting totals of each key of the given type over the specified date range,
+	 * e.g. the payments collected by each user for the cashier summary.
+	 * @param type the rollup type.
+	 * @param dateFrom the low date range endpoint, inclusive.
+	 * @param dateTo the high date range endpoint, inclusive.
+	 * @return the list of {@link BillDailyRollup}s, without date, ordered by key.
+	 * @throws OHServiceException
+	 */
+	public List<BillDailyRollup> getRollupTotals(BillRollupType type, LocalDate dateFrom, LocalDate dateTo) throws OHServiceException {
+		return rollupIoOperations.getRollupTotals(type, dateFrom, dateTo);
+	}
+
+	/**
+	 * Recomputes the daily accounting totals for the specified date range.
+	 * @param dateFrom the low date range endpoint, inclusive.
+	 * @param dateTo the high date range endpoint, inclusive.
+	 * @throws OHServiceException
+	 */
+	public void rebuildRollups(LocalDate dateFrom, LocalDate dateTo) throws OHServiceException {
+		rollupIoOperations.rebuild(dateFrom, dateTo);
+	}
 }
@@ -27,8 +27,6 @@ import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -40,6 +38,7 @@ import org.isf.admission.model.Admission;
 import org.isf.patient.model.Patient;
 import org.isf.priceslist.model.PriceList;
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 import org.isf.utils.time.TimeTools;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -54,7 +53,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 public class Bill extends Auditable<String> implements Cloneable, Comparable<Bill> {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name = "BLL_ID")
 	private int id;
 
@@ -0,0 +1,48 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.accounting.model;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Published whenever {@link Bill}s, {@link BillItems} or {@link BillPayments} are written, with the days whose accounting totals may have changed.
+ */
+public class BillChangedEvent {
+
+	private final Set<LocalDate> days;
+
+	public BillChangedEvent(Collection<LocalDate> days) {
+		this.days = Collections.unmodifiableSet(new TreeSet<>(days));
+	}
+
+	/**
+	 * @return the affected days, in ascending order
+	 */
+	public Set<LocalDate> getDays() {
+		return days;
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.accounting.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.validation.constraints.NotNull;
+
+import org.isf.accounting.enums.BillRollupType;
+import org.isf.utils.db.OHGeneratedValue;
+
+/**
+ * Daily accounting totals for one key of a {@link BillRollupType}, derived from {@link Bill}s, {@link BillItems} and {@link BillPayments}.
+ * <ul>
+ * <li>{@link BillRollupType#USER}: {@code count} payments for {@code amount} collected by the user on the day</li>
+ * <li>{@link BillRollupType#ITEM}: {@code count} bills of the day billing {@code quantity} units of the item for {@code amount}</li>
+ * <li>{@link BillRollupType#PRICELIST}: {@code count} bills of the day on the price list for {@code amount}, {@code balance} still to be paid</li>
+ * </ul>
+ * Deleted bills are not counted.
+ */
+@Entity
+@Table(name = "OH_BILLDAILYROLLUP")
+public class BillDailyRollup {
+
+	@Id
+	@OHGeneratedValue
+	@Column(name = "BDR_ID")
+	private int id;
+
+	@NotNull
+	@Column(name = "BDR_DATE")
+	private LocalDate date;
+
+	@NotNull
+	@Enumerated(EnumType.STRING)
+	@Column(name = "BDR_TYPE")
+	private BillRollupType type;
+
+	@NotNull
+	@Column(name = "BDR_KEY")
+	private String key;
+
+	@NotNull
+	@Column(name = "BDR_COUNT")
+	private long count;
+
+	@NotNull
+	@Column(name = "BDR_QTY")
+	private long quantity;
+
+	@NotNull
+	@Column(name = "BDR_AMOUNT")
+	private double amount;
+
+	@NotNull
+	@Column(name = "BDR_BALANCE")
+	private double balance;
+
+	@Transient
+	private volatile int hashCode;
+
+	public BillDailyRollup() {
+		super();
+	}
+
+	public BillDailyRollup(LocalDate date, BillRollupType type, String key, long count, long quantity, double amount, double balance) {
+		super();
+		this.date = date;
+		this.type = type;
+		this.key = key;
+		this.count = count;
+		this.quantity = quantity;
+		this.amount = amount;
+		this.balance = balance;
+	}
+
+	/**
+	 * Used by range queries summing the daily rows of each key, {@code date} is left {@code null}.
+	 */
+	public BillDailyRollup(BillRollupType type, String key, Long count, Long quantity, Double amount, Double balance) {
+		this(null, type, key, count, quantity, amount, balance);
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
+	public LocalDate getDate() {
+		return date;
+	}
+
+	public void setDate(LocalDate date) {
+		this.date = date;
+	}
+
+	public BillRollupType getType() {
+		return type;
+	}
+
+	public void setType(BillRollupType type) {
+		this.type = type;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+	public long getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(long quantity) {
+		this.quantity = quantity;
+	}
+
+	public double getAmount() {
+		return amount;
+	}
+
+	public void setAmount(double amount) {
+		this.amount = amount;
+	}
+
+	public double getBalance() {
+		return balance;
+	}
+
+	public void setBalance(double balance) {
+		this.balance = balance;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof BillDailyRollup)) {
+			return false;
+		}
+		BillDailyRollup rollup = (BillDailyRollup) obj;
+		return id == rollup.getId();
+	}
+
+	@Override
+	public int hashCode() {
+		if (this.hashCode == 0) {
+			final int m = 23;
+			int c = 133;
+
+			c = m * c + id;
+
+			this.hashCode = c;
+		}
+		return this.hashCode;
+	}
+
+	@Override
+	public String toString() {
+		return date + " " + type + " " + key;
+	}
+
+}
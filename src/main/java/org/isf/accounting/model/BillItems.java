@@ -25,8 +25,6 @@ import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -35,6 +33,7 @@ import jakarta.persistence.Transient;
 import jakarta.validation.constraints.NotNull;
 
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 @Entity
@@ -48,7 +47,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 public class BillItems extends Auditable<String> {
 
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name="BLI_ID")
 	private int id;
 	
@@ -27,8 +27,6 @@ import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -37,6 +35,7 @@ import jakarta.persistence.Transient;
 import jakarta.validation.constraints.NotNull;
 
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 import org.isf.utils.time.TimeTools;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -51,7 +50,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 public class BillPayments extends Auditable<String> implements Comparable<BillPayments> {
 
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name="BLP_ID")
 	private int id;
 	
@@ -25,7 +25,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import org.isf.accounting.model.Bill;
+import org.isf.patient.model.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -65,6 +67,13 @@ public interface AccountingBillIoOperationRepository extends JpaRepository<Bill,
 	@Query(value = "select distinct b.user FROM Bill b ORDER BY b.user asc")
 	List<String> findUserDistinctByOrderByUserAsc();
 
+	@Query(value = "select b.date from Bill b where b.id = :id")
+	LocalDateTime findDateById(@Param("id") int id);
+
 	@Query("select count(b) from Bill b where active=1")
 	long countAllActiveBills();
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query(value = "update Bill b set b.billPatient = :mergedPatient, b.patName = :patName where b.billPatient = :obsoletePatient")
+	int updatePatient(@Param("obsoletePatient") Patient obsoletePatient, @Param("mergedPatient") Patient mergedPatient, @Param("patName") String patName);
 }
\ No newline at end of file
@@ -50,6 +50,9 @@ public interface AccountingBillPaymentIoOperationRepository extends JpaRepositor
 	@Query(value = "SELECT BP FROM BillPayments BP WHERE BP.bill.id = :billId ORDER BY BP.bill, BP.date ASC")
 	List<BillPayments> findAllWherBillIdByOrderByBillAndDate(@Param("billId") Integer billId);
 
+	@Query(value = "SELECT DISTINCT BP.date FROM BillPayments BP WHERE BP.bill.id = :billId")
+	List<LocalDateTime> findDatesByBillId(@Param("billId") Integer billId);
+
 	@Modifying
 	@Query(value = "DELETE FROM BillPayments BP where BP.bill.id = :billId")
 	void deleteWhereId(@Param("billId") Integer billId);
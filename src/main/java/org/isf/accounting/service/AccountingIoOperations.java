@@ -21,19 +21,30 @@
  */
 package org.isf.accounting.service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 
 import org.isf.accounting.model.Bill;
+import org.isf.accounting.model.BillChangedEvent;
 import org.isf.accounting.model.BillItems;
 import org.isf.accounting.model.BillPayments;
+import org.isf.archive.model.ArchiveTable;
+import org.isf.archive.service.ArchiveIoOperations;
 import org.isf.patient.model.Patient;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.time.TimeTools;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -48,13 +59,19 @@ public class AccountingIoOperations {
 	private AccountingBillIoOperationRepository billRepository;
 	private AccountingBillPaymentIoOperationRepository billPaymentRepository;
 	private AccountingBillItemsIoOperationRepository billItemsRepository;
+	private ApplicationEventPublisher applicationEventPublisher;
+	private ArchiveIoOperations archiveIoOperations;
 
 	public AccountingIoOperations(AccountingBillIoOperationRepository accountingBillIoOperationRepository,
 	                              AccountingBillPaymentIoOperationRepository accountingBillPaymentIoOperationRepository,
-	                              AccountingBillItemsIoOperationRepository accountingBillItemsIoOperationRepository) {
+	                              AccountingBillItemsIoOperationRepository accountingBillItemsIoOperationRepository,
+	                              ApplicationEventPublisher applicationEventPublisher,
+	                              ArchiveIoOperations archiveIoOperations) {
 		this.billRepository = accountingBillIoOperationRepository;
 		this.billPaymentRepository = accountingBillPaymentIoOperationRepository;
 		this.billItemsRepository = accountingBillItemsIoOperationRepository;
+		this.applicationEventPublisher = applicationEventPublisher;
+		this.archiveIoOperations = archiveIoOperations;
 	}
 
 	/**
@@ -116,14 +133,18 @@ public class AccountingIoOperations {
 	}
 
 	/**
-	 * Retrieves all the {@link BillPayments} for the specified date range.
+	 * Retrieves all the {@link BillPayments} for the specified date range, archived ones included.
 	 * @param dateFrom low endpoint, inclusive, for the date range. 
 	 * @param dateTo high endpoint, inclusive, for the date range.
 	 * @return a list of {@link BillPayments} for the specified date range.
 	 * @throws OHServiceException if an error occurs retrieving the bill payments.
 	 */
 	public List<BillPayments> getPayments(LocalDateTime dateFrom, LocalDateTime dateTo) throws OHServiceException {
-		return billPaymentRepository.findByDateBetweenOrderByIdAscDateAsc(TimeTools.getBeginningOfDay(dateFrom), TimeTools.getBeginningOfNextDay(dateTo));
+		LocalDateTime from = TimeTools.getBeginningOfDay(dateFrom);
+		LocalDateTime to = TimeTools.getBeginningOfNextDay(dateTo);
+		List<BillPayments> archived = getArchivedPayments("BLP_DATE >= :dateFrom AND BLP_DATE < :dateTo", Map.of("dateFrom", from, "dateTo", to));
+		return ArchiveIoOperations.union(billPaymentRepository.findByDateBetweenOrderByIdAscDateAsc(from, to), archived,
+				Comparator.comparingInt(BillPayments::getId));
 	}
 
 	/**
@@ -147,37 +168,135 @@ public class AccountingIoOperations {
 	 * @throws OHServiceException if an error occurs storing the bill.
 	 */
 	public Bill newBill(Bill newBill) throws OHServiceException {
-		return billRepository.save(newBill);
+		Bill savedBill = billRepository.save(newBill);
+		publishChanged(Set.of(savedBill.getDate().toLocalDate()));
+		return savedBill;
 	}
 
 	/**
 	 * Stores a list of {@link BillItems} associated to a {@link Bill}.
+	 * <p>
+	 * The list is compared with the stored rows of the bill: rows missing from the list are removed with a single statement, changed rows
+	 * are updated, new rows are inserted and unchanged rows are left untouched. Writes are left to the persistence context so that they
+	 * are flushed together, in JDBC batches. When any row changes, {@link Bill#getAmount() amount} and {@link Bill#getBalance() balance}
+	 * of the passed bill are adjusted in memory, keeping the already paid part.
+	 *
 	 * @param bill the bill.
 	 * @param billItems the bill items to store.
 	 * @throws OHServiceException if an error occurs during the store operation.
 	 */
 	public void newBillItems(Bill bill, List<BillItems> billItems) throws OHServiceException {
-		billItemsRepository.deleteWhereId(bill.getId());
+		Map<Integer, BillItems> storedItems = new HashMap<>();
+		for (BillItems stored : billItemsRepository.findByBill_idOrderByIdAsc(bill.getId())) {
+			storedItems.put(stored.getId(), stored);
+		}
+		List<BillItems> insertedItems = new ArrayList<>();
+		boolean changed = false;
+		double amount = 0;
 		for (BillItems item : billItems) {
-			item.setBill(bill);
-			billItemsRepository.save(item);
+			amount += item.getItemAmount() * item.getItemQuantity();
+			BillItems stored = storedItems.remove(item.getId());
+			if (stored == null) {
+				item.setId(0);
+				item.setBill(bill);
+				insertedItems.add(item);
+			} else if (!sameItem(stored, item)) {
+				stored.setPrice(item.isPrice());
+				stored.setPriceID(item.getPriceID());
+				stored.setItemDescription(item.getItemDescription());
+				stored.setItemAmount(item.getItemAmount());
+				stored.setItemQuantity(item.getItemQuantity());
+				changed = true;
+			}
+		}
+		if (!storedItems.isEmpty()) {
+			billItemsRepository.deleteAllByIdInBatch(storedItems.keySet());
+			changed = true;
+		}
+		if (!insertedItems.isEmpty()) {
+			billItemsRepository.saveAll(insertedItems);
+			changed = true;
+		}
+		if (changed) {
+			double paid = valueOf(bill.getAmount()) - valueOf(bill.getBalance());
+			bill.setAmount(amount);
+			bill.setBalance(amount - paid);
+			publishChanged(Set.of(bill.getDate().toLocalDate()));
 		}
 	}
 
 	/**
 	 * Stores a list of {@link BillPayments} associated to a {@link Bill}.
+	 * <p>
+	 * Works as {@link #newBillItems(Bill, List)}: only the differences with the stored payments are written and, when any of them
+	 * changes, the {@link Bill#getBalance() balance} of the passed bill is adjusted in memory.
+	 *
 	 * @param bill the bill.
 	 * @param payItems the bill payments.
 	 * @throws OHServiceException if an error occurs during the store procedure.
 	 */
 	public void newBillPayments(Bill bill, List<BillPayments> payItems) throws OHServiceException {
-		billPaymentRepository.deleteWhereId(bill.getId());
+		Map<Integer, BillPayments> storedPayments = new HashMap<>();
+		for (BillPayments stored : billPaymentRepository.findAllWherBillIdByOrderByBillAndDate(bill.getId())) {
+			storedPayments.put(stored.getId(), stored);
+		}
+		List<BillPayments> insertedPayments = new ArrayList<>();
+		Set<LocalDate> changedDays = new TreeSet<>();
+		boolean changed = false;
+		double paid = 0;
 		for (BillPayments payment : payItems) {
-			payment.setBill(bill);
-			billPaymentRepository.save(payment);
+			paid += payment.getAmount();
+			BillPayments stored = storedPayments.remove(payment.getId());
+			if (stored == null) {
+				payment.setId(0);
+				payment.setBill(bill);
+				insertedPayments.add(payment);
+				changedDays.add(payment.getDate().toLocalDate());
+			} else if (!samePayment(stored, payment)) {
+				changedDays.add(stored.getDate().toLocalDate());
+				changedDays.add(payment.getDate().toLocalDate());
+				stored.setDate(payment.getDate());
+				stored.setAmount(payment.getAmount());
+				stored.setUser(payment.getUser());
+				changed = true;
+			}
+		}
+		if (!storedPayments.isEmpty()) {
+			for (BillPayments stored : storedPayments.values()) {
+				changedDays.add(stored.getDate().toLocalDate());
+			}
+			billPaymentRepository.deleteAllByIdInBatch(storedPayments.keySet());
+			changed = true;
+		}
+		if (!insertedPayments.isEmpty()) {
+			billPaymentRepository.saveAll(insertedPayments);
+			changed = true;
+		}
+		if (changed) {
+			bill.setBalance(valueOf(bill.getAmount()) - paid);
+			changedDays.add(bill.getDate().toLocalDate());
+			publishChanged(changedDays);
 		}
 	}
 
+	private static boolean sameItem(BillItems stored, BillItems item) {
+		return stored.isPrice() == item.isPrice()
+				&& Objects.equals(stored.getPriceID(), item.getPriceID())
+				&& Objects.equals(stored.getItemDescription(), item.getItemDescription())
+				&& Double.compare(stored.getItemAmount(), item.getItemAmount()) == 0
+				&& stored.getItemQuantity() == item.getItemQuantity();
+	}
+
+	private static boolean samePayment(BillPayments stored, BillPayments payment) {
+		return Objects.equals(stored.getDate(), payment.getDate())
+				&& Double.compare(stored.getAmount(), payment.getAmount()) == 0
+				&& Objects.equals(stored.getUser(), payment.getUser());
+	}
+
+	private static double valueOf(Double value) {
+		return value == null ? 0 : value;
+	}
+
 	/**
 	 * Updates the specified {@link Bill}.
 	 * @param updateBill the bill to update.
@@ -185,7 +304,11 @@ public class AccountingIoOperations {
 	 * @throws OHServiceException if an error occurs during the update.
 	 */
 	public Bill updateBill(Bill updateBill) throws OHServiceException {
-		return billRepository.save(updateBill);
+		Set<LocalDate> changedDays = getBillDays(updateBill.getId());
+		Bill updatedBill = billRepository.save(updateBill);
+		changedDays.add(updatedBill.getDate().toLocalDate());
+		publishChanged(changedDays);
+		return updatedBill;
 	}
 
 	/**
@@ -195,18 +318,43 @@ public class AccountingIoOperations {
 	 * @throws OHServiceException if an error occurs deleting the bill.
 	 */
 	public void deleteBill(Bill deleteBill) throws OHServiceException {
+		Set<LocalDate> changedDays = getBillDays(deleteBill.getId());
 		billRepository.deleteById(deleteBill.getId());
+		publishChanged(changedDays);
 	}
 
 	/**
-	 * Retrieves all the {@link Bill}s for the specified date range.
+	 * Returns the days of the stored {@link Bill} and of its {@link BillPayments}, the days whose totals depend on the bill.
+	 */
+	private Set<LocalDate> getBillDays(int billId) {
+		Set<LocalDate> days = new TreeSet<>();
+		LocalDateTime billDate = billRepository.findDateById(billId);
+		if (billDate != null) {
+			days.add(billDate.toLocalDate());
+		}
+		for (LocalDateTime paymentDate : billPaymentRepository.findDatesByBillId(billId)) {
+			days.add(paymentDate.toLocalDate());
+		}
+		return days;
+	}
+
+	private void publishChanged(Set<LocalDate> days) {
+		applicationEventPublisher.publishEvent(new BillChangedEvent(days));
+	}
+
+	/**
+	 * Retrieves all the {@link Bill}s for the specified date range, archived ones included.
 	 * @param dateFrom the low date range endpoint, inclusive.
 	 * @param dateTo the high date range endpoint, inclusive.
 	 * @return a list of retrieved {@link Bill}s.
 	 * @throws OHServiceException if an error occurs retrieving the bill list.
 	 */
 	public List<Bill> getBillsBetweenDates(LocalDateTime dateFrom, LocalDateTime dateTo) throws OHServiceException {
-		return billRepository.findByDateBetween(TimeTools.getBeginningOfDay(dateFrom), TimeTools.getBeginningOfNextDay(dateTo));
+		LocalDateTime from = TimeTools.getBeginningOfDay(dateFrom);
+		LocalDateTime to = TimeTools.getBeginningOfNextDay(dateTo);
+		List<Bill> archived = archiveIoOperations.getArchived(ArchiveTable.BILL, Bill.class, null, from, "BLL_DATE >= :dateFrom AND BLL_DATE < :dateTo",
+				Map.of("dateFrom", from, "dateTo", to));
+		return ArchiveIoOperations.union(billRepository.findByDateBetween(from, to), archived, Comparator.comparing(Bill::getDate));
 	}
 
 	/**
@@ -216,11 +364,11 @@ public class AccountingIoOperations {
 	 * @throws OHServiceException if an error occurs retrieving the bill list.
 	 */
 	public List<Bill> getBills(List<BillPayments> payments) throws OHServiceException {
-		Set<Bill> bills = new TreeSet<>((o1, o2) -> o1.getId() == o2.getId() ? 0 : -1);
+		Map<Integer, Bill> bills = new LinkedHashMap<>();
 		for (BillPayments bp : payments) {
-			bills.add(bp.getBill());
+			bills.putIfAbsent(bp.getBill().getId(), bp.getBill());
 		}
-		return new ArrayList<>(bills);
+		return new ArrayList<>(bills.values());
 	}
 
 	/**
@@ -234,7 +382,7 @@ public class AccountingIoOperations {
 	}
 
 	/**
-	 * Retrieves all billPayments for a given patient in the period dateFrom -> dateTo
+	 * Retrieves all billPayments for a given patient in the period dateFrom -> dateTo, archived ones included
 	 * @param dateFrom
 	 * @param dateTo
 	 * @param patient
@@ -243,11 +391,18 @@ public class AccountingIoOperations {
 	 */
 	public List<BillPayments> getPaymentsBetweenDatesWherePatient(LocalDateTime dateFrom, LocalDateTime dateTo, Patient patient)
 					throws OHServiceException {
-		return billPaymentRepository.findByDateAndPatient(TimeTools.getBeginningOfDay(dateFrom), TimeTools.getBeginningOfNextDay(dateTo), patient.getCode());
+		LocalDateTime from = TimeTools.getBeginningOfDay(dateFrom);
+		LocalDateTime to = TimeTools.getBeginningOfNextDay(dateTo);
+		// the days are compared as by the query of the repository, which includes the day after dateTo
+		List<BillPayments> archived = getArchivedPayments("BLP_DATE >= :dateFrom AND BLP_DATE < :dateTo"
+				+ " AND BLP_ID_BILL IN (SELECT BLL_ID FROM OH_BILLS_ARCHIVE WHERE BLL_ID_PAT = :patientCode)",
+				Map.of("dateFrom", from, "dateTo", to.plusDays(1), "patientCode", patient.getCode()));
+		return ArchiveIoOperations.union(billPaymentRepository.findByDateAndPatient(from, to, patient.getCode()), archived,
+				Comparator.comparingInt((BillPayments payment) -> payment.getBill().getId()).thenComparing(BillPayments::getDate));
 	}
 
 	/**
-	 * Retrieves all the bills for a given patient in the period dateFrom -> dateTo
+	 * Retrieves all the bills for a given patient in the period dateFrom -> dateTo, archived ones included
 	 * @param dateFrom
 	 * @param dateTo
 	 * @param patient
@@ -255,7 +410,41 @@ public class AccountingIoOperations {
 	 * @throws OHServiceException
 	 */
 	public List<Bill> getBillsBetweenDatesWherePatient(LocalDateTime dateFrom, LocalDateTime dateTo, Patient patient) throws OHServiceException {
-		return billRepository.findByDateAndPatient(TimeTools.getBeginningOfDay(dateFrom), TimeTools.getBeginningOfNextDay(dateTo), patient.getCode());
+		LocalDateTime from = TimeTools.getBeginningOfDay(dateFrom);
+		LocalDateTime to = TimeTools.getBeginningOfNextDay(dateTo);
+		List<Bill> archived = archiveIoOperations.getArchived(ArchiveTable.BILL, Bill.class, null, from,
+				"BLL_ID_PAT = :patientCode AND BLL_DATE >= :dateFrom AND BLL_DATE < :dateTo",
+				Map.of("dateFrom", from, "dateTo", to, "patientCode", patient.getCode()));
+		return ArchiveIoOperations.union(billRepository.findByDateAndPatient(from, to, patient.getCode()), archived, Comparator.comparing(Bill::getDate));
+	}
+
+	/**
+	 * Retrieves the archived {@link BillPayments} matching a condition; their {@link Bill}s, archived together with them, are looked up by
+	 * id in the archive.
+	 */
+	private List<BillPayments> getArchivedPayments(String condition, Map<String, ?> parameters) {
+		List<BillPayments> payments = archiveIoOperations.getArchivedChildren(ArchiveTable.BILL, "OH_BILLPAYMENTS", condition, parameters,
+				(resultSet, rowNum) -> {
+					Bill bill = new Bill();
+					bill.setId(resultSet.getInt("BLP_ID_BILL"));
+					return new BillPayments(resultSet.getInt("BLP_ID"), bill, resultSet.getObject("BLP_DATE", LocalDateTime.class),
+							resultSet.getDouble("BLP_AMOUNT"), resultSet.getString("BLP_USR_ID_A"));
+				});
+		if (payments.isEmpty()) {
+			return payments;
+		}
+		Set<Integer> billIds = new HashSet<>();
+		for (BillPayments payment : payments) {
+			billIds.add(payment.getBill().getId());
+		}
+		Map<Integer, Bill> bills = new HashMap<>();
+		for (Bill bill : archiveIoOperations.getArchived(ArchiveTable.BILL, Bill.class, null, null, "BLL_ID IN (:ids)", Map.of("ids", billIds))) {
+			bills.put(bill.getId(), bill);
+		}
+		for (BillPayments payment : payments) {
+			payment.setBill(bills.get(payment.getBill().getId()));
+		}
+		return payments;
 	}
 
 	/**
@@ -289,7 +478,7 @@ public class AccountingIoOperations {
 	}
 
 	/**
-	 * Return the bill list which date between dateFrom and dateTo and containing given billItem
+	 * Return the bill list which date between dateFrom and dateTo and containing given billItem, archived bills included
 	 *
 	 * @param dateFrom
 	 * @param dateTo
@@ -299,10 +488,15 @@ public class AccountingIoOperations {
 	 */
 	public List<Bill> getBillsBetweenDatesWhereBillItem(LocalDateTime dateFrom, LocalDateTime dateTo, BillItems billItem) throws OHServiceException {
 		if (billItem == null) {
-			return billRepository.findByDateBetween(TimeTools.getBeginningOfDay(dateFrom), TimeTools.getBeginningOfNextDay(dateTo));
+			return getBillsBetweenDates(dateFrom, dateTo);
 		}
-		return billRepository.findAllWhereDatesAndBillItem(TimeTools.getBeginningOfDay(dateFrom), TimeTools.getBeginningOfNextDay(dateTo),
-						billItem.getItemDescription());
+		LocalDateTime from = TimeTools.getBeginningOfDay(dateFrom);
+		LocalDateTime to = TimeTools.getBeginningOfNextDay(dateTo);
+		List<Bill> archived = archiveIoOperations.getArchived(ArchiveTable.BILL, Bill.class, null, from, "BLL_DATE >= :dateFrom AND BLL_DATE < :dateTo"
+				+ " AND BLL_ID IN (SELECT BLI_ID_BILL FROM OH_BILLITEMS_ARCHIVE WHERE BLI_ITEM_DESC = :desc)",
+				Map.of("dateFrom", from, "dateTo", to, "desc", billItem.getItemDescription()));
+		return ArchiveIoOperations.union(billRepository.findAllWhereDatesAndBillItem(from, to, billItem.getItemDescription()), archived,
+				Comparator.comparing(Bill::getDate));
 	}
 
 	/**
@@ -315,4 +509,15 @@ public class AccountingIoOperations {
 		return this.billRepository.countAllActiveBills();
 	}
 
+	/**
+	 * Moves all the {@link Bill}s of the obsolete {@link Patient} to the merged one and rewrites their patient name, with a single bulk update.
+	 *
+	 * @param obsoletePatient - the {@link Patient} being merged
+	 * @param mergedPatient - the {@link Patient} that keeps the history
+	 * @return the number of updated rows
+	 */
+	public int reassignPatient(Patient obsoletePatient, Patient mergedPatient) {
+		return billRepository.updatePatient(obsoletePatient, mergedPatient, mergedPatient.getName());
+	}
+
 }
@@ -21,11 +21,7 @@
  */
 package org.isf.accounting.service;
 
-import java.util.List;
-
-import org.isf.accounting.model.Bill;
 import org.isf.patient.model.PatientMergedEvent;
-import org.isf.utils.exception.OHServiceException;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -41,10 +37,8 @@ public class AccountingPatientMergedEventListener {
 
 	@EventListener
 	@Transactional
-	public void handle(PatientMergedEvent patientMergedEvent) throws OHServiceException {
-		List<Bill> bills = accountingIoOperations.getAllPatientsBills(patientMergedEvent.getObsoletePatient().getCode());
-		for (Bill bill : bills) {
-			bill.setBillPatient(patientMergedEvent.getMergedPatient());
-		}
+	public void handle(PatientMergedEvent patientMergedEvent) {
+		int rows = accountingIoOperations.reassignPatient(patientMergedEvent.getObsoletePatient(), patientMergedEvent.getMergedPatient());
+		patientMergedEvent.addMergedRows("bills", rows);
 	}
 }
\ No newline at end of file
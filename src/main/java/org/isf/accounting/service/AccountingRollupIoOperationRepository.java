@@ -0,0 +1,85 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.accounting.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import jakarta.persistence.LockModeType;
+
+import org.isf.accounting.enums.BillRollupType;
+import org.isf.accounting.model.BillDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AccountingRollupIoOperationRepository extends JpaRepository<BillDailyRollup, Integer> {
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	List<BillDailyRollup> findForUpdateByDateIn(Collection<LocalDate> dates);
+
+	List<BillDailyRollup> findByTypeAndDateBetweenOrderByDateAscKeyAsc(BillRollupType type, LocalDate dateFrom, LocalDate dateTo);
+
+	@Query(value = "SELECT new org.isf.accounting.model.BillDailyRollup(R.type, R.key, SUM(R.count), SUM(R.quantity), SUM(R.amount), SUM(R.balance)) " +
+			"FROM BillDailyRollup R WHERE R.type = :type AND R.date BETWEEN :dateFrom AND :dateTo " +
+			"GROUP BY R.type, R.key ORDER BY R.key")
+	List<BillDailyRollup> sumByTypeAndDateBetween(@Param("type") BillRollupType type, @Param("dateFrom") LocalDate dateFrom,
+			@Param("dateTo") LocalDate dateTo);
+
+	@Query(value = "SELECT BP.user, COUNT(BP), 0, SUM(BP.amount), 0 FROM BillPayments BP " +
+			"WHERE BP.date >= :start AND BP.date < :end AND (BP.bill.status IS NULL OR BP.bill.status <> 'D') " +
+			"GROUP BY BP.user")
+	List<Object[]> sumPaymentsByUser(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+	@Query(value = "SELECT BI.itemDescription, COUNT(DISTINCT BI.bill.id), SUM(BI.itemQuantity), SUM(BI.itemAmount * BI.itemQuantity), 0 FROM BillItems BI " +
+			"WHERE BI.bill.date >= :start AND BI.bill.date < :end AND (BI.bill.status IS NULL OR BI.bill.status <> 'D') " +
+			"GROUP BY BI.itemDescription")
+	List<Object[]> sumItemsByDescription(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+	@Query(value = "SELECT B.listName, COUNT(B), 0, SUM(B.amount), SUM(B.balance) FROM Bill B " +
+			"WHERE B.date >= :start AND B.date < :end AND (B.status IS NULL OR B.status <> 'D') " +
+			"GROUP BY B.listName")
+	List<Object[]> sumBillsByPriceList(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+	@Query(value = "SELECT BP.BLP_USR_ID_A, COUNT(*), 0, SUM(BP.BLP_AMOUNT), 0 FROM OH_BILLPAYMENTS_ARCHIVE BP " +
+			"JOIN OH_BILLS_ARCHIVE B ON B.BLL_ID = BP.BLP_ID_BILL " +
+			"WHERE BP.BLP_DATE >= :start AND BP.BLP_DATE < :end AND (B.BLL_STATUS IS NULL OR B.BLL_STATUS <> 'D') " +
+			"GROUP BY BP.BLP_USR_ID_A", nativeQuery = true)
+	List<Object[]> sumArchivedPaymentsByUser(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+	@Query(value = "SELECT BI.BLI_ITEM_DESC, COUNT(DISTINCT BI.BLI_ID_BILL), SUM(BI.BLI_QTY), SUM(BI.BLI_ITEM_AMOUNT * BI.BLI_QTY), 0 " +
+			"FROM OH_BILLITEMS_ARCHIVE BI JOIN OH_BILLS_ARCHIVE B ON B.BLL_ID = BI.BLI_ID_BILL " +
+			"WHERE B.BLL_DATE >= :start AND B.BLL_DATE < :end AND (B.BLL_STATUS IS NULL OR B.BLL_STATUS <> 'D') " +
+			"GROUP BY BI.BLI_ITEM_DESC", nativeQuery = true)
+	List<Object[]> sumArchivedItemsByDescription(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+	@Query(value = "SELECT B.BLL_LST_NAME, COUNT(*), 0, SUM(B.BLL_AMOUNT), SUM(B.BLL_BALANCE) FROM OH_BILLS_ARCHIVE B " +
+			"WHERE B.BLL_DATE >= :start AND B.BLL_DATE < :end AND (B.BLL_STATUS IS NULL OR B.BLL_STATUS <> 'D') " +
+			"GROUP BY B.BLL_LST_NAME", nativeQuery = true)
+	List<Object[]> sumArchivedBillsByPriceList(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+}
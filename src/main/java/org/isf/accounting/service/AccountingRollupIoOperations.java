@@ -0,0 +1,254 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.accounting.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.isf.accounting.enums.BillRollupType;
+import org.isf.accounting.model.BillChangedEvent;
+import org.isf.accounting.model.BillDailyRollup;
+import org.isf.archive.model.ArchiveTable;
+import org.isf.archive.service.ArchiveIoOperations;
+import org.isf.utils.db.TranslateOHServiceException;
+import org.isf.utils.exception.OHServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains the {@link BillDailyRollup} table: the rows of a day are recomputed from bills, items and payments of that day whenever a
+ * {@link BillChangedEvent} is published, so that period reports only read the aggregated rows. The archived bills of the day are counted
+ * as well.
+ * <p>
+ * The days changed by a transaction are collected and recomputed once, in a transaction of their own, after it commits: the totals then
+ * include the changes of every committed transaction, and a failure of the recomputation cannot roll back the bills.
+ */
+@Service
+@Transactional(rollbackFor = OHServiceException.class)
+@TranslateOHServiceException
+public class AccountingRollupIoOperations {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AccountingRollupIoOperations.class);
+
+	private static final int REBUILD_CHUNK_DAYS = 31;
+
+	private static final int REFRESH_ATTEMPTS = 3;
+
+	private AccountingRollupIoOperationRepository repository;
+
+	private ArchiveIoOperations archiveIoOperations;
+
+	private TransactionTemplate refreshTransaction;
+
+	public AccountingRollupIoOperations(AccountingRollupIoOperationRepository accountingRollupIoOperationRepository,
+			ArchiveIoOperations archiveIoOperations, PlatformTransactionManager transactionManager) {
+		this.repository = accountingRollupIoOperationRepository;
+		this.archiveIoOperations = archiveIoOperations;
+		this.refreshTransaction = new TransactionTemplate(transactionManager);
+		this.refreshTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	/**
+	 * Returns the daily rows of the given type for the specified date range.
+	 * @param type the rollup type.
+	 * @param dateFrom the low date range endpoint, inclusive.
+	 * @param dateTo the high date range endpoint, inclusive.
+	 * @return the list of {@link BillDailyRollup}s ordered by date and key.
+	 * @throws OHServiceException if an error occurs retrieving the rollups.
+	 */
+	public List<BillDailyRollup> getDailyRollups(BillRollupType type, LocalDate dateFrom, LocalDate dateTo) throws OHServiceException {
+		return repository.findByTypeAndDateBetweenOrderByDateAscKeyAsc(type, dateFrom, dateTo);
+	}
+
+	/**
+	 * Returns the totals of each key of the given type over the specified date range; the returned rows have no date.
+	 * @param type the rollup type.
+	 * @param dateFrom the low date range endpoint, inclusive.
+	 * @param dateTo the high date range endpoint, inclusive.
+	 * @return the list of {@link BillDailyRollup}s ordered by key.
+	 * @throws OHServiceException if an error occurs retrieving the rollups.
+	 */
+	public List<BillDailyRollup> getRollupTotals(BillRollupType type, LocalDate dateFrom, LocalDate dateTo) throws OHServiceException {
+		return repository.sumByTypeAndDateBetween(type, dateFrom, dateTo);
+	}
+
+	/**
+	 * Recomputes the rows of the specified days. Only the rows whose totals changed are written; the stored rows of the days are locked
+	 * first, so that concurrent recomputations of the same days are serialized.
+	 * @param days the days to recompute.
+	 * @throws OHServiceException if an error occurs storing the rollups.
+	 */
+	public void refresh(Collection<LocalDate> days) throws OHServiceException {
+		if (days.isEmpty()) {
+			return;
+		}
+		Map<String, BillDailyRollup> storedRollups = new HashMap<>();
+		for (BillDailyRollup stored : repository.findForUpdateByDateIn(new TreeSet<>(days))) {
+			storedRollups.put(rollupKey(stored.getDate(), stored.getType(), stored.getKey()), stored);
+		}
+		// a bill is archived together with its items and payments, so its rows are summed from either the tables or the archive tables
+		boolean archived = archiveIoOperations.hasArchiveTables(ArchiveTable.BILL);
+		List<BillDailyRollup> insertedRollups = new ArrayList<>();
+		for (LocalDate day : new TreeSet<>(days)) {
+			LocalDateTime start = day.atStartOfDay();
+			LocalDateTime end = day.plusDays(1).atStartOfDay();
+			Map<String, BillDailyRollup> dayRollups = new LinkedHashMap<>();
+			collect(dayRollups, day, BillRollupType.USER, repository.sumPaymentsByUser(start, end));
+			collect(dayRollups, day, BillRollupType.ITEM, repository.sumItemsByDescription(start, end));
+			collect(dayRollups, day, BillRollupType.PRICELIST, repository.sumBillsByPriceList(start, end));
+			if (archived) {
+				collect(dayRollups, day, BillRollupType.USER, repository.sumArchivedPaymentsByUser(start, end));
+				collect(dayRollups, day, BillRollupType.ITEM, repository.sumArchivedItemsByDescription(start, end));
+				collect(dayRollups, day, BillRollupType.PRICELIST, repository.sumArchivedBillsByPriceList(start, end));
+			}
+			for (Map.Entry<String, BillDailyRollup> entry : dayRollups.entrySet()) {
+				BillDailyRollup rollup = entry.getValue();
+				BillDailyRollup stored = storedRollups.remove(entry.getKey());
+				if (stored == null) {
+					insertedRollups.add(rollup);
+				} else {
+					stored.setCount(rollup.getCount());
+					stored.setQuantity(rollup.getQuantity());
+					stored.setAmount(rollup.getAmount());
+					stored.setBalance(rollup.getBalance());
+				}
+			}
+		}
+		if (!storedRollups.isEmpty()) {
+			repository.deleteAllInBatch(storedRollups.values());
+		}
+		if (!insertedRollups.isEmpty()) {
+			repository.saveAll(insertedRollups);
+		}
+	}
+
+	/**
+	 * Recomputes all the rows of the specified date range, e.g. to fill the table for bills stored before it existed.
+	 * @param dateFrom the low date range endpoint, inclusive.
+	 * @param dateTo the high date range endpoint, inclusive.
+	 * @throws OHServiceException if an error occurs storing the rollups.
+	 */
+	public void rebuild(LocalDate dateFrom, LocalDate dateTo) throws OHServiceException {
+		List<LocalDate> days = new ArrayList<>();
+		for (LocalDate day = dateFrom; !day.isAfter(dateTo); day = day.plusDays(1)) {
+			days.add(day);
+			if (days.size() == REBUILD_CHUNK_DAYS) {
+				refresh(days);
+				days.clear();
+			}
+		}
+		refresh(days);
+	}
+
+	@EventListener
+	public void handle(BillChangedEvent event) {
+		PendingDays pendingDays = (PendingDays) TransactionSynchronizationManager.getResource(PendingDays.class);
+		if (pendingDays == null) {
+			pendingDays = new PendingDays();
+			TransactionSynchronizationManager.bindResource(PendingDays.class, pendingDays);
+			TransactionSynchronizationManager.registerSynchronization(pendingDays);
+		}
+		pendingDays.days.addAll(event.getDays());
+	}
+
+	/**
+	 * Recomputes the days in a new transaction; when a concurrent recomputation inserted the same rows first, the days are recomputed
+	 * again, now updating its rows. A failure is only logged: the bills are already committed and {@link #rebuild} repairs the rows.
+	 */
+	private void refreshCommitted(Set<LocalDate> days) {
+		for (int attempt = 1; attempt <= REFRESH_ATTEMPTS; attempt++) {
+			try {
+				refreshTransaction.executeWithoutResult(status -> {
+					try {
+						refresh(days);
+						repository.flush();
+					} catch (OHServiceException e) {
+						throw new IllegalStateException(e);
+					}
+				});
+				return;
+			} catch (DataIntegrityViolationException e) {
+				LOGGER.debug("Concurrent refresh of bill rollups of {}, attempt {}", days, attempt);
+			} catch (RuntimeException e) {
+				LOGGER.error("Bill rollups of {} could not be refreshed", days, e);
+				return;
+			}
+		}
+		LOGGER.error("Bill rollups of {} could not be refreshed after {} attempts", days, REFRESH_ATTEMPTS);
+	}
+
+	private static void collect(Map<String, BillDailyRollup> dayRollups, LocalDate day, BillRollupType type, List<Object[]> rows) {
+		for (Object[] row : rows) {
+			String key = row[0] == null ? "" : row[0].toString();
+			BillDailyRollup rollup = dayRollups.computeIfAbsent(rollupKey(day, type, key), k -> new BillDailyRollup(day, type, key, 0, 0, 0, 0));
+			rollup.setCount(rollup.getCount() + longValue(row[1]));
+			rollup.setQuantity(rollup.getQuantity() + longValue(row[2]));
+			rollup.setAmount(rollup.getAmount() + doubleValue(row[3]));
+			rollup.setBalance(rollup.getBalance() + doubleValue(row[4]));
+		}
+	}
+
+	private class PendingDays implements TransactionSynchronization {
+
+		private final Set<LocalDate> days = new TreeSet<>();
+
+		@Override
+		public void afterCommit() {
+			refreshCommitted(days);
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(PendingDays.class);
+		}
+	}
+
+	private static String rollupKey(LocalDate day, BillRollupType type, String key) {
+		return day + "|" + type + "|" + key;
+	}
+
+	private static long longValue(Object value) {
+		return value == null ? 0 : ((Number) value).longValue();
+	}
+
+	private static double doubleValue(Object value) {
+		return value == null ? 0 : ((Number) value).doubleValue();
+	}
+
+}
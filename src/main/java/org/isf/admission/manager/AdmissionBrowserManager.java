@@ -28,6 +28,7 @@ import java.util.List;
 
 import org.isf.admission.model.Admission;
 import org.isf.admission.model.AdmittedPatient;
+import org.isf.admission.model.AdmittedPatientSummary;
 import org.isf.admission.service.AdmissionIoOperations;
 import org.isf.admtype.model.AdmissionType;
 import org.isf.disctype.model.DischargeType;
@@ -91,6 +92,21 @@ public class AdmissionBrowserManager {
 		return ioOperations.getAdmittedPatients(searchTerms, admissionRange, dischargeRange);
 	}
 
+	/**
+	 * Returns the patients, with the ward in which they are admitted, based on the applied filters as
+	 * {@link #getAdmittedPatients(LocalDateTime[], LocalDateTime[], String)}, as lightweight summaries for search results.
+	 *
+	 * @param admissionRange (two-dimensions array) the patient admission dates range, both {@code null} if no filter have to be applied.
+	 * @param dischargeRange (two-dimensions array) the patient admission dates range, both {@code null} if no filter have to be applied.
+	 * @param searchTerms the search terms to use for filter the patient list, {@code null} if no filter have to be applied.
+	 * @return the filtered patient list.
+	 * @throws OHServiceException if an error occurs during database request.
+	 */
+	public List<AdmittedPatientSummary> getAdmittedPatientSummaries(LocalDateTime[] admissionRange, LocalDateTime[] dischargeRange, String searchTerms)
+					throws OHServiceException {
+		return ioOperations.getAdmittedPatientSummaries(searchTerms, admissionRange, dischargeRange);
+	}
+
 	public AdmittedPatient loadAdmittedPatients(int patientId) {
 		return ioOperations.loadAdmittedPatient(patientId);
 	}
@@ -142,6 +158,24 @@ public class AdmissionBrowserManager {
 		return ioOperations.getAdmissionsByAdmissionDates(dateFrom, dateTo, PageRequest.of(page, size));
 	}
 
+	/**
+	 * Method that returns a page of Admissions not logically deleted
+	 * within the specified date range, ordered by admission date descending,
+	 * using keyset pagination
+	 *
+	 * @param dateFrom
+	 * @param dateTo
+	 * @param cursor the next or previous cursor of the last response, {@code null} for the first page
+	 * @param size
+	 * @param countTotal if {@code true} the total number of admissions is counted as well
+	 * @return {@link PagedResponse<Admission>}.
+	 * @throws OHServiceException
+	 */
+	public PagedResponse<Admission> getAdmissionsPageable(LocalDateTime dateFrom, LocalDateTime dateTo, String cursor, int size, boolean countTotal)
+					throws OHServiceException {
+		return ioOperations.getAdmissionsByAdmissionDates(dateFrom, dateTo, cursor, size, countTotal);
+	}
+
 	/**
 	 * Method that returns the list of Admissions not logically deleted
 	 * within the specified date range
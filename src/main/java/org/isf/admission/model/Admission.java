@@ -21,18 +21,23 @@
  */
 package org.isf.admission.model;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Column;
+import jakarta.persistence.ColumnResult;
+import jakarta.persistence.ConstructorResult;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EntityResult;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.SqlResultSetMapping;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
@@ -47,6 +52,7 @@ import org.isf.dlvrtype.model.DeliveryType;
 import org.isf.patient.model.Patient;
 import org.isf.pregtreattype.model.PregnantTreatmentType;
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 import org.isf.utils.time.TimeTools;
 import org.isf.ward.model.Ward;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -58,6 +64,48 @@ entities={
 		@EntityResult(entityClass=Patient.class),
 		@EntityResult(entityClass=Admission.class)}
 )
+@SqlResultSetMapping(name="AdmittedPatientSummary",
+classes=@ConstructorResult(targetClass=AdmittedPatientSummary.class,
+		columns={
+				@ColumnResult(name="PAT_ID", type=Integer.class),
+				@ColumnResult(name="PAT_FNAME", type=String.class),
+				@ColumnResult(name="PAT_SNAME", type=String.class),
+				@ColumnResult(name="PAT_NAME", type=String.class),
+				@ColumnResult(name="PAT_SEX", type=Character.class),
+				@ColumnResult(name="PAT_BDATE", type=LocalDate.class),
+				@ColumnResult(name="PAT_AGE", type=Integer.class),
+				@ColumnResult(name="PAT_AGETYPE", type=String.class),
+				@ColumnResult(name="PAT_CITY", type=String.class),
+				@ColumnResult(name="PAT_ADDR", type=String.class),
+				@ColumnResult(name="PAT_TELE", type=String.class),
+				@ColumnResult(name="PAT_ESTA", type=Character.class),
+				@ColumnResult(name="ADM_ID", type=Integer.class),
+				@ColumnResult(name="ADM_WRD_ID_A", type=String.class),
+				@ColumnResult(name="ADM_DATE_ADM", type=LocalDateTime.class)})
+)
+@NamedEntityGraph(name = Admission.GRAPH_LIST,
+		attributeNodes = {
+				@NamedAttributeNode("ward"),
+				@NamedAttributeNode(value = "patient", subgraph = "patient"),
+				@NamedAttributeNode("admissionType"),
+				@NamedAttributeNode("diseaseIn"),
+				@NamedAttributeNode("diseaseOut1"),
+				@NamedAttributeNode("disType") },
+		subgraphs = @NamedSubgraph(name = "patient", attributeNodes = @NamedAttributeNode("patientConsensus")))
+@NamedEntityGraph(name = Admission.GRAPH_DETAIL,
+		attributeNodes = {
+				@NamedAttributeNode("ward"),
+				@NamedAttributeNode(value = "patient", subgraph = "patient"),
+				@NamedAttributeNode("admissionType"),
+				@NamedAttributeNode("diseaseIn"),
+				@NamedAttributeNode("diseaseOut1"),
+				@NamedAttributeNode("diseaseOut2"),
+				@NamedAttributeNode("diseaseOut3"),
+				@NamedAttributeNode("disType"),
+				@NamedAttributeNode("pregTreatmentType"),
+				@NamedAttributeNode("deliveryType"),
+				@NamedAttributeNode("deliveryResult") },
+		subgraphs = @NamedSubgraph(name = "patient", attributeNodes = @NamedAttributeNode("patientConsensus")))
 @EntityListeners(AuditingEntityListener.class)
 @AttributeOverride(name="createdBy", column=@Column(name="ADM_CREATED_BY", updatable = false))
 @AttributeOverride(name="createdDate", column=@Column(name="ADM_CREATED_DATE", updatable = false))
@@ -66,8 +114,14 @@ entities={
 @AttributeOverride(name="lastModifiedDate", column=@Column(name="ADM_LAST_MODIFIED_DATE"))
 public class Admission extends Auditable<String> implements Comparable<Admission> {
 
+	/** Entity graph with the associations shown when browsing admissions: ward, patient, admission type, main diagnoses and discharge type. */
+	public static final String GRAPH_LIST = "Admission.list";
+
+	/** Entity graph that also loads the secondary diagnoses, the treatment and the delivery, used to edit an admission or list a patient's history. */
+	public static final String GRAPH_DETAIL = "Admission.detail";
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name = "ADM_ID")
 	private int id;                            // admission key
 
@@ -80,7 +134,7 @@ public class Admission extends Auditable<String> implements Comparable<Admission
 	private String type;                    // values are 'N'(normal)  or 'M' (malnutrition)  default 'N'
 
 	@NotNull
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ADM_WRD_ID_A")
 	private Ward ward;                        // ward key
 
@@ -89,7 +143,7 @@ public class Admission extends Auditable<String> implements Comparable<Admission
 	private int yProg;                        // a progr. in year for each ward
 
 	@NotNull
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ADM_PAT_ID")
 	private Patient patient;                // patient key
 
@@ -98,33 +152,33 @@ public class Admission extends Auditable<String> implements Comparable<Admission
 	private LocalDateTime admDate;        // admission date
 
 	@NotNull
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ADM_ADMT_ID_A_ADM")
 	private AdmissionType admissionType;    // admissionType key
 
 	@Column(name = "ADM_FHU")
 	private String fHU;                        // FromHealthUnit (null)
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ADM_IN_DIS_ID_A")
 	private Disease diseaseIn;                // disease in key  (null)
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ADM_OUT_DIS_ID_A")
 	private Disease diseaseOut1;            // disease out key  (null)
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ADM_OUT_DIS_ID_A_2")
 	private Disease diseaseOut2;            // disease out key (null)
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ADM_OUT_DIS_ID_A_3")
 	private Disease diseaseOut3;            // disease out key (null)
 
 	@Column(name = "ADM_DATE_DIS")        // SQL type: datetime
 	private LocalDateTime disDate;        // discharge date (null)
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ADM_DIST_ID_A")
 	private DischargeType disType;            // disChargeType key (null)
 
@@ -137,18 +191,18 @@ public class Admission extends Auditable<String> implements Comparable<Admission
 	@Column(name = "ADM_PRG_DATE_VIS")        // SQL type: datetime
 	private LocalDateTime visitDate;    // ADM_PRG_DATE_VIS
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ADM_PRG_PTT_ID_A")
 	private PregnantTreatmentType pregTreatmentType;        // ADM_PRG_PTT_ID_A treatmentType key
 
 	@Column(name = "ADM_PRG_DATE_DEL")        // SQL type: datetime
 	private LocalDateTime deliveryDate;    // ADM_PRG_DATE_DEL delivery date
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ADM_PRG_DLT_ID_A")
 	private DeliveryType deliveryType;        // ADM_PRG_DLT_ID_A delivery type key
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "ADM_PRG_DRT_ID_A")
 	private DeliveryResultType deliveryResult;        // ADM_PRG_DRT_ID_A	delivery res. key
 
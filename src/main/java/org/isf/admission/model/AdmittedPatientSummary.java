@@ -0,0 +1,76 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.admission.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.isf.patient.model.PatientSummary;
+
+/**
+ * Read-only counterpart of {@link AdmittedPatient} for search results: the {@link PatientSummary} and, when the patient is currently
+ * admitted, the key data of the running {@link Admission}.
+ */
+public final class AdmittedPatientSummary {
+
+	private final PatientSummary patient;
+	private final Integer admissionId;
+	private final String wardCode;
+	private final LocalDateTime admissionDate;
+
+	public AdmittedPatientSummary(PatientSummary patient, Integer admissionId, String wardCode, LocalDateTime admissionDate) {
+		this.patient = patient;
+		this.admissionId = admissionId;
+		this.wardCode = wardCode;
+		this.admissionDate = admissionDate;
+	}
+
+	/**
+	 * Used by the {@code AdmittedPatientSummary} result set mapping of {@link Admission}.
+	 */
+	public AdmittedPatientSummary(Integer code, String firstName, String secondName, String name, Character sex, LocalDate birthDate, Integer age,
+					String agetype, String city, String address, String telephone, Character hasInsurance, Integer admissionId, String wardCode,
+					LocalDateTime admissionDate) {
+		this(new PatientSummary(code, firstName, secondName, name, sex == null ? ' ' : sex, birthDate, age == null ? 0 : age, agetype, city, address,
+						telephone, hasInsurance == null ? ' ' : hasInsurance), admissionId, wardCode, admissionDate);
+	}
+
+	public PatientSummary getPatient() {
+		return patient;
+	}
+
+	public Integer getAdmissionId() {
+		return admissionId;
+	}
+
+	public String getWardCode() {
+		return wardCode;
+	}
+
+	public LocalDateTime getAdmissionDate() {
+		return admissionDate;
+	}
+
+	public boolean isAdmitted() {
+		return admissionId != null;
+	}
+}
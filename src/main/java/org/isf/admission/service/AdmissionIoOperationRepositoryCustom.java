@@ -26,6 +26,7 @@ import java.util.List;
 
 import org.isf.admission.model.Admission;
 import org.isf.admission.model.AdmittedPatient;
+import org.isf.admission.model.AdmittedPatientSummary;
 import org.isf.patient.model.Patient;
 import org.isf.utils.exception.OHServiceException;
 
@@ -34,6 +35,9 @@ public interface AdmissionIoOperationRepositoryCustom {
 	List<AdmittedPatient> findPatientAdmissionsBySearchAndDateRanges(String searchTerms, LocalDateTime[] admissionRange, LocalDateTime[] dischargeRange)
 			throws OHServiceException;
 
+	List<AdmittedPatientSummary> findPatientAdmissionSummariesBySearchAndDateRanges(String searchTerms, LocalDateTime[] admissionRange,
+			LocalDateTime[] dischargeRange) throws OHServiceException;
+
 	class PatientAdmission {
 		/**
 		 * @see Patient#getCode()
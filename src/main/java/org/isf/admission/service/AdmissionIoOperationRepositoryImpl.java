@@ -29,8 +29,10 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
 
+import org.hibernate.Hibernate;
 import org.isf.admission.model.Admission;
 import org.isf.admission.model.AdmittedPatient;
+import org.isf.admission.model.AdmittedPatientSummary;
 import org.isf.patient.model.Patient;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.time.TimeTools;
@@ -39,19 +41,24 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class AdmissionIoOperationRepositoryImpl implements AdmissionIoOperationRepositoryCustom {
 
-	private static String nativeQueryTerms = "SELECT * from OH_PATIENT as p  "
+	private static final String SELECT_ADMITTED_PATIENT = "SELECT *";
+
+	private static final String SELECT_ADMITTED_PATIENT_SUMMARY = "SELECT p.PAT_ID, p.PAT_FNAME, p.PAT_SNAME, p.PAT_NAME, p.PAT_SEX, p.PAT_BDATE, p.PAT_AGE, "
+					+ "p.PAT_AGETYPE, p.PAT_CITY, p.PAT_ADDR, p.PAT_TELE, p.PAT_ESTA, a.ADM_ID, a.ADM_WRD_ID_A, a.ADM_DATE_ADM";
+
+	private static String nativeQueryTerms = " from OH_PATIENT as p  "
 					+ " left join (select * from OH_ADMISSION where ADM_IN = 1 and ( (ADM_DELETED='N') or (ADM_DELETED is null ) ) ) as a on p.PAT_ID = a.ADM_PAT_ID "
 					+ " where ( ( p.PAT_DELETED='N' ) or ( p.PAT_DELETED is null ) )"
 					+ " and ( lower(concat_ws(' ', p.PAT_ID, p.PAT_SNAME, p.PAT_FNAME, p.PAT_NAME, p.PAT_NOTE, p.PAT_TAXCODE, p.PAT_CITY, p.PAT_ADDR, p.PAT_TELE)) like :param0 ) "
 					+ " order by p.PAT_ID desc";
 
-	private static String nativeQueryRanges = "SELECT * from OH_PATIENT as p  "
+	private static String nativeQueryRanges = " from OH_PATIENT as p  "
 					+ " left join (select * from OH_ADMISSION where ADM_IN = 1 and ( (ADM_DELETED='N') or (ADM_DELETED is null ) ) ) as a on p.PAT_ID = a.ADM_PAT_ID "
 					+ " where (p.PAT_ID IN (SELECT ADM_PAT_ID from OH_ADMISSION where param1))"
 					+ " and ( lower(concat_ws(' ', p.PAT_ID, p.PAT_SNAME, p.PAT_FNAME, p.PAT_NAME, p.PAT_NOTE, p.PAT_TAXCODE, p.PAT_CITY, p.PAT_ADDR, p.PAT_TELE)) like :param0 ) "
 					+ " order by p.PAT_ID desc";
 
-	private static String nativeQueryCode = "SELECT * from OH_PATIENT as p  "
+	private static String nativeQueryCode = " from OH_PATIENT as p  "
 					+ " left join (select * from OH_ADMISSION where ADM_IN = 1 and ( (ADM_DELETED='N') or (ADM_DELETED is null ) ) order by ADM_ID desc) as a on p.PAT_ID = a.ADM_PAT_ID "
 					+ " where p.PAT_ID = :param0 "
 					+ " and ( ( p.PAT_DELETED='N' ) or ( p.PAT_DELETED is null ) )";
@@ -64,15 +71,28 @@ public class AdmissionIoOperationRepositoryImpl implements AdmissionIoOperationR
 	@Override
 	public List<AdmittedPatient> findPatientAdmissionsBySearchAndDateRanges(String searchTerms, LocalDateTime[] admissionRange,
 					LocalDateTime[] dischargeRange) throws OHServiceException {
+		Query nativeQuery = createSearchQuery(SELECT_ADMITTED_PATIENT, "AdmittedPatient", searchTerms, admissionRange, dischargeRange);
+		return parseResultSet(new ArrayList<>(), nativeQuery);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<AdmittedPatientSummary> findPatientAdmissionSummariesBySearchAndDateRanges(String searchTerms, LocalDateTime[] admissionRange,
+					LocalDateTime[] dischargeRange) throws OHServiceException {
+		return createSearchQuery(SELECT_ADMITTED_PATIENT_SUMMARY, "AdmittedPatientSummary", searchTerms, admissionRange, dischargeRange)
+						.getResultList();
+	}
+
+	private Query createSearchQuery(String select, String resultSetMapping, String searchTerms, LocalDateTime[] admissionRange,
+					LocalDateTime[] dischargeRange) {
 		String[] terms = getTermsToSearch(searchTerms);
-		List<AdmittedPatient> admittedPatients = new ArrayList<>();
 		if (terms.length == 1) {
 			try {
 				int code = Integer.parseInt(terms[0]);
-				Query nativeQuery = this.entityManager.createNativeQuery(nativeQueryCode, "AdmittedPatient");
+				Query nativeQuery = this.entityManager.createNativeQuery(select + nativeQueryCode, resultSetMapping);
 				nativeQuery.setParameter("param0", code);
 
-				return parseResultSet(admittedPatients, nativeQuery);
+				return nativeQuery;
 
 			} catch (NumberFormatException nfe) {
 				// used to see if the search parameter is a patient code (number)
@@ -104,19 +124,19 @@ public class AdmissionIoOperationRepositoryImpl implements AdmissionIoOperationR
 									.append('\'');
 				}
 			}
-			Query nativeQuery = this.entityManager.createNativeQuery(nativeQueryRanges.replace("param1", rangePredicate.toString()), "AdmittedPatient");
+			Query nativeQuery = this.entityManager.createNativeQuery(select + nativeQueryRanges.replace("param1", rangePredicate.toString()), resultSetMapping);
 			String paramTerms = like(terms);
 			nativeQuery.setParameter("param0", paramTerms);
 
-			return parseResultSet(admittedPatients, nativeQuery);
+			return nativeQuery;
 
 		} else {
 
-			Query nativeQuery = this.entityManager.createNativeQuery(nativeQueryTerms, "AdmittedPatient");
+			Query nativeQuery = this.entityManager.createNativeQuery(select + nativeQueryTerms, resultSetMapping);
 			String paramTerms = like(terms);
 			nativeQuery.setParameter("param0", paramTerms);
 
-			return parseResultSet(admittedPatients, nativeQuery);
+			return nativeQuery;
 		}
 	}
 
@@ -125,6 +145,14 @@ public class AdmissionIoOperationRepositoryImpl implements AdmissionIoOperationR
 		results.stream().forEach(resultRecord -> {
 			Patient patientRecord = (Patient) resultRecord[0];
 			Admission admissionRecord = (Admission) resultRecord[1];
+			if (admissionRecord != null) {
+				// native queries ignore entity graphs: resolve what Admission.GRAPH_LIST would have fetched
+				Hibernate.initialize(admissionRecord.getWard());
+				Hibernate.initialize(admissionRecord.getAdmType());
+				Hibernate.initialize(admissionRecord.getDiseaseIn());
+				Hibernate.initialize(admissionRecord.getDiseaseOut1());
+				Hibernate.initialize(admissionRecord.getDisType());
+			}
 			admittedPatients.add(new AdmittedPatient(patientRecord, admissionRecord));
 		});
 		return admittedPatients;
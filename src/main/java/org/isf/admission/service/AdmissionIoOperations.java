@@ -33,6 +33,7 @@ import java.util.List;
 import org.hibernate.Hibernate;
 import org.isf.admission.model.Admission;
 import org.isf.admission.model.AdmittedPatient;
+import org.isf.admission.model.AdmittedPatientSummary;
 import org.isf.admtype.model.AdmissionType;
 import org.isf.admtype.service.AdmissionTypeIoOperationRepository;
 import org.isf.disctype.model.DischargeType;
@@ -41,12 +42,15 @@ import org.isf.generaldata.GeneralData;
 import org.isf.patient.model.Patient;
 import org.isf.patient.service.PatientIoOperationRepository;
 import org.isf.patient.service.PatientIoOperations;
+import org.isf.utils.db.EntityGraphInitializer;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.pagination.KeysetCursor;
 import org.isf.utils.pagination.PageInfo;
 import org.isf.utils.pagination.PagedResponse;
 import org.isf.utils.time.TimeTools;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -64,14 +68,18 @@ public class AdmissionIoOperations {
 
 	private PatientIoOperationRepository patientRepository;
 
+	private EntityGraphInitializer entityGraphInitializer;
+
 	public AdmissionIoOperations(AdmissionIoOperationRepository admissionIoOperationRepository,
 	                             AdmissionTypeIoOperationRepository admissionTypeIoOperationRepository,
 	                             DischargeTypeIoOperationRepository dischargeTypeIoOperationRepository,
-	                             PatientIoOperationRepository patientIoOperationRepository) {
+	                             PatientIoOperationRepository patientIoOperationRepository,
+	                             EntityGraphInitializer entityGraphInitializer) {
 		this.repository = admissionIoOperationRepository;
 		this.typeRepository = admissionTypeIoOperationRepository;
 		this.dischargeRepository = dischargeTypeIoOperationRepository;
 		this.patientRepository = patientIoOperationRepository;
+		this.entityGraphInitializer = entityGraphInitializer;
 	}
 
 	/**
@@ -111,6 +119,21 @@ public class AdmissionIoOperations {
 		return repository.findPatientAdmissionsBySearchAndDateRanges(searchTerms, admissionRange, dischargeRange);
 	}
 
+	/**
+	 * Returns the {@link AdmittedPatientSummary}s based on the applied filters, as {@link #getAdmittedPatients(String, LocalDateTime[], LocalDateTime[])}
+	 * but without loading the full {@link Patient} and {@link Admission} entities.
+	 *
+	 * @param searchTerms the search terms to use for filter the patient list, {@code null} if no filter is to be applied.
+	 * @param admissionRange (two-dimensions array) the patient admission dates range, both {@code null} if no filter is to be applied.
+	 * @param dischargeRange (two-dimensions array) the patient discharge dates range, both {@code null} if no filter is to be applied.
+	 * @return the filtered patient list.
+	 * @throws OHServiceException if an error occurs during database request.
+	 */
+	public List<AdmittedPatientSummary> getAdmittedPatientSummaries(String searchTerms, LocalDateTime[] admissionRange, LocalDateTime[] dischargeRange)
+					throws OHServiceException {
+		return repository.findPatientAdmissionSummariesBySearchAndDateRanges(searchTerms, admissionRange, dischargeRange);
+	}
+
 	/**
 	 * Load patient together with the profile photo, or {@code null} if there is no patient with the given id
 	 */
@@ -167,7 +190,7 @@ public class AdmissionIoOperations {
 	 * @throws OHServiceException if an error occurs during the insertion.
 	 */
 	public Admission newAdmission(Admission admission) throws OHServiceException {
-		return repository.save(admission);
+		return save(admission);
 	}
 
 	/**
@@ -190,7 +213,7 @@ public class AdmissionIoOperations {
 	 * @throws OHServiceException if an error occurs.
 	 */
 	public Admission updateAdmission(Admission admission) throws OHServiceException {
-		return repository.save(admission);
+		return save(admission);
 	}
 
 	/**
@@ -239,9 +262,9 @@ public class AdmissionIoOperations {
 			last = now.with(lastDayOfYear()).with(LocalTime.MAX).truncatedTo(ChronoUnit.SECONDS);
 		}
 
-		List<Admission> admissions = repository.findAllWhereWardAndDates(wardId, first, last);
-		if (!admissions.isEmpty()) {
-			next = admissions.get(0).getYProg() + 1;
+		Integer maxYProg = repository.findMaxYProgWhereWardAndDates(wardId, first, last);
+		if (maxYProg != null) {
+			next = maxYProg + 1;
 		}
 
 		return next;
@@ -285,7 +308,7 @@ public class AdmissionIoOperations {
 			return null;
 		}
 		foundAdmission.setDeleted('Y');
-		return repository.save(foundAdmission);
+		return save(foundAdmission);
 	}
 
 	/**
@@ -296,8 +319,7 @@ public class AdmissionIoOperations {
 	 * @throws OHServiceException if an error occurs retrieving the bed count.
 	 */
 	public int getUsedWardBed(String wardId) throws OHServiceException {
-		List<Admission> admissionList = repository.findAllWhereWardIn(wardId);
-		return admissionList.size();
+		return (int) repository.countWhereWardIn(wardId);
 	}
 
 	/**
@@ -356,6 +378,29 @@ public class AdmissionIoOperations {
 		return setPaginationData(pagedResult);
 	}
 
+	/**
+	 * Returns a page of Admissions ordered by admission date descending, using keyset pagination
+	 *
+	 * @param dateFrom
+	 * @param dateTo
+	 * @param cursor the cursor returned with the previous response or {@code null} for the first page
+	 * @param size
+	 * @param countTotal if {@code true} the matching admissions are counted, otherwise the total is {@code -1}
+	 * @return the list of {@link Admission} with the cursors of the adjacent pages.
+	 * @throws OHServiceException if an error occurs during database request.
+	 */
+	public PagedResponse<Admission> getAdmissionsByAdmissionDates(LocalDateTime dateFrom, LocalDateTime dateTo, String cursor, int size, boolean countTotal)
+					throws OHServiceException {
+		KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+		Pageable limit = PageRequest.of(0, size + 1);
+		List<Admission> admissions = keysetCursor == null || keysetCursor.isNext()
+						? repository.findAllWhere_AdmissionDate_BeforeCursor(dateFrom, dateTo, keysetCursor == null ? null : keysetCursor.getDate(),
+										keysetCursor == null ? null : keysetCursor.getCode(), limit)
+						: repository.findAllWhere_AdmissionDate_AfterCursor(dateFrom, dateTo, keysetCursor.getDate(), keysetCursor.getCode(), limit);
+		long total = countTotal ? repository.countWhere_AdmissionDate(dateFrom, dateTo) : -1;
+		return KeysetCursor.toPagedResponse(admissions, size, keysetCursor, Admission::getAdmDate, Admission::getId, total);
+	}
+
 	/**
 	 * Returns the list of Admissions with discharge by page
 	 *
@@ -393,4 +438,20 @@ public class AdmissionIoOperations {
 		return this.repository.countAllActiveNotDeletedAdmissions();
 	}
 
+	/**
+	 * Moves all the {@link Admission}s of the obsolete {@link Patient} to the merged one, with a single bulk update.
+	 *
+	 * @param obsoletePatient - the {@link Patient} being merged
+	 * @param mergedPatient - the {@link Patient} that keeps the history
+	 * @return the number of updated rows
+	 */
+	public int reassignPatient(Patient obsoletePatient, Patient mergedPatient) {
+		return repository.updatePatient(obsoletePatient, mergedPatient);
+	}
+
+	private Admission save(Admission admission) {
+		// a merged admission refers to uninitialized proxies, which the callers outside a transaction could not read
+		return entityGraphInitializer.initialize(repository.save(admission), Admission.GRAPH_DETAIL);
+	}
+
 }
@@ -21,13 +21,10 @@
  */
 package org.isf.admission.service;
 
-import java.util.List;
-
-import org.isf.admission.model.Admission;
 import org.isf.patient.model.PatientMergedEvent;
-import org.isf.utils.exception.OHServiceException;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 @Component
 public class AdmissionPatientMergedEventListener {
@@ -39,11 +36,10 @@ public class AdmissionPatientMergedEventListener {
 	}
 
 	@EventListener
-	public void handle(PatientMergedEvent patientMergedEvent) throws OHServiceException {
-		List<Admission> admissions = admissionIoOperations.getAdmissions(patientMergedEvent.getObsoletePatient());
-		for (Admission admission : admissions) {
-			admission.setPatient(patientMergedEvent.getMergedPatient());
-		}
+	@Transactional
+	public void handle(PatientMergedEvent patientMergedEvent) {
+		int rows = admissionIoOperations.reassignPatient(patientMergedEvent.getObsoletePatient(), patientMergedEvent.getMergedPatient());
+		patientMergedEvent.addMergedRows("admissions", rows);
 	}
 
 }
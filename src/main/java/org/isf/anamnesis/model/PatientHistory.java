@@ -25,13 +25,12 @@ import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 
 import org.hibernate.annotations.ColumnDefault;
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 /**
@@ -48,7 +47,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 public class PatientHistory extends Auditable<String> implements Comparable<PatientHistory> {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name = "PAH_ID")
 	private int id;
 
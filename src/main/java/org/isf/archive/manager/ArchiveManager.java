@@ -0,0 +1,227 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.archive.manager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.isf.archive.model.ArchiveTable;
+import org.isf.archive.model.ArchiveVerification;
+import org.isf.archive.service.ArchiveIoOperations;
+import org.isf.generaldata.GeneralData;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.scheduler.JobScheduler;
+import org.isf.utils.scheduler.JobTrigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Archives the closed records of the {@link ArchiveTable}s, restores them and verifies the archive tables.
+ * <p>
+ * The {@value #JOB_NAME} job of the {@link JobScheduler} archives every night the records older than {@link GeneralData#ARCHIVEHORIZON}
+ * days, if set at that time. Records are moved in batches of {@link GeneralData#ARCHIVEBATCHSIZE}, each in its own transaction, with a
+ * pause of {@link GeneralData#ARCHIVEPAUSE} milliseconds between batches.
+ * <p>
+ * Restored records are pinned in the table for as long as a new record takes to be archived, otherwise the next night would archive them
+ * again.
+ */
+@Component
+public class ArchiveManager {
+
+	public static final String JOB_NAME = "archive";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveManager.class);
+	private static final String JOB_SCHEDULE = "0 0 3 * * *";
+	private static final int DEFAULT_BATCH_SIZE = 500;
+	private static final int DEFAULT_PIN_DAYS = 30;
+	private static final int CLOSED_KEYS_CHUNK_SIZE = 1000;
+
+	private final ArchiveIoOperations ioOperations;
+
+	public ArchiveManager(ArchiveIoOperations archiveIoOperations) {
+		this.ioOperations = archiveIoOperations;
+	}
+
+	@PostConstruct
+	public void start() {
+		// the horizon is read when the job runs, GeneralData may not be loaded yet
+		JobScheduler.getDefault().schedule(JOB_NAME, JobTrigger.cron(JOB_SCHEDULE), this::scheduledArchive);
+	}
+
+	@PreDestroy
+	public void stop() {
+		JobScheduler.getDefault().cancel(JOB_NAME);
+	}
+
+	/**
+	 * Archives the closed records of all the {@link ArchiveTable}s older than {@link GeneralData#ARCHIVEHORIZON} days.
+	 *
+	 * @return the number of archived records by table, empty if archiving is disabled
+	 * @throws OHServiceException
+	 */
+	public Map<ArchiveTable, Integer> archiveAll() throws OHServiceException {
+		LocalDateTime horizon = getHorizon();
+		if (horizon == null) {
+			return Collections.emptyMap();
+		}
+		ioOperations.deleteExpiredPins();
+		Map<ArchiveTable, Integer> archived = new EnumMap<>(ArchiveTable.class);
+		for (ArchiveTable table : ArchiveTable.values()) {
+			archived.put(table, archive(table, horizon));
+		}
+		LOGGER.info("Records archived before {}: {}", horizon, archived);
+		return archived;
+	}
+
+	/**
+	 * Archives the closed records of the specified table dated before the horizon.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @param horizon - the records dated before are archived
+	 * @return the number of archived records, excluding children
+	 * @throws OHServiceException
+	 */
+	public int archive(ArchiveTable table, LocalDateTime horizon) throws OHServiceException {
+		ioOperations.createArchiveTables(table);
+		if (table.getClosedKeysQuery() == null) {
+			return archive(table, horizon, null);
+		}
+		// the closed keys are computed once, then archived a chunk of keys at a time to keep the IN lists short
+		List<String> closedKeys = ioOperations.getClosedKeys(table, horizon);
+		int total = 0;
+		for (int from = 0; from < closedKeys.size() && !Thread.currentThread().isInterrupted(); from += CLOSED_KEYS_CHUNK_SIZE) {
+			total += archive(table, horizon, closedKeys.subList(from, Math.min(from + CLOSED_KEYS_CHUNK_SIZE, closedKeys.size())));
+		}
+		return total;
+	}
+
+	/**
+	 * Restores the archived records of the specified table dated in the specified range and pins them for {@link GeneralData#ARCHIVEHORIZON}
+	 * days, {@value #DEFAULT_PIN_DAYS} if archiving is disabled.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @param dateFrom - the lower bound of the date range, inclusive, {@code null} for no bound
+	 * @param dateTo - the upper bound of the date range, inclusive, {@code null} for no bound
+	 * @return the number of restored records, excluding children
+	 * @throws OHServiceException
+	 */
+	public int restore(ArchiveTable table, LocalDateTime dateFrom, LocalDateTime dateTo) throws OHServiceException {
+		Integer horizonDays = GeneralData.ARCHIVEHORIZON;
+		int pinDays = horizonDays == null || horizonDays <= 0 ? DEFAULT_PIN_DAYS : horizonDays;
+		return restore(table, dateFrom, dateTo, LocalDateTime.now().plusDays(pinDays));
+	}
+
+	/**
+	 * Restores the archived records of the specified table dated in the specified range.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @param dateFrom - the lower bound of the date range, inclusive, {@code null} for no bound
+	 * @param dateTo - the upper bound of the date range, inclusive, {@code null} for no bound
+	 * @param pinnedUntil - the restored records are not archived again before this date, {@code null} for no pin
+	 * @return the number of restored records, excluding children
+	 * @throws OHServiceException
+	 */
+	public int restore(ArchiveTable table, LocalDateTime dateFrom, LocalDateTime dateTo, LocalDateTime pinnedUntil) throws OHServiceException {
+		ioOperations.createArchiveTables(table);
+		int batchSize = getBatchSize();
+		int total = 0;
+		int restored;
+		do {
+			restored = ioOperations.restore(table, dateFrom, dateTo, batchSize, pinnedUntil);
+			total += restored;
+		} while (restored == batchSize && pause());
+		return total;
+	}
+
+	/**
+	 * Verifies the archive tables of the specified table.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @return the {@link ArchiveVerification}
+	 * @throws OHServiceException
+	 */
+	public ArchiveVerification verify(ArchiveTable table) throws OHServiceException {
+		return ioOperations.verify(table);
+	}
+
+	/**
+	 * Verifies the archive tables of all the {@link ArchiveTable}s.
+	 *
+	 * @return the {@link ArchiveVerification}s
+	 * @throws OHServiceException
+	 */
+	public List<ArchiveVerification> verifyAll() throws OHServiceException {
+		List<ArchiveVerification> verifications = new ArrayList<>();
+		for (ArchiveTable table : ArchiveTable.values()) {
+			verifications.add(verify(table));
+		}
+		return verifications;
+	}
+
+	private void scheduledArchive() throws OHServiceException {
+		GeneralData.getGeneralData();
+		archiveAll();
+	}
+
+	private int archive(ArchiveTable table, LocalDateTime horizon, List<String> closedKeys) throws OHServiceException {
+		int batchSize = getBatchSize();
+		int total = 0;
+		int archived;
+		do {
+			archived = ioOperations.archive(table, horizon, closedKeys, batchSize);
+			total += archived;
+		} while (archived == batchSize && pause());
+		return total;
+	}
+
+	private static LocalDateTime getHorizon() {
+		Integer days = GeneralData.ARCHIVEHORIZON;
+		return days == null || days <= 0 ? null : LocalDateTime.now().minusDays(days);
+	}
+
+	private static int getBatchSize() {
+		Integer batchSize = GeneralData.ARCHIVEBATCHSIZE;
+		return batchSize == null ? DEFAULT_BATCH_SIZE : batchSize;
+	}
+
+	private static boolean pause() {
+		Integer pause = GeneralData.ARCHIVEPAUSE;
+		if (pause != null && pause > 0) {
+			try {
+				Thread.sleep(pause);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
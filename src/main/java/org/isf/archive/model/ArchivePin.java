@@ -0,0 +1,86 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.archive.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+
+import org.isf.utils.db.OHGeneratedValue;
+
+/**
+ * A restored record of an {@link ArchiveTable}, kept in its table until the pin expires.
+ */
+@Entity
+@Table(name = "OH_ARCHIVE_PIN", uniqueConstraints = @UniqueConstraint(name = "APN_RECORD_UNIQUE", columnNames = { "APN_TABLE", "APN_RECORD_ID" }))
+public class ArchivePin {
+
+	@Id
+	@OHGeneratedValue
+	@Column(name = "APN_ID")
+	private int id;
+
+	@NotNull
+	@Column(name = "APN_TABLE")
+	private String table;
+
+	@NotNull
+	@Column(name = "APN_RECORD_ID")
+	private int recordId;
+
+	@NotNull
+	@Column(name = "APN_UNTIL")
+	private LocalDateTime until;
+
+	public ArchivePin() {
+		super();
+	}
+
+	public ArchivePin(String table, int recordId, LocalDateTime until) {
+		super();
+		this.table = table;
+		this.recordId = recordId;
+		this.until = until;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public String getTable() {
+		return table;
+	}
+
+	public int getRecordId() {
+		return recordId;
+	}
+
+	public LocalDateTime getUntil() {
+		return until;
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.archive.model;
+
+/**
+ * A column of another table referring to the records of an {@link ArchiveTable}.
+ */
+public class ArchiveReference {
+
+	private final String table;
+	private final String column;
+
+	public ArchiveReference(String table, String column) {
+		this.table = table;
+		this.column = column;
+	}
+
+	/**
+	 * @return the name of the referring table
+	 */
+	public String getTable() {
+		return table;
+	}
+
+	/**
+	 * @return the name of the referring column
+	 */
+	public String getColumn() {
+		return column;
+	}
+
+	@Override
+	public String toString() {
+		return table + '.' + column;
+	}
+
+}
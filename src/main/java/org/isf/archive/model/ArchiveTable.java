@@ -0,0 +1,170 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.archive.model;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.isf.generaldata.GeneralData;
+
+/**
+ * The tables whose closed records are moved to an archive table, named after the table with the {@value #ARCHIVE_SUFFIX} suffix, once
+ * older than {@link GeneralData#ARCHIVEHORIZON} days.
+ * <p>
+ * The closed conditions refer to the table with the alias {@code t} and may use the {@code :horizon} parameter. Children are moved together
+ * with their parent record, while records still referred to by the {@link #getReferences() references} or belonging to active patients
+ * (currently admitted or with an open bill) stay in the table.
+ */
+public enum ArchiveTable {
+
+	// lot quantities are summed from the movements, so only the movements of exhausted lots without recent movements are closed; the
+	// exhausted lots are aggregated once per run and a lot moved since then is skipped by the closed condition
+	MOVEMENT("OH_MEDICALDSRSTOCKMOV", "MMV_ID", "MMV_DATE", null,
+			"NOT EXISTS (SELECT 1 FROM OH_MEDICALDSRSTOCKMOV m WHERE m.MMV_LT_ID_A = t.MMV_LT_ID_A AND m.MMV_DATE >= :horizon)",
+			Collections.emptyList(),
+			Collections.emptyList(),
+			"MMV_LT_ID_A",
+			"SELECT m.MMV_LT_ID_A FROM OH_MEDICALDSRSTOCKMOV m JOIN OH_MEDICALDSRSTOCKMOVTYPE mt ON m.MMV_MMVT_ID_A = mt.MMVT_ID_A"
+					+ " WHERE m.MMV_LT_ID_A IS NOT NULL GROUP BY m.MMV_LT_ID_A HAVING MAX(m.MMV_DATE) < :horizon"
+					+ " AND SUM(CASE WHEN mt.MMVT_TYPE LIKE '%+%' THEN m.MMV_QTY ELSE -m.MMV_QTY END) = 0"),
+	OPD("OH_OPD", "OPD_ID", "OPD_DATE", "OPD_PAT_ID",
+			null,
+			Collections.emptyList(),
+			List.of(new ArchiveReference("OH_OPERATIONROW", "OPER_OPD_ID"))),
+	LABORATORY("OH_LABORATORY", "LAB_ID", "LAB_DATE", "LAB_PAT_ID",
+			"LOWER(t.LAB_STATUS) IN ('done', 'invalid', 'deleted')",
+			List.of(new ArchiveReference("OH_LABORATORYROW", "LABR_LAB_ID")),
+			Collections.emptyList()),
+	BILL("OH_BILLS", "BLL_ID", "BLL_DATE", "BLL_ID_PAT",
+			"t.BLL_STATUS IN ('C', 'D')",
+			List.of(new ArchiveReference("OH_BILLITEMS", "BLI_ID_BILL"), new ArchiveReference("OH_BILLPAYMENTS", "BLP_ID_BILL")),
+			List.of(new ArchiveReference("OH_OPERATIONROW", "OPER_BILL_ID"))),
+	SMS("OH_SMS", "SMS_ID", "SMS_DATE_SCHED", null,
+			"t.SMS_DATE_SENT IS NOT NULL",
+			Collections.emptyList(),
+			Collections.emptyList()),
+	SESSION_AUDIT("OH_SESSION_AUDIT", "SEA_ID", "SEA_LOGIN", null,
+			"t.SEA_LOGOUT IS NOT NULL",
+			Collections.emptyList(),
+			Collections.emptyList());
+
+	public static final String ARCHIVE_SUFFIX = "_ARCHIVE";
+
+	private final String table;
+	private final String idColumn;
+	private final String dateColumn;
+	private final String patientColumn;
+	private final String closedCondition;
+	private final List<ArchiveReference> children;
+	private final List<ArchiveReference> references;
+	private final String closedKeyColumn;
+	private final String closedKeysQuery;
+
+	ArchiveTable(String table, String idColumn, String dateColumn, String patientColumn, String closedCondition, List<ArchiveReference> children,
+			List<ArchiveReference> references) {
+		this(table, idColumn, dateColumn, patientColumn, closedCondition, children, references, null, null);
+	}
+
+	ArchiveTable(String table, String idColumn, String dateColumn, String patientColumn, String closedCondition, List<ArchiveReference> children,
+			List<ArchiveReference> references, String closedKeyColumn, String closedKeysQuery) {
+		this.table = table;
+		this.idColumn = idColumn;
+		this.dateColumn = dateColumn;
+		this.patientColumn = patientColumn;
+		this.closedCondition = closedCondition;
+		this.children = children;
+		this.references = references;
+		this.closedKeyColumn = closedKeyColumn;
+		this.closedKeysQuery = closedKeysQuery;
+	}
+
+	/**
+	 * @param table - the name of a table
+	 * @return the name of its archive table
+	 */
+	public static String archiveOf(String table) {
+		return table + ARCHIVE_SUFFIX;
+	}
+
+	public String getTable() {
+		return table;
+	}
+
+	public String getArchiveTable() {
+		return archiveOf(table);
+	}
+
+	public String getIdColumn() {
+		return idColumn;
+	}
+
+	/**
+	 * @return the column compared with the horizon and used to route the date range queries
+	 */
+	public String getDateColumn() {
+		return dateColumn;
+	}
+
+	/**
+	 * @return the column referring to the patient, {@code null} if the records do not belong to a patient
+	 */
+	public String getPatientColumn() {
+		return patientColumn;
+	}
+
+	/**
+	 * @return the condition a record must satisfy, besides its age, to be archived, {@code null} if every old enough record is closed
+	 */
+	public String getClosedCondition() {
+		return closedCondition;
+	}
+
+	/**
+	 * @return the child tables, archived and restored together with their parent record
+	 */
+	public List<ArchiveReference> getChildren() {
+		return children;
+	}
+
+	/**
+	 * @return the references keeping a record in the table
+	 */
+	public List<ArchiveReference> getReferences() {
+		return references;
+	}
+
+	/**
+	 * @return the column whose value must be one of the {@link #getClosedKeysQuery() closed keys}, {@code null} if the table has none
+	 */
+	public String getClosedKeyColumn() {
+		return closedKeyColumn;
+	}
+
+	/**
+	 * @return the query, with the {@code :horizon} parameter, computing the closed keys once per run instead of once per batch,
+	 *         {@code null} if the table has none
+	 */
+	public String getClosedKeysQuery() {
+		return closedKeysQuery;
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.archive.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of the verification of an {@link ArchiveTable}.
+ */
+public class ArchiveVerification {
+
+	private final ArchiveTable table;
+	private final long hotCount;
+	private final long archivedCount;
+	private final long duplicateCount;
+	private final long orphanCount;
+	private final List<String> columnMismatches;
+
+	public ArchiveVerification(ArchiveTable table, long hotCount, long archivedCount, long duplicateCount, long orphanCount,
+			List<String> columnMismatches) {
+		this.table = table;
+		this.hotCount = hotCount;
+		this.archivedCount = archivedCount;
+		this.duplicateCount = duplicateCount;
+		this.orphanCount = orphanCount;
+		this.columnMismatches = Collections.unmodifiableList(columnMismatches);
+	}
+
+	public ArchiveTable getTable() {
+		return table;
+	}
+
+	/**
+	 * @return the number of records in the table
+	 */
+	public long getHotCount() {
+		return hotCount;
+	}
+
+	/**
+	 * @return the number of records in the archive table
+	 */
+	public long getArchivedCount() {
+		return archivedCount;
+	}
+
+	/**
+	 * @return the number of records, children included, present both in a table and in its archive table
+	 */
+	public long getDuplicateCount() {
+		return duplicateCount;
+	}
+
+	/**
+	 * @return the number of archived children whose parent record is not archived
+	 */
+	public long getOrphanCount() {
+		return orphanCount;
+	}
+
+	/**
+	 * @return the columns present only in a table or only in its archive table, as {@code TABLE.COLUMN}
+	 */
+	public List<String> getColumnMismatches() {
+		return columnMismatches;
+	}
+
+	/**
+	 * @return {@code true} if no inconsistency was found
+	 */
+	public boolean isValid() {
+		return duplicateCount == 0 && orphanCount == 0 && columnMismatches.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return table + ": " + hotCount + " hot, " + archivedCount + " archived, " + duplicateCount + " duplicated, " + orphanCount + " orphaned"
+				+ (columnMismatches.isEmpty() ? "" : ", mismatching columns " + columnMismatches);
+	}
+
+}
@@ -0,0 +1,799 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.archive.service;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import org.hibernate.jpa.HibernateHints;
+import org.isf.archive.model.ArchiveReference;
+import org.isf.archive.model.ArchiveTable;
+import org.isf.archive.model.ArchiveVerification;
+import org.isf.patient.model.Patient;
+import org.isf.utils.db.EntityGraphInitializer;
+import org.isf.utils.db.TranslateOHServiceException;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.exception.model.OHExceptionMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Moves the closed records of the {@link ArchiveTable}s to their archive tables and back, and reads the archived records for the date
+ * range queries of the other IoOperations.
+ * <p>
+ * Each call moves one batch in its own transaction; the archive tables have the same columns as the tables they archive, the columns are
+ * always listed explicitly and a table whose columns differ from its archive table is neither archived nor restored.
+ */
+@Service
+@Transactional(rollbackFor = OHServiceException.class)
+@TranslateOHServiceException
+public class ArchiveIoOperations {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveIoOperations.class);
+
+	// records archived by another instance are noticed at most after this delay
+	private static final long WATERMARK_TTL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	private final Map<String, List<String>> columns = new ConcurrentHashMap<>();
+
+	private final Map<ArchiveTable, Watermark> watermarks = new ConcurrentHashMap<>();
+
+	private final Set<String> existingTables = ConcurrentHashMap.newKeySet();
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final EntityGraphInitializer entityGraphInitializer;
+
+	public ArchiveIoOperations(JdbcTemplate jdbcTemplate, EntityGraphInitializer entityGraphInitializer) {
+		this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		this.entityGraphInitializer = entityGraphInitializer;
+	}
+
+	/**
+	 * Creates the archive tables of the specified table and of its children, if missing, with the columns, primary key and indexes of the
+	 * tables they archive.
+	 * <p>
+	 * The tables are created by {@code CREATE TABLE ... LIKE}; on a database without it, such as H2, the columns are copied and the primary
+	 * key and indexes are declared from the metadata of the table.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 */
+	public void createArchiveTables(ArchiveTable table) {
+		for (String name : getTables(table)) {
+			String archive = ArchiveTable.archiveOf(name);
+			if (exists(archive)) {
+				continue;
+			}
+			try {
+				jdbcTemplate.getJdbcOperations().execute("CREATE TABLE IF NOT EXISTS " + archive + " LIKE " + name);
+			} catch (BadSqlGrammarException e) {
+				createArchiveTableFromMetadata(name, archive);
+			}
+			existingTables.add(archive);
+		}
+	}
+
+	/**
+	 * @param table - the {@link ArchiveTable}
+	 * @return {@code true} if the archive tables of the specified table and of its children exist
+	 */
+	@Transactional(readOnly = true)
+	public boolean hasArchiveTables(ArchiveTable table) {
+		return getTables(table).stream().map(ArchiveTable::archiveOf).allMatch(this::exists);
+	}
+
+	/**
+	 * Moves to the archive table, together with their children, up to {@code limit} closed records dated before the horizon.
+	 * <p>
+	 * The record with the highest id is never moved, so that the identity of the table cannot go back and reuse archived ids, nor are the
+	 * restored records still pinned.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @param horizon - the records dated before are archived
+	 * @param limit - the maximum number of records to move
+	 * @return the number of archived records, excluding children
+	 * @throws OHServiceException if the columns of a table and of its archive table differ
+	 */
+	public int archive(ArchiveTable table, LocalDateTime horizon, int limit) throws OHServiceException {
+		return archive(table, horizon, null, limit);
+	}
+
+	/**
+	 * Moves to the archive table, together with their children, up to {@code limit} closed records dated before the horizon whose
+	 * {@link ArchiveTable#getClosedKeyColumn() closed key column} is one of the specified keys.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @param horizon - the records dated before are archived
+	 * @param closedKeys - the keys computed by {@link #getClosedKeys(ArchiveTable, LocalDateTime)}, {@code null} for no restriction
+	 * @param limit - the maximum number of records to move
+	 * @return the number of archived records, excluding children
+	 * @throws OHServiceException if the columns of a table and of its archive table differ
+	 */
+	public int archive(ArchiveTable table, LocalDateTime horizon, List<String> closedKeys, int limit) throws OHServiceException {
+		if (closedKeys != null && closedKeys.isEmpty()) {
+			return 0;
+		}
+		entityManager.flush();
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("horizon", horizon);
+		parameters.put("now", LocalDateTime.now());
+		if (closedKeys != null) {
+			parameters.put("closedKeys", closedKeys);
+		}
+		String archivableCondition = getArchivableCondition(table, closedKeys != null);
+		// the candidates are locked, and the copy checks the condition again, as a patient may be admitted or a bill reopened meanwhile
+		List<Integer> ids = jdbcTemplate.queryForList("SELECT t." + table.getIdColumn() + " FROM " + table.getTable() + " t WHERE "
+				+ archivableCondition + " ORDER BY t." + table.getIdColumn() + " LIMIT " + limit + " FOR UPDATE", parameters, Integer.class);
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		parameters.put("ids", ids);
+		int archived = move(table, archivableCondition, parameters, false);
+		LOGGER.debug("{} records of {} archived.", archived, table.getTable());
+		return archived;
+	}
+
+	/**
+	 * Computes the keys of the {@link ArchiveTable#getClosedKeyColumn() closed key column} whose records are closed at the horizon, with a
+	 * single aggregation that the batches of the run then share.
+	 *
+	 * @param table - the {@link ArchiveTable}, with a {@link ArchiveTable#getClosedKeysQuery() closed keys query}
+	 * @param horizon - the records dated before are archived
+	 * @return the closed keys
+	 */
+	@Transactional(readOnly = true)
+	public List<String> getClosedKeys(ArchiveTable table, LocalDateTime horizon) {
+		entityManager.flush();
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("horizon", horizon);
+		return jdbcTemplate.queryForList(table.getClosedKeysQuery(), parameters, String.class);
+	}
+
+	/**
+	 * Moves back from the archive table, together with their children, up to {@code limit} records dated in the specified range.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @param dateFrom - the lower bound of the date range, inclusive, {@code null} for no bound
+	 * @param dateTo - the upper bound of the date range, inclusive, {@code null} for no bound
+	 * @param limit - the maximum number of records to move
+	 * @param pinnedUntil - the restored records are not archived again before this date, {@code null} for no pin
+	 * @return the number of restored records, excluding children
+	 * @throws OHServiceException if the columns of a table and of its archive table differ
+	 */
+	public int restore(ArchiveTable table, LocalDateTime dateFrom, LocalDateTime dateTo, int limit, LocalDateTime pinnedUntil)
+			throws OHServiceException {
+		entityManager.flush();
+		StringBuilder query = new StringBuilder("SELECT a.").append(table.getIdColumn()).append(" FROM ").append(table.getArchiveTable())
+				.append(" a WHERE 1 = 1");
+		Map<String, Object> parameters = new HashMap<>();
+		if (dateFrom != null) {
+			query.append(" AND a.").append(table.getDateColumn()).append(" >= :dateFrom");
+			parameters.put("dateFrom", dateFrom);
+		}
+		if (dateTo != null) {
+			query.append(" AND a.").append(table.getDateColumn()).append(" <= :dateTo");
+			parameters.put("dateTo", dateTo);
+		}
+		query.append(" ORDER BY a.").append(table.getIdColumn()).append(" LIMIT ").append(limit);
+		List<Integer> ids = jdbcTemplate.queryForList(query.toString(), parameters, Integer.class);
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		parameters.put("ids", ids);
+		int restored = move(table, null, parameters, true);
+		if (pinnedUntil != null) {
+			pin(table, ids, pinnedUntil);
+		}
+		LOGGER.debug("{} records of {} restored.", restored, table.getTable());
+		return restored;
+	}
+
+	/**
+	 * Checks that no record is both in a table and in its archive table, that children and parents are archived together and that the
+	 * columns of the tables and of their archive tables match. Nothing is written, missing archive tables included.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @return the {@link ArchiveVerification}
+	 */
+	@Transactional(readOnly = true)
+	public ArchiveVerification verify(ArchiveTable table) {
+		entityManager.flush();
+		if (!hasArchiveTables(table)) {
+			// nothing was archived yet
+			return new ArchiveVerification(table, count("SELECT COUNT(*) FROM " + table.getTable()), 0, 0, 0, Collections.emptyList());
+		}
+		List<String> columnMismatches = new ArrayList<>();
+		for (String name : getTables(table)) {
+			columnMismatches.addAll(getColumnMismatches(name));
+		}
+		String hot = table.getTable();
+		String archive = table.getArchiveTable();
+		String id = table.getIdColumn();
+		long hotCount = count("SELECT COUNT(*) FROM " + hot);
+		long archivedCount = count("SELECT COUNT(*) FROM " + archive);
+		long duplicateCount = count("SELECT COUNT(*) FROM " + archive + " a WHERE EXISTS (SELECT 1 FROM " + hot + " h WHERE h." + id + " = a." + id + ')');
+		long orphanCount = 0;
+		for (ArchiveReference child : table.getChildren()) {
+			String column = child.getColumn();
+			orphanCount += count("SELECT COUNT(*) FROM " + ArchiveTable.archiveOf(child.getTable()) + " c WHERE NOT EXISTS (SELECT 1 FROM " + archive
+					+ " a WHERE a." + id + " = c." + column + ')');
+			orphanCount += count("SELECT COUNT(*) FROM " + child.getTable() + " c WHERE EXISTS (SELECT 1 FROM " + archive
+					+ " a WHERE a." + id + " = c." + column + ')');
+		}
+		return new ArchiveVerification(table, hotCount, archivedCount, duplicateCount, orphanCount, columnMismatches);
+	}
+
+	/**
+	 * Moves the archived records of the obsolete patient to the merged patient, rewriting the patient data copied in the records like the
+	 * merge of the tables they archive does.
+	 *
+	 * @param obsoletePatient - the merged away {@link Patient}
+	 * @param mergedPatient - the {@link Patient} receiving the history
+	 * @return the number of moved records
+	 */
+	public int reassignPatient(Patient obsoletePatient, Patient mergedPatient) {
+		entityManager.flush();
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("obsoletePatient", obsoletePatient.getCode());
+		parameters.put("mergedPatient", mergedPatient.getCode());
+		parameters.put("patName", mergedPatient.getName());
+		parameters.put("age", mergedPatient.getAge());
+		parameters.put("sex", String.valueOf(mergedPatient.getSex()));
+		int updated = 0;
+		for (ArchiveTable table : ArchiveTable.values()) {
+			String patient = table.getPatientColumn();
+			if (patient != null && exists(table.getArchiveTable())) {
+				updated += jdbcTemplate.update("UPDATE " + table.getArchiveTable() + " SET " + patient + " = :mergedPatient"
+						+ getPatientDataAssignments(table) + " WHERE " + patient + " = :obsoletePatient", parameters);
+			}
+		}
+		return updated;
+	}
+
+	/**
+	 * Deletes the pins of the restored records that expired, so that the records can be archived again.
+	 *
+	 * @return the number of deleted pins
+	 */
+	public int deleteExpiredPins() {
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("now", LocalDateTime.now());
+		return jdbcTemplate.update("DELETE FROM OH_ARCHIVE_PIN WHERE APN_UNTIL <= :now", parameters);
+	}
+
+	/**
+	 * @param table - the {@link ArchiveTable}
+	 * @param dateFrom - the lower bound of a date range, {@code null} for no bound
+	 * @return {@code true} if the archive table may contain records dated from {@code dateFrom}
+	 */
+	@Transactional(readOnly = true)
+	public boolean isArchived(ArchiveTable table, LocalDateTime dateFrom) {
+		Watermark watermark = watermarks.get(table);
+		if (watermark == null || watermark.isExpired()) {
+			watermark = new Watermark(getArchivedUntil(table));
+			watermarks.put(table, watermark);
+		}
+		return watermark.date != null && (dateFrom == null || !dateFrom.isAfter(watermark.date));
+	}
+
+	/**
+	 * Retrieves the archived records matching a condition, provided that the archive table may contain records dated from
+	 * {@code dateFrom}.
+	 * <p>
+	 * The records are read only: they are not in the table of their entity and cannot be updated.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @param entityClass - the entity of the table
+	 * @param entityGraph - the name of the entity graph whose attributes are initialized, {@code null} for none
+	 * @param dateFrom - the lower bound of the date range of the query, {@code null} for no bound
+	 * @param condition - the SQL condition on the columns of the table, with named parameters
+	 * @param parameters - the parameters of the condition
+	 * @return the archived records, empty if the date range does not reach the archive
+	 */
+	@Transactional(readOnly = true)
+	public <T> List<T> getArchived(ArchiveTable table, Class<T> entityClass, String entityGraph, LocalDateTime dateFrom, String condition,
+			Map<String, ?> parameters) {
+		return getArchived(table, entityClass, entityGraph, dateFrom, condition, null, 0, parameters);
+	}
+
+	/**
+	 * Retrieves the first archived records matching a condition in the specified order, provided that the archive table may contain
+	 * records dated from {@code dateFrom}, as {@link #getArchived(ArchiveTable, Class, String, LocalDateTime, String, Map)}.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @param entityClass - the entity of the table
+	 * @param entityGraph - the name of the entity graph whose attributes are initialized, {@code null} for none
+	 * @param dateFrom - the lower bound of the date range of the query, {@code null} for no bound
+	 * @param condition - the SQL condition on the columns of the table, with named parameters
+	 * @param orderBy - the SQL order on the columns of the table, {@code null} for none
+	 * @param limit - the maximum number of records, {@code 0} for no limit
+	 * @param parameters - the parameters of the condition
+	 * @return the archived records, empty if the date range does not reach the archive
+	 */
+	@Transactional(readOnly = true)
+	@SuppressWarnings("unchecked")
+	public <T> List<T> getArchived(ArchiveTable table, Class<T> entityClass, String entityGraph, LocalDateTime dateFrom, String condition,
+			String orderBy, int limit, Map<String, ?> parameters) {
+		if (!isArchived(table, dateFrom)) {
+			return Collections.emptyList();
+		}
+		Query query = createArchivedQuery(table, entityClass, condition, orderBy, parameters);
+		if (limit > 0) {
+			query.setMaxResults(limit);
+		}
+		List<T> archived = query.getResultList();
+		if (entityGraph != null) {
+			entityGraphInitializer.initialize(archived, entityGraph);
+		}
+		return archived;
+	}
+
+	/**
+	 * Streams the archived records matching a condition in the specified order, provided that the archive table may contain records
+	 * dated from {@code dateFrom}, for ranges too large to be held in memory.
+	 * <p>
+	 * The records are fetched while the stream is consumed and detached once read: the method must be called inside an existing
+	 * transaction and the stream must be closed by the caller.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @param entityClass - the entity of the table
+	 * @param dateFrom - the lower bound of the date range of the query, {@code null} for no bound
+	 * @param condition - the SQL condition on the columns of the table, with named parameters
+	 * @param orderBy - the SQL order on the columns of the table
+	 * @param parameters - the parameters of the condition
+	 * @return the {@link Stream} of the archived records, empty if the date range does not reach the archive
+	 */
+	@Transactional(propagation = Propagation.MANDATORY, readOnly = true)
+	@SuppressWarnings("unchecked")
+	public <T> Stream<T> streamArchived(ArchiveTable table, Class<T> entityClass, LocalDateTime dateFrom, String condition, String orderBy,
+			Map<String, ?> parameters) {
+		if (!isArchived(table, dateFrom)) {
+			return Stream.empty();
+		}
+		Query query = createArchivedQuery(table, entityClass, condition, orderBy, parameters);
+		query.setHint(HibernateHints.HINT_FETCH_SIZE, 500);
+		return ((Stream<T>) query.getResultStream()).map(archived -> {
+			entityManager.detach(archived);
+			return archived;
+		});
+	}
+
+	/**
+	 * Counts the archived records matching a condition, provided that the archive table may contain records dated from {@code dateFrom}.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @param dateFrom - the lower bound of the date range of the query, {@code null} for no bound
+	 * @param condition - the SQL condition on the columns of the table, with named parameters
+	 * @param parameters - the parameters of the condition
+	 * @return the number of archived records, {@code 0} if the date range does not reach the archive
+	 */
+	@Transactional(readOnly = true)
+	public long countArchived(ArchiveTable table, LocalDateTime dateFrom, String condition, Map<String, ?> parameters) {
+		if (!isArchived(table, dateFrom)) {
+			return 0;
+		}
+		Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table.getArchiveTable() + " WHERE " + condition, parameters, Long.class);
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * Retrieves the archived rows of a child table matching a condition, provided that the archive table contains records.
+	 * <p>
+	 * The rows are mapped one by one, as the entity of a child would look for its parent in the table instead of the archive table: the
+	 * caller looks the archived parents up by id.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @param childTable - the name of one of its {@link ArchiveTable#getChildren() child tables}
+	 * @param condition - the SQL condition on the columns of the child table, with named parameters
+	 * @param parameters - the parameters of the condition
+	 * @param rowMapper - maps a row of the archive table of the child table
+	 * @return the archived rows, empty if the archive table is empty
+	 */
+	@Transactional(readOnly = true)
+	public <T> List<T> getArchivedChildren(ArchiveTable table, String childTable, String condition, Map<String, ?> parameters,
+			RowMapper<T> rowMapper) {
+		if (table.getChildren().stream().noneMatch(child -> child.getTable().equals(childTable))) {
+			throw new IllegalArgumentException(childTable + " is not a child table of " + table.getTable());
+		}
+		if (!isArchived(table, null)) {
+			return Collections.emptyList();
+		}
+		return jdbcTemplate.query("SELECT * FROM " + ArchiveTable.archiveOf(childTable) + " WHERE " + condition, parameters, rowMapper);
+	}
+
+	private Query createArchivedQuery(ArchiveTable table, Class<?> entityClass, String condition, String orderBy, Map<String, ?> parameters) {
+		String sql = "SELECT * FROM " + table.getArchiveTable() + " WHERE " + condition;
+		if (orderBy != null) {
+			sql += " ORDER BY " + orderBy;
+		}
+		Query query = entityManager.createNativeQuery(sql, entityClass);
+		parameters.forEach(query::setParameter);
+		query.setHint(HibernateHints.HINT_READ_ONLY, true);
+		return query;
+	}
+
+	/**
+	 * Checks whether an archived record matches a condition, provided that the archive table may contain records dated from
+	 * {@code dateFrom}; the query stops at the first matching record.
+	 *
+	 * @param table - the {@link ArchiveTable}
+	 * @param dateFrom - the lower bound of the date range of the query, {@code null} for no bound
+	 * @param condition - the SQL condition on the columns of the table, with named parameters
+	 * @param parameters - the parameters of the condition
+	 * @return {@code true} if an archived record matches the condition
+	 */
+	@Transactional(readOnly = true)
+	public boolean existsArchived(ArchiveTable table, LocalDateTime dateFrom, String condition, Map<String, ?> parameters) {
+		if (!isArchived(table, dateFrom)) {
+			return false;
+		}
+		return !jdbcTemplate.queryForList("SELECT 1 FROM " + table.getArchiveTable() + " WHERE " + condition + " LIMIT 1", parameters, Integer.class)
+				.isEmpty();
+	}
+
+	/**
+	 * @param hot - the records read from a table
+	 * @param archived - the records read from its archive table
+	 * @param order - the order of the query
+	 * @return the union of the records, in the order of the query
+	 */
+	public static <T> List<T> union(List<T> hot, List<T> archived, Comparator<? super T> order) {
+		if (archived.isEmpty()) {
+			return hot;
+		}
+		List<T> union = new ArrayList<>(hot.size() + archived.size());
+		union.addAll(hot);
+		union.addAll(archived);
+		union.sort(order);
+		return union;
+	}
+
+	/**
+	 * @param hot - the first page of a query read from a table, from its first record up to the end of the requested page
+	 * @param archived - the first records of the query read from its archive table, in the order of the query, up to the size of
+	 *            {@code hot}
+	 * @param archivedTotal - the number of records of the query in the archive table
+	 * @param order - the order of the query
+	 * @param pageable - the requested page
+	 * @return the requested page of the union of the records
+	 */
+	public static <T> Page<T> union(Page<T> hot, List<T> archived, long archivedTotal, Comparator<? super T> order, Pageable pageable) {
+		List<T> union = union(hot.getContent(), archived, order);
+		int from = (int) Math.min(pageable.getOffset(), union.size());
+		int to = Math.min(from + pageable.getPageSize(), union.size());
+		return new PageImpl<>(new ArrayList<>(union.subList(from, to)), pageable, hot.getTotalElements() + archivedTotal);
+	}
+
+	/**
+	 * Merges two streams sorted in the same order while they are consumed; closing the union closes both streams.
+	 *
+	 * @param hot - the records read from a table, in the order of the query
+	 * @param archived - the records read from its archive table, in the order of the query
+	 * @param order - the order of the query
+	 * @return the union of the records, in the order of the query
+	 */
+	public static <T> Stream<T> union(Stream<T> hot, Stream<T> archived, Comparator<? super T> order) {
+		Iterator<T> hotIterator = hot.iterator();
+		Iterator<T> archivedIterator = archived.iterator();
+		Iterator<T> union = new Iterator<>() {
+
+			private T nextHot;
+			private T nextArchived;
+
+			@Override
+			public boolean hasNext() {
+				return nextHot != null || nextArchived != null || hotIterator.hasNext() || archivedIterator.hasNext();
+			}
+
+			@Override
+			public T next() {
+				if (nextHot == null && hotIterator.hasNext()) {
+					nextHot = hotIterator.next();
+				}
+				if (nextArchived == null && archivedIterator.hasNext()) {
+					nextArchived = archivedIterator.next();
+				}
+				T next;
+				if (nextArchived == null || nextHot != null && order.compare(nextHot, nextArchived) <= 0) {
+					next = nextHot;
+					nextHot = null;
+				} else {
+					next = nextArchived;
+					nextArchived = null;
+				}
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				return next;
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(union, Spliterator.ORDERED), false).onClose(() -> {
+			try {
+				hot.close();
+			} finally {
+				archived.close();
+			}
+		});
+	}
+
+	private String getArchivableCondition(ArchiveTable table, boolean restrictToClosedKeys) {
+		String name = table.getTable();
+		String id = table.getIdColumn();
+		StringBuilder condition = new StringBuilder("t.").append(table.getDateColumn()).append(" < :horizon");
+		if (restrictToClosedKeys) {
+			condition.append(" AND t.").append(table.getClosedKeyColumn()).append(" IN (:closedKeys)");
+		}
+		if (table.getClosedCondition() != null) {
+			condition.append(" AND ").append(table.getClosedCondition());
+		}
+		condition.append(" AND t.").append(id).append(" < (SELECT MAX(m.").append(id).append(") FROM ").append(name).append(" m)");
+		condition.append(" AND NOT EXISTS (SELECT 1 FROM OH_ARCHIVE_PIN p WHERE p.APN_TABLE = '").append(name).append("' AND p.APN_RECORD_ID = t.")
+				.append(id).append(" AND p.APN_UNTIL > :now)");
+		String patient = table.getPatientColumn();
+		if (patient != null) {
+			condition.append(" AND NOT EXISTS (SELECT 1 FROM OH_ADMISSION a WHERE a.ADM_PAT_ID = t.").append(patient)
+					.append(" AND a.ADM_IN = 1 AND a.ADM_DELETED = 'N')");
+			condition.append(" AND NOT EXISTS (SELECT 1 FROM OH_BILLS b WHERE b.BLL_ID_PAT = t.").append(patient).append(" AND b.BLL_STATUS = 'O')");
+		}
+		for (ArchiveReference reference : table.getReferences()) {
+			condition.append(" AND NOT EXISTS (SELECT 1 FROM ").append(reference.getTable()).append(" r WHERE r.").append(reference.getColumn())
+					.append(" = t.").append(id).append(')');
+		}
+		return condition.toString();
+	}
+
+	private int move(ArchiveTable table, String condition, Map<String, ?> parameters, boolean restore) throws OHServiceException {
+		String id = table.getIdColumn();
+		copy(table.getTable(), id, "(:ids)", condition, parameters, restore);
+		// the children and the deletes follow the records actually copied, which the condition may have skipped
+		String moved = "(SELECT m." + id + " FROM " + (restore ? table.getTable() : table.getArchiveTable()) + " m WHERE m." + id + " IN (:ids))";
+		for (ArchiveReference child : table.getChildren()) {
+			copy(child.getTable(), child.getColumn(), moved, null, parameters, restore);
+		}
+		for (ArchiveReference child : table.getChildren()) {
+			delete(child.getTable(), child.getColumn(), moved, parameters, restore);
+		}
+		int count = delete(table.getTable(), id, moved, parameters, restore);
+		// the moved records may still be in the persistence context
+		entityManager.clear();
+		// the watermark is reloaded both now and once the batch is committed or rolled back
+		watermarks.remove(table);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCompletion(int status) {
+					watermarks.remove(table);
+				}
+			});
+		}
+		return count;
+	}
+
+	private void pin(ArchiveTable table, List<Integer> ids, LocalDateTime pinnedUntil) {
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("table", table.getTable());
+		parameters.put("ids", ids);
+		jdbcTemplate.update("DELETE FROM OH_ARCHIVE_PIN WHERE APN_TABLE = :table AND APN_RECORD_ID IN (:ids)", parameters);
+		MapSqlParameterSource[] pins = ids.stream()
+				.map(id -> new MapSqlParameterSource().addValue("table", table.getTable()).addValue("id", id).addValue("until", pinnedUntil))
+				.toArray(MapSqlParameterSource[]::new);
+		jdbcTemplate.batchUpdate("INSERT INTO OH_ARCHIVE_PIN (APN_TABLE, APN_RECORD_ID, APN_UNTIL) VALUES (:table, :id, :until)", pins);
+	}
+
+	private void createArchiveTableFromMetadata(String table, String archive) {
+		JdbcOperations jdbcOperations = jdbcTemplate.getJdbcOperations();
+		jdbcOperations.execute("CREATE TABLE IF NOT EXISTS " + archive + " AS SELECT * FROM " + table + " WHERE 1 = 0");
+		jdbcOperations.execute((ConnectionCallback<Void>) connection -> {
+			DatabaseMetaData metaData = connection.getMetaData();
+			Map<Short, String> primaryKey = new TreeMap<>();
+			try (ResultSet resultSet = metaData.getPrimaryKeys(connection.getCatalog(), null, table)) {
+				while (resultSet.next()) {
+					primaryKey.put(resultSet.getShort("KEY_SEQ"), resultSet.getString("COLUMN_NAME"));
+				}
+			}
+			Map<String, List<String>> indexes = new LinkedHashMap<>();
+			Set<String> uniqueIndexes = new HashSet<>();
+			try (ResultSet resultSet = metaData.getIndexInfo(connection.getCatalog(), null, table, false, false)) {
+				while (resultSet.next()) {
+					String index = resultSet.getString("INDEX_NAME");
+					String column = resultSet.getString("COLUMN_NAME");
+					if (index == null || column == null) {
+						continue;
+					}
+					indexes.computeIfAbsent(index, name -> new ArrayList<>()).add(column);
+					if (!resultSet.getBoolean("NON_UNIQUE")) {
+						uniqueIndexes.add(index);
+					}
+				}
+			}
+			List<String> primaryKeyColumns = new ArrayList<>(primaryKey.values());
+			for (String column : primaryKeyColumns) {
+				jdbcOperations.execute("ALTER TABLE " + archive + " ALTER COLUMN " + column + " SET NOT NULL");
+			}
+			if (!primaryKeyColumns.isEmpty()) {
+				jdbcOperations.execute("ALTER TABLE " + archive + " ADD PRIMARY KEY (" + String.join(", ", primaryKeyColumns) + ')');
+			}
+			for (Map.Entry<String, List<String>> index : indexes.entrySet()) {
+				if (!index.getValue().equals(primaryKeyColumns)) {
+					jdbcOperations.execute("CREATE " + (uniqueIndexes.contains(index.getKey()) ? "UNIQUE " : "") + "INDEX " + archive + '_'
+							+ index.getKey() + " ON " + archive + " (" + String.join(", ", index.getValue()) + ')');
+				}
+			}
+			return null;
+		});
+	}
+
+	private boolean exists(String table) {
+		if (existingTables.contains(table)) {
+			return true;
+		}
+		try {
+			readColumns(table);
+		} catch (BadSqlGrammarException e) {
+			return false;
+		}
+		// archive tables are never dropped
+		existingTables.add(table);
+		return true;
+	}
+
+	private void copy(String table, String column, String ids, String condition, Map<String, ?> parameters, boolean restore)
+			throws OHServiceException {
+		String columnList = String.join(", ", getColumns(table));
+		String source = restore ? ArchiveTable.archiveOf(table) : table;
+		String target = restore ? table : ArchiveTable.archiveOf(table);
+		jdbcTemplate.update("INSERT INTO " + target + " (" + columnList + ") SELECT " + columnList + " FROM " + source + " t WHERE t." + column
+				+ " IN " + ids + (condition == null ? "" : " AND " + condition), parameters);
+	}
+
+	private int delete(String table, String column, String ids, Map<String, ?> parameters, boolean restore) {
+		String source = restore ? ArchiveTable.archiveOf(table) : table;
+		return jdbcTemplate.update("DELETE FROM " + source + " WHERE " + column + " IN " + ids, parameters);
+	}
+
+	private List<String> getColumns(String table) throws OHServiceException {
+		List<String> tableColumns = columns.get(table);
+		if (tableColumns == null) {
+			List<String> mismatches = getColumnMismatches(table);
+			if (!mismatches.isEmpty()) {
+				throw new OHServiceException(new OHExceptionMessage("The columns of " + table + " and " + ArchiveTable.archiveOf(table)
+						+ " differ: " + mismatches + '.'));
+			}
+			tableColumns = new ArrayList<>(readColumns(table));
+			columns.put(table, tableColumns);
+		}
+		return tableColumns;
+	}
+
+	private List<String> getColumnMismatches(String table) {
+		String archive = ArchiveTable.archiveOf(table);
+		Set<String> hotColumns = readColumns(table);
+		Set<String> archiveColumns = readColumns(archive);
+		List<String> mismatches = new ArrayList<>();
+		hotColumns.stream().filter(column -> !archiveColumns.contains(column)).forEach(column -> mismatches.add(table + '.' + column));
+		archiveColumns.stream().filter(column -> !hotColumns.contains(column)).forEach(column -> mismatches.add(archive + '.' + column));
+		return mismatches;
+	}
+
+	private Set<String> readColumns(String table) {
+		Set<String> tableColumns = new LinkedHashSet<>();
+		for (String column : jdbcTemplate.getJdbcOperations().queryForRowSet("SELECT * FROM " + table + " WHERE 1 = 0").getMetaData()
+				.getColumnNames()) {
+			tableColumns.add(column.toUpperCase(Locale.ROOT));
+		}
+		return tableColumns;
+	}
+
+	private long count(String query) {
+		Long count = jdbcTemplate.getJdbcOperations().queryForObject(query, Long.class);
+		return count == null ? 0 : count;
+	}
+
+	private LocalDateTime getArchivedUntil(ArchiveTable table) {
+		try {
+			return jdbcTemplate.getJdbcOperations().queryForObject("SELECT MAX(" + table.getDateColumn() + ") FROM " + table.getArchiveTable(),
+					(resultSet, rowNum) -> resultSet.getObject(1, LocalDateTime.class));
+		} catch (BadSqlGrammarException e) {
+			// the archive table is created by the first archiving
+			return null;
+		}
+	}
+
+	private static String getPatientDataAssignments(ArchiveTable table) {
+		switch (table) {
+			case OPD:
+				return ", OPD_SEX = :sex";
+			case LABORATORY:
+				return ", LAB_PAT_NAME = :patName, LAB_AGE = :age, LAB_SEX = :sex";
+			case BILL:
+				return ", BLL_PAT_NAME = :patName";
+			default:
+				return "";
+		}
+	}
+
+	private static List<String> getTables(ArchiveTable table) {
+		List<String> tables = new ArrayList<>();
+		tables.add(table.getTable());
+		table.getChildren().forEach(child -> tables.add(child.getTable()));
+		return tables;
+	}
+
+	private static final class Watermark {
+
+		private final LocalDateTime date;
+		private final long loadedAt = System.nanoTime();
+
+		private Watermark(LocalDateTime date) {
+			this.date = date;
+		}
+
+		private boolean isExpired() {
+			return System.nanoTime() - loadedAt > WATERMARK_TTL_NANOS;
+		}
+	}
+
+}
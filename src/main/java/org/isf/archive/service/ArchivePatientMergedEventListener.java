@@ -0,0 +1,56 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.archive.service;
+
+import java.util.List;
+
+import org.isf.opd.model.OpdStatistic;
+import org.isf.opd.service.OpdStatisticIoOperations;
+import org.isf.patient.model.PatientMergedEvent;
+import org.isf.utils.exception.OHServiceException;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+public class ArchivePatientMergedEventListener {
+
+	ArchiveIoOperations archiveIoOperations;
+
+	OpdStatisticIoOperations opdStatisticIoOperations;
+
+	public ArchivePatientMergedEventListener(ArchiveIoOperations archiveIoOperations, OpdStatisticIoOperations opdStatisticIoOperations) {
+		this.archiveIoOperations = archiveIoOperations;
+		this.opdStatisticIoOperations = opdStatisticIoOperations;
+	}
+
+	@EventListener
+	@Transactional
+	public void handle(PatientMergedEvent patientMergedEvent) throws OHServiceException {
+		// the archived visits stay counted in the statistics, under the sex of the merged patient
+		List<OpdStatistic> archivedKeys = opdStatisticIoOperations.getArchivedKeys(patientMergedEvent.getObsoletePatient().getCode());
+		int rows = archiveIoOperations.reassignPatient(patientMergedEvent.getObsoletePatient(), patientMergedEvent.getMergedPatient());
+		opdStatisticIoOperations.changeSex(archivedKeys, patientMergedEvent.getMergedPatient().getSex());
+		patientMergedEvent.addMergedRows("archive", rows);
+	}
+
+}
@@ -33,8 +33,6 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
@@ -42,6 +40,7 @@ import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -62,7 +61,7 @@ public class DicomData extends Auditable<String> implements Serializable {
 	private static final Logger LOGGER = LoggerFactory.getLogger(DicomData.class);
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name = "DMD_DATA_ID")
 	private long code;
 
@@ -110,8 +110,7 @@ public class DicomIoOperations {
 	 * @throws OHServiceException 
 	 */
 	public boolean exist(FileDicom dicom) throws OHServiceException {
-		List<FileDicom> dicomList = repository.findAllWhereIdAndFileAndUid(dicom.getPatId(), dicom.getDicomSeriesNumber(), dicom.getDicomInstanceUID());
-		return !dicomList.isEmpty();
+		return repository.existsWhereIdAndFileAndUid(dicom.getPatId(), dicom.getDicomSeriesNumber(), dicom.getDicomInstanceUID());
 	}
 
 	/**
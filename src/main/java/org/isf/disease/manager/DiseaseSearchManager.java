@@ -0,0 +1,80 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.disease.manager;
+
+import java.util.List;
+import java.util.Map;
+
+import org.isf.disease.model.Disease;
+import org.isf.disease.service.DiseaseIoOperations;
+import org.isf.distype.model.DiseaseType;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.search.CatalogueIndex;
+import org.isf.utils.search.CatalogueSearchManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Searches the {@link Disease}s in memory, for the pickers that suggest diagnoses while the user types. Diseases are ranked by their
+ * number of OPD visits and admissions.
+ */
+@Component
+public class DiseaseSearchManager extends CatalogueSearchManager<Disease> {
+
+	private final DiseaseIoOperations ioOperations;
+
+	public DiseaseSearchManager(DiseaseIoOperations diseaseIoOperations) {
+		super(Disease.class);
+		this.ioOperations = diseaseIoOperations;
+	}
+
+	/**
+	 * Returns the {@link Disease}s whose description or code contains the given text, best matches first.
+	 * Booleans {@code opd}, {@code ipdIn} and {@code ipdOut} in AND logic between each other only when {@code true}, ignored otherwise.
+	 *
+	 * @param description - the text to look for, an empty text matches all the diseases
+	 * @param typeCode - the {@link DiseaseType} code, {@code null} for all the types
+	 * @param opd - if {@code true} includes only the diseases related to outpatients
+	 * @param ipdIn - if {@code true} includes only the diseases related to inpatients' admissions
+	 * @param ipdOut - if {@code true} includes only the diseases related to inpatients' discharges
+	 * @param limit - the maximum number of diseases to return
+	 * @return the matching {@link Disease}s, they must not be modified
+	 * @throws OHServiceException When failed to load the diseases
+	 */
+	public List<Disease> searchDiseases(String description, String typeCode, boolean opd, boolean ipdIn, boolean ipdOut, int limit)
+					throws OHServiceException {
+		return search(description, limit, disease -> (typeCode == null || disease.getType() != null && typeCode.equals(disease.getType().getCode()))
+						&& (!opd || disease.getOpdInclude())
+						&& (!ipdIn || disease.getIpdInInclude())
+						&& (!ipdOut || disease.getIpdOutInclude()));
+	}
+
+	@Override
+	protected CatalogueIndex<Disease> buildIndex() throws OHServiceException {
+		Map<String, Long> usage = ioOperations.getDiseaseUsage();
+		CatalogueIndex.Builder<Disease> builder = CatalogueIndex.builder();
+		for (Disease disease : ioOperations.getDiseases(null, false, false, false)) {
+			builder.add(disease, usage.getOrDefault(disease.getCode(), 0L), disease.getDescription(), disease.getCode());
+		}
+		return builder.build();
+	}
+
+}
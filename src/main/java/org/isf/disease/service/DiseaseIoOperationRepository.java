@@ -95,4 +95,10 @@ public interface DiseaseIoOperationRepository extends JpaRepository<Disease, Str
 	@Query(value = "select d FROM Disease d where d.code=:code and d.ipdOutInclude=true")
 	Disease findIpdOutByCode(@Param("code") String code);
 
+	@Query(value = "select o.disease.code, count(o) from Opd o group by o.disease.code")
+	List<Object[]> countOpdGroupByDisease();
+
+	@Query(value = "select a.diseaseIn.code, count(a) from Admission a group by a.diseaseIn.code")
+	List<Object[]> countAdmissionGroupByDiseaseIn();
+
 }
\ No newline at end of file
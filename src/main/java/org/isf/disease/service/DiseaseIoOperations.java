@@ -21,11 +21,15 @@
  */
 package org.isf.disease.service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.isf.disease.model.Disease;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.search.CatalogueChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,8 +40,11 @@ public class DiseaseIoOperations {
 
 	private final DiseaseIoOperationRepository repository;
 
-	public DiseaseIoOperations(DiseaseIoOperationRepository repository) {
+	private final ApplicationEventPublisher applicationEventPublisher;
+
+	public DiseaseIoOperations(DiseaseIoOperationRepository repository, ApplicationEventPublisher applicationEventPublisher) {
 		this.repository = repository;
+		this.applicationEventPublisher = applicationEventPublisher;
 	}
 
 	/**
@@ -171,7 +178,9 @@ public class DiseaseIoOperations {
 	 * @throws OHServiceException if an error occurs storing the disease.
 	 */
 	public Disease newDisease(Disease disease) throws OHServiceException {
-		return repository.save(disease);
+		Disease savedDisease = repository.save(disease);
+		applicationEventPublisher.publishEvent(new CatalogueChangedEvent(Disease.class));
+		return savedDisease;
 	}
 
 	/**
@@ -181,7 +190,9 @@ public class DiseaseIoOperations {
 	 * @throws OHServiceException if an error occurs during the update.
 	 */
 	public Disease updateDisease(Disease disease) throws OHServiceException {
-		return repository.save(disease);
+		Disease savedDisease = repository.save(disease);
+		applicationEventPublisher.publishEvent(new CatalogueChangedEvent(Disease.class));
+		return savedDisease;
 	}
 
 	/**
@@ -194,6 +205,23 @@ public class DiseaseIoOperations {
 		disease.setIpdInInclude(false);
 		disease.setIpdOutInclude(false);
 		repository.save(disease);
+		applicationEventPublisher.publishEvent(new CatalogueChangedEvent(Disease.class));
+	}
+
+	/**
+	 * Counts the OPD visits and the admissions of every {@link Disease}, used to rank the search suggestions.
+	 * @return the number of OPD visits and admissions by disease code, diseases never diagnosed are missing.
+	 * @throws OHServiceException if an error occurs counting the diagnoses.
+	 */
+	public Map<String, Long> getDiseaseUsage() throws OHServiceException {
+		Map<String, Long> usage = new HashMap<>();
+		for (Object[] row : repository.countOpdGroupByDisease()) {
+			usage.merge((String) row[0], (Long) row[1], Long::sum);
+		}
+		for (Object[] row : repository.countAdmissionGroupByDiseaseIn()) {
+			usage.merge((String) row[0], (Long) row[1], Long::sum);
+		}
+		return usage;
 	}
 
 	/**
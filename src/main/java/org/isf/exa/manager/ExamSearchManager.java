@@ -0,0 +1,72 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.exa.manager;
+
+import java.util.List;
+import java.util.Map;
+
+import org.isf.exa.model.Exam;
+import org.isf.exa.service.ExamIoOperations;
+import org.isf.exatype.model.ExamType;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.search.CatalogueIndex;
+import org.isf.utils.search.CatalogueSearchManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Searches the {@link Exam}s in memory, for the pickers that suggest exams while the user types. Exams are ranked by their number of
+ * laboratory exams.
+ */
+@Component
+public class ExamSearchManager extends CatalogueSearchManager<Exam> {
+
+	private final ExamIoOperations ioOperations;
+
+	public ExamSearchManager(ExamIoOperations examIoOperations) {
+		super(Exam.class);
+		this.ioOperations = examIoOperations;
+	}
+
+	/**
+	 * Returns the {@link Exam}s whose description or code contains the given text, best matches first.
+	 *
+	 * @param description - the text to look for, an empty text matches all the exams
+	 * @param typeCode - the {@link ExamType} code, {@code null} for all the types
+	 * @param limit - the maximum number of exams to return
+	 * @return the matching {@link Exam}s, they must not be modified
+	 * @throws OHServiceException When failed to load the exams
+	 */
+	public List<Exam> searchExams(String description, String typeCode, int limit) throws OHServiceException {
+		return search(description, limit, exam -> typeCode == null || exam.getExamtype() != null && typeCode.equals(exam.getExamtype().getCode()));
+	}
+
+	@Override
+	protected CatalogueIndex<Exam> buildIndex() throws OHServiceException {
+		Map<String, Long> usage = ioOperations.getExamUsage();
+		CatalogueIndex.Builder<Exam> builder = CatalogueIndex.builder();
+		for (Exam exam : ioOperations.getExams()) {
+			builder.add(exam, usage.getOrDefault(exam.getCode(), 0L), exam.getDescription(), exam.getCode());
+		}
+		return builder.build();
+	}
+
+}
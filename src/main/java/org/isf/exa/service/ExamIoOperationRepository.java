@@ -25,6 +25,7 @@ import java.util.List;
 
 import org.isf.exa.model.Exam;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -35,4 +36,7 @@ public interface ExamIoOperationRepository extends JpaRepository<Exam, String> {
 	List<Exam> findByDescriptionContainingOrderByExamtypeDescriptionAscDescriptionAsc(String description);
 
 	List<Exam> findByExamtype_DescriptionContainingOrderByExamtypeDescriptionAscDescriptionAsc(String description);
+
+	@Query(value = "select l.exam.code, count(l) from Laboratory l group by l.exam.code")
+	List<Object[]> countLaboratoryGroupByExam();
 }
\ No newline at end of file
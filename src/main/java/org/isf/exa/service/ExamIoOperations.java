@@ -21,7 +21,9 @@
  */
 package org.isf.exa.service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.isf.exa.model.Exam;
 import org.isf.exa.model.ExamRow;
@@ -29,6 +31,8 @@ import org.isf.exatype.model.ExamType;
 import org.isf.exatype.service.ExamTypeIoOperationRepository;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.search.CatalogueChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -43,11 +47,14 @@ public class ExamIoOperations {
 
 	private ExamTypeIoOperationRepository typeRepository;
 
+	private ApplicationEventPublisher applicationEventPublisher;
+
 	public ExamIoOperations(ExamIoOperationRepository examIoOperationRepository, ExamRowIoOperationRepository examRowIoOperationRepository,
-	                        ExamTypeIoOperationRepository examTypeIoOperationRepository) {
+	                        ExamTypeIoOperationRepository examTypeIoOperationRepository, ApplicationEventPublisher applicationEventPublisher) {
 		this.repository = examIoOperationRepository;
 		this.rowRepository = examRowIoOperationRepository;
 		this.typeRepository = examTypeIoOperationRepository;
+		this.applicationEventPublisher = applicationEventPublisher;
 	}
 
 	/**
@@ -98,7 +105,9 @@ public class ExamIoOperations {
 	 * @throws OHServiceException 
 	 */
 	public Exam newExam(Exam exam) throws OHServiceException {
-		return repository.save(exam);
+		Exam savedExam = repository.save(exam);
+		applicationEventPublisher.publishEvent(new CatalogueChangedEvent(Exam.class));
+		return savedExam;
 	}
 
 	/**
@@ -119,7 +128,9 @@ public class ExamIoOperations {
 	 * @throws OHServiceException
 	 */
 	public Exam updateExam(Exam exam) throws OHServiceException {
-		return repository.save(exam);
+		Exam savedExam = repository.save(exam);
+		applicationEventPublisher.publishEvent(new CatalogueChangedEvent(Exam.class));
+		return savedExam;
 	}
 
 	/**
@@ -130,6 +141,21 @@ public class ExamIoOperations {
 	public void deleteExam(Exam exam) throws OHServiceException {
 		rowRepository.deleteByExam_Code(exam.getCode());
 		repository.delete(exam);
+		applicationEventPublisher.publishEvent(new CatalogueChangedEvent(Exam.class));
+	}
+
+	/**
+	 * Counts the laboratory exams of every {@link Exam}, used to rank the search suggestions.
+	 * 
+	 * @return the number of laboratory exams by exam code, exams never performed are missing.
+	 * @throws OHServiceException
+	 */
+	public Map<String, Long> getExamUsage() throws OHServiceException {
+		Map<String, Long> usage = new HashMap<>();
+		for (Object[] row : repository.countLaboratoryGroupByExam()) {
+			usage.put((String) row[0], (Long) row[1]);
+		}
+		return usage;
 	}
 
 	/**
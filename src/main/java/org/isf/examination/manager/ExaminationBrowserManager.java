@@ -172,6 +172,20 @@ public class ExaminationBrowserManager {
 		return ioOperations.getLastNByPatIDPageable(patID, number);
 	}
 
+	/**
+	 * Returns a page of the {@link PatientExamination}s of a patient, most recent first, using keyset pagination.
+	 *
+	 * @param patID the patient code.
+	 * @param cursor the next or previous cursor of the last response, {@code null} for the first page.
+	 * @param size the page size.
+	 * @param countTotal if {@code true} the total number of examinations is counted as well.
+	 * @return the page of {@link PatientExamination}s with the cursors of the adjacent pages.
+	 * @throws OHServiceException
+	 */
+	public PagedResponse<PatientExamination> getByPatIDPageable(int patID, String cursor, int size, boolean countTotal) throws OHServiceException {
+		return ioOperations.getByPatIDPageable(patID, cursor, size, countTotal);
+	}
+
 	public List<PatientExamination> getByPatID(int patID) throws OHServiceException {
 		return ioOperations.getByPatID(patID);
 	}
@@ -27,8 +27,6 @@ import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -38,6 +36,7 @@ import jakarta.validation.constraints.NotNull;
 
 import org.isf.patient.model.Patient;
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 import org.isf.utils.time.TimeTools;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -60,7 +59,7 @@ public class PatientExamination extends Auditable<String> implements Comparable<
 	public static final int PEX_NOTE_LENGTH = 2000;
 	
 	@Id 
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name="PEX_ID")
 	private int pex_ID;
 
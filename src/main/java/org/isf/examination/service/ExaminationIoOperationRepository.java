@@ -21,12 +21,15 @@
  */
 package org.isf.examination.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.isf.examination.model.PatientExamination;
+import org.isf.patient.model.Patient;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -40,6 +43,24 @@ public interface ExaminationIoOperationRepository extends JpaRepository<PatientE
 	@Query(value = "select p from PatientExamination p where p.patient.code = :patientCode order by p.pex_date desc")
 	List<PatientExamination> findByPatient_CodeOrderByPexDateDesc(@Param("patientCode") int patientCode, Pageable pageable);
 	
+	@Query(value = "select p from PatientExamination p where p.patient.code = :patientCode " +
+					"and (:cursorDate is null or p.pex_date < :cursorDate or (p.pex_date = :cursorDate and p.pex_ID < :cursorId)) " +
+					"order by p.pex_date desc, p.pex_ID desc")
+	List<PatientExamination> findByPatient_CodeBeforeCursor(@Param("patientCode") int patientCode, @Param("cursorDate") LocalDateTime cursorDate,
+					@Param("cursorId") Integer cursorId, Pageable pageable);
+
+	@Query(value = "select p from PatientExamination p where p.patient.code = :patientCode " +
+					"and (p.pex_date > :cursorDate or (p.pex_date = :cursorDate and p.pex_ID > :cursorId)) " +
+					"order by p.pex_date asc, p.pex_ID asc")
+	List<PatientExamination> findByPatient_CodeAfterCursor(@Param("patientCode") int patientCode, @Param("cursorDate") LocalDateTime cursorDate,
+					@Param("cursorId") Integer cursorId, Pageable pageable);
+
+	long countByPatient_Code(int patientCode);
+
 	@Query(value = "select p from PatientExamination p where p.patient.code = :patientCode order by p.pex_date desc")
 	Page<PatientExamination> findByPatient_CodeOrderByPexDateDesc_Paginated(@Param("patientCode") int patientCode, Pageable pageable);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query(value = "update PatientExamination p set p.patient = :mergedPatient where p.patient = :obsoletePatient")
+	int updatePatient(@Param("obsoletePatient") Patient obsoletePatient, @Param("mergedPatient") Patient mergedPatient);
 }
\ No newline at end of file
@@ -24,13 +24,16 @@ package org.isf.examination.service;
 import java.util.List;
 
 import org.isf.examination.model.PatientExamination;
+import org.isf.patient.model.Patient;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.pagination.KeysetCursor;
 import org.isf.utils.pagination.PageInfo;
 import org.isf.utils.pagination.PagedResponse;
 import org.isf.utils.time.TimeTools;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -85,7 +88,7 @@ public class ExaminationOperations {
 	}
 
 	public PatientExamination getLastByPatID(int patID) throws OHServiceException	{
-		List<PatientExamination> patExamination = getByPatID(patID);
+		List<PatientExamination> patExamination = repository.findByPatient_CodeOrderByPexDateDesc(patID, PageRequest.of(0, 1));
 		return !patExamination.isEmpty() ? patExamination.get(0) : null;
 	}
 
@@ -101,6 +104,27 @@ public class ExaminationOperations {
 		return setPaginationData(pagedResult);
 	}
 
+	/**
+	 * Returns a page of the {@link PatientExamination}s of a patient, most recent first, using keyset pagination.
+	 *
+	 * @param patID the patient code.
+	 * @param cursor the cursor returned with the previous response or {@code null} for the first page.
+	 * @param size the page size.
+	 * @param countTotal if {@code true} the examinations of the patient are counted, otherwise the total is {@code -1}.
+	 * @return the page of {@link PatientExamination}s with the cursors of the adjacent pages.
+	 * @throws OHServiceException
+	 */
+	public PagedResponse<PatientExamination> getByPatIDPageable(int patID, String cursor, int size, boolean countTotal) throws OHServiceException {
+		KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+		Pageable limit = PageRequest.of(0, size + 1);
+		List<PatientExamination> examinations = keysetCursor == null || keysetCursor.isNext()
+						? repository.findByPatient_CodeBeforeCursor(patID, keysetCursor == null ? null : keysetCursor.getDate(),
+										keysetCursor == null ? null : keysetCursor.getCode(), limit)
+						: repository.findByPatient_CodeAfterCursor(patID, keysetCursor.getDate(), keysetCursor.getCode(), limit);
+		long total = countTotal ? repository.countByPatient_Code(patID) : -1;
+		return KeysetCursor.toPagedResponse(examinations, size, keysetCursor, PatientExamination::getPex_date, PatientExamination::getPex_ID, total);
+	}
+
 	public List<PatientExamination> getByPatID(int patID) throws OHServiceException	{
 		return repository.findByPatient_CodeOrderByPexDateDesc(patID);
 	}
@@ -115,4 +139,15 @@ public class ExaminationOperations {
 		data.setPageInfo(PageInfo.from(pages));
 		return data;
 	}
+
+	/**
+	 * Moves all the {@link PatientExamination}s of the obsolete {@link Patient} to the merged one, with a single bulk update.
+	 *
+	 * @param obsoletePatient - the {@link Patient} being merged
+	 * @param mergedPatient - the {@link Patient} that keeps the history
+	 * @return the number of updated rows
+	 */
+	public int reassignPatient(Patient obsoletePatient, Patient mergedPatient) {
+		return repository.updatePatient(obsoletePatient, mergedPatient);
+	}
 }
@@ -21,11 +21,7 @@
  */
 package org.isf.examination.service;
 
-import java.util.List;
-
-import org.isf.examination.model.PatientExamination;
 import org.isf.patient.model.PatientMergedEvent;
-import org.isf.utils.exception.OHServiceException;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -41,11 +37,9 @@ public class ExaminationPatientMergedEventListener {
 
 	@EventListener
 	@Transactional
-	public void handle(PatientMergedEvent patientMergedEvent) throws OHServiceException {
-		List<PatientExamination> patientExaminations = examinationOperations.getByPatID(patientMergedEvent.getObsoletePatient().getCode());
-		for (PatientExamination examination : patientExaminations) {
-			examination.setPatient(patientMergedEvent.getMergedPatient());
-		}
+	public void handle(PatientMergedEvent patientMergedEvent) {
+		int rows = examinationOperations.reassignPatient(patientMergedEvent.getObsoletePatient(), patientMergedEvent.getMergedPatient());
+		patientMergedEvent.addMergedRows("examinations", rows);
 	}
 
 }
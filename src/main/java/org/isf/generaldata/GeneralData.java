@@ -83,6 +83,15 @@ public final class GeneralData extends ConfigurationProperties {
 	public static String PATIENTPHOTOSTORAGE;
 	public static Integer SESSIONTIMEOUT;
 	public static String PARAMSURL;
+	public static Integer SLOWCALLTHRESHOLD;
+	public static Integer METRICSLOGINTERVAL;
+	public static Integer ARCHIVEHORIZON;
+	public static Integer ARCHIVEBATCHSIZE;
+	public static Integer ARCHIVEPAUSE;
+	public static Integer SMSRETENTION;
+	public static Integer SESSIONAUDITRETENTION;
+	public static Integer PURGEBATCHSIZE;
+	public static Integer PURGEPAUSE;
 
 	public static boolean STRONGPASSWORD;
 	public static int STRONGLENGTH;
@@ -148,6 +157,15 @@ public final class GeneralData extends ConfigurationProperties {
 	public static final int IMAGE_THUMBNAIL_MAX_WIDTH = 140;
 	public static final int MAX_PROFILE_IMAGE_FILE_SIZE_BYTES = 32768;
 	public static final String DEFAULT_PARAMSURL = "";
+	private static final int DEFAULT_SLOWCALLTHRESHOLD = 1000; // milliseconds
+	private static final int DEFAULT_METRICSLOGINTERVAL = 60; // minutes
+	private static final int DEFAULT_ARCHIVEHORIZON = 0; // days
+	private static final int DEFAULT_ARCHIVEBATCHSIZE = 500;
+	private static final int DEFAULT_ARCHIVEPAUSE = 200; // milliseconds
+	private static final int DEFAULT_SMSRETENTION = 0; // days
+	private static final int DEFAULT_SESSIONAUDITRETENTION = 0; // days
+	private static final int DEFAULT_PURGEBATCHSIZE = 1000;
+	private static final int DEFAULT_PURGEPAUSE = 100; // milliseconds
 
 	private static GeneralData mySingleData;
 
@@ -233,6 +251,18 @@ public final class GeneralData extends ConfigurationProperties {
 		PATIENTPHOTOSTORAGE = myGetProperty("PATIENTPHOTOSTORAGE", DEFAULT_PATIENTPHOTOSTORAGE);
 		SESSIONTIMEOUT = myGetProperty("SESSIONTIMEOUT", DEFAULT_SESSIONTIMEOUT);
 		PARAMSURL = myGetProperty("PARAMSURL", DEFAULT_PARAMSURL);
+		// zero disables the slow call log and the periodic metrics snapshot
+		SLOWCALLTHRESHOLD = Math.max(myGetProperty("SLOWCALLTHRESHOLD", DEFAULT_SLOWCALLTHRESHOLD), 0);
+		METRICSLOGINTERVAL = Math.max(myGetProperty("METRICSLOGINTERVAL", DEFAULT_METRICSLOGINTERVAL), 0);
+		// zero disables the nightly archiving of the closed records
+		ARCHIVEHORIZON = Math.max(myGetProperty("ARCHIVEHORIZON", DEFAULT_ARCHIVEHORIZON), 0);
+		ARCHIVEBATCHSIZE = Math.max(myGetProperty("ARCHIVEBATCHSIZE", DEFAULT_ARCHIVEBATCHSIZE), 1);
+		ARCHIVEPAUSE = Math.max(myGetProperty("ARCHIVEPAUSE", DEFAULT_ARCHIVEPAUSE), 0);
+		// zero keeps the records forever
+		SMSRETENTION = Math.max(myGetProperty("SMSRETENTION", DEFAULT_SMSRETENTION), 0);
+		SESSIONAUDITRETENTION = Math.max(myGetProperty("SESSIONAUDITRETENTION", DEFAULT_SESSIONAUDITRETENTION), 0);
+		PURGEBATCHSIZE = Math.max(myGetProperty("PURGEBATCHSIZE", DEFAULT_PURGEBATCHSIZE), 1);
+		PURGEPAUSE = Math.max(myGetProperty("PURGEPAUSE", DEFAULT_PURGEPAUSE), 0);
 
 		ParamsData.getInstance();
 	}
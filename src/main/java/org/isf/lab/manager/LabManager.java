@@ -206,6 +206,24 @@ public class LabManager {
 		return ioOperations.getLaboratoryForPrint(exam, dateFrom, dateTo, patient);
 	}
 
+	/**
+	 * Return a page of exams suitable for printing ({@link LaboratoryForPrint}s)
+	 * between specified dates and matching passed exam name and patient.
+	 *
+	 * @param exam - the exam name as {@code String}, {@code null} for any exam
+	 * @param dateFrom - the lower date for the range
+	 * @param dateTo - the highest date for the range
+	 * @param patient - the {@link Patient}, {@code null} for any patient
+	 * @param page - the page number
+	 * @param size - the page size
+	 * @return the page of {@link LaboratoryForPrint}s. It could be {@code empty}.
+	 * @throws OHServiceException
+	 */
+	public PagedResponse<LaboratoryForPrint> getLaboratoryForPrintPageable(String exam, LocalDateTime dateFrom, LocalDateTime dateTo, Patient patient,
+					int page, int size) throws OHServiceException {
+		return ioOperations.getLaboratoryForPrintPageable(exam, dateFrom, dateTo, patient, page, size);
+	}
+
 	/**
 	 * Inserts one Laboratory exam {@link Laboratory} (All Procedures)
 	 *
@@ -503,4 +521,22 @@ public class LabManager {
 		return ioOperations.getLaboratoryPageable(exam, dateFrom, dateTo, patient, page, size);
 	}
 
+	/**
+	 * Return a page of exams ({@link Laboratory}s) ordered by date descending, using keyset pagination: constant time whatever the depth of the page.
+	 *
+	 * @param exam - the exam description or {@code null}
+	 * @param dateFrom
+	 * @param dateTo
+	 * @param patient - the {@link Patient} or {@code null}
+	 * @param cursor - the next or previous cursor of the last response, {@code null} for the first page
+	 * @param size
+	 * @param countTotal - if {@code true} the total number of exams is counted as well
+	 * @return the page of {@link Laboratory}s with the cursors of the adjacent pages
+	 * @throws OHServiceException
+	 */
+	public PagedResponse<Laboratory> getLaboratoryPageable(String exam, LocalDateTime dateFrom, LocalDateTime dateTo, Patient patient, String cursor,
+			int size, boolean countTotal) throws OHServiceException {
+		return ioOperations.getLaboratoryPageable(exam, dateFrom, dateTo, patient, cursor, size, countTotal);
+	}
+
 }
@@ -56,6 +56,24 @@ public class LaboratoryForPrint {
 		result = aResult;
 	}
 
+	/**
+	 * Used by the projection queries, which select the exam description instead of the whole {@link Exam}.
+	 */
+	public LaboratoryForPrint(Integer aCode, String examDescription, LocalDateTime aDate, String aResult, String patientName) {
+		code = aCode;
+		exam = examDescription;
+		date = aDate;
+		result = aResult;
+		patName = patientName;
+	}
+
+	/**
+	 * Used by the projection queries, which select the exam description instead of the whole {@link Exam}.
+	 */
+	public LaboratoryForPrint(Integer aCode, String examDescription, LocalDateTime aDate, String aResult) {
+		this(aCode, examDescription, aDate, aResult, null);
+	}
+
 	public LocalDateTime getDate() {
 		return this.date;
 	}
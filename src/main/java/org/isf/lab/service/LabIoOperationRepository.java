@@ -23,13 +23,20 @@ package org.isf.lab.service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
 import org.isf.lab.model.Laboratory;
+import org.isf.lab.model.LaboratoryForPrint;
 import org.isf.patient.model.Patient;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface LabIoOperationRepository extends JpaRepository<Laboratory, Integer> {
@@ -40,11 +47,6 @@ public interface LabIoOperationRepository extends JpaRepository<Laboratory, Inte
 
 	List<Laboratory> findByPatient_CodeOrderByLabDate(Integer patient);
 
-	List<Laboratory> findByLabDateBetweenOrderByExam_Examtype_DescriptionDesc(LocalDateTime dateFrom, LocalDateTime dateTo);
-
-	List<Laboratory> findByLabDateBetweenAndExam_DescriptionContainingOrderByExam_Examtype_DescriptionDesc(LocalDateTime dateFrom, LocalDateTime dateTo,
-					String exam);
-
 	List<Laboratory> findByLabDateBetweenAndPatientCode(LocalDateTime dateFrom, LocalDateTime dateTo, Integer patientCode);
 
 	List<Laboratory> findByLabDateBetweenAndExamDescriptionAndPatientCode(LocalDateTime dateFrom, LocalDateTime dateTo, String exam, Integer patient);
@@ -65,7 +67,69 @@ public interface LabIoOperationRepository extends JpaRepository<Laboratory, Inte
 	Page<Laboratory> findByLabDateBetweenAndExamDescriptionAndPatientCodePage(@Param("dateFrom") LocalDateTime dateFrom, @Param("dateTo") LocalDateTime dateTo,
 					@Param("exam") String exam, @Param("patient") Patient patient, Pageable pageable);
 
+	@Query(value = "select lab from Laboratory lab where lab.labDate >= :dateFrom and lab.labDate < :dateTo " +
+					"and (:exam is null or lab.exam.description = :exam) and (:patientCode is null or lab.patient.code = :patientCode) " +
+					"and (:cursorDate is null or lab.labDate < :cursorDate or (lab.labDate = :cursorDate and lab.code < :cursorCode)) " +
+					"order by lab.labDate desc, lab.code desc")
+	List<Laboratory> findPageBeforeCursor(@Param("dateFrom") LocalDateTime dateFrom, @Param("dateTo") LocalDateTime dateTo,
+					@Param("exam") String exam, @Param("patientCode") Integer patientCode, @Param("cursorDate") LocalDateTime cursorDate,
+					@Param("cursorCode") Integer cursorCode, Pageable pageable);
+
+	@Query(value = "select lab from Laboratory lab where lab.labDate >= :dateFrom and lab.labDate < :dateTo " +
+					"and (:exam is null or lab.exam.description = :exam) and (:patientCode is null or lab.patient.code = :patientCode) " +
+					"and (lab.labDate > :cursorDate or (lab.labDate = :cursorDate and lab.code > :cursorCode)) " +
+					"order by lab.labDate asc, lab.code asc")
+	List<Laboratory> findPageAfterCursor(@Param("dateFrom") LocalDateTime dateFrom, @Param("dateTo") LocalDateTime dateTo,
+					@Param("exam") String exam, @Param("patientCode") Integer patientCode, @Param("cursorDate") LocalDateTime cursorDate,
+					@Param("cursorCode") Integer cursorCode, Pageable pageable);
+
+	@Query(value = "select count(lab) from Laboratory lab where lab.labDate >= :dateFrom and lab.labDate < :dateTo " +
+					"and (:exam is null or lab.exam.description = :exam) and (:patientCode is null or lab.patient.code = :patientCode)")
+	long countWhereParams(@Param("dateFrom") LocalDateTime dateFrom, @Param("dateTo") LocalDateTime dateTo, @Param("exam") String exam,
+					@Param("patientCode") Integer patientCode);
+
+	@Query(value = "select new org.isf.lab.model.LaboratoryForPrint(lab.code, lab.exam.description, lab.labDate, lab.result, lab.patName) " +
+					"from Laboratory lab where lab.labDate between :dateFrom and :dateTo " +
+					"and (:exam is null or lab.exam.description = :exam) and (:patientCode is null or lab.patient.code = :patientCode) " +
+					"order by lab.labDate desc")
+	List<LaboratoryForPrint> findForPrint(@Param("dateFrom") LocalDateTime dateFrom, @Param("dateTo") LocalDateTime dateTo,
+					@Param("exam") String exam, @Param("patientCode") Integer patientCode);
+
+	@Query(value = "select new org.isf.lab.model.LaboratoryForPrint(lab.code, lab.exam.description, lab.labDate, lab.result, lab.patName) " +
+					"from Laboratory lab where lab.labDate between :dateFrom and :dateTo " +
+					"and (:exam is null or lab.exam.description = :exam) and (:patientCode is null or lab.patient.code = :patientCode) " +
+					"order by lab.labDate desc",
+					countQuery = "select count(lab) from Laboratory lab where lab.labDate between :dateFrom and :dateTo " +
+									"and (:exam is null or lab.exam.description = :exam) and (:patientCode is null or lab.patient.code = :patientCode)")
+	Page<LaboratoryForPrint> findForPrintPage(@Param("dateFrom") LocalDateTime dateFrom, @Param("dateTo") LocalDateTime dateTo,
+					@Param("exam") String exam, @Param("patientCode") Integer patientCode, Pageable pageable);
+
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+	@Query(value = "select new org.isf.lab.model.LaboratoryForPrint(lab.code, lab.exam.description, lab.labDate, lab.result, lab.patName) " +
+					"from Laboratory lab where lab.labDate between :dateFrom and :dateTo " +
+					"and (:exam is null or lab.exam.description = :exam) and (:patientCode is null or lab.patient.code = :patientCode) " +
+					"order by lab.labDate desc")
+	Stream<LaboratoryForPrint> streamForPrint(@Param("dateFrom") LocalDateTime dateFrom, @Param("dateTo") LocalDateTime dateTo,
+					@Param("exam") String exam, @Param("patientCode") Integer patientCode);
+
+	@Query(value = "select new org.isf.lab.model.LaboratoryForPrint(lab.code, lab.exam.description, lab.labDate, lab.result) " +
+					"from Laboratory lab where lab.labDate between :dateFrom and :dateTo " +
+					"and (:exam is null or lab.exam.description like concat('%', :exam, '%')) " +
+					"order by lab.exam.examtype.description desc")
+	List<LaboratoryForPrint> findForPrintOrderByExamType(@Param("dateFrom") LocalDateTime dateFrom, @Param("dateTo") LocalDateTime dateTo,
+					@Param("exam") String exam);
+
+	@Query(value = "select lab from Laboratory lab where lab.labDate between :dateFrom and :dateTo " +
+					"and (:exam is null or lab.exam.description like concat('%', :exam, '%')) " +
+					"order by lab.exam.examtype.description desc")
+	List<Laboratory> findOrderByExamType(@Param("dateFrom") LocalDateTime dateFrom, @Param("dateTo") LocalDateTime dateTo, @Param("exam") String exam);
+
 	@Query("select count(l) from Laboratory l where active=1")
 	long countAllActiveLabs();
 
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query(value = "update Laboratory lab set lab.patient = :mergedPatient, lab.patName = :patName, lab.age = :age, lab.sex = :sex where lab.patient = :obsoletePatient")
+	int updatePatient(@Param("obsoletePatient") Patient obsoletePatient, @Param("mergedPatient") Patient mergedPatient,
+					@Param("patName") String patName, @Param("age") Integer age, @Param("sex") String sex);
+
 }
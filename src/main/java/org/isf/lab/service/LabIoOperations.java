@@ -24,9 +24,17 @@ package org.isf.lab.service;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+import org.isf.archive.model.ArchiveTable;
+import org.isf.archive.service.ArchiveIoOperations;
 import org.isf.lab.model.Laboratory;
 import org.isf.lab.model.LaboratoryForPrint;
 import org.isf.lab.model.LaboratoryRow;
@@ -34,13 +42,16 @@ import org.isf.patient.model.Patient;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.exception.model.OHExceptionMessage;
+import org.isf.utils.pagination.KeysetCursor;
 import org.isf.utils.pagination.PageInfo;
 import org.isf.utils.pagination.PagedResponse;
 import org.isf.utils.time.TimeTools;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
@@ -48,13 +59,24 @@ import org.springframework.transaction.annotation.Transactional;
 @TranslateOHServiceException
 public class LabIoOperations {
 
+	private static final Comparator<Laboratory> NEWEST_FIRST = Comparator.comparing(Laboratory::getLabDate).thenComparing(Laboratory::getCode)
+			.reversed();
+
+	private static final Comparator<LaboratoryForPrint> NEWEST_FIRST_FOR_PRINT = Comparator.comparing(LaboratoryForPrint::getDate).reversed();
+
+	private static final String NEWEST_FIRST_SQL = "LAB_DATE DESC, LAB_ID DESC";
+
 	private LabIoOperationRepository repository;
 
 	private LabRowIoOperationRepository rowRepository;
 
-	public LabIoOperations(LabIoOperationRepository labIoOperationRepository, LabRowIoOperationRepository labRowIoOperationRepository) {
+	private ArchiveIoOperations archiveIoOperations;
+
+	public LabIoOperations(LabIoOperationRepository labIoOperationRepository, LabRowIoOperationRepository labRowIoOperationRepository,
+			ArchiveIoOperations archiveIoOperations) {
 		this.repository = labIoOperationRepository;
 		this.rowRepository = labRowIoOperationRepository;
+		this.archiveIoOperations = archiveIoOperations;
 	}
 
 	/**
@@ -78,14 +100,18 @@ public class LabIoOperations {
 	 * @throws OHServiceException
 	 */
 	public PagedResponse<Laboratory> getLaboratoryPageable(boolean oneWeek, int pageNo, int pageSize) throws OHServiceException {
-		Pageable pageable = PageRequest.of(pageNo, pageSize);
 		if (oneWeek) {
 			LocalDateTime time2 = TimeTools.getDateToday24();
 			LocalDateTime time1 = time2.minusWeeks(1);
-			Page<Laboratory> pagedResult = repository.findByLabDateBetweenOrderByLabDateDescPage(time1, time2, pageable);
+			Map<String, Object> parameters = new HashMap<>();
+			String condition = getArchivedCondition(time1, time2, false, null, null, parameters);
+			Page<Laboratory> pagedResult = getPage(pageable -> repository.findByLabDateBetweenOrderByLabDateDescPage(time1, time2, pageable),
+					Function.identity(), NEWEST_FIRST, time1, condition, NEWEST_FIRST_SQL, parameters, pageNo, pageSize);
 			return setPaginationData(pagedResult);
 		}
-		Page<Laboratory> pagedResult = repository.findAll(pageable);
+		Page<Laboratory> pagedResult = getPage(pageable -> repository.findAll(PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+				Sort.by("code"))), Function.identity(), Comparator.comparing(Laboratory::getCode), null, "1 = 1", "LAB_ID", Collections.emptyMap(),
+				pageNo, pageSize);
 		return setPaginationData(pagedResult);
 	}
 
@@ -102,7 +128,7 @@ public class LabIoOperations {
 	}
 
 	/**
-	 * Return a list of exams ({@link Laboratory}s) between specified dates and matching passed exam name.
+	 * Return a list of exams ({@link Laboratory}s) between specified dates and matching passed exam name, archived ones included.
 	 *
 	 * @param exam - the exam name as {@code String}
 	 * @param dateFrom - the lower date for the range
@@ -111,17 +137,20 @@ public class LabIoOperations {
 	 * @throws OHServiceException
 	 */
 	public List<Laboratory> getLaboratory(String exam, LocalDateTime dateFrom, LocalDateTime dateTo) throws OHServiceException {
-		return exam != null ? repository.findByLabDateBetweenAndExamDescriptionOrderByLabDateDesc(TimeTools.truncateToSeconds(dateFrom),
-						TimeTools.truncateToSeconds(dateTo),
-						exam)
-						: repository.findByLabDateBetweenOrderByLabDateDesc(TimeTools.truncateToSeconds(dateFrom.with(LocalTime.MIN)),
-										TimeTools.truncateToSeconds(dateTo.with(LocalTime.MAX)));
+		LocalDateTime from = TimeTools.truncateToSeconds(exam != null ? dateFrom : dateFrom.with(LocalTime.MIN));
+		LocalDateTime to = TimeTools.truncateToSeconds(exam != null ? dateTo : dateTo.with(LocalTime.MAX));
+		Map<String, Object> parameters = new HashMap<>();
+		String condition = getArchivedCondition(from, to, true, exam, null, parameters);
+		List<Laboratory> archived = archiveIoOperations.getArchived(ArchiveTable.LABORATORY, Laboratory.class, null, from, condition, parameters);
+		List<Laboratory> laboratories = exam != null ? repository.findByLabDateBetweenAndExamDescriptionOrderByLabDateDesc(from, to, exam)
+						: repository.findByLabDateBetweenOrderByLabDateDesc(from, to);
+		return ArchiveIoOperations.union(laboratories, archived, NEWEST_FIRST);
 	}
 
 	/**
-	 * Return a list of exams ({@link Laboratory}s) between specified dates and matching passed exam name.
+	 * Return a list of exams ({@link Laboratory}s) between specified dates and matching passed exam name and patient, archived ones included.
 	 *
-	 * @param exam - the exam name as {@code String}
+	 * @param exam - the exam name as {@code String}, empty for any exam
 	 * @param dateFrom - the lower date for the range
 	 * @param dateTo - the highest date for the range
 	 * @param patient - the object of patient 
@@ -145,7 +174,12 @@ public class LabIoOperations {
 		if (patient == null && exam.isEmpty()) {
 			laboritories = repository.findByLabDateBetweenOrderByLabDateDesc(truncatedDateFrom, truncatedDateTo);
 		}
-		return laboritories;
+		Map<String, Object> parameters = new HashMap<>();
+		String condition = getArchivedCondition(truncatedDateFrom, truncatedDateTo, true, exam.isEmpty() ? null : exam,
+				patient != null ? patient.getCode() : null, parameters);
+		List<Laboratory> archived = archiveIoOperations.getArchived(ArchiveTable.LABORATORY, Laboratory.class, null, truncatedDateFrom, condition,
+				parameters);
+		return ArchiveIoOperations.union(laboritories, archived, NEWEST_FIRST);
 	}
 
 	/**
@@ -173,7 +207,7 @@ public class LabIoOperations {
 
 	/**
 	 * Return a list of exams suitable for printing ({@link LaboratoryForPrint}s) 
-	 * between specified dates and matching passed exam name.
+	 * between specified dates and matching passed exam name, archived ones included.
 	 *
 	 * @param exam - the exam name as {@code String}
 	 * @param dateFrom - the lower date for the range
@@ -183,34 +217,74 @@ public class LabIoOperations {
 	 */
 	public List<LaboratoryForPrint> getLaboratoryForPrint(String exam, LocalDateTime dateFrom, LocalDateTime dateTo, Patient patient)
 					throws OHServiceException {
-		List<LaboratoryForPrint> pLaboratory = new ArrayList<>();
-		List<Laboratory> laboritories = new ArrayList<>();
 		LocalDateTime truncatedDateFrom = TimeTools.truncateToSeconds(dateFrom.with(LocalTime.MIN));
 		LocalDateTime truncatedDateTo = TimeTools.truncateToSeconds(dateTo.with(LocalTime.MAX));
+		Integer patientCode = patient != null ? patient.getCode() : null;
+		Map<String, Object> parameters = new HashMap<>();
+		String condition = getArchivedCondition(truncatedDateFrom, truncatedDateTo, true, exam, patientCode, parameters);
+		List<LaboratoryForPrint> archived = archiveIoOperations.getArchived(ArchiveTable.LABORATORY, Laboratory.class, null, truncatedDateFrom,
+				condition, parameters).stream().map(LabIoOperations::toPrint).toList();
+		return ArchiveIoOperations.union(repository.findForPrint(truncatedDateFrom, truncatedDateTo, exam, patientCode), archived,
+				NEWEST_FIRST_FOR_PRINT);
+	}
 
-		if (exam != null && patient != null) {
-			laboritories = repository.findByLabDateBetweenAndExamDescriptionAndPatientCode(truncatedDateFrom, truncatedDateTo, exam, patient.getCode());
-		}
-		if (exam != null && patient == null) {
-			laboritories = repository.findByLabDateBetweenAndExamDescriptionOrderByLabDateDesc(truncatedDateFrom, truncatedDateTo, exam);
-		}
-		if (patient != null && exam == null) {
-			laboritories = repository.findByLabDateBetweenAndPatientCode(truncatedDateFrom, truncatedDateTo, patient.getCode());
-		}
-		if (patient == null && exam == null) {
-			laboritories = repository.findByLabDateBetweenOrderByLabDateDesc(truncatedDateFrom, truncatedDateTo);
-		}
-		for (Laboratory laboratory : laboritories) {
-
-			pLaboratory.add(new LaboratoryForPrint(
-							laboratory.getCode(),
-							laboratory.getExam(),
-							laboratory.getLabDate(),
-							laboratory.getResult(),
-							laboratory.getPatName(),
-							laboratory.getPatient().getCode()));
+	/**
+	 * Return a page of exams suitable for printing ({@link LaboratoryForPrint}s)
+	 * between specified dates and matching passed exam name and patient, archived ones included.
+	 *
+	 * @param exam - the exam name as {@code String}, {@code null} for any exam
+	 * @param dateFrom - the lower date for the range
+	 * @param dateTo - the highest date for the range
+	 * @param patient - the {@link Patient}, {@code null} for any patient
+	 * @param page - the page number
+	 * @param size - the page size
+	 * @return the page of {@link LaboratoryForPrint}s
+	 * @throws OHServiceException
+	 */
+	public PagedResponse<LaboratoryForPrint> getLaboratoryForPrintPageable(String exam, LocalDateTime dateFrom, LocalDateTime dateTo, Patient patient,
+					int page, int size) throws OHServiceException {
+		LocalDateTime truncatedDateFrom = TimeTools.truncateToSeconds(dateFrom.with(LocalTime.MIN));
+		LocalDateTime truncatedDateTo = TimeTools.truncateToSeconds(dateTo.with(LocalTime.MAX));
+		Integer patientCode = patient != null ? patient.getCode() : null;
+		Map<String, Object> parameters = new HashMap<>();
+		String condition = getArchivedCondition(truncatedDateFrom, truncatedDateTo, true, exam, patientCode, parameters);
+		Page<LaboratoryForPrint> laboratories = getPage(pageable -> repository.findForPrintPage(truncatedDateFrom, truncatedDateTo, exam, patientCode,
+				pageable), LabIoOperations::toPrint, NEWEST_FIRST_FOR_PRINT, truncatedDateFrom, condition, NEWEST_FIRST_SQL, parameters, page, size);
+		PagedResponse<LaboratoryForPrint> data = new PagedResponse<>();
+		data.setData(laboratories.getContent());
+		data.setPageInfo(PageInfo.from(laboratories));
+		return data;
+	}
+
+	/**
+	 * Stream the exams suitable for printing ({@link LaboratoryForPrint}s)
+	 * between specified dates and matching passed exam name and patient, archived ones included, for ranges too large to be held in memory.
+	 * <p>
+	 * The rows are fetched from the database while the stream is consumed: the method must be called inside an
+	 * existing transaction and the stream must be closed by the caller, e.g. with a try-with-resources.
+	 *
+	 * @param exam - the exam name as {@code String}, {@code null} for any exam
+	 * @param dateFrom - the lower date for the range
+	 * @param dateTo - the highest date for the range
+	 * @param patient - the {@link Patient}, {@code null} for any patient
+	 * @return the {@link Stream} of {@link LaboratoryForPrint}s
+	 * @throws OHServiceException
+	 */
+	@Transactional(propagation = Propagation.MANDATORY, readOnly = true)
+	public Stream<LaboratoryForPrint> getLaboratoryForPrintStream(String exam, LocalDateTime dateFrom, LocalDateTime dateTo, Patient patient)
+					throws OHServiceException {
+		LocalDateTime truncatedDateFrom = TimeTools.truncateToSeconds(dateFrom.with(LocalTime.MIN));
+		LocalDateTime truncatedDateTo = TimeTools.truncateToSeconds(dateTo.with(LocalTime.MAX));
+		Integer patientCode = patient != null ? patient.getCode() : null;
+		Stream<LaboratoryForPrint> laboratories = repository.streamForPrint(truncatedDateFrom, truncatedDateTo, exam, patientCode);
+		if (!archiveIoOperations.isArchived(ArchiveTable.LABORATORY, truncatedDateFrom)) {
+			return laboratories;
 		}
-		return pLaboratory;
+		Map<String, Object> parameters = new HashMap<>();
+		String condition = getArchivedCondition(truncatedDateFrom, truncatedDateTo, true, exam, patientCode, parameters);
+		Stream<LaboratoryForPrint> archived = archiveIoOperations.streamArchived(ArchiveTable.LABORATORY, Laboratory.class, truncatedDateFrom,
+				condition, NEWEST_FIRST_SQL, parameters).map(LabIoOperations::toPrint);
+		return ArchiveIoOperations.union(laboratories, archived, NEWEST_FIRST_FOR_PRINT);
 	}
 
 	/**
@@ -246,19 +320,14 @@ public class LabIoOperations {
 	public Laboratory newLabSecondProcedure(Laboratory laboratory, List<String> labRow) throws OHServiceException {
 		Laboratory newLaboratory = newLaboratory(laboratory);
 		if (newLaboratory.getCode() > 0) {
-			for (String aLabRow : labRow) {
-				LaboratoryRow laboratoryRow = new LaboratoryRow();
-				laboratoryRow.setLabId(laboratory);
-				laboratoryRow.setDescription(aLabRow);
-				rowRepository.save(laboratoryRow);
-			}
+			newLabRows(newLaboratory, labRow);
 		}
 		return newLaboratory;
 	}
 
 	/**
 	 * Return a list of exams suitable for printing ({@link LaboratoryForPrint}s) 
-	 * between specified dates and matching passed exam name.
+	 * between specified dates and matching passed exam name, archived ones included.
 	 *
 	 * @param exam - the exam name as {@code String}
 	 * @param dateFrom - the starting date for the date range
@@ -267,22 +336,28 @@ public class LabIoOperations {
 	 * @throws OHServiceException
 	 */
 	public List<LaboratoryForPrint> getLaboratoryForPrint(String exam, LocalDateTime dateFrom, LocalDateTime dateTo) throws OHServiceException {
-		List<LaboratoryForPrint> pLaboratory = new ArrayList<>();
 		LocalDateTime truncatedDateFrom = TimeTools.truncateToSeconds(dateFrom.with(LocalTime.MIN));
 		LocalDateTime truncatedDateTo = TimeTools.truncateToSeconds(dateTo.with(LocalTime.MAX));
-
-		Iterable<Laboratory> laboritories = exam != null
-						? repository.findByLabDateBetweenAndExam_DescriptionContainingOrderByExam_Examtype_DescriptionDesc(truncatedDateFrom, truncatedDateTo, exam)
-						: repository.findByLabDateBetweenOrderByExam_Examtype_DescriptionDesc(truncatedDateFrom, truncatedDateTo);
-
-		for (Laboratory laboratory : laboritories) {
-			pLaboratory.add(new LaboratoryForPrint(
-							laboratory.getCode(),
-							laboratory.getExam(),
-							laboratory.getLabDate(),
-							laboratory.getResult()));
+		if (!archiveIoOperations.isArchived(ArchiveTable.LABORATORY, truncatedDateFrom)) {
+			return repository.findForPrintOrderByExamType(truncatedDateFrom, truncatedDateTo, exam);
+		}
+		// the projection has no exam type to merge by, so the exams are read as entities
+		Map<String, Object> parameters = new HashMap<>();
+		String condition = getArchivedCondition(truncatedDateFrom, truncatedDateTo, true, null, null, parameters);
+		if (exam != null) {
+			condition += " AND LAB_EXA_ID_A IN (SELECT EXA_ID_A FROM OH_EXAM WHERE EXA_DESC LIKE :exam)";
+			parameters.put("exam", '%' + exam + '%');
 		}
-		return pLaboratory;
+		List<Laboratory> archived = archiveIoOperations.getArchived(ArchiveTable.LABORATORY, Laboratory.class, null, truncatedDateFrom, condition,
+				parameters);
+		List<Laboratory> laboratories = ArchiveIoOperations.union(repository.findOrderByExamType(truncatedDateFrom, truncatedDateTo, exam), archived,
+				Comparator.comparing((Laboratory laboratory) -> laboratory.getExam().getExamtype().getDescription()).reversed());
+		List<LaboratoryForPrint> laboratoriesForPrint = new ArrayList<>(laboratories.size());
+		for (Laboratory laboratory : laboratories) {
+			laboratoriesForPrint.add(new LaboratoryForPrint(laboratory.getCode(), laboratory.getExam().getDescription(), laboratory.getLabDate(),
+					laboratory.getResult()));
+		}
+		return laboratoriesForPrint;
 	}
 	/**
 	 * Inserts one Laboratory exam {@link Laboratory} with multiple results (Procedure Two)
@@ -294,16 +369,11 @@ public class LabIoOperations {
 	 */
 	public Laboratory newLabSecondProcedure2(Laboratory laboratory, List<LaboratoryRow> labRow) throws OHServiceException {
 		Laboratory newLaboratory = newLaboratory(laboratory);
-		int newCode = newLaboratory.getCode();
-		if (newCode > 0) {
-			laboratory = repository.findById(newCode).orElse(null);
-			if (laboratory == null) {
-				throw new OHServiceException(new OHExceptionMessage("Laboratory with code '" + newCode + "' not found"));
-			}
+		if (newLaboratory.getCode() > 0) {
 			for (LaboratoryRow aLabRow : labRow) {
-				aLabRow.setLabId(laboratory);
-				rowRepository.save(aLabRow);
+				aLabRow.setLabId(newLaboratory);
 			}
+			rowRepository.saveAll(labRow);
 		}
 		return newLaboratory;
 	}
@@ -342,13 +412,22 @@ public class LabIoOperations {
 	 */
 	public Laboratory updateLabSecondProcedure(Laboratory laboratory, List<String> labRow) throws OHServiceException {
 		Laboratory updatedLaboratory = updateLabFirstProcedure(laboratory);
+		newLabRows(updatedLaboratory, labRow);
+		return updatedLaboratory;
+	}
+
+	/**
+	 * Stores the results ({@link LaboratoryRow}s) of a Laboratory exam with a single {@code saveAll}.
+	 *
+	 * @param laboratory - the persisted {@link Laboratory}
+	 * @param labRow - the list of results ({@link String}s)
+	 */
+	private void newLabRows(Laboratory laboratory, List<String> labRow) {
+		List<LaboratoryRow> laboratoryRows = new ArrayList<>(labRow.size());
 		for (String aLabRow : labRow) {
-			LaboratoryRow laboratoryRow = new LaboratoryRow();
-			laboratoryRow.setLabId(laboratory);
-			laboratoryRow.setDescription(aLabRow);
-			rowRepository.save(laboratoryRow);
+			laboratoryRows.add(new LaboratoryRow(laboratory, aLabRow));
 		}
-		return updatedLaboratory;
+		rowRepository.saveAll(laboratoryRows);
 	}
 
 	/**
@@ -385,23 +464,117 @@ public class LabIoOperations {
 
 	public PagedResponse<Laboratory> getLaboratoryPageable(String exam, LocalDateTime dateFrom, LocalDateTime dateTo, Patient patient, int page, int size)
 					throws OHServiceException {
-		Page<Laboratory> laboritories = null;
 		LocalDateTime truncatedDateFrom = TimeTools.truncateToSeconds(dateFrom.with(LocalTime.MIN));
 		LocalDateTime truncatedDateTo = TimeTools.truncateToSeconds(dateTo.with(LocalTime.MAX));
+		Function<Pageable, Page<Laboratory>> query = pageable -> {
+			if (exam != null && patient != null) {
+				return repository.findByLabDateBetweenAndExamDescriptionAndPatientCodePage(truncatedDateFrom, truncatedDateTo, exam, patient, pageable);
+			}
+			if (exam != null) {
+				return repository.findByLabDateBetweenAndExam_DescriptionOrderByLabDateDescPage(truncatedDateFrom, truncatedDateTo, exam, pageable);
+			}
+			if (patient != null) {
+				return repository.findByLabDateBetweenAndPatientCodePage(truncatedDateFrom, truncatedDateTo, patient, pageable);
+			}
+			return repository.findByLabDateBetweenOrderByLabDateDescPage(truncatedDateFrom, truncatedDateTo, pageable);
+		};
+		Map<String, Object> parameters = new HashMap<>();
+		String condition = getArchivedCondition(truncatedDateFrom, truncatedDateTo, false, exam, patient != null ? patient.getCode() : null,
+				parameters);
+		return setPaginationData(getPage(query, Function.identity(), NEWEST_FIRST, truncatedDateFrom, condition, NEWEST_FIRST_SQL, parameters, page,
+				size));
+	}
 
-		if (exam != null && patient != null) {
-			laboritories = repository.findByLabDateBetweenAndExamDescriptionAndPatientCodePage(truncatedDateFrom, truncatedDateTo, exam, patient, PageRequest.of(page, size));
+	/**
+	 * Return a page of exams ({@link Laboratory}s) within the specified dates, archived ones included, ordered by date descending, using keyset
+	 * pagination.
+	 *
+	 * @param exam - the exam description or {@code null}
+	 * @param dateFrom
+	 * @param dateTo
+	 * @param patient - the {@link Patient} or {@code null}
+	 * @param cursor - the cursor returned with the previous response or {@code null} for the first page
+	 * @param size
+	 * @param countTotal - if {@code true} the matching exams are counted, otherwise the total is {@code -1}
+	 * @return the page of {@link Laboratory}s with the cursors of the adjacent pages
+	 * @throws OHServiceException
+	 */
+	public PagedResponse<Laboratory> getLaboratoryPageable(String exam, LocalDateTime dateFrom, LocalDateTime dateTo, Patient patient, String cursor,
+					int size, boolean countTotal) throws OHServiceException {
+		KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+		LocalDateTime truncatedDateFrom = TimeTools.truncateToSeconds(dateFrom.with(LocalTime.MIN));
+		LocalDateTime truncatedDateTo = TimeTools.truncateToSeconds(dateTo.with(LocalTime.MAX));
+		Integer patientCode = patient == null ? null : patient.getCode();
+		Pageable limit = PageRequest.of(0, size + 1);
+		boolean forward = keysetCursor == null || keysetCursor.isNext();
+		List<Laboratory> laboratories = forward
+						? repository.findPageBeforeCursor(truncatedDateFrom, truncatedDateTo, exam, patientCode,
+										keysetCursor == null ? null : keysetCursor.getDate(), keysetCursor == null ? null : keysetCursor.getCode(), limit)
+						: repository.findPageAfterCursor(truncatedDateFrom, truncatedDateTo, exam, patientCode, keysetCursor.getDate(),
+										keysetCursor.getCode(), limit);
+		long total = countTotal ? repository.countWhereParams(truncatedDateFrom, truncatedDateTo, exam, patientCode) : -1;
+		if (archiveIoOperations.isArchived(ArchiveTable.LABORATORY, truncatedDateFrom)) {
+			Map<String, Object> parameters = new HashMap<>();
+			String condition = getArchivedCondition(truncatedDateFrom, truncatedDateTo, false, exam, patientCode, parameters);
+			if (countTotal) {
+				total += archiveIoOperations.countArchived(ArchiveTable.LABORATORY, truncatedDateFrom, condition, parameters);
+			}
+			if (keysetCursor != null) {
+				condition += forward ? " AND (LAB_DATE < :cursorDate OR (LAB_DATE = :cursorDate AND LAB_ID < :cursorCode))"
+								: " AND (LAB_DATE > :cursorDate OR (LAB_DATE = :cursorDate AND LAB_ID > :cursorCode))";
+				parameters.put("cursorDate", keysetCursor.getDate());
+				parameters.put("cursorCode", keysetCursor.getCode());
+			}
+			List<Laboratory> archived = archiveIoOperations.getArchived(ArchiveTable.LABORATORY, Laboratory.class, null, truncatedDateFrom, condition,
+					forward ? NEWEST_FIRST_SQL : "LAB_DATE, LAB_ID", size + 1, parameters);
+			List<Laboratory> union = ArchiveIoOperations.union(laboratories, archived, forward ? NEWEST_FIRST : NEWEST_FIRST.reversed());
+			laboratories = union.subList(0, Math.min(size + 1, union.size()));
 		}
-		if (exam != null && patient == null) {
-			laboritories = repository.findByLabDateBetweenAndExam_DescriptionOrderByLabDateDescPage(truncatedDateFrom, truncatedDateTo, exam, PageRequest.of(page, size));
+		return KeysetCursor.toPagedResponse(laboratories, size, keysetCursor, Laboratory::getLabDate, Laboratory::getCode, total);
+	}
+
+	/**
+	 * Returns the requested page of the exams read by a query and of the archived exams matching a condition. When the date range
+	 * reaches the archive, the page is cut from the first exams of both tables up to its end.
+	 */
+	private <T> Page<T> getPage(Function<Pageable, Page<T>> query, Function<Laboratory, T> mapper, Comparator<? super T> order,
+			LocalDateTime dateFrom, String condition, String orderBy, Map<String, ?> parameters, int page, int size) {
+		Pageable pageable = PageRequest.of(page, size);
+		if (!archiveIoOperations.isArchived(ArchiveTable.LABORATORY, dateFrom)) {
+			return query.apply(pageable);
 		}
-		if (patient != null && exam == null) {
-			laboritories = repository.findByLabDateBetweenAndPatientCodePage(truncatedDateFrom, truncatedDateTo, patient, PageRequest.of(page, size));
+		int end = (page + 1) * size;
+		List<T> archived = archiveIoOperations.getArchived(ArchiveTable.LABORATORY, Laboratory.class, null, dateFrom, condition, orderBy, end,
+				parameters).stream().map(mapper).toList();
+		long archivedTotal = archiveIoOperations.countArchived(ArchiveTable.LABORATORY, dateFrom, condition, parameters);
+		return ArchiveIoOperations.union(query.apply(PageRequest.of(0, end)), archived, archivedTotal, order, pageable);
+	}
+
+	/**
+	 * Returns the condition on the archived exams within the specified dates, of the exam, if not {@code null}, and of the patient, if not
+	 * {@code null}, and puts its parameters.
+	 *
+	 * @param dateToIncluded - {@code true} if the query of the table includes {@code dateTo}
+	 */
+	private static String getArchivedCondition(LocalDateTime dateFrom, LocalDateTime dateTo, boolean dateToIncluded, String exam,
+			Integer patientCode, Map<String, Object> parameters) {
+		StringBuilder condition = new StringBuilder("LAB_DATE >= :dateFrom AND LAB_DATE ").append(dateToIncluded ? "<=" : "<").append(" :dateTo");
+		parameters.put("dateFrom", dateFrom);
+		parameters.put("dateTo", dateTo);
+		if (exam != null) {
+			condition.append(" AND LAB_EXA_ID_A IN (SELECT EXA_ID_A FROM OH_EXAM WHERE EXA_DESC = :exam)");
+			parameters.put("exam", exam);
 		}
-		if (patient == null && exam == null) {
-			laboritories = repository.findByLabDateBetweenOrderByLabDateDescPage(truncatedDateFrom, truncatedDateTo, PageRequest.of(page, size));
+		if (patientCode != null) {
+			condition.append(" AND LAB_PAT_ID = :patientCode");
+			parameters.put("patientCode", patientCode);
 		}
-		return setPaginationData(laboritories);
+		return condition.toString();
+	}
+
+	private static LaboratoryForPrint toPrint(Laboratory laboratory) {
+		return new LaboratoryForPrint(laboratory.getCode(), laboratory.getExam().getDescription(), laboratory.getLabDate(), laboratory.getResult(),
+				laboratory.getPatName());
 	}
 
 	PagedResponse<Laboratory> setPaginationData(Page<Laboratory> pages) {
@@ -421,4 +594,16 @@ public class LabIoOperations {
 		return this.repository.countAllActiveLabs();
 	}
 
+	/**
+	 * Moves all the {@link Laboratory}s of the obsolete {@link Patient} to the merged one and rewrites their patient
+	 * name, age and sex, with a single bulk update.
+	 *
+	 * @param obsoletePatient - the {@link Patient} being merged
+	 * @param mergedPatient - the {@link Patient} that keeps the history
+	 * @return the number of updated rows
+	 */
+	public int reassignPatient(Patient obsoletePatient, Patient mergedPatient) {
+		return repository.updatePatient(obsoletePatient, mergedPatient, mergedPatient.getName(), mergedPatient.getAge(), String.valueOf(mergedPatient.getSex()));
+	}
+
 }
@@ -21,12 +21,7 @@
  */
 package org.isf.lab.service;
 
-import java.util.List;
-
-import org.isf.lab.model.Laboratory;
-import org.isf.patient.model.Patient;
 import org.isf.patient.model.PatientMergedEvent;
-import org.isf.utils.exception.OHServiceException;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -42,14 +37,8 @@ public class LabPatientMergedEventListener {
 
 	@EventListener
 	@Transactional
-	public void handle(PatientMergedEvent patientMergedEvent) throws OHServiceException {
-		List<Laboratory> laboratories = labIoOperations.getLaboratory(patientMergedEvent.getObsoletePatient());
-		for (Laboratory laboratory : laboratories) {
-			Patient mergedPatient = patientMergedEvent.getMergedPatient();
-			laboratory.setPatient(mergedPatient);
-			laboratory.setPatName(mergedPatient.getName());
-			laboratory.setAge(mergedPatient.getAge());
-			laboratory.setSex(String.valueOf(mergedPatient.getSex()));
-		}
+	public void handle(PatientMergedEvent patientMergedEvent) {
+		int rows = labIoOperations.reassignPatient(patientMergedEvent.getObsoletePatient(), patientMergedEvent.getMergedPatient());
+		patientMergedEvent.addMergedRows("laboratories", rows);
 	}
 }
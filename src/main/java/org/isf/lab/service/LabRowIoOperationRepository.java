@@ -26,11 +26,14 @@ import java.util.List;
 import org.isf.lab.model.LaboratoryRow;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface LabRowIoOperationRepository extends JpaRepository<LaboratoryRow, Integer> {
 
 	@Modifying
-	void deleteByLaboratory_Code(Integer code);
+	@Query(value = "delete from LaboratoryRow lr where lr.laboratory.code = :code")
+	void deleteByLaboratory_Code(@Param("code") Integer code);
 
 	List<LaboratoryRow> findByLaboratory_Code(Integer id);
 }
\ No newline at end of file
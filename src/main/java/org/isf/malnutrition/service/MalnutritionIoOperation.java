@@ -90,11 +90,7 @@ public class MalnutritionIoOperation {
 	 * @throws OHServiceException
 	 */
 	public Malnutrition getLastMalnutrition(int patientID) throws OHServiceException {
-		List<Malnutrition> malnutritions = repository.findAllWhereAdmissionByOrderDateDesc(patientID);
-		if (malnutritions.isEmpty()) {
-			return null;
-		}
-		return malnutritions.get(0);
+		return repository.findFirstByAdmission_IdOrderByDateSuppDesc(patientID).orElse(null);
 	}
 
 	/**
@@ -22,6 +22,7 @@
 package org.isf.malnutrition.service;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.isf.malnutrition.model.Malnutrition;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -35,6 +36,5 @@ public interface MalnutritionIoOperationRepository extends JpaRepository<Malnutr
 	@Query(value = "SELECT m FROM Malnutrition m WHERE m.admission.id = :id ORDER BY m.dateSupp")
 	List<Malnutrition> findAllWhereAdmissionByOrderDate(@Param("id") int admissionID);
 
-	@Query(value = "SELECT m FROM Malnutrition m WHERE m.admission.id = :id ORDER BY m.dateSupp")
-	List<Malnutrition> findAllWhereAdmissionByOrderDateDesc(@Param("id") int admissionID);
+	Optional<Malnutrition> findFirstByAdmission_IdOrderByDateSuppDesc(int admissionID);
 }
@@ -23,7 +23,9 @@ package org.isf.medicalinventory.manager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -268,7 +270,8 @@ public class MedicalInventoryManager {
 			}
 		}
 
-		// Cycle fetched movements to see if they impact inventoryRowSearchList
+		// Cycle fetched movements to see if they impact inventoryRowSearchList, loading the lots of each medical once
+		Map<Integer, List<Lot>> lotsByMedical = new HashMap<>();
 		for (Movement mov : movs) {
 			Lot movLot = mov.getLot();
 			String lotCodeOfMovement = movLot.getCode();
@@ -279,8 +282,12 @@ public class MedicalInventoryManager {
 			Integer medicalCode = medical.getCode();
 
 			// Fetch also empty lots because some movements may have discharged them completely
-			Optional<Lot> lot = movStockInsertingManager.getLotByMedical(medical, false).stream().filter(l -> l.getCode().equals(lotCodeOfMovement))
-							.findFirst();
+			List<Lot> medicalLots = lotsByMedical.get(medicalCode);
+			if (medicalLots == null) {
+				medicalLots = movStockInsertingManager.getLotByMedical(medical, false);
+				lotsByMedical.put(medicalCode, medicalLots);
+			}
+			Optional<Lot> lot = medicalLots.stream().filter(l -> l.getCode().equals(lotCodeOfMovement)).findFirst();
 			double mainStoreQty = lot.get().getMainStoreQuantity();
 
 			// Search for the specific Lot and Medical in inventoryRowSearchList (Lot should be enough)
@@ -27,14 +27,13 @@ import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 @Entity
@@ -48,7 +47,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 public class MedicalInventory extends Auditable<String> {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name = "MINVT_ID")
 	private Integer id;
 
@@ -85,11 +85,7 @@ public class MedicalInventoryIoOperation {
 	 * @throws OHServiceException
 	 */
 	public boolean referenceExists(String reference) throws OHServiceException {
-		MedicalInventory medInv = repository.findByReference(reference);
-		if (medInv != null)  {
-			return true;
-		}
-		return false;
+		return repository.existsByInventoryReference(reference);
 	}
 	
 	/**
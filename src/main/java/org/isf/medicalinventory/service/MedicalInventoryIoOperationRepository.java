@@ -38,6 +38,8 @@ public interface MedicalInventoryIoOperationRepository extends JpaRepository<Med
 
 	@Query(value = "select medinv from MedicalInventory medinv where medinv.inventoryReference = :inventoryReference")
 	MedicalInventory findByReference(@Param("inventoryReference") String inventoryReference);
+
+	boolean existsByInventoryReference(String inventoryReference);
 	
 	@Query(value = "select medinv from MedicalInventory medinv where medinv.status = :status and medinv.ward = :wardCode")
 	List<MedicalInventory> findInventoryByStatusAndWardCode(@Param("status") String status, @Param("wardCode") String wardCode);
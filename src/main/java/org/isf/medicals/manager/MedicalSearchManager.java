@@ -0,0 +1,149 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.medicals.manager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.isf.medicals.model.Medical;
+import org.isf.medicals.model.MedicalQuantityChangedEvent;
+import org.isf.medicals.service.MedicalsIoOperations;
+import org.isf.medtype.model.MedicalType;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.scheduler.JobScheduler;
+import org.isf.utils.scheduler.JobTrigger;
+import org.isf.utils.search.CatalogueIndex;
+import org.isf.utils.search.CatalogueSearchManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Searches the {@link Medical}s in memory, for the pickers that suggest medicals while the user types. Medicals are ranked by their number
+ * of stock movements, which are counted again by the {@value #JOB_NAME} job every {@link #USAGE_REFRESH}. The stock movements update the
+ * quantities of the indexed medicals once committed, by swapping in copies with the stored quantities, so the critical level is evaluated in
+ * memory without loading the index again.
+ */
+@Component
+public class MedicalSearchManager extends CatalogueSearchManager<Medical> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MedicalSearchManager.class);
+
+	public static final String JOB_NAME = "medical-search-usage";
+
+	public static final Duration USAGE_REFRESH = Duration.ofHours(1);
+
+	private final MedicalsIoOperations ioOperations;
+
+	public MedicalSearchManager(MedicalsIoOperations medicalsIoOperations) {
+		super(Medical.class);
+		this.ioOperations = medicalsIoOperations;
+	}
+
+	@PostConstruct
+	public void start() {
+		JobScheduler.getDefault().schedule(JOB_NAME, JobTrigger.fixedDelay(USAGE_REFRESH, USAGE_REFRESH, 0.1), this::reload);
+	}
+
+	@PreDestroy
+	public void stop() {
+		JobScheduler.getDefault().cancel(JOB_NAME);
+	}
+
+	@EventListener
+	public void handle(MedicalQuantityChangedEvent event) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			updateQuantities(event);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCommit() {
+				updateQuantities(event);
+			}
+		});
+	}
+
+	/**
+	 * Returns the {@link Medical}s whose description or product code contains the given text, best matches first.
+	 *
+	 * @param description - the text to look for, an empty text matches all the medicals
+	 * @param type - the {@link MedicalType} code, {@code null} for all the types
+	 * @param critical - {@code true} to include only the medicals under critical level
+	 * @param limit - the maximum number of medicals to return
+	 * @return the matching {@link Medical}s, they must not be modified
+	 * @throws OHServiceException When failed to load the medicals
+	 */
+	public List<Medical> searchMedicals(String description, String type, boolean critical, int limit) throws OHServiceException {
+		return search(description, limit, medical -> (type == null || medical.getType() != null && type.equals(medical.getType().getCode()))
+						&& (!critical || medical.getTotalQuantity() < medical.getMinqty()));
+	}
+
+	private void updateQuantities(MedicalQuantityChangedEvent event) {
+		// the stored quantities are read instead of applying the deltas, which an index loaded meanwhile may already include
+		double[] quantities;
+		try {
+			quantities = ioOperations.getQuantities(event.getMedicalCode());
+		} catch (OHServiceException | RuntimeException exception) {
+			LOGGER.warn("Unable to read the quantities of medical {}, the search index is discarded", event.getMedicalCode(), exception);
+			invalidate();
+			return;
+		}
+		if (quantities == null) {
+			return;
+		}
+		// the indexed medical is shared with the searches running meanwhile: it is replaced by an updated copy
+		update(index -> index.replace(event.getMedicalCode(), medical -> {
+			Medical updated = copy(medical);
+			updated.setInqty(quantities[0]);
+			updated.setOutqty(quantities[1]);
+			return updated;
+		}));
+	}
+
+	private static Medical copy(Medical medical) {
+		try {
+			return (Medical) medical.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	protected CatalogueIndex<Medical> buildIndex() throws OHServiceException {
+		Map<Integer, Long> usage = ioOperations.getMedicalUsage();
+		CatalogueIndex.Builder<Medical> builder = CatalogueIndex.builder(Medical::getCode);
+		for (Medical medical : ioOperations.getMedicals()) {
+			builder.add(medical, usage.getOrDefault(medical.getCode(), 0L), medical.getDescription(), medical.getProdCode());
+		}
+		return builder.build();
+	}
+
+}
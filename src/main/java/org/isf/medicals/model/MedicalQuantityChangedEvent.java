@@ -0,0 +1,62 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.medicals.model;
+
+/**
+ * Published whenever a stock movement changes the incoming or outgoing quantity of a {@link Medical}.
+ */
+public class MedicalQuantityChangedEvent {
+
+	private final int medicalCode;
+
+	private final double inqtyDelta;
+
+	private final double outqtyDelta;
+
+	public MedicalQuantityChangedEvent(int medicalCode, double inqtyDelta, double outqtyDelta) {
+		this.medicalCode = medicalCode;
+		this.inqtyDelta = inqtyDelta;
+		this.outqtyDelta = outqtyDelta;
+	}
+
+	/**
+	 * @return the code of the changed {@link Medical}
+	 */
+	public int getMedicalCode() {
+		return medicalCode;
+	}
+
+	/**
+	 * @return the quantity added to the incoming quantity
+	 */
+	public double getInqtyDelta() {
+		return inqtyDelta;
+	}
+
+	/**
+	 * @return the quantity added to the outgoing quantity
+	 */
+	public double getOutqtyDelta() {
+		return outqtyDelta;
+	}
+
+}
@@ -67,11 +67,12 @@ public interface MedicalsIoOperationRepository extends JpaRepository<Medical, In
 	@Query(value = "SELECT m FROM Medical m order BY m.type.description, m.description")
 	List<Medical> findAllByOrderByTypeAndDescription();
 
-	@Query(value = "SELECT m FROM Medical m WHERE m.type.code = :type AND m.description = :description")
-	Medical findOneWhereDescriptionAndType(@Param("description") String description, @Param("type") String type);
+	@Query(value = "SELECT MDSR_ID FROM OH_MEDICALDSR WHERE MDSR_MDSRT_ID_A = :type AND MDSR_DESC = :description LIMIT 1", nativeQuery = true)
+	Integer findFirstIdWhereDescriptionAndType(@Param("description") String description, @Param("type") String type);
 
-	@Query(value = "SELECT m FROM Medical m WHERE m.type.code = :type AND m.description = :description AND m.code <> :id")
-	Medical findOneWhereDescriptionAndType(@Param("description") String description, @Param("type") String type, @Param("id") Integer id);
+	@Query(value = "SELECT MDSR_ID FROM OH_MEDICALDSR WHERE MDSR_MDSRT_ID_A = :type AND MDSR_DESC = :description AND MDSR_ID <> :id LIMIT 1",
+					nativeQuery = true)
+	Integer findFirstIdWhereDescriptionAndType(@Param("description") String description, @Param("type") String type, @Param("id") Integer id);
 
 	@Query(value = "SELECT m FROM Medical m WHERE m.description LIKE :description")
 	List<Medical> findAllWhereDescriptionSoundsLike(@Param("description") String description);
@@ -82,8 +83,11 @@ public interface MedicalsIoOperationRepository extends JpaRepository<Medical, In
 	@Query(value = "SELECT m FROM Medical m WHERE m.prod_code = :prod_code")
 	Medical findOneWhereProductCode(@Param("prod_code") String prod_code);
 
-	@Query(value = "SELECT m FROM Medical m WHERE m.prod_code = :prod_code AND m.code <> :id")
-	Medical findOneWhereProductCode(@Param("prod_code") String prod_code, @Param("id") Integer id);
+	@Query(value = "SELECT MDSR_ID FROM OH_MEDICALDSR WHERE MDSR_CODE = :prod_code LIMIT 1", nativeQuery = true)
+	Integer findFirstIdWhereProductCode(@Param("prod_code") String prod_code);
+
+	@Query(value = "SELECT MDSR_ID FROM OH_MEDICALDSR WHERE MDSR_CODE = :prod_code AND MDSR_ID <> :id LIMIT 1", nativeQuery = true)
+	Integer findFirstIdWhereProductCode(@Param("prod_code") String prod_code, @Param("id") Integer id);
 
 	@Query(value = "SELECT m FROM Medical m WHERE m.type.description LIKE %:type% ORDER BY LENGTH(m.prod_code), m.prod_code, m.description")
 	List<Medical> findAllWhereTypeOrderBySmartCodeAndDescription(@Param("type") String type);
@@ -93,5 +97,8 @@ public interface MedicalsIoOperationRepository extends JpaRepository<Medical, In
 
 	@Query(value = "SELECT m FROM Medical m")
 	Page<Medical> findAllPageable(Pageable pageable);
+
+	@Query(value = "SELECT m.inqty, m.outqty FROM Medical m WHERE m.code = :code")
+	List<Object[]> findQuantitiesByCode(@Param("code") int code);
 	
 }
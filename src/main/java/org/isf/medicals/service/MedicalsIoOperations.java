@@ -21,16 +21,21 @@
  */
 package org.isf.medicals.service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.isf.medicals.model.Medical;
 import org.isf.medicalstock.service.MovementIoOperationRepository;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.search.CatalogueChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -53,9 +58,13 @@ public class MedicalsIoOperations {
 
 	private MovementIoOperationRepository moveRepository;
 
-	public MedicalsIoOperations(MedicalsIoOperationRepository medicalsIoOperationRepository, MovementIoOperationRepository movementIoOperationRepository) {
+	private ApplicationEventPublisher applicationEventPublisher;
+
+	public MedicalsIoOperations(MedicalsIoOperationRepository medicalsIoOperationRepository, MovementIoOperationRepository movementIoOperationRepository,
+					ApplicationEventPublisher applicationEventPublisher) {
 		this.repository = medicalsIoOperationRepository;
 		this.moveRepository = movementIoOperationRepository;
+		this.applicationEventPublisher = applicationEventPublisher;
 	}
 
 	/**
@@ -67,6 +76,23 @@ public class MedicalsIoOperations {
 	public Medical getMedical(int code) throws OHServiceException {
 		return repository.findById(code).orElse(null);
 	}
+
+	/**
+	 * Retrieves the stored quantities of the specified {@link Medical}, without loading it; a new transaction is used, so that the
+	 * quantities committed meanwhile are read even once the current transaction is completed.
+	 * @param code the medical code.
+	 * @return the {@link Medical#getInqty() loaded} and {@link Medical#getOutqty() unloaded} quantities, {@code null} if the medical does
+	 *         not exist.
+	 * @throws OHServiceException if an error occurs retrieving the quantities.
+	 */
+	@Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+	public double[] getQuantities(int code) throws OHServiceException {
+		List<Object[]> quantities = repository.findQuantitiesByCode(code);
+		if (quantities.isEmpty()) {
+			return null;
+		}
+		return new double[] { (Double) quantities.get(0)[0], (Double) quantities.get(0)[1] };
+	}
 	
 	/**
 	 * Retrieves the specified {@link Medical}.
@@ -194,13 +220,10 @@ public class MedicalsIoOperations {
 	 * @throws OHServiceException if an SQL error occurs during the check.
 	 */
 	public boolean productCodeExists(Medical medical, boolean update) throws OHServiceException {
-		Medical foundMedical;
 		if (update) {
-			foundMedical = repository.findOneWhereProductCode(medical.getProdCode(), medical.getCode());
-		} else {
-			foundMedical = repository.findOneWhereProductCode(medical.getProdCode());
+			return repository.findFirstIdWhereProductCode(medical.getProdCode(), medical.getCode()) != null;
 		}
-		return foundMedical != null;
+		return repository.findFirstIdWhereProductCode(medical.getProdCode()) != null;
 	}
     
 
@@ -212,13 +235,10 @@ public class MedicalsIoOperations {
 	 * @throws OHServiceException if an error occurs during the check.
 	 */
 	public boolean medicalExists(Medical medical, boolean update) throws OHServiceException {
-		Medical foundMedical;
 		if (update) {
-			foundMedical = repository.findOneWhereDescriptionAndType(medical.getDescription(), medical.getType().getCode(), medical.getCode());
-		} else {
-			foundMedical = repository.findOneWhereDescriptionAndType(medical.getDescription(), medical.getType().getCode());
+			return repository.findFirstIdWhereDescriptionAndType(medical.getDescription(), medical.getType().getCode(), medical.getCode()) != null;
 		}
-		return foundMedical != null;
+		return repository.findFirstIdWhereDescriptionAndType(medical.getDescription(), medical.getType().getCode()) != null;
 	}
 	
 	/**
@@ -228,7 +248,9 @@ public class MedicalsIoOperations {
 	 * @throws OHServiceException if an error occurs storing the medical.
 	 */
 	public Medical newMedical(Medical medical) throws OHServiceException {
-		return repository.save(medical);
+		Medical savedMedical = repository.save(medical);
+		applicationEventPublisher.publishEvent(new CatalogueChangedEvent(Medical.class));
+		return savedMedical;
 	}
 
 	/**
@@ -238,7 +260,9 @@ public class MedicalsIoOperations {
 	 * @throws OHServiceException if an error occurs during the update.
 	 */
 	public Medical updateMedical(Medical medical) throws OHServiceException {
-		return repository.save(medical);
+		Medical savedMedical = repository.save(medical);
+		applicationEventPublisher.publishEvent(new CatalogueChangedEvent(Medical.class));
+		return savedMedical;
 	}
 
 	/**
@@ -248,7 +272,7 @@ public class MedicalsIoOperations {
 	 * @throws OHServiceException if an error occurs during the check.
 	 */
 	public boolean isMedicalReferencedInStockMovement(int code) throws OHServiceException {
-		return moveRepository.findAllByMedicalCode(code).size() > 0;
+		return moveRepository.existsByMedical_Code(code);
 	}
 
 	/**
@@ -258,6 +282,20 @@ public class MedicalsIoOperations {
 	 */
 	public void deleteMedical(Medical medical) throws OHServiceException {
 		repository.delete(medical);
+		applicationEventPublisher.publishEvent(new CatalogueChangedEvent(Medical.class));
+	}
+
+	/**
+	 * Counts the stock movements of every {@link Medical}, used to rank the search suggestions.
+	 * @return the number of movements by medical code, medicals without movements are missing.
+	 * @throws OHServiceException if an error occurs counting the movements.
+	 */
+	public Map<Integer, Long> getMedicalUsage() throws OHServiceException {
+		Map<Integer, Long> usage = new HashMap<>();
+		for (Object[] row : moveRepository.countGroupByMedical()) {
+			usage.put((Integer) row[0], (Long) row[1]);
+		}
+		return usage;
 	}
 
 	/**
@@ -27,11 +27,12 @@ import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.validation.constraints.NotNull;
@@ -41,12 +42,26 @@ import org.isf.medicals.model.Medical;
 import org.isf.medstockmovtype.model.MovementType;
 import org.isf.supplier.model.Supplier;
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 import org.isf.utils.time.TimeTools;
 import org.isf.ward.model.Ward;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 @Entity
 @Table(name = "OH_MEDICALDSRSTOCKMOV")
+@NamedEntityGraph(name = Movement.GRAPH_LIST,
+		attributeNodes = {
+				@NamedAttributeNode("medical"),
+				@NamedAttributeNode("type"),
+				@NamedAttributeNode("ward"),
+				@NamedAttributeNode("lot") })
+@NamedEntityGraph(name = Movement.GRAPH_DETAIL,
+		attributeNodes = {
+				@NamedAttributeNode("medical"),
+				@NamedAttributeNode("type"),
+				@NamedAttributeNode("ward"),
+				@NamedAttributeNode("lot"),
+				@NamedAttributeNode("supplier") })
 @EntityListeners(AuditingEntityListener.class)
 @AttributeOverride(name = "createdBy", column = @Column(name = "MMV_CREATED_BY", updatable = false))
 @AttributeOverride(name = "createdDate", column = @Column(name = "MMV_CREATED_DATE", updatable = false))
@@ -55,26 +70,32 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @AttributeOverride(name = "lastModifiedDate", column = @Column(name = "MMV_LAST_MODIFIED_DATE"))
 public class Movement extends Auditable<String> {
 
+	/** Entity graph with the associations shown when browsing stock movements. */
+	public static final String GRAPH_LIST = "Movement.list";
+
+	/** Entity graph that adds the supplier of a charge, needed by the movement form and the stock reports. */
+	public static final String GRAPH_DETAIL = "Movement.detail";
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name = "MMV_ID")
 	private int code;
 
 	@NotNull
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "MMV_MDSR_ID")
 	private Medical medical;
 
 	@NotNull
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "MMV_MMVT_ID_A")
 	private MovementType type;
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "MMV_WRD_ID_A")
 	private Ward ward;
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "MMV_LT_ID_A")
 	private Lot lot;
 
@@ -86,7 +107,7 @@ public class Movement extends Auditable<String> {
 	@Column(name = "MMV_QTY")
 	private int quantity;
 
-	@ManyToOne(optional = true, targetEntity = Supplier.class)
+	@ManyToOne(fetch = FetchType.LAZY, optional = true, targetEntity = Supplier.class)
 	@JoinColumn(name = "MMV_FROM")
 	private Supplier supplier;
 
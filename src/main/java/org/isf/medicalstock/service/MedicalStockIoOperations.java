@@ -25,14 +25,20 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.stream.Collectors;
 
+import org.isf.archive.model.ArchiveTable;
+import org.isf.archive.service.ArchiveIoOperations;
 import org.isf.generaldata.GeneralData;
 import org.isf.generaldata.MessageBundle;
 import org.isf.medicals.model.Medical;
+import org.isf.medicals.model.MedicalQuantityChangedEvent;
 import org.isf.medicals.service.MedicalsIoOperationRepository;
 import org.isf.medicalstock.model.Lot;
 import org.isf.medicalstock.model.MedicalStock;
@@ -41,6 +47,7 @@ import org.isf.medicalstockward.model.MedicalWard;
 import org.isf.medicalstockward.service.MedicalStockWardIoOperationRepository;
 import org.isf.medstockmovtype.model.MovementType;
 import org.isf.medtype.model.MedicalType;
+import org.isf.utils.db.EntityGraphInitializer;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.exception.model.OHExceptionMessage;
@@ -48,6 +55,7 @@ import org.isf.utils.time.TimeTools;
 import org.isf.ward.model.Ward;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -61,6 +69,8 @@ public class MedicalStockIoOperations {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(MedicalStockIoOperations.class);
 
+	private static final int MOVEMENTS_PER_QUERY = 1000;
+
 	private MovementIoOperationRepository movRepository;
 
 	private LotIoOperationRepository lotRepository;
@@ -71,15 +81,25 @@ public class MedicalStockIoOperations {
 
 	private MedicalStockWardIoOperationRepository medicalStockWardRepository;
 
+	private ApplicationEventPublisher applicationEventPublisher;
+
+	private ArchiveIoOperations archiveIoOperations;
+
+	private EntityGraphInitializer entityGraphInitializer;
+
 	public MedicalStockIoOperations(MovementIoOperationRepository movementIoOperationRepository, LotIoOperationRepository lotIoOperationRepository,
 					MedicalsIoOperationRepository medicalsIoOperationRepository,
 					MedicalStockIoOperationRepository medicalStockIoOperationRepository,
-					MedicalStockWardIoOperationRepository medicalStockWardIoOperationRepository) {
+					MedicalStockWardIoOperationRepository medicalStockWardIoOperationRepository, ApplicationEventPublisher applicationEventPublisher,
+					ArchiveIoOperations archiveIoOperations, EntityGraphInitializer entityGraphInitializer) {
 		this.movRepository = movementIoOperationRepository;
 		this.lotRepository = lotIoOperationRepository;
 		this.medicalRepository = medicalsIoOperationRepository;
 		this.medicalStockRepository = medicalStockIoOperationRepository;
 		this.medicalStockWardRepository = medicalStockWardIoOperationRepository;
+		this.applicationEventPublisher = applicationEventPublisher;
+		this.archiveIoOperations = archiveIoOperations;
+		this.entityGraphInitializer = entityGraphInitializer;
 	}
 
 	public enum MovementOrder {
@@ -254,7 +274,7 @@ public class MedicalStockIoOperations {
 			throw new OHServiceException(new OHExceptionMessage("Lot '" + lotCode + "' not found."));
 		}
 		movement.setLot(lot);
-		return movRepository.save(movement);
+		return entityGraphInitializer.initialize(movRepository.save(movement), Movement.GRAPH_DETAIL);
 	}
 
 	/**
@@ -284,7 +304,7 @@ public class MedicalStockIoOperations {
 	 * @throws OHServiceException if an error occurs during the check.
 	 */
 	public boolean lotExists(String lotCode) throws OHServiceException {
-		return lotRepository.findById(String.valueOf(lotCode)).orElse(null) != null;
+		return lotRepository.existsById(lotCode);
 	}
 
 	/**
@@ -375,7 +395,9 @@ public class MedicalStockIoOperations {
 			throw new OHServiceException(new OHExceptionMessage("Medical '" + medicalCode + "' not found."));
 		}
 		medical.setInqty(medical.getInqty() + incrementQuantity);
-		return medicalRepository.save(medical);
+		Medical savedMedical = medicalRepository.save(medical);
+		applicationEventPublisher.publishEvent(new MedicalQuantityChangedEvent(medicalCode, incrementQuantity, 0));
+		return savedMedical;
 	}
 
 	/**
@@ -392,7 +414,9 @@ public class MedicalStockIoOperations {
 			throw new OHServiceException(new OHExceptionMessage("Medical '" + medicalCode + "' not found."));
 		}
 		medical.setOutqty(medical.getOutqty() + incrementQuantity);
-		return medicalRepository.save(medical);
+		Medical savedMedical = medicalRepository.save(medical);
+		applicationEventPublisher.publishEvent(new MedicalQuantityChangedEvent(medicalCode, 0, incrementQuantity));
+		return savedMedical;
 	}
 
 	/**
@@ -480,7 +504,7 @@ public class MedicalStockIoOperations {
 	}
 
 	/**
-	 * Retrieves all the stored {@link Movement}s for the specified {@link Ward}.
+	 * Retrieves all the stored {@link Movement}s for the specified {@link Ward}, archived ones included.
 	 * 
 	 * @param wardId the ward id.
 	 * @param dateTo
@@ -489,20 +513,27 @@ public class MedicalStockIoOperations {
 	 * @throws OHServiceException if an error occurs retrieving the movements.
 	 */
 	public List<Movement> getMovements(String wardId, LocalDateTime dateFrom, LocalDateTime dateTo) throws OHServiceException {
-		List<Movement> pMovement = new ArrayList<>();
-		// TODO: investigate whether findMovementWhereDatesAndId() could return a List<Movement> directly
-		// to remove the need to fetch the movements later in the loop below
 		List<Integer> pMovementCode = movRepository.findMovementWhereDatesAndId(wardId, TimeTools.truncateToSeconds(dateFrom),
 						TimeTools.truncateToSeconds(dateTo));
-		for (int i = 0; i < pMovementCode.size(); i++) {
-			Integer code = pMovementCode.get(i);
-			Movement movement = movRepository.findById(code).orElse(null);
-			if (movement == null) {
-				throw new OHServiceException(new OHExceptionMessage("Movement '" + code + "' not found."));
-			}
-			pMovement.add(i, movement);
+		return ArchiveIoOperations.union(getMovementsByCode(pMovementCode), getArchivedMovements(wardId, dateFrom, dateTo),
+						Comparator.comparing(Movement::getDate).thenComparing(Movement::getRefNo, Comparator.nullsFirst(Comparator.naturalOrder())).reversed());
+	}
+
+	private List<Movement> getArchivedMovements(String wardId, LocalDateTime dateFrom, LocalDateTime dateTo) {
+		Map<String, Object> parameters = new HashMap<>();
+		String condition = "1 = 1";
+		LocalDateTime from = null;
+		if (dateFrom != null && dateTo != null) {
+			from = TimeTools.getBeginningOfDay(TimeTools.truncateToSeconds(dateFrom));
+			condition += " AND MMV_DATE BETWEEN :dateFrom AND :dateTo";
+			parameters.put("dateFrom", from);
+			parameters.put("dateTo", TimeTools.getBeginningOfNextDay(TimeTools.truncateToSeconds(dateTo)));
 		}
-		return pMovement;
+		if (wardId != null && !wardId.isEmpty()) {
+			condition += " AND MMV_WRD_ID_A = :wardId";
+			parameters.put("wardId", wardId);
+		}
+		return archiveIoOperations.getArchived(ArchiveTable.MOVEMENT, Movement.class, Movement.GRAPH_DETAIL, from, condition, parameters);
 	}
 
 	/**
@@ -532,8 +563,6 @@ public class MedicalStockIoOperations {
 					LocalDateTime lotPrepTo,
 					LocalDateTime lotDueFrom,
 					LocalDateTime lotDueTo) throws OHServiceException {
-		List<Movement> pMovement = new ArrayList<>();
-
 		List<Integer> pMovementCode = movRepository.findMovementWhereData(medicalCode, medicalType, wardId, movType,
 						TimeTools.truncateToSeconds(movFrom),
 						TimeTools.truncateToSeconds(movTo),
@@ -541,15 +570,7 @@ public class MedicalStockIoOperations {
 						TimeTools.truncateToSeconds(lotPrepTo),
 						TimeTools.truncateToSeconds(lotDueFrom),
 						TimeTools.truncateToSeconds(lotDueTo));
-		for (int i = 0; i < pMovementCode.size(); i++) {
-			Integer code = pMovementCode.get(i);
-			Movement movement = movRepository.findById(code).orElse(null);
-			if (movement == null) {
-				throw new OHServiceException(new OHExceptionMessage("Movement '" + code + "' not found."));
-			}
-			pMovement.add(i, movement);
-		}
-		return pMovement;
+		return getMovementsByCode(pMovementCode);
 	}
 
 	/**
@@ -575,16 +596,30 @@ public class MedicalStockIoOperations {
 					LocalDateTime movTo,
 					String lotCode,
 					MovementOrder order) throws OHServiceException {
-		List<Movement> pMovement = new ArrayList<>();
-
 		List<Integer> pMovementCode = movRepository.findMovementForPrint(medicalDescription, medicalTypeCode, wardId, movType, movFrom, movTo, lotCode, order);
-		for (int i = 0; i < pMovementCode.size(); i++) {
-			Integer code = pMovementCode.get(i);
-			Movement movement = movRepository.findById(code).orElse(null);
+		return getMovementsByCode(pMovementCode);
+	}
+
+	/**
+	 * Loads the {@link Movement}s with the specified codes, keeping the order of the codes.
+	 * 
+	 * @param codes the movement codes.
+	 * @return the retrieved movements.
+	 * @throws OHServiceException if one of the movements does not exist.
+	 */
+	private List<Movement> getMovementsByCode(List<Integer> codes) throws OHServiceException {
+		Map<Integer, Movement> movements = new HashMap<>(codes.size() * 2);
+		for (int from = 0; from < codes.size(); from += MOVEMENTS_PER_QUERY) {
+			List<Integer> chunk = codes.subList(from, Math.min(from + MOVEMENTS_PER_QUERY, codes.size()));
+			movRepository.findAllByCodeIn(chunk).forEach(movement -> movements.put(movement.getCode(), movement));
+		}
+		List<Movement> pMovement = new ArrayList<>(codes.size());
+		for (Integer code : codes) {
+			Movement movement = movements.get(code);
 			if (movement == null) {
 				throw new OHServiceException(new OHExceptionMessage("Movement '" + code + "' not found."));
 			}
-			pMovement.add(i, movement);
+			pMovement.add(movement);
 		}
 		return pMovement;
 	}
@@ -660,7 +695,10 @@ public class MedicalStockIoOperations {
 	 * @throws OHServiceException
 	 */
 	public boolean refNoExists(String refNo) throws OHServiceException {
-		return !movRepository.findAllWhereRefNo(refNo).isEmpty();
+		// archived movements keep their reference number, which must not be used again
+		return movRepository.existsByRefNoLike(refNo)
+				|| archiveIoOperations.existsArchived(ArchiveTable.MOVEMENT, null, "MMV_REFNO LIKE :refNo",
+						Collections.singletonMap("refNo", refNo));
 	}
 
 	/**
@@ -681,7 +719,7 @@ public class MedicalStockIoOperations {
 	 * @throws OHServiceException
 	 */
 	public Movement getLastMovement() throws OHServiceException {
-		return movRepository.findLastMovement();
+		return movRepository.findFirstByOrderByCodeDesc();
 	}
 
 	/**
@@ -22,10 +22,14 @@
 package org.isf.medicalstock.service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.isf.medicalstock.model.Lot;
 import org.isf.medicalstock.model.Movement;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -34,9 +38,12 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface MovementIoOperationRepository extends JpaRepository<Movement, Integer>, MovementIoOperationRepositoryCustom {
 
-	@Query(value = "select m from Movement m join m.medical med where med.code = :code")
-	List<Movement> findAllByMedicalCode(@Param("code") Integer code);
+	boolean existsByMedical_Code(Integer code);
+
+	@Query(value = "select mov.medical.code, count(mov) from Movement mov group by mov.medical.code")
+	List<Object[]> countGroupByMedical();
 
+	@EntityGraph(value = Movement.GRAPH_LIST, type = EntityGraphType.LOAD)
 	@Query(value = "select m from Movement m join m.medical med where med.code = :code")
 	Movement findAllByMedicalCodeOrderByLot_(@Param("code") Integer code);
 
@@ -47,6 +54,7 @@ public interface MovementIoOperationRepository extends JpaRepository<Movement, I
 					"where lot.code=:lot")
 	List<Integer> findAllByLot(@Param("lot") String lot);
 
+	@EntityGraph(value = Movement.GRAPH_DETAIL, type = EntityGraphType.LOAD)
 	@Query(value = "select mov from Movement mov " +
 					"join mov.type movtype " +
 					"left join mov.lot lot " +
@@ -54,18 +62,25 @@ public interface MovementIoOperationRepository extends JpaRepository<Movement, I
 					"where mov.refNo = :refNo order by mov.date, mov.refNo")
 	List<Movement> findAllByRefNo(@Param("refNo") String refNo);
 
+	@EntityGraph(value = Movement.GRAPH_LIST, type = EntityGraphType.LOAD)
 	List<Movement> findByLot(Lot lot);
 
 	@Query(value = "select max(mov.date) from Movement mov")
 	LocalDateTime findMaxDate();
 
-	@Query(value = "select mov.refNo from Movement mov where mov.refNo like :refNo")
-	List<String> findAllWhereRefNo(@Param("refNo") String refNo);
+	boolean existsByRefNoLike(String refNo);
 	
-	@Query(value = "SELECT * FROM OH_MEDICALDSRSTOCKMOV ORDER BY MMV_ID DESC limit 1", nativeQuery = true)
-	Movement findLastMovement();
+	@EntityGraph(value = Movement.GRAPH_DETAIL, type = EntityGraphType.LOAD)
+	Movement findFirstByOrderByCodeDesc();
 
 	@Query("select count(m) from Movement m where active=1")
 	long countAllActiveMovements();
 
+	@EntityGraph(value = Movement.GRAPH_DETAIL, type = EntityGraphType.LOAD)
+	@Query(value = "select mov from Movement mov where mov.code in :codes")
+	List<Movement> findAllByCodeIn(@Param("codes") Collection<Integer> codes);
+
+	@Override
+	@EntityGraph(value = Movement.GRAPH_DETAIL, type = EntityGraphType.LOAD)
+	Optional<Movement> findById(Integer code);
 }
@@ -27,11 +27,13 @@ import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.validation.constraints.NotNull;
@@ -40,12 +42,29 @@ import org.isf.medicals.model.Medical;
 import org.isf.medicalstock.model.Lot;
 import org.isf.patient.model.Patient;
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 import org.isf.utils.time.TimeTools;
 import org.isf.ward.model.Ward;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 @Entity
 @Table(name = "OH_MEDICALDSRSTOCKMOVWARD")
+@NamedEntityGraph(name = MovementWard.GRAPH_LIST,
+		attributeNodes = {
+				@NamedAttributeNode("ward"),
+				@NamedAttributeNode("lot"),
+				@NamedAttributeNode(value = "patient", subgraph = "patient"),
+				@NamedAttributeNode("medical") },
+		subgraphs = @NamedSubgraph(name = "patient", attributeNodes = @NamedAttributeNode("patientConsensus")))
+@NamedEntityGraph(name = MovementWard.GRAPH_DETAIL,
+		attributeNodes = {
+				@NamedAttributeNode("ward"),
+				@NamedAttributeNode("lot"),
+				@NamedAttributeNode(value = "patient", subgraph = "patient"),
+				@NamedAttributeNode("medical"),
+				@NamedAttributeNode("wardTo"),
+				@NamedAttributeNode("wardFrom") },
+		subgraphs = @NamedSubgraph(name = "patient", attributeNodes = @NamedAttributeNode("patientConsensus")))
 @EntityListeners(AuditingEntityListener.class)
 @AttributeOverride(name = "createdBy", column = @Column(name = "MMVN_CREATED_BY", updatable = false))
 @AttributeOverride(name = "createdDate", column = @Column(name = "MMVN_CREATED_DATE", updatable = false))
@@ -54,17 +73,23 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @AttributeOverride(name = "lastModifiedDate", column = @Column(name = "MMVN_LAST_MODIFIED_DATE"))
 public class MovementWard extends Auditable<String> {
 
+	/** Entity graph with the associations shown when browsing ward movements. */
+	public static final String GRAPH_LIST = "MovementWard.list";
+
+	/** Entity graph that adds the wards a transfer comes from or goes to, used when a ward movement is edited or printed. */
+	public static final String GRAPH_DETAIL = "MovementWard.detail";
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name = "MMVN_ID")
 	private int code;
 
 	@NotNull
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "MMVN_WRD_ID_A")
 	private Ward ward;
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "MMVN_LT_ID")
 	private Lot lot;
 
@@ -76,7 +101,7 @@ public class MovementWard extends Auditable<String> {
 	@Column(name = "MMVN_IS_PATIENT")
 	private boolean isPatient;
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "MMVN_PAT_ID")
 	private Patient patient;
 
@@ -90,7 +115,7 @@ public class MovementWard extends Auditable<String> {
 	@Column(name = "MMVN_DESC")
 	private String description;
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "MMVN_MDSR_ID")
 	private Medical medical;
 
@@ -105,11 +130,11 @@ public class MovementWard extends Auditable<String> {
 	@Transient
 	private volatile int hashCode;
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "MMVN_WRD_ID_A_TO")
 	private Ward wardTo;
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "MMVN_WRD_ID_A_FROM")
 	private Ward wardFrom;
 
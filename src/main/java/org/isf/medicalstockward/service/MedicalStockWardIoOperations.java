@@ -23,7 +23,9 @@ package org.isf.medicalstockward.service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.isf.medicals.model.Medical;
 import org.isf.medicalstock.model.Lot;
@@ -32,6 +34,7 @@ import org.isf.medicalstock.service.LotIoOperationRepository;
 import org.isf.medicalstockward.model.MedicalWard;
 import org.isf.medicalstockward.model.MovementWard;
 import org.isf.patient.model.Patient;
+import org.isf.utils.db.EntityGraphInitializer;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.time.TimeTools;
@@ -47,18 +50,24 @@ import org.springframework.transaction.annotation.Transactional;
 @TranslateOHServiceException
 public class MedicalStockWardIoOperations {
 
+	private static final int MOVEMENTS_PER_QUERY = 1000;
+
 	private MedicalStockWardIoOperationRepository repository;
 
 	private MovementWardIoOperationRepository movementRepository;
 
 	private LotIoOperationRepository lotRepository;
 
+	private EntityGraphInitializer entityGraphInitializer;
+
 	public MedicalStockWardIoOperations(MedicalStockWardIoOperationRepository medicalStockWardIoOperationRepository,
 	                                    MovementWardIoOperationRepository movementWardIoOperationRepository,
-	                                    LotIoOperationRepository lotIoOperationRepository) {
+	                                    LotIoOperationRepository lotIoOperationRepository,
+	                                    EntityGraphInitializer entityGraphInitializer) {
 		this.repository = medicalStockWardIoOperationRepository;
 		this.movementRepository = movementWardIoOperationRepository;
 		this.lotRepository = lotIoOperationRepository;
+		this.entityGraphInitializer = entityGraphInitializer;
 	}
 
 	/**
@@ -70,13 +79,16 @@ public class MedicalStockWardIoOperations {
 	 * @throws OHServiceException if an error occurs retrieving the movements.
 	 */
 	public List<MovementWard> getWardMovements(String wardId, LocalDateTime dateFrom, LocalDateTime dateTo) throws OHServiceException {
-		List<MovementWard> pMovementWard = new ArrayList<>();
-
-		List<Integer> pMovementWardCode = new ArrayList<>(repository.findAllWardMovement(wardId, TimeTools.truncateToSeconds(dateFrom),
-						TimeTools.truncateToSeconds(dateTo)));
+		List<Integer> pMovementWardCode = repository.findAllWardMovement(wardId, TimeTools.truncateToSeconds(dateFrom),
+						TimeTools.truncateToSeconds(dateTo));
+		Map<Integer, MovementWard> movementWards = new HashMap<>(pMovementWardCode.size() * 2);
+		for (int from = 0; from < pMovementWardCode.size(); from += MOVEMENTS_PER_QUERY) {
+			List<Integer> chunk = pMovementWardCode.subList(from, Math.min(from + MOVEMENTS_PER_QUERY, pMovementWardCode.size()));
+			movementRepository.findAllByCodeIn(chunk).forEach(movementWard -> movementWards.put(movementWard.getCode(), movementWard));
+		}
+		List<MovementWard> pMovementWard = new ArrayList<>(pMovementWardCode.size());
 		for (Integer code : pMovementWardCode) {
-			MovementWard movementWard = movementRepository.findById(code).orElse(null);
-			pMovementWard.add(movementWard);
+			pMovementWard.add(movementWards.get(code));
 		}
 		return pMovementWard;
 	}
@@ -168,7 +180,7 @@ public class MedicalStockWardIoOperations {
 	 * @throws OHServiceException if an error occurs during the update.
 	 */
 	public MovementWard updateMovementWard(MovementWard movement) throws OHServiceException {
-		return movementRepository.save(movement);
+		return entityGraphInitializer.initialize(movementRepository.save(movement), MovementWard.GRAPH_DETAIL);
 	}
 
 	/**
@@ -363,7 +375,7 @@ public class MedicalStockWardIoOperations {
 	 * @throws OHServiceException if an error occurs retrieving the movements.
 	 */
 	public MovementWard getLastMovementWard(Ward ward) throws OHServiceException {
-		return movementRepository.findLastMovement(ward.getCode());
+		return movementRepository.findFirstByWard_CodeOrderByCodeDesc(ward.getCode());
 	}
 
 	/**
@@ -379,4 +391,15 @@ public class MedicalStockWardIoOperations {
 	public List<MovementWard> getMovementWardByWardMedicalAndLotAfterOrSameDate(String wardCode, int medicalCode, String lotCode, LocalDateTime date) {
 		return movementRepository.findByWardMedicalAndLotAfterOrSameDate(wardCode, medicalCode, lotCode, date);
 	}
+
+	/**
+	 * Moves all the {@link MovementWard}s of the obsolete {@link Patient} to the merged one, with a single bulk update.
+	 *
+	 * @param obsoletePatient - the {@link Patient} being merged
+	 * @param mergedPatient - the {@link Patient} that keeps the history
+	 * @return the number of updated rows
+	 */
+	public int reassignPatient(Patient obsoletePatient, Patient mergedPatient) {
+		return movementRepository.updatePatient(obsoletePatient, mergedPatient);
+	}
 }
@@ -22,10 +22,16 @@
 package org.isf.medicalstockward.service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.isf.medicalstockward.model.MovementWard;
+import org.isf.patient.model.Patient;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -33,28 +39,45 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface MovementWardIoOperationRepository extends JpaRepository<MovementWard, Integer> {
 
+	@EntityGraph(value = MovementWard.GRAPH_DETAIL, type = EntityGraphType.LOAD)
 	@Query(value = "select movWard from MovementWard movWard where movWard.wardTo.code=:idWardTo and (movWard.date >= :dateFrom and movWard.date < :dateTo)")
 	List<MovementWard> findWardMovements(@Param("idWardTo") String idWardTo,
 					@Param("dateFrom") LocalDateTime dateFrom,
 					@Param("dateTo") LocalDateTime dateTo);
 
+	@EntityGraph(value = MovementWard.GRAPH_LIST, type = EntityGraphType.LOAD)
 	List<MovementWard> findByPatient_code(int code);
 
+	@EntityGraph(value = MovementWard.GRAPH_LIST, type = EntityGraphType.LOAD)
 	@Query(value = "select movWard from MovementWard movWard where movWard.patient.code = :patId")
 	List<MovementWard> findWardMovementPat(@Param("patId") Integer patId);
 
 	@Query("select count(m) from MovementWard m where active=1")
 	long countAllActiveMovementsWard();
 
+	@EntityGraph(value = MovementWard.GRAPH_LIST, type = EntityGraphType.LOAD)
 	@Query(value = "select movWard from MovementWard movWard where movWard.medical.code = :medID")
 	List<MovementWard> findByMedicalCode(@Param("medID") int medID);
 
-	@Query(value = "SELECT * FROM OH_MEDICALDSRSTOCKMOVWARD WHERE MMVN_WRD_ID_A = :wardID ORDER BY MMVN_ID DESC LIMIT 1", nativeQuery = true)
-	MovementWard findLastMovement(@Param("wardID") String wardID);
+	@EntityGraph(value = MovementWard.GRAPH_DETAIL, type = EntityGraphType.LOAD)
+	MovementWard findFirstByWard_CodeOrderByCodeDesc(String wardID);
 
+	@EntityGraph(value = MovementWard.GRAPH_LIST, type = EntityGraphType.LOAD)
 	@Query(value = "select movWard from MovementWard movWard where movWard.ward.code = :wardCode and movWard.medical.code = :medicalCode and movWard.lot.code = :lotCode and movWard.date >= :date")
 	List<MovementWard> findByWardMedicalAndLotAfterOrSameDate(@Param("wardCode") String wardCode,
 					@Param("medicalCode") int medicalCode,
 					@Param("lotCode") String lotCode,
 					@Param("date") LocalDateTime date);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query(value = "update MovementWard movWard set movWard.patient = :mergedPatient where movWard.patient = :obsoletePatient")
+	int updatePatient(@Param("obsoletePatient") Patient obsoletePatient, @Param("mergedPatient") Patient mergedPatient);
+
+	@EntityGraph(value = MovementWard.GRAPH_DETAIL, type = EntityGraphType.LOAD)
+	@Query(value = "select movWard from MovementWard movWard where movWard.code in :codes")
+	List<MovementWard> findAllByCodeIn(@Param("codes") Collection<Integer> codes);
+
+	@Override
+	@EntityGraph(value = MovementWard.GRAPH_DETAIL, type = EntityGraphType.LOAD)
+	Optional<MovementWard> findById(Integer code);
 }
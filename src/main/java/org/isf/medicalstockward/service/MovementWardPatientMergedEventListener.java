@@ -21,9 +21,6 @@
  */
 package org.isf.medicalstockward.service;
 
-import java.util.List;
-
-import org.isf.medicalstockward.model.MovementWard;
 import org.isf.patient.model.PatientMergedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
@@ -41,10 +38,8 @@ public class MovementWardPatientMergedEventListener {
 	@EventListener
 	@Transactional
 	public void handle(PatientMergedEvent patientMergedEvent) {
-		List<MovementWard> movementWards = medicalStockWardIoOperations.findAllForPatient(patientMergedEvent.getObsoletePatient());
-		for (MovementWard movementWard : movementWards) {
-			movementWard.setPatient(patientMergedEvent.getMergedPatient());
-		}
+		int rows = medicalStockWardIoOperations.reassignPatient(patientMergedEvent.getObsoletePatient(), patientMergedEvent.getMergedPatient());
+		patientMergedEvent.addMergedRows("movementsWard", rows);
 	}
 
 }
@@ -98,11 +98,7 @@ public class MedicalDsrStockMovementTypeIoOperation {
 	 * @return MovementType object whose code is provided as parameter.
 	 */
 	public MovementType findOneByCode(String code) {
-		List<MovementType> results = repository.findAllByCode(code);
-		if (!results.isEmpty()) {
-			return results.get(0);
-		}
-		return null;
+		return repository.findById(code).orElse(null);
 	}
 
 }
@@ -31,6 +31,4 @@ import org.springframework.stereotype.Repository;
 public interface MedicalDsrStockMovementTypeIoOperationRepository extends JpaRepository<MovementType, String> {
 
 	List<MovementType> findAllByOrderByDescriptionAsc();
-
-	List<MovementType> findAllByCode(String code);
 }
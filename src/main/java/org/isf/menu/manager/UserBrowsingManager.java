@@ -22,6 +22,7 @@
 package org.isf.menu.manager;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -32,6 +33,8 @@ import org.isf.menu.model.User;
 import org.isf.menu.model.UserGroup;
 import org.isf.menu.model.UserMenuItem;
 import org.isf.menu.service.MenuIoOperations;
+import org.isf.permissions.manager.AuthorizationSnapshotManager;
+import org.isf.permissions.model.AuthorizationSnapshot;
 import org.isf.permissions.model.Permission;
 import org.isf.sessionaudit.model.UserSession;
 import org.isf.utils.exception.OHDataIntegrityViolationException;
@@ -45,10 +48,15 @@ import org.springframework.stereotype.Component;
 public class UserBrowsingManager {
 
 	private final MenuIoOperations ioOperations;
+	private final UserLoginJournal loginJournal;
+	private final AuthorizationSnapshotManager authorizationSnapshotManager;
 	private static final String VALID_USERID_PATTERN = "^[a-z0-9-._]+$";
 
-	public UserBrowsingManager(MenuIoOperations menuIoOperations) {
+	public UserBrowsingManager(MenuIoOperations menuIoOperations, UserLoginJournal userLoginJournal,
+					AuthorizationSnapshotManager authorizationSnapshotManager) {
 		this.ioOperations = menuIoOperations;
+		this.loginJournal = userLoginJournal;
+		this.authorizationSnapshotManager = authorizationSnapshotManager;
 	}
 
 	public static String getCurrentUser() {
@@ -65,7 +73,9 @@ public class UserBrowsingManager {
 	 * @throws OHServiceException When failed to retrieve users
 	 */
 	public List<User> getUser() throws OHServiceException {
-		return ioOperations.getUser();
+		List<User> users = ioOperations.getUser();
+		users.forEach(loginJournal::apply);
+		return users;
 	}
 
 	/**
@@ -76,7 +86,9 @@ public class UserBrowsingManager {
 	 * @throws OHServiceException When failed to retrieve group users
 	 */
 	public List<User> getUser(String groupID) throws OHServiceException {
-		return ioOperations.getUser(groupID);
+		List<User> users = ioOperations.getUser(groupID);
+		users.forEach(loginJournal::apply);
+		return users;
 	}
 
 	/**
@@ -87,7 +99,7 @@ public class UserBrowsingManager {
 	 * @throws OHServiceException When error occurs
 	 */
 	public User getUserByName(String userName) throws OHServiceException {
-		return ioOperations.getUserByName(userName);
+		return loginJournal.apply(ioOperations.getUserByName(userName));
 	}
 
 	/**
@@ -150,22 +162,25 @@ public class UserBrowsingManager {
 	// even more infrequently, etc. and only one or two columns changed value.  The thought was that rewriting the entire object everytime for each
 	// operation was too heavy handed.
 	/**
-	 * Increase the number of failed login attempts for {@link User}.
+	 * Increase the number of failed login attempts for {@link User}; the update is written in the background by the {@link UserLoginJournal}.
 	 *
 	 * @param user the {@link User}
 	 */
 	public void increaseFailedAttempts(User user) {
 		int newFailAttempts = user.getFailedAttempts() + 1;
-		ioOperations.updateFailedAttempts(user.getUserName(), newFailAttempts);
+		user.setFailedAttempts(newFailAttempts);
+		loginJournal.recordFailedAttempts(user.getUserName(), newFailAttempts);
 	}
 
 	/**
-	 * Reset the number of failed login attempts to zero for {@link User}.
+	 * Reset the number of failed login attempts to zero for {@link User}; the update is written in the background by the
+	 * {@link UserLoginJournal}.
 	 *
 	 * @param user the {@link User}
 	 */
 	public void resetFailedAttempts(User user) {
-		ioOperations.updateFailedAttempts(user.getUserName(), 0);
+		user.setFailedAttempts(0);
+		loginJournal.recordFailedAttempts(user.getUserName(), 0);
 	}
 
 	/**
@@ -181,12 +196,13 @@ public class UserBrowsingManager {
 	}
 
 	/**
-	 * Unlock the {@link User} so they can log into the system.
+	 * Set the last login date of the {@link User} to now; the update is written in the background by the {@link UserLoginJournal}.
 	 *
 	 * @param user the {@link User}
 	 */
 	public void setLastLogin(User user) throws OHServiceException {
-		ioOperations.setLastLogin(user.getUserName(), TimeTools.getNow());
+		user.setLastLogin(TimeTools.getNow());
+		loginJournal.recordLastLogin(user.getUserName(), user.getLastLogin());
 	}
 
 	/**
@@ -199,6 +215,7 @@ public class UserBrowsingManager {
 		user.setLockedTime(null);
 		user.setFailedAttempts(0);
 		String userName = user.getUserName();
+		loginJournal.discard(userName);
 		ioOperations.updateFailedAttempts(userName, 0);
 		ioOperations.updateUserLocked(userName, false, null);
 		ioOperations.setLastLogin(userName, null);
@@ -216,6 +233,7 @@ public class UserBrowsingManager {
 			user.setLockedTime(null);
 			user.setFailedAttempts(0);
 			String userName = user.getUserName();
+			loginJournal.discard(userName);
 			ioOperations.updateFailedAttempts(userName, 0);
 			ioOperations.updateUserLocked(userName, false,null);
 			ioOperations.setLastLogin(userName, null);
@@ -244,14 +262,36 @@ public class UserBrowsingManager {
 	}
 
 	/**
-	 * Returns the list of {@link UserMenuItem}s that compose the menu for a specified {@link User}.
+	 * Returns the list of {@link UserMenuItem}s that compose the menu for a specified {@link User}, from the {@link AuthorizationSnapshot} of its
+	 * {@link UserGroup}.
 	 *
 	 * @param aUser - the {@link User}
 	 * @return the list of {@link UserMenuItem}s
 	 * @throws OHServiceException When failed to retrieve user menus
 	 */
 	public List<UserMenuItem> getMenu(User aUser) throws OHServiceException {
-		return ioOperations.getMenu(aUser);
+		User user = aUser;
+		if (user.getUserGroupName() == null) {
+			// only the name is known, the group is read from the DB
+			user = ioOperations.getUserByName(aUser.getUserName());
+			if (user == null) {
+				return Collections.emptyList();
+			}
+		}
+		return authorizationSnapshotManager.getMenu(user);
+	}
+
+	/**
+	 * Checks if the {@link User} has been granted the {@link Permission} with the given name, from the {@link AuthorizationSnapshot} of its
+	 * {@link UserGroup}.
+	 *
+	 * @param user - the {@link User}
+	 * @param permissionName - the {@link Permission} name
+	 * @return {@code true} if the permission is granted, {@code false} otherwise.
+	 * @throws OHServiceException When failed to load the group permissions
+	 */
+	public boolean hasPermission(User user, String permissionName) throws OHServiceException {
+		return authorizationSnapshotManager.hasPermission(user, permissionName);
 	}
 
 	/**
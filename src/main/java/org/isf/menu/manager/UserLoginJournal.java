@@ -0,0 +1,137 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.menu.manager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.isf.menu.model.User;
+import org.isf.menu.service.MenuIoOperations;
+import org.isf.utils.db.WriteBehindJournal;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind journal of the login bookkeeping of {@link User}s: failed login attempts and last login dates.
+ * <p>
+ * Updates are coalesced by user and written in JDBC batches of up to {@value #BATCH_SIZE} users, at most {@value #FLUSH_DELAY_MILLIS} ms
+ * after being recorded. Until then, {@link #apply(User)} overlays the pending values on a {@link User} read from the database.
+ */
+@Component
+public class UserLoginJournal extends WriteBehindJournal<String> {
+
+	private static final int BATCH_SIZE = 200;
+
+	private static final long FLUSH_DELAY_MILLIS = 500;
+
+	private final MenuIoOperations ioOperations;
+
+	private final Map<String, Integer> pendingFailedAttempts = new ConcurrentHashMap<>();
+
+	private final Map<String, LocalDateTime> pendingLastLogins = new ConcurrentHashMap<>();
+
+	public UserLoginJournal(MenuIoOperations menuIoOperations) {
+		super("oh-login-journal", BATCH_SIZE, FLUSH_DELAY_MILLIS);
+		this.ioOperations = menuIoOperations;
+	}
+
+	/**
+	 * Records the number of failed login attempts of a {@link User}.
+	 *
+	 * @param userName - the user name
+	 * @param failedAttempts - the number of failed login attempts
+	 */
+	public void recordFailedAttempts(String userName, int failedAttempts) {
+		pendingFailedAttempts.put(userName, failedAttempts);
+		append(userName);
+	}
+
+	/**
+	 * Records the last login date of a {@link User}.
+	 *
+	 * @param userName - the user name
+	 * @param lastLogin - the last login date
+	 */
+	public void recordLastLogin(String userName, LocalDateTime lastLogin) {
+		pendingLastLogins.put(userName, lastLogin);
+		append(userName);
+	}
+
+	/**
+	 * Overlays the values not written yet on the given {@link User}.
+	 *
+	 * @param user - the {@link User}, may be {@code null}
+	 * @return the same {@link User}
+	 */
+	public User apply(User user) {
+		if (user != null) {
+			Integer failedAttempts = pendingFailedAttempts.get(user.getUserName());
+			if (failedAttempts != null) {
+				user.setFailedAttempts(failedAttempts);
+			}
+			LocalDateTime lastLogin = pendingLastLogins.get(user.getUserName());
+			if (lastLogin != null) {
+				user.setLastLogin(lastLogin);
+			}
+		}
+		return user;
+	}
+
+	/**
+	 * Drops the values not written yet for a {@link User}, waiting for a batch being written; called before writing the same columns
+	 * synchronously.
+	 *
+	 * @param userName - the user name
+	 */
+	public synchronized void discard(String userName) {
+		pendingFailedAttempts.remove(userName);
+		pendingLastLogins.remove(userName);
+	}
+
+	@Override
+	protected synchronized void write(List<String> userNames) {
+		Map<String, Integer> failedAttempts = new LinkedHashMap<>();
+		Map<String, LocalDateTime> lastLogins = new LinkedHashMap<>();
+		for (String userName : userNames) {
+			Integer attempts = pendingFailedAttempts.get(userName);
+			if (attempts != null) {
+				failedAttempts.put(userName, attempts);
+			}
+			LocalDateTime lastLogin = pendingLastLogins.get(userName);
+			if (lastLogin != null) {
+				lastLogins.put(userName, lastLogin);
+			}
+		}
+		if (!failedAttempts.isEmpty()) {
+			ioOperations.updateFailedAttempts(failedAttempts);
+		}
+		if (!lastLogins.isEmpty()) {
+			ioOperations.setLastLogins(lastLogins);
+		}
+		// values recorded while the batch was written are kept for the next batch
+		failedAttempts.forEach((userName, attempts) -> pendingFailedAttempts.remove(userName, attempts));
+		lastLogins.forEach((userName, lastLogin) -> pendingLastLogins.remove(userName, lastLogin));
+	}
+
+}
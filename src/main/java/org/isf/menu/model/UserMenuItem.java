@@ -115,7 +115,17 @@ public class UserMenuItem {
 		this.position = position;
 		this.isActive = isActive;
 	}
-	
+
+	/**
+	 * Creates a detached copy of the given {@link UserMenuItem}, labels are copied untranslated.
+	 *
+	 * @param other - the {@link UserMenuItem} to copy
+	 */
+	public UserMenuItem(UserMenuItem other) {
+		this(other.code, other.buttonLabel, other.altLabel, other.tooltip, other.shortcut, other.mySubmenu, other.myClass, other.isASubMenu,
+				other.position, other.isActive);
+	}
+
 	public String getAltLabel() {
 		return MessageBundle.getMessage(altLabel); 
 	}
@@ -24,6 +24,7 @@ package org.isf.menu.service;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.isf.menu.model.GroupMenu;
 import org.isf.menu.model.User;
@@ -31,10 +32,13 @@ import org.isf.menu.model.UserGroup;
 import org.isf.menu.model.UserMenuItem;
 import org.isf.permissions.model.GroupPermission;
 import org.isf.permissions.model.Permission;
+import org.isf.permissions.model.UserGroupAuthorizationChangedEvent;
 import org.isf.permissions.service.GroupPermissionIoOperationRepository;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.exception.model.OHExceptionMessage;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -43,6 +47,12 @@ import org.springframework.transaction.annotation.Transactional;
 @TranslateOHServiceException
 public class MenuIoOperations {
 
+	private static final String UPDATE_FAILED_ATTEMPTS = "UPDATE OH_USER SET US_FAILED_ATTEMPTS = ? WHERE US_ID_A = ?";
+
+	private static final String UPDATE_LAST_LOGIN = "UPDATE OH_USER SET US_LAST_LOGIN = ? WHERE US_ID_A = ?";
+
+	private static final int BATCH_SIZE = 500;
+
 	private final UserIoOperationRepository repository;
 
 	private final UserGroupIoOperationRepository groupRepository;
@@ -53,18 +63,26 @@ public class MenuIoOperations {
 
 	private final GroupPermissionIoOperationRepository groupPermissionIoOperationRepository;
 
+	private final ApplicationEventPublisher applicationEventPublisher;
+
+	private final JdbcTemplate jdbcTemplate;
+
 	public MenuIoOperations(
 			UserIoOperationRepository userIoOperationRepository,
 			UserGroupIoOperationRepository userGroupIoOperationRepository,
 			UserMenuItemIoOperationRepository userMenuItemIoOperationRepository,
 			GroupMenuIoOperationRepository groupMenuIoOperationRepository,
-			GroupPermissionIoOperationRepository groupPermissionIoOperationRepository
+			GroupPermissionIoOperationRepository groupPermissionIoOperationRepository,
+			ApplicationEventPublisher applicationEventPublisher,
+			JdbcTemplate jdbcTemplate
 	) {
 		this.repository = userIoOperationRepository;
 		this.groupRepository = userGroupIoOperationRepository;
 		this.menuRepository = userMenuItemIoOperationRepository;
 		this.groupMenuRepository = groupMenuIoOperationRepository;
 		this.groupPermissionIoOperationRepository = groupPermissionIoOperationRepository;
+		this.applicationEventPublisher = applicationEventPublisher;
+		this.jdbcTemplate = jdbcTemplate;
 	}
 
 	/**
@@ -228,6 +246,30 @@ public class MenuIoOperations {
 		repository.setLastLogin(now, userName);
 	}
 
+	/**
+	 * Updates the failed login attempts of several {@link User}s in JDBC batches.
+	 *
+	 * @param failedAttempts - the failed login attempts by user name
+	 */
+	public void updateFailedAttempts(Map<String, Integer> failedAttempts) {
+		jdbcTemplate.batchUpdate(UPDATE_FAILED_ATTEMPTS, failedAttempts.entrySet(), BATCH_SIZE, (statement, entry) -> {
+			statement.setInt(1, entry.getValue());
+			statement.setString(2, entry.getKey());
+		});
+	}
+
+	/**
+	 * Updates the last login date of several {@link User}s in JDBC batches.
+	 *
+	 * @param lastLogins - the last login dates by user name
+	 */
+	public void setLastLogins(Map<String, LocalDateTime> lastLogins) {
+		jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN, lastLogins.entrySet(), BATCH_SIZE, (statement, entry) -> {
+			statement.setObject(1, entry.getValue());
+			statement.setString(2, entry.getKey());
+		});
+	}
+
 	/**
 	 * Returns the list of {@link UserMenuItem}s that compose the menu for specified {@link User}
 	 * 
@@ -296,6 +338,7 @@ public class MenuIoOperations {
 		for (UserMenuItem item : menu) {
 			insertGroupMenu(aGroup, item);
 		}
+		applicationEventPublisher.publishEvent(new UserGroupAuthorizationChangedEvent(aGroup.getCode()));
 		return true;
 	}
 
@@ -321,6 +364,7 @@ public class MenuIoOperations {
 		groupMenuRepository.deleteWhereUserGroup(aGroup.getCode());
 		groupPermissionIoOperationRepository.deleteAllByUserGroup_Code(aGroup.getCode());
 		groupRepository.delete(aGroup);
+		applicationEventPublisher.publishEvent(new UserGroupAuthorizationChangedEvent(aGroup.getCode()));
 	}
 
 	/**
@@ -331,7 +375,9 @@ public class MenuIoOperations {
 	 * @throws OHServiceException When failed to create group
 	 */
 	public UserGroup newUserGroup(UserGroup aGroup) throws OHServiceException {
-		return groupRepository.save(aGroup);
+		UserGroup newUserGroup = groupRepository.save(aGroup);
+		applicationEventPublisher.publishEvent(new UserGroupAuthorizationChangedEvent(newUserGroup.getCode()));
+		return newUserGroup;
 	}
 
 	/**
@@ -356,6 +402,7 @@ public class MenuIoOperations {
 
 			groupPermissionIoOperationRepository.saveAll(groupPermissions);
 		}
+		applicationEventPublisher.publishEvent(new UserGroupAuthorizationChangedEvent(newUserGroup.getCode()));
 
 		return newUserGroup;
 	}
@@ -368,7 +415,9 @@ public class MenuIoOperations {
 	 * @throws OHServiceException When failed to update the user group
 	 */
 	public boolean updateUserGroup(UserGroup aGroup) throws OHServiceException {
-		return groupRepository.updateDescription(aGroup.getDesc(), aGroup.getCode()) > 0;
+		boolean updated = groupRepository.updateDescription(aGroup.getDesc(), aGroup.getCode()) > 0;
+		applicationEventPublisher.publishEvent(new UserGroupAuthorizationChangedEvent(aGroup.getCode()));
+		return updated;
 	}
 
 	/**
@@ -397,6 +446,7 @@ public class MenuIoOperations {
 
 			groupPermissionIoOperationRepository.saveAll(groupPermissions);
 		}
+		applicationEventPublisher.publishEvent(new UserGroupAuthorizationChangedEvent(userGroup.getCode()));
 
 		return updated;
 	}
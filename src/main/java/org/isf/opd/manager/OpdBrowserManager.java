@@ -32,7 +32,9 @@ import org.isf.generaldata.GeneralData;
 import org.isf.generaldata.MessageBundle;
 import org.isf.menu.manager.UserBrowsingManager;
 import org.isf.opd.model.Opd;
+import org.isf.opd.model.OpdStatistic;
 import org.isf.opd.service.OpdIoOperations;
+import org.isf.opd.service.OpdStatisticIoOperations;
 import org.isf.utils.exception.OHDataValidationException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.exception.model.OHExceptionMessage;
@@ -51,10 +53,13 @@ public class OpdBrowserManager {
 	private static final Logger LOGGER = LoggerFactory.getLogger(OpdBrowserManager.class);
 
 	private OpdIoOperations ioOperations;
+	private OpdStatisticIoOperations statisticIoOperations;
 	private DiseaseBrowserManager diseaseBrowserManager;
 
-	public OpdBrowserManager(OpdIoOperations opdIoOperations, DiseaseBrowserManager diseaseBrowserManager) {
+	public OpdBrowserManager(OpdIoOperations opdIoOperations, OpdStatisticIoOperations opdStatisticIoOperations,
+					DiseaseBrowserManager diseaseBrowserManager) {
 		this.ioOperations = opdIoOperations;
+		this.statisticIoOperations = opdStatisticIoOperations;
 		this.diseaseBrowserManager = diseaseBrowserManager;
 	}
 
@@ -303,4 +308,71 @@ public class OpdBrowserManager {
 	public PagedResponse<Opd> getOpdPageable(Ward ward, String diseaseTypeCode, String diseaseCode, LocalDate dateFrom, LocalDate dateTo, int ageFrom, int ageTo, char sex, char newPatient, int page, int size) throws OHServiceException {
 		return ioOperations.getOpdListPageable(ward, diseaseTypeCode, diseaseCode, dateFrom, dateTo, ageFrom, ageTo, sex, newPatient, null, page, size);
 	}
+
+	/**
+	 * Returns a page of {@link Opd}s ordered by date descending, using keyset pagination: constant time whatever the depth of the page.
+	 *
+	 * @param ward - the ward of opd
+	 * @param diseaseTypeCode - the disease type
+	 * @param diseaseCode - the Code of disease
+	 * @param dateFrom
+	 * @param dateTo
+	 * @param ageFrom
+	 * @param ageTo
+	 * @param sex
+	 * @param newPatient
+	 * @param cursor - the next or previous cursor of the last response, {@code null} for the first page
+	 * @param size
+	 * @param countTotal - if {@code true} the total number of {@link Opd}s is counted as well
+	 * @return the page of {@link Opd}s with the cursors of the adjacent pages.
+	 * @throws OHServiceException
+	 */
+	public PagedResponse<Opd> getOpdPageable(Ward ward, String diseaseTypeCode, String diseaseCode, LocalDate dateFrom, LocalDate dateTo, int ageFrom,
+					int ageTo, char sex, char newPatient, String cursor, int size, boolean countTotal) throws OHServiceException {
+		return ioOperations.getOpdListPageable(ward, diseaseTypeCode, diseaseCode, dateFrom, dateTo, ageFrom, ageTo, sex, newPatient, cursor, size,
+						countTotal);
+	}
+
+	/**
+	 * Returns the weekly {@link OpdStatistic}s of the weeks overlapping the specified date range; {@code null} filters match everything.
+	 *
+	 * @param dateFrom
+	 * @param dateTo
+	 * @param wardCode - the ward code or {@code null}
+	 * @param diseaseTypeCode - the disease type code or {@code null}
+	 * @param diseaseCode - the disease code or {@code null}
+	 * @param ageType - the age type code or {@code null}
+	 * @param sex - the sex or {@code null}
+	 * @param newPatient - {@code 'N'}, {@code 'R'} or {@code null}
+	 * @return the list of {@link OpdStatistic}s ordered by week.
+	 * @throws OHServiceException
+	 */
+	public List<OpdStatistic> getOpdStatistics(LocalDate dateFrom, LocalDate dateTo, String wardCode, String diseaseTypeCode, String diseaseCode,
+					String ageType, Character sex, Character newPatient) throws OHServiceException {
+		return statisticIoOperations.getOpdStatistics(dateFrom, dateTo, wardCode, diseaseTypeCode, diseaseCode, ageType, sex, newPatient);
+	}
+
+	/**
+	 * Returns the {@link OpdStatistic} totals by disease, age type, sex and new/returning patient of the weeks overlapping the specified date range.
+	 *
+	 * @param dateFrom
+	 * @param dateTo
+	 * @param wardCode - the ward code or {@code null} for all wards
+	 * @return the list of {@link OpdStatistic}s ordered by disease.
+	 * @throws OHServiceException
+	 */
+	public List<OpdStatistic> getOpdStatisticTotals(LocalDate dateFrom, LocalDate dateTo, String wardCode) throws OHServiceException {
+		return statisticIoOperations.getOpdStatisticTotals(dateFrom, dateTo, wardCode);
+	}
+
+	/**
+	 * Recomputes the {@link OpdStatistic}s of the weeks overlapping the specified date range from the stored {@link Opd}s.
+	 *
+	 * @param dateFrom
+	 * @param dateTo
+	 * @throws OHServiceException
+	 */
+	public void rebuildOpdStatistics(LocalDate dateFrom, LocalDate dateTo) throws OHServiceException {
+		statisticIoOperations.rebuild(dateFrom, dateTo);
+	}
 }
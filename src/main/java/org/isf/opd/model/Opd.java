@@ -27,11 +27,13 @@ import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.persistence.Version;
@@ -40,6 +42,7 @@ import jakarta.validation.constraints.NotNull;
 import org.isf.disease.model.Disease;
 import org.isf.patient.model.Patient;
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 import org.isf.utils.time.TimeTools;
 import org.isf.visits.model.Visit;
 import org.isf.ward.model.Ward;
@@ -49,6 +52,23 @@ import com.drew.lang.annotations.Nullable;
 
 @Entity
 @Table(name="OH_OPD")
+@NamedEntityGraph(name = Opd.GRAPH_LIST,
+		attributeNodes = {
+				@NamedAttributeNode("ward"),
+				@NamedAttributeNode(value = "patient", subgraph = "patient"),
+				@NamedAttributeNode("disease"),
+				@NamedAttributeNode("disease2"),
+				@NamedAttributeNode("disease3") },
+		subgraphs = @NamedSubgraph(name = "patient", attributeNodes = @NamedAttributeNode("patientConsensus")))
+@NamedEntityGraph(name = Opd.GRAPH_DETAIL,
+		attributeNodes = {
+				@NamedAttributeNode("ward"),
+				@NamedAttributeNode(value = "patient", subgraph = "patient"),
+				@NamedAttributeNode("disease"),
+				@NamedAttributeNode("disease2"),
+				@NamedAttributeNode("disease3"),
+				@NamedAttributeNode("nextVisit") },
+		subgraphs = @NamedSubgraph(name = "patient", attributeNodes = @NamedAttributeNode("patientConsensus")))
 @EntityListeners(AuditingEntityListener.class)
 @AttributeOverride(name = "createdBy", column = @Column(name = "OPD_CREATED_BY", updatable = false))
 @AttributeOverride(name = "createdDate", column = @Column(name = "OPD_CREATED_DATE", updatable = false))
@@ -57,13 +77,19 @@ import com.drew.lang.annotations.Nullable;
 @AttributeOverride(name = "lastModifiedDate", column = @Column(name = "OPD_LAST_MODIFIED_DATE"))
 public class Opd extends Auditable<String> {
 
+	/** Entity graph with the associations shown when browsing OPDs. */
+	public static final String GRAPH_LIST = "Opd.list";
+
+	/** Entity graph that adds the scheduled next visit, for the OPD form and the visits listed in the patient history. */
+	public static final String GRAPH_DETAIL = "Opd.detail";
+
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name="OPD_ID") 
 	private int code;
 	
 	@NotNull
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "OPD_WRD_ID_A")
 	private Ward ward;
 
@@ -71,7 +97,7 @@ public class Opd extends Auditable<String> {
 	@Column(name="OPD_DATE") // SQL type: datetime
 	private LocalDateTime date;
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name="OPD_PAT_ID")
 	private Patient patient;
 
@@ -91,15 +117,15 @@ public class Opd extends Auditable<String> {
 	@Column(name="OPD_PROG_YEAR")	
 	private int prog_year;
 
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name="OPD_DIS_ID_A")
 	private Disease disease;
 	
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name="OPD_DIS_ID_A_2")
 	private Disease disease2;
 	
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name="OPD_DIS_ID_A_3")
 	private Disease disease3;
 
@@ -117,7 +143,7 @@ public class Opd extends Auditable<String> {
 	@Column(name="OPD_USR_ID_A")
 	private String userID;
 	
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "OPD_NEXT_VISIT_ID")
 	private Visit nextVisit;
 
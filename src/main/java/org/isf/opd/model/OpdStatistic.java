@@ -0,0 +1,236 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.opd.model;
+
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+
+import org.isf.utils.db.OHGeneratedValue;
+
+/**
+ * Number of {@link Opd} visits of an ISO week (starting on Monday) for one combination of ward, disease, disease type,
+ * {@link org.isf.agetype.model.AgeType} bucket, sex and new/returning patient.
+ * <p>
+ * Only the main disease of each visit is counted. Missing disease or age type codes are stored as an empty string.
+ */
+@Entity
+@Table(name = "OH_OPDSTATISTIC", uniqueConstraints = @UniqueConstraint(name = "OST_KEY_UNIQUE",
+		columnNames = { "OST_WEEK", "OST_WRD_ID_A", "OST_DIS_ID_A", "OST_DCL_ID_A", "OST_AGE_TYPE", "OST_SEX", "OST_NEW_PAT" }))
+public class OpdStatistic {
+
+	@Id
+	// statistics are also added with INSERT ... ON DUPLICATE KEY statements relying on the IDENTITY column
+	@OHGeneratedValue(poolable = false)
+	@Column(name = "OST_ID")
+	private int id;
+
+	@NotNull
+	@Column(name = "OST_WEEK")
+	private LocalDate weekStart;
+
+	@NotNull
+	@Column(name = "OST_WRD_ID_A")
+	private String wardCode;
+
+	@NotNull
+	@Column(name = "OST_DIS_ID_A")
+	private String diseaseCode;
+
+	@NotNull
+	@Column(name = "OST_DCL_ID_A")
+	private String diseaseTypeCode;
+
+	@NotNull
+	@Column(name = "OST_AGE_TYPE")
+	private String ageType;
+
+	@NotNull
+	@Column(name = "OST_SEX")
+	private char sex;
+
+	@NotNull
+	@Column(name = "OST_NEW_PAT")
+	private char newPatient;
+
+	@NotNull
+	@Column(name = "OST_COUNT")
+	private long count;
+
+	@Transient
+	private volatile int hashCode;
+
+	public OpdStatistic() {
+		super();
+	}
+
+	public OpdStatistic(LocalDate weekStart, String wardCode, String diseaseCode, String diseaseTypeCode, String ageType, char sex, char newPatient,
+			long count) {
+		super();
+		this.weekStart = weekStart;
+		this.wardCode = wardCode;
+		this.diseaseCode = diseaseCode;
+		this.diseaseTypeCode = diseaseTypeCode;
+		this.ageType = ageType;
+		this.sex = sex;
+		this.newPatient = newPatient;
+		this.count = count;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
+	public LocalDate getWeekStart() {
+		return weekStart;
+	}
+
+	public void setWeekStart(LocalDate weekStart) {
+		this.weekStart = weekStart;
+	}
+
+	/**
+	 * @return the ISO-8601 week-based year of the week
+	 */
+	public int getIsoYear() {
+		return weekStart.get(IsoFields.WEEK_BASED_YEAR);
+	}
+
+	/**
+	 * @return the ISO-8601 week number of the week
+	 */
+	public int getIsoWeek() {
+		return weekStart.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+	}
+
+	public String getWardCode() {
+		return wardCode;
+	}
+
+	public void setWardCode(String wardCode) {
+		this.wardCode = wardCode;
+	}
+
+	public String getDiseaseCode() {
+		return diseaseCode;
+	}
+
+	public void setDiseaseCode(String diseaseCode) {
+		this.diseaseCode = diseaseCode;
+	}
+
+	public String getDiseaseTypeCode() {
+		return diseaseTypeCode;
+	}
+
+	public void setDiseaseTypeCode(String diseaseTypeCode) {
+		this.diseaseTypeCode = diseaseTypeCode;
+	}
+
+	public String getAgeType() {
+		return ageType;
+	}
+
+	public void setAgeType(String ageType) {
+		this.ageType = ageType;
+	}
+
+	public char getSex() {
+		return sex;
+	}
+
+	public void setSex(char sex) {
+		this.sex = sex;
+	}
+
+	public char getNewPatient() {
+		return newPatient;
+	}
+
+	public void setNewPatient(char newPatient) {
+		this.newPatient = newPatient;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+	/**
+	 * @param other - another {@link OpdStatistic}
+	 * @return {@code true} if both statistics count the same week and combination of attributes
+	 */
+	public boolean hasSameKey(OpdStatistic other) {
+		return weekStart.equals(other.weekStart)
+				&& wardCode.equals(other.wardCode)
+				&& diseaseCode.equals(other.diseaseCode)
+				&& diseaseTypeCode.equals(other.diseaseTypeCode)
+				&& ageType.equals(other.ageType)
+				&& sex == other.sex
+				&& newPatient == other.newPatient;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof OpdStatistic)) {
+			return false;
+		}
+		OpdStatistic statistic = (OpdStatistic) obj;
+		return id == statistic.getId();
+	}
+
+	@Override
+	public int hashCode() {
+		if (this.hashCode == 0) {
+			final int m = 23;
+			int c = 133;
+
+			c = m * c + id;
+
+			this.hashCode = c;
+		}
+		return this.hashCode;
+	}
+
+	@Override
+	public String toString() {
+		return weekStart + " " + wardCode + " " + diseaseCode + " " + ageType + " " + sex + " " + newPatient + ": " + count;
+	}
+
+}
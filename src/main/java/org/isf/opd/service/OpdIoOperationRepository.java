@@ -23,24 +23,35 @@ package org.isf.opd.service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
 import org.isf.distype.model.DiseaseType;
 import org.isf.opd.model.Opd;
 import org.isf.patient.model.Patient;
 import org.isf.ward.model.Ward;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface OpdIoOperationRepository extends JpaRepository<Opd, Integer>, OpdIoOperationRepositoryCustom {
 
+	@EntityGraph(value = Opd.GRAPH_DETAIL, type = EntityGraphType.LOAD)
 	Opd findOneByPatientAndNextVisitDate(Patient patient, LocalDateTime visitDate);
 
+	@EntityGraph(value = Opd.GRAPH_LIST, type = EntityGraphType.LOAD)
 	@Query("select o from Opd o order by o.prog_year")
 	List<Opd> findAllOrderByProgYearDesc();
 
+	@EntityGraph(value = Opd.GRAPH_DETAIL, type = EntityGraphType.LOAD)
 	@Query("select o from Opd o where o.patient.code = :code order by o.prog_year")
 	List<Opd> findAllByPatient_CodeOrderByProgYearDesc(@Param("code") Integer code);
 
@@ -50,27 +61,38 @@ public interface OpdIoOperationRepository extends JpaRepository<Opd, Integer>, O
 	@Query(value = "select max(o.prog_year) from Opd o where o.date >= :dateFrom and o.date < :dateTo")
 	Integer findMaxProgYearWhereDateBetween(@Param("dateFrom") LocalDateTime dateFrom, @Param("dateTo") LocalDateTime dateTo);
 
+	@EntityGraph(value = Opd.GRAPH_DETAIL, type = EntityGraphType.LOAD)
 	List<Opd> findTop1ByPatient_CodeOrderByDateDesc(Integer code);
 
+	@EntityGraph(value = Opd.GRAPH_LIST, type = EntityGraphType.LOAD)
 	@Query("select o from Opd o where o.prog_year = :prog_year")
 	List<Opd> findByProgYear(@Param("prog_year") Integer prog_year);
 
-	@Query(value = "select op from Opd op where op.prog_year = :prog_year and op.date >= :dateVisitFrom and op.date < :dateVisitTo")
-	List<Opd> findByProgYearAndDateBetween(@Param("prog_year") Integer prog_year, @Param("dateVisitFrom") LocalDateTime dateVisitFrom,
+	@Query(value = "SELECT OPD_ID FROM OH_OPD WHERE OPD_PROG_YEAR = :prog_year LIMIT 1", nativeQuery = true)
+	Integer findFirstIdByProgYear(@Param("prog_year") Integer prog_year);
+
+	@Query(value = "SELECT OPD_ID FROM OH_OPD WHERE OPD_PROG_YEAR = :prog_year AND OPD_DATE >= :dateVisitFrom AND OPD_DATE < :dateVisitTo LIMIT 1",
+					nativeQuery = true)
+	Integer findFirstIdByProgYearAndDateBetween(@Param("prog_year") Integer prog_year, @Param("dateVisitFrom") LocalDateTime dateVisitFrom,
 					@Param("dateVisitTo") LocalDateTime dateVisitTo);
 
+	@EntityGraph(value = Opd.GRAPH_LIST, type = EntityGraphType.LOAD)
 	@Query("select o from Opd o order by o.prog_year")
 	Page<Opd> findAllOrderByProgYearDescPageable(Pageable pageable);
 
+	@EntityGraph(value = Opd.GRAPH_LIST, type = EntityGraphType.LOAD)
 	@Query("select o from Opd o where o.ward = :ward order by o.prog_year")
 	Page<Opd> findAllByWardOrderByProgYearDescPageable(@Param("ward") Ward ward, Pageable pageable);
 
+	@EntityGraph(value = Opd.GRAPH_DETAIL, type = EntityGraphType.LOAD)
 	@Query("select o from Opd o where o.patient.code = :code order by o.prog_year")
 	Page<Opd> findAllByPatient_CodeOrderByProgYearDescPageable(@Param("code") Integer code, Pageable pageable);
 
+	@EntityGraph(value = Opd.GRAPH_DETAIL, type = EntityGraphType.LOAD)
 	@Query("select o from Opd o where o.patient.code = :code and o.ward = :ward order by o.prog_year")
 	Page<Opd> findAllByPatient_CodeAndWardOrderByProgYearDescPageable(@Param("code") int code, @Param("ward") Ward ward, Pageable pageable);
 
+	@EntityGraph(value = Opd.GRAPH_LIST, type = EntityGraphType.LOAD)
 	@Query(value = "select op from Opd op where op.ward = :ward or op.disease.diseaseType = :diseaseType or op.disease.code = :diseaseCode or (op.date >= :dateFrom and op.date < :dateTo) "
 					+ " or (op.age >= :ageFrom and op.age < :ageTo) or op.sex = :sex or op.newPatient = :newPatient")
 	Page<Opd> findOpdListPageable(@Param("ward") Ward ward, @Param("diseaseType") DiseaseType diseaseType, @Param("diseaseCode") String diseaseCode,
@@ -83,4 +105,33 @@ public interface OpdIoOperationRepository extends JpaRepository<Opd, Integer>, O
 
 	@Query("select count(o) from Opd o where active=1")
 	long countAllActiveOpds();
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query(value = "update Opd o set o.patient = :mergedPatient, o.sex = :sex where o.patient = :obsoletePatient")
+	int updatePatient(@Param("obsoletePatient") Patient obsoletePatient, @Param("mergedPatient") Patient mergedPatient, @Param("sex") char sex);
+
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+	@Query(value = "select o.date, o.ward.code, d.code, dt.code, o.age, o.sex, o.newPatient from Opd o left join o.disease d left join d.diseaseType dt "
+					+ "where o.code = :code")
+	List<Object[]> findStatisticKeyByCode(@Param("code") int code);
+
+	@Query(value = "select o.date, o.ward.code, d.code, dt.code, o.age, o.sex, o.newPatient from Opd o left join o.disease d left join d.diseaseType dt "
+					+ "where o.date >= :dateFrom and o.date < :dateTo")
+	List<Object[]> findStatisticKeysWhereDateBetween(@Param("dateFrom") LocalDateTime dateFrom, @Param("dateTo") LocalDateTime dateTo);
+
+	@Query(value = "select o.date, o.ward.code, d.code, dt.code, o.age, o.sex, o.newPatient from Opd o left join o.disease d left join d.diseaseType dt "
+					+ "where o.patient.code = :patientCode")
+	List<Object[]> findStatisticKeysByPatient_Code(@Param("patientCode") int patientCode);
+
+	@Query(value = "SELECT o.OPD_DATE, o.OPD_WRD_ID_A, o.OPD_DIS_ID_A, d.DIS_DCL_ID_A, o.OPD_AGE, o.OPD_SEX, o.OPD_NEW_PAT FROM OH_OPD_ARCHIVE o "
+					+ "LEFT JOIN OH_DISEASE d ON d.DIS_ID_A = o.OPD_DIS_ID_A WHERE o.OPD_DATE >= :dateFrom AND o.OPD_DATE < :dateTo", nativeQuery = true)
+	List<Object[]> findArchivedStatisticKeysWhereDateBetween(@Param("dateFrom") LocalDateTime dateFrom, @Param("dateTo") LocalDateTime dateTo);
+
+	@Query(value = "SELECT o.OPD_DATE, o.OPD_WRD_ID_A, o.OPD_DIS_ID_A, d.DIS_DCL_ID_A, o.OPD_AGE, o.OPD_SEX, o.OPD_NEW_PAT FROM OH_OPD_ARCHIVE o "
+					+ "LEFT JOIN OH_DISEASE d ON d.DIS_ID_A = o.OPD_DIS_ID_A WHERE o.OPD_PAT_ID = :patientCode", nativeQuery = true)
+	List<Object[]> findArchivedStatisticKeysByPatient_Code(@Param("patientCode") int patientCode);
+
+	@Override
+	@EntityGraph(value = Opd.GRAPH_DETAIL, type = EntityGraphType.LOAD)
+	Optional<Opd> findById(Integer code);
 }
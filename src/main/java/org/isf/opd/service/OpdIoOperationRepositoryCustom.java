@@ -25,6 +25,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 import org.isf.opd.model.Opd;
+import org.isf.utils.pagination.KeysetCursor;
 import org.isf.ward.model.Ward;
 
 public interface OpdIoOperationRepositoryCustom {
@@ -32,4 +33,14 @@ public interface OpdIoOperationRepositoryCustom {
 	List<Opd> findAllOpdWhereParams(Ward ward, String diseaseTypeCode, String diseaseCode, LocalDate dateFrom, LocalDate dateTo, int ageFrom, int ageTo, char sex,
 			char newPatient, String user);
 
+	/**
+	 * Returns up to {@code limit} {@link Opd}s matching the parameters after (or before) the given cursor, ordered by date and code descending
+	 * (ascending for a previous page cursor).
+	 */
+	List<Opd> findOpdPageWhereParams(Ward ward, String diseaseTypeCode, String diseaseCode, LocalDate dateFrom, LocalDate dateTo, int ageFrom, int ageTo,
+			char sex, char newPatient, String user, KeysetCursor cursor, int limit);
+
+	long countOpdWhereParams(Ward ward, String diseaseTypeCode, String diseaseCode, LocalDate dateFrom, LocalDate dateTo, int ageFrom, int ageTo, char sex,
+			char newPatient, String user);
+
 }
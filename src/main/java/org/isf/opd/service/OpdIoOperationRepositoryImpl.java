@@ -31,10 +31,13 @@ import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 
+import org.hibernate.jpa.SpecHints;
 import org.isf.opd.model.Opd;
+import org.isf.utils.pagination.KeysetCursor;
 import org.isf.ward.model.Ward;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -60,6 +63,63 @@ public class OpdIoOperationRepositoryImpl implements OpdIoOperationRepositoryCus
 		return getOpdQuery(ward, diseaseTypeCode, diseaseCode, dateFrom, dateTo, ageFrom, ageTo, sex, newPatient, user).getResultList();
 	}	
 
+	@Override
+	public List<Opd> findOpdPageWhereParams(
+			Ward ward,
+			String diseaseTypeCode,
+			String diseaseCode,
+			LocalDate dateFrom,
+			LocalDate dateTo,
+			int ageFrom,
+			int ageTo,
+			char sex,
+			char newPatient,
+			String user,
+			KeysetCursor cursor,
+			int limit) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Opd> query = cb.createQuery(Opd.class);
+		Root<Opd> opd = query.from(Opd.class);
+		List<Predicate> predicates = getOpdPredicates(cb, opd, ward, diseaseTypeCode, diseaseCode, dateFrom, dateTo, ageFrom, ageTo, sex, newPatient, user);
+		Path<LocalDateTime> date = opd.get("date");
+		Path<Integer> code = opd.get("code");
+		boolean forward = cursor == null || cursor.isNext();
+		if (cursor != null) {
+			predicates.add(forward
+					? cb.or(cb.lessThan(date, cursor.getDate()), cb.and(cb.equal(date, cursor.getDate()), cb.lessThan(code, cursor.getCode())))
+					: cb.or(cb.greaterThan(date, cursor.getDate()), cb.and(cb.equal(date, cursor.getDate()), cb.greaterThan(code, cursor.getCode()))));
+		}
+		query.select(opd)
+				.where(cb.and(predicates.toArray(new Predicate[0])))
+				.orderBy(forward ? List.of(cb.desc(date), cb.desc(code)) : List.of(cb.asc(date), cb.asc(code)));
+
+		return entityManager.createQuery(query)
+				.setHint(SpecHints.HINT_SPEC_LOAD_GRAPH, entityManager.getEntityGraph(Opd.GRAPH_LIST))
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	@Override
+	public long countOpdWhereParams(
+			Ward ward,
+			String diseaseTypeCode,
+			String diseaseCode,
+			LocalDate dateFrom,
+			LocalDate dateTo,
+			int ageFrom,
+			int ageTo,
+			char sex,
+			char newPatient,
+			String user) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<Opd> opd = query.from(Opd.class);
+		List<Predicate> predicates = getOpdPredicates(cb, opd, ward, diseaseTypeCode, diseaseCode, dateFrom, dateTo, ageFrom, ageTo, sex, newPatient, user);
+		query.select(cb.count(opd)).where(cb.and(predicates.toArray(new Predicate[0])));
+
+		return entityManager.createQuery(query).getSingleResult();
+	}
+
 	private TypedQuery<Opd> getOpdQuery(
 			Ward ward, 
 			String diseaseTypeCode,
@@ -74,9 +134,29 @@ public class OpdIoOperationRepositoryImpl implements OpdIoOperationRepositoryCus
 		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
 		CriteriaQuery<Opd> query = cb.createQuery(Opd.class);
 		Root<Opd> opd = query.from(Opd.class);
-		List<Predicate> predicates = new ArrayList<>();
+		List<Predicate> predicates = getOpdPredicates(cb, opd, ward, diseaseTypeCode, diseaseCode, dateFrom, dateTo, ageFrom, ageTo, sex, newPatient, user);
 
 		query.select(opd);
+		query.where(cb.and(predicates.toArray(new Predicate[0])));
+
+		return entityManager.createQuery(query).setHint(SpecHints.HINT_SPEC_LOAD_GRAPH, entityManager.getEntityGraph(Opd.GRAPH_LIST));
+	}
+
+	private List<Predicate> getOpdPredicates(
+			CriteriaBuilder cb,
+			Root<Opd> opd,
+			Ward ward,
+			String diseaseTypeCode,
+			String diseaseCode,
+			LocalDate dateFrom,
+			LocalDate dateTo,
+			int ageFrom,
+			int ageTo,
+			char sex,
+			char newPatient,
+			String user) {
+		List<Predicate> predicates = new ArrayList<>();
+
 		if (ward != null) {
 			predicates.add(
 					cb.equal(opd.join("ward").get("code"), ward.getCode())
@@ -115,9 +195,7 @@ public class OpdIoOperationRepositoryImpl implements OpdIoOperationRepositoryCus
 		predicates.add(
 				cb.between(opd.<LocalDateTime>get("date"), dateFrom.atStartOfDay(), dateTo.plusDays(1).atStartOfDay())
 		);
-		query.where(cb.and(predicates.toArray(new Predicate[0])));
-
-		return entityManager.createQuery(query);
+		return predicates;
 	}
 
 }
@@ -23,13 +23,22 @@ package org.isf.opd.service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import org.isf.archive.model.ArchiveTable;
+import org.isf.archive.service.ArchiveIoOperations;
 import org.isf.generaldata.MessageBundle;
 import org.isf.opd.model.Opd;
+import org.isf.opd.model.OpdStatistic;
+import org.isf.patient.model.Patient;
+import org.isf.utils.db.EntityGraphInitializer;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.pagination.KeysetCursor;
 import org.isf.utils.pagination.PageInfo;
 import org.isf.utils.pagination.PagedResponse;
 import org.isf.ward.model.Ward;
@@ -47,8 +56,18 @@ public class OpdIoOperations {
 
 	private OpdIoOperationRepository repository;
 
-	public OpdIoOperations(OpdIoOperationRepository opdIoOperationRepository) {
+	private OpdStatisticIoOperations statisticIoOperations;
+
+	private ArchiveIoOperations archiveIoOperations;
+
+	private EntityGraphInitializer entityGraphInitializer;
+
+	public OpdIoOperations(OpdIoOperationRepository opdIoOperationRepository, OpdStatisticIoOperations opdStatisticIoOperations,
+			ArchiveIoOperations archiveIoOperations, EntityGraphInitializer entityGraphInitializer) {
 		this.repository = opdIoOperationRepository;
+		this.statisticIoOperations = opdStatisticIoOperations;
+		this.archiveIoOperations = archiveIoOperations;
+		this.entityGraphInitializer = entityGraphInitializer;
 	}
 
 	/**
@@ -120,12 +139,17 @@ public class OpdIoOperations {
 	 * Return all {@link Opd}s associated to specified patient ID.
 	 * 
 	 * @param patID - the patient ID
-	 * @return the list of {@link Opd}s associated to specified patient ID.
+	 * @return the list of {@link Opd}s associated to specified patient ID, archived ones included.
 	 * 		   the whole list of {@link Opd}s if {@code 0} is passed.
 	 * @throws OHServiceException 
 	 */
 	public List<Opd> getOpdList(int patID) throws OHServiceException {
-		return patID == 0 ? repository.findAllOrderByProgYearDesc() : repository.findAllByPatient_CodeOrderByProgYearDesc(patID);
+		if (patID == 0) {
+			return repository.findAllOrderByProgYearDesc();
+		}
+		List<Opd> archived = archiveIoOperations.getArchived(ArchiveTable.OPD, Opd.class, Opd.GRAPH_DETAIL, null, "OPD_PAT_ID = :code",
+				Map.of("code", patID));
+		return ArchiveIoOperations.union(repository.findAllByPatient_CodeOrderByProgYearDesc(patID), archived, Comparator.comparing(Opd::getProgYear));
 	}
 
 	/**
@@ -136,7 +160,9 @@ public class OpdIoOperations {
 	 * @throws OHServiceException 
 	 */
 	public Opd newOpd(Opd opd) throws OHServiceException {
-		return repository.save(opd);
+		Opd savedOpd = save(opd);
+		statisticIoOperations.move(null, statisticIoOperations.getKey(savedOpd));
+		return savedOpd;
 	}
 
 	/**
@@ -147,7 +173,10 @@ public class OpdIoOperations {
 	 * @throws OHServiceException 
 	 */
 	public Opd updateOpd(Opd opd) throws OHServiceException {
-		return repository.save(opd);
+		OpdStatistic oldKey = statisticIoOperations.getStoredKey(opd.getCode());
+		Opd savedOpd = save(opd);
+		statisticIoOperations.move(oldKey, statisticIoOperations.getKey(savedOpd));
+		return savedOpd;
 	}
 
 	/**
@@ -157,7 +186,9 @@ public class OpdIoOperations {
 	 * @throws OHServiceException
 	 */
 	public void deleteOpd(Opd opd) throws OHServiceException {
+		OpdStatistic oldKey = statisticIoOperations.getStoredKey(opd.getCode());
 		repository.delete(opd);
+		statisticIoOperations.move(oldKey, null);
 	}
 
 	/**
@@ -205,9 +236,20 @@ public class OpdIoOperations {
 	 * @throws OHServiceException
 	 */
 	public boolean isExistOpdNum(int opdNum, int year) throws OHServiceException {
-		List<Opd> opds = year == 0 ? repository.findByProgYear(opdNum)
-						: repository.findByProgYearAndDateBetween(opdNum, LocalDateTime.of(year, 1, 1, 0, 0), LocalDateTime.of(year + 1, 1, 1, 0, 0));
-		return !opds.isEmpty();
+		// archived visits keep their number, which must not be issued again
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("opdNum", opdNum);
+		if (year == 0) {
+			return repository.findFirstIdByProgYear(opdNum) != null
+					|| archiveIoOperations.existsArchived(ArchiveTable.OPD, null, "OPD_PROG_YEAR = :opdNum", parameters);
+		}
+		LocalDateTime dateFrom = LocalDateTime.of(year, 1, 1, 0, 0);
+		LocalDateTime dateTo = LocalDateTime.of(year + 1, 1, 1, 0, 0);
+		parameters.put("dateFrom", dateFrom);
+		parameters.put("dateTo", dateTo);
+		return repository.findFirstIdByProgYearAndDateBetween(opdNum, dateFrom, dateTo) != null
+				|| archiveIoOperations.existsArchived(ArchiveTable.OPD, dateFrom, "OPD_PROG_YEAR = :opdNum AND OPD_DATE >= :dateFrom AND OPD_DATE < :dateTo",
+						parameters);
 	}
 
 	/**
@@ -267,10 +309,69 @@ public class OpdIoOperations {
 		return setPaginationData(new PageImpl<>(pageContent, pageRequest, ops.size()));
 	}
 
+	/**
+	 * Retrieves a page of {@link Opd}s within specified dates and parameters, ordered by date descending, using keyset pagination.
+	 * 
+	 * @param ward
+	 * @param diseaseTypeCode
+	 * @param diseaseCode
+	 * @param dateFrom
+	 * @param dateTo
+	 * @param ageFrom
+	 * @param ageTo
+	 * @param sex
+	 * @param newPatient
+	 * @param cursor - the cursor returned with the previous response or {@code null} for the first page
+	 * @param size
+	 * @param countTotal - if {@code true} the matching {@link Opd}s are counted, otherwise the total is {@code -1}
+	 * @return a {@link PagedResponse} object that contains the {@link Opd}s and the cursors of the adjacent pages.
+	 * @throws OHServiceException 
+	 */
+	public PagedResponse<Opd> getOpdListPageable(
+					Ward ward,
+					String diseaseTypeCode,
+					String diseaseCode,
+					LocalDate dateFrom,
+					LocalDate dateTo,
+					int ageFrom,
+					int ageTo,
+					char sex,
+					char newPatient,
+					String cursor,
+					int size,
+					boolean countTotal) throws OHServiceException {
+		KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+		List<Opd> opds = repository.findOpdPageWhereParams(ward, diseaseTypeCode, diseaseCode, dateFrom, dateTo, ageFrom, ageTo, sex, newPatient, null,
+						keysetCursor, size + 1);
+		long total = countTotal ? repository.countOpdWhereParams(ward, diseaseTypeCode, diseaseCode, dateFrom, dateTo, ageFrom, ageTo, sex, newPatient, null)
+						: -1;
+		return KeysetCursor.toPagedResponse(opds, size, keysetCursor, Opd::getDate, Opd::getCode, total);
+	}
+
 	PagedResponse<Opd> setPaginationData(Page<Opd> pages) {
 		PagedResponse<Opd> data = new PagedResponse<>();
 		data.setData(pages.getContent());
 		data.setPageInfo(PageInfo.from(pages));
 		return data;
 	}
+
+	/**
+	 * Moves all the {@link Opd}s of the obsolete {@link Patient} to the merged one and rewrites their patient sex, with a single bulk update.
+	 *
+	 * @param obsoletePatient - the {@link Patient} being merged
+	 * @param mergedPatient - the {@link Patient} that keeps the history
+	 * @return the number of updated rows
+	 * @throws OHServiceException
+	 */
+	public int reassignPatient(Patient obsoletePatient, Patient mergedPatient) throws OHServiceException {
+		List<OpdStatistic> oldKeys = statisticIoOperations.getStoredKeys(obsoletePatient.getCode());
+		int updated = repository.updatePatient(obsoletePatient, mergedPatient, mergedPatient.getSex());
+		statisticIoOperations.changeSex(oldKeys, mergedPatient.getSex());
+		return updated;
+	}
+
+	private Opd save(Opd opd) {
+		// a merged OPD refers to uninitialized proxies, which the callers outside a transaction could not read
+		return entityGraphInitializer.initialize(repository.save(opd), Opd.GRAPH_DETAIL);
+	}
 }
@@ -21,9 +21,6 @@
  */
 package org.isf.opd.service;
 
-import java.util.List;
-
-import org.isf.opd.model.Opd;
 import org.isf.patient.model.PatientMergedEvent;
 import org.isf.utils.exception.OHServiceException;
 import org.springframework.context.event.EventListener;
@@ -42,10 +39,8 @@ public class OpdPatientMergedEventListener {
 	@EventListener
 	@Transactional
 	public void handle(PatientMergedEvent patientMergedEvent) throws OHServiceException {
-		List<Opd> opds = opdIoOperations.getOpdList(patientMergedEvent.getObsoletePatient().getCode());
-		for(Opd opd : opds) {
-			opd.setPatient(patientMergedEvent.getMergedPatient());
-		}
+		int rows = opdIoOperations.reassignPatient(patientMergedEvent.getObsoletePatient(), patientMergedEvent.getMergedPatient());
+		patientMergedEvent.addMergedRows("opds", rows);
 	}
 
 }
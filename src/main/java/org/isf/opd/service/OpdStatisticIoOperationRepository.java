@@ -0,0 +1,82 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.opd.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.isf.opd.model.OpdStatistic;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OpdStatisticIoOperationRepository extends JpaRepository<OpdStatistic, Integer> {
+
+	@Modifying(flushAutomatically = true)
+	@Query(value = "UPDATE OpdStatistic S SET S.count = S.count + :delta WHERE S.weekStart = :weekStart AND S.wardCode = :wardCode " +
+			"AND S.diseaseCode = :diseaseCode AND S.diseaseTypeCode = :diseaseTypeCode AND S.ageType = :ageType AND S.sex = :sex " +
+			"AND S.newPatient = :newPatient")
+	int addToKey(@Param("weekStart") LocalDate weekStart, @Param("wardCode") String wardCode, @Param("diseaseCode") String diseaseCode,
+			@Param("diseaseTypeCode") String diseaseTypeCode, @Param("ageType") String ageType, @Param("sex") char sex,
+			@Param("newPatient") char newPatient, @Param("delta") long delta);
+
+	@Modifying(flushAutomatically = true)
+	@Query(value = "INSERT INTO OH_OPDSTATISTIC (OST_WEEK, OST_WRD_ID_A, OST_DIS_ID_A, OST_DCL_ID_A, OST_AGE_TYPE, OST_SEX, OST_NEW_PAT, OST_COUNT) " +
+			"VALUES (:weekStart, :wardCode, :diseaseCode, :diseaseTypeCode, :ageType, :sex, :newPatient, :delta) " +
+			"ON DUPLICATE KEY UPDATE OST_COUNT = OST_COUNT + :delta", nativeQuery = true)
+	int insertOrAddToKey(@Param("weekStart") LocalDate weekStart, @Param("wardCode") String wardCode, @Param("diseaseCode") String diseaseCode,
+			@Param("diseaseTypeCode") String diseaseTypeCode, @Param("ageType") String ageType, @Param("sex") char sex,
+			@Param("newPatient") char newPatient, @Param("delta") long delta);
+
+	@Modifying(flushAutomatically = true)
+	@Query(value = "DELETE FROM OpdStatistic S WHERE S.weekStart = :weekStart AND S.wardCode = :wardCode AND S.diseaseCode = :diseaseCode " +
+			"AND S.diseaseTypeCode = :diseaseTypeCode AND S.ageType = :ageType AND S.sex = :sex AND S.newPatient = :newPatient AND S.count <= 0")
+	int deleteEmptyKey(@Param("weekStart") LocalDate weekStart, @Param("wardCode") String wardCode, @Param("diseaseCode") String diseaseCode,
+			@Param("diseaseTypeCode") String diseaseTypeCode, @Param("ageType") String ageType, @Param("sex") char sex,
+			@Param("newPatient") char newPatient);
+
+	List<OpdStatistic> findByWeekStartBetween(LocalDate weekFrom, LocalDate weekTo);
+
+	@Query(value = "SELECT new org.isf.opd.model.OpdStatistic(S.weekStart, S.wardCode, S.diseaseCode, S.diseaseTypeCode, S.ageType, S.sex, " +
+			"S.newPatient, S.count) FROM OpdStatistic S WHERE S.weekStart BETWEEN :weekFrom AND :weekTo " +
+			"AND (:wardCode IS NULL OR S.wardCode = :wardCode) " +
+			"AND (:diseaseTypeCode IS NULL OR S.diseaseTypeCode = :diseaseTypeCode) " +
+			"AND (:diseaseCode IS NULL OR S.diseaseCode = :diseaseCode) " +
+			"AND (:ageType IS NULL OR S.ageType = :ageType) " +
+			"AND (:sex IS NULL OR S.sex = :sex) " +
+			"AND (:newPatient IS NULL OR S.newPatient = :newPatient) " +
+			"ORDER BY S.weekStart, S.wardCode, S.diseaseCode, S.ageType, S.sex, S.newPatient")
+	List<OpdStatistic> findWhereParams(@Param("weekFrom") LocalDate weekFrom, @Param("weekTo") LocalDate weekTo, @Param("wardCode") String wardCode,
+			@Param("diseaseTypeCode") String diseaseTypeCode, @Param("diseaseCode") String diseaseCode, @Param("ageType") String ageType,
+			@Param("sex") Character sex, @Param("newPatient") Character newPatient);
+
+	@Query(value = "SELECT new org.isf.opd.model.OpdStatistic(MIN(S.weekStart), '', S.diseaseCode, S.diseaseTypeCode, S.ageType, S.sex, S.newPatient, " +
+			"SUM(S.count)) FROM OpdStatistic S WHERE S.weekStart BETWEEN :weekFrom AND :weekTo " +
+			"AND (:wardCode IS NULL OR S.wardCode = :wardCode) " +
+			"GROUP BY S.diseaseCode, S.diseaseTypeCode, S.ageType, S.sex, S.newPatient " +
+			"ORDER BY S.diseaseCode, S.ageType, S.sex, S.newPatient")
+	List<OpdStatistic> sumWhereParams(@Param("weekFrom") LocalDate weekFrom, @Param("weekTo") LocalDate weekTo, @Param("wardCode") String wardCode);
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.opd.service;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.isf.agetype.model.AgeType;
+import org.isf.agetype.service.AgeTypeIoOperations;
+import org.isf.archive.model.ArchiveTable;
+import org.isf.archive.service.ArchiveIoOperations;
+import org.isf.opd.model.Opd;
+import org.isf.opd.model.OpdStatistic;
+import org.isf.utils.db.TranslateOHServiceException;
+import org.isf.utils.exception.OHServiceException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Maintains the {@link OpdStatistic} table: every insert, update or delete of an {@link Opd} moves one unit between the weekly rows, so that
+ * epidemiological reports only read the aggregated rows. Archived {@link Opd}s stay counted.
+ */
+@Service
+@Transactional(rollbackFor = OHServiceException.class)
+@TranslateOHServiceException
+public class OpdStatisticIoOperations {
+
+	private static final int REBUILD_CHUNK_WEEKS = 4;
+
+	private OpdStatisticIoOperationRepository repository;
+
+	private OpdIoOperationRepository opdRepository;
+
+	private AgeTypeIoOperations ageTypeIoOperations;
+
+	private ArchiveIoOperations archiveIoOperations;
+
+	public OpdStatisticIoOperations(OpdStatisticIoOperationRepository opdStatisticIoOperationRepository, OpdIoOperationRepository opdIoOperationRepository,
+			AgeTypeIoOperations ageTypeIoOperations, ArchiveIoOperations archiveIoOperations) {
+		this.repository = opdStatisticIoOperationRepository;
+		this.opdRepository = opdIoOperationRepository;
+		this.ageTypeIoOperations = ageTypeIoOperations;
+		this.archiveIoOperations = archiveIoOperations;
+	}
+
+	/**
+	 * Returns the weekly rows of the weeks overlapping the specified date range; {@code null} filters match everything.
+	 * @param dateFrom the low date range endpoint, inclusive.
+	 * @param dateTo the high date range endpoint, inclusive.
+	 * @param wardCode the ward code or {@code null}.
+	 * @param diseaseTypeCode the disease type code or {@code null}.
+	 * @param diseaseCode the disease code or {@code null}.
+	 * @param ageType the age type code or {@code null}.
+	 * @param sex the sex or {@code null}.
+	 * @param newPatient {@code 'N'} for new patients, {@code 'R'} for reattendances or {@code null}.
+	 * @return the list of {@link OpdStatistic}s ordered by week.
+	 * @throws OHServiceException if an error occurs retrieving the statistics.
+	 */
+	public List<OpdStatistic> getOpdStatistics(LocalDate dateFrom, LocalDate dateTo, String wardCode, String diseaseTypeCode, String diseaseCode,
+			String ageType, Character sex, Character newPatient) throws OHServiceException {
+		return repository.findWhereParams(weekStart(dateFrom), weekStart(dateTo), wardCode, diseaseTypeCode, diseaseCode, ageType, sex, newPatient);
+	}
+
+	/**
+	 * Returns the totals of each disease, age type, sex and new/returning combination over the weeks overlapping the specified date range; the
+	 * returned rows have no ward and the first week of the range as week.
+	 * @param dateFrom the low date range endpoint, inclusive.
+	 * @param dateTo the high date range endpoint, inclusive.
+	 * @param wardCode the ward code or {@code null} for all wards.
+	 * @return the list of {@link OpdStatistic}s ordered by disease.
+	 * @throws OHServiceException if an error occurs retrieving the statistics.
+	 */
+	public List<OpdStatistic> getOpdStatisticTotals(LocalDate dateFrom, LocalDate dateTo, String wardCode) throws OHServiceException {
+		return repository.sumWhereParams(weekStart(dateFrom), weekStart(dateTo), wardCode);
+	}
+
+	/**
+	 * Returns the key under which the specified {@link Opd} is currently stored in the db, before any pending change is applied.
+	 * @param code the {@link Opd} code.
+	 * @return the key, with a count of {@code 1}, or {@code null} if the {@link Opd} is not stored.
+	 * @throws OHServiceException if an error occurs retrieving the {@link Opd}.
+	 */
+	public OpdStatistic getStoredKey(int code) throws OHServiceException {
+		List<Object[]> rows = opdRepository.findStatisticKeyByCode(code);
+		return rows.isEmpty() ? null : toKey(rows.get(0), ageTypeIoOperations.getAgeType());
+	}
+
+	/**
+	 * Returns the keys under which the {@link Opd}s of the specified patient are currently stored in the db.
+	 * @param patientCode the patient code.
+	 * @return the list of keys, each with a count of {@code 1}.
+	 * @throws OHServiceException if an error occurs retrieving the {@link Opd}s.
+	 */
+	public List<OpdStatistic> getStoredKeys(int patientCode) throws OHServiceException {
+		List<AgeType> ageTypes = ageTypeIoOperations.getAgeType();
+		return opdRepository.findStatisticKeysByPatient_Code(patientCode).stream().map(row -> toKey(row, ageTypes)).toList();
+	}
+
+	/**
+	 * Returns the keys under which the archived {@link Opd}s of the specified patient are counted.
+	 * @param patientCode the patient code.
+	 * @return the list of keys, each with a count of {@code 1}.
+	 * @throws OHServiceException if an error occurs retrieving the {@link Opd}s.
+	 */
+	public List<OpdStatistic> getArchivedKeys(int patientCode) throws OHServiceException {
+		if (!archiveIoOperations.hasArchiveTables(ArchiveTable.OPD)) {
+			return new ArrayList<>();
+		}
+		List<Object[]> rows = opdRepository.findArchivedStatisticKeysByPatient_Code(patientCode);
+		if (rows.isEmpty()) {
+			return new ArrayList<>();
+		}
+		List<AgeType> ageTypes = ageTypeIoOperations.getAgeType();
+		return rows.stream().map(row -> toKey(row, ageTypes)).toList();
+	}
+
+	/**
+	 * Returns the key under which the specified {@link Opd} is counted.
+	 * @param opd the {@link Opd}.
+	 * @return the key, with a count of {@code 1}.
+	 * @throws OHServiceException if an error occurs retrieving the age types.
+	 */
+	public OpdStatistic getKey(Opd opd) throws OHServiceException {
+		String diseaseCode = opd.getDisease() == null ? null : opd.getDisease().getCode();
+		String diseaseTypeCode = opd.getDisease() == null || opd.getDisease().getType() == null ? null : opd.getDisease().getType().getCode();
+		return toKey(new Object[] { opd.getDate(), opd.getWard().getCode(), diseaseCode, diseaseTypeCode, opd.getAge(), opd.getSex(), opd.getNewPatient() },
+				ageTypeIoOperations.getAgeType());
+	}
+
+	/**
+	 * Moves one unit from the {@code oldKey} row to the {@code newKey} row; nothing is written if both keys are the same.
+	 * @param oldKey the key to decrement or {@code null}.
+	 * @param newKey the key to increment or {@code null}.
+	 * @throws OHServiceException if an error occurs storing the statistics.
+	 */
+	public void move(OpdStatistic oldKey, OpdStatistic newKey) throws OHServiceException {
+		if (oldKey != null && newKey != null && oldKey.hasSameKey(newKey)) {
+			return;
+		}
+		if (oldKey != null) {
+			add(oldKey, -1);
+		}
+		if (newKey != null) {
+			add(newKey, 1);
+		}
+	}
+
+	/**
+	 * Moves one unit from each of the specified keys to the same key with another sex, e.g. after the patient of the visits has been rewritten.
+	 * @param oldKeys the keys to decrement.
+	 * @param sex the new sex.
+	 * @throws OHServiceException if an error occurs storing the statistics.
+	 */
+	public void changeSex(List<OpdStatistic> oldKeys, char sex) throws OHServiceException {
+		for (OpdStatistic oldKey : oldKeys) {
+			move(oldKey, new OpdStatistic(oldKey.getWeekStart(), oldKey.getWardCode(), oldKey.getDiseaseCode(), oldKey.getDiseaseTypeCode(),
+					oldKey.getAgeType(), sex, oldKey.getNewPatient(), 1));
+		}
+	}
+
+	/**
+	 * Recomputes all the rows of the weeks overlapping the specified date range, e.g. to fill the table for visits stored before it existed or
+	 * after the age types have been changed.
+	 * @param dateFrom the low date range endpoint, inclusive.
+	 * @param dateTo the high date range endpoint, inclusive.
+	 * @throws OHServiceException if an error occurs storing the statistics.
+	 */
+	public void rebuild(LocalDate dateFrom, LocalDate dateTo) throws OHServiceException {
+		List<AgeType> ageTypes = ageTypeIoOperations.getAgeType();
+		boolean archived = archiveIoOperations.hasArchiveTables(ArchiveTable.OPD);
+		LocalDate lastWeek = weekStart(dateTo);
+		for (LocalDate chunkFrom = weekStart(dateFrom); !chunkFrom.isAfter(lastWeek); chunkFrom = chunkFrom.plusWeeks(REBUILD_CHUNK_WEEKS)) {
+			LocalDate chunkTo = chunkFrom.plusWeeks(REBUILD_CHUNK_WEEKS - 1L);
+			if (chunkTo.isAfter(lastWeek)) {
+				chunkTo = lastWeek;
+			}
+			List<Object[]> rows = new ArrayList<>(opdRepository.findStatisticKeysWhereDateBetween(chunkFrom.atStartOfDay(),
+					chunkTo.plusWeeks(1).atStartOfDay()));
+			if (archived) {
+				rows.addAll(opdRepository.findArchivedStatisticKeysWhereDateBetween(chunkFrom.atStartOfDay(), chunkTo.plusWeeks(1).atStartOfDay()));
+			}
+			Map<String, OpdStatistic> chunkStatistics = rows.stream()
+					.map(row -> toKey(row, ageTypes))
+					.collect(Collectors.toMap(OpdStatisticIoOperations::keyOf, key -> key, (first, second) -> {
+						first.setCount(first.getCount() + second.getCount());
+						return first;
+					}));
+			List<OpdStatistic> deletedStatistics = new ArrayList<>();
+			for (OpdStatistic stored : repository.findByWeekStartBetween(chunkFrom, chunkTo)) {
+				OpdStatistic statistic = chunkStatistics.remove(keyOf(stored));
+				if (statistic == null) {
+					deletedStatistics.add(stored);
+				} else {
+					stored.setCount(statistic.getCount());
+				}
+			}
+			if (!deletedStatistics.isEmpty()) {
+				repository.deleteAllInBatch(deletedStatistics);
+			}
+			if (!chunkStatistics.isEmpty()) {
+				repository.saveAll(chunkStatistics.values());
+			}
+		}
+	}
+
+	/**
+	 * Adds {@code delta} to the row of the key with single statements, so that concurrent visits of the same key cannot lose an update: the
+	 * row is incremented in place, created by an upsert if it does not exist yet and deleted once it counts no visit.
+	 */
+	private void add(OpdStatistic key, long delta) {
+		int updated = repository.addToKey(key.getWeekStart(), key.getWardCode(), key.getDiseaseCode(), key.getDiseaseTypeCode(), key.getAgeType(),
+				key.getSex(), key.getNewPatient(), delta);
+		if (updated == 0 && delta > 0) {
+			repository.insertOrAddToKey(key.getWeekStart(), key.getWardCode(), key.getDiseaseCode(), key.getDiseaseTypeCode(), key.getAgeType(),
+					key.getSex(), key.getNewPatient(), delta);
+		} else if (delta < 0) {
+			repository.deleteEmptyKey(key.getWeekStart(), key.getWardCode(), key.getDiseaseCode(), key.getDiseaseTypeCode(), key.getAgeType(),
+					key.getSex(), key.getNewPatient());
+		}
+	}
+
+	private static OpdStatistic toKey(Object[] row, List<AgeType> ageTypes) {
+		// the rows of the archive tables are read by native queries, with JDBC types
+		LocalDateTime date = row[0] instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) row[0];
+		int age = ((Number) row[4]).intValue();
+		String ageType = "";
+		for (AgeType type : ageTypes) {
+			if (age >= type.getFrom() && age <= type.getTo()) {
+				ageType = type.getCode();
+				break;
+			}
+		}
+		return new OpdStatistic(weekStart(date.toLocalDate()), stringValue(row[1]), stringValue(row[2]), stringValue(row[3]), ageType,
+				charValue(row[5]), charValue(row[6]), 1);
+	}
+
+	private static String keyOf(OpdStatistic statistic) {
+		return statistic.getWeekStart() + "|" + statistic.getWardCode() + "|" + statistic.getDiseaseCode() + "|" + statistic.getDiseaseTypeCode() + "|"
+				+ statistic.getAgeType() + "|" + statistic.getSex() + "|" + statistic.getNewPatient();
+	}
+
+	private static LocalDate weekStart(LocalDate date) {
+		return date.with(DayOfWeek.MONDAY);
+	}
+
+	private static String stringValue(Object value) {
+		return value == null ? "" : value.toString();
+	}
+
+	private static char charValue(Object value) {
+		return value instanceof Character character ? character : value.toString().charAt(0);
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.operation.manager;
+
+import java.util.List;
+import java.util.Map;
+
+import org.isf.operation.enums.OperationTarget;
+import org.isf.operation.model.Operation;
+import org.isf.operation.service.OperationIoOperations;
+import org.isf.opetype.model.OperationType;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.search.CatalogueIndex;
+import org.isf.utils.search.CatalogueSearchManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Searches the {@link Operation}s in memory, for the pickers that suggest operations while the user types. Operations are ranked by their
+ * number of operation rows.
+ */
+@Component
+public class OperationSearchManager extends CatalogueSearchManager<Operation> {
+
+	private final OperationIoOperations ioOperations;
+
+	public OperationSearchManager(OperationIoOperations operationIoOperations) {
+		super(Operation.class);
+		this.ioOperations = operationIoOperations;
+	}
+
+	/**
+	 * Returns the {@link Operation}s whose description or code contains the given text, best matches first.
+	 *
+	 * @param description - the text to look for, an empty text matches all the operations
+	 * @param typeCode - the {@link OperationType} code, {@code null} for all the types
+	 * @param target - {@link OperationTarget#opd} or {@link OperationTarget#admission} to include only the operations for OPD or admissions
+	 * (those for both included), {@code null} for all the operations
+	 * @param limit - the maximum number of operations to return
+	 * @return the matching {@link Operation}s, they must not be modified
+	 * @throws OHServiceException When failed to load the operations
+	 */
+	public List<Operation> searchOperations(String description, String typeCode, OperationTarget target, int limit) throws OHServiceException {
+		return search(description, limit, operation -> (typeCode == null || operation.getType() != null && typeCode.equals(operation.getType().getCode()))
+						&& (target == null || operation.getOpeFor() == target || operation.getOpeFor() == OperationTarget.opd_admission));
+	}
+
+	@Override
+	protected CatalogueIndex<Operation> buildIndex() throws OHServiceException {
+		Map<String, Long> usage = ioOperations.getOperationUsage();
+		CatalogueIndex.Builder<Operation> builder = CatalogueIndex.builder();
+		for (Operation operation : ioOperations.getOperationByTypeDescription(null)) {
+			builder.add(operation, usage.getOrDefault(operation.getCode(), 0L), operation.getDescription(), operation.getCode());
+		}
+		return builder.build();
+	}
+
+}
@@ -27,11 +27,12 @@ import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.validation.constraints.NotNull;
@@ -40,6 +41,7 @@ import org.isf.accounting.model.Bill;
 import org.isf.admission.model.Admission;
 import org.isf.opd.model.Opd;
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 import org.isf.utils.time.TimeTools;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -48,6 +50,17 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
  */
 @Entity
 @Table(name="OH_OPERATIONROW")
+@NamedEntityGraph(name = OperationRow.GRAPH_LIST,
+		attributeNodes = {
+				@NamedAttributeNode("operation"),
+				@NamedAttributeNode("admission"),
+				@NamedAttributeNode("opd") })
+@NamedEntityGraph(name = OperationRow.GRAPH_DETAIL,
+		attributeNodes = {
+				@NamedAttributeNode("operation"),
+				@NamedAttributeNode("admission"),
+				@NamedAttributeNode("opd"),
+				@NamedAttributeNode("bill") })
 @EntityListeners(AuditingEntityListener.class)
 @AttributeOverride(name = "createdBy", column = @Column(name = "OPER_CREATED_BY", updatable = false))
 @AttributeOverride(name = "createdDate", column = @Column(name = "OPER_CREATED_DATE", updatable = false))
@@ -56,13 +69,19 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @AttributeOverride(name = "lastModifiedDate", column = @Column(name = "OPER_LAST_MODIFIED_DATE"))
 public class OperationRow extends Auditable<String> {
 
+    /** Entity graph with the operation and the admission or OPD of the row, all compared by {@link #equals(Object)}. */
+    public static final String GRAPH_LIST = "OperationRow.list";
+
+    /** Entity graph that also loads the bill charging the operation, used to edit a row or list the operations of a patient. */
+    public static final String GRAPH_DETAIL = "OperationRow.detail";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @OHGeneratedValue
     @Column(name = "OPER_ID_A")
     private int id;
 
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "OPER_OPE_ID_A")
     private Operation operation;
 
@@ -82,15 +101,15 @@ public class OperationRow extends Auditable<String> {
     @Column(name = "OPER_REMARKS")
     private String remarks;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "OPER_ADMISSION_ID")
     private Admission admission;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "OPER_OPD_ID")
     private Opd opd;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "OPER_BILL_ID")
     private Bill bill;
 
@@ -53,4 +53,7 @@ public interface OperationIoOperationRepository extends JpaRepository<Operation,
 	@Query(value = "SELECT * FROM OH_OPERATION ORDER BY OPE_DESC", nativeQuery = true)
 	Page<Operation> findAllPageable(Pageable pageable);
 
+	@Query(value = "select r.operation.code, count(r) from OperationRow r group by r.operation.code")
+	List<Object[]> countOperationRowGroupByOperation();
+
 }
@@ -21,13 +21,18 @@
  */
 package org.isf.operation.service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.isf.operation.model.Operation;
+import org.isf.operation.model.OperationRow;
 import org.isf.opetype.model.OperationType;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.pagination.PagedResponse;
+import org.isf.utils.search.CatalogueChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
@@ -40,8 +45,11 @@ public class OperationIoOperations {
 
 	private OperationIoOperationRepository repository;
 
-	public OperationIoOperations(OperationIoOperationRepository operationIoOperationRepository) {
+	private ApplicationEventPublisher applicationEventPublisher;
+
+	public OperationIoOperations(OperationIoOperationRepository operationIoOperationRepository, ApplicationEventPublisher applicationEventPublisher) {
 		this.repository = operationIoOperationRepository;
+		this.applicationEventPublisher = applicationEventPublisher;
 	}
 
 	/**
@@ -77,7 +85,9 @@ public class OperationIoOperations {
 	 * @throws OHServiceException
 	 */
 	public Operation newOperation(Operation operation) throws OHServiceException {
-		return repository.save(operation);
+		Operation savedOperation = repository.save(operation);
+		applicationEventPublisher.publishEvent(new CatalogueChangedEvent(Operation.class));
+		return savedOperation;
 	}
 	
 	/** 
@@ -88,7 +98,9 @@ public class OperationIoOperations {
 	 * @throws OHServiceException 
 	 */
 	public Operation updateOperation(Operation operation) throws OHServiceException {
-		return repository.save(operation);
+		Operation savedOperation = repository.save(operation);
+		applicationEventPublisher.publishEvent(new CatalogueChangedEvent(Operation.class));
+		return savedOperation;
 	}
 	
 	/** 
@@ -98,6 +110,21 @@ public class OperationIoOperations {
 	 */
 	public void deleteOperation(Operation operation) throws OHServiceException {
 		repository.delete(operation);
+		applicationEventPublisher.publishEvent(new CatalogueChangedEvent(Operation.class));
+	}
+
+	/**
+	 * Counts the {@link OperationRow}s of every {@link Operation}, used to rank the search suggestions.
+	 * 
+	 * @return the number of operation rows by operation code, operations never performed are missing.
+	 * @throws OHServiceException
+	 */
+	public Map<String, Long> getOperationUsage() throws OHServiceException {
+		Map<String, Long> usage = new HashMap<>();
+		for (Object[] row : repository.countOperationRowGroupByOperation()) {
+			usage.put((String) row[0], (Long) row[1]);
+		}
+		return usage;
 	}
 	
 	/**
@@ -28,6 +28,7 @@ import org.isf.admission.model.Admission;
 import org.isf.opd.model.Opd;
 import org.isf.operation.model.OperationRow;
 import org.isf.patient.model.Patient;
+import org.isf.utils.db.EntityGraphInitializer;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.exception.model.OHExceptionMessage;
@@ -44,8 +45,12 @@ public class OperationRowIoOperations {
 
 	private OperationRowIoOperationRepository repository;
 
-	public OperationRowIoOperations(OperationRowIoOperationRepository operationRowIoOperationRepository) {
+	private EntityGraphInitializer entityGraphInitializer;
+
+	public OperationRowIoOperations(OperationRowIoOperationRepository operationRowIoOperationRepository,
+			EntityGraphInitializer entityGraphInitializer) {
 		this.repository = operationRowIoOperationRepository;
+		this.entityGraphInitializer = entityGraphInitializer;
 	}
 
 	public List<OperationRow> getOperationRow() throws OHServiceException {
@@ -84,13 +89,13 @@ public class OperationRowIoOperations {
 			found.setPrescriber(opRow.getPrescriber());
 			found.setRemarks(opRow.getRemarks());
 			found.setTransUnit(opRow.getTransUnit());
-			return repository.save(found);
+			return save(found);
 		}
 		return null;
 	}
 
 	public OperationRow newOperationRow(OperationRow opRow) throws OHServiceException {
-		return repository.save(opRow);
+		return save(opRow);
 	}
 
 	public List<OperationRow> getOperationRowByPatient(Patient patient) throws OHServiceException {
@@ -107,4 +112,9 @@ public class OperationRowIoOperations {
 		return this.repository.countAllActiveOperations();
 	}
 
+	private OperationRow save(OperationRow opRow) {
+		// a merged row refers to uninitialized proxies, which the callers outside a transaction could not read
+		return entityGraphInitializer.initialize(repository.save(opRow), OperationRow.GRAPH_DETAIL);
+	}
+
 }
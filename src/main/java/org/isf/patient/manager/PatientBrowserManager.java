@@ -34,6 +34,7 @@ import org.isf.admission.manager.AdmissionBrowserManager;
 import org.isf.generaldata.MessageBundle;
 import org.isf.patient.model.Patient;
 import org.isf.patient.model.PatientProfilePhoto;
+import org.isf.patient.model.PatientSummary;
 import org.isf.patient.service.PatientIoOperations;
 import org.isf.utils.exception.OHDataValidationException;
 import org.isf.utils.exception.OHServiceException;
@@ -294,6 +295,45 @@ public class PatientBrowserManager {
 		return ioOperations.getPatientsByOneOfFieldsLike(keyword);
 	}
 
+	/**
+	 * Method that returns the full list of {@link PatientSummary}s not logically deleted, to be used by lists and pickers
+	 * instead of {@link #getPatient()}.
+	 *
+	 * @return the list of {@link PatientSummary}s (could be empty)
+	 * @throws OHServiceException
+	 */
+	public List<PatientSummary> getPatientSummaries() throws OHServiceException {
+		return ioOperations.getPatientSummaries();
+	}
+
+	public PagedResponse<PatientSummary> getPatientSummariesPageable(int page, int size) throws OHServiceException {
+		return ioOperations.getPatientSummariesPageable(PageRequest.of(page, size));
+	}
+
+	/**
+	 * Method that gets the {@link PatientSummary}s matching the specified parameters, as {@link #getPatients(Map)}.
+	 *
+	 * @param params
+	 * @return the list of {@link PatientSummary}s that match the specified parameters.
+	 * @throws OHServiceException
+	 */
+	public List<PatientSummary> getPatientSummaries(Map<String, Object> params) throws OHServiceException {
+		return ioOperations.getPatientSummaries(params);
+	}
+
+	/**
+	 * Method that returns the {@link PatientSummary}s matching the keyword as {@link #getPatientsByOneOfFieldsLike(String)};
+	 * the full {@link Patient} is then loaded with {@link #getPatientById(Integer)} when a record is opened.
+	 *
+	 * @param keyword
+	 *            - String to search, {@code null} for full list
+	 * @return the list of {@link PatientSummary}s (could be empty)
+	 * @throws OHServiceException
+	 */
+	public List<PatientSummary> getPatientSummariesByOneOfFieldsLike(String keyword) throws OHServiceException {
+		return ioOperations.getPatientSummariesByOneOfFieldsLike(keyword);
+	}
+
 	public PatientProfilePhoto retrievePatientProfilePhoto(Patient patient) throws OHServiceException {
 		return ioOperations.retrievePatientProfilePhoto(patient);
 	}
@@ -303,9 +343,10 @@ public class PatientBrowserManager {
 	 *
 	 * @param mergedPatient
 	 * @param patient2
+	 * @return the number of moved rows for each merged history
 	 * @throws OHServiceException
 	 */
-	public void mergePatient(Patient mergedPatient, Patient patient2) throws OHServiceException {
+	public Map<String, Integer> mergePatient(Patient mergedPatient, Patient patient2) throws OHServiceException {
 		if (mergedPatient.getBirthDate() != null && StringUtils.isEmpty(mergedPatient.getAgetype())) {
 			// mergedPatient only Age
 			LocalDate bdate2 = patient2.getBirthDate();
@@ -375,7 +416,7 @@ public class PatientBrowserManager {
 		}
 
 		validateMergePatients(mergedPatient, patient2);
-		ioOperations.mergePatientHistory(mergedPatient, patient2);
+		return ioOperations.mergePatientHistory(mergedPatient, patient2);
 	}
 
 	/**
@@ -21,10 +21,15 @@
  */
 package org.isf.patient.model;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class PatientMergedEvent {
 
 	private final Patient obsoletePatient;
 	private final Patient mergedPatient;
+	private final Map<String, Integer> mergedRows = new LinkedHashMap<>();
 
 	public PatientMergedEvent(Patient obsoletePatient, Patient mergedPatient) {
 		this.obsoletePatient = obsoletePatient;
@@ -39,4 +44,21 @@ public class PatientMergedEvent {
 		return mergedPatient;
 	}
 
+	/**
+	 * Records how many rows a listener moved from the obsolete to the merged {@link Patient}.
+	 *
+	 * @param module - the name of the merged history (e.g. "bills", "visits")
+	 * @param rows - the number of updated rows
+	 */
+	public void addMergedRows(String module, int rows) {
+		mergedRows.merge(module, rows, Integer::sum);
+	}
+
+	/**
+	 * @return the number of rows moved by each listener, in notification order
+	 */
+	public Map<String, Integer> getMergedRows() {
+		return Collections.unmodifiableMap(mergedRows);
+	}
+
 }
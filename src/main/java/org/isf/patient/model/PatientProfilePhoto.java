@@ -30,13 +30,13 @@ import javax.imageio.ImageIO;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Lob;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 
+import org.isf.utils.db.OHGeneratedValue;
+
 /**
  * Photo related to a single {@link Patient}
  */
@@ -45,7 +45,7 @@ import jakarta.persistence.Table;
 public class PatientProfilePhoto implements Serializable {
 
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name="PAT_PROFILE_PHOTO_ID")
 	private Integer code;
 
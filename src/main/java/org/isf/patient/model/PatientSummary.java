@@ -0,0 +1,141 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.patient.model;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+/**
+ * Read-only view of a {@link Patient} with the columns shown in patient lists, pickers and search results.
+ * <p>
+ * It is built by constructor projections, so neither the auditing fields nor the consensus and the profile photo are loaded;
+ * the full {@link Patient} is loaded only when a record is opened.
+ */
+public final class PatientSummary {
+
+	/**
+	 * JPQL constructor expression listing the {@link Patient} attributes, in constructor order, of a query aliasing the patient {@code p}.
+	 */
+	public static final String PROJECTION = "new org.isf.patient.model.PatientSummary(p.code, p.firstName, p.secondName, p.name, p.sex, p.birthDate, "
+					+ "p.age, p.agetype, p.city, p.address, p.telephone, p.hasInsurance)";
+
+	private final Integer code;
+	private final String firstName;
+	private final String secondName;
+	private final String name;
+	private final char sex;
+	private final LocalDate birthDate;
+	private final int age;
+	private final String agetype;
+	private final String city;
+	private final String address;
+	private final String telephone;
+	private final char hasInsurance;
+
+	public PatientSummary(Integer code, String firstName, String secondName, String name, char sex, LocalDate birthDate, int age, String agetype,
+					String city, String address, String telephone, char hasInsurance) {
+		this.code = code;
+		this.firstName = firstName;
+		this.secondName = secondName;
+		this.name = name;
+		this.sex = sex;
+		this.birthDate = birthDate;
+		this.age = age;
+		this.agetype = agetype;
+		this.city = city;
+		this.address = address;
+		this.telephone = telephone;
+		this.hasInsurance = hasInsurance;
+	}
+
+	public Integer getCode() {
+		return code;
+	}
+
+	public String getFirstName() {
+		return firstName;
+	}
+
+	public String getSecondName() {
+		return secondName;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public char getSex() {
+		return sex;
+	}
+
+	public LocalDate getBirthDate() {
+		return birthDate;
+	}
+
+	/**
+	 * @return the age computed from the birth date when known, as {@link Patient#getAge()} does, otherwise the stored age.
+	 */
+	public int getAge() {
+		return birthDate != null ? Period.between(birthDate, LocalDate.now()).getYears() : age;
+	}
+
+	public String getAgetype() {
+		return agetype;
+	}
+
+	public String getCity() {
+		return city;
+	}
+
+	public String getAddress() {
+		return address;
+	}
+
+	public String getTelephone() {
+		return telephone;
+	}
+
+	public char getHasInsurance() {
+		return hasInsurance;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof PatientSummary)) {
+			return false;
+		}
+		return code.equals(((PatientSummary) obj).code);
+	}
+
+	@Override
+	public int hashCode() {
+		return code.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
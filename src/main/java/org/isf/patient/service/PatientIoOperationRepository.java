@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.isf.patient.model.Patient;
+import org.isf.patient.model.PatientSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -40,6 +41,13 @@ public interface PatientIoOperationRepository extends JpaRepository<Patient, Int
 
 	Page<Patient> findAllByDeletedIsNullOrDeletedEqualsOrderByName(char patDeleted, Pageable pageable);
 
+	@Query("select " + PatientSummary.PROJECTION + " from Patient p where p.deleted = :deletedStatus or p.deleted is null")
+	List<PatientSummary> findSummariesByDeletedOrDeletedIsNull(@Param("deletedStatus") char deletedStatus);
+
+	@Query(value = "select " + PatientSummary.PROJECTION + " from Patient p where p.deleted is null or p.deleted = :deletedStatus order by p.name",
+					countQuery = "select count(p) from Patient p where p.deleted is null or p.deleted = :deletedStatus")
+	Page<PatientSummary> findSummariesByDeletedIsNullOrDeletedEqualsOrderByName(@Param("deletedStatus") char deletedStatus, Pageable pageable);
+
 	@Query("select p from Patient p where p.name = :name and (p.deleted = :deletedStatus or p.deleted is null) order by p.secondName, p.firstName")
 	List<Patient> findByNameAndDeletedOrderByName(@Param("name") String name, @Param("deletedStatus") char deletedStatus);
 
@@ -50,7 +58,7 @@ public interface PatientIoOperationRepository extends JpaRepository<Patient, Int
 	@Query(value = "update Patient p set p.deleted = 'Y' where p.code = :id")
 	int updateDeleted(@Param("id") Integer id);
 
-	List<Patient> findByNameAndDeleted(String name, char deletedStatus);
+	boolean existsByNameAndDeleted(String name, char deletedStatus);
 
 	@Query(value = "select max(p.code) from Patient p")
 	Integer findMaxCode();
@@ -60,6 +68,8 @@ public interface PatientIoOperationRepository extends JpaRepository<Patient, Int
 
 	List<Patient> getPatientsByParams(Map<String, Object> params);
 
+	List<PatientSummary> getPatientSummariesByParams(Map<String, Object> params);
+
 	@Query("select count(p) from Patient p where active=1 and deleted not like 'Y'")
 	long countAllActiveNotDeletedPatients();
 }
@@ -24,9 +24,12 @@ package org.isf.patient.service;
 import java.util.List;
 
 import org.isf.patient.model.Patient;
+import org.isf.patient.model.PatientSummary;
 
 public interface PatientIoOperationRepositoryCustom {
 
 	List<Patient> findByFieldsContainingWordsFromLiteral(String regex);
 
+	List<PatientSummary> findSummariesByFieldsContainingWordsFromLiteral(String regex);
+
 }
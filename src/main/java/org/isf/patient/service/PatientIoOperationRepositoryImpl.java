@@ -28,6 +28,7 @@ import java.util.Map;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CompoundSelection;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Path;
@@ -35,6 +36,7 @@ import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 
 import org.isf.patient.model.Patient;
+import org.isf.patient.model.PatientSummary;
 import org.springframework.transaction.annotation.Transactional;
 
 @Transactional
@@ -67,11 +69,31 @@ public class PatientIoOperationRepositoryImpl implements PatientIoOperationRepos
 		return words;
 	}
 
+	@Override
+	public List<PatientSummary> findSummariesByFieldsContainingWordsFromLiteral(String literal) {
+		String[] words = getWordsToSearchForInPatientsRepository(literal);
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<PatientSummary> query = cb.createQuery(PatientSummary.class);
+		Root<Patient> patientRoot = query.from(Patient.class);
+		query.select(summary(cb, patientRoot));
+		query.where(wordsExistInPatientFields(words, cb, patientRoot));
+		query.orderBy(cb.desc(patientRoot.get("code")));
+
+		return entityManager.createQuery(query).getResultList();
+	}
+
 	private CriteriaQuery<Patient> createQuerySearchingForPatientContainingGivenWordsInHisProperties(String[] words) {
 		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
 		CriteriaQuery<Patient> query = cb.createQuery(Patient.class);
 		Root<Patient> patientRoot = query.from(Patient.class);
 		query.select(patientRoot);
+		query.where(wordsExistInPatientFields(words, cb, patientRoot));
+		query.orderBy(cb.desc(patientRoot.get("code")));
+
+		return query;
+	}
+
+	private Predicate wordsExistInPatientFields(String[] words, CriteriaBuilder cb, Root<Patient> patientRoot) {
 		List<Predicate> where = new ArrayList<>();
 
 		for (String word : words) {
@@ -83,10 +105,7 @@ public class PatientIoOperationRepositoryImpl implements PatientIoOperationRepos
 				cb.isNull(patientRoot.get("deleted"))
 		));
 
-		query.where(cb.and(where.toArray(new Predicate[0])));
-		query.orderBy(cb.desc(patientRoot.get("code")));
-
-		return query;
+		return cb.and(where.toArray(new Predicate[0]));
 	}
 
 	private Predicate wordExistsInOneOfPatientFields(String word, CriteriaBuilder cb, Root<Patient> root) {
@@ -111,7 +130,21 @@ public class PatientIoOperationRepositoryImpl implements PatientIoOperationRepos
 		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
 		CriteriaQuery<Patient> query = cb.createQuery(Patient.class);
 		Root<Patient> patient = query.from(Patient.class);
+		query.select(patient).where(paramsPredicate(params, cb, patient));
 
+		return entityManager.createQuery(query).getResultList();
+	}
+
+	public List<PatientSummary> getPatientSummariesByParams(Map<String, Object> params) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<PatientSummary> query = cb.createQuery(PatientSummary.class);
+		Root<Patient> patient = query.from(Patient.class);
+		query.select(summary(cb, patient)).where(paramsPredicate(params, cb, patient));
+
+		return entityManager.createQuery(query).getResultList();
+	}
+
+	private Predicate paramsPredicate(Map<String, Object> params, CriteriaBuilder cb, Root<Patient> patient) {
 		// Only not deleted patient
 		Predicate deletedN = cb.equal(patient.get("deleted"), 'N');
 		Predicate deletedNull = cb.isNull(patient.get("deleted"));
@@ -132,9 +165,14 @@ public class PatientIoOperationRepositoryImpl implements PatientIoOperationRepos
 				}
 			}
 		}
-		query.select(patient).where(cb.and(predicates.toArray(new Predicate[0])));
+		return cb.and(predicates.toArray(new Predicate[0]));
+	}
 
-		return entityManager.createQuery(query).getResultList();
+	private CompoundSelection<PatientSummary> summary(CriteriaBuilder cb, Root<Patient> patient) {
+		return cb.construct(PatientSummary.class,
+				patient.get("code"), patient.get("firstName"), patient.get("secondName"), patient.get("name"), patient.get("sex"),
+				patient.get("birthDate"), patient.get("age"), patient.get("agetype"), patient.get("city"), patient.get("address"),
+				patient.get("telephone"), patient.get("hasInsurance"));
 	}
 
 }
@@ -33,6 +33,7 @@ import org.isf.generaldata.GeneralData;
 import org.isf.patient.model.Patient;
 import org.isf.patient.model.PatientMergedEvent;
 import org.isf.patient.model.PatientProfilePhoto;
+import org.isf.patient.model.PatientSummary;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.exception.model.OHExceptionMessage;
@@ -124,6 +125,50 @@ public class PatientIoOperations {
 		return repository.findByFieldsContainingWordsFromLiteral(keyword);
 	}
 
+	/**
+	 * Method that returns the full list of {@link PatientSummary}s not logically deleted.
+	 *
+	 * @return the list of {@link PatientSummary}s
+	 * @throws OHServiceException
+	 */
+	public List<PatientSummary> getPatientSummaries() throws OHServiceException {
+		return repository.findSummariesByDeletedOrDeletedIsNull(NOT_DELETED_STATUS);
+	}
+
+	/**
+	 * Method that returns the {@link PatientSummary}s not logically deleted by page, ordered by name.
+	 *
+	 * @param pageable
+	 * @return the page of {@link PatientSummary}s
+	 * @throws OHServiceException
+	 */
+	public PagedResponse<PatientSummary> getPatientSummariesPageable(Pageable pageable) throws OHServiceException {
+		return setPaginationData(repository.findSummariesByDeletedIsNullOrDeletedEqualsOrderByName(NOT_DELETED_STATUS, pageable));
+	}
+
+	/**
+	 * Method that returns the {@link PatientSummary}s matching the specified parameters, as {@link #getPatients(Map)}.
+	 *
+	 * @param parameters
+	 * @return the list of {@link PatientSummary}s.
+	 * @throws OHServiceException
+	 */
+	public List<PatientSummary> getPatientSummaries(Map<String, Object> parameters) throws OHServiceException {
+		return repository.getPatientSummariesByParams(parameters);
+	}
+
+	/**
+	 * Method that returns the {@link PatientSummary}s not logically deleted having the passed String in one of the fields
+	 * searched by {@link #getPatientsByOneOfFieldsLike(String)}.
+	 *
+	 * @param keyword - String to search, use {@code null} for full list
+	 * @return the list of {@link PatientSummary}s (could be empty),
+	 * @throws OHServiceException
+	 */
+	public List<PatientSummary> getPatientSummariesByOneOfFieldsLike(String keyword) throws OHServiceException {
+		return repository.findSummariesByFieldsContainingWordsFromLiteral(keyword);
+	}
+
 	/**
 	 * Method that gets a {@link Patient}s by his/her ID.
 	 *
@@ -243,7 +288,7 @@ public class PatientIoOperations {
 	 * @throws OHServiceException
 	 */
 	public boolean isPatientPresentByName(String name) throws OHServiceException {
-		return !repository.findByNameAndDeleted(name, NOT_DELETED_STATUS).isEmpty();
+		return repository.existsByNameAndDeleted(name, NOT_DELETED_STATUS);
 	}
 
 	/**
@@ -258,14 +303,19 @@ public class PatientIoOperations {
 
 	/**
 	 * Method that merges all clinic details under the same PAT_ID.
+	 * Every module moves its history with a bulk update in this same transaction.
 	 *
 	 * @param mergedPatient
 	 * @param obsoletePatient
+	 * @return the number of moved rows for each merged history
 	 * @throws OHServiceException
 	 */
-	public void mergePatientHistory(Patient mergedPatient, Patient obsoletePatient) throws OHServiceException {
+	public Map<String, Integer> mergePatientHistory(Patient mergedPatient, Patient obsoletePatient) throws OHServiceException {
 		repository.updateDeleted(obsoletePatient.getCode());
-		applicationEventPublisher.publishEvent(new PatientMergedEvent(obsoletePatient, mergedPatient));
+		PatientMergedEvent patientMergedEvent = new PatientMergedEvent(obsoletePatient, mergedPatient);
+		applicationEventPublisher.publishEvent(patientMergedEvent);
+		LOGGER.info("Merged patient {} into {}: {}", obsoletePatient.getCode(), mergedPatient.getCode(), patientMergedEvent.getMergedRows());
+		return patientMergedEvent.getMergedRows();
 	}
 
 	/**
@@ -300,8 +350,8 @@ public class PatientIoOperations {
 		return patient.getPatientProfilePhoto();
 	}
 
-	PagedResponse<Patient> setPaginationData(Page<Patient> pages){
-		PagedResponse<Patient> data = new PagedResponse<>();
+	<T> PagedResponse<T> setPaginationData(Page<T> pages){
+		PagedResponse<T> data = new PagedResponse<>();
 		data.setData(pages.getContent());
 		data.setPageInfo(PageInfo.from(pages));
 		return data;
@@ -24,8 +24,10 @@ package org.isf.patvac.service;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.isf.patient.model.Patient;
 import org.isf.patvac.model.PatientVaccine;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -41,4 +43,8 @@ public interface PatVacIoOperationRepository extends JpaRepository<PatientVaccin
 
 	List<PatientVaccine> findByPatient_code(int patientId);
 
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query(value = "update PatientVaccine pv set pv.patient = :mergedPatient where pv.patient = :obsoletePatient")
+	int updatePatient(@Param("obsoletePatient") Patient obsoletePatient, @Param("mergedPatient") Patient mergedPatient);
+
 }
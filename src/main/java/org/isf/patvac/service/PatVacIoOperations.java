@@ -26,6 +26,7 @@ import java.time.Month;
 import java.util.List;
 import java.util.Optional;
 
+import org.isf.patient.model.Patient;
 import org.isf.patvac.model.PatientVaccine;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
@@ -157,4 +158,15 @@ public class PatVacIoOperations {
 	private LocalDateTime getBeginningOfYear(int year) {
 		return LocalDateTime.of(year, Month.JANUARY, 1, 0, 0, 0);
 	}
+
+	/**
+	 * Moves all the {@link PatientVaccine}s of the obsolete {@link Patient} to the merged one, with a single bulk update.
+	 *
+	 * @param obsoletePatient - the {@link Patient} being merged
+	 * @param mergedPatient - the {@link Patient} that keeps the history
+	 * @return the number of updated rows
+	 */
+	public int reassignPatient(Patient obsoletePatient, Patient mergedPatient) {
+		return repository.updatePatient(obsoletePatient, mergedPatient);
+	}
 }
@@ -21,10 +21,7 @@
  */
 package org.isf.patvac.service;
 
-import java.util.List;
-
 import org.isf.patient.model.PatientMergedEvent;
-import org.isf.patvac.model.PatientVaccine;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -41,10 +38,8 @@ public class VaccinePatientMergedEventListener {
 	@EventListener
 	@Transactional
 	public void handle(PatientMergedEvent patientMergedEvent) {
-		List<PatientVaccine> vaccines = patVacIoOperations.findForPatient(patientMergedEvent.getObsoletePatient().getCode());
-		for (PatientVaccine vaccine : vaccines) {
-			vaccine.setPatient(patientMergedEvent.getMergedPatient());
-		}
+		int rows = patVacIoOperations.reassignPatient(patientMergedEvent.getObsoletePatient(), patientMergedEvent.getMergedPatient());
+		patientMergedEvent.addMergedRows("patientVaccines", rows);
 	}
 
 }
@@ -0,0 +1,161 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.permissions.manager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.isf.menu.model.User;
+import org.isf.menu.model.UserGroup;
+import org.isf.menu.model.UserMenuItem;
+import org.isf.menu.service.MenuIoOperations;
+import org.isf.permissions.model.AuthorizationSnapshot;
+import org.isf.permissions.model.Permission;
+import org.isf.permissions.model.UserGroupAuthorizationChangedEvent;
+import org.isf.permissions.service.PermissionIoOperations;
+import org.isf.utils.db.GenerationGuardedCache;
+import org.isf.utils.db.TransactionalEviction;
+import org.isf.utils.exception.OHServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps a precomputed {@link AuthorizationSnapshot} per {@link UserGroup}, so that permission checks and menu
+ * rendering do not hit the database. Snapshots are built lazily and discarded whenever a
+ * {@link UserGroupAuthorizationChangedEvent} is published.
+ */
+@Component
+public class AuthorizationSnapshotManager {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AuthorizationSnapshotManager.class);
+
+	private static final String PERMISSION_INDEX = "permissions";
+
+	private final MenuIoOperations menuIoOperations;
+
+	private final PermissionIoOperations permissionIoOperations;
+
+	private final GenerationGuardedCache<String, AuthorizationSnapshot> snapshots = new GenerationGuardedCache<>();
+
+	private final GenerationGuardedCache<String, Map<String, Integer>> permissionIndex = new GenerationGuardedCache<>();
+
+	public AuthorizationSnapshotManager(MenuIoOperations menuIoOperations, PermissionIoOperations permissionIoOperations) {
+		this.menuIoOperations = menuIoOperations;
+		this.permissionIoOperations = permissionIoOperations;
+	}
+
+	/**
+	 * Returns the {@link AuthorizationSnapshot} of the given {@link UserGroup}, building it if needed.
+	 *
+	 * @param userGroupCode - the {@link UserGroup} code
+	 * @return the {@link AuthorizationSnapshot}
+	 * @throws OHServiceException When failed to load the group permissions or menu
+	 */
+	public AuthorizationSnapshot getSnapshot(String userGroupCode) throws OHServiceException {
+		// a snapshot built while permissions were changing may grant a revoked permission, so it is not kept
+		return snapshots.get(userGroupCode, this::buildSnapshot);
+	}
+
+	/**
+	 * Checks if the {@link User} has been granted the {@link Permission} with the given name through its {@link UserGroup}.
+	 *
+	 * @param user - the {@link User}
+	 * @param permissionName - the {@link Permission} name
+	 * @return {@code true} if the permission is granted, {@code false} otherwise.
+	 * @throws OHServiceException When failed to load the group permissions or menu
+	 */
+	public boolean hasPermission(User user, String permissionName) throws OHServiceException {
+		if (user == null || user.getActive() != 1 || user.getUserGroupName() == null) {
+			return false;
+		}
+		return getSnapshot(user.getUserGroupName().getCode()).hasPermission(permissionName);
+	}
+
+	/**
+	 * Returns the list of {@link UserMenuItem}s that compose the menu for the specified {@link User}.
+	 *
+	 * @param user - the {@link User}
+	 * @return the list of {@link UserMenuItem}s
+	 * @throws OHServiceException When failed to load the group permissions or menu
+	 */
+	public List<UserMenuItem> getMenu(User user) throws OHServiceException {
+		if (user == null || user.getUserGroupName() == null) {
+			return Collections.emptyList();
+		}
+		return getSnapshot(user.getUserGroupName().getCode()).getMenu();
+	}
+
+	/**
+	 * Discards the {@link AuthorizationSnapshot} of the given {@link UserGroup}.
+	 *
+	 * @param userGroupCode - the {@link UserGroup} code
+	 */
+	public void invalidate(String userGroupCode) {
+		snapshots.invalidate(userGroupCode);
+	}
+
+	/**
+	 * Discards all the {@link AuthorizationSnapshot}s and the permission catalogue.
+	 */
+	public void invalidateAll() {
+		permissionIndex.invalidateAll();
+		snapshots.invalidateAll();
+	}
+
+	@EventListener
+	public void handle(UserGroupAuthorizationChangedEvent event) {
+		String userGroupCode = event.getUserGroupCode();
+		TransactionalEviction.evictNowAndAfterCompletion(() -> evict(userGroupCode));
+	}
+
+	private void evict(String userGroupCode) {
+		if (userGroupCode == null) {
+			invalidateAll();
+		} else {
+			invalidate(userGroupCode);
+		}
+	}
+
+	private AuthorizationSnapshot buildSnapshot(String userGroupCode) throws OHServiceException {
+		LOGGER.debug("Building authorization snapshot for group '{}'", userGroupCode);
+		List<Permission> permissions = permissionIoOperations.retrivePermisionsByGroupCode(userGroupCode);
+		List<UserMenuItem> menu = menuIoOperations.getGroupMenu(new UserGroup(userGroupCode, null));
+		return new AuthorizationSnapshot(userGroupCode, permissions, getPermissionIndex(), menu);
+	}
+
+	private Map<String, Integer> getPermissionIndex() throws OHServiceException {
+		return permissionIndex.get(PERMISSION_INDEX, key -> buildPermissionIndex());
+	}
+
+	private Map<String, Integer> buildPermissionIndex() throws OHServiceException {
+		Map<String, Integer> names = new HashMap<>();
+		for (Permission permission : permissionIoOperations.retrieveAllPermissions()) {
+			names.put(permission.getName(), permission.getId());
+		}
+		return Collections.unmodifiableMap(names);
+	}
+
+}
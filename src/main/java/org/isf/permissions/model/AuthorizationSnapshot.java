@@ -0,0 +1,149 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.permissions.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.isf.menu.model.UserMenuItem;
+
+/**
+ * Immutable view of what a {@link org.isf.menu.model.UserGroup} is allowed to do: the active {@link Permission}s
+ * as a bitset over their IDs and the {@link UserMenuItem}s indexed by parent menu.
+ */
+public final class AuthorizationSnapshot {
+
+	private final String userGroupCode;
+
+	private final BitSet permissionIds;
+
+	private final Map<String, Integer> permissionIndex;
+
+	private final List<UserMenuItem> menu;
+
+	private final Map<String, List<UserMenuItem>> subMenus;
+
+	private final Map<String, UserMenuItem> menuItems;
+
+	/**
+	 * @param userGroupCode - the code of the {@link org.isf.menu.model.UserGroup}
+	 * @param permissions - the active {@link Permission}s granted to the group
+	 * @param permissionIndex - the permission name to ID catalogue shared by all snapshots
+	 * @param menu - the {@link UserMenuItem}s of the group, ordered by position
+	 */
+	public AuthorizationSnapshot(String userGroupCode, List<Permission> permissions, Map<String, Integer> permissionIndex, List<UserMenuItem> menu) {
+		this.userGroupCode = userGroupCode;
+		this.permissionIndex = permissionIndex;
+		this.permissionIds = new BitSet();
+		for (Permission permission : permissions) {
+			this.permissionIds.set(permission.getId());
+		}
+		List<UserMenuItem> items = new ArrayList<>(menu.size());
+		Map<String, UserMenuItem> byCode = new LinkedHashMap<>();
+		Map<String, List<UserMenuItem>> byParent = new LinkedHashMap<>();
+		for (UserMenuItem item : menu) {
+			UserMenuItem copy = new UserMenuItem(item);
+			items.add(copy);
+			byCode.put(copy.getCode(), copy);
+			byParent.computeIfAbsent(copy.getMySubmenu(), parent -> new ArrayList<>()).add(copy);
+		}
+		byParent.replaceAll((parent, children) -> Collections.unmodifiableList(children));
+		this.menu = Collections.unmodifiableList(items);
+		this.menuItems = Collections.unmodifiableMap(byCode);
+		this.subMenus = Collections.unmodifiableMap(byParent);
+	}
+
+	public String getUserGroupCode() {
+		return userGroupCode;
+	}
+
+	/**
+	 * Checks if the group has been granted the {@link Permission} with the given name.
+	 *
+	 * @param permissionName - the {@link Permission} name
+	 * @return {@code true} if the permission is granted, {@code false} otherwise.
+	 */
+	public boolean hasPermission(String permissionName) {
+		Integer id = permissionIndex.get(permissionName);
+		return id != null && permissionIds.get(id);
+	}
+
+	/**
+	 * Checks if the group has been granted the {@link Permission} with the given ID.
+	 *
+	 * @param permissionId - the {@link Permission} ID
+	 * @return {@code true} if the permission is granted, {@code false} otherwise.
+	 */
+	public boolean hasPermission(int permissionId) {
+		return permissionId >= 0 && permissionIds.get(permissionId);
+	}
+
+	/**
+	 * @return a copy of the set of granted {@link Permission} IDs
+	 */
+	public BitSet getPermissionIds() {
+		return (BitSet) permissionIds.clone();
+	}
+
+	/**
+	 * Returns the {@link UserMenuItem}s of the group ordered by position; the returned items are copies and may be modified freely.
+	 *
+	 * @return the list of {@link UserMenuItem}s
+	 */
+	public List<UserMenuItem> getMenu() {
+		return copyOf(menu);
+	}
+
+	/**
+	 * Returns the {@link UserMenuItem}s whose parent is the given menu, ordered by position.
+	 *
+	 * @param parentCode - the code of the parent menu
+	 * @return the list of {@link UserMenuItem}s, empty if the menu has no children
+	 */
+	public List<UserMenuItem> getSubMenu(String parentCode) {
+		return copyOf(subMenus.getOrDefault(parentCode, Collections.emptyList()));
+	}
+
+	/**
+	 * Checks if the menu item with the given code is assigned to the group and active.
+	 *
+	 * @param menuItemCode - the {@link UserMenuItem} code
+	 * @return {@code true} if the menu item is assigned and active, {@code false} otherwise.
+	 */
+	public boolean isMenuItemActive(String menuItemCode) {
+		UserMenuItem item = menuItems.get(menuItemCode);
+		return item != null && item.isActive();
+	}
+
+	private static List<UserMenuItem> copyOf(List<UserMenuItem> items) {
+		List<UserMenuItem> copy = new ArrayList<>(items.size());
+		for (UserMenuItem item : items) {
+			copy.add(new UserMenuItem(item));
+		}
+		return copy;
+	}
+
+}
@@ -24,8 +24,6 @@ package org.isf.permissions.model;
 import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -34,6 +32,7 @@ import jakarta.validation.constraints.NotNull;
 
 import org.isf.menu.model.UserGroup;
 import org.isf.utils.db.Auditable;
+import org.isf.utils.db.OHGeneratedValue;
 
 @Entity
 @Table(name = "OH_GROUPPERMISSION")
@@ -45,7 +44,7 @@ import org.isf.utils.db.Auditable;
 public class GroupPermission extends Auditable<String> {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name = "GP_ID")
 	private int id;
 
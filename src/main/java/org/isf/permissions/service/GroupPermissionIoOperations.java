@@ -22,11 +22,14 @@
 package org.isf.permissions.service;
 
 import java.util.List;
+import java.util.Objects;
 
 import org.isf.menu.model.UserGroup;
 import org.isf.permissions.model.GroupPermission;
+import org.isf.permissions.model.UserGroupAuthorizationChangedEvent;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -37,8 +40,12 @@ public class GroupPermissionIoOperations {
 
 	private final GroupPermissionIoOperationRepository repository;
 
-	public GroupPermissionIoOperations(GroupPermissionIoOperationRepository groupPermissionIoOperationRepository) {
+	private final ApplicationEventPublisher applicationEventPublisher;
+
+	public GroupPermissionIoOperations(GroupPermissionIoOperationRepository groupPermissionIoOperationRepository,
+			ApplicationEventPublisher applicationEventPublisher) {
 		this.repository = groupPermissionIoOperationRepository;
+		this.applicationEventPublisher = applicationEventPublisher;
 	}
 
 	public List<GroupPermission> findByIdIn(List<Integer> ids) throws OHServiceException {
@@ -47,6 +54,7 @@ public class GroupPermissionIoOperations {
 
 	public void deleteUserGroupPermissions(UserGroup userGroup) {
 		repository.deleteAllByUserGroup_Code(userGroup.getCode());
+		applicationEventPublisher.publishEvent(new UserGroupAuthorizationChangedEvent(userGroup.getCode()));
 	}
 
 	public List<GroupPermission> findUserGroupPermissions(String groupCode) {
@@ -54,23 +62,31 @@ public class GroupPermissionIoOperations {
 	}
 
 	public List<GroupPermission> saveAll(List<GroupPermission> groupPermissions) {
-		return repository.saveAll(groupPermissions);
+		List<GroupPermission> saved = repository.saveAll(groupPermissions);
+		publishChanged(groupPermissions);
+		return saved;
 	}
 
 	public GroupPermission create(GroupPermission groupPermission) {
-		return repository.save(groupPermission);
+		GroupPermission saved = repository.save(groupPermission);
+		publishChanged(List.of(groupPermission));
+		return saved;
 	}
 
 	public List<GroupPermission> createAll(List<GroupPermission> groupPermissions) {
-		return repository.saveAll(groupPermissions);
+		List<GroupPermission> saved = repository.saveAll(groupPermissions);
+		publishChanged(groupPermissions);
+		return saved;
 	}
 
 	public void delete(GroupPermission groupPermission) {
 		repository.delete(groupPermission);
+		publishChanged(List.of(groupPermission));
 	}
 
 	public void deleteAll(List<GroupPermission> groupPermissions) {
 		repository.deleteAll(groupPermissions);
+		publishChanged(groupPermissions);
 	}
 
 	public boolean existsByUserGroupCodeAndPermissionId(String groupCode, int permissionId) {
@@ -84,4 +100,13 @@ public class GroupPermissionIoOperations {
 	public GroupPermission findById(int id) {
 		return repository.findById(id).orElse(null);
 	}
+
+	private void publishChanged(List<GroupPermission> groupPermissions) {
+		groupPermissions.stream()
+			.map(GroupPermission::getUserGroup)
+			.filter(Objects::nonNull)
+			.map(UserGroup::getCode)
+			.distinct()
+			.forEach(code -> applicationEventPublisher.publishEvent(new UserGroupAuthorizationChangedEvent(code)));
+	}
 }
@@ -24,8 +24,10 @@ package org.isf.permissions.service;
 import java.util.List;
 
 import org.isf.permissions.model.Permission;
+import org.isf.permissions.model.UserGroupAuthorizationChangedEvent;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,8 +38,11 @@ public class PermissionIoOperations {
 
 	private final PermissionIoOperationRepository repository;
 
-	public PermissionIoOperations(PermissionIoOperationRepository permissionIoOperationRepository) {
+	private final ApplicationEventPublisher applicationEventPublisher;
+
+	public PermissionIoOperations(PermissionIoOperationRepository permissionIoOperationRepository, ApplicationEventPublisher applicationEventPublisher) {
 		this.repository = permissionIoOperationRepository;
+		this.applicationEventPublisher = applicationEventPublisher;
 	}
 
 	public List<Permission> findByIdIn(List<Integer> ids) {
@@ -69,6 +74,8 @@ public class PermissionIoOperations {
 	}
 
 	public Permission save(Permission permission) {
-		return repository.save(permission);
+		Permission saved = repository.save(permission);
+		applicationEventPublisher.publishEvent(new UserGroupAuthorizationChangedEvent(null));
+		return saved;
 	}
 }
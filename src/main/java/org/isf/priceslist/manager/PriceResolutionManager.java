@@ -0,0 +1,114 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.priceslist.manager;
+
+import org.isf.priceslist.model.Price;
+import org.isf.priceslist.model.PriceIndex;
+import org.isf.priceslist.model.PriceList;
+import org.isf.priceslist.model.PriceListChangedEvent;
+import org.isf.priceslist.service.PricesListIoOperations;
+import org.isf.utils.db.GenerationGuardedCache;
+import org.isf.utils.db.TransactionalEviction;
+import org.isf.utils.exception.OHServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the {@link Price} of bill items against a {@link PriceList}. A {@link PriceIndex} is built lazily per list and discarded whenever
+ * a {@link PriceListChangedEvent} is published, so that adding a bill line costs a hash lookup.
+ */
+@Component
+public class PriceResolutionManager {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PriceResolutionManager.class);
+
+	private final PricesListIoOperations ioOperations;
+
+	private final GenerationGuardedCache<Integer, PriceIndex> indexes = new GenerationGuardedCache<>();
+
+	public PriceResolutionManager(PricesListIoOperations pricesListIoOperations) {
+		this.ioOperations = pricesListIoOperations;
+	}
+
+	/**
+	 * Returns the {@link PriceIndex} of the given {@link PriceList}, building it if needed. An empty index, e.g. of a deleted list, is not
+	 * kept.
+	 *
+	 * @param listId - the {@link PriceList} id
+	 * @return the {@link PriceIndex}
+	 * @throws OHServiceException When failed to load the prices
+	 */
+	public PriceIndex getIndex(int listId) throws OHServiceException {
+		return indexes.get(listId, this::buildIndex, index -> index.size() > 0);
+	}
+
+	/**
+	 * Returns the price of an item in the given {@link PriceList}.
+	 *
+	 * @param list - the {@link PriceList}
+	 * @param group - the price group, e.g. {@code "EXA"}, {@code "OPE"}, {@code "MED"} or {@code "OTH"}
+	 * @param item - the item code within the group
+	 * @return the price or {@code null} if the list has no price for the item
+	 * @throws OHServiceException When failed to load the prices
+	 */
+	public Double getPrice(PriceList list, String group, String item) throws OHServiceException {
+		return getIndex(list.getId()).getPrice(group, item);
+	}
+
+	/**
+	 * Discards the {@link PriceIndex} of the given {@link PriceList}.
+	 *
+	 * @param listId - the {@link PriceList} id
+	 */
+	public void invalidate(int listId) {
+		indexes.invalidate(listId);
+	}
+
+	/**
+	 * Discards all the {@link PriceIndex}es.
+	 */
+	public void invalidateAll() {
+		indexes.invalidateAll();
+	}
+
+	@EventListener
+	public void handle(PriceListChangedEvent event) {
+		Integer listId = event.getListId();
+		TransactionalEviction.evictNowAndAfterCompletion(() -> evict(listId));
+	}
+
+	private void evict(Integer listId) {
+		if (listId == null) {
+			invalidateAll();
+		} else {
+			invalidate(listId);
+		}
+	}
+
+	private PriceIndex buildIndex(int listId) throws OHServiceException {
+		LOGGER.debug("Building price index for list {}", listId);
+		return ioOperations.getPriceIndex(listId);
+	}
+
+}
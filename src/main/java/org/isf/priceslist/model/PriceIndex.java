@@ -0,0 +1,123 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.priceslist.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of the {@link Price}s of one {@link PriceList}, keyed by group and item, used to resolve bill lines without reading the
+ * prices again.
+ */
+public final class PriceIndex {
+
+	private final int listId;
+
+	private final Map<String, Entry> entries;
+
+	/**
+	 * @param listId - the {@link PriceList} id
+	 * @param rows - the prices of the list as {@code (group, item, description, price)} rows
+	 */
+	public PriceIndex(int listId, List<Object[]> rows) {
+		this.listId = listId;
+		Map<String, Entry> index = new HashMap<>(rows.size() * 4 / 3 + 1);
+		for (Object[] row : rows) {
+			String group = (String) row[0];
+			String item = (String) row[1];
+			index.put(key(group, item), new Entry(group, item, (String) row[2], (Double) row[3]));
+		}
+		this.entries = Collections.unmodifiableMap(index);
+	}
+
+	public int getListId() {
+		return listId;
+	}
+
+	/**
+	 * @param group - the price group, e.g. {@code "EXA"}, {@code "OPE"}, {@code "MED"} or {@code "OTH"}
+	 * @param item - the item code within the group
+	 * @return the {@link Entry} or {@code null} if the list has no price for the item
+	 */
+	public Entry get(String group, String item) {
+		return entries.get(key(group, item));
+	}
+
+	/**
+	 * @param group - the price group
+	 * @param item - the item code within the group
+	 * @return the price or {@code null} if the list has no price for the item
+	 */
+	public Double getPrice(String group, String item) {
+		Entry entry = get(group, item);
+		return entry == null ? null : entry.getPrice();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	private static String key(String group, String item) {
+		return group + '|' + item;
+	}
+
+	/**
+	 * A resolved price of the index.
+	 */
+	public static final class Entry {
+
+		private final String group;
+
+		private final String item;
+
+		private final String description;
+
+		private final Double price;
+
+		Entry(String group, String item, String description, Double price) {
+			this.group = group;
+			this.item = item;
+			this.description = description;
+			this.price = price;
+		}
+
+		public String getGroup() {
+			return group;
+		}
+
+		public String getItem() {
+			return item;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+
+		public Double getPrice() {
+			return price;
+		}
+
+	}
+
+}
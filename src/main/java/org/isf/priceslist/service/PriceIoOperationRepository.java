@@ -21,6 +21,7 @@
  */
 package org.isf.priceslist.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.isf.priceslist.model.Price;
@@ -37,8 +38,25 @@ public interface PriceIoOperationRepository extends JpaRepository<Price, Integer
 
 	List<Price> findByList_id(Integer id);
 
+	@Query("select p.group, p.item, p.description, p.price from Price p where p.list.id = :listId")
+	List<Object[]> findIndexRowsByListId(@Param("listId") Integer listId);
+
 	@Modifying
 	@Query("delete from Price p where p.list.id = :listId")
 	void deleteByListId(@Param("listId") Integer listId);
 
-}
\ No newline at end of file
+	@Modifying
+	@Query("insert into Price (list, group, item, description, price, createdBy, createdDate, lastModifiedBy, lastModifiedDate, active) "
+					+ "select l, p.group, p.item, p.description, p.price * :factor, :user, :now, :user, :now, 1 "
+					+ "from Price p join PriceList l on l.id = :targetId where p.list.id = :sourceId")
+	int copyPrices(@Param("sourceId") Integer sourceId, @Param("targetId") Integer targetId, @Param("factor") double factor,
+					@Param("user") String user, @Param("now") LocalDateTime now);
+
+	@Modifying
+	@Query("insert into Price (list, group, item, description, price, createdBy, createdDate, lastModifiedBy, lastModifiedDate, active) "
+					+ "select l, p.group, p.item, p.description, floor(p.price * :factor / :step + 0.5) * :step, :user, :now, :user, :now, 1 "
+					+ "from Price p join PriceList l on l.id = :targetId where p.list.id = :sourceId")
+	int copyRoundedPrices(@Param("sourceId") Integer sourceId, @Param("targetId") Integer targetId, @Param("factor") double factor,
+					@Param("step") double step, @Param("user") String user, @Param("now") LocalDateTime now);
+
+}
@@ -21,12 +21,24 @@
  */
 package org.isf.priceslist.service;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import org.isf.priceslist.model.Price;
+import org.isf.priceslist.model.PriceIndex;
 import org.isf.priceslist.model.PriceList;
+import org.isf.priceslist.model.PriceListChangedEvent;
+import org.isf.utils.db.AuditorAwareInterface;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.time.TimeTools;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,13 +47,33 @@ import org.springframework.transaction.annotation.Transactional;
 @TranslateOHServiceException
 public class PricesListIoOperations {
 
+	/*
+	 * Hibernate does not batch inserts into an IDENTITY column, so new prices are inserted by JDBC. The statement relies on the IDENTITY
+	 * column, which is why Price is never pooled, see OHGeneratedValue#poolable(), and fills the auditing columns set by the listener of
+	 * the entity.
+	 */
+	private static final String INSERT_PRICE = "INSERT INTO OH_PRICES (PRC_LST_ID, PRC_GRP, PRC_ITEM, PRC_DESC, PRC_PRICE, "
+					+ "PRC_CREATED_BY, PRC_CREATED_DATE, PRC_LAST_MODIFIED_BY, PRC_LAST_MODIFIED_DATE, PRC_ACTIVE) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 1)";
+
+	private static final int BATCH_SIZE = 500;
+
 	private PricesListIoOperationRepository repository;
 	
 	private PriceIoOperationRepository priceRepository;
 
-	public PricesListIoOperations(PricesListIoOperationRepository pricesListIoOperationRepository, PriceIoOperationRepository priceIoOperationRepository) {
+	private JdbcTemplate jdbcTemplate;
+
+	private AuditorAwareInterface auditorAware;
+
+	private ApplicationEventPublisher applicationEventPublisher;
+
+	public PricesListIoOperations(PricesListIoOperationRepository pricesListIoOperationRepository, PriceIoOperationRepository priceIoOperationRepository,
+					JdbcTemplate jdbcTemplate, AuditorAwareInterface auditorAware, ApplicationEventPublisher applicationEventPublisher) {
 		this.repository = pricesListIoOperationRepository;
 		this.priceRepository = priceIoOperationRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.auditorAware = auditorAware;
+		this.applicationEventPublisher = applicationEventPublisher;
 	}
 
 	/**
@@ -65,18 +97,64 @@ public class PricesListIoOperations {
 	}
 
 	/**
-	 * Updates all {@link Price}s in the specified {@link PriceList}
+	 * Return the {@link PriceIndex} of the specified {@link PriceList}, read without loading {@link Price} entities
+	 * 
+	 * @param listId - the {@link PriceList} id
+	 * @return the {@link PriceIndex}
+	 * @throws OHServiceException
+	 */
+	public PriceIndex getPriceIndex(int listId) throws OHServiceException {
+		return new PriceIndex(listId, priceRepository.findIndexRowsByListId(listId));
+	}
+
+	/**
+	 * Updates all {@link Price}s in the specified {@link PriceList}: prices are matched on group and item with the stored ones, only changed
+	 * prices are updated, new prices are inserted with a single JDBC batch and the missing ones are deleted.
 	 * 
 	 * @param list - the {@link PriceList}
 	 * @param prices - the list of {@link Price}s
 	 * @throws OHServiceException
 	 */
 	public void updatePrices(PriceList list, List<Price> prices) throws OHServiceException {
-		priceRepository.deleteByListId(list.getId());
+		Map<String, Price> storedPrices = new HashMap<>();
+		for (Price stored : priceRepository.findByList_id(list.getId())) {
+			storedPrices.put(priceKey(stored), stored);
+		}
+		List<Price> insertedPrices = new ArrayList<>();
 		for (Price price : prices) {
-			price.setList(list);
-			priceRepository.save(price);
+			Price stored = storedPrices.remove(priceKey(price));
+			if (stored == null) {
+				insertedPrices.add(price);
+			} else {
+				if (!Objects.equals(stored.getDesc(), price.getDesc())) {
+					stored.setDesc(price.getDesc());
+				}
+				if (!Objects.equals(stored.getPrice(), price.getPrice())) {
+					stored.setPrice(price.getPrice());
+				}
+			}
+		}
+		if (!storedPrices.isEmpty()) {
+			priceRepository.deleteAll(storedPrices.values());
+		}
+		if (!insertedPrices.isEmpty()) {
+			// the deletes and updates of the persistence context are written before the JDBC batch
+			priceRepository.flush();
+			String user = auditorAware.getCurrentAuditor().orElse(null);
+			Timestamp now = Timestamp.valueOf(TimeTools.getNow());
+			jdbcTemplate.batchUpdate(INSERT_PRICE, insertedPrices, BATCH_SIZE, (statement, price) -> {
+				statement.setInt(1, list.getId());
+				statement.setString(2, price.getGroup());
+				statement.setString(3, price.getItem());
+				statement.setString(4, price.getDesc());
+				statement.setDouble(5, price.getPrice());
+				statement.setString(6, user);
+				statement.setTimestamp(7, now);
+				statement.setString(8, user);
+				statement.setTimestamp(9, now);
+			});
 		}
+		applicationEventPublisher.publishEvent(new PriceListChangedEvent(list.getId()));
 	}
 
 	/**
@@ -111,10 +189,12 @@ public class PricesListIoOperations {
 		int listID = list.getId();
 		priceRepository.deleteByListId(listID);
 		repository.deleteById(listID);
+		applicationEventPublisher.publishEvent(new PriceListChangedEvent(listID));
 	}
 
 	/**
-	 * Duplicate {@link PriceList} multiplying by {@code factor} and rounding by {@code step}
+	 * Duplicate {@link PriceList} multiplying by {@code factor} and rounding by {@code step}; the prices are copied with a single
+	 * {@code INSERT ... SELECT}.
 	 * 
 	 * @param list - the {@link PriceList} to be duplicated
 	 * @param factor - the multiplying factor
@@ -124,20 +204,14 @@ public class PricesListIoOperations {
 	 */
 	public PriceList copyList(PriceList list, double factor, double step) throws OHServiceException {
 		PriceList newList = insertNewPriceList(list);
-		List<Price> prices = priceRepository.findByList_id(list.getId());
-		for (Price price : prices) {
-			Price newPrice = new Price();
-			newPrice.setList(newList);
-			newPrice.setGroup(price.getGroup());
-			newPrice.setDesc(price.getDesc());
-			if (step > 0) {
-				newPrice.setPrice(Math.round(price.getPrice() * factor / step) * step);
-			} else {
-				newPrice.setPrice(price.getPrice() * factor);
-			}
-			newPrice.setItem(price.getItem());
-			priceRepository.save(newPrice);
+		String user = auditorAware.getCurrentAuditor().orElse(null);
+		LocalDateTime now = TimeTools.getNow();
+		if (step > 0) {
+			priceRepository.copyRoundedPrices(list.getId(), newList.getId(), factor, step, user, now);
+		} else {
+			priceRepository.copyPrices(list.getId(), newList.getId(), factor, user, now);
 		}
+		applicationEventPublisher.publishEvent(new PriceListChangedEvent(newList.getId()));
 		return newList;
 	}
 
@@ -149,4 +223,8 @@ public class PricesListIoOperations {
 		newList.setCurrency(list.getCurrency());
 		return repository.save(newList);
 	}
+
+	private static String priceKey(Price price) {
+		return price.getGroup() + "|" + price.getItem();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,182 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.retention.manager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.isf.archive.service.ArchiveIoOperations;
+import org.isf.generaldata.GeneralData;
+import org.isf.retention.model.RetentionPolicy;
+import org.isf.retention.model.RetentionReport;
+import org.isf.retention.service.RetentionIoOperations;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.scheduler.JobScheduler;
+import org.isf.utils.scheduler.JobTrigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes the records of the {@link RetentionPolicy} tables, and of their archive tables, older than their retention period.
+ * <p>
+ * Records are deleted in chunks of {@link GeneralData#PURGEBATCHSIZE} ordered by primary key, each in its own transaction so that locks are
+ * short and replicas receive small transactions, with a pause of {@link GeneralData#PURGEPAUSE} milliseconds between chunks. The
+ * {@value #JOB_NAME} job of the {@link JobScheduler} purges every night the tables with a retention period set at that time. A purge stops at the end of the current
+ * chunk when its thread is interrupted or the application shuts down; since every chunk is committed, the next purge resumes with the
+ * records left.
+ */
+@Component
+public class RetentionManager {
+
+	public static final String JOB_NAME = "retention";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RetentionManager.class);
+	private static final String JOB_SCHEDULE = "0 30 3 * * *";
+	private static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private final RetentionIoOperations ioOperations;
+
+	private final ArchiveIoOperations archiveIoOperations;
+
+	private final Map<String, RetentionReport> reports = new ConcurrentHashMap<>();
+
+	private volatile boolean stopping;
+
+	public RetentionManager(RetentionIoOperations retentionIoOperations, ArchiveIoOperations archiveIoOperations) {
+		this.ioOperations = retentionIoOperations;
+		this.archiveIoOperations = archiveIoOperations;
+	}
+
+	@PostConstruct
+	public void start() {
+		// the retention periods are read when the job runs, GeneralData may not be loaded yet
+		JobScheduler.getDefault().schedule(JOB_NAME, JobTrigger.cron(JOB_SCHEDULE), this::scheduledPurge);
+	}
+
+	@PreDestroy
+	public void stop() {
+		stopping = true;
+		JobScheduler.getDefault().cancel(JOB_NAME);
+	}
+
+	/**
+	 * Purges the tables of all the {@link RetentionPolicy}s with a retention period.
+	 *
+	 * @return the {@link RetentionReport}s, one for each purged table
+	 * @throws OHServiceException
+	 */
+	public List<RetentionReport> purgeAll() throws OHServiceException {
+		List<RetentionReport> purged = new ArrayList<>();
+		for (RetentionPolicy policy : RetentionPolicy.values()) {
+			int days = policy.getRetentionDays();
+			if (days > 0) {
+				purged.addAll(purge(policy, LocalDateTime.now().minusDays(days)));
+			}
+		}
+		return purged;
+	}
+
+	/**
+	 * Deletes the records of the table of the specified policy, and of its archive table, dated before the horizon.
+	 *
+	 * @param policy - the {@link RetentionPolicy}
+	 * @param horizon - the records dated before are deleted
+	 * @return the {@link RetentionReport}s of the table and of its archive table
+	 * @throws OHServiceException
+	 */
+	public List<RetentionReport> purge(RetentionPolicy policy, LocalDateTime horizon) throws OHServiceException {
+		boolean archived = archiveIoOperations.hasArchiveTables(policy.getArchiveTable());
+		List<RetentionReport> purged = new ArrayList<>();
+		for (String table : policy.getTables()) {
+			// an archive table is only created by the first archiving, before nothing was archived
+			RetentionReport report = archived || table.equals(policy.getTable()) ? purge(policy, table, horizon)
+					: new RetentionReport(policy, table, 0, 0, 0, true);
+			LOGGER.info("Retention of {} before {}: {}", policy, horizon, report);
+			purged.add(report);
+		}
+		return purged;
+	}
+
+	/**
+	 * @return the progress of the running purges and the outcome of the last ones, by table
+	 */
+	public Map<String, RetentionReport> getReports() {
+		return Map.copyOf(reports);
+	}
+
+	private void scheduledPurge() throws OHServiceException {
+		GeneralData.getGeneralData();
+		purgeAll();
+	}
+
+	private RetentionReport purge(RetentionPolicy policy, String table, LocalDateTime horizon) {
+		int batchSize = getBatchSize();
+		long deletedRows = 0;
+		int chunks = 0;
+		int lastId = 0;
+		boolean completed = false;
+		reports.put(table, new RetentionReport(policy, table, deletedRows, chunks, lastId, false));
+		while (!stopping && !Thread.currentThread().isInterrupted()) {
+			List<Integer> ids = ioOperations.getExpiredIds(policy, table, horizon, lastId, batchSize);
+			if (!ids.isEmpty()) {
+				deletedRows += ioOperations.delete(policy, table, horizon, ids);
+				chunks++;
+				lastId = ids.get(ids.size() - 1);
+				reports.put(table, new RetentionReport(policy, table, deletedRows, chunks, lastId, false));
+				LOGGER.debug("Retention of {}: {} rows deleted up to id {}.", table, deletedRows, lastId);
+			}
+			if (ids.size() < batchSize) {
+				completed = true;
+				break;
+			}
+			pause();
+		}
+		RetentionReport report = new RetentionReport(policy, table, deletedRows, chunks, lastId, completed);
+		reports.put(table, report);
+		return report;
+	}
+
+	private static int getBatchSize() {
+		Integer batchSize = GeneralData.PURGEBATCHSIZE;
+		return batchSize == null ? DEFAULT_BATCH_SIZE : batchSize;
+	}
+
+	private static void pause() {
+		Integer pause = GeneralData.PURGEPAUSE;
+		if (pause != null && pause > 0) {
+			try {
+				Thread.sleep(pause);
+			} catch (InterruptedException e) {
+				// the purge loop stops at the interrupted flag
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
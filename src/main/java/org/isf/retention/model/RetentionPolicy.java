@@ -0,0 +1,87 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.retention.model;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.isf.archive.model.ArchiveTable;
+import org.isf.generaldata.GeneralData;
+
+/**
+ * The tables whose records are deleted once older than their retention period, together with the records moved to their archive table.
+ */
+public enum RetentionPolicy {
+
+	// SMS scheduled before the horizon, sent or not
+	SMS("OH_SMS", "SMS_ID", "SMS_DATE_SCHED", ArchiveTable.SMS, () -> GeneralData.SMSRETENTION),
+	SESSION_AUDIT("OH_SESSION_AUDIT", "SEA_ID", "SEA_LOGIN", ArchiveTable.SESSION_AUDIT, () -> GeneralData.SESSIONAUDITRETENTION);
+
+	private final String table;
+	private final String idColumn;
+	private final String dateColumn;
+	private final ArchiveTable archiveTable;
+	private final Supplier<Integer> retention;
+
+	RetentionPolicy(String table, String idColumn, String dateColumn, ArchiveTable archiveTable, Supplier<Integer> retention) {
+		this.table = table;
+		this.idColumn = idColumn;
+		this.dateColumn = dateColumn;
+		this.archiveTable = archiveTable;
+		this.retention = retention;
+	}
+
+	/**
+	 * @return the table and its archive table
+	 */
+	public List<String> getTables() {
+		return List.of(table, archiveTable.getArchiveTable());
+	}
+
+	public String getTable() {
+		return table;
+	}
+
+	public String getIdColumn() {
+		return idColumn;
+	}
+
+	/**
+	 * @return the column compared with the horizon
+	 */
+	public String getDateColumn() {
+		return dateColumn;
+	}
+
+	public ArchiveTable getArchiveTable() {
+		return archiveTable;
+	}
+
+	/**
+	 * @return the retention period in days, {@code 0} if the records are kept forever
+	 */
+	public int getRetentionDays() {
+		Integer days = retention.get();
+		return days == null ? 0 : days;
+	}
+
+}
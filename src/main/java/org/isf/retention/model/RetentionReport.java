@@ -0,0 +1,86 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.retention.model;
+
+/**
+ * The progress of the purge of a table by the retention engine.
+ */
+public class RetentionReport {
+
+	private final RetentionPolicy policy;
+	private final String table;
+	private final long deletedRows;
+	private final int chunks;
+	private final int lastId;
+	private final boolean completed;
+
+	public RetentionReport(RetentionPolicy policy, String table, long deletedRows, int chunks, int lastId, boolean completed) {
+		this.policy = policy;
+		this.table = table;
+		this.deletedRows = deletedRows;
+		this.chunks = chunks;
+		this.lastId = lastId;
+		this.completed = completed;
+	}
+
+	public RetentionPolicy getPolicy() {
+		return policy;
+	}
+
+	public String getTable() {
+		return table;
+	}
+
+	/**
+	 * @return the number of rows deleted so far
+	 */
+	public long getDeletedRows() {
+		return deletedRows;
+	}
+
+	/**
+	 * @return the number of chunks deleted so far, each in its own transaction
+	 */
+	public int getChunks() {
+		return chunks;
+	}
+
+	/**
+	 * @return the highest id deleted so far, {@code 0} if none
+	 */
+	public int getLastId() {
+		return lastId;
+	}
+
+	/**
+	 * @return {@code true} if every expired row was deleted, {@code false} while running or when interrupted
+	 */
+	public boolean isCompleted() {
+		return completed;
+	}
+
+	@Override
+	public String toString() {
+		return table + ": " + deletedRows + " rows deleted in " + chunks + " chunks" + (completed ? "" : ", not completed");
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.retention.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.isf.retention.model.RetentionPolicy;
+import org.isf.utils.db.TranslateOHServiceException;
+import org.isf.utils.exception.OHServiceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Deletes the expired records of the {@link RetentionPolicy} tables in chunks ordered by primary key, each call in its own transaction.
+ */
+@Service
+@Transactional(rollbackFor = OHServiceException.class)
+@TranslateOHServiceException
+public class RetentionIoOperations {
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	public RetentionIoOperations(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+	}
+
+	/**
+	 * Retrieves the ids of up to {@code limit} records dated before the horizon, in ascending order. As for the archiving, the record with the
+	 * highest id of the table is kept, so that the identity of the table cannot go back and reuse purged ids.
+	 *
+	 * @param policy - the {@link RetentionPolicy}
+	 * @param table - the table of the policy or its archive table
+	 * @param horizon - the records dated before are expired
+	 * @param afterId - only the ids greater than this one are retrieved
+	 * @param limit - the maximum number of ids
+	 * @return the ids of the expired records
+	 */
+	@Transactional(readOnly = true)
+	public List<Integer> getExpiredIds(RetentionPolicy policy, String table, LocalDateTime horizon, int afterId, int limit) {
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("horizon", horizon);
+		parameters.put("afterId", afterId);
+		String id = policy.getIdColumn();
+		StringBuilder query = new StringBuilder("SELECT t.").append(id).append(" FROM ").append(table).append(" t WHERE t.")
+				.append(policy.getDateColumn()).append(" < :horizon AND t.").append(id).append(" > :afterId");
+		if (table.equals(policy.getTable())) {
+			query.append(" AND t.").append(id).append(" < (SELECT MAX(m.").append(id).append(") FROM ").append(table).append(" m)");
+		}
+		query.append(" ORDER BY t.").append(id).append(" LIMIT ").append(limit);
+		return jdbcTemplate.queryForList(query.toString(), parameters, Integer.class);
+	}
+
+	/**
+	 * Deletes the specified records, provided that they are still dated before the horizon.
+	 *
+	 * @param policy - the {@link RetentionPolicy}
+	 * @param table - the table of the policy or its archive table
+	 * @param horizon - the records dated before are expired
+	 * @param ids - the ids of the records
+	 * @return the number of deleted records
+	 */
+	public int delete(RetentionPolicy policy, String table, LocalDateTime horizon, List<Integer> ids) {
+		Map<String, Object> parameters = new HashMap<>();
+		parameters.put("horizon", horizon);
+		parameters.put("ids", ids);
+		return jdbcTemplate.update("DELETE FROM " + table + " WHERE " + policy.getIdColumn() + " IN (:ids) AND " + policy.getDateColumn()
+				+ " < :horizon", parameters);
+	}
+
+}
@@ -21,9 +21,11 @@
  */
 package org.isf.sessionaudit.manager;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.isf.sessionaudit.model.SessionAudit;
+import org.isf.sessionaudit.model.SessionContext;
 import org.isf.sessionaudit.service.SessionAuditIoOperation;
 import org.isf.utils.exception.OHServiceException;
 import org.springframework.stereotype.Component;
@@ -36,8 +38,11 @@ public class SessionAuditManager {
 
 	private SessionAuditIoOperation ioOperation;
 
-	public SessionAuditManager(SessionAuditIoOperation sessionAuditIoOperation) {
+	private SessionAuditWriter writer;
+
+	public SessionAuditManager(SessionAuditIoOperation sessionAuditIoOperation, SessionAuditWriter sessionAuditWriter) {
 		this.ioOperation = sessionAuditIoOperation;
+		this.writer = sessionAuditWriter;
 	}
 
 	/**
@@ -73,4 +78,30 @@ public class SessionAuditManager {
 		return ioOperation.updateSessionAudit(sessionAudit);
 	}
 
+	/**
+	 * Records asynchronously the login of the given {@link SessionContext}.
+	 *
+	 * @param session the {@link SessionContext}
+	 */
+	public void recordLogin(SessionContext session) {
+		writer.recordLogin(session);
+	}
+
+	/**
+	 * Records asynchronously the logout of the given {@link SessionContext}.
+	 *
+	 * @param session the {@link SessionContext}
+	 * @param logoutDate the logout date
+	 */
+	public void recordLogout(SessionContext session, LocalDateTime logoutDate) {
+		writer.recordLogout(session, logoutDate);
+	}
+
+	/**
+	 * Writes the pending login and logout records.
+	 */
+	public void flushSessionAudits() {
+		writer.flush();
+	}
+
 }
@@ -0,0 +1,124 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.sessionaudit.manager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.isf.sessionaudit.model.SessionAudit;
+import org.isf.sessionaudit.model.SessionContext;
+import org.isf.sessionaudit.service.SessionAuditIoOperation;
+import org.isf.utils.db.WriteBehindJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the {@link SessionAudit}s of logins and logouts in the background.
+ * <p>
+ * Records are written in batches of up to {@value #BATCH_SIZE}, at most {@value #FLUSH_DELAY_MILLIS} ms after being queued. A logout queued
+ * in the same batch as its login is written with the login as a single row.
+ */
+@Component
+public class SessionAuditWriter extends WriteBehindJournal<SessionAuditWriter.AuditRecord> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SessionAuditWriter.class);
+
+	private static final int BATCH_SIZE = 500;
+
+	private static final long FLUSH_DELAY_MILLIS = 1000;
+
+	private final SessionAuditIoOperation ioOperation;
+
+	public SessionAuditWriter(SessionAuditIoOperation sessionAuditIoOperation) {
+		super("oh-session-audit", BATCH_SIZE, FLUSH_DELAY_MILLIS);
+		this.ioOperation = sessionAuditIoOperation;
+	}
+
+	/**
+	 * Queues the login of the given session; its {@link SessionContext#getSessionAuditId() session audit id} is set once written.
+	 *
+	 * @param session - the {@link SessionContext}
+	 */
+	public void recordLogin(SessionContext session) {
+		append(new AuditRecord(session, null));
+	}
+
+	/**
+	 * Queues the logout of the given session.
+	 *
+	 * @param session - the {@link SessionContext}
+	 * @param logoutDate - the logout date
+	 */
+	public void recordLogout(SessionContext session, LocalDateTime logoutDate) {
+		append(new AuditRecord(session, logoutDate));
+	}
+
+	@Override
+	protected void write(List<AuditRecord> records) {
+		Map<SessionContext, SessionAudit> newAudits = new LinkedHashMap<>();
+		Map<Integer, LocalDateTime> logoutDates = new LinkedHashMap<>();
+		for (AuditRecord sessionRecord : records) {
+			SessionContext session = sessionRecord.session;
+			SessionAudit newAudit = newAudits.get(session);
+			if (sessionRecord.logoutDate == null) {
+				// a login already written by a batch that failed afterwards is not inserted again
+				if (session.getSessionAuditId() == null) {
+					newAudits.put(session, new SessionAudit(session.getUserName(), session.getLoginDate(), null));
+				}
+			} else if (newAudit != null) {
+				newAudit.setLogoutDate(sessionRecord.logoutDate);
+			} else if (session.getSessionAuditId() != null) {
+				logoutDates.put(session.getSessionAuditId(), sessionRecord.logoutDate);
+			} else {
+				LOGGER.warn("Logout of session {} without a recorded login", session);
+			}
+		}
+		if (!newAudits.isEmpty()) {
+			List<SessionAudit> saved = ioOperation.saveSessionAudits(new ArrayList<>(newAudits.values()));
+			int i = 0;
+			for (SessionContext session : newAudits.keySet()) {
+				session.setSessionAuditId(saved.get(i++).getCode());
+			}
+		}
+		if (!logoutDates.isEmpty()) {
+			ioOperation.setLogoutDates(logoutDates);
+		}
+	}
+
+	static final class AuditRecord {
+
+		private final SessionContext session;
+
+		private final LocalDateTime logoutDate;
+
+		private AuditRecord(SessionContext session, LocalDateTime logoutDate) {
+			this.session = session;
+			this.logoutDate = logoutDate;
+		}
+
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.sessionaudit.manager;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.isf.generaldata.GeneralData;
+import org.isf.menu.model.User;
+import org.isf.sessionaudit.model.SessionContext;
+import org.isf.utils.time.TimeTools;
+import org.isf.utils.time.TimingWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of the open sessions, for applications serving several users at the same time.
+ * <p>
+ * Sessions are keyed by an opaque token and expire after {@link GeneralData#SESSIONTIMEOUT} minutes without access. Expiries run on the
+ * shared {@link TimingWheel}; accessing a session only records the access time, the expiry is postponed when it fires. Logins and logouts are
+ * recorded through the {@link SessionAuditManager}.
+ */
+@Component
+public class SessionRegistry {
+
+	private static final int TOKEN_BYTES = 24;
+
+	private final SessionAuditManager sessionAuditManager;
+
+	private final TimingWheel timingWheel;
+
+	private final LongSupplier nanoClock;
+
+	private final Map<String, SessionContext> sessions = new ConcurrentHashMap<>();
+
+	private final SecureRandom random = new SecureRandom();
+
+	private volatile Duration idleTimeout;
+
+	@Autowired
+	public SessionRegistry(SessionAuditManager sessionAuditManager) {
+		this(sessionAuditManager, TimingWheel.getDefault(), System::nanoTime);
+	}
+
+	/**
+	 * @param sessionAuditManager - the manager recording logins and logouts
+	 * @param timingWheel - the wheel timing the expiries
+	 * @param nanoClock - the clock of the session accesses, in nanoseconds
+	 */
+	public SessionRegistry(SessionAuditManager sessionAuditManager, TimingWheel timingWheel, LongSupplier nanoClock) {
+		this.sessionAuditManager = sessionAuditManager;
+		this.timingWheel = timingWheel;
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * Opens a new session for the given {@link User}.
+	 *
+	 * @param user - the {@link User}
+	 * @return the new {@link SessionContext}
+	 */
+	public SessionContext login(User user) {
+		SessionContext session;
+		do {
+			session = new SessionContext(newToken(), user, TimeTools.getNow());
+			session.touch(nanoClock.getAsLong());
+		} while (sessions.putIfAbsent(session.getToken(), session) != null);
+		scheduleExpiry(session, getIdleTimeout().toNanos());
+		sessionAuditManager.recordLogin(session);
+		return session;
+	}
+
+	/**
+	 * Returns the session with the given token, recording an access to it.
+	 *
+	 * @param token - the session token
+	 * @return the {@link SessionContext}, empty if the session does not exist or has expired
+	 */
+	public Optional<SessionContext> getSession(String token) {
+		SessionContext session = token == null ? null : sessions.get(token);
+		if (session != null) {
+			session.touch(nanoClock.getAsLong());
+		}
+		return Optional.ofNullable(session);
+	}
+
+	/**
+	 * Closes the session with the given token.
+	 *
+	 * @param token - the session token
+	 * @return {@code true} if the session was open
+	 */
+	public boolean logout(String token) {
+		SessionContext session = token == null ? null : sessions.remove(token);
+		if (session == null) {
+			return false;
+		}
+		sessionAuditManager.recordLogout(session, TimeTools.getNow());
+		return true;
+	}
+
+	/**
+	 * @param userName - the user name
+	 * @return the open sessions of the given user
+	 */
+	public List<SessionContext> getSessions(String userName) {
+		return sessions.values().stream()
+			.filter(session -> session.getUserName().equals(userName))
+			.toList();
+	}
+
+	/**
+	 * @return the number of open sessions
+	 */
+	public int getSessionCount() {
+		return sessions.size();
+	}
+
+	public Duration getIdleTimeout() {
+		Duration timeout = idleTimeout;
+		if (timeout == null) {
+			Integer minutes = GeneralData.SESSIONTIMEOUT;
+			timeout = Duration.ofMinutes(minutes == null ? 5 : minutes);
+		}
+		return timeout;
+	}
+
+	/**
+	 * Overrides the {@link GeneralData#SESSIONTIMEOUT} idle timeout; sessions already open keep their current expiry until it fires.
+	 *
+	 * @param idleTimeout - the idle timeout
+	 */
+	public void setIdleTimeout(Duration idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	private void scheduleExpiry(SessionContext session, long delayNanos) {
+		timingWheel.schedule(() -> expire(session), delayNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private void expire(SessionContext session) {
+		if (sessions.get(session.getToken()) != session) {
+			return;
+		}
+		long remaining = session.getLastAccessNanos() + getIdleTimeout().toNanos() - nanoClock.getAsLong();
+		if (remaining > 0) {
+			scheduleExpiry(session, remaining);
+		} else if (sessions.remove(session.getToken(), session)) {
+			sessionAuditManager.recordLogout(session, TimeTools.getNow());
+		}
+	}
+
+	private String newToken() {
+		byte[] bytes = new byte[TOKEN_BYTES];
+		random.nextBytes(bytes);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+}
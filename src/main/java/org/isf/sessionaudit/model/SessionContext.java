@@ -0,0 +1,105 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.sessionaudit.model;
+
+import java.time.LocalDateTime;
+
+import org.isf.menu.model.User;
+
+/**
+ * A logged in {@link User}, identified by an opaque session token.
+ */
+public final class SessionContext {
+
+	private final String token;
+
+	private final User user;
+
+	private final LocalDateTime loginDate;
+
+	private volatile long lastAccessNanos;
+
+	private volatile Integer sessionAuditId;
+
+	public SessionContext(String token, User user, LocalDateTime loginDate) {
+		this.token = token;
+		this.user = user;
+		this.loginDate = loginDate;
+		this.lastAccessNanos = System.nanoTime();
+	}
+
+	public String getToken() {
+		return token;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	public String getUserName() {
+		return user.getUserName();
+	}
+
+	public LocalDateTime getLoginDate() {
+		return loginDate;
+	}
+
+	/**
+	 * @return the time of the last access to the session, in nanoseconds
+	 */
+	public long getLastAccessNanos() {
+		return lastAccessNanos;
+	}
+
+	/**
+	 * Records an access to the session, postponing its idle expiry.
+	 */
+	public void touch() {
+		touch(System.nanoTime());
+	}
+
+	/**
+	 * Records an access to the session at the given time.
+	 *
+	 * @param nanoTime - the time of the access, in nanoseconds
+	 */
+	public void touch(long nanoTime) {
+		lastAccessNanos = nanoTime;
+	}
+
+	/**
+	 * @return the code of the {@link SessionAudit} of the session, {@code null} until the login has been written
+	 */
+	public Integer getSessionAuditId() {
+		return sessionAuditId;
+	}
+
+	public void setSessionAuditId(Integer sessionAuditId) {
+		this.sessionAuditId = sessionAuditId;
+	}
+
+	@Override
+	public String toString() {
+		return getUserName() + '@' + loginDate;
+	}
+
+}
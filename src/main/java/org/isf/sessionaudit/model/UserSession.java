@@ -21,21 +21,25 @@
  */
 package org.isf.sessionaudit.model;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.isf.menu.model.User;
 import org.isf.utils.time.DelayTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Session of the single user of a desktop client. Applications serving several users at the same time use the
+ * {@link org.isf.sessionaudit.manager.SessionRegistry}.
+ */
 public class UserSession {
 
 	private static final String LOGOUT_TIMER = "logoutTimer";
 	private static final String USER = "user";
 	private static final String SESSION_ID = "sessionAuditId";
 
-	private static Map<String, Object> map = new HashMap<>();
+	private static Map<String, Object> map = new ConcurrentHashMap<>();
 
 	protected static final Logger LOGGER = LoggerFactory.getLogger(UserSession.class);
 
@@ -44,11 +48,11 @@ public class UserSession {
 	}
 
 	public static void setTimer(DelayTimer logoutTimer) {
-		map.put(LOGOUT_TIMER, logoutTimer);
+		put(LOGOUT_TIMER, logoutTimer);
 	}
 
 	public static void setUser(User myUser) {
-		map.put(USER, myUser);
+		put(USER, myUser);
 	}
 
 	public static User getUser() {
@@ -70,4 +74,12 @@ public class UserSession {
 	public static Integer getSessionAuditId() {
 		return (Integer) map.get(SESSION_ID);
 	}
+
+	private static void put(String key, Object value) {
+		if (value == null) {
+			map.remove(key);
+		} else {
+			map.put(key, value);
+		}
+	}
 }
@@ -21,11 +21,15 @@
  */
 package org.isf.sessionaudit.service;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.isf.sessionaudit.model.SessionAudit;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -37,10 +41,17 @@ import org.springframework.transaction.annotation.Transactional;
 @TranslateOHServiceException
 public class SessionAuditIoOperation {
 
+	private static final String UPDATE_LOGOUT_DATE = "UPDATE OH_SESSION_AUDIT SET SEA_LOGOUT = ? WHERE SEA_ID = ?";
+
+	private static final int BATCH_SIZE = 500;
+
 	private SessionAuditIoOperationRepository repository;
 
-	public SessionAuditIoOperation(SessionAuditIoOperationRepository sessionAuditIoOperationRepository) {
+	private final JdbcTemplate jdbcTemplate;
+
+	public SessionAuditIoOperation(SessionAuditIoOperationRepository sessionAuditIoOperationRepository, JdbcTemplate jdbcTemplate) {
 		this.repository = sessionAuditIoOperationRepository;
+		this.jdbcTemplate = jdbcTemplate;
 	}
 
 	/**
@@ -75,4 +86,28 @@ public class SessionAuditIoOperation {
 	public SessionAudit updateSessionAudit(SessionAudit sessionAudit) {
 		return repository.save(sessionAudit);
 	}
+
+	/**
+	 * Saves a batch of new {@link SessionAudit}s.
+	 *
+	 * @param sessionAudits
+	 *            the new session audits
+	 * @return the saved {@link SessionAudit}s, in the same order
+	 */
+	public List<SessionAudit> saveSessionAudits(List<SessionAudit> sessionAudits) {
+		return repository.saveAll(sessionAudits);
+	}
+
+	/**
+	 * Sets the logout date of a batch of {@link SessionAudit}s in JDBC batches.
+	 *
+	 * @param logoutDates
+	 *            the logout dates by session audit code
+	 */
+	public void setLogoutDates(Map<Integer, LocalDateTime> logoutDates) {
+		jdbcTemplate.batchUpdate(UPDATE_LOGOUT_DATE, logoutDates.entrySet(), BATCH_SIZE, (statement, entry) -> {
+			statement.setObject(1, entry.getValue());
+			statement.setInt(2, entry.getKey());
+		});
+	}
 }
@@ -25,14 +25,13 @@ import java.time.LocalDateTime;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.validation.constraints.NotNull;
 
+import org.isf.utils.db.OHGeneratedValue;
 import org.isf.utils.time.TimeTools;
 
 /**
@@ -43,7 +42,7 @@ import org.isf.utils.time.TimeTools;
 public class Sms {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@OHGeneratedValue
 	@Column(name = "SMS_ID")
 	private int smsId;
 
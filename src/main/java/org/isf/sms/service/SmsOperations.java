@@ -22,8 +22,12 @@
 package org.isf.sms.service;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
+import org.isf.archive.model.ArchiveTable;
+import org.isf.archive.service.ArchiveIoOperations;
 import org.isf.sms.model.Sms;
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHServiceException;
@@ -43,9 +47,12 @@ import org.springframework.transaction.annotation.Transactional;
 public class SmsOperations {
 
 	private SmsIoOperationRepository repository;
+
+	private ArchiveIoOperations archiveIoOperations;
 	
-	public SmsOperations(SmsIoOperationRepository smsIoOperationRepository) {
+	public SmsOperations(SmsIoOperationRepository smsIoOperationRepository, ArchiveIoOperations archiveIoOperations) {
 		this.repository = smsIoOperationRepository;
+		this.archiveIoOperations = archiveIoOperations;
 	}
 	
 	/**
@@ -79,12 +86,17 @@ public class SmsOperations {
 	}
 	
 	/**
-	 * Returns the list of all {@link Sms}s, sent and not sent, between the two dates.
+	 * Returns the list of all {@link Sms}s, sent and not sent, between the two dates, archived ones included.
 	 * @return smsList - the list of {@link Sms}s objects.
 	 * @throws OHServiceException 
 	 */
 	public List<Sms> getAll(LocalDateTime dateFrom, LocalDateTime dateTo) throws OHServiceException {
-		return repository.findBySmsDateSchedBetweenOrderBySmsDateSchedAsc(TimeTools.truncateToSeconds(dateFrom), TimeTools.truncateToSeconds(dateTo));
+		LocalDateTime from = TimeTools.truncateToSeconds(dateFrom);
+		LocalDateTime to = TimeTools.truncateToSeconds(dateTo);
+		List<Sms> archived = archiveIoOperations.getArchived(ArchiveTable.SMS, Sms.class, null, from, "SMS_DATE_SCHED BETWEEN :dateFrom AND :dateTo",
+				Map.of("dateFrom", from, "dateTo", to));
+		return ArchiveIoOperations.union(repository.findBySmsDateSchedBetweenOrderBySmsDateSchedAsc(from, to), archived,
+				Comparator.comparing(Sms::getSmsDateSched));
 	}
 	
 	/**
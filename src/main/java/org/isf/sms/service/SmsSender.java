@@ -21,24 +21,34 @@
  */
 package org.isf.sms.service;
 
+import java.time.Duration;
 import java.util.List;
 
 import org.isf.generaldata.SmsParameters;
 import org.isf.menu.manager.Context;
 import org.isf.sms.model.Sms;
 import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.scheduler.JobScheduler;
+import org.isf.utils.scheduler.JobTrigger;
 import org.isf.utils.time.TimeTools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Once {@link #run() run}, sends the pending {@link Sms}s every {@link SmsParameters#LOOP} seconds, as the {@value #JOB_NAME} job of the
+ * {@link JobScheduler}; {@link #sendOnce()} sends them once.
+ *
  * @author Mwithi 31/gen/2014
  */
 public class SmsSender implements Runnable {
 
+	public static final String JOB_NAME = "sms-sender";
+
 	private static final Logger LOGGER = LoggerFactory.getLogger(SmsSender.class);
 
-	private boolean running = true;
+	private static final double JITTER = 0.1;
+
+	private volatile boolean running = true;
 	private int delay;
 
 	public SmsSender() {
@@ -48,60 +58,81 @@ public class SmsSender implements Runnable {
 		LOGGER.info("SMS Sender loop set to {} seconds.", delay);
 	}
 
+	/**
+	 * Schedules the {@value #JOB_NAME} job and returns, unless the sender was stopped; the job keeps sending the pending {@link Sms}s until
+	 * {@link #setRunning(boolean) stopped}, and a gateway initialization error delays its next run with an exponential backoff.
+	 */
 	@Override
 	public void run() {
+		if (running) {
+			JobTrigger trigger = JobTrigger.fixedDelay(Duration.ZERO, Duration.ofSeconds(Math.max(delay, 1)), JITTER);
+			JobScheduler.getDefault().schedule(JOB_NAME, trigger, this::sendPendingSms);
+		}
+	}
+
+	/**
+	 * Sends the pending {@link Sms}s once.
+	 */
+	public void sendOnce() {
+		try {
+			sendPendingSms();
+		} catch (RuntimeException e) {
+			LOGGER.error("SMS Sender failed: {}", e.getMessage());
+			LOGGER.debug(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Sends the {@link Sms}s scheduled before now.
+	 *
+	 * @throws IllegalStateException When the SMS gateway could not be initialized
+	 */
+	public void sendPendingSms() {
 		SmsOperations smsOp = Context.getApplicationContext().getBean(SmsOperations.class);
 		SmsSenderOperations sender = Context.getApplicationContext().getBean(SmsSenderOperations.class);
-		while (running) {
-			LOGGER.info("SMS Sender running...");
-			List<Sms> smsList = null;
-			try {
-				smsList = smsOp.getList();
-			} catch (OHServiceException e1) {
-				LOGGER.error("Error list loading");
-			}
-			if (smsList != null && !smsList.isEmpty()) {
-				LOGGER.info("Found {} SMS to send", smsList.size());
-				if (sender.initialize()) {
-					for (Sms sms : smsList) {
-						if (sms.getSmsDateSched().isBefore(TimeTools.getNow())) {
-							boolean result = sender.sendSMS(sms);
-							if (result) {
-								sms.setSmsDateSent(TimeTools.getNow());
-								try {
-									smsOp.saveOrUpdate(sms);
-								} catch (OHServiceException e) {
-									LOGGER.error("Failed saving: {}", e.getMessage());
-								}
-								LOGGER.debug("Sent");
-							} else {
-								LOGGER.error("Not sent");
-							}
-						}
+		LOGGER.info("SMS Sender running...");
+		List<Sms> smsList = null;
+		try {
+			smsList = smsOp.getList();
+		} catch (OHServiceException e1) {
+			LOGGER.error("Error list loading");
+		}
+		if (smsList == null || smsList.isEmpty()) {
+			LOGGER.debug("No SMS to send.");
+			return;
+		}
+		LOGGER.info("Found {} SMS to send", smsList.size());
+		if (!sender.initialize()) {
+			throw new IllegalStateException("SMS Sender HTTP initialization error");
+		}
+		for (Sms sms : smsList) {
+			if (sms.getSmsDateSched().isBefore(TimeTools.getNow())) {
+				boolean result = sender.sendSMS(sms);
+				if (result) {
+					sms.setSmsDateSent(TimeTools.getNow());
+					try {
+						smsOp.saveOrUpdate(sms);
+					} catch (OHServiceException e) {
+						LOGGER.error("Failed saving: {}", e.getMessage());
 					}
-					boolean terminationResult = sender.terminate();
-					LOGGER.debug("termination result: {}", terminationResult);
+					LOGGER.debug("Sent");
 				} else {
-					LOGGER.error("SMS Sender HTTP initialization error");
-					LOGGER.error("Stopping HTTP Sender...");
-					setRunning(false);
+					LOGGER.error("Not sent");
 				}
-			} else {
-				LOGGER.debug("No SMS to send.");
-			}
-			try {
-				Thread.sleep(delay * 1000);
-			} catch (InterruptedException e) {
-				LOGGER.error(e.getMessage());
 			}
 		}
+		boolean terminationResult = sender.terminate();
+		LOGGER.debug("termination result: {}", terminationResult);
 	}
 
 	/**
 	 * @param running
-	 *            the running to set
+	 *            the running to set; {@code false} cancels the {@value #JOB_NAME} job
 	 */
 	public void setRunning(boolean running) {
 		this.running = running;
+		if (!running) {
+			JobScheduler.getDefault().cancel(JOB_NAME);
+		}
 	}
 }
@@ -21,6 +21,7 @@
  */
 package org.isf.telemetry.daemon;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -33,13 +34,22 @@ import org.isf.telemetry.manager.TelemetryManager;
 import org.isf.telemetry.model.Telemetry;
 import org.isf.telemetry.util.TelemetryUtils;
 import org.isf.utils.exception.OHException;
+import org.isf.utils.scheduler.JobScheduler;
+import org.isf.utils.scheduler.JobTrigger;
 import org.isf.utils.time.TimeTools;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Sends the telemetry data once a day, checking every {@code telemetry.daemon.thread.loop.seconds} seconds, as the {@value #JOB_NAME} job of
+ * the {@link JobScheduler}.
+ */
 public class TelemetryDaemon extends ConfigurationProperties implements Runnable {
 
+	public static final String JOB_NAME = "telemetry";
+
 	private static final Logger LOGGER = LoggerFactory.getLogger(TelemetryDaemon.class);
+	private static final double JITTER = 0.1;
 	private static final String FILE_PROPERTIES = "telemetry.properties";
 	private static final int DEFAULT_DELAY = 14400; // seconds
 	private Map<String, String> geoIpServicesUrlMap;
@@ -47,25 +57,28 @@ public class TelemetryDaemon extends ConfigurationProperties implements Runnable
 
 	// Singleton instance
 	private static volatile TelemetryDaemon instance;
-	private Thread telemetryThread;
 
 	private TelemetryManager telemetryManager;
 	private TelemetryUtils telemetryUtils;
 	private Telemetry settings;
 
-	private boolean running;
+	private volatile boolean running;
 	private int customDelay = DEFAULT_DELAY;
 	private int updateSettingsCounter;
-	private boolean reloadSettings;
+	private volatile boolean reloadSettings;
 
 	/**
 	 * Starts the Telemetry Daemon
 	 */
 	public void start() {
-		telemetryThread = new Thread(this);
-		telemetryThread.start();
-		setRunning(true);
 		setReloadSettings(true);
+		if (telemetryManager == null) {
+			LOGGER.info("Telemetry daemon not configured, not started.");
+			return;
+		}
+		setRunning(true);
+		JobTrigger trigger = JobTrigger.fixedDelay(Duration.ZERO, Duration.ofSeconds(Math.max(customDelay, 1)), JITTER);
+		JobScheduler.getDefault().schedule(JOB_NAME, trigger, this::sendTelemetry);
 	}
 
 	private TelemetryDaemon() {
@@ -106,33 +119,35 @@ public class TelemetryDaemon extends ConfigurationProperties implements Runnable
 		return instance;
 	}
 
+	/**
+	 * Runs the telemetry check once.
+	 */
+	@Override
 	public void run() {
-		while (running) {
-			if (reloadSettings) {
-				this.settings = telemetryManager.retrieveSettings();
-				setReloadSettings(false);
-			}
-			LOGGER.info("Telemetry module running ({})...", updateSettingsCounter);
-			boolean isSendingMessageServiceActive = settings != null && settings.getActive() != null ? settings.getActive().booleanValue() : false;
-			if (!isSendingMessageServiceActive) {
-				LOGGER.info("No data selected.");
-			} else if (isSendingMessageServiceActive && isTimeToSendMessage()) {
-				try {
-					// GeneralData.getGeneralData();
-					this.telemetryUtils.sendTelemetryData(telemetryUtils.retrieveDataToSend(settings.getConsentMap()),
-									GeneralData.DEBUG);
-				} catch (RuntimeException | OHException e) {
-					LOGGER.error("Something strange happened.");
-					LOGGER.debug(e.getMessage(), e);
-					stop();
-				}
-			}
-			try {
-				Thread.sleep((long) customDelay * 1000);
-				updateSettingsCounter++;
-			} catch (InterruptedException e) {
-				LOGGER.debug(e.getMessage());
-			}
+		try {
+			sendTelemetry();
+		} catch (RuntimeException | OHException e) {
+			LOGGER.error("Something strange happened.");
+			LOGGER.debug(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Sends the telemetry data if active and not sent today yet; a failure delays the next run with an exponential backoff.
+	 *
+	 * @throws OHException When the data could not be sent
+	 */
+	private void sendTelemetry() throws OHException {
+		if (reloadSettings) {
+			this.settings = telemetryManager.retrieveSettings();
+			setReloadSettings(false);
+		}
+		LOGGER.info("Telemetry module running ({})...", updateSettingsCounter++);
+		boolean isSendingMessageServiceActive = settings != null && settings.getActive() != null ? settings.getActive().booleanValue() : false;
+		if (!isSendingMessageServiceActive) {
+			LOGGER.info("No data selected.");
+		} else if (isTimeToSendMessage()) {
+			this.telemetryUtils.sendTelemetryData(telemetryUtils.retrieveDataToSend(settings.getConsentMap()), GeneralData.DEBUG);
 		}
 	}
 
@@ -162,17 +177,17 @@ public class TelemetryDaemon extends ConfigurationProperties implements Runnable
 	public void stop() {
 		LOGGER.info("Stopping Telemetry Daemon...");
 		setRunning(false);
-		if (telemetryThread != null) {
-			telemetryThread.interrupt();
-		}
+		JobScheduler.getDefault().cancel(JOB_NAME);
 	}
 
 	/**
-	 * Stops the Telemetry Daemon
+	 * Restarts the Telemetry Daemon if stopped
 	 */
 	public void restart() {
 		LOGGER.info("Restarting Telemetry Daemon...");
-		setRunning(true);
+		if (!JobScheduler.getDefault().isScheduled(JOB_NAME)) {
+			start();
+		}
 	}
 
 	/**
@@ -21,18 +21,28 @@
  */
 package org.isf.telemetry.envdatacollector;
 
+import java.time.Duration;
 import java.util.Map;
 
 import org.isf.utils.exception.OHException;
 
 public abstract class AbstractDataCollector {
 
+	private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(20);
+
 	public abstract String getId();
 
 	public abstract String getDescription();
 
 	public abstract Map<String, String> retrieveData() throws OHException;
 
+	/**
+	 * @return the time {@link #retrieveData()} is given before its data is left out of the telemetry
+	 */
+	public Duration getTimeout() {
+		return DEFAULT_TIMEOUT;
+	}
+
 	public boolean isSelected(Map<String, Boolean> checkboxesStatus) {
 		return getId() != null && checkboxesStatus.containsKey(this.getId()) && Boolean.TRUE.equals(checkboxesStatus.get(this.getId()));
 	}
@@ -25,6 +25,13 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.isf.utils.db.TranslateOHServiceException;
 import org.isf.utils.exception.OHException;
@@ -42,9 +49,23 @@ public class DataCollectorProviderService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(DataCollectorProviderService.class);
 
+	private static final int MAX_PARALLEL_COLLECTORS = 4;
+
 	@Autowired
 	private List<AbstractDataCollector> dataCollectors;
 
+	private final ThreadPoolExecutor executor;
+
+	public DataCollectorProviderService() {
+		AtomicInteger count = new AtomicInteger();
+		executor = new ThreadPoolExecutor(MAX_PARALLEL_COLLECTORS, MAX_PARALLEL_COLLECTORS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "oh-telemetry-collector-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
 	/**
 	 * Finds single data collector and retrieves data
 	 * 
@@ -61,31 +82,57 @@ public class DataCollectorProviderService {
 	}
 
 	/**
-	 * Retrieves data from a list of data collectors
+	 * Retrieves data from a list of data collectors, running them in parallel; a collector not done within its
+	 * {@link AbstractDataCollector#getTimeout() timeout} fails.
 	 * 
 	 * @param listDataCollectorFunction
 	 * @return
 	 */
 	public Map<String, Map<String, String>> collectData(List<String> listDataCollectorFunction, boolean ignoreErrors) throws OHException {
-		Map<String, Map<String, String>> result = new LinkedHashMap<>();
-		OHException[] exception = { null };
-		this.dataCollectors.stream().forEach(collector -> {
+		Map<AbstractDataCollector, Future<Map<String, String>>> futures = new LinkedHashMap<>();
+		long start = System.nanoTime();
+		this.dataCollectors.forEach(collector -> {
 			if (listDataCollectorFunction.contains(collector.getId())) {
+				futures.put(collector, executor.submit(collector::retrieveData));
+			}
+		});
+		Map<String, Map<String, String>> result = new LinkedHashMap<>();
+		try {
+			for (Map.Entry<AbstractDataCollector, Future<Map<String, String>>> entry : futures.entrySet()) {
+				AbstractDataCollector collector = entry.getKey();
 				try {
-					result.put(collector.getId(), collector.retrieveData());
+					result.put(collector.getId(), await(collector, entry.getValue(), start));
 				} catch (OHException e) {
 					if (!ignoreErrors) {
-						exception[0] = e;
-						return;
+						throw e;
 					}
 					LOGGER.error(e.getMessage(), e);
 				}
 			}
-		});
-		if (exception[0] != null) {
-			throw exception[0];
+		} finally {
+			futures.values().forEach(future -> future.cancel(true));
 		}
 		return result;
 	}
 
+	private static Map<String, String> await(AbstractDataCollector collector, Future<Map<String, String>> future, long start) throws OHException {
+		long remaining = collector.getTimeout().toNanos() - (System.nanoTime() - start);
+		try {
+			return future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			throw new OHException("Data collector [" + collector.getId() + "] timed out after " + collector.getTimeout().toSeconds() + 's', e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OHException("Data collector [" + collector.getId() + "] interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof OHException ohException) {
+				throw ohException;
+			}
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new OHException("Data collector [" + collector.getId() + ']', e.getCause());
+		}
+	}
+
 }
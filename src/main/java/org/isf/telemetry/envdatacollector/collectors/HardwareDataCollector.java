@@ -21,11 +21,13 @@
  */
 package org.isf.telemetry.envdatacollector.collectors;
 
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.isf.telemetry.envdatacollector.AbstractDataCollector;
 import org.isf.telemetry.envdatacollector.constants.CollectorsConstants;
+import org.isf.telemetry.util.TtlCache;
 import org.isf.utils.exception.OHException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +46,9 @@ public class HardwareDataCollector extends AbstractDataCollector {
 
 	private static final String ID = "TEL_HW";
 	private static final Logger LOGGER = LoggerFactory.getLogger(HardwareDataCollector.class);
+	private static final long TTL_HOURS = 24;
+
+	private final TtlCache<String, Map<String, String>> cache = new TtlCache<>(Duration.ofHours(TTL_HOURS));
 
 	@Override
 	public String getId() {
@@ -55,8 +60,15 @@ public class HardwareDataCollector extends AbstractDataCollector {
 		return "Hardware information (CPU, RAM)";
 	}
 
+	/**
+	 * Returns the hardware information, probed at most once every {@value #TTL_HOURS} hours.
+	 */
 	@Override
 	public Map<String, String> retrieveData() throws OHException {
+		return new LinkedHashMap<>(cache.get(ID, this::probeHardware));
+	}
+
+	private Map<String, String> probeHardware() throws OHException {
 		LOGGER.debug("Collecting Hardware data...");
 		Map<String, String> result = new LinkedHashMap<>();
 		try {
@@ -21,6 +21,7 @@
  */
 package org.isf.telemetry.envdatacollector.collectors;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -40,6 +41,8 @@ import org.isf.telemetry.envdatacollector.collectors.remote.common.GeoIpInfoBean
 import org.isf.telemetry.envdatacollector.collectors.remote.common.GeoIpInfoCommonService;
 import org.isf.telemetry.envdatacollector.collectors.remote.common.GeoIpInfoSettings;
 import org.isf.telemetry.envdatacollector.constants.CollectorsConstants;
+import org.isf.telemetry.service.TableStatisticsService;
+import org.isf.telemetry.util.TtlCache;
 import org.isf.therapy.service.TherapyIoOperations;
 import org.isf.utils.exception.OHException;
 import org.isf.utils.exception.OHServiceException;
@@ -58,6 +61,8 @@ public class OpenHospitalDataCollector extends AbstractDataCollector {
 
 	private static final String ID = "TEL_OH";
 	private static final Logger LOGGER = LoggerFactory.getLogger(OpenHospitalDataCollector.class);
+	private static final Duration GEO_IP_TTL = Duration.ofHours(12);
+	private static final Duration TIMEOUT = Duration.ofSeconds(60);
 
 	private PatientIoOperations patientIoOperations;
 
@@ -90,6 +95,10 @@ public class OpenHospitalDataCollector extends AbstractDataCollector {
 
 	private GeoIpInfoSettings settings;
 
+	private TableStatisticsService tableStatisticsService;
+
+	private final TtlCache<String, GeoIpInfoBean> geoIpCache = new TtlCache<>(GEO_IP_TTL);
+
 	public OpenHospitalDataCollector(PatientIoOperations patientIoOperations,
 	                                 MenuIoOperations menuIoOperations,
 	                                 WardIoOperations wardIoOperations,
@@ -103,7 +112,8 @@ public class OpenHospitalDataCollector extends AbstractDataCollector {
 	                                 TherapyIoOperations therapyIoOperations,
 	                                 VisitsIoOperations visitsIoOperations,
 	                                 AccountingIoOperations accountingIoOperations,
-	                                 GeoIpInfoSettings geoIpInfoSettings) {
+	                                 GeoIpInfoSettings geoIpInfoSettings,
+	                                 TableStatisticsService tableStatisticsService) {
 		this.patientIoOperations = patientIoOperations;
 		this.menuIoOperations = menuIoOperations;
 		this.wardIoOperations = wardIoOperations;
@@ -118,6 +128,7 @@ public class OpenHospitalDataCollector extends AbstractDataCollector {
 		this.visitsIoOperations = visitsIoOperations;
 		this.accountingIoOperations = accountingIoOperations;
 		this.settings = geoIpInfoSettings;
+		this.tableStatisticsService = tableStatisticsService;
 	}
 
 	@Override
@@ -130,6 +141,11 @@ public class OpenHospitalDataCollector extends AbstractDataCollector {
 		return "Hospital general information (Country; Region, City, Postal Code, TimeZone, Currency, OH Version, Number of Patients / Beds / Wards / Users)";
 	}
 
+	@Override
+	public Duration getTimeout() {
+		return TIMEOUT;
+	}
+
 	@Override
 	public Map<String, String> retrieveData() throws OHException {
 		LOGGER.debug("Collecting Open Hospital data...");
@@ -139,8 +155,8 @@ public class OpenHospitalDataCollector extends AbstractDataCollector {
 			LOGGER.debug("{} - {}", geoIpServiceName, geoIpServices.size());
 			this.geoIpServices.forEach(service -> {
 				if (service.getServiceName().equals(geoIpServiceName)) {
-					GeoIpInfoBean json = service.retrieveIpInfo();
-					LOGGER.debug(json.toString());
+					GeoIpInfoBean json = geoIpCache.get(geoIpServiceName, service::retrieveIpInfo);
+					LOGGER.debug("{}", json);
 					result.put(CollectorsConstants.LOC_COUNTRY_NAME, json.getCountryName());
 					result.put(CollectorsConstants.LOC_COUNTRY_CODE, json.getCountryCode());
 					result.put(CollectorsConstants.LOC_REGION_NAME, json.getRegionName());
@@ -151,22 +167,25 @@ public class OpenHospitalDataCollector extends AbstractDataCollector {
 				}
 			});
 
-			result.put(CollectorsConstants.OH_NUMBER_OF_PATIENTS, String.valueOf(patientIoOperations.countAllActivePatients()));
+			// the largest tables are counted from the table statistics when the database keeps them
+			Map<String, Long> estimates = tableStatisticsService.getEstimatedRowCounts();
+			result.put(CollectorsConstants.OH_NUMBER_OF_PATIENTS, count(estimates, "OH_PATIENT", patientIoOperations::countAllActivePatients));
 			result.put(CollectorsConstants.OH_NUMBER_OF_USERS, String.valueOf(menuIoOperations.countAllActiveUsers()));
 			result.put(CollectorsConstants.OH_NUMBER_OF_ROLES, String.valueOf(menuIoOperations.countAllActiveGroups()));
 			result.put(CollectorsConstants.OH_NUMBER_OF_WARDS, String.valueOf(wardIoOperations.countAllActiveWards()));
 			result.put(CollectorsConstants.OH_NUMBER_OF_BEDS, String.valueOf(wardIoOperations.countAllActiveBeds()));
 
-			result.put(CollectorsConstants.OH_NUMBER_OF_OPDS, String.valueOf(opdIoOperations.countAllActiveOpds()));
-			result.put(CollectorsConstants.OH_NUMBER_OF_ADMISSIONS, String.valueOf(admissionIoOperations.countAllActiveAdmissions()));
-			result.put(CollectorsConstants.OH_NUMBER_OF_EXAMS, String.valueOf(laboratoryIoOperations.countAllActiveLabs()));
+			result.put(CollectorsConstants.OH_NUMBER_OF_OPDS, count(estimates, "OH_OPD", opdIoOperations::countAllActiveOpds));
+			result.put(CollectorsConstants.OH_NUMBER_OF_ADMISSIONS, count(estimates, "OH_ADMISSION", admissionIoOperations::countAllActiveAdmissions));
+			result.put(CollectorsConstants.OH_NUMBER_OF_EXAMS, count(estimates, "OH_LABORATORY", laboratoryIoOperations::countAllActiveLabs));
 			result.put(CollectorsConstants.OH_NUMBER_OF_VACCINES, String.valueOf(vaccineIoOperations.countAllActiveVaccinations()));
-			result.put(CollectorsConstants.OH_NUMBER_OF_OPERATIONS, String.valueOf(operationRowIoOperations.countAllActiveOperations()));
-			result.put(CollectorsConstants.OH_NUMBER_OF_STOCKMOVEMENTS, String.valueOf(medicalStockIoOperations.countAllActiveMovements()));
-			result.put(CollectorsConstants.OH_NUMBER_OF_STOCKWMOVEMENTSWARDS, String.valueOf(medicalStockWardIoOperations.countAllActiveMovementsWard()));
-			result.put(CollectorsConstants.OH_NUMBER_OF_THERAPIES, String.valueOf(therapyIoOperations.countAllActiveTherapies()));
-			result.put(CollectorsConstants.OH_NUMBER_OF_APPOINTMENTS, String.valueOf(visitsIoOperations.countAllActiveAppointments()));
-			result.put(CollectorsConstants.OH_NUMBER_OF_BILLS, String.valueOf(accountingIoOperations.countAllActiveBills()));
+			result.put(CollectorsConstants.OH_NUMBER_OF_OPERATIONS, count(estimates, "OH_OPERATIONROW", operationRowIoOperations::countAllActiveOperations));
+			result.put(CollectorsConstants.OH_NUMBER_OF_STOCKMOVEMENTS, count(estimates, "OH_MEDICALDSRSTOCKMOV", medicalStockIoOperations::countAllActiveMovements));
+			result.put(CollectorsConstants.OH_NUMBER_OF_STOCKWMOVEMENTSWARDS,
+							count(estimates, "OH_MEDICALDSRSTOCKMOVWARD", medicalStockWardIoOperations::countAllActiveMovementsWard));
+			result.put(CollectorsConstants.OH_NUMBER_OF_THERAPIES, count(estimates, "OH_THERAPIES", therapyIoOperations::countAllActiveTherapies));
+			result.put(CollectorsConstants.OH_NUMBER_OF_APPOINTMENTS, count(estimates, "OH_VISITS", visitsIoOperations::countAllActiveAppointments));
+			result.put(CollectorsConstants.OH_NUMBER_OF_BILLS, count(estimates, "OH_BILLS", accountingIoOperations::countAllActiveBills));
 
 			LocalDateTime lastUsedTime = opdIoOperations.lastOpdCreationDate();
 			if (lastUsedTime == null) {
@@ -181,4 +200,16 @@ public class OpenHospitalDataCollector extends AbstractDataCollector {
 		return result;
 	}
 
+	private static String count(Map<String, Long> estimates, String table, CountQuery countQuery) throws OHServiceException {
+		Long estimate = estimates.get(table);
+		return String.valueOf(estimate != null ? estimate : countQuery.count());
+	}
+
+	@FunctionalInterface
+	private interface CountQuery {
+
+		long count() throws OHServiceException;
+
+	}
+
 }
@@ -0,0 +1,82 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.telemetry.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads the row counts the database keeps in its table statistics, so that telemetry does not scan the largest tables with {@code COUNT(*)}.
+ * <p>
+ * The counts are estimates maintained by the database (MySQL / MariaDB {@code INFORMATION_SCHEMA.TABLES.TABLE_ROWS}) and include inactive rows.
+ * On databases without these statistics no estimate is returned.
+ */
+@Service
+public class TableStatisticsService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TableStatisticsService.class);
+
+	private static final String TABLE_ROWS = "SELECT TABLE_NAME, TABLE_ROWS FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = DATABASE()";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private volatile boolean unsupported;
+
+	public TableStatisticsService(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * @return the estimated number of rows by upper case table name, empty if the database keeps no table statistics
+	 */
+	public Map<String, Long> getEstimatedRowCounts() {
+		if (unsupported) {
+			return Collections.emptyMap();
+		}
+		try {
+			Map<String, Long> rowCounts = new HashMap<>();
+			jdbcTemplate.query(TABLE_ROWS, resultSet -> {
+				long rows = resultSet.getLong(2);
+				if (!resultSet.wasNull()) {
+					rowCounts.put(resultSet.getString(1).toUpperCase(Locale.ROOT), rows);
+				}
+			});
+			return rowCounts;
+		} catch (BadSqlGrammarException e) {
+			LOGGER.debug("No table statistics available, telemetry falls back to COUNT queries: {}", e.getMessage());
+			unsupported = true;
+		} catch (DataAccessException e) {
+			LOGGER.warn("Could not read table statistics: {}", e.getMessage());
+		}
+		return Collections.emptyMap();
+	}
+
+}
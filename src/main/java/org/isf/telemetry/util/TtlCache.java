@@ -0,0 +1,89 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.telemetry.util;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of values expiring a fixed time after being loaded, for telemetry data that is expensive to collect and rarely changes.
+ *
+ * @param <K> - the type of the keys
+ * @param <V> - the type of the values
+ */
+public final class TtlCache<K, V> {
+
+	@FunctionalInterface
+	public interface Loader<V, E extends Exception> {
+
+		V load() throws E;
+
+	}
+
+	private final long ttlNanos;
+
+	private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+	public TtlCache(Duration ttl) {
+		this.ttlNanos = ttl.toNanos();
+	}
+
+	/**
+	 * Returns the cached value of a key, loading it if missing or expired; {@code null} values are not cached.
+	 *
+	 * @param key - the key
+	 * @param loader - loads the value
+	 * @return the value
+	 * @throws E When the value could not be loaded
+	 */
+	public <E extends Exception> V get(K key, Loader<V, E> loader) throws E {
+		Entry<V> entry = entries.get(key);
+		long now = System.nanoTime();
+		if (entry != null && now - entry.loadedAt < ttlNanos) {
+			return entry.value;
+		}
+		V value = loader.load();
+		if (value != null) {
+			entries.put(key, new Entry<>(value, now));
+		}
+		return value;
+	}
+
+	public void invalidateAll() {
+		entries.clear();
+	}
+
+	private static final class Entry<V> {
+
+		private final V value;
+
+		private final long loadedAt;
+
+		private Entry(V value, long loadedAt) {
+			this.value = value;
+			this.loadedAt = loadedAt;
+		}
+
+	}
+
+}
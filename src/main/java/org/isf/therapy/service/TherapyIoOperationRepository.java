@@ -41,4 +41,8 @@ public interface TherapyIoOperationRepository extends JpaRepository<TherapyRow,
 
 	@Query("select count(t) from TherapyRow t where active=1")
 	long countAllActiveTherapies();
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query(value = "update TherapyRow t set t.patient = :mergedPatient where t.patient = :obsoletePatient")
+	int updatePatient(@Param("obsoletePatient") Patient obsoletePatient, @Param("mergedPatient") Patient mergedPatient);
 }
\ No newline at end of file
@@ -97,4 +97,15 @@ public class TherapyIoOperations {
 		return this.repository.countAllActiveTherapies();
 	}
 
+	/**
+	 * Moves all the {@link TherapyRow}s of the obsolete {@link Patient} to the merged one, with a single bulk update.
+	 *
+	 * @param obsoletePatient - the {@link Patient} being merged
+	 * @param mergedPatient - the {@link Patient} that keeps the history
+	 * @return the number of updated rows
+	 */
+	public int reassignPatient(Patient obsoletePatient, Patient mergedPatient) {
+		return repository.updatePatient(obsoletePatient, mergedPatient);
+	}
+
 }
@@ -21,11 +21,7 @@
  */
 package org.isf.therapy.service;
 
-import java.util.List;
-
 import org.isf.patient.model.PatientMergedEvent;
-import org.isf.therapy.model.TherapyRow;
-import org.isf.utils.exception.OHServiceException;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -41,11 +37,9 @@ public class TherapyPatientMergedEventListener {
 
 	@EventListener
 	@Transactional
-	public void handle(PatientMergedEvent patientMergedEvent) throws OHServiceException {
-		List<TherapyRow> therapyRows = therapyIoOperations.getTherapyRows(patientMergedEvent.getObsoletePatient().getCode());
-		for (TherapyRow therapyRow : therapyRows) {
-			therapyRow.setPatient(patientMergedEvent.getMergedPatient());
-		}
+	public void handle(PatientMergedEvent patientMergedEvent) {
+		int rows = therapyIoOperations.reassignPatient(patientMergedEvent.getObsoletePatient(), patientMergedEvent.getMergedPatient());
+		patientMergedEvent.addMergedRows("therapies", rows);
 	}
 
 }
@@ -0,0 +1,204 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.datagen;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reference data and key counters read from the database before generating rows.
+ * <p>
+ * Every list is read in primary key order, so that the generated rows only depend on the seed and the database content.
+ */
+final class Catalogue {
+
+	static final class WardEntry {
+
+		final String code;
+		final boolean opd;
+		final boolean pharmacy;
+		final boolean male;
+		final boolean female;
+		final int visitDuration;
+
+		WardEntry(String code, boolean opd, boolean pharmacy, boolean male, boolean female, int visitDuration) {
+			this.code = code;
+			this.opd = opd;
+			this.pharmacy = pharmacy;
+			this.male = male;
+			this.female = female;
+			this.visitDuration = visitDuration;
+		}
+	}
+
+	static final class ExamEntry {
+
+		final String code;
+		final int procedure;
+		final List<String> results = new ArrayList<>();
+
+		ExamEntry(String code, int procedure) {
+			this.code = code;
+			this.procedure = procedure;
+		}
+	}
+
+	static final class PriceEntry {
+
+		final String code;
+		final String group;
+		final String description;
+		final double price;
+
+		PriceEntry(String code, String group, String description, double price) {
+			this.code = code;
+			this.group = group;
+			this.description = description;
+			this.price = price;
+		}
+	}
+
+	final List<WardEntry> wards = new ArrayList<>();
+	final List<String> opdDiseases = new ArrayList<>();
+	final List<String> ipdDiseases = new ArrayList<>();
+	final List<String> admissionTypes = new ArrayList<>();
+	final List<String> dischargeTypes = new ArrayList<>();
+	final List<ExamEntry> exams = new ArrayList<>();
+	final List<Integer> medicals = new ArrayList<>();
+	final List<Integer> suppliers = new ArrayList<>();
+	final List<PriceEntry> prices = new ArrayList<>();
+	String chargeType;
+	String dischargeType;
+	Integer priceListId;
+	String priceListName;
+
+	final Map<SyntheticTable, Long> maxIds = new EnumMap<>(SyntheticTable.class);
+	final Map<Integer, Integer> opdProgByYear = new HashMap<>();
+	final Map<String, Integer> admissionProgByWardYear = new HashMap<>();
+	long syntheticLots;
+
+	static String wardYearKey(String ward, int year) {
+		return ward + '/' + year;
+	}
+
+	static Catalogue load(Connection connection, String lotPrefix) throws SQLException {
+		Catalogue catalogue = new Catalogue();
+		query(connection, "SELECT WRD_ID_A, WRD_IS_OPD, WRD_IS_PHARMACY, WRD_IS_MALE, WRD_IS_FEMALE, WRD_VISIT_DURATION FROM OH_WARD ORDER BY WRD_ID_A",
+				rs -> catalogue.wards.add(new WardEntry(rs.getString(1), rs.getBoolean(2), rs.getBoolean(3), rs.getBoolean(4), rs.getBoolean(5), rs.getInt(6))));
+		query(connection, "SELECT DIS_ID_A, DIS_OPD_INCLUDE, DIS_IPD_IN_INCLUDE FROM OH_DISEASE ORDER BY DIS_ID_A", rs -> {
+			if (rs.getBoolean(2)) {
+				catalogue.opdDiseases.add(rs.getString(1));
+			}
+			if (rs.getBoolean(3)) {
+				catalogue.ipdDiseases.add(rs.getString(1));
+			}
+		});
+		query(connection, "SELECT ADMT_ID_A FROM OH_ADMISSIONTYPE ORDER BY ADMT_ID_A", rs -> catalogue.admissionTypes.add(rs.getString(1)));
+		query(connection, "SELECT DIST_ID_A FROM OH_DISCHARGETYPE ORDER BY DIST_ID_A", rs -> catalogue.dischargeTypes.add(rs.getString(1)));
+		Map<String, ExamEntry> exams = new HashMap<>();
+		// procedure 2 exams keep their results in OH_LABORATORYROW, which is not generated
+		query(connection, "SELECT EXA_ID_A, EXA_PROC FROM OH_EXAM WHERE EXA_PROC IN (1, 3) ORDER BY EXA_ID_A", rs -> {
+			ExamEntry exam = new ExamEntry(rs.getString(1), rs.getInt(2));
+			catalogue.exams.add(exam);
+			exams.put(exam.code, exam);
+		});
+		query(connection, "SELECT EXR_EXA_ID_A, EXR_DESC FROM OH_EXAMROW ORDER BY EXR_ID", rs -> {
+			ExamEntry exam = exams.get(rs.getString(1));
+			if (exam != null) {
+				exam.results.add(rs.getString(2));
+			}
+		});
+		query(connection, "SELECT MDSR_ID FROM OH_MEDICALDSR WHERE MDSR_DELETED = 'N' ORDER BY MDSR_ID", rs -> catalogue.medicals.add(rs.getInt(1)));
+		query(connection, "SELECT SUP_ID FROM OH_SUPPLIER WHERE SUP_DELETED = 'N' ORDER BY SUP_ID", rs -> catalogue.suppliers.add(rs.getInt(1)));
+		query(connection, "SELECT MMVT_ID_A, MMVT_TYPE FROM OH_MEDICALDSRSTOCKMOVTYPE ORDER BY MMVT_ID_A", rs -> {
+			String code = rs.getString(1);
+			String type = rs.getString(2);
+			if (type.startsWith("+") && (catalogue.chargeType == null || code.equals("charge"))) {
+				catalogue.chargeType = code;
+			} else if (type.startsWith("-") && (catalogue.dischargeType == null || code.equals("discharge"))) {
+				catalogue.dischargeType = code;
+			}
+		});
+		query(connection, "SELECT LST_ID, LST_NAME FROM OH_PRICELISTS ORDER BY LST_ID", rs -> {
+			if (catalogue.priceListId == null) {
+				catalogue.priceListId = rs.getInt(1);
+				catalogue.priceListName = rs.getString(2);
+			}
+		});
+		if (catalogue.priceListId != null) {
+			try (PreparedStatement statement = connection.prepareStatement(
+					"SELECT PRC_GRP, PRC_ITEM, PRC_DESC, PRC_PRICE FROM OH_PRICES WHERE PRC_LST_ID = ? AND PRC_PRICE > 0 ORDER BY PRC_ID")) {
+				statement.setInt(1, catalogue.priceListId);
+				try (ResultSet rs = statement.executeQuery()) {
+					while (rs.next()) {
+						catalogue.prices.add(new PriceEntry(rs.getString(1) + rs.getString(2), rs.getString(1), rs.getString(3), rs.getDouble(4)));
+					}
+				}
+			}
+		}
+		for (SyntheticTable table : SyntheticTable.values()) {
+			if (table != SyntheticTable.LOT && table != SyntheticTable.MEDICAL_WARD) {
+				String column = table.getColumns().get(0);
+				query(connection, "SELECT COALESCE(MAX(" + column + "), 0) FROM " + table.getTableName(), rs -> catalogue.maxIds.put(table, rs.getLong(1)));
+			}
+		}
+		// blocks reserved by processes using pooled identifiers may lie beyond the highest stored identifier
+		try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, "OH_ID_POOL", null)) {
+			if (tables.next()) {
+				query(connection, "SELECT IDP_ENTITY, IDP_LAST_ID FROM OH_ID_POOL", rs -> {
+					for (SyntheticTable table : catalogue.maxIds.keySet()) {
+						if (rs.getString(1).equals(table.getEntityName())) {
+							catalogue.maxIds.merge(table, rs.getLong(2), Math::max);
+						}
+					}
+				});
+			}
+		}
+		query(connection, "SELECT YEAR(OPD_DATE), MAX(OPD_PROG_YEAR) FROM OH_OPD GROUP BY YEAR(OPD_DATE)",
+				rs -> catalogue.opdProgByYear.put(rs.getInt(1), rs.getInt(2)));
+		query(connection, "SELECT ADM_WRD_ID_A, YEAR(ADM_DATE_ADM), MAX(ADM_YPROG) FROM OH_ADMISSION GROUP BY ADM_WRD_ID_A, YEAR(ADM_DATE_ADM)",
+				rs -> catalogue.admissionProgByWardYear.put(wardYearKey(rs.getString(1), rs.getInt(2)), rs.getInt(3)));
+		query(connection, "SELECT COUNT(*) FROM OH_MEDICALDSRLOT WHERE LT_ID_A LIKE '" + lotPrefix + "%'", rs -> catalogue.syntheticLots = rs.getLong(1));
+		return catalogue;
+	}
+
+	@FunctionalInterface
+	private interface RowReader {
+
+		void read(ResultSet rs) throws SQLException;
+	}
+
+	private static void query(Connection connection, String sql, RowReader reader) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(sql); ResultSet rs = statement.executeQuery()) {
+			while (rs.next()) {
+				reader.read(rs);
+			}
+		}
+	}
+}
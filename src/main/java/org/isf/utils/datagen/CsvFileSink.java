@@ -0,0 +1,152 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.datagen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.isf.utils.exception.OHException;
+
+/**
+ * {@link RowSink} writing one {@code <table>.csv} file per table, in the format of the files under {@code sql/data_*}, and a
+ * {@value #SCRIPT_NAME} script loading them with {@code LOAD DATA LOCAL INFILE}.
+ * <p>
+ * The script is meant to be run with the mysql client from the output directory; the statements given to
+ * {@link #execute(String, Number...)} are run after all the files are loaded.
+ */
+public class CsvFileSink implements RowSink {
+
+	public static final String SCRIPT_NAME = "load_synthetic_data.sql";
+
+	private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private final Path directory;
+
+	private final Map<SyntheticTable, Writer> writers = new EnumMap<>(SyntheticTable.class);
+
+	private final List<String> statements = new ArrayList<>();
+
+	private final StringBuilder line = new StringBuilder(512);
+
+	/**
+	 * @param directory - the output directory, created if missing
+	 * @throws OHException When the directory could not be created
+	 */
+	public CsvFileSink(Path directory) throws OHException {
+		this.directory = directory;
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new OHException("Cannot create " + directory, e);
+		}
+	}
+
+	@Override
+	public void insert(SyntheticTable table, Object... values) throws OHException {
+		line.setLength(0);
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				line.append(';');
+			}
+			appendValue(values[i]);
+		}
+		line.append('\n');
+		try {
+			Writer writer = writers.get(table);
+			if (writer == null) {
+				writer = Files.newBufferedWriter(directory.resolve(table.getTableName() + ".csv"), StandardCharsets.UTF_8);
+				writers.put(table, writer);
+			}
+			writer.append(line);
+		} catch (IOException e) {
+			throw new OHException("Cannot write " + table.getTableName(), e);
+		}
+	}
+
+	private void appendValue(Object value) {
+		if (value == null) {
+			line.append("\\N");
+		} else if (value instanceof LocalDateTime dateTime) {
+			line.append(DATE_TIME_FORMAT.format(dateTime));
+		} else if (value instanceof LocalDate date) {
+			line.append(date);
+		} else if (value instanceof Boolean bool) {
+			line.append(bool ? '1' : '0');
+		} else {
+			String text = value.toString();
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				switch (c) {
+					case ';', '\\' -> line.append('\\').append(c);
+					case '\n' -> line.append("\\n");
+					default -> line.append(c);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void execute(String sql, Number... parameters) {
+		StringBuilder statement = new StringBuilder(sql.length() + 16 * parameters.length);
+		int parameter = 0;
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if (c == '?') {
+				statement.append(parameters[parameter++]);
+			} else {
+				statement.append(c);
+			}
+		}
+		statements.add(statement.append(';').toString());
+	}
+
+	@Override
+	public void close() throws OHException {
+		try (Writer script = Files.newBufferedWriter(directory.resolve(SCRIPT_NAME), StandardCharsets.UTF_8)) {
+			for (Map.Entry<SyntheticTable, Writer> entry : writers.entrySet()) {
+				SyntheticTable table = entry.getKey();
+				entry.getValue().close();
+				script.append("-- ").append(table.name()).append('\n')
+						.append("LOAD DATA LOCAL INFILE './").append(table.getTableName()).append(".csv'\n")
+						.append("\tINTO TABLE ").append(table.getTableName()).append('\n')
+						.append("\tFIELDS TERMINATED BY ';'\n")
+						.append("\tLINES TERMINATED BY '\\n'\n")
+						.append("\t(").append(String.join(", ", table.getColumns())).append(");\n\n");
+			}
+			for (String statement : statements) {
+				script.append(statement).append('\n');
+			}
+		} catch (IOException e) {
+			throw new OHException("Cannot write " + directory.resolve(SCRIPT_NAME), e);
+		}
+	}
+}
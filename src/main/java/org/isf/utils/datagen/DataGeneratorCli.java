@@ -0,0 +1,135 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.datagen;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.isf.generaldata.ConfigurationProperties;
+import org.isf.utils.exception.OHException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Command line entry point of the {@link SyntheticDataGenerator}:
+ *
+ * <pre>
+ * java -cp OH-core.jar:lib/* org.isf.utils.datagen.DataGeneratorCli --patients 1000000 --seed 42 [--csv out/]
+ * </pre>
+ *
+ * The database is the one of {@code database.properties}, unless {@code --url}, {@code --user} and {@code --password} are given. Rows are
+ * inserted in the database, or written with a loading script in the {@code --csv} directory. The other options are {@code --batch-size},
+ * {@code --until} (yyyy-MM-dd), {@code --years}, {@code --opd-visits}, {@code --admission-rate}, {@code --laboratory-rate},
+ * {@code --examination-rate}, {@code --bill-rate}, {@code --visit-rate}, {@code --dicom-rate}, {@code --stock-movements} and
+ * {@code --author}, see {@link DataGeneratorSettings}.
+ * <p>
+ * Identifiers are given explicitly, after the highest one stored or reserved in {@code OH_ID_POOL}: the generator must not run while Open
+ * Hospital is writing the same database.
+ */
+public final class DataGeneratorCli {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DataGeneratorCli.class);
+
+	private static final String DATABASE_PROPERTIES = "database.properties";
+
+	private DataGeneratorCli() {
+	}
+
+	public static void main(String[] args) {
+		try {
+			run(parse(args));
+		} catch (IllegalArgumentException e) {
+			LOGGER.error(e.getMessage());
+			System.exit(2);
+		} catch (OHException | SQLException e) {
+			LOGGER.error("Synthetic data generation failed.", e);
+			System.exit(1);
+		}
+	}
+
+	static Map<String, String> parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i < args.length; i += 2) {
+			if (!args[i].startsWith("--") || i + 1 == args.length) {
+				throw new IllegalArgumentException("Expected --option value pairs, got '" + args[i] + '\'');
+			}
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+		return options;
+	}
+
+	static DataGeneratorSettings settings(Map<String, String> options) {
+		DataGeneratorSettings settings = new DataGeneratorSettings();
+		Map<String, String> remaining = new HashMap<>(options);
+		remaining.keySet().removeAll(List.of("url", "user", "password", "csv"));
+		for (Map.Entry<String, String> option : remaining.entrySet()) {
+			String value = option.getValue();
+			try {
+				switch (option.getKey()) {
+					case "seed" -> settings.setSeed(Long.parseLong(value));
+					case "patients" -> settings.setPatients(Integer.parseInt(value));
+					case "batch-size" -> settings.setBatchSize(Integer.parseInt(value));
+					case "until" -> settings.setUntil(LocalDate.parse(value));
+					case "years" -> settings.setHistoryYears(Integer.parseInt(value));
+					case "opd-visits" -> settings.setOpdVisits(Double.parseDouble(value));
+					case "admission-rate" -> settings.setAdmissionRate(Double.parseDouble(value));
+					case "laboratory-rate" -> settings.setLaboratoryRate(Double.parseDouble(value));
+					case "examination-rate" -> settings.setExaminationRate(Double.parseDouble(value));
+					case "bill-rate" -> settings.setBillRate(Double.parseDouble(value));
+					case "visit-rate" -> settings.setVisitRate(Double.parseDouble(value));
+					case "dicom-rate" -> settings.setDicomRate(Double.parseDouble(value));
+					case "stock-movements" -> settings.setStockMovements(Double.parseDouble(value));
+					case "author" -> settings.setUser(value);
+					default -> throw new IllegalArgumentException("Unknown option --" + option.getKey());
+				}
+			} catch (NumberFormatException | DateTimeParseException e) {
+				throw new IllegalArgumentException("Invalid value '" + value + "' for --" + option.getKey(), e);
+			}
+		}
+		return settings;
+	}
+
+	private static void run(Map<String, String> options) throws OHException, SQLException {
+		DataGeneratorSettings settings = settings(options);
+		Properties database = ConfigurationProperties.loadPropertiesFile(DATABASE_PROPERTIES, LOGGER);
+		String url = options.getOrDefault("url", database.getProperty("jdbc.url"));
+		if (url == null) {
+			throw new IllegalArgumentException("No --url given and no jdbc.url in " + DATABASE_PROPERTIES);
+		}
+		try (Connection connection = DriverManager.getConnection(url, options.getOrDefault("user", database.getProperty("jdbc.username")),
+				options.getOrDefault("password", database.getProperty("jdbc.password")))) {
+			RowSink sink = options.containsKey("csv") ? new CsvFileSink(Path.of(options.get("csv"))) : new JdbcBatchSink(connection, settings.getBatchSize());
+			try (sink) {
+				Map<SyntheticTable, Long> counts = new SyntheticDataGenerator(settings).generate(connection, sink);
+				counts.forEach((table, count) -> LOGGER.info("{}: {} rows", table.getTableName(), count));
+			}
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.datagen;
+
+import java.time.LocalDate;
+
+/**
+ * Scale and distribution settings of the {@link SyntheticDataGenerator}.
+ * <p>
+ * Rates are per patient unless stated otherwise; the same settings, seed and starting database always produce the same rows.
+ */
+public class DataGeneratorSettings {
+
+	private long seed = 1L;
+
+	private int patients = 10_000;
+
+	private int batchSize = 1000;
+
+	private LocalDate until = LocalDate.now();
+
+	private int historyYears = 5;
+
+	private double opdVisits = 2.5;
+
+	private double admissionRate = 0.08;
+
+	private double laboratoryRate = 0.3;
+
+	private double examinationRate = 0.25;
+
+	private double billRate = 0.6;
+
+	private double visitRate = 0.2;
+
+	private double dicomRate = 0.01;
+
+	private double stockMovements = 1.0;
+
+	private String user = "admin";
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @return the number of generated patients
+	 */
+	public int getPatients() {
+		return patients;
+	}
+
+	public void setPatients(int patients) {
+		this.patients = patients;
+	}
+
+	/**
+	 * @return the number of rows of a table written at once
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @return the last day of the generated history; follow-up visits may be scheduled after it
+	 */
+	public LocalDate getUntil() {
+		return until;
+	}
+
+	public void setUntil(LocalDate until) {
+		this.until = until;
+	}
+
+	public int getHistoryYears() {
+		return historyYears;
+	}
+
+	public void setHistoryYears(int historyYears) {
+		this.historyYears = historyYears;
+	}
+
+	/**
+	 * @return the mean number of OPD visits of a patient, at least one
+	 */
+	public double getOpdVisits() {
+		return opdVisits;
+	}
+
+	public void setOpdVisits(double opdVisits) {
+		this.opdVisits = opdVisits;
+	}
+
+	/**
+	 * @return the share of patients admitted once, higher for children and elderly patients
+	 */
+	public double getAdmissionRate() {
+		return admissionRate;
+	}
+
+	public void setAdmissionRate(double admissionRate) {
+		this.admissionRate = admissionRate;
+	}
+
+	/**
+	 * @return the share of OPD visits and admissions with laboratory exams
+	 */
+	public double getLaboratoryRate() {
+		return laboratoryRate;
+	}
+
+	public void setLaboratoryRate(double laboratoryRate) {
+		this.laboratoryRate = laboratoryRate;
+	}
+
+	/**
+	 * @return the share of OPD visits with a patient examination; every admission has one
+	 */
+	public double getExaminationRate() {
+		return examinationRate;
+	}
+
+	public void setExaminationRate(double examinationRate) {
+		this.examinationRate = examinationRate;
+	}
+
+	/**
+	 * @return the share of OPD visits billed; every admission is billed
+	 */
+	public double getBillRate() {
+		return billRate;
+	}
+
+	public void setBillRate(double billRate) {
+		this.billRate = billRate;
+	}
+
+	/**
+	 * @return the share of patients with a follow-up visit after their last OPD visit
+	 */
+	public double getVisitRate() {
+		return visitRate;
+	}
+
+	public void setVisitRate(double visitRate) {
+		this.visitRate = visitRate;
+	}
+
+	/**
+	 * @return the share of patients with DICOM file stubs (metadata only, no image data)
+	 */
+	public double getDicomRate() {
+		return dicomRate;
+	}
+
+	public void setDicomRate(double dicomRate) {
+		this.dicomRate = dicomRate;
+	}
+
+	/**
+	 * @return the number of main store discharges to wards per patient; lots are charged when the stock runs out
+	 */
+	public double getStockMovements() {
+		return stockMovements;
+	}
+
+	public void setStockMovements(double stockMovements) {
+		this.stockMovements = stockMovements;
+	}
+
+	/**
+	 * @return the user recorded as author of the rows
+	 */
+	public String getUser() {
+		return user;
+	}
+
+	public void setUser(String user) {
+		this.user = user;
+	}
+}
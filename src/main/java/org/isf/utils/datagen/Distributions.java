@@ -0,0 +1,130 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.datagen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Random distributions used by the {@link SyntheticDataGenerator}.
+ */
+final class Distributions {
+
+	/**
+	 * Age brackets of the patients with their cumulative shares, for a young population.
+	 */
+	private static final int[] AGE_BRACKETS = { 0, 5, 15, 30, 50, 65, 90 };
+
+	private static final double[] AGE_CUMULATIVE_SHARES = { 0.16, 0.40, 0.67, 0.86, 0.95, 1.0 };
+
+	private Distributions() {
+	}
+
+	/**
+	 * Derives the seed of an independent random stream, so that each stream does not depend on how many values the others drew.
+	 *
+	 * @param seed - the generator seed
+	 * @param stream - the stream index
+	 * @return the stream seed
+	 */
+	static long streamSeed(long seed, long stream) {
+		long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * @return an age in years
+	 */
+	static int age(SplittableRandom random) {
+		double share = random.nextDouble();
+		int bracket = 0;
+		while (share >= AGE_CUMULATIVE_SHARES[bracket]) {
+			bracket++;
+		}
+		return random.nextInt(AGE_BRACKETS[bracket], AGE_BRACKETS[bracket + 1]);
+	}
+
+	/**
+	 * @return a count of at least {@code 0} following a geometric distribution with the given mean
+	 */
+	static int geometric(SplittableRandom random, double mean) {
+		if (mean <= 0) {
+			return 0;
+		}
+		double p = 1.0 / (1.0 + mean);
+		return (int) Math.floor(Math.log(1.0 - random.nextDouble()) / Math.log(1.0 - p));
+	}
+
+	/**
+	 * @return a positive value following a log-normal distribution with the given median
+	 */
+	static double logNormal(SplittableRandom random, double median, double sigma) {
+		return median * Math.exp(sigma * random.nextGaussian());
+	}
+
+	/**
+	 * @return a value following a normal distribution, clamped to {@code [min, max]}
+	 */
+	static double normal(SplittableRandom random, double mean, double deviation, double min, double max) {
+		return Math.min(max, Math.max(min, mean + deviation * random.nextGaussian()));
+	}
+
+	/**
+	 * @return {@code true} with the given probability
+	 */
+	static boolean chance(SplittableRandom random, double probability) {
+		return random.nextDouble() < probability;
+	}
+
+	/**
+	 * Zipf distribution over {@code size} ranks: rank {@code k} (from {@code 0}) is drawn with a probability proportional to
+	 * {@code 1 / (k + 1)^exponent}, so that a few items account for most of the draws like diseases or medicals do.
+	 */
+	static final class Zipf {
+
+		private final double[] cumulative;
+
+		Zipf(int size, double exponent) {
+			cumulative = new double[size];
+			double total = 0;
+			for (int k = 0; k < size; k++) {
+				total += 1.0 / Math.pow(k + 1, exponent);
+				cumulative[k] = total;
+			}
+			for (int k = 0; k < size; k++) {
+				cumulative[k] /= total;
+			}
+		}
+
+		int sample(SplittableRandom random) {
+			int index = Arrays.binarySearch(cumulative, random.nextDouble());
+			index = index < 0 ? -index - 1 : index + 1;
+			return Math.min(index, cumulative.length - 1);
+		}
+
+		double probability(int rank) {
+			return rank == 0 ? cumulative[0] : cumulative[rank] - cumulative[rank - 1];
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.datagen;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.isf.utils.exception.OHException;
+
+/**
+ * {@link RowSink} writing the rows with JDBC batch inserts.
+ * <p>
+ * The rows of every table are sent in batches of {@code batchSize}; when a table has a full batch, the pending batches of all the tables
+ * are sent in {@link SyntheticTable} order, so that foreign keys are always satisfied. A connection in auto-commit mode is committed after
+ * every batch to keep transactions small, otherwise the transaction in progress is left to the caller.
+ */
+public class JdbcBatchSink implements RowSink {
+
+	private final Connection connection;
+
+	private final int batchSize;
+
+	private final boolean autoCommit;
+
+	private final Map<SyntheticTable, PreparedStatement> statements = new EnumMap<>(SyntheticTable.class);
+
+	private final Map<SyntheticTable, Integer> pendingRows = new EnumMap<>(SyntheticTable.class);
+
+	/**
+	 * @param connection - the connection, left open by {@link #close()}
+	 * @param batchSize - the number of rows of a table sent at once
+	 * @throws OHException When the connection could not be switched to manual commit
+	 */
+	public JdbcBatchSink(Connection connection, int batchSize) throws OHException {
+		this.connection = connection;
+		this.batchSize = Math.max(batchSize, 1);
+		try {
+			this.autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+		} catch (SQLException e) {
+			throw new OHException("Cannot start the synthetic data transaction", e);
+		}
+	}
+
+	@Override
+	public void insert(SyntheticTable table, Object... values) throws OHException {
+		try {
+			PreparedStatement statement = statements.get(table);
+			if (statement == null) {
+				statement = connection.prepareStatement(table.getInsertStatement());
+				statements.put(table, statement);
+			}
+			for (int i = 0; i < values.length; i++) {
+				Object value = values[i];
+				statement.setObject(i + 1, value instanceof Character character ? character.toString() : value);
+			}
+			statement.addBatch();
+			if (pendingRows.merge(table, 1, Integer::sum) >= batchSize) {
+				flush();
+			}
+		} catch (SQLException e) {
+			throw new OHException("Cannot insert into " + table.getTableName(), e);
+		}
+	}
+
+	@Override
+	public void execute(String sql, Number... parameters) throws OHException {
+		try {
+			flush();
+			try (PreparedStatement statement = connection.prepareStatement(sql)) {
+				for (int i = 0; i < parameters.length; i++) {
+					statement.setObject(i + 1, parameters[i]);
+				}
+				statement.executeUpdate();
+			}
+			commit();
+		} catch (SQLException e) {
+			throw new OHException("Cannot execute " + sql, e);
+		}
+	}
+
+	private void flush() throws SQLException {
+		for (SyntheticTable table : SyntheticTable.values()) {
+			if (pendingRows.getOrDefault(table, 0) > 0) {
+				statements.get(table).executeBatch();
+				pendingRows.put(table, 0);
+			}
+		}
+		commit();
+	}
+
+	private void commit() throws SQLException {
+		if (autoCommit) {
+			connection.commit();
+		}
+	}
+
+	@Override
+	public void close() throws OHException {
+		try {
+			flush();
+			for (PreparedStatement statement : statements.values()) {
+				statement.close();
+			}
+			connection.setAutoCommit(autoCommit);
+		} catch (SQLException e) {
+			throw new OHException("Cannot complete the synthetic data transaction", e);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.datagen;
+
+import org.isf.utils.exception.OHException;
+
+/**
+ * Destination of the rows produced by the {@link SyntheticDataGenerator}.
+ * <p>
+ * Rows of a table may be buffered, but a buffered row must never be written before the buffered rows of the tables it references,
+ * i.e. the tables declared before it in {@link SyntheticTable}.
+ */
+public interface RowSink extends AutoCloseable {
+
+	/**
+	 * Adds a row.
+	 *
+	 * @param table - the table
+	 * @param values - the values, in the order of {@link SyntheticTable#getColumns()}
+	 * @throws OHException When the row could not be written
+	 */
+	void insert(SyntheticTable table, Object... values) throws OHException;
+
+	/**
+	 * Runs a statement after all the rows added so far have been written.
+	 *
+	 * @param sql - the statement, with {@code ?} placeholders
+	 * @param parameters - the numeric parameters of the statement
+	 * @throws OHException When the statement failed
+	 */
+	void execute(String sql, Number... parameters) throws OHException;
+
+	/**
+	 * Writes the buffered rows and releases the sink.
+	 *
+	 * @throws OHException When the rows could not be written
+	 */
+	@Override
+	void close() throws OHException;
+}
@@ -0,0 +1,591 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.datagen;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import org.isf.utils.datagen.Catalogue.ExamEntry;
+import org.isf.utils.datagen.Catalogue.PriceEntry;
+import org.isf.utils.datagen.Catalogue.WardEntry;
+import org.isf.utils.datagen.Distributions.Zipf;
+import org.isf.utils.exception.OHException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates consistent synthetic patient histories on top of the reference data of a database (wards, diseases, exams, medicals, price
+ * lists...), for load and capacity testing.
+ * <p>
+ * Each patient gets OPD visits, and possibly an admission with its therapies, laboratory exams, patient examinations, bills with items and
+ * payments, a follow-up visit and DICOM file stubs. Ages follow a young population pyramid and diseases, exams, medicals and prices are
+ * drawn with a Zipf distribution. Main store discharges to wards are spread over the history, and lots are charged when the stock runs out,
+ * so that the stock of every medical and lot stays positive.
+ * <p>
+ * Every patient history comes from its own random stream derived from the seed: the same settings applied to the same database produce the
+ * same rows, whatever the batch size. Keys are assigned after the largest existing ones. A generator instance is not thread-safe.
+ */
+public class SyntheticDataGenerator {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+	static final String LOT_PREFIX = "SYN";
+
+	private static final String[] MALE_NAMES = { "John", "Joseph", "Moses", "Peter", "Samuel", "David", "Emmanuel", "Paul", "Isaac", "Daniel",
+			"Robert", "Richard", "Patrick", "Francis", "Charles", "Marco", "Luca", "Ivan", "Brian", "Denis" };
+
+	private static final String[] FEMALE_NAMES = { "Mary", "Grace", "Sarah", "Esther", "Ruth", "Florence", "Agnes", "Christine", "Rose", "Betty",
+			"Annet", "Harriet", "Prossy", "Juliet", "Irene", "Maria", "Giulia", "Anna", "Doreen", "Sylvia" };
+
+	private static final String[] SURNAMES = { "Okello", "Ocen", "Akello", "Opio", "Nakato", "Mugisha", "Namukasa", "Ssempala", "Byaruhanga",
+			"Atim", "Odongo", "Kato", "Nabirye", "Tumusiime", "Wanyama", "Kiggundu", "Achieng", "Otieno", "Rossi", "Bianchi", "Ferrari",
+			"Nsubuga", "Kyomuhendo", "Lubega", "Auma", "Ouma", "Onyango", "Mukasa", "Nantongo", "Ogwang" };
+
+	private static final String[] CITIES = { "Angal", "Nebbi", "Pakwach", "Arua", "Gulu", "Kampala", "Panyimur", "Paidha", "Zeu", "Erussi" };
+
+	private static final String[] PROFESSIONS = { "farming", "farming", "farming", "homemaker", "business", "construction", "mining",
+			"mechanic", "foodhospitality", "janitorial", "medicine", "engineering", "other", "unknown" };
+
+	private static final String[] MARITAL_STATUSES = { "married", "married", "single", "widowed", "divorced", "unknown" };
+
+	private static final String[] BLOOD_TYPES = { "0+", "A+", "B+", "AB+", "0-", "A-", "B-", "AB-", "Unknown" };
+
+	private static final double[] BLOOD_TYPE_SHARES = { 0.36, 0.26, 0.19, 0.05, 0.04, 0.03, 0.02, 0.01, 0.04 };
+
+	private static final String[] MATERIALS = { "blood", "blood", "blood", "urine", "stool", "sputum", "swabs", "cfs", "tissues", "film" };
+
+	private static final String[] SERVICES = { "Follow-up", "Review", "Results", "Vaccination", "Dressing" };
+
+	private static final String[] MODALITIES = { "CR", "DX", "US", "CT", "MR" };
+
+	private static final String[] CUSTOM_ITEMS = { "Consultation", "Dressing", "Injection", "Bed", "Drugs" };
+
+	private static final String DICOM_ROOT = "1.2.826.0.1.3680043.10.1";
+
+	private static final String MEDICAL_STOCK_UPDATE = "UPDATE OH_MEDICALDSR SET MDSR_IN_QTI = MDSR_IN_QTI + ?, MDSR_OUT_QTI = MDSR_OUT_QTI + ? WHERE MDSR_ID = ?";
+
+	private final DataGeneratorSettings settings;
+
+	private final Map<SyntheticTable, Long> counts = new EnumMap<>(SyntheticTable.class);
+
+	private final Map<SyntheticTable, Long> nextIds = new EnumMap<>(SyntheticTable.class);
+
+	private RowSink sink;
+
+	private Catalogue catalogue;
+
+	private LocalDateTime historyStart;
+
+	private LocalDateTime historyEnd;
+
+	private List<WardEntry> opdWards;
+
+	private List<WardEntry> inpatientWards;
+
+	private List<String> opdDiseases;
+
+	private List<String> ipdDiseases;
+
+	private List<ExamEntry> exams;
+
+	private List<PriceEntry> prices;
+
+	private Zipf surnameZipf;
+
+	private Zipf opdDiseaseZipf;
+
+	private Zipf ipdDiseaseZipf;
+
+	private Zipf examZipf;
+
+	private Zipf priceZipf;
+
+	private Zipf dischargeTypeZipf;
+
+	public SyntheticDataGenerator(DataGeneratorSettings settings) {
+		this.settings = settings;
+	}
+
+	/**
+	 * Generates the patients and stock movements of the settings.
+	 *
+	 * @param connection - the connection the reference data is read from
+	 * @param sink - the destination of the rows, not closed by this method
+	 * @return the number of rows generated for each table
+	 * @throws OHException When the reference data is insufficient, or the rows could not be written
+	 */
+	public Map<SyntheticTable, Long> generate(Connection connection, RowSink sink) throws OHException {
+		try {
+			catalogue = Catalogue.load(connection, LOT_PREFIX);
+		} catch (SQLException e) {
+			throw new OHException("Cannot read the reference data", e);
+		}
+		if (catalogue.wards.isEmpty() || catalogue.opdDiseases.isEmpty()) {
+			throw new OHException("Synthetic data needs at least one ward and one OPD disease");
+		}
+		this.sink = sink;
+		counts.clear();
+		catalogue.maxIds.forEach(nextIds::put);
+		prepare();
+
+		long start = System.nanoTime();
+		int progressStep = Math.max(settings.getPatients() / 10, 1);
+		for (int index = 0; index < settings.getPatients(); index++) {
+			generatePatient(new SplittableRandom(Distributions.streamSeed(settings.getSeed(), index)));
+			if ((index + 1) % progressStep == 0) {
+				LOGGER.info("Generated {} patients of {}.", index + 1, settings.getPatients());
+			}
+		}
+		generateStock(new SplittableRandom(Distributions.streamSeed(settings.getSeed(), -1)));
+		LOGGER.info("Generated {} rows in {} ms: {}", counts.values().stream().mapToLong(Long::longValue).sum(),
+				(System.nanoTime() - start) / 1_000_000, counts);
+		return new EnumMap<>(counts);
+	}
+
+	private void prepare() {
+		historyEnd = settings.getUntil().atTime(18, 0);
+		historyStart = settings.getUntil().minusYears(Math.max(settings.getHistoryYears(), 1)).atStartOfDay();
+		opdWards = catalogue.wards.stream().filter(ward -> ward.opd).toList();
+		if (opdWards.isEmpty()) {
+			opdWards = catalogue.wards;
+		}
+		inpatientWards = catalogue.wards.stream().filter(ward -> !ward.opd && !ward.pharmacy).toList();
+		if (inpatientWards.isEmpty()) {
+			inpatientWards = catalogue.wards;
+		}
+		// the most frequent items are drawn at random, not in key order
+		Random shuffler = new Random(Distributions.streamSeed(settings.getSeed(), -2));
+		opdDiseases = shuffled(catalogue.opdDiseases, shuffler);
+		ipdDiseases = shuffled(catalogue.ipdDiseases.isEmpty() ? catalogue.opdDiseases : catalogue.ipdDiseases, shuffler);
+		exams = shuffled(catalogue.exams, shuffler);
+		prices = shuffled(catalogue.prices, shuffler);
+		surnameZipf = new Zipf(SURNAMES.length, 0.6);
+		opdDiseaseZipf = new Zipf(opdDiseases.size(), 1.0);
+		ipdDiseaseZipf = new Zipf(ipdDiseases.size(), 1.0);
+		examZipf = new Zipf(Math.max(exams.size(), 1), 1.0);
+		priceZipf = new Zipf(Math.max(prices.size(), 1), 0.8);
+		// discharge types are read in key order, where the normal discharge is usually not first: keep the skew mild
+		dischargeTypeZipf = new Zipf(Math.max(catalogue.dischargeTypes.size(), 1), 0.5);
+	}
+
+	private static <T> List<T> shuffled(List<T> list, Random random) {
+		List<T> copy = new ArrayList<>(list);
+		Collections.shuffle(copy, random);
+		return copy;
+	}
+
+	private long nextId(SyntheticTable table) {
+		return nextIds.merge(table, 1L, Long::sum);
+	}
+
+	private void insert(SyntheticTable table, LocalDateTime created, Object... values) throws OHException {
+		Object[] row = Arrays.copyOf(values, values.length + 3);
+		row[values.length] = settings.getUser();
+		row[values.length + 1] = created;
+		row[values.length + 2] = 1;
+		if (row.length != table.getColumns().size()) {
+			throw new IllegalStateException(table + " expects " + table.getColumns().size() + " values, got " + row.length);
+		}
+		sink.insert(table, row);
+		counts.merge(table, 1L, Long::sum);
+	}
+
+	/**
+	 * Patient being generated.
+	 */
+	private static final class PatientContext {
+
+		long id;
+		String name;
+		char sex;
+		LocalDate birthDate;
+
+		int ageAt(LocalDateTime date) {
+			return Math.max(Period.between(birthDate, date.toLocalDate()).getYears(), 0);
+		}
+	}
+
+	private void generatePatient(SplittableRandom random) throws OHException {
+		PatientContext patient = new PatientContext();
+		patient.id = nextId(SyntheticTable.PATIENT);
+		patient.sex = Distributions.chance(random, 0.52) ? 'F' : 'M';
+		int age = Distributions.age(random);
+		patient.birthDate = settings.getUntil().minusYears(age).minusDays(random.nextInt(365));
+		LocalDateTime registration = dateTimeBetween(random, later(historyStart, patient.birthDate.atStartOfDay()), historyEnd);
+		String firstName = pick(random, patient.sex == 'F' ? FEMALE_NAMES : MALE_NAMES);
+		String surname = SURNAMES[surnameZipf.sample(random)];
+		patient.name = firstName + ' ' + surname;
+		int registrationAge = patient.ageAt(registration);
+
+		insert(SyntheticTable.PATIENT, registration,
+				patient.id, firstName, surname, patient.name, patient.birthDate, age, "", patient.sex,
+				"Plot " + random.nextInt(1, 500), pick(random, CITIES),
+				pick(random, MALE_NAMES) + ' ' + surname, "+256 7" + random.nextInt(10_000_000, 100_000_000), "",
+				pick(random, FEMALE_NAMES) + ' ' + surname, Distributions.chance(random, 0.9) ? 'A' : 'D',
+				pick(random, MALE_NAMES) + ' ' + surname, Distributions.chance(random, 0.85) ? 'A' : 'D',
+				bloodType(random), Distributions.chance(random, 0.2) ? 'Y' : 'N', Distributions.chance(random, 0.7) ? 'Y' : 'N', "",
+				registrationAge < 18 ? "single" : pick(random, MARITAL_STATUSES),
+				registrationAge < 15 ? "unknown" : pick(random, PROFESSIONS), 'N', 0);
+
+		int opdCount = 1 + Distributions.geometric(random, settings.getOpdVisits() - 1);
+		LocalDateTime[] opdDates = new LocalDateTime[opdCount];
+		opdDates[0] = registration;
+		for (int i = 1; i < opdCount; i++) {
+			opdDates[i] = dateTimeBetween(random, registration, historyEnd);
+		}
+		Arrays.sort(opdDates);
+		Long followUpVisitId = null;
+		for (int i = 0; i < opdCount; i++) {
+			LocalDateTime date = opdDates[i];
+			WardEntry ward = pick(random, opdWards);
+			if (i == opdCount - 1 && Distributions.chance(random, settings.getVisitRate())) {
+				followUpVisitId = generateVisit(random, patient, ward, date);
+			}
+			insert(SyntheticTable.OPD, date,
+					nextId(SyntheticTable.OPD), ward.code, date, patient.id, patient.ageAt(date), patient.sex, "",
+					nextProgressive(catalogue.opdProgByYear, date.getYear()), opdDiseases.get(opdDiseaseZipf.sample(random)),
+					i == 0 ? 'N' : 'R', Distributions.chance(random, 0.05) ? "R" : null, Distributions.chance(random, 0.03) ? "R" : null,
+					settings.getUser(), i == opdCount - 1 ? followUpVisitId : null, 0, null);
+			if (Distributions.chance(random, settings.getLaboratoryRate())) {
+				generateLaboratories(random, patient, date, "O");
+			}
+			if (Distributions.chance(random, settings.getExaminationRate())) {
+				generateExamination(random, patient, date);
+			}
+			if (Distributions.chance(random, settings.getBillRate())) {
+				generateBill(random, patient, date, date, null, 1 + random.nextInt(3));
+			}
+		}
+
+		if (!catalogue.admissionTypes.isEmpty() && Distributions.chance(random, settings.getAdmissionRate() * admissionFactor(registrationAge))) {
+			generateAdmission(random, patient, dateTimeBetween(random, registration, historyEnd));
+		}
+		if (Distributions.chance(random, settings.getDicomRate())) {
+			int files = 1 + random.nextInt(3);
+			for (int i = 0; i < files; i++) {
+				generateDicom(random, patient, dateTimeBetween(random, registration, historyEnd), i + 1);
+			}
+		}
+	}
+
+	/**
+	 * @return the relative admission rate at a given age: small children and elderly patients are admitted more often
+	 */
+	private static double admissionFactor(int age) {
+		if (age < 5) {
+			return 1.8;
+		}
+		return age >= 60 ? 1.6 : 0.8;
+	}
+
+	private long generateVisit(SplittableRandom random, PatientContext patient, WardEntry ward, LocalDateTime opdDate) throws OHException {
+		long id = nextId(SyntheticTable.VISIT);
+		LocalDateTime date = opdDate.toLocalDate().plusDays(random.nextInt(7, 31)).atTime(random.nextInt(8, 16), random.nextInt(4) * 15);
+		insert(SyntheticTable.VISIT, opdDate,
+				id, patient.id, ward.code, date, "", ward.visitDuration > 0 ? ward.visitDuration : 30, pick(random, SERVICES), false);
+		return id;
+	}
+
+	private void generateAdmission(SplittableRandom random, PatientContext patient, LocalDateTime admissionDate) throws OHException {
+		List<WardEntry> wards = inpatientWards.stream()
+				.filter(ward -> patient.sex == 'F' ? ward.female || !ward.male : ward.male || !ward.female).toList();
+		WardEntry ward = pick(random, wards.isEmpty() ? inpatientWards : wards);
+		long id = nextId(SyntheticTable.ADMISSION);
+		int age = patient.ageAt(admissionDate);
+		String diseaseIn = ipdDiseases.get(ipdDiseaseZipf.sample(random));
+		double stayDays = Math.max(Distributions.logNormal(random, 4, 0.7), 0.5);
+		LocalDateTime dischargeDate = admissionDate.plusMinutes((long) (stayDays * 24 * 60));
+		boolean inHospital = dischargeDate.isAfter(historyEnd);
+		LocalDateTime lastDate = inHospital ? historyEnd : dischargeDate;
+		String diseaseOut = null;
+		String dischargeType = null;
+		if (!inHospital) {
+			diseaseOut = Distributions.chance(random, 0.8) ? diseaseIn : ipdDiseases.get(ipdDiseaseZipf.sample(random));
+			dischargeType = catalogue.dischargeTypes.isEmpty() ? null : catalogue.dischargeTypes.get(dischargeTypeZipf.sample(random));
+		}
+		insert(SyntheticTable.ADMISSION, admissionDate,
+				id, inHospital ? 1 : 0, age < 5 && Distributions.chance(random, 0.05) ? "M" : "N", ward.code,
+				nextProgressive(catalogue.admissionProgByWardYear, Catalogue.wardYearKey(ward.code, admissionDate.getYear())), patient.id,
+				admissionDate, pick(random, catalogue.admissionTypes), diseaseIn, diseaseOut, inHospital ? null : dischargeDate, dischargeType,
+				"", settings.getUser(), 0, 'N');
+
+		generateExamination(random, patient, admissionDate);
+		if (Distributions.chance(random, Math.min(settings.getLaboratoryRate() * 2, 1.0))) {
+			generateLaboratories(random, patient, admissionDate, "I");
+		}
+		if (!catalogue.medicals.isEmpty()) {
+			int therapies = 1 + random.nextInt(3);
+			for (int i = 0; i < therapies; i++) {
+				insert(SyntheticTable.THERAPY, admissionDate,
+						nextId(SyntheticTable.THERAPY), patient.id, admissionDate, lastDate, pick(random, catalogue.medicals),
+						(double) (1 + random.nextInt(2)), 1, 1 + random.nextInt(3), 1, "", 0, 0);
+			}
+		}
+		generateBill(random, patient, admissionDate, lastDate, id, 2 + random.nextInt(4));
+	}
+
+	private void generateLaboratories(SplittableRandom random, PatientContext patient, LocalDateTime date, String inOut) throws OHException {
+		if (exams.isEmpty()) {
+			return;
+		}
+		int count = 1 + Distributions.geometric(random, 0.6);
+		for (int i = 0; i < count; i++) {
+			ExamEntry exam = exams.get(examZipf.sample(random));
+			String result;
+			if (exam.procedure == 3 || exam.results.isEmpty()) {
+				result = String.valueOf(random.nextInt(1, 200));
+			} else {
+				result = pick(random, exam.results);
+			}
+			LocalDateTime labDate = date.plusMinutes(random.nextInt(15, 240));
+			boolean done = labDate.isBefore(historyEnd.minusDays(1)) || Distributions.chance(random, 0.5);
+			insert(SyntheticTable.LABORATORY, labDate,
+					nextId(SyntheticTable.LABORATORY), pick(random, MATERIALS), exam.code, labDate, done ? result : "", 0, "", patient.id,
+					patient.name, inOut, patient.ageAt(labDate), String.valueOf(patient.sex), done ? "done" : "open");
+		}
+	}
+
+	private void generateExamination(SplittableRandom random, PatientContext patient, LocalDateTime date) throws OHException {
+		int age = patient.ageAt(date);
+		int height;
+		double weight;
+		if (age < 15) {
+			height = (int) Distributions.normal(random, 55 + age * 6.5, 5, 40, 190);
+			weight = Distributions.normal(random, 3.5 + age * 2.8, 1.5, 1.5, 90);
+		} else {
+			height = (int) Distributions.normal(random, patient.sex == 'F' ? 160 : 170, 8, 135, 205);
+			weight = Distributions.normal(random, 22, 4, 14, 45) * height * height / 10_000.0;
+		}
+		boolean fever = Distributions.chance(random, 0.3);
+		int minPressure = (int) Distributions.normal(random, 78, 9, 45, 120);
+		insert(SyntheticTable.EXAMINATION, date,
+				nextId(SyntheticTable.EXAMINATION), date, patient.id, height, Math.round(weight * 10) / 10.0,
+				minPressure, minPressure + (int) Distributions.normal(random, 42, 8, 20, 90),
+				(int) Distributions.normal(random, age < 5 ? 115 : 78, 12, 40, 190),
+				Math.round(Distributions.normal(random, fever ? 38.6 : 36.7, fever ? 0.6 : 0.3, 35, 42) * 10) / 10.0,
+				Math.round(Distributions.normal(random, 97.5, 1.5, 80, 100) * 10) / 10.0,
+				(int) Distributions.normal(random, age < 5 ? 30 : 16, 3, 8, 60), "");
+	}
+
+	private void generateBill(SplittableRandom random, PatientContext patient, LocalDateTime date, LocalDateTime settlementDate,
+			Long admissionId, int itemCount) throws OHException {
+		long billId = nextId(SyntheticTable.BILL);
+		boolean priced = !prices.isEmpty();
+		Object[][] items = new Object[itemCount][];
+		double amount = 0;
+		for (int i = 0; i < itemCount; i++) {
+			double itemAmount;
+			int quantity;
+			if (priced) {
+				PriceEntry price = prices.get(priceZipf.sample(random));
+				itemAmount = price.price;
+				quantity = "MED".equals(price.group) ? 1 + random.nextInt(5) : 1;
+				items[i] = new Object[] { nextId(SyntheticTable.BILL_ITEM), billId, true, price.code, price.description, itemAmount, quantity };
+			} else {
+				itemAmount = Math.round(Distributions.logNormal(random, 10, 0.6) * 100) / 100.0;
+				quantity = 1;
+				items[i] = new Object[] { nextId(SyntheticTable.BILL_ITEM), billId, false, null, pick(random, CUSTOM_ITEMS), itemAmount, quantity };
+			}
+			amount += itemAmount * quantity;
+		}
+		amount = Math.round(amount * 100) / 100.0;
+
+		List<LocalDateTime> paymentDates = new ArrayList<>(2);
+		List<Double> paymentAmounts = new ArrayList<>(2);
+		double paymentShare = random.nextDouble();
+		if (paymentShare < 0.75) {
+			paymentDates.add(settlementDate);
+			paymentAmounts.add(amount);
+		} else if (paymentShare < 0.9) {
+			double deposit = Math.round(amount * random.nextDouble(0.2, 0.8) * 100) / 100.0;
+			paymentDates.add(date);
+			paymentAmounts.add(deposit);
+			LocalDateTime balanceDate = settlementDate.plusDays(random.nextInt(0, 30));
+			if (!balanceDate.isAfter(historyEnd)) {
+				paymentDates.add(balanceDate);
+				paymentAmounts.add(Math.round((amount - deposit) * 100) / 100.0);
+			}
+		} else if (Distributions.chance(random, 0.5)) {
+			paymentDates.add(date);
+			paymentAmounts.add(Math.round(amount * random.nextDouble(0.1, 0.5) * 100) / 100.0);
+		}
+		double paid = paymentAmounts.stream().mapToDouble(Double::doubleValue).sum();
+		double balance = Math.max(Math.round((amount - paid) * 100) / 100.0, 0);
+		LocalDateTime update = paymentDates.isEmpty() ? date : paymentDates.get(paymentDates.size() - 1);
+
+		insert(SyntheticTable.BILL, date,
+				billId, date, update, priced, priced ? catalogue.priceListId : null, priced ? catalogue.priceListName : "", true, patient.id,
+				patient.name, balance == 0 ? "C" : "O", amount, balance, settings.getUser(), admissionId);
+		for (Object[] item : items) {
+			insert(SyntheticTable.BILL_ITEM, date, item);
+		}
+		for (int i = 0; i < paymentDates.size(); i++) {
+			insert(SyntheticTable.BILL_PAYMENT, paymentDates.get(i),
+					nextId(SyntheticTable.BILL_PAYMENT), billId, paymentDates.get(i), paymentAmounts.get(i), settings.getUser());
+		}
+	}
+
+	private void generateDicom(SplittableRandom random, PatientContext patient, LocalDateTime studyDate, int number) throws OHException {
+		long id = nextId(SyntheticTable.DICOM);
+		String modality = pick(random, MODALITIES);
+		String study = DICOM_ROOT + '.' + patient.id + '.' + id;
+		insert(SyntheticTable.DICOM, studyDate,
+				id, (int) patient.id, "synthetic_" + id + ".dcm", "ACC" + id, "Synthetic Hospital", String.valueOf(patient.id), patient.name,
+				String.format("%03dY", patient.ageAt(studyDate)), String.valueOf(patient.sex),
+				patient.birthDate.toString().replace("-", ""), study, studyDate, modality + " study", study + ".1", study + ".1.1",
+				String.valueOf(number), studyDate, modality + " series", study + ".1.1.1", modality);
+	}
+
+	/**
+	 * Lot being discharged from the main store for a medical.
+	 */
+	private static final class StockState {
+
+		String lot;
+		int remaining;
+		LocalDateTime dueDate;
+		long charged;
+		long discharged;
+	}
+
+	private void generateStock(SplittableRandom random) throws OHException {
+		long discharges = Math.round(settings.getPatients() * settings.getStockMovements());
+		if (discharges == 0 || catalogue.medicals.isEmpty() || catalogue.chargeType == null || catalogue.dischargeType == null) {
+			return;
+		}
+		List<Integer> medicals = shuffled(catalogue.medicals, new Random(Distributions.streamSeed(settings.getSeed(), -3)));
+		Zipf medicalZipf = new Zipf(medicals.size(), 1.0);
+		StockState[] states = new StockState[medicals.size()];
+		Map<String, Integer> wardQuantities = new LinkedHashMap<>();
+		Map<String, Object[]> wardKeys = new HashMap<>();
+		long days = ChronoUnit.DAYS.between(historyStart.toLocalDate(), settings.getUntil()) + 1;
+		double dischargesPerDay = (double) discharges / days;
+		double meanQuantity = 20;
+
+		for (long day = 0; day < days; day++) {
+			LocalDate date = historyStart.toLocalDate().plusDays(day);
+			long count = (day + 1) * discharges / days - day * discharges / days;
+			for (long i = 0; i < count; i++) {
+				int rank = medicalZipf.sample(random);
+				int medical = medicals.get(rank);
+				WardEntry ward = pick(random, inpatientWards);
+				int quantity = Math.max((int) Distributions.logNormal(random, meanQuantity, 0.8), 1);
+				LocalDateTime moveDate = date.atTime(random.nextInt(8, 18), random.nextInt(60));
+				StockState state = states[rank];
+				if (state == null) {
+					state = new StockState();
+					states[rank] = state;
+				}
+				if (state.lot == null || state.remaining < quantity || state.dueDate.isBefore(moveDate)) {
+					// charge a lot covering about two months of demand: what is left of the previous one stays in the main store
+					double expected = dischargesPerDay * medicalZipf.probability(rank) * meanQuantity * 60;
+					int size = (int) Math.ceil(Math.max(expected, quantity) / 50.0) * 50;
+					chargeLot(random, state, medical, size, moveDate.minusHours(1));
+				}
+				long movementId = nextId(SyntheticTable.MOVEMENT);
+				insert(SyntheticTable.MOVEMENT, moveDate,
+						movementId, medical, catalogue.dischargeType, ward.code, state.lot, moveDate, quantity, null, "SYN-D" + movementId);
+				state.remaining -= quantity;
+				state.discharged += quantity;
+				String key = ward.code + '/' + medical + '/' + state.lot;
+				wardQuantities.merge(key, quantity, Integer::sum);
+				wardKeys.putIfAbsent(key, new Object[] { ward.code, medical, state.lot, moveDate });
+			}
+		}
+		for (Map.Entry<String, Integer> entry : wardQuantities.entrySet()) {
+			Object[] key = wardKeys.get(entry.getKey());
+			insert(SyntheticTable.MEDICAL_WARD, (LocalDateTime) key[3], key[0], key[1], key[2], entry.getValue().floatValue(), 0f);
+		}
+		for (int rank = 0; rank < states.length; rank++) {
+			if (states[rank] != null) {
+				sink.execute(MEDICAL_STOCK_UPDATE, states[rank].charged, states[rank].discharged, medicals.get(rank));
+			}
+		}
+	}
+
+	private void chargeLot(SplittableRandom random, StockState state, int medical, int size, LocalDateTime date) throws OHException {
+		String lot = LOT_PREFIX + String.format("%07d", ++catalogue.syntheticLots);
+		LocalDateTime preparationDate = date.minusDays(random.nextInt(30, 180)).toLocalDate().atStartOfDay();
+		LocalDateTime dueDate = preparationDate.plusYears(2).plusDays(random.nextInt(365));
+		insert(SyntheticTable.LOT, date,
+				lot, medical, preparationDate, dueDate, Math.round(Distributions.logNormal(random, 1.5, 1.0) * 100) / 100.0, 0);
+		long movementId = nextId(SyntheticTable.MOVEMENT);
+		insert(SyntheticTable.MOVEMENT, date,
+				movementId, medical, catalogue.chargeType, null, lot, date, size,
+				catalogue.suppliers.isEmpty() ? null : pick(random, catalogue.suppliers), "SYN-C" + movementId);
+		state.lot = lot;
+		state.remaining = size;
+		state.dueDate = dueDate;
+		state.charged += size;
+	}
+
+	private static <K> int nextProgressive(Map<K, Integer> progressives, K key) {
+		return progressives.merge(key, 1, Integer::sum);
+	}
+
+	private static LocalDateTime dateTimeBetween(SplittableRandom random, LocalDateTime from, LocalDateTime to) {
+		long days = ChronoUnit.DAYS.between(from.toLocalDate(), to.toLocalDate());
+		LocalDate day = from.toLocalDate().plusDays(days > 0 ? random.nextLong(days + 1) : 0);
+		LocalDateTime dateTime = day.atTime(random.nextInt(8, 18), random.nextInt(60));
+		if (dateTime.isBefore(from)) {
+			return from;
+		}
+		return dateTime.isAfter(to) ? to : dateTime;
+	}
+
+	private static LocalDateTime later(LocalDateTime first, LocalDateTime second) {
+		return first.isAfter(second) ? first : second;
+	}
+
+	private static String bloodType(SplittableRandom random) {
+		double share = random.nextDouble();
+		for (int i = 0; i < BLOOD_TYPES.length - 1; i++) {
+			share -= BLOOD_TYPE_SHARES[i];
+			if (share < 0) {
+				return BLOOD_TYPES[i];
+			}
+		}
+		return BLOOD_TYPES[BLOOD_TYPES.length - 1];
+	}
+
+	private static String pick(SplittableRandom random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private static <T> T pick(SplittableRandom random, List<T> values) {
+		return values.get(random.nextInt(values.size()));
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.datagen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tables written by the {@link SyntheticDataGenerator}, in foreign key order: a table only references tables declared before it.
+ * <p>
+ * Every table ends with the audit columns of {@link org.isf.utils.db.Auditable} (created by, created date and active).
+ */
+public enum SyntheticTable {
+
+	PATIENT("OH_PATIENT", "Patient", "PAT",
+			"PAT_ID", "PAT_FNAME", "PAT_SNAME", "PAT_NAME", "PAT_BDATE", "PAT_AGE", "PAT_AGETYPE", "PAT_SEX", "PAT_ADDR", "PAT_CITY",
+			"PAT_NEXT_KIN", "PAT_TELE", "PAT_NOTE", "PAT_MOTH_NAME", "PAT_MOTH", "PAT_FATH_NAME", "PAT_FATH", "PAT_BTYPE", "PAT_ESTA",
+			"PAT_PTOGE", "PAT_TAXCODE", "PAT_MAR_STAT", "PAT_PROFESSION", "PAT_DELETED", "PAT_LOCK"),
+	VISIT("OH_VISITS", "Visit", "VST",
+			"VST_ID", "VST_PAT_ID", "VST_WRD_ID_A", "VST_DATE", "VST_NOTE", "VST_DURATION", "VST_SERVICE", "VST_SMS"),
+	OPD("OH_OPD", "Opd", "OPD",
+			"OPD_ID", "OPD_WRD_ID_A", "OPD_DATE", "OPD_PAT_ID", "OPD_AGE", "OPD_SEX", "OPD_NOTE", "OPD_PROG_YEAR", "OPD_DIS_ID_A",
+			"OPD_NEW_PAT", "OPD_REFERRAL_FROM", "OPD_REFERRAL_TO", "OPD_USR_ID_A", "OPD_NEXT_VISIT_ID", "OPD_LOCK", "OPD_PRESCRIPTION"),
+	ADMISSION("OH_ADMISSION", "Admission", "ADM",
+			"ADM_ID", "ADM_IN", "ADM_TYPE", "ADM_WRD_ID_A", "ADM_YPROG", "ADM_PAT_ID", "ADM_DATE_ADM", "ADM_ADMT_ID_A_ADM",
+			"ADM_IN_DIS_ID_A", "ADM_OUT_DIS_ID_A", "ADM_DATE_DIS", "ADM_DIST_ID_A", "ADM_NOTE", "ADM_USR_ID_A", "ADM_LOCK", "ADM_DELETED"),
+	LABORATORY("OH_LABORATORY", "Laboratory", "LAB",
+			"LAB_ID", "LAB_MATERIAL", "LAB_EXA_ID_A", "LAB_DATE", "LAB_RES", "LAB_LOCK", "LAB_NOTE", "LAB_PAT_ID", "LAB_PAT_NAME",
+			"LAB_PAT_INOUT", "LAB_AGE", "LAB_SEX", "LAB_STATUS"),
+	EXAMINATION("OH_PATIENTEXAMINATION", "PatientExamination", "PEX",
+			"PEX_ID", "PEX_DATE", "PEX_PAT_ID", "PEX_HEIGHT", "PEX_WEIGHT", "PEX_AP_MIN", "PEX_AP_MAX", "PEX_HR", "PEX_TEMP", "PEX_SAT",
+			"PEX_RR", "PEX_NOTE"),
+	THERAPY("OH_THERAPIES", "TherapyRow", "THR",
+			"THR_ID", "THR_PAT_ID", "THR_STARTDATE", "THR_ENDDATE", "THR_MDSR_ID", "THR_QTY", "THR_UNT_ID", "THR_FREQINDAY",
+			"THR_FREQINPRD", "THR_NOTE", "THR_NOTIFY", "THR_SMS"),
+	BILL("OH_BILLS", "Bill", "BLL",
+			"BLL_ID", "BLL_DATE", "BLL_UPDATE", "BLL_IS_LST", "BLL_ID_LST", "BLL_LST_NAME", "BLL_IS_PAT", "BLL_ID_PAT", "BLL_PAT_NAME",
+			"BLL_STATUS", "BLL_AMOUNT", "BLL_BALANCE", "BLL_USR_ID_A", "BLL_ADM_ID"),
+	BILL_ITEM("OH_BILLITEMS", "BillItems", "BLI",
+			"BLI_ID", "BLI_ID_BILL", "BLI_IS_PRICE", "BLI_ID_PRICE", "BLI_ITEM_DESC", "BLI_ITEM_AMOUNT", "BLI_QTY"),
+	BILL_PAYMENT("OH_BILLPAYMENTS", "BillPayments", "BLP",
+			"BLP_ID", "BLP_ID_BILL", "BLP_DATE", "BLP_AMOUNT", "BLP_USR_ID_A"),
+	DICOM("OH_DICOM", "FileDicom", "DM",
+			"DM_FILE_ID", "DM_PAT_ID", "DM_FILE_NOME", "DM_FILE_ACCESSION_NUMBER", "DM_FILE_INSTITUTION_NAME", "DM_FILE_PAT_UID",
+			"DM_FILE_PAT_NAME", "DM_FILE_PAT_AGE", "DM_FILE_PAT_SEX", "DM_FILE_PAT_BIRTHDATE", "DM_FILE_ST_UID", "DM_FILE_ST_DATE",
+			"DM_FILE_ST_DESCR", "DM_FILE_SER_UID", "DM_FILE_SER_INST_UID", "DM_FILE_SER_NUMBER", "DM_FILE_SER_DATE", "DM_FILE_SER_DESC",
+			"DM_FILE_INST_UID", "DM_FILE_MODALIITY"),
+	LOT("OH_MEDICALDSRLOT", null, "LT",
+			"LT_ID_A", "LT_MDSR_ID", "LT_PREP_DATE", "LT_DUE_DATE", "LT_COST", "LT_LOCK"),
+	MOVEMENT("OH_MEDICALDSRSTOCKMOV", "Movement", "MMV",
+			"MMV_ID", "MMV_MDSR_ID", "MMV_MMVT_ID_A", "MMV_WRD_ID_A", "MMV_LT_ID_A", "MMV_DATE", "MMV_QTY", "MMV_FROM", "MMV_REFNO"),
+	MEDICAL_WARD("OH_MEDICALDSRWARD", null, "MDSRWRD",
+			"MDSRWRD_WRD_ID_A", "MDSRWRD_MDSR_ID", "MDSRWRD_LT_ID_A", "MDSRWRD_IN_QTI", "MDSRWRD_OUT_QTI");
+
+	private final String tableName;
+
+	private final String entityName;
+
+	private final List<String> columns;
+
+	SyntheticTable(String tableName, String entityName, String prefix, String... columns) {
+		this.tableName = tableName;
+		this.entityName = entityName;
+		List<String> allColumns = new ArrayList<>(columns.length + 3);
+		Collections.addAll(allColumns, columns);
+		allColumns.add(prefix + "_CREATED_BY");
+		allColumns.add(prefix + "_CREATED_DATE");
+		allColumns.add(prefix + "_ACTIVE");
+		this.columns = List.copyOf(allColumns);
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * @return the name of the entity in {@code OH_ID_POOL}, {@code null} if the primary key is not generated
+	 */
+	public String getEntityName() {
+		return entityName;
+	}
+
+	/**
+	 * @return the written columns, the first one being the primary key
+	 */
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return the parameterized {@code INSERT} statement for a row of this table
+	 */
+	public String getInsertStatement() {
+		return "INSERT INTO " + tableName + " (" + String.join(", ", columns) + ") VALUES ("
+				+ String.join(", ", Collections.nCopies(columns.size(), "?")) + ')';
+	}
+}
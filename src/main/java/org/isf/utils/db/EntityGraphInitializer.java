@@ -0,0 +1,97 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.db;
+
+import java.util.Collection;
+import java.util.List;
+
+import jakarta.persistence.AttributeNode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Subgraph;
+
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Initializes the associations of a named entity graph on entities that were not loaded through it, e.g. returned by a merge or a native
+ * query, so that they can be read once the transaction is over.
+ */
+@Component
+public class EntityGraphInitializer {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Initializes the associations of the entity graph on the entity.
+	 *
+	 * @param entity - the entity, may be {@code null}
+	 * @param entityGraph - the name of the entity graph
+	 * @return the entity
+	 */
+	public <T> T initialize(T entity, String entityGraph) {
+		if (entity != null) {
+			initialize(entity, entityManager.getEntityGraph(entityGraph).getAttributeNodes());
+		}
+		return entity;
+	}
+
+	/**
+	 * Initializes the associations of the entity graph on each entity.
+	 *
+	 * @param entities - the entities
+	 * @param entityGraph - the name of the entity graph
+	 * @return the entities
+	 */
+	public <T> List<T> initialize(List<T> entities, String entityGraph) {
+		if (!entities.isEmpty()) {
+			List<AttributeNode<?>> attributes = entityManager.getEntityGraph(entityGraph).getAttributeNodes();
+			for (T entity : entities) {
+				initialize(entity, attributes);
+			}
+		}
+		return entities;
+	}
+
+	private void initialize(Object entity, List<? extends AttributeNode<?>> attributes) {
+		Object target = Hibernate.unproxy(entity);
+		EntityPersister persister = getPersister(Hibernate.getClass(target));
+		for (AttributeNode<?> attribute : attributes) {
+			Object value = persister.getPropertyValue(target, attribute.getAttributeName());
+			Hibernate.initialize(value);
+			if (value != null && !(value instanceof Collection)) {
+				for (Subgraph<?> subgraph : attribute.getSubgraphs().values()) {
+					initialize(value, subgraph.getAttributeNodes());
+				}
+			}
+		}
+	}
+
+	private EntityPersister getPersister(Class<?> entityClass) {
+		return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getMappingMetamodel()
+				.getEntityDescriptor(entityClass);
+	}
+
+}
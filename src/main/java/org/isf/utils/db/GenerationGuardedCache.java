@@ -0,0 +1,159 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.db;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import org.isf.utils.exception.OHServiceException;
+
+/**
+ * Cache of values built from the database, discarded when the data they were built from changes.
+ * <p>
+ * Values are loaded outside of any lock. Every invalidation or update increments a generation, and a value loaded while the generation
+ * changed is returned to its caller but not kept, since it may have been built from the data before the change. Use
+ * {@link TransactionalEviction} to invalidate the values when a transaction changes their data.
+ *
+ * @param <K> - the type of the keys
+ * @param <V> - the type of the values
+ */
+public final class GenerationGuardedCache<K, V> {
+
+	private final Map<K, V> values = new ConcurrentHashMap<>();
+
+	private final Object lock = new Object();
+
+	private long generation;
+
+	/**
+	 * Returns the value of the key, loading it if needed.
+	 *
+	 * @param key - the key
+	 * @param loader - loads the value of the key
+	 * @return the value
+	 * @throws OHServiceException When failed to load the value
+	 */
+	public V get(K key, Loader<? super K, ? extends V> loader) throws OHServiceException {
+		return get(key, loader, value -> true);
+	}
+
+	/**
+	 * Returns the value of the key, loading it if needed; a loaded value is kept only if it is {@code cacheable}.
+	 *
+	 * @param key - the key
+	 * @param loader - loads the value of the key
+	 * @param cacheable - tells whether a loaded value may be kept
+	 * @return the value
+	 * @throws OHServiceException When failed to load the value
+	 */
+	public V get(K key, Loader<? super K, ? extends V> loader, Predicate<? super V> cacheable) throws OHServiceException {
+		V value = values.get(key);
+		if (value == null) {
+			long loadedGeneration = getGeneration();
+			value = loader.load(key);
+			synchronized (lock) {
+				if (generation == loadedGeneration && cacheable.test(value)) {
+					V previous = values.putIfAbsent(key, value);
+					if (previous != null) {
+						value = previous;
+					}
+				}
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Loads the value of the key again and replaces the current one, which is returned by {@link #get} meanwhile. The loaded value is
+	 * dropped if the generation changed while it was loaded.
+	 *
+	 * @param key - the key
+	 * @param loader - loads the value of the key
+	 * @throws OHServiceException When failed to load the value
+	 */
+	public void reload(K key, Loader<? super K, ? extends V> loader) throws OHServiceException {
+		long loadedGeneration = getGeneration();
+		V value = loader.load(key);
+		synchronized (lock) {
+			if (generation == loadedGeneration) {
+				values.put(key, value);
+			}
+		}
+	}
+
+	/**
+	 * Replaces the current value of the key, if any, with a changed copy; the values being loaded meanwhile are dropped, as they may have
+	 * read the data before the change.
+	 *
+	 * @param key - the key
+	 * @param change - returns the changed copy of the value
+	 */
+	public void update(K key, UnaryOperator<V> change) {
+		synchronized (lock) {
+			generation++;
+			values.computeIfPresent(key, (k, value) -> change.apply(value));
+		}
+	}
+
+	/**
+	 * Discards the value of the key and the values being loaded.
+	 *
+	 * @param key - the key
+	 */
+	public void invalidate(K key) {
+		synchronized (lock) {
+			generation++;
+			values.remove(key);
+		}
+	}
+
+	/**
+	 * Discards all the values and the values being loaded.
+	 */
+	public void invalidateAll() {
+		synchronized (lock) {
+			generation++;
+			values.clear();
+		}
+	}
+
+	private long getGeneration() {
+		synchronized (lock) {
+			return generation;
+		}
+	}
+
+	/**
+	 * Loads the value of a key.
+	 *
+	 * @param <K> - the type of the keys
+	 * @param <V> - the type of the values
+	 */
+	@FunctionalInterface
+	public interface Loader<K, V> {
+
+		V load(K key) throws OHServiceException;
+	}
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.db;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.generator.OnExecutionGenerator;
+import org.hibernate.id.IdentityGenerator;
+import org.hibernate.id.PostInsertIdentityPersister;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.id.insert.InsertGeneratedIdentifierDelegate;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.jdbc.AbstractReturningWork;
+import org.hibernate.mapping.KeyValue;
+import org.hibernate.mapping.SimpleValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Identifier generator of the {@link OHGeneratedValue} identifiers.
+ * <p>
+ * By default the identifier is generated by the IDENTITY column of the table, as with {@code GenerationType.IDENTITY}. The entities
+ * listed in the {@value #POOLED_ENTITIES} setting ({@code *} for all of them) take their identifiers from blocks of
+ * {@value #ALLOCATION_SIZE} identifiers (default {@value #DEFAULT_ALLOCATION_SIZE}) reserved in the {@code OH_ID_POOL} table, so that
+ * Hibernate knows the identifier before the INSERT and can send the INSERTs in JDBC batches.
+ * <p>
+ * A block always starts after the highest identifier already stored in the table, so the rows created through the IDENTITY column
+ * before switching an entity to pooled identifiers are left untouched. The IDENTITY counter of the table is not moved past the reserved
+ * blocks, as that takes an {@code ALTER TABLE} which waits for every open transaction on the table, including the one asking for the block.
+ * Hence every process writing the table must use the same {@value #POOLED_ENTITIES} setting, an entity can be switched back to IDENTITY
+ * only once no process holds a block, and the entities also inserted by SQL statements relying on the IDENTITY column are declared with
+ * {@link OHGeneratedValue#poolable() poolable = false} and never pooled.
+ */
+public class OHIdGenerator implements BeforeExecutionGenerator, OnExecutionGenerator {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OHIdGenerator.class);
+
+	public static final String POOLED_ENTITIES = "oh.id.pooled";
+
+	public static final String ALLOCATION_SIZE = "oh.id.allocation_size";
+
+	public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+	private static final String CREATE_POOL_TABLE = "CREATE TABLE IF NOT EXISTS OH_ID_POOL ("
+					+ "IDP_ENTITY varchar(100) NOT NULL, IDP_LAST_ID bigint NOT NULL, PRIMARY KEY (IDP_ENTITY))";
+
+	private static final String SELECT_LAST_ID = "SELECT IDP_LAST_ID FROM OH_ID_POOL WHERE IDP_ENTITY = ? FOR UPDATE";
+
+	private static final String INSERT_LAST_ID = "INSERT INTO OH_ID_POOL (IDP_ENTITY, IDP_LAST_ID) VALUES (?, ?)";
+
+	private static final String UPDATE_LAST_ID = "UPDATE OH_ID_POOL SET IDP_LAST_ID = ? WHERE IDP_ENTITY = ?";
+
+	private final IdentityGenerator identityGenerator = new IdentityGenerator();
+
+	private final String entityName;
+
+	private final String selectMaxId;
+
+	private final Class< ? > idType;
+
+	private final boolean pooled;
+
+	private final int allocationSize;
+
+	private boolean poolTableChecked;
+
+	private long nextId;
+
+	private long lastId;
+
+	public OHIdGenerator(OHGeneratedValue annotation, Member member, CustomIdGeneratorCreationContext context) {
+		KeyValue identifier = context.getRootClass().getIdentifier();
+		entityName = context.getRootClass().getJpaEntityName();
+		selectMaxId = "SELECT MAX(" + identifier.getColumns().get(0).getName() + ") FROM " + context.getRootClass().getTable().getName();
+		idType = member instanceof Field field ? field.getType() : ((Method) member).getReturnType();
+
+		Map<String, Object> settings = context.getServiceRegistry().requireService(ConfigurationService.class).getSettings();
+		String pooledEntities = ConfigurationHelper.getString(POOLED_ENTITIES, settings, "");
+		List<String> names = Arrays.stream(pooledEntities.split(",")).map(String::trim).toList();
+		if (!annotation.poolable() && names.stream().anyMatch(entityName::equalsIgnoreCase)) {
+			LOGGER.warn("{} is also inserted through its IDENTITY column, its identifiers are not pooled.", entityName);
+		}
+		pooled = annotation.poolable() && names.stream().anyMatch(name -> name.equals("*") || name.equalsIgnoreCase(entityName));
+		allocationSize = Math.max(ConfigurationHelper.getInt(ALLOCATION_SIZE, settings, DEFAULT_ALLOCATION_SIZE), 1);
+
+		if (!pooled && identifier instanceof SimpleValue simpleValue) {
+			// the schema export only declares an IDENTITY column for the "identity" strategy of the table identifier
+			simpleValue.setIdentifierGeneratorStrategy("identity");
+			context.getRootClass().getTable().setIdentifierValue(simpleValue);
+		}
+	}
+
+	public boolean isPooled() {
+		return pooled;
+	}
+
+	@Override
+	public boolean generatedOnExecution() {
+		return !pooled;
+	}
+
+	@Override
+	public EnumSet<EventType> getEventTypes() {
+		return EventTypeSets.INSERT_ONLY;
+	}
+
+	@Override
+	public synchronized Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+		if (nextId == 0 || nextId > lastId) {
+			long blockStart = session.getTransactionCoordinator().createIsolationDelegate().delegateWork(new AbstractReturningWork<Long>() {
+
+				@Override
+				public Long execute(Connection connection) throws SQLException {
+					return allocateBlock(connection);
+				}
+			}, true);
+			nextId = blockStart + 1;
+			lastId = blockStart + allocationSize;
+		}
+		long id = nextId++;
+		if (idType == Long.class || idType == long.class) {
+			return id;
+		}
+		return Math.toIntExact(id);
+	}
+
+	/**
+	 * Reserves the next block of identifiers of the entity.
+	 *
+	 * @param connection - a connection outside the transaction of the session
+	 * @return the identifier preceding the block
+	 * @throws SQLException
+	 */
+	private long allocateBlock(Connection connection) throws SQLException {
+		if (!poolTableChecked) {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute(CREATE_POOL_TABLE);
+			}
+			poolTableChecked = true;
+		}
+		Long stored = null;
+		try (PreparedStatement select = connection.prepareStatement(SELECT_LAST_ID)) {
+			select.setString(1, entityName);
+			try (ResultSet resultSet = select.executeQuery()) {
+				if (resultSet.next()) {
+					stored = resultSet.getLong(1);
+				}
+			}
+		}
+		long blockStart = Math.max(lastId, stored == null ? 0 : stored);
+		try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(selectMaxId)) {
+			if (resultSet.next()) {
+				blockStart = Math.max(blockStart, resultSet.getLong(1));
+			}
+		}
+		try (PreparedStatement write = connection.prepareStatement(stored == null ? INSERT_LAST_ID : UPDATE_LAST_ID)) {
+			write.setString(stored == null ? 1 : 2, entityName);
+			write.setLong(stored == null ? 2 : 1, blockStart + allocationSize);
+			write.executeUpdate();
+		}
+		LOGGER.debug("Allocated identifiers {} to {} of {}.", blockStart + 1, blockStart + allocationSize, entityName);
+		return blockStart;
+	}
+
+	@Override
+	public boolean referenceColumnsInSql(Dialect dialect) {
+		return identityGenerator.referenceColumnsInSql(dialect);
+	}
+
+	@Override
+	public boolean writePropertyValue() {
+		return identityGenerator.writePropertyValue();
+	}
+
+	@Override
+	public String[] getReferencedColumnValues(Dialect dialect) {
+		return identityGenerator.getReferencedColumnValues(dialect);
+	}
+
+	// deprecated for removal, but it is still the method Hibernate 6.5 calls to pick how the IDENTITY value is read back; the default
+	// implementation lacks the dialect-specific fallbacks of IdentityGenerator
+	@SuppressWarnings("removal")
+	@Override
+	public InsertGeneratedIdentifierDelegate getGeneratedIdentifierDelegate(PostInsertIdentityPersister persister) {
+		return identityGenerator.getGeneratedIdentifierDelegate(persister);
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.db;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.annotation.PreDestroy;
+
+import org.isf.utils.time.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory journal of writes that are taken off the caller's path and applied in the background.
+ * <p>
+ * Entries are written by a single thread, in batches of up to {@code batchSize}, when a batch is full or at most {@code flushDelayMillis} ms
+ * after the first pending entry was appended. Pending entries are written when the Spring context is closed.
+ * <p>
+ * Entries whose write failed are written again before the newer ones, after a delay doubling from {@code flushDelayMillis} at each
+ * consecutive failure up to {@value #MAX_RETRY_DELAY_MILLIS} ms; they are discarded after {@value #MAX_ATTEMPTS} attempts.
+ *
+ * @param <T> - the type of the entries
+ */
+public abstract class WriteBehindJournal<T> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindJournal.class);
+
+	private static final int MAX_ATTEMPTS = 10;
+
+	private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+
+	private final String name;
+
+	private final int batchSize;
+
+	private final long flushDelayMillis;
+
+	private final LinkedBlockingQueue<T> queue = new LinkedBlockingQueue<>();
+
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+	private final ExecutorService executor;
+
+	// entries whose write failed, written before the queue
+	private final Deque<T> retries = new ConcurrentLinkedDeque<>();
+
+	// consecutive failures and end of the backoff, guarded by this like the draining
+	private int failures;
+
+	private long retryAtNanos;
+
+	protected WriteBehindJournal(String name, int batchSize, long flushDelayMillis) {
+		this.name = name;
+		this.batchSize = batchSize;
+		this.flushDelayMillis = flushDelayMillis;
+		this.executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Appends an entry to the journal.
+	 *
+	 * @param entry - the entry
+	 */
+	protected void append(T entry) {
+		queue.add(entry);
+		if (executor.isShutdown()) {
+			// closed journal: nothing left to batch with
+			drain(true);
+		} else if (queue.size() >= batchSize) {
+			executor.execute(this::drain);
+		} else if (flushScheduled.compareAndSet(false, true)) {
+			TimingWheel.getDefault().schedule(this::scheduledFlush, flushDelayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Writes a batch of entries, in the order they were appended.
+	 *
+	 * @param entries - the entries
+	 * @throws Exception When the entries could not be written; they are written again later
+	 */
+	protected abstract void write(List<T> entries) throws Exception;
+
+	/**
+	 * Writes the pending entries, including those waiting for a retry, and waits for the end of the writing.
+	 */
+	public void flush() {
+		try {
+			executor.submit(() -> drain(true)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			LOGGER.error("Failed to flush journal {}", name, e.getCause());
+		}
+	}
+
+	/**
+	 * @return the number of entries not written yet
+	 */
+	public int getPendingCount() {
+		return queue.size() + retries.size();
+	}
+
+	@PreDestroy
+	public void close() {
+		flush();
+		executor.shutdown();
+		int pending = getPendingCount();
+		if (pending > 0) {
+			LOGGER.error("Journal {} closed with {} entries not written", name, pending);
+		}
+	}
+
+	private void scheduledFlush() {
+		if (executor.isShutdown()) {
+			return;
+		}
+		executor.execute(this::drain);
+	}
+
+	private void scheduledRetry() {
+		if (executor.isShutdown()) {
+			return;
+		}
+		executor.execute(() -> drain(true));
+	}
+
+	private void drain() {
+		drain(false);
+	}
+
+	private synchronized void drain(boolean force) {
+		flushScheduled.set(false);
+		if (failures > 0 && !force && System.nanoTime() - retryAtNanos < 0) {
+			// backing off: the scheduled retry writes the pending entries
+			return;
+		}
+		List<T> entries = new ArrayList<>(batchSize);
+		while (nextBatch(entries)) {
+			try {
+				write(entries);
+				failures = 0;
+			} catch (Exception e) {
+				if (retry(entries, e)) {
+					return;
+				}
+			}
+			entries.clear();
+		}
+	}
+
+	private boolean nextBatch(List<T> entries) {
+		while (entries.size() < batchSize && !retries.isEmpty()) {
+			entries.add(retries.poll());
+		}
+		queue.drainTo(entries, batchSize - entries.size());
+		return !entries.isEmpty();
+	}
+
+	/**
+	 * @return {@code true} if the entries are kept for a later retry, {@code false} if they are discarded
+	 */
+	private boolean retry(List<T> entries, Exception e) {
+		failures++;
+		if (failures >= MAX_ATTEMPTS) {
+			LOGGER.error("Failed to write {} entries of journal {} {} times, discarding them", entries.size(), name, failures, e);
+			failures = 0;
+			return false;
+		}
+		for (ListIterator<T> iterator = entries.listIterator(entries.size()); iterator.hasPrevious();) {
+			retries.addFirst(iterator.previous());
+		}
+		long delay = Math.min(flushDelayMillis << Math.min(failures - 1, 16), MAX_RETRY_DELAY_MILLIS);
+		retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+		LOGGER.warn("Failed to write {} entries of journal {}, retrying in {} ms", entries.size(), name, delay, e);
+		TimingWheel.getDefault().schedule(this::scheduledRetry, delay, TimeUnit.MILLISECONDS);
+		return true;
+	}
+
+}
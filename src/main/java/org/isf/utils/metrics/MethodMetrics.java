@@ -0,0 +1,71 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a single instrumented method, updated concurrently without locks.
+ */
+final class MethodMetrics {
+
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder rows = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	/**
+	 * @param nanos - the duration of the call
+	 * @param failed - {@code true} if the call threw an exception
+	 * @param rowCount - the size of the returned collection, negative if the method does not return a collection
+	 */
+	void record(long nanos, boolean failed, int rowCount) {
+		calls.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+		histogram.record(nanos);
+		if (failed) {
+			errors.increment();
+		}
+		if (rowCount > 0) {
+			rows.add(rowCount);
+		}
+	}
+
+	MethodStatistics toStatistics(String name) {
+		return new MethodStatistics(name, calls.sum(), errors.sum(), rows.sum(), totalNanos.sum(), maxNanos.get(), histogram.percentile(0.50),
+						histogram.percentile(0.95), histogram.percentile(0.99));
+	}
+
+	void reset() {
+		calls.reset();
+		errors.reset();
+		rows.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+		histogram.reset();
+	}
+
+}
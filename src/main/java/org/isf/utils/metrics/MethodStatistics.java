@@ -0,0 +1,115 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of the metrics of an instrumented method; durations are in milliseconds.
+ */
+public final class MethodStatistics {
+
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+	private final String name;
+	private final long calls;
+	private final long errors;
+	private final long rows;
+	private final double totalMillis;
+	private final double maxMillis;
+	private final double p50Millis;
+	private final double p95Millis;
+	private final double p99Millis;
+
+	@ConstructorProperties({ "name", "calls", "errors", "rows", "totalMillis", "maxMillis", "p50Millis", "p95Millis", "p99Millis" })
+	public MethodStatistics(String name, long calls, long errors, long rows, double totalMillis, double maxMillis, double p50Millis,
+					double p95Millis, double p99Millis) {
+		this.name = name;
+		this.calls = calls;
+		this.errors = errors;
+		this.rows = rows;
+		this.totalMillis = totalMillis;
+		this.maxMillis = maxMillis;
+		this.p50Millis = p50Millis;
+		this.p95Millis = p95Millis;
+		this.p99Millis = p99Millis;
+	}
+
+	MethodStatistics(String name, long calls, long errors, long rows, long totalNanos, long maxNanos, long p50Nanos, long p95Nanos,
+					long p99Nanos) {
+		this(name, calls, errors, rows, totalNanos / NANOS_PER_MILLI, maxNanos / NANOS_PER_MILLI, p50Nanos / NANOS_PER_MILLI,
+						p95Nanos / NANOS_PER_MILLI, p99Nanos / NANOS_PER_MILLI);
+	}
+
+	/**
+	 * @return the instrumented method, as {@code Type.method}
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public long getCalls() {
+		return calls;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	/**
+	 * @return the total number of elements in the collections returned by the method
+	 */
+	public long getRows() {
+		return rows;
+	}
+
+	public double getTotalMillis() {
+		return totalMillis;
+	}
+
+	public double getMeanMillis() {
+		return calls == 0 ? 0 : totalMillis / calls;
+	}
+
+	public double getMaxMillis() {
+		return maxMillis;
+	}
+
+	public double getP50Millis() {
+		return p50Millis;
+	}
+
+	public double getP95Millis() {
+		return p95Millis;
+	}
+
+	public double getP99Millis() {
+		return p99Millis;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s calls=%d errors=%d rows=%d total=%.1fms mean=%.2fms p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms", name, calls,
+						errors, rows, totalMillis, getMeanMillis(), p50Millis, p95Millis, p99Millis, maxMillis);
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.metrics;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Measures every public method of the {@code *IoOperations}, {@code *Manager} and Spring Data repository beans and records it in the
+ * {@link MetricsRegistry}. It runs right inside the {@link org.isf.utils.db.OHServiceExceptionTranslator}, so the measured time includes the
+ * transaction.
+ */
+@Aspect
+@Order(value = Ordered.HIGHEST_PRECEDENCE + 1)
+@Component
+public class MetricsAspect {
+
+	/**
+	 * Simple name of the instrumented type for each proxy class; repositories are named after their interface, not after the class
+	 * implementing the inherited methods.
+	 */
+	private static final ClassValue<String> TYPE_NAMES = new ClassValue<>() {
+
+		@Override
+		protected String computeValue(Class<?> proxyClass) {
+			if (Proxy.isProxyClass(proxyClass)) {
+				for (Class<?> proxiedInterface : proxyClass.getInterfaces()) {
+					if (proxiedInterface.getName().startsWith("org.isf.")) {
+						return proxiedInterface.getSimpleName();
+					}
+				}
+			}
+			return ClassUtils.getUserClass(proxyClass).getSimpleName();
+		}
+	};
+
+	/**
+	 * Number of instrumented calls in progress on the thread, so that a slow call is logged once by the outermost one.
+	 */
+	private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+	private final MetricsRegistry metricsRegistry;
+
+	public MetricsAspect(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	@Around("execution(* org.isf..*IoOperations.*(..)) || execution(* org.isf..*IoOperation.*(..)) || execution(* org.isf..*Manager.*(..))"
+					+ " || execution(* org.springframework.data.repository.Repository+.*(..))")
+	public Object measure(ProceedingJoinPoint pjp) throws Throwable {
+		int[] depth = DEPTH.get();
+		depth[0]++;
+		long start = System.nanoTime();
+		Object result = null;
+		boolean failed = true;
+		try {
+			result = pjp.proceed();
+			failed = false;
+			return result;
+		} finally {
+			long nanos = System.nanoTime() - start;
+			depth[0]--;
+			metricsRegistry.record(methodName(pjp), nanos, failed, rowCount(result), depth[0] == 0);
+		}
+	}
+
+	private static String methodName(ProceedingJoinPoint pjp) {
+		return TYPE_NAMES.get(pjp.getThis().getClass()) + '.' + pjp.getSignature().getName();
+	}
+
+	private static int rowCount(Object result) {
+		if (result instanceof Collection<?> collection) {
+			return collection.size();
+		}
+		if (result instanceof Map<?, ?> map) {
+			return map.size();
+		}
+		if (result instanceof Slice<?> slice) {
+			return slice.getNumberOfElements();
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.isf.generaldata.GeneralData;
+import org.isf.utils.scheduler.JobScheduler;
+import org.isf.utils.scheduler.JobTrigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects call counts, latency percentiles, error counts and returned row counts of the methods instrumented by the {@link MetricsAspect}.
+ * <p>
+ * The statistics are exported via JMX and written to the log every {@link GeneralData#METRICSLOGINTERVAL} minutes as the
+ * {@value #JOB_NAME} job of the {@link JobScheduler}; calls slower than {@link GeneralData#SLOWCALLTHRESHOLD} milliseconds are logged as
+ * they complete, once for the outermost instrumented call. Both settings are read when used, since GeneralData may be loaded after the
+ * registry is created.
+ */
+@Component
+public class MetricsRegistry implements MetricsRegistryMXBean {
+
+	public static final String OBJECT_NAME = "org.isf:type=Metrics";
+	public static final String JOB_NAME = "metrics-snapshot";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MetricsRegistry.class);
+	private static final int SNAPSHOT_SIZE = 20;
+	private static final int DEFAULT_SLOW_CALL_THRESHOLD_MILLIS = 1000;
+	private static final int DEFAULT_LOG_INTERVAL_MINUTES = 60;
+
+	private final Map<String, MethodMetrics> metrics = new ConcurrentHashMap<>();
+	// set through JMX, null to follow GeneralData.SLOWCALLTHRESHOLD
+	private volatile Long slowCallThresholdNanos;
+	private volatile long lastSnapshotNanos = System.nanoTime();
+	private boolean registered;
+
+	@PostConstruct
+	public void start() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			// with several application contexts in the same JVM only the first registry is exported
+			if (!server.isRegistered(name)) {
+				server.registerMBean(this, name);
+				registered = true;
+			}
+		} catch (JMException e) {
+			LOGGER.warn("Unable to export the metrics via JMX: {}", e.getMessage());
+		}
+		// the job checks the interval every minute, as it may change once GeneralData is loaded
+		JobScheduler.getDefault().schedule(JOB_NAME, JobTrigger.fixedDelay(Duration.ofMinutes(1)), this::scheduledSnapshot);
+	}
+
+	@PreDestroy
+	public void stop() {
+		JobScheduler.getDefault().cancel(JOB_NAME);
+		if (registered) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+			} catch (JMException e) {
+				LOGGER.debug("Unable to unregister the metrics MBean: {}", e.getMessage());
+			}
+			registered = false;
+		}
+	}
+
+	/**
+	 * Records a call of an instrumented method.
+	 *
+	 * @param method - the method, as {@code Type.method}
+	 * @param nanos - the duration of the call
+	 * @param failed - {@code true} if the call threw an exception
+	 * @param rowCount - the size of the returned collection, negative if the method does not return a collection
+	 */
+	public void record(String method, long nanos, boolean failed, int rowCount) {
+		record(method, nanos, failed, rowCount, true);
+	}
+
+	/**
+	 * Records a call of an instrumented method.
+	 *
+	 * @param method - the method, as {@code Type.method}
+	 * @param nanos - the duration of the call
+	 * @param failed - {@code true} if the call threw an exception
+	 * @param rowCount - the size of the returned collection, negative if the method does not return a collection
+	 * @param outermost - {@code false} if the call is nested in another instrumented call, which logs it if slow
+	 */
+	public void record(String method, long nanos, boolean failed, int rowCount, boolean outermost) {
+		metrics.computeIfAbsent(method, key -> new MethodMetrics()).record(nanos, failed, rowCount);
+		if (!outermost) {
+			return;
+		}
+		long threshold = getSlowCallThresholdNanos();
+		if (threshold > 0 && nanos >= threshold) {
+			LOGGER.warn("Slow call: {} took {} ms{}", method, TimeUnit.NANOSECONDS.toMillis(nanos), failed ? " and failed" : "");
+		}
+	}
+
+	/**
+	 * @param method - the method, as {@code Type.method}
+	 * @return the statistics of the method, empty if it was never called
+	 */
+	public Optional<MethodStatistics> getStatistics(String method) {
+		return Optional.ofNullable(metrics.get(method)).map(methodMetrics -> methodMetrics.toStatistics(method));
+	}
+
+	@Override
+	public List<MethodStatistics> getStatistics() {
+		return metrics.entrySet().stream()
+						.map(entry -> entry.getValue().toStatistics(entry.getKey()))
+						.filter(statistics -> statistics.getCalls() > 0)
+						.sorted(Comparator.comparingDouble(MethodStatistics::getTotalMillis).reversed())
+						.toList();
+	}
+
+	@Override
+	public long getSlowCallThresholdMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(getSlowCallThresholdNanos());
+	}
+
+	@Override
+	public void setSlowCallThresholdMillis(long slowCallThresholdMillis) {
+		slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(slowCallThresholdMillis, 0));
+	}
+
+	@Override
+	public void logSnapshot() {
+		List<MethodStatistics> statistics = getStatistics();
+		if (statistics.isEmpty()) {
+			return;
+		}
+		LOGGER.info("Metrics of the {} most expensive methods out of {}:", Math.min(SNAPSHOT_SIZE, statistics.size()), statistics.size());
+		statistics.stream().limit(SNAPSHOT_SIZE).forEach(methodStatistics -> LOGGER.info("  {}", methodStatistics));
+	}
+
+	@Override
+	public void reset() {
+		metrics.values().forEach(MethodMetrics::reset);
+	}
+
+	private long getSlowCallThresholdNanos() {
+		Long threshold = slowCallThresholdNanos;
+		if (threshold != null) {
+			return threshold;
+		}
+		Integer millis = GeneralData.SLOWCALLTHRESHOLD;
+		return TimeUnit.MILLISECONDS.toNanos(millis == null ? DEFAULT_SLOW_CALL_THRESHOLD_MILLIS : millis);
+	}
+
+	private void scheduledSnapshot() {
+		Integer interval = GeneralData.METRICSLOGINTERVAL;
+		long minutes = interval == null ? DEFAULT_LOG_INTERVAL_MINUTES : interval;
+		if (minutes > 0 && System.nanoTime() - lastSnapshotNanos >= TimeUnit.MINUTES.toNanos(minutes)) {
+			lastSnapshotNanos = System.nanoTime();
+			logSnapshot();
+		}
+	}
+
+}
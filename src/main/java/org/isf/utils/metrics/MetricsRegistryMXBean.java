@@ -0,0 +1,50 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.metrics;
+
+import java.util.List;
+
+/**
+ * JMX view of the {@link MetricsRegistry}, registered as {@value MetricsRegistry#OBJECT_NAME}.
+ */
+public interface MetricsRegistryMXBean {
+
+	/**
+	 * @return the statistics of every instrumented method called so far, the most expensive first
+	 */
+	List<MethodStatistics> getStatistics();
+
+	long getSlowCallThresholdMillis();
+
+	void setSlowCallThresholdMillis(long slowCallThresholdMillis);
+
+	/**
+	 * Writes the statistics of the most expensive methods to the log.
+	 */
+	void logSnapshot();
+
+	/**
+	 * Clears the statistics of every method.
+	 */
+	void reset();
+
+}
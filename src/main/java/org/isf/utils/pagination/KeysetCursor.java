@@ -0,0 +1,146 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.isf.generaldata.MessageBundle;
+import org.isf.utils.exception.OHDataValidationException;
+import org.isf.utils.exception.model.OHExceptionMessage;
+
+/**
+ * Opaque position in a list ordered by {@code (date, code)} descending, used for keyset (seek) pagination: instead of skipping
+ * {@code page * size} rows, the next page is read with {@code WHERE (date, code) < (:date, :code)} and the previous one with
+ * {@code WHERE (date, code) > (:date, :code)} in ascending order, so that every page costs the same whatever its depth.
+ * <p>
+ * Repositories return {@code size + 1} rows for a cursor, ordered descending for {@link #isNext()} cursors (or no cursor) and ascending
+ * otherwise; {@link #toPagedResponse} trims the extra row and builds the cursors of the adjacent pages.
+ */
+public final class KeysetCursor {
+
+	private static final String SEPARATOR = "|";
+
+	private final boolean next;
+
+	private final LocalDateTime date;
+
+	private final int code;
+
+	private KeysetCursor(boolean next, LocalDateTime date, int code) {
+		this.next = next;
+		this.date = date;
+		this.code = code;
+	}
+
+	/**
+	 * @return {@code true} if the cursor points to the rows after its position, {@code false} if to the rows before it
+	 */
+	public boolean isNext() {
+		return next;
+	}
+
+	public LocalDateTime getDate() {
+		return date;
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	/**
+	 * @return the opaque representation of the cursor
+	 */
+	public String encode() {
+		String value = (next ? "N" : "P") + SEPARATOR + date + SEPARATOR + code;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Parses a cursor returned in {@link PageInfo#getNextCursor()} or {@link PageInfo#getPreviousCursor()}.
+	 *
+	 * @param cursor - the opaque cursor, {@code null} or empty for the first page
+	 * @return the {@link KeysetCursor} or {@code null} for the first page
+	 * @throws OHDataValidationException if the cursor is malformed
+	 */
+	public static KeysetCursor decode(String cursor) throws OHDataValidationException {
+		if (cursor == null || cursor.isEmpty()) {
+			return null;
+		}
+		try {
+			String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\" + SEPARATOR);
+			if (parts.length != 3 || !("N".equals(parts[0]) || "P".equals(parts[0]))) {
+				throw new IllegalArgumentException(cursor);
+			}
+			return new KeysetCursor("N".equals(parts[0]), LocalDateTime.parse(parts[1]), Integer.parseInt(parts[2]));
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw new OHDataValidationException(new OHExceptionMessage(MessageBundle.getMessage("angal.common.invalidpagecursor.msg")));
+		}
+	}
+
+	/**
+	 * Builds the page read with the specified cursor.
+	 *
+	 * @param rows - the rows read by the repository, at most {@code size + 1}
+	 * @param size - the page size
+	 * @param cursor - the cursor used to read the rows or {@code null} for the first page
+	 * @param dateOf - the date of a row
+	 * @param codeOf - the code of a row
+	 * @param totalNbOfElements - the number of rows of the whole list or {@code -1} if not counted
+	 * @return the {@link PagedResponse} ordered by {@code (date, code)} descending, with the cursors of the adjacent pages
+	 */
+	public static <T> PagedResponse<T> toPagedResponse(List<T> rows, int size, KeysetCursor cursor, Function<T, LocalDateTime> dateOf,
+			ToIntFunction<T> codeOf, long totalNbOfElements) {
+		boolean hasMore = rows.size() > size;
+		List<T> content = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+		boolean forward = cursor == null || cursor.isNext();
+		if (!forward) {
+			Collections.reverse(content);
+		}
+		boolean hasNextPage = !forward || hasMore;
+		boolean hasPreviousPage = forward ? cursor != null : hasMore;
+
+		PageInfo pageInfo = new PageInfo(size, 0, content.size(), totalNbOfElements,
+				totalNbOfElements < 0 ? -1 : (int) ((totalNbOfElements + size - 1) / size), hasPreviousPage && !content.isEmpty(),
+				hasNextPage && !content.isEmpty());
+		if (pageInfo.isHasNextPage()) {
+			T last = content.get(content.size() - 1);
+			pageInfo.setNextCursor(new KeysetCursor(true, dateOf.apply(last), codeOf.applyAsInt(last)).encode());
+		}
+		if (pageInfo.isHasPreviousPage()) {
+			T first = content.get(0);
+			pageInfo.setPreviousCursor(new KeysetCursor(false, dateOf.apply(first), codeOf.applyAsInt(first)).encode());
+		}
+		PagedResponse<T> data = new PagedResponse<>();
+		data.setData(content);
+		data.setPageInfo(pageInfo);
+		return data;
+	}
+
+}
@@ -31,6 +31,8 @@ public class PageInfo {
 	int totalPages;
 	boolean hasPreviousPage;
 	boolean hasNextPage;
+	String nextCursor;
+	String previousCursor;
 	
 	public PageInfo() {
 		super();
@@ -67,6 +69,9 @@ public class PageInfo {
 		this.hasNextPage = hasNextPage;
 	}
 
+	/**
+	 * @return the number of elements of the whole list, {@code -1} in keyset mode when the count was not requested
+	 */
 	public long getTotalNbOfElements() {
 		return totalNbOfElements;
 	}
@@ -75,6 +80,30 @@ public class PageInfo {
 		this.totalNbOfElements = totalNbOfElements;
 	}
 
+	/**
+	 * @return the cursor of the next page in keyset mode, {@code null} otherwise or on the last page
+	 * @see KeysetCursor
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * @return the cursor of the previous page in keyset mode, {@code null} otherwise or on the first page
+	 * @see KeysetCursor
+	 */
+	public String getPreviousCursor() {
+		return previousCursor;
+	}
+
+	public void setPreviousCursor(String previousCursor) {
+		this.previousCursor = previousCursor;
+	}
+
 	public int getTotalPages() {
 		return totalPages;
 	}
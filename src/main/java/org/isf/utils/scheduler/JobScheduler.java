@@ -0,0 +1,406 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.scheduler;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.isf.utils.time.TimeTools;
+import org.isf.utils.time.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the named background jobs of the application: fixed-delay, cron or on-demand {@link JobTrigger triggers}, a bounded pool of workers
+ * (virtual threads when the JVM supports them), an exponential backoff after failures and per-job {@link JobStatus metrics}.
+ * <p>
+ * A job never runs concurrently with itself; triggers are timed by the shared {@link TimingWheel}.
+ */
+public class JobScheduler {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JobScheduler.class);
+
+	private static final int DEFAULT_WORKERS = 4;
+
+	private static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofSeconds(30);
+
+	private static final Duration DEFAULT_MAX_BACKOFF = Duration.ofHours(6);
+
+	private static final double BACKOFF_JITTER = 0.1;
+
+	private static volatile JobScheduler defaultScheduler;
+
+	private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+	private final ThreadPoolExecutor workers;
+
+	private final TimingWheel timingWheel;
+
+	private final long initialBackoffMillis;
+
+	private final long maxBackoffMillis;
+
+	/**
+	 * @param name - the prefix of the worker thread names
+	 * @param maxWorkers - the maximum number of jobs running at the same time
+	 * @param initialBackoff - the delay after a first failure, doubled after each consecutive failure
+	 * @param maxBackoff - the maximum delay after failures
+	 */
+	public JobScheduler(String name, int maxWorkers, Duration initialBackoff, Duration maxBackoff) {
+		this.workers = new ThreadPoolExecutor(maxWorkers, maxWorkers, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory(name));
+		this.workers.allowCoreThreadTimeOut(true);
+		this.timingWheel = TimingWheel.getDefault();
+		this.initialBackoffMillis = initialBackoff.toMillis();
+		this.maxBackoffMillis = maxBackoff.toMillis();
+	}
+
+	/**
+	 * @return the scheduler shared by the whole application
+	 */
+	public static JobScheduler getDefault() {
+		JobScheduler scheduler = defaultScheduler;
+		if (scheduler == null) {
+			synchronized (JobScheduler.class) {
+				scheduler = defaultScheduler;
+				if (scheduler == null) {
+					scheduler = new JobScheduler("oh-job", DEFAULT_WORKERS, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF);
+					defaultScheduler = scheduler;
+				}
+			}
+		}
+		return scheduler;
+	}
+
+	/**
+	 * Registers a job, replacing the job with the same name if any.
+	 *
+	 * @param name - the name of the job
+	 * @param trigger - the {@link JobTrigger}
+	 * @param task - the {@link JobTask}
+	 */
+	public void schedule(String name, JobTrigger trigger, JobTask task) {
+		Job job = new Job(name, trigger, task);
+		Job previous = jobs.put(name, job);
+		if (previous != null) {
+			previous.cancel();
+		}
+		job.scheduleNext(trigger.nextDelayMillis(true));
+		LOGGER.debug("Job {} scheduled", name);
+	}
+
+	/**
+	 * Runs a job as soon as a worker is free, or right after its current run.
+	 *
+	 * @param name - the name of the job
+	 * @return {@code false} if there is no job with that name
+	 */
+	public boolean runNow(String name) {
+		Job job = jobs.get(name);
+		if (job == null) {
+			return false;
+		}
+		job.runNow();
+		return true;
+	}
+
+	/**
+	 * Stops triggering a job; a paused job still runs on demand.
+	 *
+	 * @param name - the name of the job
+	 * @return {@code false} if there is no job with that name
+	 */
+	public boolean pause(String name) {
+		Job job = jobs.get(name);
+		if (job == null) {
+			return false;
+		}
+		job.pause();
+		return true;
+	}
+
+	/**
+	 * Resumes triggering a paused job.
+	 *
+	 * @param name - the name of the job
+	 * @return {@code false} if there is no job with that name
+	 */
+	public boolean resume(String name) {
+		Job job = jobs.get(name);
+		if (job == null) {
+			return false;
+		}
+		job.resume();
+		return true;
+	}
+
+	/**
+	 * Unregisters a job; a run in progress completes.
+	 *
+	 * @param name - the name of the job
+	 * @return {@code false} if there is no job with that name
+	 */
+	public boolean cancel(String name) {
+		Job job = jobs.remove(name);
+		if (job == null) {
+			return false;
+		}
+		job.cancel();
+		LOGGER.debug("Job {} cancelled", name);
+		return true;
+	}
+
+	public boolean isScheduled(String name) {
+		return jobs.containsKey(name);
+	}
+
+	public Optional<JobStatus> getStatus(String name) {
+		Job job = jobs.get(name);
+		return job == null ? Optional.empty() : Optional.of(job.getStatus());
+	}
+
+	/**
+	 * @return the {@link JobStatus} of every job, by name
+	 */
+	public List<JobStatus> getStatuses() {
+		List<JobStatus> statuses = new ArrayList<>();
+		jobs.values().forEach(job -> statuses.add(job.getStatus()));
+		statuses.sort(Comparator.comparing(JobStatus::getName));
+		return statuses;
+	}
+
+	/**
+	 * Cancels all jobs and stops the workers once the runs in progress complete.
+	 */
+	public void shutdown() {
+		new ArrayList<>(jobs.keySet()).forEach(this::cancel);
+		workers.shutdown();
+	}
+
+	long backoffMillis(int consecutiveFailures) {
+		long backoff = initialBackoffMillis << Math.min(consecutiveFailures - 1, 30);
+		return jitter(Math.min(backoff < 0 ? maxBackoffMillis : backoff, maxBackoffMillis), BACKOFF_JITTER, ThreadLocalRandom.current());
+	}
+
+	static long jitter(long delayMillis, double jitter, Random random) {
+		if (jitter == 0 || delayMillis == 0) {
+			return delayMillis;
+		}
+		long spread = (long) (delayMillis * jitter);
+		return delayMillis - spread + (long) (random.nextDouble() * 2 * spread);
+	}
+
+	private static String describe(Throwable e) {
+		return e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+	}
+
+	private static ThreadFactory threadFactory(String name) {
+		ThreadFactory virtualThreads = virtualThreadFactory(name);
+		if (virtualThreads != null) {
+			return virtualThreads;
+		}
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, name + '-' + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * @return a factory of virtual threads on Java 21 and later, {@code null} on older JVMs
+	 */
+	private static ThreadFactory virtualThreadFactory(String name) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Method nameMethod = builderClass.getMethod("name", String.class, long.class);
+			builder = nameMethod.invoke(builder, name + '-', 1L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private final class Job {
+
+		private final String name;
+		private final JobTrigger trigger;
+		private final JobTask task;
+
+		private TimingWheel.Timeout timeout;
+		private LocalDateTime nextRun;
+		private boolean paused;
+		private boolean cancelled;
+		private boolean running;
+		private boolean rerun;
+
+		private LocalDateTime lastStart;
+		private Duration lastDuration;
+		private LocalDateTime lastSuccess;
+		private long runCount;
+		private long failureCount;
+		private int consecutiveFailures;
+		private String lastError;
+
+		Job(String name, JobTrigger trigger, JobTask task) {
+			this.name = name;
+			this.trigger = trigger;
+			this.task = task;
+		}
+
+		synchronized void scheduleNext(long delayMillis) {
+			if (timeout != null) {
+				timeout.cancel();
+				timeout = null;
+			}
+			nextRun = null;
+			if (cancelled || paused || delayMillis == JobTrigger.NEVER) {
+				return;
+			}
+			timeout = timingWheel.schedule(this::dispatch, delayMillis, TimeUnit.MILLISECONDS);
+			nextRun = TimeTools.getNow().plus(Duration.ofMillis(delayMillis));
+		}
+
+		synchronized void runNow() {
+			if (running) {
+				rerun = true;
+			} else if (!cancelled) {
+				// an explicit request runs even a paused job
+				scheduleNext(JobTrigger.NEVER);
+				timeout = timingWheel.schedule(this::dispatch, 0, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		synchronized void pause() {
+			paused = true;
+			scheduleNext(JobTrigger.NEVER);
+		}
+
+		synchronized void resume() {
+			if (paused) {
+				paused = false;
+				if (!running) {
+					scheduleNext(trigger.nextDelayMillis(runCount == 0));
+				}
+			}
+		}
+
+		synchronized void cancel() {
+			cancelled = true;
+			scheduleNext(JobTrigger.NEVER);
+		}
+
+		private void dispatch() {
+			synchronized (this) {
+				timeout = null;
+				nextRun = null;
+				if (cancelled || running) {
+					return;
+				}
+				running = true;
+			}
+			try {
+				workers.execute(this::execute);
+			} catch (RejectedExecutionException e) {
+				LOGGER.warn("Job {} rejected, scheduler shut down", name);
+				synchronized (this) {
+					running = false;
+				}
+			}
+		}
+
+		private void execute() {
+			LocalDateTime start = TimeTools.getNow();
+			long startNanos = System.nanoTime();
+			String error = null;
+			synchronized (this) {
+				lastStart = start;
+			}
+			try {
+				task.run();
+			} catch (Exception | LinkageError e) {
+				error = describe(e);
+				LOGGER.error("Job {} failed: {}", name, error);
+				LOGGER.debug(error, e);
+			} catch (Error e) {
+				// left to the worker, the run is still recorded as failed and the job rescheduled
+				error = describe(e);
+				throw e;
+			} finally {
+				finish(start, startNanos, error);
+			}
+		}
+
+		private synchronized void finish(LocalDateTime start, long startNanos, String error) {
+			running = false;
+			runCount++;
+			lastDuration = Duration.ofNanos(System.nanoTime() - startNanos);
+			lastError = error;
+			long nextDelay = trigger.nextDelayMillis(false);
+			if (error == null) {
+				lastSuccess = start;
+				consecutiveFailures = 0;
+			} else {
+				failureCount++;
+				consecutiveFailures++;
+				long backoff = backoffMillis(consecutiveFailures);
+				nextDelay = nextDelay == JobTrigger.NEVER ? JobTrigger.NEVER : Math.max(nextDelay, backoff);
+			}
+			scheduleNext(nextDelay);
+			if (rerun) {
+				rerun = false;
+				runNow();
+			}
+		}
+
+		synchronized JobStatus getStatus() {
+			JobStatus.State state;
+			if (running) {
+				state = JobStatus.State.RUNNING;
+			} else if (paused) {
+				state = JobStatus.State.PAUSED;
+			} else if (timeout != null) {
+				state = JobStatus.State.SCHEDULED;
+			} else {
+				state = JobStatus.State.IDLE;
+			}
+			return new JobStatus(name, state, nextRun, lastStart, lastDuration, lastSuccess, runCount, failureCount, consecutiveFailures, lastError);
+		}
+
+	}
+
+}
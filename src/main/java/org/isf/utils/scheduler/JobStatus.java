@@ -0,0 +1,131 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.scheduler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of the state and metrics of a job registered on the {@link JobScheduler}.
+ */
+public final class JobStatus {
+
+	public enum State {
+		/** waiting for its next run */
+		SCHEDULED,
+		/** running */
+		RUNNING,
+		/** paused, runs only on demand */
+		PAUSED,
+		/** no run planned, e.g. an on-demand job */
+		IDLE
+	}
+
+	private final String name;
+	private final State state;
+	private final LocalDateTime nextRun;
+	private final LocalDateTime lastStart;
+	private final Duration lastDuration;
+	private final LocalDateTime lastSuccess;
+	private final long runCount;
+	private final long failureCount;
+	private final int consecutiveFailures;
+	private final String lastError;
+
+	JobStatus(String name, State state, LocalDateTime nextRun, LocalDateTime lastStart, Duration lastDuration, LocalDateTime lastSuccess, long runCount,
+					long failureCount, int consecutiveFailures, String lastError) {
+		this.name = name;
+		this.state = state;
+		this.nextRun = nextRun;
+		this.lastStart = lastStart;
+		this.lastDuration = lastDuration;
+		this.lastSuccess = lastSuccess;
+		this.runCount = runCount;
+		this.failureCount = failureCount;
+		this.consecutiveFailures = consecutiveFailures;
+		this.lastError = lastError;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * @return the planned start of the next run, {@code null} if none is planned
+	 */
+	public LocalDateTime getNextRun() {
+		return nextRun;
+	}
+
+	/**
+	 * @return the start of the last run, {@code null} if the job never ran
+	 */
+	public LocalDateTime getLastStart() {
+		return lastStart;
+	}
+
+	/**
+	 * @return the duration of the last completed run, {@code null} if the job never completed a run
+	 */
+	public Duration getLastDuration() {
+		return lastDuration;
+	}
+
+	/**
+	 * @return the start of the last successful run, {@code null} if the job never succeeded
+	 */
+	public LocalDateTime getLastSuccess() {
+		return lastSuccess;
+	}
+
+	public long getRunCount() {
+		return runCount;
+	}
+
+	public long getFailureCount() {
+		return failureCount;
+	}
+
+	/**
+	 * @return the number of failed runs since the last successful one
+	 */
+	public int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+
+	/**
+	 * @return the message of the last failure, {@code null} if the last run succeeded
+	 */
+	public String getLastError() {
+		return lastError;
+	}
+
+	@Override
+	public String toString() {
+		return name + " [" + state + ", runs=" + runCount + ", failures=" + failureCount + ", lastDuration=" + lastDuration + ", nextRun=" + nextRun + ']';
+	}
+
+}
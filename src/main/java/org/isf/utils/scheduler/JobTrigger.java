@@ -0,0 +1,97 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.scheduler;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.scheduling.support.CronExpression;
+
+/**
+ * Tells the {@link JobScheduler} when a job runs next.
+ */
+@FunctionalInterface
+public interface JobTrigger {
+
+	/**
+	 * Returned by {@link #nextDelayMillis(boolean)} when the job only runs on demand.
+	 */
+	long NEVER = -1;
+
+	/**
+	 * @param firstRun - {@code true} when the job has not run yet
+	 * @return the delay before the next run, in milliseconds, or {@link #NEVER}
+	 */
+	long nextDelayMillis(boolean firstRun);
+
+	/**
+	 * Runs the job right away, then {@code delay} after the end of each run.
+	 *
+	 * @param delay - the delay between the end of a run and the start of the next one
+	 * @return the {@link JobTrigger}
+	 */
+	static JobTrigger fixedDelay(Duration delay) {
+		return fixedDelay(Duration.ZERO, delay, 0);
+	}
+
+	/**
+	 * Runs the job {@code initialDelay} after being scheduled, then {@code delay} after the end of each run; each delay is randomly spread by
+	 * up to {@code jitter} times its value, so that instances started together do not run together.
+	 *
+	 * @param initialDelay - the delay before the first run
+	 * @param delay - the delay between the end of a run and the start of the next one
+	 * @param jitter - the spread of the delays, between 0 and 1
+	 * @return the {@link JobTrigger}
+	 */
+	static JobTrigger fixedDelay(Duration initialDelay, Duration delay, double jitter) {
+		if (delay.isNegative() || delay.isZero() || jitter < 0 || jitter > 1) {
+			throw new IllegalArgumentException("delay must be positive and jitter between 0 and 1");
+		}
+		return firstRun -> JobScheduler.jitter((firstRun ? initialDelay : delay).toMillis(), jitter, ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Runs the job at the times matching a Spring cron expression.
+	 *
+	 * @param expression - the cron expression, e.g. {@code "0 0 2 * * *"} for every night at 2 AM
+	 * @return the {@link JobTrigger}
+	 */
+	static JobTrigger cron(String expression) {
+		CronExpression cronExpression = CronExpression.parse(expression);
+		return firstRun -> {
+			ZonedDateTime now = ZonedDateTime.now();
+			ZonedDateTime next = cronExpression.next(now);
+			return next == null ? NEVER : Math.max(Duration.between(now, next).toMillis(), 0);
+		};
+	}
+
+	/**
+	 * Runs the job only when {@link JobScheduler#runNow(String)} is called.
+	 *
+	 * @return the {@link JobTrigger}
+	 */
+	static JobTrigger onDemand() {
+		return firstRun -> NEVER;
+	}
+
+}
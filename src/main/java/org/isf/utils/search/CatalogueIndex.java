@@ -0,0 +1,463 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import org.isf.utils.db.NormalizeString;
+
+/**
+ * Immutable in-memory search index of a small catalogue, e.g. medicals, diseases, exams or operations. The texts of every item are folded
+ * with {@link NormalizeString} and lower-cased; the word starts are kept in a prefix trie and the trigrams in an inverted index, so that a
+ * suggestion is found without scanning the catalogue.
+ * <p>
+ * An item matches when the query is contained in one of its texts, as with {@code like %query%}. Queries shorter than a trigram only match
+ * at the start of a word. Matches are ranked by quality (whole text, text prefix, word prefix, substring), then by usage, then by their
+ * first text. The trie answers the word prefix matches first, the trigrams are intersected only when those do not fill the requested
+ * number of items.
+ *
+ * @param <T> the type of the catalogue items
+ */
+public final class CatalogueIndex<T> {
+
+	static final int GRAM_LENGTH = 3;
+
+	static final int MAX_PREFIX_LENGTH = 16;
+
+	private static final int EXACT = 0;
+
+	private static final int TEXT_PREFIX = 1;
+
+	private static final int WORD_PREFIX = 2;
+
+	private static final int SUBSTRING = 3;
+
+	private static final int[] NO_IDS = new int[0];
+
+	private final List<Entry<T>> entries;
+
+	private final Node prefixes;
+
+	private final Map<String, int[]> grams;
+
+	private final Comparator<Match> ranking;
+
+	private final Map<Object, Integer> keys;
+
+	private CatalogueIndex(List<Entry<T>> entries, Function<? super T, ?> keyOf) {
+		this.entries = entries;
+		this.keys = new HashMap<>(entries.size() * 4 / 3 + 1);
+		if (keyOf != null) {
+			for (int id = 0; id < entries.size(); id++) {
+				keys.put(keyOf.apply(entries.get(id).item), id);
+			}
+		}
+		MutableNode root = new MutableNode();
+		Map<String, List<Integer>> gramIds = new HashMap<>();
+		for (int id = 0; id < entries.size(); id++) {
+			for (String text : entries.get(id).texts) {
+				for (int start = 0; start < text.length(); start++) {
+					if (isWordStart(text, start)) {
+						root.add(text, start, id);
+					}
+				}
+				for (int start = 0; start + GRAM_LENGTH <= text.length(); start++) {
+					List<Integer> ids = gramIds.computeIfAbsent(text.substring(start, start + GRAM_LENGTH), gram -> new ArrayList<>());
+					if (ids.isEmpty() || ids.get(ids.size() - 1) != id) {
+						ids.add(id);
+					}
+				}
+			}
+		}
+		this.prefixes = root.freeze();
+		Map<String, int[]> index = new HashMap<>(gramIds.size() * 4 / 3 + 1);
+		gramIds.forEach((gram, ids) -> index.put(gram, ids.stream().mapToInt(Integer::intValue).toArray()));
+		this.grams = index;
+		this.ranking = ranking(entries);
+	}
+
+	private CatalogueIndex(CatalogueIndex<T> source, List<Entry<T>> entries) {
+		this.entries = entries;
+		this.prefixes = source.prefixes;
+		this.grams = source.grams;
+		this.keys = source.keys;
+		this.ranking = ranking(entries);
+	}
+
+	public static <T> Builder<T> builder() {
+		return new Builder<>(null);
+	}
+
+	/**
+	 * @param keyOf - the key identifying an item, e.g. its code, to {@link #get(Object) get} or {@link #replace(Object, UnaryOperator)
+	 *            replace} it without scanning the index
+	 * @return a builder of an index of items identified by their key
+	 */
+	public static <T> Builder<T> builder(Function<? super T, ?> keyOf) {
+		return new Builder<>(keyOf);
+	}
+
+	/**
+	 * @return the number of items in the index
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @param key - the key of the item, see {@link #builder(Function)}
+	 * @return the item with the given key or {@code null} if none
+	 */
+	public T get(Object key) {
+		Integer id = keys.get(key);
+		return id == null ? null : entries.get(id).item;
+	}
+
+	/**
+	 * Returns a copy of the index where an item is replaced, for changes that keep the key and the searched texts of the item. The index
+	 * itself is not modified, so that the searches running on it are not affected.
+	 *
+	 * @param key - the key of the item, see {@link #builder(Function)}
+	 * @param change - returns the replacing item, given the current one
+	 * @return the changed copy of the index or this index if it has no item with the given key
+	 */
+	public CatalogueIndex<T> replace(Object key, UnaryOperator<T> change) {
+		Integer id = keys.get(key);
+		if (id == null) {
+			return this;
+		}
+		Entry<T> entry = entries.get(id);
+		List<Entry<T>> changed = new ArrayList<>(entries);
+		changed.set(id, new Entry<>(change.apply(entry.item), entry.usage, entry.texts));
+		return new CatalogueIndex<>(this, changed);
+	}
+
+	/**
+	 * Returns the best items matching the given text.
+	 *
+	 * @param text - the text to look for, an empty text matches all items
+	 * @param limit - the maximum number of items to return
+	 * @return the matching items, best first
+	 */
+	public List<T> search(String text, int limit) {
+		return search(text, limit, item -> true);
+	}
+
+	/**
+	 * Returns the best items matching the given text and filter.
+	 *
+	 * @param text - the text to look for, an empty text matches all items
+	 * @param limit - the maximum number of items to return
+	 * @param filter - the condition the items must satisfy
+	 * @return the matching items, best first
+	 */
+	public List<T> search(String text, int limit, Predicate<? super T> filter) {
+		if (limit <= 0) {
+			return Collections.emptyList();
+		}
+		String query = normalize(text);
+		PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+		if (query.isEmpty()) {
+			for (int id = 0; id < entries.size(); id++) {
+				offer(best, limit, filter, id, EXACT);
+			}
+		} else {
+			int[] prefixIds = prefixes.find(query.substring(0, Math.min(query.length(), MAX_PREFIX_LENGTH)));
+			for (int id : prefixIds) {
+				offer(best, limit, filter, id, query);
+			}
+			// substring matches rank after all the word prefix matches
+			if (query.length() >= GRAM_LENGTH && (best.size() < limit || best.peek().quality == SUBSTRING)) {
+				for (int id : substringCandidates(query)) {
+					if (Arrays.binarySearch(prefixIds, id) < 0) {
+						offer(best, limit, filter, id, query);
+					}
+				}
+			}
+		}
+		Match[] matches = best.toArray(new Match[0]);
+		Arrays.sort(matches, ranking);
+		List<T> items = new ArrayList<>(matches.length);
+		for (Match match : matches) {
+			items.add(entries.get(match.id).item);
+		}
+		return items;
+	}
+
+	private static <T> Comparator<Match> ranking(List<Entry<T>> entries) {
+		return Comparator.<Match> comparingInt(match -> match.quality)
+						.thenComparing(match -> entries.get(match.id).usage, Comparator.reverseOrder())
+						.thenComparing(match -> entries.get(match.id).sortKey)
+						.thenComparingInt(match -> match.id);
+	}
+
+	/**
+	 * Folds accents and case the same way the indexed texts are folded.
+	 *
+	 * @param text - the text
+	 * @return the folded text, empty if {@code null}
+	 */
+	static String normalize(String text) {
+		if (text == null) {
+			return "";
+		}
+		return NormalizeString.normalizeString(text).toLowerCase(Locale.ROOT).trim();
+	}
+
+	private void offer(PriorityQueue<Match> best, int limit, Predicate<? super T> filter, int id, String query) {
+		int quality = quality(entries.get(id).texts, query);
+		if (quality >= 0) {
+			offer(best, limit, filter, id, quality);
+		}
+	}
+
+	private void offer(PriorityQueue<Match> best, int limit, Predicate<? super T> filter, int id, int quality) {
+		Match match = new Match(id, quality);
+		if (best.size() == limit && ranking.compare(match, best.peek()) >= 0) {
+			return;
+		}
+		if (filter.test(entries.get(id).item)) {
+			best.add(match);
+			if (best.size() > limit) {
+				best.poll();
+			}
+		}
+	}
+
+	private int[] substringCandidates(String query) {
+		int[] smallest = null;
+		List<int[]> postings = new ArrayList<>(query.length());
+		for (int start = 0; start + GRAM_LENGTH <= query.length(); start++) {
+			int[] ids = grams.get(query.substring(start, start + GRAM_LENGTH));
+			if (ids == null) {
+				return NO_IDS;
+			}
+			postings.add(ids);
+			if (smallest == null || ids.length < smallest.length) {
+				smallest = ids;
+			}
+		}
+		int[] ids = smallest;
+		for (int[] other : postings) {
+			if (other != smallest) {
+				ids = intersect(ids, other);
+			}
+		}
+		return ids;
+	}
+
+	private static int quality(String[] texts, String query) {
+		int quality = -1;
+		for (String text : texts) {
+			int textQuality;
+			if (text.equals(query)) {
+				return EXACT;
+			} else if (text.startsWith(query)) {
+				textQuality = TEXT_PREFIX;
+			} else {
+				textQuality = -1;
+				for (int start = text.indexOf(query); start >= 0; start = text.indexOf(query, start + 1)) {
+					if (isWordStart(text, start)) {
+						textQuality = WORD_PREFIX;
+						break;
+					}
+					textQuality = SUBSTRING;
+				}
+			}
+			if (textQuality >= 0 && (quality < 0 || textQuality < quality)) {
+				quality = textQuality;
+			}
+		}
+		return quality;
+	}
+
+	private static boolean isWordStart(String text, int start) {
+		return Character.isLetterOrDigit(text.charAt(start)) && (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1)));
+	}
+
+	private static int[] intersect(int[] first, int[] second) {
+		int[] result = new int[Math.min(first.length, second.length)];
+		int size = 0;
+		int i = 0;
+		int j = 0;
+		while (i < first.length && j < second.length) {
+			if (first[i] < second[j]) {
+				i++;
+			} else if (first[i] > second[j]) {
+				j++;
+			} else {
+				result[size++] = first[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	/**
+	 * Collects the items of a {@link CatalogueIndex}.
+	 *
+	 * @param <T> the type of the catalogue items
+	 */
+	public static final class Builder<T> {
+
+		private final List<Entry<T>> entries = new ArrayList<>();
+
+		private final Function<? super T, ?> keyOf;
+
+		private Builder(Function<? super T, ?> keyOf) {
+			this.keyOf = keyOf;
+		}
+
+		/**
+		 * Adds an item to the index.
+		 *
+		 * @param item - the item
+		 * @param usage - how often the item is used, more used items are ranked first among matches of the same quality
+		 * @param texts - the texts the item is searched by, e.g. the description and the code; {@code null} texts are ignored
+		 * @return this builder
+		 */
+		public Builder<T> add(T item, long usage, String... texts) {
+			List<String> normalized = new ArrayList<>(texts.length);
+			for (String text : texts) {
+				String folded = normalize(text);
+				if (!folded.isEmpty()) {
+					normalized.add(folded);
+				}
+			}
+			entries.add(new Entry<>(item, usage, normalized.toArray(new String[0])));
+			return this;
+		}
+
+		public CatalogueIndex<T> build() {
+			return new CatalogueIndex<>(new ArrayList<>(entries), keyOf);
+		}
+
+	}
+
+	private static final class Entry<T> {
+
+		private final T item;
+
+		private final long usage;
+
+		private final String[] texts;
+
+		private final String sortKey;
+
+		Entry(T item, long usage, String[] texts) {
+			this.item = item;
+			this.usage = usage;
+			this.texts = texts;
+			this.sortKey = texts.length == 0 ? "" : texts[0];
+		}
+
+	}
+
+	private static final class Match {
+
+		private final int id;
+
+		private final int quality;
+
+		Match(int id, int quality) {
+			this.id = id;
+			this.quality = quality;
+		}
+
+	}
+
+	/**
+	 * Node of the prefix trie, holding the sorted ids of the items having a word that starts with the path to the node.
+	 */
+	private static final class Node {
+
+		private final char[] keys;
+
+		private final Node[] children;
+
+		private final int[] ids;
+
+		Node(char[] keys, Node[] children, int[] ids) {
+			this.keys = keys;
+			this.children = children;
+			this.ids = ids;
+		}
+
+		int[] find(String prefix) {
+			Node node = this;
+			for (int i = 0; i < prefix.length(); i++) {
+				int child = Arrays.binarySearch(node.keys, prefix.charAt(i));
+				if (child < 0) {
+					return NO_IDS;
+				}
+				node = node.children[child];
+			}
+			return node.ids;
+		}
+
+	}
+
+	private static final class MutableNode {
+
+		private final TreeMap<Character, MutableNode> children = new TreeMap<>();
+
+		private final List<Integer> ids = new ArrayList<>();
+
+		void add(String text, int start, int id) {
+			MutableNode node = this;
+			int end = Math.min(text.length(), start + MAX_PREFIX_LENGTH);
+			for (int i = start; i < end; i++) {
+				node = node.children.computeIfAbsent(text.charAt(i), key -> new MutableNode());
+				if (node.ids.isEmpty() || node.ids.get(node.ids.size() - 1) != id) {
+					node.ids.add(id);
+				}
+			}
+		}
+
+		Node freeze() {
+			char[] keys = new char[children.size()];
+			Node[] frozen = new Node[children.size()];
+			int i = 0;
+			for (Map.Entry<Character, MutableNode> child : children.entrySet()) {
+				keys[i] = child.getKey();
+				frozen[i] = child.getValue().freeze();
+				i++;
+			}
+			return new Node(keys, frozen, ids.stream().mapToInt(Integer::intValue).toArray());
+		}
+
+	}
+
+}
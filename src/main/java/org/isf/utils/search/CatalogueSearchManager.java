@@ -0,0 +1,137 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.search;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import org.isf.utils.db.GenerationGuardedCache;
+import org.isf.utils.db.TransactionalEviction;
+import org.isf.utils.exception.OHServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Keeps the {@link CatalogueIndex} of one catalogue. The index is loaded when the application starts, discarded whenever a
+ * {@link CatalogueChangedEvent} for the catalogue is published and loaded again on the next search.
+ * <p>
+ * The items returned by the searches are shared by all the callers and must not be modified.
+ *
+ * @param <T> the type of the catalogue items
+ */
+public abstract class CatalogueSearchManager<T> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogueSearchManager.class);
+
+	private final Class<T> catalogue;
+
+	private final GenerationGuardedCache<Class<T>, CatalogueIndex<T>> index = new GenerationGuardedCache<>();
+
+	protected CatalogueSearchManager(Class<T> catalogue) {
+		this.catalogue = catalogue;
+	}
+
+	/**
+	 * Returns the {@link CatalogueIndex}, loading it if needed.
+	 *
+	 * @return the {@link CatalogueIndex}
+	 * @throws OHServiceException When failed to load the catalogue
+	 */
+	public CatalogueIndex<T> getIndex() throws OHServiceException {
+		// an index loaded while the catalogue was changing may be stale, so it is not kept
+		return index.get(catalogue, key -> {
+			LOGGER.debug("Building search index of {}", key.getSimpleName());
+			return buildIndex();
+		});
+	}
+
+	/**
+	 * Discards the {@link CatalogueIndex}.
+	 */
+	public void invalidate() {
+		index.invalidate(catalogue);
+	}
+
+	/**
+	 * Loads the catalogue again and replaces the {@link CatalogueIndex}, which keeps serving the searches meanwhile. The loaded index is
+	 * dropped if the catalogue changed while it was loaded.
+	 *
+	 * @throws OHServiceException When failed to load the catalogue
+	 */
+	public void reload() throws OHServiceException {
+		LOGGER.debug("Reloading search index of {}", catalogue.getSimpleName());
+		index.reload(catalogue, key -> buildIndex());
+	}
+
+	@EventListener
+	public void handle(CatalogueChangedEvent event) {
+		if (event.getCatalogue() != catalogue) {
+			return;
+		}
+		TransactionalEviction.evictNowAndAfterCompletion(this::invalidate);
+	}
+
+	@EventListener(ContextRefreshedEvent.class)
+	public void load() {
+		try {
+			getIndex();
+		} catch (OHServiceException | RuntimeException exception) {
+			LOGGER.warn("Unable to load the search index of {}, it will be loaded on the first search", catalogue.getSimpleName(), exception);
+		}
+	}
+
+	/**
+	 * Returns the best items matching the given text and filter.
+	 *
+	 * @param text - the text to look for, an empty text matches all items
+	 * @param limit - the maximum number of items to return
+	 * @param filter - the condition the items must satisfy
+	 * @return the matching items, best first
+	 * @throws OHServiceException When failed to load the catalogue
+	 */
+	protected List<T> search(String text, int limit, Predicate<? super T> filter) throws OHServiceException {
+		return getIndex().search(text, limit, filter);
+	}
+
+	/**
+	 * Replaces the current {@link CatalogueIndex} with a changed copy, for changes that do not affect the indexed texts; the searches running
+	 * meanwhile keep reading the current index. An index being loaded meanwhile is dropped, as it may have read the catalogue before the
+	 * change.
+	 *
+	 * @param change - returns the changed copy of the index, see {@link CatalogueIndex#replace}
+	 */
+	protected void update(UnaryOperator<CatalogueIndex<T>> change) {
+		index.update(catalogue, change);
+	}
+
+	/**
+	 * Loads the catalogue.
+	 *
+	 * @return a new {@link CatalogueIndex} of the catalogue
+	 * @throws OHServiceException When failed to load the catalogue
+	 */
+	protected abstract CatalogueIndex<T> buildIndex() throws OHServiceException;
+
+}
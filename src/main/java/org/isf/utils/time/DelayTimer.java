@@ -21,26 +21,62 @@
  */
 package org.isf.utils.time;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class DelayTimer extends Thread {
+/**
+ * One-shot, resettable timer calling back a {@link DelayTimerCallback} {@code delay} milliseconds after the last {@link #startTimer()}.
+ * <p>
+ * Timers do not own a thread: they are timed by the shared {@link TimingWheel#getDefault() timing wheel}, so starting or resetting a timer
+ * is O(1), and the callbacks run on a small pool of daemon threads shared by all the timers, never on the worker thread of the wheel.
+ * <p>
+ * A timer is no longer a {@link Thread}, so the {@code Thread} methods such as {@code isAlive()}, {@code interrupt()} or {@code join()} are
+ * gone and nothing has to be started before {@link #startTimer()}. {@link #run()} still returns only once the timer {@link #quit() quits},
+ * so code running a timer in a thread of its own keeps working.
+ */
+public class DelayTimer implements Runnable {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(DelayTimer.class);
 
+	private static final int CALLBACK_THREADS = 4;
+
+	private static volatile Executor defaultCallbackExecutor;
+
 	private final DelayTimerCallback callback;
+	private final TimingWheel timingWheel;
+	private final Executor callbackExecutor;
 	private final Object mutex = new Object();
 	private final Object triggeredMutex = new Object();
 	private final long delay;
 	private boolean quit;
-	private boolean triggered;
-	private long waitTime;
+	private long generation;
+	private TimingWheel.Timeout timeout;
 
 	public DelayTimer(DelayTimerCallback callback, long delay) {
+		this(callback, delay, TimingWheel.getDefault());
+	}
+
+	public DelayTimer(DelayTimerCallback callback, long delay, TimingWheel timingWheel) {
+		this(callback, delay, timingWheel, getDefaultCallbackExecutor());
+	}
+
+	/**
+	 * @param callback - the callback
+	 * @param delay - the delay in milliseconds
+	 * @param timingWheel - the wheel timing the delay
+	 * @param callbackExecutor - the executor running the callback
+	 */
+	public DelayTimer(DelayTimerCallback callback, long delay, TimingWheel timingWheel, Executor callbackExecutor) {
 		this.callback = callback;
 		this.delay = delay;
-		setDaemon(true);
-		start();
+		this.timingWheel = timingWheel;
+		this.callbackExecutor = callbackExecutor;
 	}
 
 	/**
@@ -48,56 +84,41 @@ public class DelayTimer extends Thread {
 	 */
 	public void startTimer() {
 		synchronized (mutex) {
-			waitTime = delay;
-			mutex.notify();
+			cancel();
+			if (!quit && delay > 0) {
+				long scheduledGeneration = generation;
+				// the wheel only hands the callback off, so that a slow callback does not delay the other timeouts
+				timeout = timingWheel.schedule(() -> callbackExecutor.execute(() -> trigger(scheduledGeneration)), delay,
+								TimeUnit.MILLISECONDS);
+			}
 		}
 	}
 
+	/**
+	 * Stops the timer, waiting for the callback to return if it has already been triggered.
+	 */
 	public void stopTimer() {
-		try {
-			synchronized (mutex) {
-				synchronized (triggeredMutex) {
-					if (triggered) {
-						triggeredMutex.wait();
-					}
-				}
-				waitTime = 0;
-				mutex.notify();
-			}
-		} catch (InterruptedException interruptedException) {
-			LOGGER.error("trigger failure", interruptedException);
+		synchronized (mutex) {
+			cancel();
+		}
+		synchronized (triggeredMutex) {
+			// the callback runs while holding triggeredMutex
 		}
 	}
 
+	/**
+	 * Waits until the timer {@link #quit() quits}, as the thread of the timer did.
+	 */
 	@Override
 	public void run() {
 		try {
-			while (!quit) {
-				synchronized (mutex) {
-
-					if (waitTime < 0) {
-						triggered = true;
-						waitTime = 0;
-					} else {
-						long saveWaitTime = waitTime;
-						waitTime = -1;
-						mutex.wait(saveWaitTime);
-					}
-				}
-				try {
-					if (triggered) {
-						callback.trigger();
-					}
-				} catch (Exception exception) {
-					LOGGER.error("trigger() threw exception, continuing", exception);
-				} finally {
-					synchronized (triggeredMutex) {
-						triggered = false;
-						triggeredMutex.notify();
-					}
+			synchronized (mutex) {
+				while (!quit) {
+					mutex.wait();
 				}
 			}
 		} catch (InterruptedException interruptedException) {
+			Thread.currentThread().interrupt();
 			LOGGER.error("interrupted in run", interruptedException);
 		}
 	}
@@ -105,7 +126,55 @@ public class DelayTimer extends Thread {
 	public void quit() {
 		synchronized (mutex) {
 			this.quit = true;
-			mutex.notify();
+			cancel();
+			mutex.notifyAll();
+		}
+	}
+
+	private static Executor getDefaultCallbackExecutor() {
+		Executor executor = defaultCallbackExecutor;
+		if (executor == null) {
+			synchronized (DelayTimer.class) {
+				executor = defaultCallbackExecutor;
+				if (executor == null) {
+					AtomicInteger count = new AtomicInteger();
+					ThreadPoolExecutor pool = new ThreadPoolExecutor(CALLBACK_THREADS, CALLBACK_THREADS, 60, TimeUnit.SECONDS,
+									new LinkedBlockingQueue<>(), runnable -> {
+										Thread thread = new Thread(runnable, "oh-delay-timer-" + count.incrementAndGet());
+										thread.setDaemon(true);
+										return thread;
+									});
+					pool.allowCoreThreadTimeOut(true);
+					executor = pool;
+					defaultCallbackExecutor = executor;
+				}
+			}
+		}
+		return executor;
+	}
+
+	private void trigger(long scheduledGeneration) {
+		synchronized (triggeredMutex) {
+			synchronized (mutex) {
+				// a reset or a stop after the expiry was scheduled makes this trigger stale
+				if (quit || timeout == null || scheduledGeneration != generation) {
+					return;
+				}
+				timeout = null;
+			}
+			try {
+				callback.trigger();
+			} catch (Exception exception) {
+				LOGGER.error("trigger() threw exception, continuing", exception);
+			}
+		}
+	}
+
+	private void cancel() {
+		generation++;
+		if (timeout != null) {
+			timeout.cancel();
+			timeout = null;
 		}
 	}
 
@@ -0,0 +1,314 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.time;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed timing wheel: thousands of one-shot timers share one ticking thread, expired tasks run on one worker thread.
+ * <p>
+ * Scheduling and cancelling are O(1): new and cancelled timeouts are queued and moved in or out of their bucket by the ticking thread at the
+ * next tick. Timeouts fire with a resolution of one tick (10 ms for the {@link #getDefault() default} wheel).
+ * <p>
+ * The worker thread is shared by every user of the wheel: tasks that may block, e.g. on the database, hand their work off to an executor of
+ * their own, as {@link DelayTimer} and {@code JobScheduler} do.
+ */
+public final class TimingWheel {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TimingWheel.class);
+
+	private static final long DEFAULT_TICK_MILLIS = 10;
+
+	private static final int DEFAULT_WHEEL_SIZE = 512;
+
+	private static volatile TimingWheel defaultWheel;
+
+	private final long tickNanos;
+
+	private final Bucket[] wheel;
+
+	private final int mask;
+
+	private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+
+	private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger pending = new AtomicInteger();
+
+	private final ExecutorService worker;
+
+	private final Thread ticker;
+
+	private final long startTime;
+
+	private volatile boolean stopped;
+
+	/**
+	 * @param name - the prefix of the thread names
+	 * @param tickMillis - the duration of a tick
+	 * @param wheelSize - the number of buckets, rounded up to a power of two
+	 */
+	public TimingWheel(String name, long tickMillis, int wheelSize) {
+		if (tickMillis <= 0 || wheelSize <= 0) {
+			throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+		}
+		int size = Integer.highestOneBit(wheelSize - 1) << 1;
+		this.wheel = new Bucket[Math.max(size, 1)];
+		for (int i = 0; i < wheel.length; i++) {
+			wheel[i] = new Bucket();
+		}
+		this.mask = wheel.length - 1;
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+		this.worker = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, name + "-worker"));
+		this.startTime = System.nanoTime();
+		this.ticker = daemon(this::tick, name + "-ticker");
+		this.ticker.start();
+	}
+
+	/**
+	 * @return the wheel shared by the whole application
+	 */
+	public static TimingWheel getDefault() {
+		TimingWheel wheel = defaultWheel;
+		if (wheel == null) {
+			synchronized (TimingWheel.class) {
+				wheel = defaultWheel;
+				if (wheel == null) {
+					wheel = new TimingWheel("oh-timer", DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+					defaultWheel = wheel;
+				}
+			}
+		}
+		return wheel;
+	}
+
+	/**
+	 * Schedules the one-shot execution of a task.
+	 *
+	 * @param task - the task, run on the worker thread of the wheel; it must not block
+	 * @param delay - the delay before the execution
+	 * @param unit - the unit of {@code delay}
+	 * @return the {@link Timeout} that can be used to cancel the execution
+	 */
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+		if (stopped) {
+			throw new IllegalStateException("TimingWheel stopped");
+		}
+		Timeout timeout = new Timeout(this, task, System.nanoTime() - startTime + unit.toNanos(Math.max(delay, 0)));
+		pending.incrementAndGet();
+		scheduled.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * @return the number of scheduled timeouts that have neither expired nor been cancelled
+	 */
+	public int getPendingCount() {
+		return pending.get();
+	}
+
+	/**
+	 * Stops the threads of the wheel; pending timeouts never fire.
+	 */
+	public void stop() {
+		stopped = true;
+		ticker.interrupt();
+		worker.shutdown();
+	}
+
+	private void tick() {
+		long tick = 0;
+		try {
+			while (!stopped) {
+				long deadline = tickNanos * (tick + 1);
+				long sleepNanos = deadline - (System.nanoTime() - startTime);
+				if (sleepNanos > 0) {
+					TimeUnit.NANOSECONDS.sleep(sleepNanos);
+				}
+				removeCancelled();
+				transferScheduled(tick);
+				wheel[(int) (tick & mask)].expire(deadline);
+				tick++;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			LOGGER.error("Timing wheel stopped unexpectedly", e);
+		}
+	}
+
+	private void transferScheduled(long currentTick) {
+		Timeout timeout;
+		while ((timeout = scheduled.poll()) != null) {
+			if (timeout.state.get() != Timeout.INIT) {
+				continue;
+			}
+			long calculated = timeout.deadline / tickNanos;
+			timeout.remainingRounds = (calculated - currentTick) / wheel.length;
+			long ticks = Math.max(calculated, currentTick);
+			wheel[(int) (ticks & mask)].add(timeout);
+		}
+	}
+
+	private void removeCancelled() {
+		Timeout timeout;
+		while ((timeout = cancelled.poll()) != null) {
+			if (timeout.bucket != null) {
+				timeout.bucket.remove(timeout);
+			}
+		}
+	}
+
+	private void fire(Timeout timeout) {
+		pending.decrementAndGet();
+		worker.execute(() -> {
+			try {
+				timeout.task.run();
+			} catch (Exception exception) {
+				LOGGER.error("Timer task threw exception, continuing", exception);
+			}
+		});
+	}
+
+	private static Thread daemon(Runnable runnable, String name) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * Handle of a scheduled task.
+	 */
+	public static final class Timeout {
+
+		private static final int INIT = 0;
+		private static final int CANCELLED = 1;
+		private static final int EXPIRED = 2;
+
+		private final TimingWheel wheel;
+		private final Runnable task;
+		private final long deadline;
+		private final AtomicInteger state = new AtomicInteger(INIT);
+
+		// accessed by the ticker thread only
+		private long remainingRounds;
+		private Timeout next;
+		private Timeout prev;
+		private Bucket bucket;
+
+		private Timeout(TimingWheel wheel, Runnable task, long deadline) {
+			this.wheel = wheel;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Cancels the execution of the task if it has not expired yet.
+		 *
+		 * @return {@code true} if the timeout was cancelled, {@code false} if it had already expired or been cancelled
+		 */
+		public boolean cancel() {
+			if (!state.compareAndSet(INIT, CANCELLED)) {
+				return false;
+			}
+			wheel.pending.decrementAndGet();
+			wheel.cancelled.add(this);
+			return true;
+		}
+
+		public boolean isCancelled() {
+			return state.get() == CANCELLED;
+		}
+
+		public boolean isExpired() {
+			return state.get() == EXPIRED;
+		}
+
+	}
+
+	private final class Bucket {
+
+		private Timeout head;
+		private Timeout tail;
+
+		void add(Timeout timeout) {
+			timeout.bucket = this;
+			if (head == null) {
+				head = timeout;
+				tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		void expire(long deadline) {
+			Timeout timeout = head;
+			while (timeout != null) {
+				Timeout next = timeout.next;
+				if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+					remove(timeout);
+					if (timeout.state.compareAndSet(Timeout.INIT, Timeout.EXPIRED)) {
+						fire(timeout);
+					}
+				} else if (timeout.state.get() == Timeout.CANCELLED) {
+					remove(timeout);
+				} else {
+					timeout.remainingRounds--;
+				}
+				timeout = next;
+			}
+		}
+
+		void remove(Timeout timeout) {
+			if (timeout.bucket != this) {
+				return;
+			}
+			if (timeout.prev != null) {
+				timeout.prev.next = timeout.next;
+			}
+			if (timeout.next != null) {
+				timeout.next.prev = timeout.prev;
+			}
+			if (timeout == head) {
+				head = timeout.next;
+			}
+			if (timeout == tail) {
+				tail = timeout.prev;
+			}
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+		}
+
+	}
+
+}
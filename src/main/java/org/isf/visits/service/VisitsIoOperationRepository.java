@@ -23,6 +23,7 @@ package org.isf.visits.service;
 
 import java.util.List;
 
+import org.isf.patient.model.Patient;
 import org.isf.visits.model.Visit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -55,4 +56,8 @@ public interface VisitsIoOperationRepository extends JpaRepository<Visit, Intege
 	@Query("select count(v) from Visit v where active=1")
 	long countAllActiveAppointments();
 
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query(value = "update Visit v set v.patient = :mergedPatient where v.patient = :obsoletePatient")
+	int updatePatient(@Param("obsoletePatient") Patient obsoletePatient, @Param("mergedPatient") Patient mergedPatient);
+
 }
\ No newline at end of file
@@ -148,4 +148,15 @@ public class VisitsIoOperations {
 		return this.repository.countAllActiveAppointments();
 	}
 
+	/**
+	 * Moves all the {@link Visit}s of the obsolete {@link Patient} to the merged one, with a single bulk update.
+	 *
+	 * @param obsoletePatient - the {@link Patient} being merged
+	 * @param mergedPatient - the {@link Patient} that keeps the history
+	 * @return the number of updated rows
+	 */
+	public int reassignPatient(Patient obsoletePatient, Patient mergedPatient) {
+		return repository.updatePatient(obsoletePatient, mergedPatient);
+	}
+
 }
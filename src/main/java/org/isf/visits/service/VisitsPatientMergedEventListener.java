@@ -21,13 +21,10 @@
  */
 package org.isf.visits.service;
 
-import java.util.List;
-
 import org.isf.patient.model.PatientMergedEvent;
-import org.isf.utils.exception.OHServiceException;
-import org.isf.visits.model.Visit;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 @Component
 public class VisitsPatientMergedEventListener {
@@ -39,11 +36,10 @@ public class VisitsPatientMergedEventListener {
 	}
 
 	@EventListener
-	public void handle(PatientMergedEvent patientMergedEvent) throws OHServiceException {
-		List<Visit> visits = visitsIoOperations.getVisits(patientMergedEvent.getObsoletePatient().getCode());
-		for(Visit visit : visits) {
-			visit.setPatient(patientMergedEvent.getMergedPatient());
-		}
+	@Transactional
+	public void handle(PatientMergedEvent patientMergedEvent) {
+		int rows = visitsIoOperations.reassignPatient(patientMergedEvent.getObsoletePatient(), patientMergedEvent.getMergedPatient());
+		patientMergedEvent.addMergedRows("visits", rows);
 	}
 
 }
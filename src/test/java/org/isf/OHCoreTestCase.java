@@ -21,30 +21,58 @@
  */
 package org.isf;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Properties;
 import java.util.stream.Stream;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.isf.utils.db.QueryCount;
+import org.isf.utils.db.QueryCountConfiguration;
+import org.isf.utils.db.QueryCounter;
+import org.junit.jupiter.api.AfterEach;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @SpringBootTest
 @Transactional
+@Import(QueryCountConfiguration.class)
 public class OHCoreTestCase {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(OHCoreTestCase.class);
+	private static final String QUERY_BUDGET_FILE = "query-budget.properties";
+	private static Properties queryBudgets;
 
 	@PersistenceContext
 	public EntityManager entityManager;
 
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
 	public void cleanH2InMemoryDb() {
+		if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+			// a test running outside of a transaction commits its data, so the tables are cleaned in a transaction of their own
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> cleanH2InMemoryDb());
+			return;
+		}
 		List<Object[]> showTables = entityManager.createNativeQuery("SHOW TABLES")
 			.getResultList();
 		entityManager.createNativeQuery("SET REFERENTIAL_INTEGRITY FALSE").executeUpdate();
@@ -74,4 +102,75 @@ public class OHCoreTestCase {
 		}
 		entityManager.createNativeQuery("SET REFERENTIAL_INTEGRITY TRUE").executeUpdate();
 	}
+
+	/**
+	 * Starts counting the statements executed by the test thread and the entities loaded; the pending changes are flushed first, so they
+	 * are not counted.
+	 */
+	public void startQueryCount() {
+		flush();
+		getStatistics().clear();
+		QueryCounter.start();
+	}
+
+	/**
+	 * @return the statements executed and the entities loaded since {@link #startQueryCount()}, including the pending changes
+	 */
+	public QueryCount getQueryCount() {
+		flush();
+		return new QueryCount(getStatistics());
+	}
+
+	/**
+	 * Asserts that at most {@code maxStatements} statements were executed since {@link #startQueryCount()}.
+	 */
+	public QueryCount assertQueryCount(long maxStatements) {
+		QueryCount queryCount = getQueryCount();
+		assertThat(queryCount.getStatements()).as("Statements executed: %s", queryCount).isLessThanOrEqualTo(maxStatements);
+		return queryCount;
+	}
+
+	/**
+	 * Asserts that the statements executed since {@link #startQueryCount()} are within the budget of the operation in
+	 * {@value #QUERY_BUDGET_FILE}.
+	 *
+	 * @param operation - the operation, as {@code Manager.method}
+	 */
+	public QueryCount assertWithinQueryBudget(String operation) {
+		String budget = getQueryBudgets().getProperty(operation);
+		assertThat(budget).as("Query budget of %s in %s", operation, QUERY_BUDGET_FILE).isNotNull();
+		QueryCount queryCount = assertQueryCount(Long.parseLong(budget.trim()));
+		LOGGER.debug("{}: {}", operation, queryCount);
+		return queryCount;
+	}
+
+	@AfterEach
+	void stopQueryCount() {
+		QueryCounter.stop();
+	}
+
+	private void flush() {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			entityManager.flush();
+		}
+	}
+
+	private Statistics getStatistics() {
+		return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+	}
+
+	private static synchronized Properties getQueryBudgets() {
+		if (queryBudgets == null) {
+			Properties properties = new Properties();
+			try (InputStream in = OHCoreTestCase.class.getClassLoader().getResourceAsStream(QUERY_BUDGET_FILE)) {
+				if (in != null) {
+					properties.load(in);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			queryBudgets = properties;
+		}
+		return queryBudgets;
+	}
 }
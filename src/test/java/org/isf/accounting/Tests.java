@@ -23,15 +23,19 @@ package org.isf.accounting;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.assertj.core.data.Offset.offset;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.isf.OHCoreTestCase;
+import org.isf.accounting.enums.BillRollupType;
 import org.isf.accounting.manager.BillBrowserManager;
 import org.isf.accounting.model.Bill;
+import org.isf.accounting.model.BillDailyRollup;
 import org.isf.accounting.model.BillItems;
 import org.isf.accounting.model.BillPayments;
 import org.isf.accounting.service.AccountingBillIoOperationRepository;
@@ -53,6 +57,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.transaction.TestTransaction;
 
 class Tests extends OHCoreTestCase {
 
@@ -795,6 +800,145 @@ class Tests extends OHCoreTestCase {
 		assertThat(updatedBill.getAmount()).isCloseTo(12.34, offset(0.1));
 	}
 
+	@Test
+	void mgrUpdateBillWritesOnlyChangedItemsAndPayments() throws Exception {
+		Patient patient = testPatient.setup(false);
+		PriceList priceList = testPriceList.setup(false);
+		priceListIoOperationRepository.saveAndFlush(priceList);
+		patientIoOperationRepository.saveAndFlush(patient);
+		Bill bill = testBill.setup(priceList, patient, null, false);
+		List<BillItems> billItems = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			billItems.add(new BillItems(0, bill, false, null, "item " + i, 1.0, 1));
+		}
+		List<BillPayments> billPayments = new ArrayList<>();
+		billPayments.add(new BillPayments(0, bill, TimeTools.getNow(), 100.0, "admin"));
+		bill = billBrowserManager.newBill(bill, billItems, billPayments);
+		assertThat(bill.getAmount()).isCloseTo(300.0, offset(0.1));
+		assertThat(bill.getBalance()).isCloseTo(200.0, offset(0.1));
+
+		List<BillItems> storedItems = billBrowserManager.getItems(bill.getId());
+		assertThat(storedItems).hasSize(300);
+		List<BillItems> editedItems = new ArrayList<>(storedItems.subList(10, 300));
+		editedItems.get(0).setItemQuantity(11);
+		editedItems.add(new BillItems(0, bill, false, null, "new item", 5.0, 2));
+		List<BillPayments> editedPayments = new ArrayList<>(billBrowserManager.getPayments(bill.getId()));
+		editedPayments.add(new BillPayments(0, bill, TimeTools.getNow(), 50.0, "admin"));
+
+		Bill updatedBill = billBrowserManager.updateBill(bill, editedItems, editedPayments);
+
+		assertThat(billBrowserManager.getItems(bill.getId()))
+				.hasSize(291)
+				.extracting(BillItems::getItemDescription)
+				.doesNotContain("item 0", "item 9")
+				.contains("item 10", "item 299", "new item");
+		assertThat(billBrowserManager.getPayments(bill.getId())).hasSize(2);
+		assertThat(updatedBill.getAmount()).isCloseTo(310.0, offset(0.1));
+		assertThat(updatedBill.getBalance()).isCloseTo(160.0, offset(0.1));
+		assertThat(accountingBillIoOperationRepository.findById(bill.getId()).get().getBalance()).isCloseTo(160.0, offset(0.1));
+	}
+
+	@Test
+	void mgrRollupsFollowBillChanges() throws Exception {
+		Patient patient = testPatient.setup(false);
+		PriceList priceList = testPriceList.setup(false);
+		priceListIoOperationRepository.saveAndFlush(priceList);
+		patientIoOperationRepository.saveAndFlush(patient);
+		Bill bill = testBill.setup(priceList, patient, null, false);
+		LocalDate billDay = bill.getDate().toLocalDate();
+		LocalDateTime paymentDate = LocalDateTime.of(2024, 1, 2, 10, 0);
+		List<BillItems> billItems = new ArrayList<>();
+		billItems.add(new BillItems(0, bill, false, null, "Consultation", 5.0, 2));
+		billItems.add(new BillItems(0, bill, false, null, "X-Ray", 20.0, 1));
+		List<BillPayments> billPayments = new ArrayList<>();
+		billPayments.add(new BillPayments(0, bill, paymentDate, 10.0, "cashier1"));
+		billPayments.add(new BillPayments(0, bill, paymentDate.plusHours(1), 5.0, "cashier2"));
+		bill = billBrowserManager.newBill(bill, billItems, billPayments);
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.ITEM, billDay, billDay)).isEmpty();
+		commitTransaction();
+
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.ITEM, billDay, billDay))
+				.extracting(BillDailyRollup::getKey, BillDailyRollup::getQuantity, BillDailyRollup::getAmount)
+				.containsExactly(tuple("Consultation", 2L, 10.0), tuple("X-Ray", 1L, 20.0));
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.PRICELIST, billDay, billDay))
+				.extracting(BillDailyRollup::getKey, BillDailyRollup::getCount, BillDailyRollup::getAmount, BillDailyRollup::getBalance)
+				.containsExactly(tuple("TestListName", 1L, 30.0, 15.0));
+		assertThat(billBrowserManager.getRollupTotals(BillRollupType.USER, paymentDate.toLocalDate(), paymentDate.toLocalDate()))
+				.extracting(BillDailyRollup::getKey, BillDailyRollup::getCount, BillDailyRollup::getAmount)
+				.containsExactly(tuple("cashier1", 1L, 10.0), tuple("cashier2", 1L, 5.0));
+
+		List<BillItems> editedItems = billBrowserManager.getItems(bill.getId()).subList(0, 1);
+		List<BillPayments> editedPayments = new ArrayList<>(billBrowserManager.getPayments(bill.getId()).subList(0, 1));
+		editedPayments.add(new BillPayments(0, bill, paymentDate.plusDays(1), 5.0, "cashier1"));
+		bill = billBrowserManager.updateBill(bill, editedItems, editedPayments);
+		commitTransaction();
+
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.ITEM, billDay, billDay))
+				.extracting(BillDailyRollup::getKey)
+				.containsExactly("Consultation");
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.PRICELIST, billDay, billDay))
+				.extracting(BillDailyRollup::getAmount, BillDailyRollup::getBalance)
+				.containsExactly(tuple(10.0, -5.0));
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.USER, paymentDate.toLocalDate(), paymentDate.toLocalDate().plusDays(1)))
+				.extracting(BillDailyRollup::getDate, BillDailyRollup::getKey, BillDailyRollup::getAmount)
+				.containsExactly(tuple(paymentDate.toLocalDate(), "cashier1", 10.0), tuple(paymentDate.toLocalDate().plusDays(1), "cashier1", 5.0));
+		assertThat(billBrowserManager.getRollupTotals(BillRollupType.USER, paymentDate.toLocalDate(), paymentDate.toLocalDate().plusDays(1)))
+				.extracting(BillDailyRollup::getKey, BillDailyRollup::getCount, BillDailyRollup::getAmount)
+				.containsExactly(tuple("cashier1", 2L, 15.0));
+
+		bill.setStatus("D");
+		billBrowserManager.updateBill(bill, editedItems, editedPayments);
+		commitTransaction();
+
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.ITEM, billDay, billDay)).isEmpty();
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.USER, paymentDate.toLocalDate(), paymentDate.toLocalDate().plusDays(1))).isEmpty();
+
+		cleanH2InMemoryDb();
+		commitTransaction();
+	}
+
+	/**
+	 * Commits the test transaction, running what is deferred after commit, and starts a new one.
+	 */
+	private void commitTransaction() {
+		TestTransaction.flagForCommit();
+		TestTransaction.end();
+		TestTransaction.start();
+	}
+
+	@Test
+	void mgrRebuildRollups() throws Exception {
+		int id = setupTestBillItems(false);
+		BillItems billItem = accountingBillItemsIoOperationRepository.findById(id).orElse(null);
+		assertThat(billItem).isNotNull();
+		LocalDate billDay = billItem.getBill().getDate().toLocalDate();
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.ITEM, billDay, billDay)).isEmpty();
+
+		billBrowserManager.rebuildRollups(billDay.minusDays(40), billDay);
+
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.ITEM, billDay, billDay))
+				.extracting(BillDailyRollup::getKey, BillDailyRollup::getCount, BillDailyRollup::getQuantity)
+				.containsExactly(tuple(billItem.getItemDescription(), 1L, (long) billItem.getItemQuantity()));
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.PRICELIST, billDay, billDay)).hasSize(1);
+	}
+
+	@Test
+	void mgrGetBillsPaymentsOfSameBill() throws Exception {
+		int id = setupTestBillPayments(false);
+		BillPayments billPayment = accountingBillPaymentIoOperationRepository.findById(id).orElse(null);
+		assertThat(billPayment).isNotNull();
+		BillPayments otherPayment = new BillPayments(0, billPayment.getBill(), billPayment.getDate(), 1.0, "TestUser");
+		accountingBillPaymentIoOperationRepository.saveAndFlush(otherPayment);
+		Bill otherBill = testBill.setup(billPayment.getBill().getPriceList(), billPayment.getBill().getBillPatient(), null, false);
+		accountingBillIoOperationRepository.saveAndFlush(otherBill);
+		BillPayments otherBillPayment = testBillPayments.setup(otherBill, false);
+		accountingBillPaymentIoOperationRepository.saveAndFlush(otherBillPayment);
+
+		List<Bill> bills = billBrowserManager.getBills(List.of(billPayment, otherPayment, otherBillPayment, billPayment));
+
+		assertThat(bills).containsExactly(billPayment.getBill(), otherBillPayment.getBill());
+	}
+
 	@Test
 	void mgrDeleteBill() throws Exception {
 		int id = setupTestBill(true);
@@ -24,9 +24,13 @@ package org.isf.admission;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 
 import org.assertj.core.api.Condition;
@@ -34,6 +38,7 @@ import org.isf.OHCoreTestCase;
 import org.isf.admission.manager.AdmissionBrowserManager;
 import org.isf.admission.model.Admission;
 import org.isf.admission.model.AdmittedPatient;
+import org.isf.admission.model.AdmittedPatientSummary;
 import org.isf.admission.service.AdmissionIoOperationRepository;
 import org.isf.admission.service.AdmissionIoOperationRepositoryCustom;
 import org.isf.admission.service.AdmissionIoOperationRepositoryCustom.PatientAdmission;
@@ -84,6 +89,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 class Tests extends OHCoreTestCase {
@@ -189,6 +195,27 @@ class Tests extends OHCoreTestCase {
 		assertThat(patients.get(0).getAdmission().getId()).isEqualTo(foundAdmission.getId());
 	}
 
+	@ParameterizedTest(name = "Test with MATERNITYRESTARTINJUNE={0}")
+	@MethodSource("maternityRestartInJune")
+	void testMgrGetAdmittedPatientSummaries(boolean maternityRestartInJune) throws Exception {
+		GeneralData.MATERNITYRESTARTINJUNE = maternityRestartInJune;
+		int id = setupTestAdmission(false);
+		Admission foundAdmission = admissionIoOperation.getAdmission(id);
+		Patient patient = foundAdmission.getPatient();
+		List<AdmittedPatient> patients = admissionBrowserManager.getAdmittedPatients(null, null, patient.getName());
+		List<AdmittedPatientSummary> summaries = admissionBrowserManager.getAdmittedPatientSummaries(null, null, patient.getName());
+		assertThat(summaries).hasSameSizeAs(patients);
+		AdmittedPatientSummary summary = summaries.get(0);
+		assertThat(summary.getPatient().getCode()).isEqualTo(patient.getCode());
+		assertThat(summary.getPatient().getName()).isEqualTo(patient.getName());
+		assertThat(summary.getPatient().getSex()).isEqualTo(patient.getSex());
+		assertThat(summary.isAdmitted()).isEqualTo(patients.get(0).getAdmission() != null);
+		if (summary.isAdmitted()) {
+			assertThat(summary.getAdmissionId()).isEqualTo(foundAdmission.getId());
+			assertThat(summary.getWardCode()).isEqualTo(foundAdmission.getWard().getCode());
+		}
+	}
+
 	@ParameterizedTest(name = "Test with MATERNITYRESTARTINJUNE={0}")
 	@MethodSource("maternityRestartInJune")
 	void testGetAdmittedPatientWithDateRanges(boolean maternityRestartInJune) throws Exception {
@@ -291,6 +318,58 @@ class Tests extends OHCoreTestCase {
 		assertThat(patients.get(0).getId()).isEqualTo(foundAdmission.getId());
 	}
 
+	@ParameterizedTest(name = "Test with MATERNITYRESTARTINJUNE={0}")
+	@MethodSource("maternityRestartInJune")
+	void testIoGetAdmissionsByAdmissionDatesWithCursor(boolean maternityRestartInJune) throws Exception {
+		GeneralData.MATERNITYRESTARTINJUNE = maternityRestartInJune;
+		// given:
+		int id = setupTestAdmission(false);
+		Admission foundAdmission = admissionIoOperation.getAdmission(id);
+		List<Integer> ids = new ArrayList<>();
+		ids.add(id);
+		for (int i = 0; i < 4; i++) {
+			Admission admission = testAdmission.setup(foundAdmission.getWard(), foundAdmission.getPatient(), foundAdmission.getAdmType(),
+					foundAdmission.getDiseaseIn(), foundAdmission.getDiseaseOut1(), foundAdmission.getDiseaseOut2(), foundAdmission.getDiseaseOut3(),
+					null, foundAdmission.getDisType(), foundAdmission.getPregTreatmentType(), foundAdmission.getDeliveryType(),
+					foundAdmission.getDeliveryResult(), false);
+			ids.add(admissionIoOperationRepository.saveAndFlush(admission).getId());
+		}
+		// same admission date for all the admissions: ties are ordered by id
+		ids.sort(Comparator.reverseOrder());
+		LocalDateTime dateFrom = foundAdmission.getAdmDate();
+		LocalDateTime dateTo = foundAdmission.getAdmDate();
+
+		// when:
+		PagedResponse<Admission> page = admissionIoOperation.getAdmissionsByAdmissionDates(dateFrom, dateTo, null, 2, true);
+
+		// then:
+		assertThat(page.getData()).extracting(Admission::getId).containsExactly(ids.get(0), ids.get(1));
+		assertThat(page.getPageInfo().getTotalNbOfElements()).isEqualTo(5);
+		assertThat(page.getPageInfo().isHasPreviousPage()).isFalse();
+		assertThat(page.getPageInfo().getPreviousCursor()).isNull();
+
+		page = admissionIoOperation.getAdmissionsByAdmissionDates(dateFrom, dateTo, page.getPageInfo().getNextCursor(), 2, false);
+		assertThat(page.getData()).extracting(Admission::getId).containsExactly(ids.get(2), ids.get(3));
+		assertThat(page.getPageInfo().getTotalNbOfElements()).isEqualTo(-1);
+		String tamperedCursor = tamper(page.getPageInfo().getNextCursor());
+
+		page = admissionIoOperation.getAdmissionsByAdmissionDates(dateFrom, dateTo, page.getPageInfo().getNextCursor(), 2, false);
+		assertThat(page.getData()).extracting(Admission::getId).containsExactly(ids.get(4));
+		assertThat(page.getPageInfo().isHasNextPage()).isFalse();
+		assertThat(page.getPageInfo().getNextCursor()).isNull();
+
+		page = admissionIoOperation.getAdmissionsByAdmissionDates(dateFrom, dateTo, page.getPageInfo().getPreviousCursor(), 2, false);
+		assertThat(page.getData()).extracting(Admission::getId).containsExactly(ids.get(2), ids.get(3));
+		assertThat(page.getPageInfo().isHasNextPage()).isTrue();
+
+		page = admissionIoOperation.getAdmissionsByAdmissionDates(dateFrom, dateTo, page.getPageInfo().getPreviousCursor(), 2, false);
+		assertThat(page.getData()).extracting(Admission::getId).containsExactly(ids.get(0), ids.get(1));
+		assertThat(page.getPageInfo().isHasPreviousPage()).isFalse();
+
+		assertThatThrownBy(() -> admissionIoOperation.getAdmissionsByAdmissionDates(dateFrom, dateTo, tamperedCursor, 2, false))
+				.isInstanceOf(OHDataValidationException.class);
+	}
+
 	@ParameterizedTest(name = "Test with MATERNITYRESTARTINJUNE={0}")
 	@MethodSource("maternityRestartInJune")
 	void testIoGetAdmissionsByAdmDate(boolean maternityRestartInJune) throws Exception {
@@ -523,6 +602,33 @@ class Tests extends OHCoreTestCase {
 		assertThat(updateAdmission.getNote()).isEqualTo("Update");
 	}
 
+	@ParameterizedTest(name = "Test with MATERNITYRESTARTINJUNE={0}")
+	@MethodSource("maternityRestartInJune")
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void testIoUpdateAdmissionOutsideTransaction(boolean maternityRestartInJune) throws Exception {
+		GeneralData.MATERNITYRESTARTINJUNE = maternityRestartInJune;
+		try {
+			int id = setupTestAdmission(false);
+			Admission foundAdmission = admissionIoOperation.getAdmission(id);
+			foundAdmission.setNote("Update");
+
+			Admission result = admissionIoOperation.updateAdmission(foundAdmission);
+
+			// the merged admission is read once its transaction is over, as the desktop client does
+			assertThat(result.getNote()).isEqualTo("Update");
+			assertThat(result.getWard().getDescription()).isEqualTo(foundAdmission.getWard().getDescription());
+			assertThat(result.getPatient().getName()).isEqualTo(foundAdmission.getPatient().getName());
+			assertThat(result.getPatient().getPatientConsensus()).isNotNull();
+			assertThat(result.getAdmType().getDescription()).isEqualTo(foundAdmission.getAdmType().getDescription());
+			assertThat(result.getDiseaseIn().getDescription()).isEqualTo(foundAdmission.getDiseaseIn().getDescription());
+			assertThat(result.getDiseaseOut3().getDescription()).isEqualTo(foundAdmission.getDiseaseOut3().getDescription());
+			assertThat(result.getDisType().getDescription()).isEqualTo(foundAdmission.getDisType().getDescription());
+			assertThat(result.getDeliveryResult().getDescription()).isEqualTo(foundAdmission.getDeliveryResult().getDescription());
+		} finally {
+			cleanH2InMemoryDb();
+		}
+	}
+
 	@ParameterizedTest(name = "Test with MATERNITYRESTARTINJUNE={0}")
 	@MethodSource("maternityRestartInJune")
 	void testIoGetAdmissionType(boolean maternityRestartInJune) throws Exception {
@@ -558,6 +664,26 @@ class Tests extends OHCoreTestCase {
 		assertThat(next).isEqualTo(foundAdmission.getYProg() + 1);
 	}
 
+	@ParameterizedTest(name = "Test with MATERNITYRESTARTINJUNE={0}")
+	@MethodSource("maternityRestartInJune")
+	void testIoGetNextYProgQueryCount(boolean maternityRestartInJune) throws Exception {
+		GeneralData.MATERNITYRESTARTINJUNE = maternityRestartInJune;
+		// given:
+		int id = setupTestAdmission(false);
+		Admission foundAdmission = admissionIoOperation.getAdmission(id);
+		foundAdmission.setYProg(99);
+		foundAdmission.setAdmDate(TimeTools.getNow());
+		admissionIoOperation.updateAdmission(foundAdmission);
+		startQueryCount();
+
+		// when:
+		int next = admissionIoOperation.getNextYProg(foundAdmission.getWard().getCode());
+
+		// then: the next progressive comes from a single aggregate query, no admission is materialized
+		assertThat(next).isEqualTo(100);
+		assertThat(assertQueryCount(1).getEntityLoads()).isZero();
+	}
+
 	@ParameterizedTest(name = "Test with MATERNITYRESTARTINJUNE={0}")
 	@MethodSource("maternityRestartInJune")
 	void testIoSetDeleted(boolean maternityRestartInJune) throws Exception {
@@ -1551,6 +1677,39 @@ class Tests extends OHCoreTestCase {
 		assertThat(patients.get(0).getId()).isEqualTo(foundAdmission.getId());
 	}
 
+	@ParameterizedTest(name = "Test with MATERNITYRESTARTINJUNE={0}")
+	@MethodSource("maternityRestartInJune")
+	void testMgrGetAdmissionsByAdmissionsDateQueryBudget(boolean maternityRestartInJune) throws Exception {
+		GeneralData.MATERNITYRESTARTINJUNE = maternityRestartInJune;
+		// given: admissions of different patients
+		int id = setupTestAdmission(false);
+		Admission admission = admissionIoOperation.getAdmission(id);
+		for (int i = 0; i < 4; i++) {
+			Patient patient = patientIoOperationRepository.saveAndFlush(testPatient.setup(false));
+			admissionIoOperation.newAdmission(testAdmission.setup(admission.getWard(), patient, admission.getAdmType(), admission.getDiseaseIn(),
+				admission.getDiseaseOut1(), admission.getDiseaseOut2(), admission.getDiseaseOut3(), null, admission.getDisType(),
+				admission.getPregTreatmentType(), admission.getDeliveryType(), admission.getDeliveryResult(), false));
+		}
+		entityManager.clear();
+		LocalDateTime dateFrom = LocalDateTime.parse("2000-01-01T10:11:30");
+		LocalDateTime dateTo = LocalDateTime.parse("2023-05-05T10:11:30");
+		startQueryCount();
+
+		// when:
+		List<Admission> admissions = admissionBrowserManager.getAdmissionsByAdmissionDate(dateFrom, dateTo);
+
+		// then: the list graph loads everything shown in a list with a constant number of statements
+		assertThat(admissions).hasSize(5).allSatisfy(found -> {
+			assertThat(found.getWard().getDescription()).isNotNull();
+			assertThat(found.getPatient().getName()).isNotNull();
+			assertThat(found.getPatient().getPatientConsensus()).isNotNull();
+			assertThat(found.getAdmType().getDescription()).isNotNull();
+			assertThat(found.getDiseaseIn().getDescription()).isNotNull();
+			assertThat(found.getDisType().getDescription()).isNotNull();
+		});
+		assertWithinQueryBudget("AdmissionBrowserManager.getAdmissionsByAdmissionDate");
+	}
+
 	@ParameterizedTest(name = "Test with MATERNITYRESTARTINJUNE={0}")
 	@MethodSource("maternityRestartInJune")
 	void testAdmissionEqualHash(boolean maternityRestartInJune) throws Exception {
@@ -1596,6 +1755,12 @@ class Tests extends OHCoreTestCase {
 			LocalDateTime[] dischargeRange) throws OHServiceException {
 			return null;
 		}
+
+		@Override
+		public List<AdmittedPatientSummary> findPatientAdmissionSummariesBySearchAndDateRanges(String searchTerms, LocalDateTime[] admissionRange,
+			LocalDateTime[] dischargeRange) {
+			return null;
+		}
 	}
 
 	private int setupTestAdmission(boolean usingSet) throws OHException, InterruptedException, OHServiceException {
@@ -1643,6 +1808,12 @@ class Tests extends OHCoreTestCase {
 		return savedAdmission.getId();
 	}
 
+	private static String tamper(String cursor) {
+		// a cursor whose id is not a number any more
+		String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.replaceFirst("\\|\\d+$", "|x").getBytes(StandardCharsets.UTF_8));
+	}
+
 	private void checkAdmissionIntoDb(int id) throws OHServiceException {
 		Admission foundAdmission = admissionIoOperation.getAdmission(id);
 		testAdmission.check(foundAdmission);
@@ -0,0 +1,342 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.isf.OHCoreTestCase;
+import org.isf.accounting.TestBill;
+import org.isf.accounting.TestBillItems;
+import org.isf.accounting.TestBillPayments;
+import org.isf.accounting.enums.BillRollupType;
+import org.isf.accounting.manager.BillBrowserManager;
+import org.isf.accounting.model.Bill;
+import org.isf.accounting.model.BillDailyRollup;
+import org.isf.accounting.model.BillItems;
+import org.isf.accounting.model.BillPayments;
+import org.isf.accounting.service.AccountingBillIoOperationRepository;
+import org.isf.accounting.service.AccountingBillItemsIoOperationRepository;
+import org.isf.accounting.service.AccountingBillPaymentIoOperationRepository;
+import org.isf.accounting.service.AccountingIoOperations;
+import org.isf.archive.manager.ArchiveManager;
+import org.isf.archive.model.ArchiveTable;
+import org.isf.archive.model.ArchiveVerification;
+import org.isf.generaldata.GeneralData;
+import org.isf.patient.TestPatient;
+import org.isf.patient.manager.PatientBrowserManager;
+import org.isf.patient.model.Patient;
+import org.isf.patient.service.PatientIoOperationRepository;
+import org.isf.priceslist.TestPriceList;
+import org.isf.priceslist.model.PriceList;
+import org.isf.priceslist.service.PricesListIoOperationRepository;
+import org.isf.sms.TestSms;
+import org.isf.sms.model.Sms;
+import org.isf.sms.service.SmsIoOperationRepository;
+import org.isf.sms.service.SmsOperations;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class Tests extends OHCoreTestCase {
+
+	private static final LocalDateTime SMS_SCHED = LocalDateTime.of(2011, 9, 8, 0, 0, 0);
+	private static final LocalDateTime BILL_DATE = LocalDateTime.of(2012, 3, 4, 10, 0, 0);
+
+	private static TestSms testSms;
+	private static TestBill testBill;
+	private static TestBillItems testBillItems;
+	private static TestBillPayments testBillPayments;
+	private static TestPatient testPatient;
+	private static TestPriceList testPriceList;
+
+	@Autowired
+	ArchiveManager archiveManager;
+	@Autowired
+	SmsOperations smsOperations;
+	@Autowired
+	SmsIoOperationRepository smsIoOperationRepository;
+	@Autowired
+	AccountingIoOperations accountingIoOperations;
+	@Autowired
+	BillBrowserManager billBrowserManager;
+	@Autowired
+	AccountingBillIoOperationRepository accountingBillIoOperationRepository;
+	@Autowired
+	AccountingBillItemsIoOperationRepository accountingBillItemsIoOperationRepository;
+	@Autowired
+	AccountingBillPaymentIoOperationRepository accountingBillPaymentIoOperationRepository;
+	@Autowired
+	PatientIoOperationRepository patientIoOperationRepository;
+	@Autowired
+	PatientBrowserManager patientBrowserManager;
+	@Autowired
+	PricesListIoOperationRepository priceListIoOperationRepository;
+
+	@BeforeAll
+	static void setUpClass() {
+		testSms = new TestSms();
+		testBill = new TestBill();
+		testBillItems = new TestBillItems();
+		testBillPayments = new TestBillPayments();
+		testPatient = new TestPatient();
+		testPriceList = new TestPriceList();
+	}
+
+	@BeforeEach
+	void setUp() {
+		cleanH2InMemoryDb();
+	}
+
+	@Test
+	void testMgrArchiveSentSms() throws Exception {
+		Sms sent = setupTestSms(SMS_SCHED, true);
+		Sms pending = setupTestSms(SMS_SCHED.plusHours(1), false);
+		// the record with the highest id is never archived
+		Sms last = setupTestSms(SMS_SCHED.plusDays(1), true);
+
+		assertThat(archiveManager.archive(ArchiveTable.SMS, LocalDateTime.now())).isEqualTo(1);
+
+		assertThat(smsIoOperationRepository.findAll()).extracting(Sms::getSmsId).containsExactlyInAnyOrder(pending.getSmsId(), last.getSmsId());
+		List<Sms> smsList = smsOperations.getAll(SMS_SCHED.minusDays(1), SMS_SCHED.plusDays(2));
+		assertThat(smsList).extracting(Sms::getSmsId).containsExactly(sent.getSmsId(), pending.getSmsId(), last.getSmsId());
+		assertThat(smsOperations.getAll(SMS_SCHED.plusHours(1), SMS_SCHED.plusDays(2))).extracting(Sms::getSmsId)
+				.containsExactly(pending.getSmsId(), last.getSmsId());
+
+		ArchiveVerification verification = archiveManager.verify(ArchiveTable.SMS);
+		assertThat(verification.isValid()).isTrue();
+		assertThat(verification.getHotCount()).isEqualTo(2);
+		assertThat(verification.getArchivedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void testMgrArchiveAndRestoreBills() throws Exception {
+		Patient patient = setupTestPatient();
+		Patient activePatient = setupTestPatient();
+		PriceList priceList = testPriceList.setup(false);
+		priceListIoOperationRepository.saveAndFlush(priceList);
+		Bill closed = setupTestBill(priceList, patient, "C");
+		// the closed bills of a patient with an open bill are kept
+		Bill closedOfActivePatient = setupTestBill(priceList, activePatient, "C");
+		Bill open = setupTestBill(priceList, activePatient, "O");
+		accountingBillItemsIoOperationRepository.saveAndFlush(testBillItems.setup(closed, false));
+		accountingBillPaymentIoOperationRepository.saveAndFlush(testBillPayments.setup(closed, false));
+
+		assertThat(archiveManager.archive(ArchiveTable.BILL, LocalDateTime.now())).isEqualTo(1);
+
+		assertThat(accountingBillIoOperationRepository.findAll()).extracting(Bill::getId)
+				.containsExactlyInAnyOrder(closedOfActivePatient.getId(), open.getId());
+		assertThat(accountingBillItemsIoOperationRepository.findAll()).isEmpty();
+		assertThat(accountingBillPaymentIoOperationRepository.findAll()).isEmpty();
+		assertThat(accountingIoOperations.getBillsBetweenDates(BILL_DATE, BILL_DATE)).extracting(Bill::getId)
+				.containsExactlyInAnyOrder(closed.getId(), closedOfActivePatient.getId(), open.getId());
+		assertThat(archiveManager.verify(ArchiveTable.BILL).isValid()).isTrue();
+
+		assertThat(archiveManager.restore(ArchiveTable.BILL, null, null)).isEqualTo(1);
+
+		assertThat(accountingBillIoOperationRepository.findAll()).hasSize(3);
+		assertThat(accountingBillItemsIoOperationRepository.findAll()).hasSize(1);
+		assertThat(accountingBillPaymentIoOperationRepository.findAll()).hasSize(1);
+		ArchiveVerification verification = archiveManager.verify(ArchiveTable.BILL);
+		assertThat(verification.isValid()).isTrue();
+		assertThat(verification.getArchivedCount()).isZero();
+
+		// the restored bill is pinned, until the pin expires
+		assertThat(archiveManager.archive(ArchiveTable.BILL, LocalDateTime.now())).isZero();
+		entityManager.createNativeQuery("UPDATE OH_ARCHIVE_PIN SET APN_UNTIL = :until").setParameter("until", LocalDateTime.now().minusDays(1))
+				.executeUpdate();
+		assertThat(archiveManager.archive(ArchiveTable.BILL, LocalDateTime.now())).isEqualTo(1);
+	}
+
+	@Test
+	void testIoGetPaymentsIncludesArchived() throws Exception {
+		Bill archived = setupArchivedBill();
+		BillPayments payment = accountingBillPaymentIoOperationRepository.findAll().get(0);
+		assertThat(archiveManager.archive(ArchiveTable.BILL, LocalDateTime.now())).isEqualTo(1);
+
+		List<BillPayments> payments = accountingIoOperations.getPayments(BILL_DATE, BILL_DATE);
+
+		assertThat(payments).extracting(BillPayments::getId).containsExactly(payment.getId());
+		assertThat(payments.get(0).getBill().getId()).isEqualTo(archived.getId());
+		assertThat(payments.get(0).getAmount()).isEqualTo(payment.getAmount());
+	}
+
+	@Test
+	void testIoGetPaymentsBetweenDatesWherePatientIncludesArchived() throws Exception {
+		Bill archived = setupArchivedBill();
+		BillPayments payment = accountingBillPaymentIoOperationRepository.findAll().get(0);
+		assertThat(archiveManager.archive(ArchiveTable.BILL, LocalDateTime.now())).isEqualTo(1);
+
+		assertThat(accountingIoOperations.getPaymentsBetweenDatesWherePatient(BILL_DATE, BILL_DATE, archived.getBillPatient()))
+				.extracting(BillPayments::getId).containsExactly(payment.getId());
+		assertThat(accountingIoOperations.getPaymentsBetweenDatesWherePatient(BILL_DATE, BILL_DATE, setupTestPatient())).isEmpty();
+	}
+
+	@Test
+	void testIoGetBillsBetweenDatesWherePatientIncludesArchived() throws Exception {
+		Bill archived = setupArchivedBill();
+		assertThat(archiveManager.archive(ArchiveTable.BILL, LocalDateTime.now())).isEqualTo(1);
+
+		assertThat(accountingIoOperations.getBillsBetweenDatesWherePatient(BILL_DATE, BILL_DATE, archived.getBillPatient()))
+				.extracting(Bill::getId).contains(archived.getId());
+	}
+
+	@Test
+	void testIoGetBillsBetweenDatesWhereBillItemIncludesArchived() throws Exception {
+		Bill archived = setupArchivedBill();
+		BillItems item = accountingBillItemsIoOperationRepository.findAll().get(0);
+		assertThat(archiveManager.archive(ArchiveTable.BILL, LocalDateTime.now())).isEqualTo(1);
+
+		assertThat(accountingIoOperations.getBillsBetweenDatesWhereBillItem(BILL_DATE, BILL_DATE, item)).extracting(Bill::getId)
+				.containsExactly(archived.getId());
+		assertThat(accountingIoOperations.getBillsBetweenDatesWhereBillItem(BILL_DATE, BILL_DATE, null)).extracting(Bill::getId)
+				.contains(archived.getId());
+	}
+
+	@Test
+	void testMgrMergePatientMovesArchivedRecords() throws Exception {
+		Patient obsoletePatient = setupTestPatient();
+		Patient mergedPatient = setupTestPatient();
+		PriceList priceList = testPriceList.setup(false);
+		priceListIoOperationRepository.saveAndFlush(priceList);
+		Bill archived = setupTestBill(priceList, obsoletePatient, "C");
+		setupTestBill(priceList, mergedPatient, "C");
+		assertThat(archiveManager.archive(ArchiveTable.BILL, LocalDateTime.now())).isEqualTo(1);
+
+		Map<String, Integer> mergedRows = patientBrowserManager.mergePatient(mergedPatient, obsoletePatient);
+
+		assertThat(mergedRows).containsEntry("archive", 1);
+		assertThat(entityManager.createNativeQuery("SELECT BLL_ID_PAT FROM OH_BILLS_ARCHIVE WHERE BLL_ID = :id").setParameter("id", archived.getId())
+				.getSingleResult()).isEqualTo(mergedPatient.getCode());
+	}
+
+	@Test
+	void testMgrArchiveTablesHavePrimaryKey() throws Exception {
+		setupTestSms(SMS_SCHED, true);
+		setupTestSms(SMS_SCHED.plusDays(1), true);
+		archiveManager.archive(ArchiveTable.SMS, LocalDateTime.now());
+
+		assertThat(entityManager.createNativeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS WHERE TABLE_NAME = 'OH_SMS_ARCHIVE' "
+				+ "AND CONSTRAINT_TYPE = 'PRIMARY KEY'").getSingleResult()).isEqualTo(1L);
+	}
+
+	@Test
+	void testMgrRollupsCountArchivedBills() throws Exception {
+		Patient patient = setupTestPatient();
+		PriceList priceList = testPriceList.setup(false);
+		priceListIoOperationRepository.saveAndFlush(priceList);
+		Bill archived = setupTestBill(priceList, patient, "C");
+		accountingBillItemsIoOperationRepository.saveAndFlush(testBillItems.setup(archived, false));
+		// the bill with the highest id is never archived
+		setupTestBill(priceList, patient, "C");
+		assertThat(archiveManager.archive(ArchiveTable.BILL, LocalDateTime.now())).isEqualTo(1);
+
+		billBrowserManager.rebuildRollups(BILL_DATE.toLocalDate(), BILL_DATE.toLocalDate());
+
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.PRICELIST, BILL_DATE.toLocalDate(), BILL_DATE.toLocalDate()))
+				.extracting(BillDailyRollup::getCount).containsExactly(2L);
+		assertThat(billBrowserManager.getDailyRollups(BillRollupType.ITEM, BILL_DATE.toLocalDate(), BILL_DATE.toLocalDate())).hasSize(1);
+	}
+
+	@Test
+	void testMgrVerifyDetectsDuplicates() throws Exception {
+		setupTestSms(SMS_SCHED, true);
+		setupTestSms(SMS_SCHED.plusDays(1), true);
+		archiveManager.archive(ArchiveTable.SMS, LocalDateTime.now());
+		entityManager.createNativeQuery("INSERT INTO OH_SMS SELECT * FROM OH_SMS_ARCHIVE").executeUpdate();
+
+		ArchiveVerification verification = archiveManager.verify(ArchiveTable.SMS);
+
+		assertThat(verification.isValid()).isFalse();
+		assertThat(verification.getDuplicateCount()).isEqualTo(1);
+	}
+
+	@Test
+	void testMgrArchiveAllDisabled() throws Exception {
+		Integer horizon = GeneralData.ARCHIVEHORIZON;
+		GeneralData.ARCHIVEHORIZON = 0;
+		try {
+			setupTestSms(SMS_SCHED, true);
+			setupTestSms(SMS_SCHED.plusDays(1), true);
+
+			assertThat(archiveManager.archiveAll()).isEmpty();
+			assertThat(smsIoOperationRepository.count()).isEqualTo(2);
+		} finally {
+			GeneralData.ARCHIVEHORIZON = horizon;
+		}
+	}
+
+	@Test
+	void testMgrArchiveAllTables() throws Exception {
+		Integer horizon = GeneralData.ARCHIVEHORIZON;
+		GeneralData.ARCHIVEHORIZON = 30;
+		try {
+			setupTestSms(SMS_SCHED, true);
+			setupTestSms(SMS_SCHED.plusDays(1), true);
+
+			assertThat(archiveManager.archiveAll()).containsOnlyKeys(ArchiveTable.values()).containsEntry(ArchiveTable.SMS, 1)
+					.containsEntry(ArchiveTable.MOVEMENT, 0);
+			assertThat(archiveManager.verifyAll()).hasSize(ArchiveTable.values().length).allMatch(ArchiveVerification::isValid);
+		} finally {
+			GeneralData.ARCHIVEHORIZON = horizon;
+		}
+	}
+
+	private Sms setupTestSms(LocalDateTime dateSched, boolean sent) throws Exception {
+		Sms sms = testSms.setup(false);
+		sms.setSmsDateSched(dateSched);
+		sms.setSmsDateSent(sent ? dateSched.plusMinutes(5) : null);
+		return smsIoOperationRepository.saveAndFlush(sms);
+	}
+
+	private Patient setupTestPatient() throws Exception {
+		return patientIoOperationRepository.saveAndFlush(testPatient.setup(false));
+	}
+
+	/**
+	 * Stores a closed bill, with an item and a payment of the same day, to be archived, and a later bill, which is never archived.
+	 */
+	private Bill setupArchivedBill() throws Exception {
+		Patient patient = setupTestPatient();
+		PriceList priceList = testPriceList.setup(false);
+		priceListIoOperationRepository.saveAndFlush(priceList);
+		Bill bill = setupTestBill(priceList, patient, "C");
+		accountingBillItemsIoOperationRepository.saveAndFlush(testBillItems.setup(bill, false));
+		BillPayments payment = testBillPayments.setup(bill, false);
+		payment.setDate(BILL_DATE.plusHours(1));
+		accountingBillPaymentIoOperationRepository.saveAndFlush(payment);
+		setupTestBill(priceList, setupTestPatient(), "C");
+		return bill;
+	}
+
+	private Bill setupTestBill(PriceList priceList, Patient patient, String status) throws Exception {
+		Bill bill = testBill.setup(priceList, patient, null, false);
+		bill.setDate(BILL_DATE);
+		bill.setStatus(status);
+		return accountingBillIoOperationRepository.saveAndFlush(bill);
+	}
+
+}
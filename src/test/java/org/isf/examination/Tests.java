@@ -25,7 +25,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -42,6 +45,7 @@ import org.isf.patient.TestPatient;
 import org.isf.patient.model.Patient;
 import org.isf.patient.model.PatientMergedEvent;
 import org.isf.patient.service.PatientIoOperationRepository;
+import org.isf.utils.exception.OHDataValidationException;
 import org.isf.utils.exception.OHException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.pagination.PagedResponse;
@@ -50,6 +54,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.AopTestUtils;
 
 class Tests extends OHCoreTestCase {
 
@@ -158,6 +163,44 @@ class Tests extends OHCoreTestCase {
 		checkPatientExaminationIntoDb(foundExamination.get(0).getPex_ID());
 	}
 
+	@Test
+	void testIoGetByPatIDPageableWithCursor() throws Exception {
+		Patient patient = setupTestPatient(false);
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			ids.add(examinationIoOperationRepository.saveAndFlush(testPatientExamination.setup(patient, false)).getPex_ID());
+		}
+		// same date for all the examinations: ties are ordered by id
+		ids.sort(Comparator.reverseOrder());
+
+		PagedResponse<PatientExamination> page = examinationOperations.getByPatIDPageable(patient.getCode(), null, 2, true);
+		assertThat(page.getData()).extracting(PatientExamination::getPex_ID).containsExactly(ids.get(0), ids.get(1));
+		assertThat(page.getPageInfo().getTotalNbOfElements()).isEqualTo(5);
+		assertThat(page.getPageInfo().isHasPreviousPage()).isFalse();
+		assertThat(page.getPageInfo().getPreviousCursor()).isNull();
+
+		page = examinationOperations.getByPatIDPageable(patient.getCode(), page.getPageInfo().getNextCursor(), 2, false);
+		assertThat(page.getData()).extracting(PatientExamination::getPex_ID).containsExactly(ids.get(2), ids.get(3));
+		assertThat(page.getPageInfo().getTotalNbOfElements()).isEqualTo(-1);
+		String tamperedCursor = tamper(page.getPageInfo().getNextCursor());
+
+		page = examinationOperations.getByPatIDPageable(patient.getCode(), page.getPageInfo().getNextCursor(), 2, false);
+		assertThat(page.getData()).extracting(PatientExamination::getPex_ID).containsExactly(ids.get(4));
+		assertThat(page.getPageInfo().isHasNextPage()).isFalse();
+		assertThat(page.getPageInfo().getNextCursor()).isNull();
+
+		page = examinationOperations.getByPatIDPageable(patient.getCode(), page.getPageInfo().getPreviousCursor(), 2, false);
+		assertThat(page.getData()).extracting(PatientExamination::getPex_ID).containsExactly(ids.get(2), ids.get(3));
+		assertThat(page.getPageInfo().isHasNextPage()).isTrue();
+
+		page = examinationOperations.getByPatIDPageable(patient.getCode(), page.getPageInfo().getPreviousCursor(), 2, false);
+		assertThat(page.getData()).extracting(PatientExamination::getPex_ID).containsExactly(ids.get(0), ids.get(1));
+		assertThat(page.getPageInfo().isHasPreviousPage()).isFalse();
+
+		assertThatThrownBy(() -> examinationOperations.getByPatIDPageable(patient.getCode(), tamperedCursor, 2, false))
+				.isInstanceOf(OHDataValidationException.class);
+	}
+
 	@Test
 	void testIoRemove() throws Exception {
 		int id = setupTestPatientExamination(false);
@@ -440,6 +483,12 @@ class Tests extends OHCoreTestCase {
 		return patientExamination.getPex_ID();
 	}
 
+	private static String tamper(String cursor) {
+		// a cursor whose id is not a number any more
+		String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.replaceFirst("\\|\\d+$", "|x").getBytes(StandardCharsets.UTF_8));
+	}
+
 	private void checkPatientExaminationIntoDb(int id) throws OHException {
 		PatientExamination foundPatientExamination = examinationIoOperationRepository.findById(id).orElse(null);
 		assertThat(foundPatientExamination).isNotNull();
@@ -448,17 +497,17 @@ class Tests extends OHCoreTestCase {
 	}
 
 	private void resetHashMaps() throws Exception {
-		Field diuresisDescriptionHashMap = examinationBrowserManager.getClass().getDeclaredField("diuresisDescriptionHashMap");
+		Field diuresisDescriptionHashMap = ExaminationBrowserManager.class.getDeclaredField("diuresisDescriptionHashMap");
 		diuresisDescriptionHashMap.setAccessible(true);
-		diuresisDescriptionHashMap.set(examinationBrowserManager, null);
+		diuresisDescriptionHashMap.set(AopTestUtils.getTargetObject(examinationBrowserManager), null);
 
-		Field bowelDescriptionHashMap = examinationBrowserManager.getClass().getDeclaredField("bowelDescriptionHashMap");
+		Field bowelDescriptionHashMap = ExaminationBrowserManager.class.getDeclaredField("bowelDescriptionHashMap");
 		bowelDescriptionHashMap.setAccessible(true);
-		bowelDescriptionHashMap.set(examinationBrowserManager, null);
+		bowelDescriptionHashMap.set(AopTestUtils.getTargetObject(examinationBrowserManager), null);
 
-		Field auscultationHashMap = examinationBrowserManager.getClass().getDeclaredField("auscultationHashMap");
+		Field auscultationHashMap = ExaminationBrowserManager.class.getDeclaredField("auscultationHashMap");
 		auscultationHashMap.setAccessible(true);
-		auscultationHashMap.set(examinationBrowserManager, null);
+		auscultationHashMap.set(AopTestUtils.getTargetObject(examinationBrowserManager), null);
 	}
 
 	private void setKnownKeyValueInHashMaps() throws Exception {
@@ -467,21 +516,21 @@ class Tests extends OHCoreTestCase {
 		knownValues.put("knownKey", "knownValue");
 		knownValues.put("key3", "value3");
 
-		Field diuresisDescriptionHashMap = examinationBrowserManager.getClass().getDeclaredField("diuresisDescriptionHashMap");
+		Field diuresisDescriptionHashMap = ExaminationBrowserManager.class.getDeclaredField("diuresisDescriptionHashMap");
 		diuresisDescriptionHashMap.setAccessible(true);
-		diuresisDescriptionHashMap.set(examinationBrowserManager, knownValues);
+		diuresisDescriptionHashMap.set(AopTestUtils.getTargetObject(examinationBrowserManager), knownValues);
 
-		Field bowelDescriptionHashMap = examinationBrowserManager.getClass().getDeclaredField("bowelDescriptionHashMap");
+		Field bowelDescriptionHashMap = ExaminationBrowserManager.class.getDeclaredField("bowelDescriptionHashMap");
 		bowelDescriptionHashMap.setAccessible(true);
-		bowelDescriptionHashMap.set(examinationBrowserManager, knownValues);
+		bowelDescriptionHashMap.set(AopTestUtils.getTargetObject(examinationBrowserManager), knownValues);
 
 		Map<String, String> linkedKnownValues = new LinkedHashMap<>(3);
 		linkedKnownValues.put("key1", "value1");
 		linkedKnownValues.put("knownKey", "knownValue");
 		linkedKnownValues.put("key3", "value3");
 
-		Field auscultationHashMap = examinationBrowserManager.getClass().getDeclaredField("auscultationHashMap");
+		Field auscultationHashMap = ExaminationBrowserManager.class.getDeclaredField("auscultationHashMap");
 		auscultationHashMap.setAccessible(true);
-		auscultationHashMap.set(examinationBrowserManager, linkedKnownValues);
+		auscultationHashMap.set(AopTestUtils.getTargetObject(examinationBrowserManager), linkedKnownValues);
 	}
 }
\ No newline at end of file
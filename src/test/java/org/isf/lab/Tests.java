@@ -26,11 +26,15 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assumptions.assumeThat;
 
 import java.lang.reflect.Method;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Stream;
 
 import org.isf.OHCoreTestCase;
+import org.isf.archive.manager.ArchiveManager;
+import org.isf.archive.model.ArchiveTable;
 import org.isf.exa.TestExam;
 import org.isf.exa.model.Exam;
 import org.isf.exa.service.ExamIoOperationRepository;
@@ -57,6 +61,7 @@ import org.isf.utils.pagination.PagedResponse;
 import org.isf.utils.time.TimeTools;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -66,6 +71,7 @@ import org.springframework.context.ApplicationEventPublisher;
 class Tests extends OHCoreTestCase {
 
 	private static final String DRAFT = LaboratoryStatus.draft.toString();
+	private static final LocalDateTime ARCHIVED_LAB_DATE = LocalDateTime.of(2012, 3, 4, 10, 0, 0);
 	private static TestLaboratory testLaboratory;
 	private static TestLaboratoryRow testLaboratoryRow;
 	private static TestExam testExam;
@@ -90,6 +96,8 @@ class Tests extends OHCoreTestCase {
 	PatientIoOperationRepository patientIoOperationRepository;
 	@Autowired
 	private ApplicationEventPublisher applicationEventPublisher;
+	@Autowired
+	ArchiveManager archiveManager;
 
 	@BeforeAll
 	static void setUpClass() {
@@ -302,6 +310,189 @@ class Tests extends OHCoreTestCase {
 		assertThat(laboratories.get(0).getCode()).isEqualTo(foundLaboratory.getCode());
 	}
 
+	@ParameterizedTest(name = "Test with LABEXTENDED={0}")
+	@MethodSource("labExtended")
+	void testIoGetLaboratoryForPrintPageable(boolean labExtended) throws Exception {
+		GeneralData.LABEXTENDED = labExtended;
+		Integer id = setupTestLaboratory(false);
+		Laboratory foundLaboratory = labIoOperationRepository.findById(id).orElse(null);
+		assertThat(foundLaboratory).isNotNull();
+
+		PagedResponse<LaboratoryForPrint> laboratories = labIoOperation.getLaboratoryForPrintPageable(foundLaboratory.getExam().getDescription(),
+				foundLaboratory.getLabDate(), foundLaboratory.getLabDate(), foundLaboratory.getPatient(), 0, 10);
+
+		assertThat(laboratories.getPageInfo().getTotalNbOfElements()).isEqualTo(1);
+		LaboratoryForPrint laboratoryForPrint = laboratories.getData().get(0);
+		assertThat(laboratoryForPrint.getCode()).isEqualTo(foundLaboratory.getCode());
+		assertThat(laboratoryForPrint.getExam()).isEqualTo(foundLaboratory.getExam().getDescription());
+		assertThat(laboratoryForPrint.getPatName()).isEqualTo(foundLaboratory.getPatName());
+	}
+
+	@ParameterizedTest(name = "Test with LABEXTENDED={0}")
+	@MethodSource("labExtended")
+	void testIoGetLaboratoryPageableWithCursor(boolean labExtended) throws Exception {
+		GeneralData.LABEXTENDED = labExtended;
+		Integer id = setupTestLaboratory(false);
+		Laboratory foundLaboratory = labIoOperationRepository.findById(id).orElse(null);
+		assertThat(foundLaboratory).isNotNull();
+		List<Integer> codes = new ArrayList<>();
+		codes.add(id);
+		for (int i = 0; i < 4; i++) {
+			Laboratory laboratory = testLaboratory.setup(foundLaboratory.getExam(), foundLaboratory.getPatient(), false);
+			codes.add(labIoOperationRepository.saveAndFlush(laboratory).getCode());
+		}
+		// same date for all the exams: ties are ordered by code
+		codes.sort(Comparator.reverseOrder());
+
+		PagedResponse<Laboratory> page = labIoOperation.getLaboratoryPageable(null, foundLaboratory.getLabDate(), foundLaboratory.getLabDate(), null, null,
+				2, true);
+		assertThat(page.getData()).extracting(Laboratory::getCode).containsExactly(codes.get(0), codes.get(1));
+		assertThat(page.getPageInfo().getTotalNbOfElements()).isEqualTo(5);
+		assertThat(page.getPageInfo().isHasPreviousPage()).isFalse();
+		assertThat(page.getPageInfo().getPreviousCursor()).isNull();
+
+		page = labIoOperation.getLaboratoryPageable(null, foundLaboratory.getLabDate(), foundLaboratory.getLabDate(), null,
+				page.getPageInfo().getNextCursor(), 2, false);
+		assertThat(page.getData()).extracting(Laboratory::getCode).containsExactly(codes.get(2), codes.get(3));
+		assertThat(page.getPageInfo().getTotalNbOfElements()).isEqualTo(-1);
+
+		page = labIoOperation.getLaboratoryPageable(null, foundLaboratory.getLabDate(), foundLaboratory.getLabDate(), null,
+				page.getPageInfo().getNextCursor(), 2, false);
+		assertThat(page.getData()).extracting(Laboratory::getCode).containsExactly(codes.get(4));
+		assertThat(page.getPageInfo().isHasNextPage()).isFalse();
+		assertThat(page.getPageInfo().getNextCursor()).isNull();
+
+		page = labIoOperation.getLaboratoryPageable(null, foundLaboratory.getLabDate(), foundLaboratory.getLabDate(), null,
+				page.getPageInfo().getPreviousCursor(), 2, false);
+		assertThat(page.getData()).extracting(Laboratory::getCode).containsExactly(codes.get(2), codes.get(3));
+		assertThat(page.getPageInfo().isHasNextPage()).isTrue();
+
+		page = labIoOperation.getLaboratoryPageable(null, foundLaboratory.getLabDate(), foundLaboratory.getLabDate(), null,
+				page.getPageInfo().getPreviousCursor(), 2, false);
+		assertThat(page.getData()).extracting(Laboratory::getCode).containsExactly(codes.get(0), codes.get(1));
+		assertThat(page.getPageInfo().isHasPreviousPage()).isFalse();
+
+		assertThatThrownBy(() -> labIoOperation.getLaboratoryPageable(null, foundLaboratory.getLabDate(), foundLaboratory.getLabDate(), null,
+				"not a cursor", 2, false))
+				.isInstanceOf(OHDataValidationException.class);
+	}
+
+	@ParameterizedTest(name = "Test with LABEXTENDED={0}")
+	@MethodSource("labExtended")
+	void testIoGetLaboratoryForPrintStream(boolean labExtended) throws Exception {
+		GeneralData.LABEXTENDED = labExtended;
+		Integer id = setupTestLaboratory(false);
+		Laboratory foundLaboratory = labIoOperationRepository.findById(id).orElse(null);
+		assertThat(foundLaboratory).isNotNull();
+
+		try (Stream<LaboratoryForPrint> laboratories = labIoOperation.getLaboratoryForPrintStream(null, foundLaboratory.getLabDate(),
+				foundLaboratory.getLabDate(), null)) {
+			assertThat(laboratories).extracting(LaboratoryForPrint::getCode).containsExactly(foundLaboratory.getCode());
+		}
+	}
+
+	@Test
+	void testIoGetLaboratoryWithPatientIncludesArchived() throws Exception {
+		List<Laboratory> laboratories = setupArchivedLaboratories();
+		Laboratory archived = laboratories.get(0);
+		Laboratory hot = laboratories.get(1);
+
+		assertThat(labIoOperation.getLaboratory(archived.getExam().getDescription(), ARCHIVED_LAB_DATE, ARCHIVED_LAB_DATE, archived.getPatient()))
+				.extracting(Laboratory::getCode).containsExactly(hot.getCode(), archived.getCode());
+		assertThat(labIoOperation.getLaboratory("", ARCHIVED_LAB_DATE, ARCHIVED_LAB_DATE, null)).extracting(Laboratory::getCode)
+				.containsExactly(hot.getCode(), archived.getCode());
+	}
+
+	@Test
+	void testIoGetLaboratoryForPrintIncludesArchived() throws Exception {
+		List<Laboratory> laboratories = setupArchivedLaboratories();
+		Laboratory archived = laboratories.get(0);
+		Laboratory hot = laboratories.get(1);
+
+		List<LaboratoryForPrint> laboratoriesForPrint = labIoOperation.getLaboratoryForPrint(archived.getExam().getDescription(), ARCHIVED_LAB_DATE,
+				ARCHIVED_LAB_DATE, archived.getPatient());
+
+		assertThat(laboratoriesForPrint).extracting(LaboratoryForPrint::getCode).containsExactly(hot.getCode(), archived.getCode());
+		assertThat(laboratoriesForPrint.get(1).getExam()).isEqualTo(archived.getExam().getDescription());
+		assertThat(laboratoriesForPrint.get(1).getPatName()).isEqualTo(archived.getPatName());
+	}
+
+	@Test
+	void testIoGetLaboratoryForPrintByExamTypeIncludesArchived() throws Exception {
+		List<Laboratory> laboratories = setupArchivedLaboratories();
+		Laboratory archived = laboratories.get(0);
+		Laboratory hot = laboratories.get(1);
+
+		assertThat(labIoOperation.getLaboratoryForPrint(archived.getExam().getDescription(), ARCHIVED_LAB_DATE, ARCHIVED_LAB_DATE))
+				.extracting(LaboratoryForPrint::getCode).containsExactlyInAnyOrder(hot.getCode(), archived.getCode());
+	}
+
+	@Test
+	void testIoGetLaboratoryForPrintPageableIncludesArchived() throws Exception {
+		List<Laboratory> laboratories = setupArchivedLaboratories();
+		Laboratory archived = laboratories.get(0);
+		Laboratory hot = laboratories.get(1);
+
+		PagedResponse<LaboratoryForPrint> page = labIoOperation.getLaboratoryForPrintPageable(null, ARCHIVED_LAB_DATE, ARCHIVED_LAB_DATE, null, 0, 1);
+		assertThat(page.getData()).extracting(LaboratoryForPrint::getCode).containsExactly(hot.getCode());
+		assertThat(page.getPageInfo().getTotalNbOfElements()).isEqualTo(2);
+
+		page = labIoOperation.getLaboratoryForPrintPageable(null, ARCHIVED_LAB_DATE, ARCHIVED_LAB_DATE, null, 1, 1);
+		assertThat(page.getData()).extracting(LaboratoryForPrint::getCode).containsExactly(archived.getCode());
+	}
+
+	@Test
+	void testIoGetLaboratoryForPrintStreamIncludesArchived() throws Exception {
+		List<Laboratory> laboratories = setupArchivedLaboratories();
+		Laboratory archived = laboratories.get(0);
+		Laboratory hot = laboratories.get(1);
+
+		try (Stream<LaboratoryForPrint> laboratoriesForPrint = labIoOperation.getLaboratoryForPrintStream(null, ARCHIVED_LAB_DATE, ARCHIVED_LAB_DATE,
+				null)) {
+			assertThat(laboratoriesForPrint).extracting(LaboratoryForPrint::getCode).containsExactly(hot.getCode(), archived.getCode());
+		}
+	}
+
+	@Test
+	void testIoGetLaboratoryPageableIncludesArchived() throws Exception {
+		List<Laboratory> laboratories = setupArchivedLaboratories();
+		Laboratory archived = laboratories.get(0);
+		Laboratory hot = laboratories.get(1);
+
+		PagedResponse<Laboratory> page = labIoOperation.getLaboratoryPageable(archived.getExam().getDescription(), ARCHIVED_LAB_DATE,
+				ARCHIVED_LAB_DATE, archived.getPatient(), 0, 1);
+		assertThat(page.getData()).extracting(Laboratory::getCode).containsExactly(hot.getCode());
+		assertThat(page.getPageInfo().getTotalNbOfElements()).isEqualTo(2);
+
+		page = labIoOperation.getLaboratoryPageable(archived.getExam().getDescription(), ARCHIVED_LAB_DATE, ARCHIVED_LAB_DATE,
+				archived.getPatient(), 1, 1);
+		assertThat(page.getData()).extracting(Laboratory::getCode).containsExactly(archived.getCode());
+
+		page = labIoOperation.getLaboratoryPageable(false, 0, 1);
+		assertThat(page.getData()).extracting(Laboratory::getCode).containsExactly(archived.getCode());
+		assertThat(page.getPageInfo().getTotalNbOfElements()).isEqualTo(2);
+	}
+
+	@Test
+	void testIoGetLaboratoryPageableWithCursorIncludesArchived() throws Exception {
+		List<Laboratory> laboratories = setupArchivedLaboratories();
+		Laboratory archived = laboratories.get(0);
+		Laboratory hot = laboratories.get(1);
+
+		PagedResponse<Laboratory> page = labIoOperation.getLaboratoryPageable(null, ARCHIVED_LAB_DATE, ARCHIVED_LAB_DATE, null, null, 1, true);
+		assertThat(page.getData()).extracting(Laboratory::getCode).containsExactly(hot.getCode());
+		assertThat(page.getPageInfo().getTotalNbOfElements()).isEqualTo(2);
+
+		page = labIoOperation.getLaboratoryPageable(null, ARCHIVED_LAB_DATE, ARCHIVED_LAB_DATE, null, page.getPageInfo().getNextCursor(), 1, false);
+		assertThat(page.getData()).extracting(Laboratory::getCode).containsExactly(archived.getCode());
+		assertThat(page.getPageInfo().isHasNextPage()).isFalse();
+
+		page = labIoOperation.getLaboratoryPageable(null, ARCHIVED_LAB_DATE, ARCHIVED_LAB_DATE, null, page.getPageInfo().getPreviousCursor(), 1,
+				false);
+		assertThat(page.getData()).extracting(Laboratory::getCode).containsExactly(hot.getCode());
+		assertThat(page.getPageInfo().isHasPreviousPage()).isFalse();
+	}
+
 	@ParameterizedTest(name = "Test with LABEXTENDED={0}")
 	@MethodSource("labExtended")
 	void testIoNewLabFirstProcedure(boolean labExtended) throws Exception {
@@ -1753,6 +1944,28 @@ class Tests extends OHCoreTestCase {
 		return laboratory.getCode();
 	}
 
+	/**
+	 * Stores two done exams of the same day and archives the first one: the exam with the highest id is never archived.
+	 */
+	private List<Laboratory> setupArchivedLaboratories() throws OHException {
+		ExamType examType = testExamType.setup(false);
+		Exam exam = testExam.setup(examType, 1, false);
+		Patient patient = testPatient.setup(false);
+		examTypeIoOperationRepository.saveAndFlush(examType);
+		examIoOperationRepository.saveAndFlush(exam);
+		patientIoOperationRepository.saveAndFlush(patient);
+		List<Laboratory> laboratories = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			Laboratory laboratory = testLaboratory.setup(exam, patient, false);
+			laboratory.setLabDate(ARCHIVED_LAB_DATE.plusHours(i));
+			laboratory.setStatus(LaboratoryStatus.done.toString());
+			laboratories.add(labIoOperationRepository.saveAndFlush(laboratory));
+		}
+		assertThat(archiveManager.archive(ArchiveTable.LABORATORY, LocalDateTime.now())).isEqualTo(1);
+		assertThat(labIoOperationRepository.findAll()).extracting(Laboratory::getCode).containsExactly(laboratories.get(1).getCode());
+		return laboratories;
+	}
+
 	private void checkLaboratoryIntoDb(Integer code) {
 		Laboratory foundLaboratory = labIoOperationRepository.findById(code).orElse(null);
 		assertThat(foundLaboratory).isNotNull();
@@ -175,6 +175,22 @@ class Tests extends OHCoreTestCase {
 		assertThat(malnutrition.getCode()).isEqualTo(code);
 	}
 
+	@Test
+	void testIoGetLastMalnutritionReturnsLatest() throws Exception {
+		int code = setupTestMalnutrition(false);
+		Malnutrition foundMalnutrition = malnutritionIoOperationRepository.findById(code).orElse(null);
+		assertThat(foundMalnutrition).isNotNull();
+		// inserted after, but dated before
+		Malnutrition earlier = testMalnutrition.setup(foundMalnutrition.getAdmission(), true);
+		earlier.setDateSupp(foundMalnutrition.getDateSupp().minusMonths(1));
+		malnutritionIoOperationRepository.saveAndFlush(earlier);
+
+		Malnutrition malnutrition = malnutritionIoOperation.getLastMalnutrition(foundMalnutrition.getAdmission().getId());
+
+		assertThat(malnutrition.getCode()).isEqualTo(code);
+		assertThat(malnutritionIoOperation.getLastMalnutrition(-1)).isNull();
+	}
+
 	@Test
 	void testIoUpdateMalnutrition() throws Exception {
 		int code = setupTestMalnutrition(false);
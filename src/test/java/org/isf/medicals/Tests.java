@@ -28,7 +28,9 @@ import java.util.List;
 
 import org.isf.OHCoreTestCase;
 import org.isf.medicals.manager.MedicalBrowsingManager;
+import org.isf.medicals.manager.MedicalSearchManager;
 import org.isf.medicals.model.Medical;
+import org.isf.medicals.model.MedicalQuantityChangedEvent;
 import org.isf.medicals.service.MedicalsIoOperationRepository;
 import org.isf.medicals.service.MedicalsIoOperations;
 import org.isf.medicalstock.TestLot;
@@ -49,6 +51,7 @@ import org.isf.supplier.service.SupplierIoOperationRepository;
 import org.isf.utils.exception.OHDataIntegrityViolationException;
 import org.isf.utils.exception.OHDataValidationException;
 import org.isf.utils.exception.OHException;
+import org.isf.utils.search.CatalogueIndex;
 import org.isf.ward.TestWard;
 import org.isf.ward.model.Ward;
 import org.isf.ward.service.WardIoOperationRepository;
@@ -56,6 +59,8 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.transaction.TestTransaction;
 
 class Tests extends OHCoreTestCase {
 
@@ -74,6 +79,8 @@ class Tests extends OHCoreTestCase {
 	@Autowired
 	MedicalBrowsingManager medicalBrowsingManager;
 	@Autowired
+	MedicalSearchManager medicalSearchManager;
+	@Autowired
 	MedicalTypeIoOperationRepository medicalTypeIoOperationRepository;
 	@Autowired
 	MovementIoOperationRepository movementIoOperationRepository;
@@ -85,6 +92,8 @@ class Tests extends OHCoreTestCase {
 	LotIoOperationRepository lotIoOperationRepository;
 	@Autowired
 	SupplierIoOperationRepository supplierIoOperationRepository;
+	@Autowired
+	ApplicationEventPublisher applicationEventPublisher;
 
 	@BeforeAll
 	static void setUpClass() {
@@ -402,6 +411,70 @@ class Tests extends OHCoreTestCase {
 		assertThat(medicals.get(medicals.size() - 1).getCode()).isEqualTo((Integer) code);
 	}
 
+	@Test
+	void testMgrSearchMedicals() throws Exception {
+		int code = setupTestMovement(false);
+		Movement foundMovement = movementIoOperationRepository.findById(code).orElse(null);
+		assertThat(foundMovement).isNotNull();
+		Medical usedMedical = foundMovement.getMedical();
+		Medical unusedMedical = new Medical(null, usedMedical.getType(), "TP2", "Test Parac\u00e9tamol", 10, 0, 50, 0);
+		medicalsIoOperationRepository.saveAndFlush(unusedMedical);
+		medicalSearchManager.invalidate();
+
+		// accents are folded, the medicals with more stock movements come first
+		assertThat(medicalSearchManager.searchMedicals("TEST", null, false, 10)).extracting(Medical::getCode)
+			.containsExactly(usedMedical.getCode(), unusedMedical.getCode());
+		assertThat(medicalSearchManager.searchMedicals("paracetamol", null, false, 10)).containsExactly(unusedMedical);
+		assertThat(medicalSearchManager.searchMedicals("tp2", usedMedical.getType().getCode(), false, 10)).containsExactly(unusedMedical);
+		assertThat(medicalSearchManager.searchMedicals("", null, true, 10)).extracting(Medical::getCode).containsExactly(usedMedical.getCode());
+		assertThat(medicalSearchManager.searchMedicals("test", "not a type", false, 10)).isEmpty();
+
+		// the index is refreshed when a medical changes
+		unusedMedical.setDescription("Ibuprofen");
+		medicalsIoOperations.updateMedical(unusedMedical);
+		assertThat(medicalSearchManager.searchMedicals("paracetamol", null, false, 10)).isEmpty();
+		assertThat(medicalSearchManager.searchMedicals("ibu", null, false, 10)).containsExactly(unusedMedical);
+
+		// the suggestions do not hit the database
+		startQueryCount();
+		assertThat(medicalSearchManager.searchMedicals("test", null, false, 1)).extracting(Medical::getCode).containsExactly(usedMedical.getCode());
+		assertQueryCount(0);
+	}
+
+	@Test
+	void testMgrSearchMedicalsQuantityChanged() throws Exception {
+		MedicalType medicalType = testMedicalType.setup(false);
+		medicalTypeIoOperationRepository.saveAndFlush(medicalType);
+		Medical medical = medicalsIoOperationRepository.saveAndFlush(new Medical(null, medicalType, "TP1", "Test Paracetamol", 10, 10, 50, 0));
+		medicalSearchManager.invalidate();
+		CatalogueIndex<Medical> index = medicalSearchManager.getIndex();
+		assertThat(medicalSearchManager.searchMedicals("", null, true, 10)).isEmpty();
+
+		// the stock movements change the quantities once committed, without loading the index again
+		medical.setInqty(55);
+		medical.setOutqty(50);
+		medicalsIoOperationRepository.saveAndFlush(medical);
+		applicationEventPublisher.publishEvent(new MedicalQuantityChangedEvent(medical.getCode(), 5, 50));
+		assertThat(medicalSearchManager.searchMedicals("", null, true, 10)).isEmpty();
+		// an index loaded meanwhile already includes the movement, which must not be counted twice
+		medicalSearchManager.reload();
+		startQueryCount();
+		TestTransaction.flagForCommit();
+		TestTransaction.end();
+		TestTransaction.start();
+		assertThat(medicalSearchManager.searchMedicals("", null, true, 10)).extracting(Medical::getTotalQuantity).containsExactly(5.0);
+		// only the stored quantities of the medical are read
+		assertQueryCount(1);
+		// the medical is replaced by an updated copy, the medicals already returned by the searches do not change
+		assertThat(medicalSearchManager.getIndex()).isNotSameAs(index);
+		assertThat(index.get(medical.getCode()).getTotalQuantity()).isEqualTo(50.0);
+
+		cleanH2InMemoryDb();
+		TestTransaction.flagForCommit();
+		TestTransaction.end();
+		TestTransaction.start();
+	}
+
 	@Test
 	void testMgrNewMedical() throws Exception {
 		MedicalType medicalType = testMedicalType.setup(false);
@@ -22,8 +22,10 @@
 package org.isf.medicalsinventory;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.isf.OHCoreTestCase;
@@ -42,10 +44,16 @@ import org.isf.medicals.model.Medical;
 import org.isf.medicals.service.MedicalsIoOperationRepository;
 import org.isf.medicalstock.TestLot;
 import org.isf.medicalstock.model.Lot;
+import org.isf.medicalstock.model.Movement;
 import org.isf.medicalstock.service.LotIoOperationRepository;
+import org.isf.medicalstock.service.MovementIoOperationRepository;
+import org.isf.medstockmovtype.TestMovementType;
+import org.isf.medstockmovtype.model.MovementType;
+import org.isf.medstockmovtype.service.MedicalDsrStockMovementTypeIoOperationRepository;
 import org.isf.medtype.TestMedicalType;
 import org.isf.medtype.model.MedicalType;
 import org.isf.medtype.service.MedicalTypeIoOperationRepository;
+import org.isf.utils.exception.OHDataValidationException;
 import org.isf.utils.exception.OHException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.time.TimeTools;
@@ -66,6 +74,7 @@ class Tests extends OHCoreTestCase {
 	private static TestMedical testMedical;
 	private static TestLot testLot;
 	private static TestMedicalType testMedicalType;
+	private static TestMovementType testMovementType;
 
 	@Autowired
 	MedicalInventoryManager medicalInventoryManager;
@@ -97,6 +106,12 @@ class Tests extends OHCoreTestCase {
 	@Autowired
 	LotIoOperationRepository lotIoOperationRepository;
 
+	@Autowired
+	MedicalDsrStockMovementTypeIoOperationRepository medicalDsrStockMovementTypeIoOperationRepository;
+
+	@Autowired
+	MovementIoOperationRepository movementIoOperationRepository;
+
 	@BeforeAll
 	static void setUpClass() {
 		testMedicalInventory = new TestMedicalInventory();
@@ -105,6 +120,7 @@ class Tests extends OHCoreTestCase {
 		testMedical = new TestMedical();
 		testLot = new TestLot();
 		testMedicalType = new TestMedicalType();
+		testMovementType = new TestMovementType();
 	}
 	
 	@BeforeEach
@@ -524,6 +540,41 @@ class Tests extends OHCoreTestCase {
 		
 	}
 
+	@Test
+	void testMgrValidateMedicalInventoryRow() throws Exception {
+		Ward ward = testWard.setup(false);
+		wardIoOperationRepository.saveAndFlush(ward);
+		MedicalInventory inventory = medicalInventoryIoOperation.newMedicalInventory(testMedicalInventory.setup(ward, false));
+		inventory.setLastModifiedDate(TimeTools.getNow().minusDays(1));
+		MedicalType medicalType = testMedicalType.setup(false);
+		medicalTypeIoOperationRepository.saveAndFlush(medicalType);
+		Medical medical = testMedical.setup(medicalType, false);
+		medicalsIoOperationRepository.saveAndFlush(medical);
+		MovementType movementType = testMovementType.setup(false);
+		medicalDsrStockMovementTypeIoOperationRepository.saveAndFlush(movementType);
+		List<MedicalInventoryRow> rows = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Lot lot = testLot.setup(medical, false);
+			lot.setCode("LOT" + i);
+			lotIoOperationRepository.saveAndFlush(lot);
+			if (i < 2) {
+				rows.add(medIvnRowIoOperation.newMedicalInventoryRow(testMedicalInventoryRow.setup(inventory, medical, lot, false)));
+			}
+			Movement movement = new Movement(medical, movementType, null, lot, TimeTools.getNow().minusHours(1), 10, null, "refNo");
+			movementIoOperationRepository.saveAndFlush(movement);
+		}
+
+		// the lots charged since the inventory was saved are added or updated with a constant number of statements
+		startQueryCount();
+		assertThatThrownBy(() -> medicalInventoryManager.validateMedicalInventoryRow(inventory, rows))
+				.isInstanceOf(OHDataValidationException.class);
+		assertWithinQueryBudget("MedicalInventoryManager.validateMedicalInventoryRow");
+		assertThat(medicalInventoryRowManager.getMedicalInventoryRowByInventoryId(inventory.getId()))
+				.extracting(MedicalInventoryRow::getTheoreticQty)
+				.containsOnly(10.0)
+				.hasSize(5);
+	}
+
 	private int setupTestMedicalInventory(boolean usingSet) throws OHException, OHServiceException {
 		Ward ward = testWard.setup(false);
 		MedicalInventory medicalInventory = testMedicalInventory.setup(ward, false);
@@ -38,6 +38,9 @@ import java.util.stream.Stream;
 
 import org.assertj.core.api.Condition;
 import org.isf.OHCoreTestCase;
+import org.isf.archive.manager.ArchiveManager;
+import org.isf.archive.model.ArchiveTable;
+import org.isf.archive.service.ArchiveIoOperations;
 import org.isf.generaldata.GeneralData;
 import org.isf.medicals.TestMedical;
 import org.isf.medicals.model.Medical;
@@ -122,6 +125,10 @@ class Tests extends OHCoreTestCase {
 	SupplierIoOperationRepository supplierIoOperationRepository;
 	@Autowired
 	ApplicationEventPublisher applicationEventPublisher;
+	@Autowired
+	ArchiveIoOperations archiveIoOperations;
+	@Autowired
+	ArchiveManager archiveManager;
 
 	static Stream<Arguments> automaticlot() {
 		return Stream.of(
@@ -626,6 +633,55 @@ class Tests extends OHCoreTestCase {
 		assertThat(result).isTrue();
 	}
 
+	@ParameterizedTest(name = "Test with AUTOMATICLOT_IN={0}, AUTOMATICLOT_OUT={1}, AUTOMATICLOTWARD_TOWARD={2}")
+	@MethodSource("automaticlot")
+	void testIoRefNoAndLotExistsQueryCount(boolean in, boolean out, boolean toward) throws Exception {
+		setGeneralData(in, out, toward);
+		// given:
+		int code = setupTestMovement(false);
+		Movement foundMovement = movementIoOperationRepository.findById(code).orElse(null);
+		assertThat(foundMovement).isNotNull();
+		entityManager.clear();
+		startQueryCount();
+
+		// when:
+		boolean refNoExists = medicalStockIoOperation.refNoExists(foundMovement.getRefNo());
+		boolean lotExists = medicalStockIoOperation.lotExists(foundMovement.getLot().getCode());
+		boolean missingRefNoExists = medicalStockIoOperation.refNoExists("NOT_A_REF_NO");
+
+		// then: each check is a single query, a missing reference is also probed in the archive once its watermark is read, and no movement
+		// or lot is materialized
+		assertThat(refNoExists).isTrue();
+		assertThat(lotExists).isTrue();
+		assertThat(missingRefNoExists).isFalse();
+		assertThat(assertQueryCount(5).getEntityLoads()).isZero();
+	}
+
+	@ParameterizedTest(name = "Test with AUTOMATICLOT_IN={0}, AUTOMATICLOT_OUT={1}, AUTOMATICLOTWARD_TOWARD={2}")
+	@MethodSource("automaticlot")
+	void testMgrArchiveMovementsOfExhaustedLots(boolean in, boolean out, boolean toward) throws Exception {
+		setGeneralData(in, out, toward);
+		int code = setupTestMovement(false);
+		Movement charge = movementIoOperationRepository.findById(code).orElseThrow();
+		MovementType dischargeType = medicalDsrStockMovementTypeIoOperationRepository.saveAndFlush(
+			new MovementType("ZZDISC", "TestDischarge", "-", "operational"));
+		movementIoOperationRepository.saveAndFlush(new Movement(charge.getMedical(), dischargeType, charge.getWard(),
+			charge.getLot(), charge.getDate().plusDays(1), charge.getQuantity(), charge.getSupplier(), "TestRefOut"));
+		// the movements of a lot still in stock are kept
+		Lot otherLot = testLot.setup(charge.getMedical(), false);
+		otherLot.setCode("654321");
+		lotIoOperationRepository.saveAndFlush(otherLot);
+		Movement otherCharge = movementIoOperationRepository.saveAndFlush(new Movement(charge.getMedical(), charge.getType(), charge.getWard(),
+			otherLot, charge.getDate(), charge.getQuantity(), charge.getSupplier(), "TestRefOther"));
+
+		assertThat(archiveManager.archive(ArchiveTable.MOVEMENT, LocalDateTime.now())).isEqualTo(2);
+
+		assertThat(movementIoOperationRepository.findAll()).extracting(Movement::getCode).containsExactly(otherCharge.getCode());
+		assertThat(archiveManager.verify(ArchiveTable.MOVEMENT).getArchivedCount()).isEqualTo(2);
+		// the reference numbers of archived movements stay in use
+		assertThat(medicalStockIoOperation.refNoExists("TestRefOut")).isTrue();
+	}
+
 	@ParameterizedTest(name = "Test with AUTOMATICLOT_IN={0}, AUTOMATICLOT_OUT={1}, AUTOMATICLOTWARD_TOWARD={2}")
 	@MethodSource("automaticlot")
 	void testIoGetMovementsByReference(boolean in, boolean out, boolean toward) throws Exception {
@@ -661,6 +717,40 @@ class Tests extends OHCoreTestCase {
 		assertThat(movements.get(0).getCode()).isEqualTo(foundMovement.getCode());
 	}
 
+	@ParameterizedTest(name = "Test with AUTOMATICLOT_IN={0}, AUTOMATICLOT_OUT={1}, AUTOMATICLOTWARD_TOWARD={2}")
+	@MethodSource("automaticlot")
+	void testMgrGetMovementsWithParametersQueryBudget(boolean in, boolean out, boolean toward) throws Exception {
+		setGeneralData(in, out, toward);
+		// given: movements of different lots
+		LocalDateTime fromDate = LocalDateTime.of(2000, 1, 1, 0, 0, 0);
+		LocalDateTime toDate = LocalDateTime.of(2000, 3, 3, 0, 0, 0);
+		int code = setupTestMovement(false);
+		Movement foundMovement = movementIoOperationRepository.findById(code).orElse(null);
+		assertThat(foundMovement).isNotNull();
+		for (int i = 0; i < 4; i++) {
+			Lot lot = testLot.setup(foundMovement.getMedical(), false);
+			lot.setCode("LOT" + i);
+			lotIoOperationRepository.saveAndFlush(lot);
+			movementIoOperationRepository.saveAndFlush(testMovement.setup(foundMovement.getMedical(), foundMovement.getType(), foundMovement.getWard(), lot,
+				foundMovement.getSupplier(), false));
+		}
+		entityManager.clear();
+		startQueryCount();
+
+		// when:
+		List<Movement> movements = movBrowserManager.getMovements(foundMovement.getWard().getCode(), fromDate, toDate);
+
+		// then: the movements are loaded in one go instead of one by one
+		assertThat(movements).hasSize(5).allSatisfy(movement -> {
+			assertThat(movement.getLot().getDueDate()).isNotNull();
+			assertThat(movement.getMedical().getDescription()).isNotNull();
+			assertThat(movement.getType().getDescription()).isNotNull();
+			assertThat(movement.getWard().getDescription()).isNotNull();
+			assertThat(movement.getSupplier().getSupName()).isNotNull();
+		});
+		assertWithinQueryBudget("MovBrowserManager.getMovements");
+	}
+
 	@ParameterizedTest(name = "Test with AUTOMATICLOT_IN={0}, AUTOMATICLOT_OUT={1}, AUTOMATICLOTWARD_TOWARD={2}")
 	@MethodSource("automaticlot")
 	void testMgrGetMovementsByReference(boolean in, boolean out, boolean toward) throws Exception {
@@ -890,6 +980,21 @@ class Tests extends OHCoreTestCase {
 		assertThat(newDischarging).hasSize(1);
 	}
 
+	@ParameterizedTest(name = "Test with AUTOMATICLOT_IN={0}, AUTOMATICLOT_OUT={1}, AUTOMATICLOTWARD_TOWARD={2}")
+	@MethodSource("automaticlot")
+	void testMgrPrepareDischargingMovementQueryBudget(boolean in, boolean out, boolean toward) throws Exception {
+		setGeneralData(in, out, toward);
+		int code = setupTestMovement(false);
+		entityManager.clear();
+		Movement movement = movementIoOperationRepository.findById(code).orElse(null);
+		assertThat(movement).isNotNull();
+		List<Movement> movements = new ArrayList<>(1);
+		movements.add(movement);
+		startQueryCount();
+		assertThat(movStockInsertingManager.newMultipleDischargingMovements(movements, "refNo")).hasSize(1);
+		assertWithinQueryBudget("MovStockInsertingManager.newMultipleDischargingMovements");
+	}
+
 	@ParameterizedTest(name = "Test with AUTOMATICLOT_IN={0}, AUTOMATICLOT_OUT={1}, AUTOMATICLOTWARD_TOWARD={2}")
 	@MethodSource("automaticlot")
 	void testMgrPrepareDischargingMovementBadRefNumber() {
@@ -1442,7 +1547,8 @@ class Tests extends OHCoreTestCase {
 		int remainQuantity = quantity - quantity / 2; // to overcome tests with not even quantities
 
 		MedicalStockIoOperations medicalStockIoOperation = new MedicalStockIoOperations(movementIoOperationRepository, lotIoOperationRepository,
-			medicalsIoOperationRepository, medicalStockIoOperationRepository, medicalStockWardIoOperationRepository);
+			medicalsIoOperationRepository, medicalStockIoOperationRepository, medicalStockWardIoOperationRepository, applicationEventPublisher,
+			archiveIoOperations);
 
 		Method method = medicalStockIoOperation.getClass().getDeclaredMethod("updateMedicalStockTable", Medical.class, LocalDate.class, int.class);
 		method.setAccessible(true);
@@ -1462,7 +1568,8 @@ class Tests extends OHCoreTestCase {
 		int quantity = movement.getQuantity();
 
 		MedicalStockIoOperations medicalStockIoOperation = new MedicalStockIoOperations(movementIoOperationRepository, lotIoOperationRepository,
-			medicalsIoOperationRepository, medicalStockIoOperationRepository, medicalStockWardIoOperationRepository);
+			medicalsIoOperationRepository, medicalStockIoOperationRepository, medicalStockWardIoOperationRepository, applicationEventPublisher,
+			archiveIoOperations);
 
 		Method method = medicalStockIoOperation.getClass().getDeclaredMethod("updateMedicalStockTable", Medical.class, LocalDate.class, int.class);
 		method.setAccessible(true);
@@ -1492,7 +1599,8 @@ class Tests extends OHCoreTestCase {
 		int quantity = 10;
 
 		MedicalStockIoOperations medicalStockIoOperation = new MedicalStockIoOperations(movementIoOperationRepository, lotIoOperationRepository,
-			medicalsIoOperationRepository, medicalStockIoOperationRepository, medicalStockWardIoOperationRepository);
+			medicalsIoOperationRepository, medicalStockIoOperationRepository, medicalStockWardIoOperationRepository, applicationEventPublisher,
+			archiveIoOperations);
 
 		Method method = medicalStockIoOperation.getClass().getDeclaredMethod("updateMedicalStockTable", Medical.class, LocalDate.class, int.class);
 		method.setAccessible(true);
@@ -1512,7 +1620,8 @@ class Tests extends OHCoreTestCase {
 			int quantity = -10;
 
 			MedicalStockIoOperations medicalStockIoOperation = new MedicalStockIoOperations(movementIoOperationRepository, lotIoOperationRepository,
-				medicalsIoOperationRepository, medicalStockIoOperationRepository, medicalStockWardIoOperationRepository);
+				medicalsIoOperationRepository, medicalStockIoOperationRepository, medicalStockWardIoOperationRepository, applicationEventPublisher,
+				archiveIoOperations);
 
 			Method method = medicalStockIoOperation.getClass().getDeclaredMethod("updateMedicalStockTable", Medical.class, LocalDate.class, int.class);
 			method.setAccessible(true);
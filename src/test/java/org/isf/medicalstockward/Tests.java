@@ -533,6 +533,36 @@ class Tests extends OHCoreTestCase {
 		assertThat(movements.get(0).getCode()).isEqualTo(foundMovement.getCode());
 	}
 
+	@Test
+	void testMgrGetMovementWardQueryBudget() throws Exception {
+		// given: ward movements of different patients
+		int code = setupTestMovementWard(false);
+		MovementWard foundMovement = movementWardIoOperationRepository.findById(code).orElse(null);
+		assertThat(foundMovement).isNotNull();
+		for (int i = 0; i < 4; i++) {
+			Patient patient = patientIoOperationRepository.saveAndFlush(testPatient.setup(false));
+			movementWardIoOperationRepository.saveAndFlush(testMovementWard.setup(foundMovement.getWard(), patient, foundMovement.getMedical(),
+				foundMovement.getWardTo(), foundMovement.getWardFrom(), foundMovement.getLot(), false));
+		}
+		entityManager.clear();
+		LocalDateTime fromDate = foundMovement.getDate().minusDays(1);
+		LocalDateTime toDate = foundMovement.getDate().plusDays(1);
+		startQueryCount();
+
+		// when:
+		List<MovementWard> movements = movWardBrowserManager.getMovementWard(foundMovement.getWard().getCode(), fromDate, toDate);
+
+		// then: the movements are loaded in one go instead of one by one
+		assertThat(movements).hasSize(5).allSatisfy(movement -> {
+			assertThat(movement.getPatient().getName()).isNotNull();
+			assertThat(movement.getPatient().getPatientConsensus()).isNotNull();
+			assertThat(movement.getMedical().getDescription()).isNotNull();
+			assertThat(movement.getLot().getDueDate()).isNotNull();
+			assertThat(movement.getWardTo().getDescription()).isNotNull();
+		});
+		assertWithinQueryBudget("MovWardBrowserManager.getMovementWard");
+	}
+
 	@Test
 	void testMgrGetWardMovementsToWard() throws Exception {
 		int code = setupTestMovementWard(false);
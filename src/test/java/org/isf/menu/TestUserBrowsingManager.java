@@ -23,14 +23,23 @@ package org.isf.menu;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.util.List;
+import java.util.Map;
 
 import org.isf.OHCoreTestCase;
 import org.isf.generaldata.GeneralData;
 import org.isf.menu.manager.UserBrowsingManager;
+import org.isf.menu.manager.UserLoginJournal;
 import org.isf.menu.model.User;
 import org.isf.menu.model.UserGroup;
+import org.isf.menu.service.MenuIoOperations;
 import org.isf.menu.service.UserGroupIoOperationRepository;
 import org.isf.menu.service.UserIoOperationRepository;
 import org.isf.utils.exception.OHDataValidationException;
@@ -39,6 +48,7 @@ import org.isf.utils.time.TimeTools;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 
 class TestUserBrowsingManager extends OHCoreTestCase {
@@ -121,6 +131,79 @@ class TestUserBrowsingManager extends OHCoreTestCase {
 		assertThat(user.getFailedAttempts()).isEqualTo(failedAttempts + 1);
 	}
 
+	@Test
+	void testLoginBookkeepingIsVisibleBeforeBeingWritten() throws Exception {
+		String userName = setupTestUser(false);
+		User user = userBrowsingManager.getUserByName(userName);
+		int failedAttempts = user.getFailedAttempts();
+		// the login path works on detached users
+		entityManager.clear();
+
+		userBrowsingManager.increaseFailedAttempts(user);
+		userBrowsingManager.increaseFailedAttempts(user);
+		userBrowsingManager.setLastLogin(user);
+		assertThat(user.getFailedAttempts()).isEqualTo(failedAttempts + 2);
+
+		User updatedUser = userBrowsingManager.getUserByName(userName);
+		assertThat(updatedUser.getFailedAttempts()).isEqualTo(failedAttempts + 2);
+		assertThat(updatedUser.getLastLogin()).isEqualTo(user.getLastLogin());
+		entityManager.clear();
+
+		userBrowsingManager.unlockUser(user);
+		updatedUser = userBrowsingManager.getUserByName(userName);
+		assertThat(updatedUser.getFailedAttempts()).isZero();
+		assertThat(updatedUser.getLastLogin()).isNull();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testLoginBookkeepingRecordedWhileWriting() throws Exception {
+		MenuIoOperations ioOperations = mock(MenuIoOperations.class);
+		UserLoginJournal journal = new UserLoginJournal(ioOperations);
+		try {
+			// a new failed attempt is recorded while the first batch is being written
+			doAnswer(invocation -> {
+				journal.recordFailedAttempts("user", 2);
+				return null;
+			}).doNothing().when(ioOperations).updateFailedAttempts(anyMap());
+			journal.recordFailedAttempts("user", 1);
+
+			journal.flush();
+
+			ArgumentCaptor<Map<String, Integer>> written = ArgumentCaptor.forClass(Map.class);
+			verify(ioOperations, times(2)).updateFailedAttempts(written.capture());
+			assertThat(written.getAllValues()).containsExactly(Map.of("user", 1), Map.of("user", 2));
+			User user = new User();
+			user.setUserName("user");
+			user.setFailedAttempts(0);
+			assertThat(journal.apply(user).getFailedAttempts()).isZero();
+		} finally {
+			journal.close();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testLoginBookkeepingRetriedAfterFailedWrite() throws Exception {
+		MenuIoOperations ioOperations = mock(MenuIoOperations.class);
+		UserLoginJournal journal = new UserLoginJournal(ioOperations);
+		try {
+			doThrow(new IllegalStateException("database unavailable")).doNothing().when(ioOperations).updateFailedAttempts(anyMap());
+			journal.recordFailedAttempts("user", 1);
+
+			// the first write fails, the entry is kept and written again by the next flush or the scheduled retry
+			journal.flush();
+			journal.flush();
+
+			ArgumentCaptor<Map<String, Integer>> written = ArgumentCaptor.forClass(Map.class);
+			verify(ioOperations, times(2)).updateFailedAttempts(written.capture());
+			assertThat(written.getAllValues()).containsExactly(Map.of("user", 1), Map.of("user", 1));
+			assertThat(journal.getPendingCount()).isZero();
+		} finally {
+			journal.close();
+		}
+	}
+
 	@Test
 	void testLockUser() throws Exception {
 		String userName = setupTestUser(false);
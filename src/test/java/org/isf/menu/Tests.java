@@ -38,6 +38,7 @@ import org.isf.menu.service.MenuIoOperations;
 import org.isf.menu.service.UserGroupIoOperationRepository;
 import org.isf.menu.service.UserIoOperationRepository;
 import org.isf.menu.service.UserMenuItemIoOperationRepository;
+import org.isf.permissions.manager.AuthorizationSnapshotManager;
 import org.isf.permissions.manager.GroupPermissionManager;
 import org.isf.permissions.model.GroupPermission;
 import org.isf.permissions.model.Permission;
@@ -74,6 +75,8 @@ class Tests extends OHCoreTestCase {
 	private PermissionIoOperationRepository permissionIoOperationRepository;
 	@Autowired
 	private GroupPermissionManager groupPermissionManager;
+	@Autowired
+	private AuthorizationSnapshotManager authorizationSnapshotManager;
 
 	@BeforeAll
 	static void setUpClass() {
@@ -86,6 +89,7 @@ class Tests extends OHCoreTestCase {
 	@BeforeEach
 	void setUp() {
 		cleanH2InMemoryDb();
+		authorizationSnapshotManager.invalidateAll();
 	}
 
 	@Test
@@ -487,6 +491,14 @@ class Tests extends OHCoreTestCase {
 		groupMenuIoOperationRepository.saveAndFlush(groupMenu);
 		List<UserMenuItem> menus = userBrowsingManager.getMenu(user);
 		assertThat(menus.get(menus.size() - 1).getCode()).isEqualTo(menuItem.getCode());
+
+		// served from the snapshot of the group
+		startQueryCount();
+		menus = userBrowsingManager.getMenu(user);
+		assertThat(assertQueryCount(0).getEntityLoads()).isZero();
+		assertThat(menus.get(menus.size() - 1).getCode()).isEqualTo(menuItem.getCode());
+		assertThat(userBrowsingManager.getMenu(new User(user.getUserName(), null, null, null)))
+				.extracting(UserMenuItem::getCode).contains(menuItem.getCode());
 	}
 
 	@Test
@@ -24,13 +24,23 @@ package org.isf.opd;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatNoException;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Stream;
 
 import org.assertj.core.api.Condition;
 import org.isf.OHCoreTestCase;
+import org.isf.agetype.model.AgeType;
+import org.isf.agetype.service.AgeTypeIoOperationRepository;
+import org.isf.archive.manager.ArchiveManager;
+import org.isf.archive.model.ArchiveTable;
 import org.isf.disease.TestDisease;
 import org.isf.disease.model.Disease;
 import org.isf.disease.service.DiseaseIoOperationRepository;
@@ -40,6 +50,7 @@ import org.isf.distype.service.DiseaseTypeIoOperationRepository;
 import org.isf.generaldata.GeneralData;
 import org.isf.opd.manager.OpdBrowserManager;
 import org.isf.opd.model.Opd;
+import org.isf.opd.model.OpdStatistic;
 import org.isf.opd.service.OpdIoOperationRepository;
 import org.isf.opd.service.OpdIoOperations;
 import org.isf.patient.TestPatient;
@@ -49,6 +60,7 @@ import org.isf.patient.service.PatientIoOperationRepository;
 import org.isf.utils.exception.OHDataValidationException;
 import org.isf.utils.exception.OHException;
 import org.isf.utils.exception.OHServiceException;
+import org.isf.utils.pagination.PagedResponse;
 import org.isf.utils.time.TimeTools;
 import org.isf.visits.TestVisit;
 import org.isf.visits.model.Visit;
@@ -63,6 +75,8 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 class Tests extends OHCoreTestCase {
 
@@ -86,11 +100,15 @@ class Tests extends OHCoreTestCase {
 	@Autowired
 	OpdBrowserManager opdBrowserManager;
 	@Autowired
+	ArchiveManager archiveManager;
+	@Autowired
 	DiseaseTypeIoOperationRepository diseaseTypeIoOperationRepository;
 	@Autowired
 	DiseaseIoOperationRepository diseaseIoOperationRepository;
 	@Autowired
 	ApplicationEventPublisher applicationEventPublisher;
+	@Autowired
+	AgeTypeIoOperationRepository ageTypeIoOperationRepository;
 
 	@BeforeAll
 	static void setUpClass() {
@@ -149,6 +167,50 @@ class Tests extends OHCoreTestCase {
 		assertThat(opds.get(opds.size() - 1).getCode()).isEqualTo(foundOpd.getCode());
 	}
 
+	@ParameterizedTest(name = "Test with OPDEXTENDED={0}")
+	@MethodSource("opdExtended")
+	void testIoGetOpdListPageableWithCursor(boolean opdExtended) throws Exception {
+		GeneralData.OPDEXTENDED = opdExtended;
+		int code = setupTestOpd(false);
+		Opd foundOpd = opdIoOperationRepository.findById(code).orElse(null);
+		assertThat(foundOpd).isNotNull();
+		List<Integer> codes = new ArrayList<>();
+		codes.add(code);
+		for (int i = 0; i < 4; i++) {
+			Opd opd = testOpd.setup(foundOpd.getPatient(), foundOpd.getDisease(), foundOpd.getWard(), null, false);
+			codes.add(opdIoOperationRepository.saveAndFlush(opd).getCode());
+		}
+		// same date for all the OPDs: ties are ordered by code
+		codes.sort(Comparator.reverseOrder());
+
+		PagedResponse<Opd> page = getOpdListPageable(foundOpd, null, true);
+		assertThat(page.getData()).extracting(Opd::getCode).containsExactly(codes.get(0), codes.get(1));
+		assertThat(page.getPageInfo().getTotalNbOfElements()).isEqualTo(5);
+		assertThat(page.getPageInfo().isHasPreviousPage()).isFalse();
+		assertThat(page.getPageInfo().getPreviousCursor()).isNull();
+
+		page = getOpdListPageable(foundOpd, page.getPageInfo().getNextCursor(), false);
+		assertThat(page.getData()).extracting(Opd::getCode).containsExactly(codes.get(2), codes.get(3));
+		assertThat(page.getPageInfo().getTotalNbOfElements()).isEqualTo(-1);
+		String tamperedCursor = tamper(page.getPageInfo().getNextCursor());
+
+		page = getOpdListPageable(foundOpd, page.getPageInfo().getNextCursor(), false);
+		assertThat(page.getData()).extracting(Opd::getCode).containsExactly(codes.get(4));
+		assertThat(page.getPageInfo().isHasNextPage()).isFalse();
+		assertThat(page.getPageInfo().getNextCursor()).isNull();
+
+		page = getOpdListPageable(foundOpd, page.getPageInfo().getPreviousCursor(), false);
+		assertThat(page.getData()).extracting(Opd::getCode).containsExactly(codes.get(2), codes.get(3));
+		assertThat(page.getPageInfo().isHasNextPage()).isTrue();
+
+		page = getOpdListPageable(foundOpd, page.getPageInfo().getPreviousCursor(), false);
+		assertThat(page.getData()).extracting(Opd::getCode).containsExactly(codes.get(0), codes.get(1));
+		assertThat(page.getPageInfo().isHasPreviousPage()).isFalse();
+
+		assertThatThrownBy(() -> getOpdListPageable(foundOpd, tamperedCursor, false))
+				.isInstanceOf(OHDataValidationException.class);
+	}
+
 	@ParameterizedTest(name = "Test with OPDEXTENDED={0}")
 	@MethodSource("opdExtended")
 	void testIoGetOpdListPatientId(boolean opdExtended) throws Exception {
@@ -344,6 +406,29 @@ class Tests extends OHCoreTestCase {
 		assertThat(updatedOpd.getPrescription()).isEqualTo("update prescription");*/
 	}
 
+	@ParameterizedTest(name = "Test with OPDEXTENDED={0}")
+	@MethodSource("opdExtended")
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void testIoUpdateOpdOutsideTransaction(boolean opdExtended) throws Exception {
+		GeneralData.OPDEXTENDED = opdExtended;
+		try {
+			int code = setupTestOpd(false);
+			Opd foundOpd = opdIoOperationRepository.findById(code).orElseThrow();
+			foundOpd.setNote("update note");
+
+			Opd updatedOpd = opdIoOperation.updateOpd(foundOpd);
+
+			// the merged OPD is read once its transaction is over, as the desktop client does
+			assertThat(updatedOpd.getNote()).isEqualTo("update note");
+			assertThat(updatedOpd.getWard().getDescription()).isEqualTo(foundOpd.getWard().getDescription());
+			assertThat(updatedOpd.getPatient().getName()).isEqualTo(foundOpd.getPatient().getName());
+			assertThat(updatedOpd.getDisease().getDescription()).isEqualTo(foundOpd.getDisease().getDescription());
+			assertThat(updatedOpd.getNextVisit().getDate()).isEqualTo(foundOpd.getNextVisit().getDate());
+		} finally {
+			cleanH2InMemoryDb();
+		}
+	}
+
 	@ParameterizedTest(name = "Test with OPDEXTENDED={0}")
 	@MethodSource("opdExtended")
 	void testIoDeleteOpd(boolean opdExtended) throws Exception {
@@ -425,6 +510,27 @@ class Tests extends OHCoreTestCase {
 		assertThat(result).isFalse();
 	}
 
+	@ParameterizedTest(name = "Test with OPDEXTENDED={0}")
+	@MethodSource("opdExtended")
+	void testIoIsExistOpdNumQueryCount(boolean opdExtended) throws Exception {
+		GeneralData.OPDEXTENDED = opdExtended;
+		// given:
+		int code = setupTestOpd(false);
+		Opd foundOpd = opdIoOperationRepository.findById(code).orElse(null);
+		assertThat(foundOpd).isNotNull();
+		entityManager.clear();
+		startQueryCount();
+
+		// when:
+		boolean inYear = opdIoOperation.isExistOpdNum(foundOpd.getProgYear(), foundOpd.getDate().getYear());
+		boolean anyYear = opdIoOperation.isExistOpdNum(foundOpd.getProgYear(), 0);
+
+		// then: each check is a single query and no OPD is materialized
+		assertThat(inYear).isTrue();
+		assertThat(anyYear).isTrue();
+		assertThat(assertQueryCount(2).getEntityLoads()).isZero();
+	}
+
 	@ParameterizedTest(name = "Test with OPDEXTENDED={0}")
 	@MethodSource("opdExtended")
 	void testIoGetLastOpd(boolean opdExtended) throws Exception {
@@ -455,6 +561,89 @@ class Tests extends OHCoreTestCase {
 		assertThat(result.getPatient().getCode()).isEqualTo(mergedPatient.getCode());
 	}
 
+	@ParameterizedTest(name = "Test with OPDEXTENDED={0}")
+	@MethodSource("opdExtended")
+	void testMgrOpdStatisticsCountArchivedOpds(boolean opdExtended) throws Exception {
+		GeneralData.OPDEXTENDED = opdExtended;
+		int code = setupTestOpd(false);
+		Opd opd = opdIoOperationRepository.findById(code).orElseThrow();
+		// the visit with the highest id is never archived
+		opdIoOperationRepository.saveAndFlush(testOpd.setup(opd.getPatient(), opd.getDisease(), opd.getWard(), null, false));
+		assertThat(archiveManager.archive(ArchiveTable.OPD, LocalDateTime.now())).isEqualTo(1);
+		LocalDate dateFrom = LocalDate.of(1984, 8, 1);
+		LocalDate dateTo = LocalDate.of(1984, 8, 31);
+
+		opdBrowserManager.rebuildOpdStatistics(dateFrom, dateTo);
+
+		assertThat(opdBrowserManager.getOpdStatistics(dateFrom, dateTo, null, null, null, null, null, null)).extracting(OpdStatistic::getCount)
+				.containsExactly(2L);
+	}
+
+	@ParameterizedTest(name = "Test with OPDEXTENDED={0}")
+	@MethodSource("opdExtended")
+	void testIoIsExistOpdNumOfArchivedOpd(boolean opdExtended) throws Exception {
+		GeneralData.OPDEXTENDED = opdExtended;
+		int code = setupTestOpd(false);
+		Opd opd = opdIoOperationRepository.findById(code).orElseThrow();
+		// the visit with the highest id is never archived
+		Opd last = testOpd.setup(opd.getPatient(), opd.getDisease(), opd.getWard(), null, false);
+		last.setProgYear(opd.getProgYear() + 1);
+		opdIoOperationRepository.saveAndFlush(last);
+		assertThat(archiveManager.archive(ArchiveTable.OPD, LocalDateTime.now())).isEqualTo(1);
+
+		assertThat(opdIoOperation.isExistOpdNum(opd.getProgYear(), opd.getDate().getYear())).isTrue();
+		assertThat(opdIoOperation.isExistOpdNum(opd.getProgYear(), 0)).isTrue();
+		assertThat(opdIoOperation.isExistOpdNum(opd.getProgYear(), opd.getDate().getYear() + 1)).isFalse();
+	}
+
+	@ParameterizedTest(name = "Test with OPDEXTENDED={0}")
+	@MethodSource("opdExtended")
+	void testMgrOpdStatisticsFollowOpdChanges(boolean opdExtended) throws Exception {
+		GeneralData.OPDEXTENDED = opdExtended;
+		ageTypeIoOperationRepository.saveAndFlush(new AgeType("d1", 6, 12, "children"));
+		int code = setupTestOpd(false);
+		LocalDate dateFrom = LocalDate.of(1984, 8, 1);
+		LocalDate dateTo = LocalDate.of(1984, 8, 31);
+
+		// visits stored before the statistics existed are counted by the rebuild
+		opdBrowserManager.rebuildOpdStatistics(dateFrom, dateTo);
+		List<OpdStatistic> statistics = opdBrowserManager.getOpdStatistics(dateFrom, dateTo, null, null, null, null, null, null);
+		assertThat(statistics).hasSize(1);
+		OpdStatistic statistic = statistics.get(0);
+		assertThat(statistic.getWeekStart()).isEqualTo(LocalDate.of(1984, 8, 13));
+		assertThat(statistic.getIsoWeek()).isEqualTo(33);
+		assertThat(statistic.getDiseaseCode()).isEqualTo("199");
+		assertThat(statistic.getAgeType()).isEqualTo("d1");
+		assertThat(statistic.getSex()).isEqualTo('F');
+		assertThat(statistic.getNewPatient()).isEqualTo('N');
+		assertThat(statistic.getCount()).isEqualTo(1);
+
+		Opd foundOpd = opdIoOperationRepository.findById(code).orElse(null);
+		assertThat(foundOpd).isNotNull();
+		Opd secondOpd = opdIoOperation.newOpd(testOpd.setup(foundOpd.getPatient(), foundOpd.getDisease(), foundOpd.getWard(), null, false));
+		statistics = opdBrowserManager.getOpdStatistics(dateFrom, dateTo, null, null, null, null, null, null);
+		assertThat(statistics).hasSize(1);
+		assertThat(statistics.get(0).getCount()).isEqualTo(2);
+
+		foundOpd.setSex('M');
+		opdIoOperation.updateOpd(foundOpd);
+		assertThat(opdBrowserManager.getOpdStatistics(dateFrom, dateTo, null, null, null, null, 'F', null)).extracting(OpdStatistic::getCount)
+			.containsExactly(1L);
+		assertThat(opdBrowserManager.getOpdStatistics(dateFrom, dateTo, null, null, null, null, 'M', null)).extracting(OpdStatistic::getCount)
+			.containsExactly(1L);
+
+		opdIoOperation.deleteOpd(secondOpd);
+		statistics = opdBrowserManager.getOpdStatisticTotals(dateFrom, dateTo, foundOpd.getWard().getCode());
+		assertThat(statistics).hasSize(1);
+		assertThat(statistics.get(0).getSex()).isEqualTo('M');
+		assertThat(statistics.get(0).getCount()).isEqualTo(1);
+
+		// a rebuild finds the same rows
+		opdBrowserManager.rebuildOpdStatistics(dateFrom, dateTo);
+		assertThat(opdBrowserManager.getOpdStatistics(dateFrom, dateTo, null, null, null, null, null, null)).extracting(OpdStatistic::getSex,
+			OpdStatistic::getCount).containsExactly(tuple('M', 1L));
+	}
+
 	@ParameterizedTest(name = "Test with OPDEXTENDED={0}")
 	@MethodSource("opdExtended")
 	void testMgrGetOpd(boolean opdExtended) throws Exception {
@@ -477,6 +666,34 @@ class Tests extends OHCoreTestCase {
 		assertThat(opds.get(opds.size() - 1).getCode()).isEqualTo(foundOpd.getCode());
 	}
 
+	@ParameterizedTest(name = "Test with OPDEXTENDED={0}")
+	@MethodSource("opdExtended")
+	void testMgrGetOpdQueryBudget(boolean opdExtended) throws Exception {
+		GeneralData.OPDEXTENDED = opdExtended;
+		// given: OPDs of different patients
+		int code = setupTestOpd(false);
+		Opd foundOpd = opdIoOperationRepository.findById(code).orElse(null);
+		assertThat(foundOpd).isNotNull();
+		for (int i = 0; i < 4; i++) {
+			Patient patient = patientIoOperationRepository.saveAndFlush(testPatient.setup(false));
+			opdIoOperationRepository.saveAndFlush(testOpd.setup(patient, foundOpd.getDisease(), foundOpd.getWard(), null, false));
+		}
+		entityManager.clear();
+		startQueryCount();
+
+		// when:
+		List<Opd> opds = opdBrowserManager.getOpd(null, null, null, foundOpd.getDate().toLocalDate(), foundOpd.getDate().toLocalDate(), 0, 0, 'A', 'A', null);
+
+		// then: the list graph loads everything shown in a list with a constant number of statements
+		assertThat(opds).hasSize(5).allSatisfy(opd -> {
+			assertThat(opd.getWard().getDescription()).isNotNull();
+			assertThat(opd.getPatient().getName()).isNotNull();
+			assertThat(opd.getPatient().getPatientConsensus()).isNotNull();
+			assertThat(opd.getDisease().getDescription()).isNotNull();
+		});
+		assertWithinQueryBudget("OpdBrowserManager.getOpd");
+	}
+
 	@ParameterizedTest(name = "Test with OPDEXTENDED={0}")
 	@MethodSource("opdExtended")
 	void testMgrGetOpdListPatientId(boolean opdExtended) throws Exception {
@@ -1271,6 +1488,28 @@ class Tests extends OHCoreTestCase {
 		return opd.getCode();
 	}
 
+	private PagedResponse<Opd> getOpdListPageable(Opd opd, String cursor, boolean countTotal) throws OHServiceException {
+		return opdIoOperation.getOpdListPageable(
+				opd.getWard(),
+				opd.getDisease().getType().getCode(),
+				opd.getDisease().getCode(),
+				opd.getDate().toLocalDate(),
+				opd.getDate().toLocalDate(),
+				opd.getAge() - 1,
+				opd.getAge() + 1,
+				opd.getSex(),
+				opd.getNewPatient(),
+				cursor,
+				2,
+				countTotal);
+	}
+
+	private static String tamper(String cursor) {
+		// a cursor whose code is not a number any more
+		String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.replaceFirst("\\|\\d+$", "|x").getBytes(StandardCharsets.UTF_8));
+	}
+
 	private void checkOpdIntoDb(int code) throws OHException {
 		Opd foundOpd = opdIoOperationRepository.findById(code).orElse(null);
 		assertThat(foundOpd).isNotNull();
@@ -508,6 +508,28 @@ class Tests extends OHCoreTestCase {
 		assertThat(operationRows).hasSize(1);
 	}
 
+	@Test
+	void testRowIoGetRowOperationQueryBudget() throws Exception {
+		// given: rows of different operations
+		int id = setupTestOperationRow(false);
+		OperationRow operationRow = operationRowIoOperationRepository.findById(id);
+		for (int i = 0; i < 4; i++) {
+			Operation operation = testOperation.setup(operationRow.getOperation().getType(), false);
+			operation.setCode("Z" + i);
+			operationIoOperationRepository.saveAndFlush(operation);
+			operationRowIoOperationRepository.saveAndFlush(testOperationRow.setup(operation, true));
+		}
+		entityManager.clear();
+		startQueryCount();
+
+		// when:
+		List<OperationRow> operationRows = operationRowIoOperations.getOperationRow();
+
+		// then: the list graph loads the operations with a constant number of statements
+		assertThat(operationRows).hasSize(5).allSatisfy(row -> assertThat(row.getOperation().getDescription()).isNotNull());
+		assertWithinQueryBudget("OperationRowIoOperations.getOperationRow");
+	}
+
 	@Test
 	void testRowIoCountAllActiveOperations() throws Exception {
 		setupTestOperationRow(false);
@@ -25,6 +25,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import org.assertj.core.api.Condition;
 import org.isf.OHCoreTestCase;
@@ -146,6 +149,53 @@ class TestMergePatient extends OHCoreTestCase {
 		assertThatPatientMergedEventWasSent(mergedPatient, obsoletePatient);
 	}
 
+	@Test
+	void testMergePatientHistoryReportsMergedRows() throws Exception {
+		// given:
+		Patient mergedPatient = patientIoOperationRepository.saveAndFlush(testPatient.setup(false));
+		Patient obsoletePatient = patientIoOperationRepository.saveAndFlush(testPatient.setup(false));
+		setupVisitAndAssignPatient(obsoletePatient);
+		setupVisitAndAssignPatient(obsoletePatient);
+		setupPatientExaminationAndAssignPatient(obsoletePatient);
+
+		// when:
+		Map<String, Integer> mergedRows = patientIoOperation.mergePatientHistory(mergedPatient, obsoletePatient);
+
+		// then:
+		assertThat(mergedRows)
+			.containsEntry("visits", 2)
+			.containsEntry("examinations", 1)
+			.containsEntry("bills", 0)
+			.containsEntry("laboratories", 0);
+		assertThat(visitsIoOperationRepository.findAllByPatient_CodeOrderByPatient_CodeAscDateAsc(mergedPatient.getCode())).hasSize(2);
+	}
+
+	@Test
+	void testMergePatientHistoryWithTenThousandRecords() throws Exception {
+		// given:
+		Patient mergedPatient = patientIoOperationRepository.saveAndFlush(testPatient.setup(false));
+		Patient obsoletePatient = patientIoOperationRepository.saveAndFlush(testPatient.setup(false));
+		List<Visit> visits = new ArrayList<>();
+		List<PatientExamination> examinations = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			visits.add(testVisit.setup(obsoletePatient, false, null));
+			examinations.add(testPatientExamination.setup(obsoletePatient, false));
+		}
+		visitsIoOperationRepository.saveAllAndFlush(visits);
+		examinationIoOperationRepository.saveAllAndFlush(examinations);
+		entityManager.clear();
+
+		// when:
+		startQueryCount();
+		Map<String, Integer> mergedRows = patientIoOperation.mergePatientHistory(mergedPatient, obsoletePatient);
+
+		// then: the records are moved by bulk statements, whatever their number
+		assertWithinQueryBudget("PatientIoOperations.mergePatientHistory");
+		assertThat(mergedRows).containsEntry("visits", 5000).containsEntry("examinations", 5000);
+		assertThat(visitsIoOperationRepository.findAllByPatient_CodeOrderByPatient_CodeAscDateAsc(obsoletePatient.getCode())).isEmpty();
+		assertThat(examinationIoOperationRepository.findByPatient_CodeOrderByPexDateDesc(mergedPatient.getCode())).hasSize(5000);
+	}
+
 	@Test
 	void testWholeMergeOperationShouldBeRolledBackWhenOneOfUpdateOperationsFails() throws OHException {
 		// given:
@@ -186,6 +236,25 @@ class TestMergePatient extends OHCoreTestCase {
 		assertThatPatientMergedEventWasSent(mergedPatient, obsoletePatient);
 	}
 
+	@Test
+	void testMgrMergePatientQueryBudget() throws Exception {
+		// given:
+		Patient mergedPatient = patientIoOperationRepository.saveAndFlush(testPatient.setup(false));
+		Patient obsoletePatient = patientIoOperationRepository.saveAndFlush(testPatient.setup(false));
+		for (int i = 0; i < 20; i++) {
+			setupVisitAndAssignPatient(obsoletePatient);
+			setupPatientExaminationAndAssignPatient(obsoletePatient);
+		}
+		entityManager.clear();
+
+		// when:
+		startQueryCount();
+		patientBrowserManager.mergePatient(mergedPatient, obsoletePatient);
+
+		// then: the number of statements does not depend on the number of merged records
+		assertWithinQueryBudget("PatientBrowserManager.mergePatient");
+	}
+
 	@Test
 	void testMgrMergePatientPatient1MissingInformation() throws Exception {
 		// given:
@@ -42,6 +42,7 @@ import org.isf.opd.model.Opd;
 import org.isf.patient.manager.PatientBrowserManager;
 import org.isf.patient.model.Patient;
 import org.isf.patient.model.PatientProfilePhoto;
+import org.isf.patient.model.PatientSummary;
 import org.isf.patient.service.PatientIoOperationRepository;
 import org.isf.patient.service.PatientIoOperations;
 import org.isf.utils.exception.OHException;
@@ -54,6 +55,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.AopTestUtils;
 
 class Tests extends OHCoreTestCase {
 
@@ -345,6 +347,64 @@ class Tests extends OHCoreTestCase {
 		testPatient.check(patients.get(0));
 	}
 
+	@Test
+	void testMgrGetPatientSummaries() throws Exception {
+		Integer code = setupTestPatient(false);
+		Patient patient = patientIoOperation.getPatient(code);
+		List<PatientSummary> summaries = patientBrowserManager.getPatientSummaries();
+		assertThat(summaries).hasSameSizeAs(patientBrowserManager.getPatient());
+		checkSummary(summaries.get(summaries.size() - 1), patient);
+	}
+
+	@Test
+	void testMgrGetPatientSummariesPageable() throws Exception {
+		for (int idx = 0; idx < 15; idx++) {
+			setupTestPatient(false);
+		}
+		PagedResponse<PatientSummary> summaries = patientBrowserManager.getPatientSummariesPageable(0, 10);
+		assertThat(summaries.getData()).hasSize(10);
+		assertThat(summaries.getPageInfo().getTotalNbOfElements()).isEqualTo(15);
+
+		summaries = patientBrowserManager.getPatientSummariesPageable(1, 10);
+		assertThat(summaries.getData()).hasSize(5);
+	}
+
+	@Test
+	void testMgrGetPatientSummariesByParams() throws Exception {
+		Integer code = setupTestPatient(false);
+		Patient patient = patientIoOperation.getPatient(code);
+		Map<String, Object> params = new HashMap<>();
+		params.put("firstName", "TestFirstName");
+		params.put("birthDate", LocalDateTime.of(1984, Calendar.AUGUST, 14, 0, 0, 0));
+		params.put("address", "TestAddress");
+		List<PatientSummary> summaries = patientBrowserManager.getPatientSummaries(params);
+		assertThat(summaries).hasSameSizeAs(patientBrowserManager.getPatients(params));
+		checkSummary(summaries.get(0), patient);
+	}
+
+	@Test
+	void testMgrGetPatientSummariesByOneOfFieldsLike() throws Exception {
+		Integer code = setupTestPatient(false);
+		Patient patient = patientIoOperation.getPatient(code);
+		List<PatientSummary> summaries = patientBrowserManager.getPatientSummariesByOneOfFieldsLike(patient.getFirstName());
+		assertThat(summaries).hasSameSizeAs(patientBrowserManager.getPatientsByOneOfFieldsLike(patient.getFirstName()));
+		checkSummary(summaries.get(0), patient);
+	}
+
+	@Test
+	void testMgrGetPatientSummariesByOneOfFieldsLikeQueryBudget() throws Exception {
+		for (int idx = 0; idx < 5; idx++) {
+			setupTestPatient(false);
+		}
+		entityManager.clear();
+		startQueryCount();
+
+		List<PatientSummary> summaries = patientBrowserManager.getPatientSummariesByOneOfFieldsLike("TestFirstName");
+
+		assertThat(summaries).hasSize(5);
+		assertWithinQueryBudget("PatientBrowserManager.getPatientSummariesByOneOfFieldsLike");
+	}
+
 	@Test
 	void testMgrGetPatientsByOneOfFieldsLikeFirstName() throws Exception {
 		Integer code = setupTestPatient(false);
@@ -745,13 +805,13 @@ class Tests extends OHCoreTestCase {
 	}
 
 	private void resetHashMaps() throws Exception {
-		Field diuresisDescriptionHashMap = patientBrowserManager.getClass().getDeclaredField("maritalHashMap");
+		Field diuresisDescriptionHashMap = PatientBrowserManager.class.getDeclaredField("maritalHashMap");
 		diuresisDescriptionHashMap.setAccessible(true);
-		diuresisDescriptionHashMap.set(patientBrowserManager, null);
+		diuresisDescriptionHashMap.set(AopTestUtils.getTargetObject(patientBrowserManager), null);
 
-		Field bowelDescriptionHashMap = patientBrowserManager.getClass().getDeclaredField("professionHashMap");
+		Field bowelDescriptionHashMap = PatientBrowserManager.class.getDeclaredField("professionHashMap");
 		bowelDescriptionHashMap.setAccessible(true);
-		bowelDescriptionHashMap.set(patientBrowserManager, null);
+		bowelDescriptionHashMap.set(AopTestUtils.getTargetObject(patientBrowserManager), null);
 	}
 
 	private void assertThatObsoletePatientWasDeletedAndMergedIsTheActiveOne(Patient mergedPatient, Patient obsoletePatient) throws OHException {
@@ -769,6 +829,18 @@ class Tests extends OHCoreTestCase {
 		return patient.getCode();
 	}
 
+	private void checkSummary(PatientSummary summary, Patient patient) {
+		assertThat(summary.getCode()).isEqualTo(patient.getCode());
+		assertThat(summary.getFirstName()).isEqualTo(patient.getFirstName());
+		assertThat(summary.getSecondName()).isEqualTo(patient.getSecondName());
+		assertThat(summary.getName()).isEqualTo(patient.getName());
+		assertThat(summary.getSex()).isEqualTo(patient.getSex());
+		assertThat(summary.getBirthDate()).isEqualTo(patient.getBirthDate());
+		assertThat(summary.getAge()).isEqualTo(patient.getAge());
+		assertThat(summary.getCity()).isEqualTo(patient.getCity());
+		assertThat(summary.getAddress()).isEqualTo(patient.getAddress());
+	}
+
 	private void checkPatientIntoDb(Integer code) throws OHServiceException {
 		Patient foundPatient = patientIoOperation.getPatient(code);
 		testPatient.check(foundPatient);
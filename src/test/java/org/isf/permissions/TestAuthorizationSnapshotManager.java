@@ -0,0 +1,155 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.permissions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.isf.OHCoreTestCase;
+import org.isf.menu.manager.UserBrowsingManager;
+import org.isf.menu.model.User;
+import org.isf.menu.model.UserGroup;
+import org.isf.menu.model.UserMenuItem;
+import org.isf.menu.service.MenuIoOperations;
+import org.isf.menu.service.UserMenuItemIoOperationRepository;
+import org.isf.permissions.manager.AuthorizationSnapshotManager;
+import org.isf.permissions.manager.GroupPermissionManager;
+import org.isf.permissions.manager.PermissionManager;
+import org.isf.permissions.model.AuthorizationSnapshot;
+import org.isf.permissions.model.Permission;
+import org.isf.permissions.service.PermissionIoOperations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class TestAuthorizationSnapshotManager extends OHCoreTestCase {
+
+	@Autowired
+	AuthorizationSnapshotManager authorizationSnapshotManager;
+
+	@Autowired
+	GroupPermissionManager groupPermissionManager;
+
+	@Autowired
+	PermissionManager permissionManager;
+
+	@Autowired
+	UserBrowsingManager userBrowsingManager;
+
+	@Autowired
+	UserMenuItemIoOperationRepository userMenuItemIoOperationRepository;
+
+	@BeforeEach
+	void setUp() {
+		cleanH2InMemoryDb();
+		executeSQLScript("LoadPermissionTables.sql");
+		authorizationSnapshotManager.invalidateAll();
+	}
+
+	@Test
+	void testHasPermission() throws Exception {
+		User doctor = userBrowsingManager.getUserByName("doctor");
+		assertThat(authorizationSnapshotManager.hasPermission(doctor, "admissions.create")).isTrue();
+		assertThat(authorizationSnapshotManager.hasPermission(doctor, "admissiontypes.create")).isFalse();
+		assertThat(authorizationSnapshotManager.hasPermission(doctor, "unknown.permission")).isFalse();
+		assertThat(authorizationSnapshotManager.hasPermission(null, "admissions.create")).isFalse();
+		assertThat(userBrowsingManager.hasPermission(doctor, "admissions.create")).isTrue();
+		assertThat(userBrowsingManager.hasPermission(doctor, "admissiontypes.create")).isFalse();
+	}
+
+	@Test
+	void testSnapshotMatchesPermissionQuery() throws Exception {
+		AuthorizationSnapshot snapshot = authorizationSnapshotManager.getSnapshot("doctor");
+		List<Integer> granted = permissionManager.retrievePermissionsByGroupCode("doctor").stream().map(Permission::getId).toList();
+		for (Permission permission : permissionManager.retrieveAllPermissions()) {
+			assertThat(snapshot.hasPermission(permission.getName())).isEqualTo(granted.contains(permission.getId()));
+		}
+		assertThat(authorizationSnapshotManager.getSnapshot("doctor")).isSameAs(snapshot);
+	}
+
+	@Test
+	void testSnapshotRebuiltOnGroupPermissionChange() throws Exception {
+		User doctor = userBrowsingManager.getUserByName("doctor");
+		UserGroup doctorGroup = doctor.getUserGroupName();
+		AuthorizationSnapshot snapshot = authorizationSnapshotManager.getSnapshot("doctor");
+		assertThat(snapshot.hasPermission("admissions.create")).isTrue();
+
+		groupPermissionManager.delete(doctorGroup, permissionManager.retrievePermissionByName("admissions.create"));
+		assertThat(authorizationSnapshotManager.hasPermission(doctor, "admissions.create")).isFalse();
+
+		groupPermissionManager.create(doctorGroup, permissionManager.retrievePermissionByName("admissiontypes.create"));
+		assertThat(authorizationSnapshotManager.hasPermission(doctor, "admissiontypes.create")).isTrue();
+		assertThat(authorizationSnapshotManager.getSnapshot("doctor")).isNotSameAs(snapshot);
+	}
+
+	@Test
+	void testSnapshotBuiltDuringEvictionDropped() throws Exception {
+		PermissionIoOperations permissionIoOperations = mock(PermissionIoOperations.class);
+		MenuIoOperations menuIoOperations = mock(MenuIoOperations.class);
+		AuthorizationSnapshotManager manager = new AuthorizationSnapshotManager(menuIoOperations, permissionIoOperations);
+		List<Permission> granted = permissionManager.retrievePermissionsByGroupCode("doctor");
+		when(permissionIoOperations.retrieveAllPermissions()).thenReturn(permissionManager.retrieveAllPermissions());
+		when(menuIoOperations.getGroupMenu(any())).thenReturn(List.of());
+		when(permissionIoOperations.retrivePermisionsByGroupCode("doctor")).thenAnswer(invocation -> {
+			// the permissions are revoked while the snapshot is built
+			manager.invalidate("doctor");
+			return granted;
+		}).thenReturn(List.of());
+
+		AuthorizationSnapshot staleSnapshot = manager.getSnapshot("doctor");
+		assertThat(staleSnapshot.hasPermission("admissions.create")).isTrue();
+
+		AuthorizationSnapshot snapshot = manager.getSnapshot("doctor");
+		assertThat(snapshot).isNotSameAs(staleSnapshot);
+		assertThat(snapshot.hasPermission("admissions.create")).isFalse();
+		verify(permissionIoOperations, times(2)).retrivePermisionsByGroupCode("doctor");
+	}
+
+	@Test
+	void testMenuRebuiltOnSetGroupMenu() throws Exception {
+		User doctor = userBrowsingManager.getUserByName("doctor");
+		UserGroup doctorGroup = doctor.getUserGroupName();
+		assertThat(authorizationSnapshotManager.getMenu(doctor)).isEmpty();
+
+		UserMenuItem parent = new UserMenuItem("main", "Main", "Main", "", 'M', "none", "none", true, 1, true);
+		UserMenuItem child = new UserMenuItem("child", "Child", "Child", "", 'C', "main", "none", false, 2, false);
+		userMenuItemIoOperationRepository.saveAndFlush(parent);
+		userMenuItemIoOperationRepository.saveAndFlush(child);
+		userBrowsingManager.setGroupMenu(doctorGroup, List.of(parent, child));
+
+		List<UserMenuItem> menu = authorizationSnapshotManager.getMenu(doctor);
+		assertThat(menu).extracting(UserMenuItem::getCode).containsExactly("main", "child");
+		AuthorizationSnapshot snapshot = authorizationSnapshotManager.getSnapshot(doctorGroup.getCode());
+		assertThat(snapshot.getSubMenu("main")).extracting(UserMenuItem::getCode).containsExactly("child");
+		assertThat(snapshot.isMenuItemActive("main")).isTrue();
+		assertThat(snapshot.isMenuItemActive("child")).isFalse();
+
+		menu.get(0).setPosition(99);
+		assertThat(snapshot.getMenu().get(0).getPosition()).isEqualTo(1);
+	}
+}
@@ -24,6 +24,11 @@ package org.isf.priceslist;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.within;
+import static org.assertj.core.api.Assumptions.assumeThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,7 +36,9 @@ import java.util.List;
 import org.assertj.core.api.Condition;
 import org.isf.OHCoreTestCase;
 import org.isf.priceslist.manager.PriceListManager;
+import org.isf.priceslist.manager.PriceResolutionManager;
 import org.isf.priceslist.model.Price;
+import org.isf.priceslist.model.PriceIndex;
 import org.isf.priceslist.model.PriceList;
 import org.isf.priceslist.service.PriceIoOperationRepository;
 import org.isf.priceslist.service.PricesListIoOperationRepository;
@@ -42,10 +49,16 @@ import org.isf.utils.exception.OHServiceException;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 class Tests extends OHCoreTestCase {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(Tests.class);
+
 	private static TestPriceList testPriceList;
 	private static TestPrice testPrice;
 
@@ -57,6 +70,8 @@ class Tests extends OHCoreTestCase {
 	PriceIoOperationRepository priceIoOperationRepository;
 	@Autowired
 	PriceListManager priceListManager;
+	@Autowired
+	PriceResolutionManager priceResolutionManager;
 
 	@BeforeAll
 	static void setUpClass() {
@@ -144,6 +159,7 @@ class Tests extends OHCoreTestCase {
 		// when:
 		PriceList priceList = deletePrice.getList();
 		Price insertPrice = testPrice.setup(null, false);
+		insertPrice.setItem("OtherItem");
 		int insertId = deleteId + 1;
 		prices.add(insertPrice);
 		priceListIoOperation.updatePrices(priceList, prices);
@@ -152,6 +168,116 @@ class Tests extends OHCoreTestCase {
 		Price foundPrice = priceIoOperationRepository.findById(insertId).orElse(null);
 		assertThat(foundPrice).isNotNull();
 		assertThat(foundPrice.getList().getId()).isEqualTo(priceList.getId());
+		assertThat(priceIoOperationRepository.findById(deleteId)).isEmpty();
+	}
+
+	@Test
+	void testIoUpdatePricesKeepsUnchangedPrices() throws Exception {
+		// given:
+		int id = setupTestPrice(false);
+		Price storedPrice = priceIoOperationRepository.findById(id).orElse(null);
+		assertThat(storedPrice).isNotNull();
+		PriceList priceList = storedPrice.getList();
+		Price changedPrice = testPrice.setup(null, false);
+		changedPrice.setPrice(20.20);
+		Price newPrice = testPrice.setup(null, false);
+		newPrice.setItem("OtherItem");
+
+		// when:
+		priceListIoOperation.updatePrices(priceList, List.of(changedPrice, newPrice));
+
+		// then:
+		List<Price> prices = priceIoOperationRepository.findByList_id(priceList.getId());
+		assertThat(prices).hasSize(2);
+		assertThat(prices).filteredOn(price -> price.getItem().equals(storedPrice.getItem()))
+				.singleElement()
+				.satisfies(price -> {
+					assertThat(price.getId()).isEqualTo(id);
+					assertThat(price.getPrice()).isEqualTo(20.20);
+				});
+	}
+
+	@Test
+	void testMgrPriceResolutionFollowsPriceChanges() throws Exception {
+		// given:
+		int id = setupTestPrice(false);
+		Price price = priceIoOperationRepository.findById(id).orElse(null);
+		assertThat(price).isNotNull();
+		PriceList priceList = price.getList();
+		PriceIndex index = priceResolutionManager.getIndex(priceList.getId());
+		assertThat(index.getPrice(price.getGroup(), price.getItem())).isEqualTo(price.getPrice());
+		assertThat(index.get(price.getGroup(), price.getItem()).getDescription()).isEqualTo(price.getDesc());
+		assertThat(priceResolutionManager.getIndex(priceList.getId())).isSameAs(index);
+
+		// when:
+		Price changedPrice = testPrice.setup(null, false);
+		changedPrice.setPrice(12.5);
+		priceListManager.updatePrices(priceList, List.of(changedPrice));
+		PriceList copy = priceListManager.copyList(priceList, 2.0, 0);
+
+		// then:
+		assertThat(priceResolutionManager.getPrice(priceList, price.getGroup(), price.getItem())).isEqualTo(12.5);
+		assertThat(priceResolutionManager.getPrice(priceList, price.getGroup(), "MissingItem")).isNull();
+		assertThat(priceResolutionManager.getPrice(copy, price.getGroup(), price.getItem())).isEqualTo(25.0);
+
+		priceListManager.deleteList(priceList);
+		assertThat(priceResolutionManager.getIndex(priceList.getId()).size()).isZero();
+		// the empty index of the deleted list is not kept
+		assertThat(priceResolutionManager.getIndex(priceList.getId())).isNotSameAs(priceResolutionManager.getIndex(priceList.getId()));
+	}
+
+	@Test
+	void testMgrPriceResolutionDropsIndexLoadedDuringEviction() throws Exception {
+		int id = setupTestPrice(false);
+		PriceList priceList = priceIoOperationRepository.findById(id).orElseThrow().getList();
+		PricesListIoOperations ioOperations = mock(PricesListIoOperations.class);
+		PriceResolutionManager manager = new PriceResolutionManager(ioOperations);
+		PriceIndex staleIndex = priceListIoOperation.getPriceIndex(priceList.getId());
+		when(ioOperations.getPriceIndex(priceList.getId())).thenAnswer(invocation -> {
+			// the list changes while its index is loaded
+			manager.invalidate(priceList.getId());
+			return staleIndex;
+		}).thenReturn(priceListIoOperation.getPriceIndex(priceList.getId()));
+
+		assertThat(manager.getIndex(priceList.getId())).isSameAs(staleIndex);
+
+		assertThat(manager.getIndex(priceList.getId())).isNotSameAs(staleIndex);
+		verify(ioOperations, times(2)).getPriceIndex(priceList.getId());
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 10_000, 100_000 })
+	void testBenchmarkUpdateAndCopyPrices(int size) throws Exception {
+		assumeThat(size <= 10_000 || Boolean.getBoolean("benchmark")).isTrue();
+		// given:
+		int id = setupTestPriceList(false);
+		PriceList priceList = priceListIoOperationRepository.findById(id).orElse(null);
+		assertThat(priceList).isNotNull();
+		List<Price> prices = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			prices.add(new Price(null, "GRP", "ITEM" + i, "Description " + i, 10.0 + i % 100));
+		}
+
+		// when:
+		long start = System.nanoTime();
+		priceListIoOperation.updatePrices(priceList, prices);
+		long insertMillis = (System.nanoTime() - start) / 1_000_000;
+
+		for (int i = 0; i < size; i += 10) {
+			prices.get(i).setPrice(prices.get(i).getPrice() + 1);
+		}
+		start = System.nanoTime();
+		priceListIoOperation.updatePrices(priceList, prices);
+		entityManager.flush();
+		long updateMillis = (System.nanoTime() - start) / 1_000_000;
+
+		start = System.nanoTime();
+		PriceList copy = priceListIoOperation.copyList(priceList, 1.1, 5.0);
+		long copyMillis = (System.nanoTime() - start) / 1_000_000;
+		LOGGER.info("{} prices: inserted in {} ms, updated 10% in {} ms, copied in {} ms", size, insertMillis, updateMillis, copyMillis);
+
+		// then:
+		assertThat(priceIoOperationRepository.findByList_id(copy.getId())).hasSize(size);
 	}
 
 	@Test
@@ -231,6 +357,25 @@ class Tests extends OHCoreTestCase {
 		assertThat(copyPrice.getPrice()).isCloseTo(Math.round(2.0 * price.getPrice() / 3.0) * 3L, within(0.10d));
 	}
 
+	@Test
+	void testIoCopyListStepsRoundsHalfUp() throws Exception {
+		// given:
+		int id = setupTestPrice(true);
+		Price price = priceIoOperationRepository.findById(id).orElse(null);
+		assertThat(price).isNotNull();
+		price.setPrice(2.5);
+		priceIoOperationRepository.saveAndFlush(price);
+		PriceList priceList = price.getList();
+
+		// when:
+		priceListIoOperation.copyList(priceList, 1.0, 1.0);
+
+		// then:
+		Price copyPrice = priceIoOperationRepository.findAll().get(1);
+		assertThat(copyPrice.getPrice()).isEqualTo(Math.round(2.5) * 1.0);
+		assertThat(copyPrice.getPrice()).isEqualTo(3.0);
+	}
+
 	@Test
 	void testMgrGetLists() throws Exception {
 		int id = setupTestPriceList(true);
@@ -257,6 +402,7 @@ class Tests extends OHCoreTestCase {
 		assertThat(deletePrice).isNotNull();
 		PriceList priceList = deletePrice.getList();
 		Price insertPrice = testPrice.setup(null, false);
+		insertPrice.setItem("OtherItem");
 		int insertId = deleteId + 1;
 		prices.add(insertPrice);
 		priceListManager.updatePrices(priceList, prices);
@@ -0,0 +1,154 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.retention;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.isf.OHCoreTestCase;
+import org.isf.archive.manager.ArchiveManager;
+import org.isf.archive.model.ArchiveTable;
+import org.isf.generaldata.GeneralData;
+import org.isf.retention.manager.RetentionManager;
+import org.isf.retention.model.RetentionPolicy;
+import org.isf.retention.model.RetentionReport;
+import org.isf.sms.TestSms;
+import org.isf.sms.model.Sms;
+import org.isf.sms.service.SmsIoOperationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class Tests extends OHCoreTestCase {
+
+	private static final LocalDateTime SMS_SCHED = LocalDateTime.of(2011, 9, 8, 0, 0, 0);
+	private static final LocalDateTime HORIZON = SMS_SCHED.plusYears(1);
+
+	private static TestSms testSms;
+
+	@Autowired
+	RetentionManager retentionManager;
+	@Autowired
+	ArchiveManager archiveManager;
+	@Autowired
+	SmsIoOperationRepository smsIoOperationRepository;
+
+	private Integer batchSize;
+
+	@BeforeAll
+	static void setUpClass() {
+		testSms = new TestSms();
+	}
+
+	@BeforeEach
+	void setUp() {
+		cleanH2InMemoryDb();
+		batchSize = GeneralData.PURGEBATCHSIZE;
+		GeneralData.PURGEBATCHSIZE = 2;
+	}
+
+	@AfterEach
+	void tearDown() {
+		GeneralData.PURGEBATCHSIZE = batchSize;
+	}
+
+	@Test
+	void testMgrPurgeInChunks() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			setupTestSms(SMS_SCHED.plusDays(i));
+		}
+		Sms recent = setupTestSms(HORIZON.plusDays(1));
+
+		List<RetentionReport> reports = retentionManager.purge(RetentionPolicy.SMS, HORIZON);
+
+		assertThat(reports).extracting(RetentionReport::getTable).containsExactly("OH_SMS", "OH_SMS_ARCHIVE");
+		RetentionReport report = reports.get(0);
+		assertThat(report.isCompleted()).isTrue();
+		assertThat(report.getDeletedRows()).isEqualTo(5);
+		assertThat(report.getChunks()).isEqualTo(3);
+		assertThat(smsIoOperationRepository.findAll()).extracting(Sms::getSmsId).containsExactly(recent.getSmsId());
+		assertThat(retentionManager.getReports().get("OH_SMS").getDeletedRows()).isEqualTo(5);
+	}
+
+	@Test
+	void testMgrPurgeArchivedRecords() throws Exception {
+		setupTestSms(SMS_SCHED);
+		setupTestSms(SMS_SCHED.plusDays(1));
+		setupTestSms(HORIZON.plusDays(1));
+		assertThat(archiveManager.archive(ArchiveTable.SMS, LocalDateTime.now())).isEqualTo(2);
+
+		List<RetentionReport> reports = retentionManager.purge(RetentionPolicy.SMS, HORIZON);
+
+		assertThat(reports).extracting(RetentionReport::getDeletedRows).containsExactly(0L, 2L);
+		assertThat(archiveManager.verify(ArchiveTable.SMS).getArchivedCount()).isZero();
+		assertThat(smsIoOperationRepository.count()).isEqualTo(1);
+	}
+
+	@Test
+	void testMgrPurgeInterruptedAndResumed() throws Exception {
+		setupTestSms(SMS_SCHED);
+		setupTestSms(SMS_SCHED.plusDays(1));
+		Sms last = setupTestSms(SMS_SCHED.plusDays(2));
+
+		Thread.currentThread().interrupt();
+		RetentionReport interrupted;
+		try {
+			interrupted = retentionManager.purge(RetentionPolicy.SMS, HORIZON).get(0);
+		} finally {
+			Thread.interrupted();
+		}
+		assertThat(interrupted.isCompleted()).isFalse();
+		assertThat(smsIoOperationRepository.count()).isEqualTo(3);
+
+		RetentionReport resumed = retentionManager.purge(RetentionPolicy.SMS, HORIZON).get(0);
+		assertThat(resumed.isCompleted()).isTrue();
+		assertThat(resumed.getDeletedRows()).isEqualTo(2);
+		// the highest id is kept, so that the identity cannot reuse the purged ids
+		assertThat(smsIoOperationRepository.findAll()).extracting(Sms::getSmsId).containsExactly(last.getSmsId());
+	}
+
+	@Test
+	void testMgrPurgeAllWithoutRetention() throws Exception {
+		Integer retention = GeneralData.SMSRETENTION;
+		GeneralData.SMSRETENTION = 0;
+		try {
+			setupTestSms(SMS_SCHED);
+
+			assertThat(retentionManager.purgeAll()).noneMatch(report -> report.getPolicy() == RetentionPolicy.SMS);
+			assertThat(smsIoOperationRepository.count()).isEqualTo(1);
+		} finally {
+			GeneralData.SMSRETENTION = retention;
+		}
+	}
+
+	private Sms setupTestSms(LocalDateTime dateSched) throws Exception {
+		Sms sms = testSms.setup(false);
+		sms.setSmsDateSched(dateSched);
+		sms.setSmsDateSent(dateSched.plusMinutes(5));
+		return smsIoOperationRepository.saveAndFlush(sms);
+	}
+
+}
@@ -21,29 +21,48 @@
  */
 package org.isf.sessionaudit;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.isf.OHCoreTestCase;
 import org.isf.menu.model.User;
 import org.isf.sessionaudit.manager.SessionAuditManager;
+import org.isf.sessionaudit.manager.SessionRegistry;
 import org.isf.sessionaudit.model.SessionAudit;
+import org.isf.sessionaudit.model.SessionContext;
 import org.isf.sessionaudit.model.UserSession;
 import org.isf.utils.time.TimeTools;
+import org.isf.utils.time.TimingWheel;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 public class Tests extends OHCoreTestCase {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(Tests.class);
+
 	private static TestSessionAudit testSessionAudit;
 
 	@Autowired
 	SessionAuditManager sessionAuditManager;
 
+	@Autowired
+	SessionRegistry sessionRegistry;
+
 	@BeforeAll
 	static void setUpClass() {
 		testSessionAudit = new TestSessionAudit();
@@ -129,4 +148,108 @@ public class Tests extends OHCoreTestCase {
 		UserSession.removeUser();
 		assertThat(UserSession.isLoggedIn()).isFalse();
 	}
+
+	@Test
+	void testSessionRegistryLoginLogout() throws Exception {
+		User user = new User("TestUser", null, "TestPassWord", "TestDescription");
+		SessionContext session = sessionRegistry.login(user);
+		SessionContext other = sessionRegistry.login(user);
+
+		assertThat(session.getToken()).isNotEqualTo(other.getToken());
+		assertThat(sessionRegistry.getSession(session.getToken())).containsSame(session);
+		assertThat(sessionRegistry.getSessions("TestUser")).hasSize(2);
+
+		assertThat(sessionRegistry.logout(session.getToken())).isTrue();
+		assertThat(sessionRegistry.logout(session.getToken())).isFalse();
+		assertThat(sessionRegistry.getSession(session.getToken())).isEmpty();
+		sessionRegistry.logout(other.getToken());
+		sessionAuditManager.flushSessionAudits();
+
+		assertThat(session.getSessionAuditId()).isNotNull();
+		SessionAudit sessionAudit = sessionAuditManager.getSessionAudit(session.getSessionAuditId()).get();
+		assertThat(sessionAudit.getUserName()).isEqualTo("TestUser");
+		assertThat(sessionAudit.getLogoutDate()).isNotNull();
+	}
+
+	@Test
+	void testSessionAuditLogoutDatesWrittenAfterLogin() throws Exception {
+		LocalDateTime loginDate = TimeTools.getNow();
+		SessionContext session = new SessionContext("token", new User("TestUser", null, "TestPassWord", "TestDescription"), loginDate);
+		sessionAuditManager.recordLogin(session);
+		sessionAuditManager.flushSessionAudits();
+		assertThat(session.getSessionAuditId()).isNotNull();
+
+		sessionAuditManager.recordLogout(session, loginDate.plusMinutes(5));
+		sessionAuditManager.flushSessionAudits();
+
+		SessionAudit sessionAudit = sessionAuditManager.getSessionAudit(session.getSessionAuditId()).get();
+		assertThat(sessionAudit.getLoginDate()).isEqualTo(loginDate);
+		assertThat(sessionAudit.getLogoutDate()).isEqualTo(loginDate.plusMinutes(5));
+	}
+
+	@Test
+	void testSessionRegistryIdleExpiry() throws Exception {
+		TimingWheel timingWheel = new TimingWheel("test-session-expiry", 10, 512);
+		try {
+			// the accesses are timed on a clock the test advances, the wheel only decides when the expiries are checked
+			AtomicLong clock = new AtomicLong();
+			SessionRegistry registry = new SessionRegistry(sessionAuditManager, timingWheel, clock::get);
+			registry.setIdleTimeout(Duration.ofMillis(100));
+			SessionContext session = registry.login(new User("TestUser", null, "TestPassWord", "TestDescription"));
+
+			clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(80));
+			assertThat(registry.getSession(session.getToken())).isPresent();
+			// the wheel has a single worker, so once the marker ran the first expiry check has run as well
+			awaitWheel(timingWheel, 150);
+			assertThat(registry.getSessionCount()).isEqualTo(1);
+
+			clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+			awaitWheel(timingWheel, 200);
+			assertThat(registry.getSessionCount()).isZero();
+			assertThat(registry.getSession(session.getToken())).isEmpty();
+		} finally {
+			timingWheel.stop();
+		}
+	}
+
+	private static void awaitWheel(TimingWheel timingWheel, long delayMillis) throws InterruptedException {
+		CountDownLatch marker = new CountDownLatch(1);
+		timingWheel.schedule(marker::countDown, delayMillis, TimeUnit.MILLISECONDS);
+		assertThat(marker.await(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void testSessionRegistryConcurrentSessions() throws Exception {
+		int size = 5000;
+		ExecutorService executor = Executors.newFixedThreadPool(32);
+		try {
+			long start = System.nanoTime();
+			List<Future<SessionContext>> futures = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				User user = new User("user" + i % 100, null, "TestPassWord", "TestDescription");
+				futures.add(executor.submit(() -> {
+					SessionContext session = sessionRegistry.login(user);
+					sessionRegistry.getSession(session.getToken());
+					sessionRegistry.logout(session.getToken());
+					return session;
+				}));
+			}
+			List<SessionContext> sessions = new ArrayList<>(size);
+			for (Future<SessionContext> future : futures) {
+				sessions.add(future.get(30, TimeUnit.SECONDS));
+			}
+			long loginLogoutNanos = System.nanoTime() - start;
+			sessionAuditManager.flushSessionAudits();
+			long flushNanos = System.nanoTime() - start - loginLogoutNanos;
+			LOGGER.info("{} concurrent sessions: login/logout {} ms, audit flushed after {} ms", size, TimeUnit.NANOSECONDS.toMillis(loginLogoutNanos),
+					TimeUnit.NANOSECONDS.toMillis(flushNanos));
+
+			assertThat(sessionRegistry.getSessionCount()).isZero();
+			assertThat(sessions.stream().map(SessionContext::getSessionAuditId).distinct().filter(id -> id != null).count()).isEqualTo(size);
+			SessionAudit sessionAudit = sessionAuditManager.getSessionAudit(sessions.get(size - 1).getSessionAuditId()).get();
+			assertThat(sessionAudit.getLogoutDate()).isNotNull();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 }
@@ -24,6 +24,8 @@ package org.isf.sms;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
@@ -46,6 +48,7 @@ import org.isf.utils.exception.OHDataValidationException;
 import org.isf.utils.exception.OHException;
 import org.isf.utils.exception.OHServiceException;
 import org.isf.utils.exception.model.OHExceptionMessage;
+import org.isf.utils.scheduler.JobScheduler;
 import org.isf.utils.time.TimeTools;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -400,6 +403,22 @@ class Tests extends OHCoreTestCase {
 			smsSender.setRunning(false);
 			smsSender.run();
 		});
+		assertThat(JobScheduler.getDefault().isScheduled(SmsSender.JOB_NAME)).isFalse();
+	}
+
+	@Test
+	void testSmsSenderRunSchedulesJob() throws Exception {
+		when(applicationContextMock.getBean(SmsOperations.class)).thenReturn(smsOperationsMock);
+		when(applicationContextMock.getBean(SmsSenderOperations.class)).thenReturn(smsSenderOperationsMock);
+		when(smsOperationsMock.getList()).thenReturn(null);
+		SmsSender smsSender = new SmsSender();
+		try {
+			smsSender.run();
+			assertThat(JobScheduler.getDefault().isScheduled(SmsSender.JOB_NAME)).isTrue();
+		} finally {
+			smsSender.setRunning(false);
+		}
+		assertThat(JobScheduler.getDefault().isScheduled(SmsSender.JOB_NAME)).isFalse();
 	}
 
 	@Test
@@ -409,14 +428,13 @@ class Tests extends OHCoreTestCase {
 			when(applicationContextMock.getBean(SmsSenderOperations.class)).thenReturn(smsSenderOperationsMock);
 			SmsSender smsSender = new SmsSender();
 			when(smsOperationsMock.getList()).thenReturn(null);
-			new Thread(smsSender::run).start();
-			Thread.sleep(2000);
-			smsSender.setRunning(false);
+			smsSender.sendOnce();
+			verify(smsSenderOperationsMock, never()).initialize();
 		});
 	}
 
 	@Test
-	void testSmsSenderStartAndStopSmsNotSent() throws Exception {
+	void testSmsSenderSendOnceSmsNotSent() throws Exception {
 		assertDoesNotThrow(() -> {
 			when(applicationContextMock.getBean(SmsOperations.class)).thenReturn(smsOperationsMock);
 			when(applicationContextMock.getBean(SmsSenderOperations.class)).thenReturn(smsSenderOperationsMock);
@@ -427,9 +445,9 @@ class Tests extends OHCoreTestCase {
 			when(smsSenderOperationsMock.initialize()).thenReturn(true);
 
 			SmsSender smsSender = new SmsSender();
-			new Thread(smsSender::run).start();
-			Thread.sleep(2000);
-			smsSender.setRunning(false);
+			smsSender.sendOnce();
+			verify(smsSenderOperationsMock).sendSMS(sms);
+			verify(smsOperationsMock, never()).saveOrUpdate(sms);
 		});
 	}
 
@@ -442,14 +460,13 @@ class Tests extends OHCoreTestCase {
 			when(smsSenderOperationsMock.initialize()).thenReturn(false);
 
 			SmsSender smsSender = new SmsSender();
-			new Thread(smsSender::run).start();
-			Thread.sleep(2000);
-			smsSender.setRunning(false);
+			smsSender.sendOnce();
+			verify(smsSenderOperationsMock, never()).initialize();
 		});
 	}
 
 	@Test
-	void testSmsSenderStartAndStopSmsSent() throws Exception {
+	void testSmsSenderSendOnceSmsSent() throws Exception {
 		assertDoesNotThrow(() -> {
 			when(applicationContextMock.getBean(SmsOperations.class)).thenReturn(smsOperationsMock);
 			when(applicationContextMock.getBean(SmsSenderOperations.class)).thenReturn(smsSenderOperationsMock);
@@ -461,14 +478,14 @@ class Tests extends OHCoreTestCase {
 			when(smsSenderOperationsMock.sendSMS(sms)).thenReturn(true);
 
 			SmsSender smsSender = new SmsSender();
-			new Thread(smsSender::run).start();
-			Thread.sleep(2000);
-			smsSender.setRunning(false);
+			smsSender.sendOnce();
+			verify(smsOperationsMock).saveOrUpdate(sms);
+			verify(smsSenderOperationsMock).terminate();
 		});
 	}
 
 	@Test
-	void testSmsSenderStartAndStopSmsSentException() throws Exception {
+	void testSmsSenderSendOnceSmsSentException() throws Exception {
 		assertDoesNotThrow(() -> {
 			when(applicationContextMock.getBean(SmsOperations.class)).thenReturn(smsOperationsMock);
 			when(applicationContextMock.getBean(SmsSenderOperations.class)).thenReturn(smsSenderOperationsMock);
@@ -481,9 +498,8 @@ class Tests extends OHCoreTestCase {
 			when(smsOperationsMock.saveOrUpdate(sms)).thenThrow(new OHServiceException(new OHExceptionMessage("some message")));
 
 			SmsSender smsSender = new SmsSender();
-			new Thread(smsSender::run).start();
-			Thread.sleep(2000);
-			smsSender.setRunning(false);
+			smsSender.sendOnce();
+			verify(smsSenderOperationsMock).terminate();
 		});
 	}
 
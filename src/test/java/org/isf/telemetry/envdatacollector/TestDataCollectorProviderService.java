@@ -0,0 +1,124 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.telemetry.envdatacollector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.isf.utils.exception.OHException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TestDataCollectorProviderService {
+
+	@Test
+	void testCollectDataInParallelWithTimeouts() throws Exception {
+		DataCollectorProviderService dataCollectorProviderService = new DataCollectorProviderService();
+		// PING and PONG each wait for the other one to start: both complete only if they run in parallel
+		CountDownLatch started = new CountDownLatch(2);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		CountDownLatch never = new CountDownLatch(1);
+		ReflectionTestUtils.setField(dataCollectorProviderService, "dataCollectors", List.of(
+						new Collector("PING", 5000, () -> {
+							started.countDown();
+							started.await();
+						}),
+						new Collector("FAST", 5000, () -> {
+						}),
+						new Collector("PONG", 5000, () -> {
+							started.countDown();
+							started.await();
+						}),
+						new Collector("HUNG", 200, () -> {
+							try {
+								never.await();
+							} catch (InterruptedException e) {
+								interrupted.countDown();
+								throw e;
+							}
+						})));
+
+		Map<String, Map<String, String>> data = dataCollectorProviderService.collectData(List.of("PING", "FAST", "PONG", "HUNG"), true);
+
+		assertThat(data).containsOnlyKeys("PING", "FAST", "PONG");
+		assertThat(data.get("PONG")).containsEntry("id", "PONG");
+		// the timed out collector is cancelled
+		assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThatThrownBy(() -> dataCollectorProviderService.collectData(List.of("FAST", "HUNG"), false))
+						.isInstanceOf(OHException.class)
+						.hasMessageContaining("HUNG")
+						.hasMessageContaining("timed out");
+	}
+
+	@FunctionalInterface
+	private interface Work {
+
+		void run() throws InterruptedException;
+	}
+
+	private static final class Collector extends AbstractDataCollector {
+
+		private final String id;
+		private final long timeoutMillis;
+		private final Work work;
+
+		private Collector(String id, long timeoutMillis, Work work) {
+			this.id = id;
+			this.timeoutMillis = timeoutMillis;
+			this.work = work;
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+
+		@Override
+		public String getDescription() {
+			return id;
+		}
+
+		@Override
+		public Duration getTimeout() {
+			return Duration.ofMillis(timeoutMillis);
+		}
+
+		@Override
+		public Map<String, String> retrieveData() throws OHException {
+			try {
+				work.run();
+			} catch (InterruptedException e) {
+				throw new OHException("interrupted", e);
+			}
+			return Map.of("id", id);
+		}
+
+	}
+
+}
@@ -23,6 +23,9 @@ package org.isf.telemetry.envdatacollector.collectors.remote.common;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
 
 import java.util.List;
 import java.util.Map;
@@ -41,6 +44,9 @@ import org.isf.opd.service.OpdIoOperations;
 import org.isf.operation.service.OperationRowIoOperations;
 import org.isf.patient.service.PatientIoOperations;
 import org.isf.telemetry.envdatacollector.collectors.OpenHospitalDataCollector;
+import org.isf.telemetry.envdatacollector.collectors.remote.geoiplookup.GeoIpLookupService;
+import org.isf.telemetry.envdatacollector.constants.CollectorsConstants;
+import org.isf.telemetry.service.TableStatisticsService;
 import org.isf.therapy.service.TherapyIoOperations;
 import org.isf.vaccine.service.VaccineIoOperations;
 import org.isf.visits.service.VisitsIoOperations;
@@ -50,6 +56,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.MediaType;
+import org.mockserver.verify.VerificationTimes;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -84,6 +93,10 @@ class TestOpenHospitalDataCollector extends OHCoreTestCase {
 	private AccountingIoOperations accountingIoOperations;
 	@Mock
 	private GeoIpInfoSettings geoIpInfoSettingsMock;
+	@Autowired
+	private TableStatisticsService tableStatisticsService;
+	@Mock
+	private TableStatisticsService tableStatisticsServiceMock;
 
 	OpenHospitalDataCollector openHospitalDataCollector;
 
@@ -115,7 +128,8 @@ class TestOpenHospitalDataCollector extends OHCoreTestCase {
 						therapyIoOperations,
 						visitsIoOperations,
 						accountingIoOperations,
-						geoIpInfoSettingsMock);
+						geoIpInfoSettingsMock,
+						tableStatisticsService);
 	}
 
 	@AfterEach
@@ -146,4 +160,31 @@ class TestOpenHospitalDataCollector extends OHCoreTestCase {
 		assertThat(data).isNotNull();
 		assertThat(data).hasSize(16);
 	}
+
+	@Test
+	void testRetrieveDataCachesGeoIpAndUsesTableStatistics() throws Exception {
+		ClientAndServer mockServer = startClientAndServer();
+		try {
+			mockServer.when(request().withMethod("GET").withPath("/"))
+							.respond(response().withStatusCode(200).withContentType(MediaType.APPLICATION_JSON)
+											.withBody("{\"country_name\": \"Italy\", \"country_code\": \"IT\", \"city\": \"Rome\"}"));
+			when(geoIpInfoSettingsMock.getSelectedService()).thenReturn("geoiplookup-remote-service");
+			when(geoIpInfoSettingsMock.retrieveBaseUrl("geoiplookup-remote-service")).thenReturn("http://localhost:" + mockServer.getPort());
+			ReflectionTestUtils.setField(openHospitalDataCollector, "geoIpServices", List.of(new GeoIpLookupService(geoIpInfoSettingsMock)));
+			ReflectionTestUtils.setField(openHospitalDataCollector, "tableStatisticsService", tableStatisticsServiceMock);
+			when(tableStatisticsServiceMock.getEstimatedRowCounts()).thenReturn(Map.of("OH_PATIENT", 123456L));
+			when(wardIoOperations.countAllActiveBeds()).thenReturn(100L);
+
+			Map<String, String> data = openHospitalDataCollector.retrieveData();
+			assertThat(data).containsEntry(CollectorsConstants.LOC_COUNTRY_NAME, "Italy")
+							.containsEntry(CollectorsConstants.OH_NUMBER_OF_PATIENTS, "123456")
+							.containsEntry(CollectorsConstants.OH_NUMBER_OF_BEDS, "100");
+
+			// the GeoIP information is cached, the service is called only once
+			assertThat(openHospitalDataCollector.retrieveData()).containsEntry(CollectorsConstants.LOC_CITY, "Rome");
+			mockServer.verify(request().withPath("/"), VerificationTimes.exactly(1));
+		} finally {
+			mockServer.stop();
+		}
+	}
 }
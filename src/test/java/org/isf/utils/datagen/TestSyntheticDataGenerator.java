@@ -0,0 +1,286 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.datagen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.isf.OHCoreTestCase;
+import org.isf.admtype.TestAdmissionType;
+import org.isf.admtype.service.AdmissionTypeIoOperationRepository;
+import org.isf.disctype.TestDischargeType;
+import org.isf.disctype.service.DischargeTypeIoOperationRepository;
+import org.isf.disease.TestDisease;
+import org.isf.disease.service.DiseaseIoOperationRepository;
+import org.isf.distype.TestDiseaseType;
+import org.isf.distype.model.DiseaseType;
+import org.isf.distype.service.DiseaseTypeIoOperationRepository;
+import org.isf.exa.TestExam;
+import org.isf.exa.TestExamRow;
+import org.isf.exa.model.Exam;
+import org.isf.exa.service.ExamIoOperationRepository;
+import org.isf.exa.service.ExamRowIoOperationRepository;
+import org.isf.exatype.TestExamType;
+import org.isf.exatype.model.ExamType;
+import org.isf.exatype.service.ExamTypeIoOperationRepository;
+import org.isf.medicals.TestMedical;
+import org.isf.medicals.model.Medical;
+import org.isf.medicals.service.MedicalsIoOperationRepository;
+import org.isf.medicalstock.model.Movement;
+import org.isf.medicalstock.service.MovementIoOperationRepository;
+import org.isf.medstockmovtype.TestMovementType;
+import org.isf.medstockmovtype.model.MovementType;
+import org.isf.medstockmovtype.service.MedicalDsrStockMovementTypeIoOperationRepository;
+import org.isf.medtype.TestMedicalType;
+import org.isf.medtype.model.MedicalType;
+import org.isf.medtype.service.MedicalTypeIoOperationRepository;
+import org.isf.opd.model.Opd;
+import org.isf.opd.service.OpdIoOperationRepository;
+import org.isf.patient.TestPatient;
+import org.isf.patient.service.PatientIoOperationRepository;
+import org.isf.priceslist.TestPrice;
+import org.isf.priceslist.TestPriceList;
+import org.isf.priceslist.model.PriceList;
+import org.isf.priceslist.service.PriceIoOperationRepository;
+import org.isf.priceslist.service.PricesListIoOperationRepository;
+import org.isf.supplier.TestSupplier;
+import org.isf.supplier.service.SupplierIoOperationRepository;
+import org.isf.utils.exception.OHException;
+import org.isf.ward.TestWard;
+import org.isf.ward.model.Ward;
+import org.isf.ward.service.WardIoOperationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+class TestSyntheticDataGenerator extends OHCoreTestCase {
+
+	private static final String DISCHARGE_TYPE = "ZZDISC";
+
+	@Autowired
+	DataSource dataSource;
+	@Autowired
+	WardIoOperationRepository wardIoOperationRepository;
+	@Autowired
+	DiseaseTypeIoOperationRepository diseaseTypeIoOperationRepository;
+	@Autowired
+	DiseaseIoOperationRepository diseaseIoOperationRepository;
+	@Autowired
+	AdmissionTypeIoOperationRepository admissionTypeIoOperationRepository;
+	@Autowired
+	DischargeTypeIoOperationRepository dischargeTypeIoOperationRepository;
+	@Autowired
+	ExamTypeIoOperationRepository examTypeIoOperationRepository;
+	@Autowired
+	ExamIoOperationRepository examIoOperationRepository;
+	@Autowired
+	ExamRowIoOperationRepository examRowIoOperationRepository;
+	@Autowired
+	MedicalTypeIoOperationRepository medicalTypeIoOperationRepository;
+	@Autowired
+	MedicalsIoOperationRepository medicalsIoOperationRepository;
+	@Autowired
+	MedicalDsrStockMovementTypeIoOperationRepository medicalDsrStockMovementTypeIoOperationRepository;
+	@Autowired
+	MovementIoOperationRepository movementIoOperationRepository;
+	@Autowired
+	SupplierIoOperationRepository supplierIoOperationRepository;
+	@Autowired
+	PricesListIoOperationRepository pricesListIoOperationRepository;
+	@Autowired
+	PriceIoOperationRepository priceIoOperationRepository;
+	@Autowired
+	PatientIoOperationRepository patientIoOperationRepository;
+	@Autowired
+	OpdIoOperationRepository opdIoOperationRepository;
+
+	@TempDir
+	Path tempDir;
+
+	private Medical medical;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		cleanH2InMemoryDb();
+		wardIoOperationRepository.saveAndFlush(new TestWard().setup(false));
+		Ward maternity = new TestWard().setup(false, true);
+		maternity.setOpd(false);
+		maternity.setPharmacy(false);
+		wardIoOperationRepository.saveAndFlush(maternity);
+		DiseaseType diseaseType = diseaseTypeIoOperationRepository.saveAndFlush(new TestDiseaseType().setup(false));
+		diseaseIoOperationRepository.saveAndFlush(new TestDisease().setup(diseaseType, true, true, true, false));
+		admissionTypeIoOperationRepository.saveAndFlush(new TestAdmissionType().setup(false));
+		dischargeTypeIoOperationRepository.saveAndFlush(new TestDischargeType().setup(false));
+		ExamType examType = examTypeIoOperationRepository.saveAndFlush(new TestExamType().setup(false));
+		Exam exam = examIoOperationRepository.saveAndFlush(new TestExam().setup(examType, 1, false));
+		examRowIoOperationRepository.saveAndFlush(new TestExamRow().setup(exam, false));
+		MedicalType medicalType = medicalTypeIoOperationRepository.saveAndFlush(new TestMedicalType().setup(false));
+		medical = medicalsIoOperationRepository.saveAndFlush(new TestMedical().setup(medicalType, false));
+		medicalDsrStockMovementTypeIoOperationRepository.saveAndFlush(new TestMovementType().setup(false));
+		MovementType dischargeType = new TestMovementType().setup(false);
+		dischargeType.setCode(DISCHARGE_TYPE);
+		dischargeType.setType("-");
+		medicalDsrStockMovementTypeIoOperationRepository.saveAndFlush(dischargeType);
+		supplierIoOperationRepository.saveAndFlush(new TestSupplier().setup(false));
+		PriceList priceList = pricesListIoOperationRepository.saveAndFlush(new TestPriceList().setup(false));
+		priceIoOperationRepository.saveAndFlush(new TestPrice().setup(priceList, false));
+	}
+
+	@Test
+	void testGenerateWritesConsistentHistories() throws Exception {
+		DataGeneratorSettings settings = settings(42L);
+		double inQuantity = medical.getInqty();
+		double outQuantity = medical.getOutqty();
+
+		Map<SyntheticTable, Long> counts = generate(settings, connection -> new JdbcBatchSink(connection, 50));
+		entityManager.clear();
+
+		assertThat(counts.get(SyntheticTable.PATIENT)).isEqualTo(300);
+		assertThat(counts.keySet()).containsAll(List.of(SyntheticTable.values()));
+		for (Map.Entry<SyntheticTable, Long> entry : counts.entrySet()) {
+			assertThat(count("SELECT COUNT(*) FROM " + entry.getKey().getTableName())).as(entry.getKey().name()).isEqualTo(entry.getValue());
+		}
+		assertThat(counts.get(SyntheticTable.OPD)).isGreaterThan(300);
+
+		// entities are readable and keep their references
+		List<Opd> opds = opdIoOperationRepository.findAll();
+		assertThat(opds).allSatisfy(opd -> {
+			assertThat(opd.getPatient()).isNotNull();
+			assertThat(opd.getAge()).isBetween(0, 90);
+			assertThat(opd.getDate().toLocalDate()).isBeforeOrEqualTo(settings.getUntil());
+		});
+		// patients still in hospital have no discharge
+		assertThat(count("SELECT COUNT(*) FROM OH_ADMISSION WHERE ADM_IN = 1 AND ADM_DATE_DIS IS NOT NULL")).isZero();
+		assertThat(count("SELECT COUNT(*) FROM OH_ADMISSION WHERE ADM_IN = 0 AND (ADM_DATE_DIS IS NULL OR ADM_DATE_DIS < ADM_DATE_ADM)")).isZero();
+		// bill amounts match their items, balances their payments
+		assertThat(count("SELECT COUNT(*) FROM OH_BILLS B WHERE ABS(B.BLL_AMOUNT - "
+						+ "(SELECT SUM(I.BLI_ITEM_AMOUNT * I.BLI_QTY) FROM OH_BILLITEMS I WHERE I.BLI_ID_BILL = B.BLL_ID)) > 0.01")).isZero();
+		assertThat(count("SELECT COUNT(*) FROM OH_BILLS B WHERE ABS(B.BLL_AMOUNT - B.BLL_BALANCE - "
+						+ "COALESCE((SELECT SUM(P.BLP_AMOUNT) FROM OH_BILLPAYMENTS P WHERE P.BLP_ID_BILL = B.BLL_ID), 0)) > 0.01")).isZero();
+		assertThat(count("SELECT COUNT(*) FROM OH_BILLS WHERE BLL_STATUS = 'C' AND BLL_BALANCE <> 0")).isZero();
+		// no lot is discharged beyond what was charged, and the medical stock follows the movements
+		assertThat(count("SELECT COUNT(*) FROM (SELECT MMV_LT_ID_A, SUM(CASE WHEN MMV_MMVT_ID_A = '" + DISCHARGE_TYPE
+						+ "' THEN -MMV_QTY ELSE MMV_QTY END) AS QTY FROM OH_MEDICALDSRSTOCKMOV GROUP BY MMV_LT_ID_A) L WHERE L.QTY < 0")).isZero();
+		List<Movement> movements = movementIoOperationRepository.findAll();
+		int charged = movements.stream().filter(movement -> movement.getType().getType().equals("+")).mapToInt(Movement::getQuantity).sum();
+		int discharged = movements.stream().filter(movement -> movement.getType().getType().equals("-")).mapToInt(Movement::getQuantity).sum();
+		assertThat(discharged).isPositive();
+		Medical reloaded = medicalsIoOperationRepository.findById(medical.getCode()).orElseThrow();
+		assertThat(reloaded.getInqty()).isCloseTo(inQuantity + charged, within(0.001));
+		assertThat(reloaded.getOutqty()).isCloseTo(outQuantity + discharged, within(0.001));
+		assertThat(count("SELECT SUM(MDSRWRD_IN_QTI) FROM OH_MEDICALDSRWARD")).isEqualTo(discharged);
+
+		// new rows are given keys after the generated ones
+		int patientCode = patientIoOperationRepository.saveAndFlush(new TestPatient().setup(false)).getCode();
+		assertThat(patientCode).isEqualTo(301);
+	}
+
+	@Test
+	void testGenerateIsDeterministic() throws Exception {
+		Path first = tempDir.resolve("first");
+		Path second = tempDir.resolve("second");
+		Path otherSeed = tempDir.resolve("other");
+
+		Map<SyntheticTable, Long> counts = generate(settings(7L), connection -> new CsvFileSink(first));
+		generate(settings(7L), connection -> new CsvFileSink(second));
+		generate(settings(8L), connection -> new CsvFileSink(otherSeed));
+
+		for (SyntheticTable table : counts.keySet()) {
+			String file = table.getTableName() + ".csv";
+			assertThat(Files.readAllLines(first.resolve(file))).as(file).hasSize(counts.get(table).intValue())
+							.isEqualTo(Files.readAllLines(second.resolve(file)));
+		}
+		assertThat(Files.readString(otherSeed.resolve("OH_PATIENT.csv"))).isNotEqualTo(Files.readString(first.resolve("OH_PATIENT.csv")));
+		String script = Files.readString(first.resolve(CsvFileSink.SCRIPT_NAME));
+		assertThat(script).contains("LOAD DATA LOCAL INFILE './OH_PATIENT.csv'")
+						.contains("UPDATE OH_MEDICALDSR SET MDSR_IN_QTI = MDSR_IN_QTI + ");
+		assertThat(script.indexOf("OH_PATIENT.csv")).isLessThan(script.indexOf("OH_OPD.csv"));
+	}
+
+	@Test
+	void testGenerateWithoutReferenceData() {
+		cleanH2InMemoryDb();
+
+		assertThatThrownBy(() -> generate(settings(1L), connection -> new CsvFileSink(tempDir)))
+						.isInstanceOf(OHException.class)
+						.hasMessageContaining("at least one ward");
+	}
+
+	@Test
+	void testCliOptions() {
+		DataGeneratorSettings settings = DataGeneratorCli.settings(DataGeneratorCli.parse(new String[] {
+						"--patients", "1000000", "--seed", "42", "--until", "2024-12-31", "--admission-rate", "0.1", "--csv", "out" }));
+
+		assertThat(settings.getPatients()).isEqualTo(1_000_000);
+		assertThat(settings.getSeed()).isEqualTo(42L);
+		assertThat(settings.getUntil()).isEqualTo(LocalDate.of(2024, 12, 31));
+		assertThat(settings.getAdmissionRate()).isEqualTo(0.1);
+		assertThatThrownBy(() -> DataGeneratorCli.settings(Map.of("patients", "many"))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> DataGeneratorCli.settings(Map.of("unknown", "1"))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> DataGeneratorCli.parse(new String[] { "--patients" })).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static DataGeneratorSettings settings(long seed) {
+		DataGeneratorSettings settings = new DataGeneratorSettings();
+		settings.setSeed(seed);
+		settings.setPatients(300);
+		settings.setUntil(LocalDate.of(2024, 6, 30));
+		settings.setHistoryYears(3);
+		settings.setDicomRate(0.05);
+		return settings;
+	}
+
+	@FunctionalInterface
+	private interface SinkFactory {
+
+		RowSink create(Connection connection) throws OHException;
+	}
+
+	/**
+	 * Generates on the connection of the test transaction, which sees the reference data and is rolled back at the end of the test.
+	 */
+	private Map<SyntheticTable, Long> generate(DataGeneratorSettings settings, SinkFactory sinkFactory) throws OHException {
+		entityManager.flush();
+		Connection connection = DataSourceUtils.getConnection(dataSource);
+		try (RowSink sink = sinkFactory.create(connection)) {
+			return new SyntheticDataGenerator(settings).generate(connection, sink);
+		} finally {
+			DataSourceUtils.releaseConnection(connection, dataSource);
+		}
+	}
+
+	private long count(String sql) {
+		return ((Number) entityManager.createNativeQuery(sql).getSingleResult()).longValue();
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.db;
+
+import org.hibernate.stat.Statistics;
+import org.isf.utils.db.QueryCounter.Kind;
+
+/**
+ * Snapshot of the statements executed and of the entities loaded since {@link QueryCounter#start()}. Every JDBC round trip counts as one
+ * statement of its kind: a batch of inserts is one insert statement.
+ */
+public final class QueryCount {
+
+	private final long selects;
+	private final long inserts;
+	private final long updates;
+	private final long deletes;
+	private final long others;
+	private final long batches;
+	private final long batchedRows;
+	private final long entityLoads;
+	private final long collectionFetches;
+
+	public QueryCount(Statistics statistics) {
+		this.selects = QueryCounter.get(Kind.SELECT);
+		this.inserts = QueryCounter.get(Kind.INSERT);
+		this.updates = QueryCounter.get(Kind.UPDATE);
+		this.deletes = QueryCounter.get(Kind.DELETE);
+		this.others = QueryCounter.get(Kind.OTHER);
+		this.batches = QueryCounter.get(Kind.BATCH);
+		this.batchedRows = QueryCounter.get(Kind.BATCHED_ROW);
+		this.entityLoads = statistics.getEntityLoadCount();
+		this.collectionFetches = statistics.getCollectionFetchCount();
+	}
+
+	/**
+	 * @return the number of JDBC round trips
+	 */
+	public long getStatements() {
+		return selects + inserts + updates + deletes + others;
+	}
+
+	public long getSelects() {
+		return selects;
+	}
+
+	public long getInserts() {
+		return inserts;
+	}
+
+	public long getUpdates() {
+		return updates;
+	}
+
+	public long getDeletes() {
+		return deletes;
+	}
+
+	public long getBatches() {
+		return batches;
+	}
+
+	/**
+	 * @return the number of rows sent in batches
+	 */
+	public long getBatchedRows() {
+		return batchedRows;
+	}
+
+	public long getEntityLoads() {
+		return entityLoads;
+	}
+
+	public long getCollectionFetches() {
+		return collectionFetches;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d statements (selects=%d, inserts=%d, updates=%d, deletes=%d, others=%d, batches=%d of %d rows),"
+						+ " entity loads=%d, collection fetches=%d", getStatements(), selects, inserts, updates, deletes, others, batches, batchedRows,
+						entityLoads, collectionFetches);
+	}
+
+}
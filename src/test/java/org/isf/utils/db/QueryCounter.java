@@ -0,0 +1,155 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.sql.DataSource;
+
+/**
+ * Counts the JDBC statements executed by the thread that called {@link #start()}; statements of other threads, like the write-behind
+ * journals, are ignored. The counting works on a {@link DataSource} wrapped by {@link #wrap(DataSource)}.
+ */
+public final class QueryCounter {
+
+	enum Kind {
+		SELECT, INSERT, UPDATE, DELETE, OTHER, BATCH, BATCHED_ROW
+	}
+
+	private static final AtomicLongArray COUNTS = new AtomicLongArray(Kind.values().length);
+	private static volatile Thread owner;
+
+	private QueryCounter() {
+	}
+
+	/**
+	 * Resets the counters and starts counting the statements executed by the current thread.
+	 */
+	public static void start() {
+		for (int i = 0; i < COUNTS.length(); i++) {
+			COUNTS.set(i, 0);
+		}
+		owner = Thread.currentThread();
+	}
+
+	public static void stop() {
+		owner = null;
+	}
+
+	static long get(Kind kind) {
+		return COUNTS.get(kind.ordinal());
+	}
+
+	private static void record(Kind kind) {
+		if (owner == Thread.currentThread()) {
+			COUNTS.incrementAndGet(kind.ordinal());
+		}
+	}
+
+	private static Kind kindOf(String sql) {
+		String statement = sql == null ? "" : sql.stripLeading().toLowerCase(Locale.ROOT);
+		if (statement.startsWith("select") || statement.startsWith("with")) {
+			return Kind.SELECT;
+		}
+		if (statement.startsWith("insert")) {
+			return Kind.INSERT;
+		}
+		if (statement.startsWith("update")) {
+			return Kind.UPDATE;
+		}
+		if (statement.startsWith("delete")) {
+			return Kind.DELETE;
+		}
+		return Kind.OTHER;
+	}
+
+	public static DataSource wrap(DataSource dataSource) {
+		return proxy(DataSource.class, dataSource, (target, method, args) -> {
+			Object result = invoke(target, method, args);
+			if (result instanceof Connection connection) {
+				return wrap(connection);
+			}
+			return result;
+		});
+	}
+
+	private static Connection wrap(Connection connection) {
+		return proxy(Connection.class, connection, (target, method, args) -> {
+			Object result = invoke(target, method, args);
+			if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+				return wrap(PreparedStatement.class, statement, kindOf((String) args[0]));
+			}
+			if (result instanceof Statement statement && method.getName().equals("createStatement")) {
+				return wrap(Statement.class, statement, null);
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * @param preparedKind - the kind of the prepared statement, {@code null} for a plain {@link Statement} whose SQL is given on execution
+	 */
+	private static <T extends Statement> T wrap(Class<T> type, T statement, Kind preparedKind) {
+		return proxy(type, statement, (target, method, args) -> {
+			String name = method.getName();
+			Kind kind = preparedKind == null && args != null && args.length > 0 && args[0] instanceof String sql ? kindOf(sql) : preparedKind;
+			if (name.equals("addBatch")) {
+				record(Kind.BATCHED_ROW);
+			} else if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+				// a batch is a single round trip, counted with the kind of its statement
+				record(Kind.BATCH);
+				record(kind == null ? Kind.OTHER : kind);
+			} else if (name.startsWith("execute") && kind != null) {
+				record(kind);
+			}
+			return invoke(target, method, args);
+		});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	@FunctionalInterface
+	private interface Handler<T> {
+
+		Object invoke(T target, Method method, Object[] args) throws Throwable;
+	}
+
+	private static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+		InvocationHandler invocationHandler = (proxy, method, args) -> handler.invoke(target, method, args);
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, invocationHandler));
+	}
+
+}
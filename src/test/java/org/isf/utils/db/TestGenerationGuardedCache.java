@@ -0,0 +1,95 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TestGenerationGuardedCache {
+
+	private final GenerationGuardedCache<String, String> cache = new GenerationGuardedCache<>();
+
+	@Test
+	void testGetLoadsOnce() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		GenerationGuardedCache.Loader<String, String> loader = key -> key + loads.incrementAndGet();
+
+		assertThat(cache.get("a", loader)).isEqualTo("a1");
+		assertThat(cache.get("a", loader)).isEqualTo("a1");
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void testGetDropsValueLoadedDuringInvalidation() throws Exception {
+		assertThat(cache.get("a", key -> {
+			cache.invalidate("b");
+			return "stale";
+		})).isEqualTo("stale");
+		assertThat(cache.get("a", key -> "fresh")).isEqualTo("fresh");
+	}
+
+	@Test
+	void testGetDropsValueNotCacheable() throws Exception {
+		assertThat(cache.get("a", key -> "", value -> !value.isEmpty())).isEmpty();
+		assertThat(cache.get("a", key -> "a", value -> !value.isEmpty())).isEqualTo("a");
+	}
+
+	@Test
+	void testInvalidate() throws Exception {
+		cache.get("a", key -> "a1");
+		cache.get("b", key -> "b1");
+		cache.invalidate("a");
+
+		assertThat(cache.get("a", key -> "a2")).isEqualTo("a2");
+		assertThat(cache.get("b", key -> "b2")).isEqualTo("b1");
+
+		cache.invalidateAll();
+
+		assertThat(cache.get("b", key -> "b3")).isEqualTo("b3");
+	}
+
+	@Test
+	void testReload() throws Exception {
+		cache.get("a", key -> "a1");
+		cache.reload("a", key -> "a2");
+		assertThat(cache.get("a", key -> "a3")).isEqualTo("a2");
+
+		cache.reload("a", key -> {
+			cache.update("a", value -> value + "!");
+			return "stale";
+		});
+		assertThat(cache.get("a", key -> "a4")).isEqualTo("a2!");
+	}
+
+	@Test
+	void testUpdate() throws Exception {
+		cache.update("a", value -> value + "!");
+		assertThat(cache.get("a", key -> "a1")).isEqualTo("a1");
+
+		cache.update("a", value -> value + "!");
+		assertThat(cache.get("a", key -> "a2")).isEqualTo("a1!");
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.isf.OHCoreTestCase;
+import org.isf.priceslist.model.Price;
+import org.isf.sms.TestSms;
+import org.isf.sms.model.Sms;
+import org.isf.sms.service.SmsIoOperationRepository;
+import org.isf.supplier.model.Supplier;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+// the sms tests expect IDENTITY identifiers, so Sms only takes pooled identifiers in this context
+@TestPropertySource(properties = "spring.jpa.properties." + OHIdGenerator.POOLED_ENTITIES + "=Sms, Price")
+class TestOHIdGenerator extends OHCoreTestCase {
+
+	private static TestSms testSms;
+
+	@Autowired
+	SmsIoOperationRepository smsIoOperationRepository;
+	@Autowired
+	DataSource dataSource;
+
+	@BeforeAll
+	static void setUpClass() {
+		testSms = new TestSms();
+	}
+
+	@BeforeEach
+	void setUp() {
+		cleanH2InMemoryDb();
+	}
+
+	@Test
+	void testGeneratorConfiguredPerEntity() {
+		assertThat(generatorOf(Sms.class).isPooled()).isTrue();
+		assertThat(generatorOf(Supplier.class).isPooled()).isFalse();
+		assertThat(generatorOf(Supplier.class).generatedOnExecution()).isTrue();
+	}
+
+	@Test
+	void testEntityInsertedThroughIdentityNeverPooled() {
+		assertThat(generatorOf(Price.class).isPooled()).isFalse();
+		assertThat(generatorOf(Price.class).generatedOnExecution()).isTrue();
+	}
+
+	@Test
+	void testPooledIdsAreBatched() throws Exception {
+		smsIoOperationRepository.saveAndFlush(testSms.setup(false));
+		startQueryCount();
+
+		List<Sms> saved = smsIoOperationRepository.saveAll(newSms(20));
+
+		QueryCount queryCount = getQueryCount();
+		assertThat(saved).extracting(Sms::getSmsId).doesNotHaveDuplicates().allMatch(id -> id > 0);
+		assertThat(queryCount.getBatches()).isPositive();
+		assertThat(queryCount.getInserts()).isLessThan(20);
+	}
+
+	@Test
+	void testPooledIdsFollowExistingRows() throws Exception {
+		int existingId = 1_000_000;
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			// a row created through the IDENTITY column, committed outside the test transaction
+			statement.executeUpdate("INSERT INTO OH_SMS (SMS_ID, SMS_DATE, SMS_DATE_SCHED, SMS_NUMBER, SMS_TEXT, SMS_USER, SMS_MOD) "
+							+ "VALUES (" + existingId + ", NOW(), NOW(), 'TestNumber', 'TestText', 'TestUser', 'TestModule')");
+		}
+		try {
+			List<Sms> saved = smsIoOperationRepository.saveAllAndFlush(newSms(2 * OHIdGenerator.DEFAULT_ALLOCATION_SIZE));
+
+			assertThat(saved).extracting(Sms::getSmsId).doesNotHaveDuplicates().doesNotContain(existingId);
+			int lastId = saved.get(saved.size() - 1).getSmsId();
+			assertThat(lastId).isGreaterThan(existingId);
+			try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+							ResultSet resultSet = statement.executeQuery("SELECT IDP_LAST_ID FROM OH_ID_POOL WHERE IDP_ENTITY = 'Sms'")) {
+				assertThat(resultSet.next()).isTrue();
+				assertThat(resultSet.getLong(1)).isGreaterThanOrEqualTo(lastId);
+			}
+		} finally {
+			try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+				statement.executeUpdate("DELETE FROM OH_SMS WHERE SMS_ID = " + existingId);
+			}
+		}
+	}
+
+	private List<Sms> newSms(int count) throws Exception {
+		List<Sms> smsList = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			smsList.add(testSms.setup(false));
+		}
+		return smsList;
+	}
+
+	private OHIdGenerator generatorOf(Class< ? > entityClass) {
+		return (OHIdGenerator) entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getMappingMetamodel()
+						.getEntityDescriptor(entityClass).getGenerator();
+	}
+}
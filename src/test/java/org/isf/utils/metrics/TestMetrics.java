@@ -0,0 +1,146 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.data.Percentage.withPercentage;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.Attribute;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.isf.OHCoreTestCase;
+import org.isf.generaldata.GeneralData;
+import org.isf.utils.exception.OHServiceException;
+import org.isf.ward.TestWard;
+import org.isf.ward.manager.WardBrowserManager;
+import org.isf.ward.model.Ward;
+import org.isf.ward.service.WardIoOperationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class TestMetrics extends OHCoreTestCase {
+
+	@Autowired
+	MetricsRegistry metricsRegistry;
+	@Autowired
+	WardBrowserManager wardBrowserManager;
+	@Autowired
+	WardIoOperationRepository wardIoOperationRepository;
+
+	@BeforeEach
+	void setUp() {
+		cleanH2InMemoryDb();
+		metricsRegistry.reset();
+	}
+
+	@Test
+	void testManagerIoOperationsAndRepositoryCallsAreMeasured() throws Exception {
+		Ward ward = new TestWard().setup(false);
+		wardIoOperationRepository.saveAndFlush(ward);
+
+		assertThat(wardBrowserManager.getWards()).hasSize(1);
+		assertThat(wardBrowserManager.getWards()).hasSize(1);
+
+		MethodStatistics managerStatistics = metricsRegistry.getStatistics("WardBrowserManager.getWards").orElseThrow();
+		assertThat(managerStatistics.getCalls()).isEqualTo(2);
+		assertThat(managerStatistics.getErrors()).isZero();
+		assertThat(managerStatistics.getRows()).isEqualTo(2);
+		assertThat(managerStatistics.getP50Millis()).isPositive();
+		assertThat(managerStatistics.getP99Millis()).isLessThanOrEqualTo(managerStatistics.getMaxMillis() * 1.07);
+		assertThat(metricsRegistry.getStatistics("WardIoOperations.getWards")).hasValueSatisfying(
+						statistics -> assertThat(statistics.getCalls()).isEqualTo(2));
+		// inherited repository methods are named after the repository interface
+		assertThat(metricsRegistry.getStatistics("WardIoOperationRepository.saveAndFlush")).isPresent();
+		assertThat(metricsRegistry.getStatistics()).extracting(MethodStatistics::getName).contains("WardBrowserManager.getWards");
+	}
+
+	@Test
+	void testErrorsAreCounted() throws Exception {
+		Ward ward = new TestWard().setup(false);
+		ward.setCode("M");
+
+		assertThatThrownBy(() -> wardBrowserManager.deleteWard(ward)).isInstanceOf(OHServiceException.class);
+
+		MethodStatistics statistics = metricsRegistry.getStatistics("WardBrowserManager.deleteWard").orElseThrow();
+		assertThat(statistics.getCalls()).isEqualTo(1);
+		assertThat(statistics.getErrors()).isEqualTo(1);
+	}
+
+	@Test
+	void testPercentiles() {
+		for (int i = 1; i <= 1000; i++) {
+			metricsRegistry.record("Test.percentiles", TimeUnit.MICROSECONDS.toNanos(i), false, -1);
+		}
+
+		MethodStatistics statistics = metricsRegistry.getStatistics("Test.percentiles").orElseThrow();
+		assertThat(statistics.getCalls()).isEqualTo(1000);
+		assertThat(statistics.getRows()).isZero();
+		assertThat(statistics.getMaxMillis()).isEqualTo(1.0);
+		assertThat(statistics.getMeanMillis()).isCloseTo(0.5005, offset(0.0001));
+		assertThat(statistics.getP50Millis()).isCloseTo(0.5, withPercentage(7));
+		assertThat(statistics.getP95Millis()).isCloseTo(0.95, withPercentage(7));
+		assertThat(statistics.getP99Millis()).isCloseTo(0.99, withPercentage(7));
+	}
+
+	@Test
+	void testSlowCallThresholdReadWhenUsed() {
+		Integer threshold = GeneralData.SLOWCALLTHRESHOLD;
+		try {
+			// a registry created before GeneralData is loaded follows the setting
+			GeneralData.SLOWCALLTHRESHOLD = null;
+			MetricsRegistry registry = new MetricsRegistry();
+			assertThat(registry.getSlowCallThresholdMillis()).isEqualTo(1000L);
+			GeneralData.SLOWCALLTHRESHOLD = 123;
+			assertThat(registry.getSlowCallThresholdMillis()).isEqualTo(123L);
+			registry.setSlowCallThresholdMillis(250L);
+			assertThat(registry.getSlowCallThresholdMillis()).isEqualTo(250L);
+		} finally {
+			GeneralData.SLOWCALLTHRESHOLD = threshold;
+		}
+	}
+
+	@Test
+	void testJmxExport() throws Exception {
+		ObjectName name = new ObjectName(MetricsRegistry.OBJECT_NAME);
+		long threshold = metricsRegistry.getSlowCallThresholdMillis();
+		try {
+			ManagementFactory.getPlatformMBeanServer().setAttribute(name, new Attribute("SlowCallThresholdMillis", 250L));
+			assertThat(metricsRegistry.getSlowCallThresholdMillis()).isEqualTo(250L);
+
+			metricsRegistry.record("Test.jmx", TimeUnit.MILLISECONDS.toNanos(300), false, 3);
+			Object statistics = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Statistics");
+			assertThat(statistics).isInstanceOf(CompositeData[].class);
+			assertThat((CompositeData[]) statistics)
+							.anySatisfy(data -> assertThat(data.get("name")).isEqualTo("Test.jmx"));
+		} finally {
+			metricsRegistry.setSlowCallThresholdMillis(threshold);
+		}
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TestJobScheduler {
+
+	private JobScheduler jobScheduler;
+
+	@BeforeEach
+	void setUp() {
+		jobScheduler = new JobScheduler("test-job", 2, Duration.ofMillis(100), Duration.ofMillis(400));
+	}
+
+	@AfterEach
+	void tearDown() {
+		jobScheduler.shutdown();
+	}
+
+	@Test
+	void testFixedDelayJob() throws Exception {
+		CountDownLatch latch = new CountDownLatch(3);
+		jobScheduler.schedule("fixed", JobTrigger.fixedDelay(Duration.ofMillis(50)), latch::countDown);
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+
+		JobStatus status = jobScheduler.getStatus("fixed").get();
+		assertThat(status.getRunCount()).isGreaterThanOrEqualTo(3);
+		assertThat(status.getFailureCount()).isZero();
+		assertThat(status.getLastSuccess()).isNotNull();
+		assertThat(status.getLastDuration()).isNotNull();
+
+		assertThat(jobScheduler.cancel("fixed")).isTrue();
+		assertThat(jobScheduler.getStatus("fixed")).isEmpty();
+		assertThat(jobScheduler.cancel("fixed")).isFalse();
+	}
+
+	@Test
+	void testFailingJobBacksOff() throws Exception {
+		// a backoff long enough that the job cannot run again during the test
+		JobScheduler backoffScheduler = new JobScheduler("test-backoff", 1, Duration.ofHours(1), Duration.ofHours(2));
+		try {
+			AtomicInteger runs = new AtomicInteger();
+			backoffScheduler.schedule("failing", JobTrigger.fixedDelay(Duration.ofMillis(10)), () -> {
+				runs.incrementAndGet();
+				throw new IllegalStateException("gateway down");
+			});
+
+			JobStatus status = awaitStatus(backoffScheduler, "failing", found -> found.getRunCount() == 1);
+			assertThat(status.getFailureCount()).isEqualTo(1);
+			assertThat(status.getConsecutiveFailures()).isEqualTo(1);
+			assertThat(status.getLastError()).isEqualTo("gateway down");
+			assertThat(status.getLastSuccess()).isNull();
+			// without backoff the job would run again after 10 ms
+			assertThat(status.getState()).isEqualTo(JobStatus.State.SCHEDULED);
+			assertThat(status.getNextRun()).isAfter(LocalDateTime.now().plusMinutes(30));
+
+			backoffScheduler.runNow("failing");
+			status = awaitStatus(backoffScheduler, "failing", found -> found.getRunCount() == 2);
+			assertThat(runs).hasValue(2);
+			assertThat(status.getConsecutiveFailures()).isEqualTo(2);
+			assertThat(status.getNextRun()).isAfter(LocalDateTime.now().plusMinutes(90));
+		} finally {
+			backoffScheduler.shutdown();
+		}
+	}
+
+	@Test
+	void testJobThrowingErrorIsRescheduled() throws Exception {
+		AtomicInteger runs = new AtomicInteger();
+		jobScheduler.schedule("error", JobTrigger.onDemand(), () -> {
+			if (runs.incrementAndGet() == 1) {
+				throw new AssertionError("unexpected");
+			}
+		});
+
+		jobScheduler.runNow("error");
+		JobStatus status = awaitStatus(jobScheduler, "error", found -> found.getRunCount() == 1);
+		assertThat(status.getState()).isEqualTo(JobStatus.State.IDLE);
+		assertThat(status.getFailureCount()).isEqualTo(1);
+		assertThat(status.getLastError()).isEqualTo("unexpected");
+
+		// the job is not left running and runs again
+		jobScheduler.runNow("error");
+		status = awaitStatus(jobScheduler, "error", found -> found.getRunCount() == 2);
+		assertThat(status.getConsecutiveFailures()).isZero();
+		assertThat(status.getLastSuccess()).isNotNull();
+	}
+
+	@Test
+	void testOnDemandPauseAndResume() throws Exception {
+		AtomicInteger runs = new AtomicInteger();
+		jobScheduler.schedule("onDemand", JobTrigger.onDemand(), runs::incrementAndGet);
+		// an on-demand job is never triggered
+		assertThat(jobScheduler.getStatus("onDemand").get().getState()).isEqualTo(JobStatus.State.IDLE);
+		assertThat(jobScheduler.getStatus("onDemand").get().getNextRun()).isNull();
+
+		assertThat(jobScheduler.runNow("onDemand")).isTrue();
+		awaitStatus(jobScheduler, "onDemand", found -> found.getRunCount() == 1);
+		assertThat(runs).hasValue(1);
+
+		AtomicInteger fixedRuns = new AtomicInteger();
+		jobScheduler.schedule("paused", JobTrigger.fixedDelay(Duration.ofSeconds(10), Duration.ofSeconds(10), 0), fixedRuns::incrementAndGet);
+		assertThat(jobScheduler.getStatus("paused").get().getState()).isEqualTo(JobStatus.State.SCHEDULED);
+		assertThat(jobScheduler.getStatus("paused").get().getNextRun()).isNotNull();
+		jobScheduler.pause("paused");
+		assertThat(jobScheduler.getStatus("paused").get().getState()).isEqualTo(JobStatus.State.PAUSED);
+		jobScheduler.runNow("paused");
+		JobStatus status = awaitStatus(jobScheduler, "paused", found -> found.getRunCount() == 1);
+		assertThat(fixedRuns).hasValue(1);
+		assertThat(status.getState()).isEqualTo(JobStatus.State.PAUSED);
+		jobScheduler.resume("paused");
+		assertThat(jobScheduler.getStatus("paused").get().getState()).isEqualTo(JobStatus.State.SCHEDULED);
+
+		assertThat(jobScheduler.getStatuses()).extracting(JobStatus::getName).containsExactly("onDemand", "paused");
+		assertThat(jobScheduler.runNow("unknown")).isFalse();
+	}
+
+	@Test
+	void testCronTrigger() {
+		long delay = JobTrigger.cron("0 0 2 * * *").nextDelayMillis(true);
+		assertThat(delay).isBetween(0L, TimeUnit.DAYS.toMillis(1));
+		assertThatThrownBy(() -> JobTrigger.cron("not a cron")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void testJitterAndBackoff() {
+		Random random = new Random(1);
+		for (int i = 0; i < 100; i++) {
+			assertThat(JobScheduler.jitter(1000, 0.1, random)).isBetween(900L, 1100L);
+		}
+		assertThat(JobScheduler.jitter(1000, 0, random)).isEqualTo(1000);
+		assertThat(jobScheduler.backoffMillis(1)).isBetween(90L, 110L);
+		assertThat(jobScheduler.backoffMillis(2)).isBetween(180L, 220L);
+		assertThat(jobScheduler.backoffMillis(40)).isBetween(360L, 440L);
+	}
+
+	/**
+	 * Polls the {@link JobStatus} of a job until it satisfies the condition, failing after 5 seconds.
+	 */
+	private static JobStatus awaitStatus(JobScheduler scheduler, String name, Predicate<JobStatus> condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		JobStatus status = scheduler.getStatus(name).get();
+		while (!condition.test(status)) {
+			assertThat(System.nanoTime()).as("Status of job %s: %s", name, status).isLessThan(deadline);
+			Thread.sleep(10);
+			status = scheduler.getStatus(name).get();
+		}
+		return status;
+	}
+
+}
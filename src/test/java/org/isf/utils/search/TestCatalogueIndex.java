@@ -0,0 +1,104 @@
+/*
+ * Open Hospital (www.open-hospital.org)
+ * Copyright © 2006-2024 Informatici Senza Frontiere (info@informaticisenzafrontiere.org)
+ *
+ * Open Hospital is a free and open source software for healthcare data management.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * https://www.gnu.org/licenses/gpl-3.0-standalone.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.isf.utils.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TestCatalogueIndex {
+
+	private static CatalogueIndex<String> index() {
+		return CatalogueIndex.<String> builder()
+			.add("amoxicillin", 5, "Amoxicillin 500mg", "AMX500")
+			.add("ampicillin", 50, "Ampicillin 250mg", "AMP250")
+			.add("paracetamol", 10, "Paracétamol 500mg", "PCM500")
+			.add("cloxacillin", 100, "Cloxacillin", "CLX")
+			.add("chloramphenicol", 1, "Chloramphenicol eye ointment", null)
+			.build();
+	}
+
+	@Test
+	void testSearchRanksByMatchQualityThenUsage() throws Exception {
+		CatalogueIndex<String> index = index();
+		assertThat(index.size()).isEqualTo(5);
+		// whole text, text prefix, word prefix, substring
+		assertThat(index.search("clx", 10)).containsExactly("cloxacillin");
+		assertThat(index.search("am", 10)).containsExactly("ampicillin", "amoxicillin");
+		assertThat(index.search("500", 10)).containsExactly("paracetamol", "amoxicillin");
+		assertThat(index.search("cillin", 10)).containsExactly("cloxacillin", "ampicillin", "amoxicillin");
+		assertThat(index.search("cloxacillin", 10)).containsExactly("cloxacillin");
+	}
+
+	@Test
+	void testSearchFoldsAccentsAndCase() throws Exception {
+		CatalogueIndex<String> index = index();
+		assertThat(index.search("PARACETAMOL", 10)).containsExactly("paracetamol");
+		assertThat(index.search("paracét", 10)).containsExactly("paracetamol");
+		assertThat(index.search("  pcm500 ", 10)).containsExactly("paracetamol");
+	}
+
+	@Test
+	void testSearchShortQueryMatchesWordStartsOnly() throws Exception {
+		CatalogueIndex<String> index = index();
+		assertThat(index.search("e", 10)).containsExactly("chloramphenicol");
+		assertThat(index.search("il", 10)).isEmpty();
+		assertThat(index.search("ill", 10)).containsExactly("cloxacillin", "ampicillin", "amoxicillin");
+	}
+
+	@Test
+	void testSearchLongQuery() throws Exception {
+		CatalogueIndex<String> index = index();
+		assertThat(index.search("chloramphenicol eye", 10)).containsExactly("chloramphenicol");
+		assertThat(index.search("amphenicol eye ointment", 10)).containsExactly("chloramphenicol");
+		assertThat(index.search("chloramphenicol ear", 10)).isEmpty();
+	}
+
+	@Test
+	void testSearchLimitAndFilter() throws Exception {
+		CatalogueIndex<String> index = index();
+		assertThat(index.search("", 2)).containsExactly("cloxacillin", "ampicillin");
+		assertThat(index.search("cillin", 1)).containsExactly("cloxacillin");
+		assertThat(index.search("cillin", 0)).isEmpty();
+		assertThat(index.search("cillin", 10, item -> item.startsWith("am"))).containsExactly("ampicillin", "amoxicillin");
+		assertThat(index.search("xyz", 10)).isEmpty();
+		assertThat(index.search(null, 1)).containsExactly("cloxacillin");
+	}
+
+	@Test
+	void testReplaceByKey() throws Exception {
+		CatalogueIndex<String> index = CatalogueIndex.<String> builder(item -> item.substring(0, 3))
+			.add("amoxicillin", 5, "Amoxicillin 500mg")
+			.add("ampicillin", 50, "Ampicillin 250mg")
+			.build();
+		assertThat(index.get("amo")).isEqualTo("amoxicillin");
+		assertThat(index.get("xyz")).isNull();
+
+		CatalogueIndex<String> changed = index.replace("amo", item -> "amoxicillin 2");
+		assertThat(changed.search("amoxi", 10)).containsExactly("amoxicillin 2");
+		assertThat(changed.search("cillin", 10)).containsExactly("ampicillin", "amoxicillin 2");
+		// the original index is not modified
+		assertThat(index.search("amoxi", 10)).containsExactly("amoxicillin");
+		assertThat(index.replace("xyz", item -> "none")).isSameAs(index);
+	}
+
+}
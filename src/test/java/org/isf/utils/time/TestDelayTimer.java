@@ -21,10 +21,26 @@
  */
 package org.isf.utils.time;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 class TestDelayTimer {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(TestDelayTimer.class);
+
 	@Test
 	void testDelayTimer() throws Exception {
 		// Nothing really to check; if the code doesn't error out then it is as good as it gets
@@ -36,6 +52,165 @@ class TestDelayTimer {
 		delayTimer.quit();
 	}
 
+	@Test
+	void testDelayTimerTriggersOnceAfterDelay() throws Exception {
+		TimingWheel timingWheel = new TimingWheel("test-timer-once", 10, 512);
+		try {
+			CountDownLatch latch = new CountDownLatch(1);
+			AtomicInteger triggers = new AtomicInteger();
+			// the callback runs on the single worker of the wheel, so it is ordered with the marker scheduled below
+			DelayTimer delayTimer = new DelayTimer(() -> {
+				triggers.incrementAndGet();
+				latch.countDown();
+			}, 50L, timingWheel, Runnable::run);
+			delayTimer.startTimer();
+			assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+			CountDownLatch marker = new CountDownLatch(1);
+			timingWheel.schedule(marker::countDown, 100, TimeUnit.MILLISECONDS);
+			assertThat(marker.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(triggers).hasValue(1);
+			assertThat(timingWheel.getPendingCount()).isZero();
+		} finally {
+			timingWheel.stop();
+		}
+	}
+
+	@Test
+	void testDelayTimerResetAndStop() throws Exception {
+		TimingWheel timingWheel = new TimingWheel("test-timer-reset", 10, 512);
+		try {
+			AtomicInteger triggers = new AtomicInteger();
+			// the delay is long enough never to expire during the test, the pending timeouts of the wheel show the state of the timer
+			DelayTimer delayTimer = new DelayTimer(triggers::incrementAndGet, TimeUnit.MINUTES.toMillis(10), timingWheel);
+			delayTimer.startTimer();
+			for (int i = 0; i < 5; i++) {
+				delayTimer.startTimer();
+			}
+			assertThat(timingWheel.getPendingCount()).isEqualTo(1);
+			delayTimer.stopTimer();
+			assertThat(timingWheel.getPendingCount()).isZero();
+			delayTimer.startTimer();
+			assertThat(timingWheel.getPendingCount()).isEqualTo(1);
+			delayTimer.quit();
+			assertThat(timingWheel.getPendingCount()).isZero();
+			delayTimer.startTimer();
+			assertThat(timingWheel.getPendingCount()).isZero();
+			assertThat(triggers).hasValue(0);
+		} finally {
+			timingWheel.stop();
+		}
+	}
+
+	@Test
+	void testResetMakesExpiredTriggerStale() throws Exception {
+		TimingWheel timingWheel = new TimingWheel("test-timer-stale", 10, 512);
+		try {
+			AtomicInteger triggers = new AtomicInteger();
+			List<Runnable> handedOff = new ArrayList<>();
+			CountDownLatch expired = new CountDownLatch(1);
+			// the expiry is handed off but held back, as if the callback thread were busy when the timer is reset
+			DelayTimer delayTimer = new DelayTimer(triggers::incrementAndGet, 10L, timingWheel, runnable -> {
+				synchronized (handedOff) {
+					handedOff.add(runnable);
+				}
+				expired.countDown();
+			});
+			delayTimer.startTimer();
+			assertThat(expired.await(5, TimeUnit.SECONDS)).isTrue();
+			delayTimer.stopTimer();
+			synchronized (handedOff) {
+				handedOff.forEach(Runnable::run);
+			}
+			assertThat(triggers).hasValue(0);
+		} finally {
+			timingWheel.stop();
+		}
+	}
+
+	@Test
+	void testSlowCallbackDoesNotDelayTheWheel() throws Exception {
+		TimingWheel timingWheel = new TimingWheel("test-timer", 10, 512);
+		try {
+			CountDownLatch release = new CountDownLatch(1);
+			DelayTimer slowTimer = new DelayTimer(() -> {
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, 10L, timingWheel);
+			slowTimer.startTimer();
+			CountDownLatch expired = new CountDownLatch(1);
+			timingWheel.schedule(expired::countDown, 50, TimeUnit.MILLISECONDS);
+
+			assertThat(expired.await(1, TimeUnit.SECONDS)).isTrue();
+			release.countDown();
+		} finally {
+			timingWheel.stop();
+		}
+	}
+
+	@Test
+	void testRunReturnsOnQuit() throws Exception {
+		AtomicInteger triggers = new AtomicInteger();
+		DelayTimer delayTimer = new DelayTimer(triggers::incrementAndGet, 50L);
+		Thread thread = new Thread(delayTimer);
+		thread.start();
+		thread.join(200);
+		assertThat(thread.isAlive()).isTrue();
+		assertThat(triggers).hasValue(0);
+
+		delayTimer.quit();
+		thread.join(5000);
+		assertThat(thread.isAlive()).isFalse();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 10_000, 100_000 })
+	void testBenchmarkManyTimers(int size) throws Exception {
+		assumeThat(size <= 10_000 || Boolean.getBoolean("benchmark")).isTrue();
+		String wheelName = "test-timer-bench-" + size;
+		TimingWheel timingWheel = new TimingWheel(wheelName, 10, 512);
+		try {
+			long delay = 500;
+			CountDownLatch latch = new CountDownLatch(size);
+			long[] armedAt = new long[size];
+			long[] latencies = new long[size];
+			List<DelayTimer> timers = new ArrayList<>(size);
+			long start = System.nanoTime();
+			for (int i = 0; i < size; i++) {
+				int index = i;
+				DelayTimer timer = new DelayTimer(() -> {
+					latencies[index] = System.nanoTime() - armedAt[index] - TimeUnit.MILLISECONDS.toNanos(delay);
+					latch.countDown();
+				}, delay, timingWheel);
+				timers.add(timer);
+				armedAt[i] = System.nanoTime();
+				timer.startTimer();
+			}
+			long scheduleNanos = System.nanoTime() - start;
+			// reset every timer once, as a session logout timer is on user activity
+			start = System.nanoTime();
+			for (int i = 0; i < size; i++) {
+				armedAt[i] = System.nanoTime();
+				timers.get(i).startTimer();
+			}
+			long resetNanos = System.nanoTime() - start;
+			// however many timers, the wheel runs on its ticker and worker threads only
+			long wheelThreads = Thread.getAllStackTraces().keySet().stream().filter(thread -> thread.getName().startsWith(wheelName + '-')).count();
+			assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+			Arrays.sort(latencies);
+			LOGGER.info("{} timers: schedule {} ms, reset {} ms, wheel threads {}, latency p50 {} ms, p99 {} ms, max {} ms", size,
+					TimeUnit.NANOSECONDS.toMillis(scheduleNanos), TimeUnit.NANOSECONDS.toMillis(resetNanos), wheelThreads,
+					TimeUnit.NANOSECONDS.toMillis(latencies[size / 2]), TimeUnit.NANOSECONDS.toMillis(latencies[size * 99 / 100]),
+					TimeUnit.NANOSECONDS.toMillis(latencies[size - 1]));
+			assertThat(wheelThreads).isLessThanOrEqualTo(2);
+			assertThat(timingWheel.getPendingCount()).isZero();
+		} finally {
+			timingWheel.stop();
+		}
+	}
+
 	class Callback implements DelayTimerCallback {
 
 		@Override
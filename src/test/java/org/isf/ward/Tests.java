@@ -117,7 +117,12 @@ class Tests extends OHCoreTestCase {
 		admissionTypeIoOperationRepository.saveAndFlush(admissionType);
 		admissionIoOperationRepository.saveAndFlush(admission1);
 		admissionIoOperationRepository.saveAndFlush(admission2);
+		startQueryCount();
+
 		assertThat(wardIoOperation.getCurrentOccupation(ward)).isEqualTo(2);
+
+		// the admissions are counted, not materialized
+		assertThat(assertQueryCount(1).getEntityLoads()).isZero();
 	}
 
 	@Test